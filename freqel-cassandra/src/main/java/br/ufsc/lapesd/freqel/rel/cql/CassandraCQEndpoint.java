@@ -24,8 +24,10 @@ import br.ufsc.lapesd.freqel.query.modifiers.Distinct;
 import br.ufsc.lapesd.freqel.query.modifiers.ModifiersSet;
 import br.ufsc.lapesd.freqel.query.results.AbstractResults;
 import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.ResultsUtils;
 import br.ufsc.lapesd.freqel.query.results.ResultsCloseException;
 import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.impl.AggregatingResults;
 import br.ufsc.lapesd.freqel.query.results.impl.ArraySolution;
 import br.ufsc.lapesd.freqel.query.results.impl.HashDistinctResults;
 import br.ufsc.lapesd.freqel.query.results.impl.LimitResults;
@@ -260,6 +262,13 @@ public class CassandraCQEndpoint extends AbstractTPEndpoint implements CQEndpoin
 
     @Override
     public @Nonnull Results query(@Nonnull CQuery query) {
+        if (query.getModifiers().aggregation() != null) {
+            // The mapping may "unfold" a row into several solutions and builds terms from
+            // column values, thus GROUP BY cannot be delegated. Aggregating here still ships
+            // only the groups to the mediator
+            Results in = query(AggregatingResults.createInputQuery(query));
+            return ResultsUtils.applyNonFilterModifiers(in, query.getModifiers());
+        }
         AnnotationStatus st = new AnnotationStatus(query);
         if (!st.isValid()) {
             if (st.isEmpty()) return getFederation().query(query);
@@ -294,6 +303,11 @@ public class CassandraCQEndpoint extends AbstractTPEndpoint implements CQEndpoin
         return Cardinality.UNSUPPORTED;
     }
 
+    @Override
+    public boolean hasCapability(@Nonnull Capability capability) {
+        return capability == Capability.AGGREGATION || hasRemoteCapability(capability);
+    }
+
     @Override
     public boolean hasRemoteCapability(@Nonnull Capability capability) {
         switch (capability) {
@@ -0,0 +1,68 @@
+package br.ufsc.lapesd.freqel.cardinality.impl;
+
+import br.ufsc.lapesd.freqel.federation.spec.source.SourceCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A {@link TTLEstimateCache} that is loaded from and saved to a {@link SourceCache}.
+ *
+ * Entries are loaded once, on construction. {@link #flush()} rewrites the whole file
+ * (atomically) if there were changes since the last flush.
+ */
+public class PersistentEstimateCache extends TTLEstimateCache {
+    private static final Logger logger = LoggerFactory.getLogger(PersistentEstimateCache.class);
+    public static final @Nonnull String FILE_TYPE = "cardinality-estimates";
+    public static final @Nonnull String SOURCE_ID = "freqel";
+
+    private final @Nonnull SourceCache sourceCache;
+
+    @Inject public PersistentEstimateCache(@Named("estimateCacheTTL") int ttlSeconds,
+                                           @Nonnull SourceCache sourceCache) {
+        super(ttlSeconds);
+        this.sourceCache = sourceCache;
+        load();
+    }
+
+    public @Nonnull SourceCache getSourceCache() {
+        return sourceCache;
+    }
+
+    private void load() {
+        try {
+            File file = sourceCache.getFile(FILE_TYPE, SOURCE_ID);
+            if (file == null || !file.exists())
+                return;
+            try (FileInputStream in = new FileInputStream(file);
+                 Reader reader = new InputStreamReader(in, UTF_8)) {
+                int count = read(reader);
+                logger.debug("Loaded {} cardinality estimates from {}", count, file);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to load cardinality estimates from {}. Starting empty",
+                         sourceCache.getDir(), e);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (!isDirty())
+            return;
+        try {
+            File dir = sourceCache.getDir();
+            if (!dir.exists() && !dir.mkdirs())
+                throw new IOException("Could not mkdir "+dir);
+            sourceCache.reloadIndex();
+            sourceCache.writeFile(FILE_TYPE, "tsv", SOURCE_ID, this::write);
+        } catch (IOException e) {
+            logger.error("Failed to save cardinality estimates into {}", sourceCache.getDir(), e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package br.ufsc.lapesd.freqel.description;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded thread pool where {@link SelectDescription}s fetch their predicates and classes.
+ *
+ * Descriptions used to update on the common {@link ForkJoinPool}, which is shared with
+ * planning and bounded by the number of cores, although description updates mostly wait on
+ * the network. This pool has its own (larger) number of threads and also carries the
+ * per-source limits used while fetching:
+ *
+ * <ul>
+ *     <li>{@link #getSourceConcurrency()}: max number of queries a single description sends
+ *         concurrently to its source. If at least 2, predicates and classes are fetched
+ *         concurrently.</li>
+ *     <li>{@link #getPageSize()}: if positive, predicates and classes are fetched in pages
+ *         of this many rows (only for sources that accept SPARQL queries).</li>
+ * </ul>
+ */
+public class DescriptionUpdater implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(DescriptionUpdater.class);
+    private static final @Nonnull AtomicInteger threadCounter = new AtomicInteger();
+    public static final int DEF_SOURCE_CONCURRENCY = 2;
+    public static final int DEF_PAGE_SIZE = 10000;
+    private static DescriptionUpdater defaultInstance;
+
+    private final @Nonnull ThreadPoolExecutor executor;
+    private final int sourceConcurrency, pageSize;
+
+    public DescriptionUpdater(int threads, int sourceConcurrency, int pageSize) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads="+threads+" < 1");
+        if (sourceConcurrency < 1)
+            throw new IllegalArgumentException("sourceConcurrency="+sourceConcurrency+" < 1");
+        this.sourceConcurrency = sourceConcurrency;
+        this.pageSize = pageSize;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                                               new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "DescriptionUpdater-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static int getDefaultThreads() {
+        return Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Get the instance used by descriptions not (yet) attached to a federation.
+     */
+    public static synchronized @Nonnull DescriptionUpdater getDefault() {
+        if (defaultInstance == null) {
+            defaultInstance = new DescriptionUpdater(getDefaultThreads(),
+                                                     DEF_SOURCE_CONCURRENCY, DEF_PAGE_SIZE);
+        }
+        return defaultInstance;
+    }
+
+    public int getSourceConcurrency() {
+        return sourceConcurrency;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean isClosed() {
+        return executor.isShutdown();
+    }
+
+    /**
+     * Schedules the task. If this updater is closed, the task is scheduled at
+     * {@link #getDefault()}.
+     */
+    public @Nonnull <T> Future<T> submit(@Nonnull Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            if (this == getDefault())
+                throw e;
+            logger.debug("{} is closed, submitting to default instance", this);
+            return getDefault().submit(task);
+        }
+    }
+
+    public @Nonnull Future<?> submit(@Nonnull Runnable task) {
+        return submit(Executors.callable(task));
+    }
+
+    /**
+     * Schedules a {@link FutureTask}. Callers that later need the result and do not want to
+     * wait for a thread of this pool may call {@link FutureTask#run()} themselves before
+     * {@link FutureTask#get()}: if the task has not yet started, it will run in the caller
+     * thread and the pool will later skip it.
+     */
+    public <T> void execute(@Nonnull FutureTask<T> task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (this == getDefault())
+                throw e;
+            getDefault().execute(task);
+        }
+    }
+
+    /**
+     * Stops accepting new updates. Running updates will complete. This has no effect
+     * on {@link #getDefault()}.
+     */
+    @Override public void close() {
+        if (this != getDefault())
+            executor.shutdown();
+    }
+
+    @Override public @Nonnull String toString() {
+        return String.format("DescriptionUpdater{threads=%d, sourceConcurrency=%d, pageSize=%d}",
+                             executor.getMaximumPoolSize(), sourceConcurrency, pageSize);
+    }
+}
@@ -4,6 +4,7 @@ import br.ufsc.lapesd.freqel.V;
 import br.ufsc.lapesd.freqel.federation.spec.source.SourceCache;
 import br.ufsc.lapesd.freqel.jena.JenaWrappers;
 import br.ufsc.lapesd.freqel.model.Triple;
+import br.ufsc.lapesd.freqel.model.prefix.StdPrefixDict;
 import br.ufsc.lapesd.freqel.model.term.Term;
 import br.ufsc.lapesd.freqel.model.term.std.StdVar;
 import br.ufsc.lapesd.freqel.query.CQuery;
@@ -33,6 +34,7 @@ import java.util.Set;
 import java.util.concurrent.*;
 import java.util.function.Function;
 
+import static br.ufsc.lapesd.freqel.model.SPARQLString.term2SPARQL;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MICROSECONDS;
@@ -43,15 +45,17 @@ import static java.util.stream.Collectors.toList;
  * A description that performs a SPARQL SELECT against the endpoint to get predicates
  * (and possibly classes).
  */
-public class SelectDescription implements Description {
+public class SelectDescription implements IndexableDescription {
     private static final Logger logger = LoggerFactory.getLogger(SelectDescription.class);
 
     private final @Nonnull CQEndpoint endpoint;
     private final boolean fetchClasses;
-    protected @Nullable Set<Term> predicates, classes;
+    protected volatile @Nullable Set<Term> predicates, classes;
     private @Nullable Future<?> updateTask = null;
     private @Nullable SaveSpec saveSpec = null;
-    private boolean isUpdated = false;
+    private boolean isUpdated = false, refreshOnInit = false;
+    private volatile @Nullable DescriptionUpdater updater;
+    private final @Nonnull List<Runnable> indexListeners = new CopyOnWriteArrayList<>();
 
     public SelectDescription(@Nonnull CQEndpoint endpoint) throws MissingCapabilityException {
         this(endpoint, false);
@@ -109,24 +113,71 @@ public class SelectDescription implements Description {
             this.cache = cache;
             this.endpointId = endpointId;
         }
+    }
 
-        void save(@Nonnull Set<Term> predicates, @Nullable Set<Term> classes) throws IOException {
-            cache.reloadIndex();
-            File file = cache.createFile("select-description", "yaml", endpointId);
-            try (FileOutputStream stream = new FileOutputStream(file);
-                 OutputStreamWriter writer = new OutputStreamWriter(stream, UTF_8)) {
-                YamlWriter yamlWriter = new YamlWriter(writer);
-                State st = new State();
-                st.predicates = predicates.stream().filter(Term::isURI)
-                                            .map(t -> t.asURI().getURI()).collect(toList());
-                if (classes != null) {
-                    st.classes = classes.stream().filter(Term::isURI).map(t -> t.asURI().getURI())
-                                         .collect(toList());
-                }
-                yamlWriter.write(st);
-                yamlWriter.close();
-            }
+    protected @Nonnull CQEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Set the {@link DescriptionUpdater} where updates will run. If never set, updates
+     * run on {@link DescriptionUpdater#getDefault()}.
+     */
+    public void setUpdater(@Nonnull DescriptionUpdater updater) {
+        this.updater = updater;
+    }
+
+    public @Nonnull DescriptionUpdater getUpdater() {
+        DescriptionUpdater updater = this.updater;
+        return updater == null ? DescriptionUpdater.getDefault() : updater;
+    }
+
+    /**
+     * If set, the next {@link #init()} will start a background {@link #update()} even if the
+     * description is already initialized (e.g., loaded from a {@link SourceCache}).
+     *
+     * While the update runs, {@link #match(CQuery, MatchReasoning)} keeps using the
+     * previous predicates and classes.
+     */
+    public synchronized void setRefreshOnInit(boolean refreshOnInit) {
+        this.refreshOnInit = refreshOnInit;
+    }
+
+    protected boolean isFetchClasses() {
+        return fetchClasses;
+    }
+
+    /**
+     * Saves the current predicates and classes into the given {@link SourceCache}.
+     *
+     * Only called after the description is updated.
+     */
+    protected void save(@Nonnull SourceCache cache, @Nonnull String endpointId) throws IOException {
+        Set<Term> predicates, classes;
+        synchronized (this) {
+            predicates = this.predicates;
+            classes = this.classes;
+        }
+        assert predicates != null;
+        State state = toState(predicates, classes);
+        cache.reloadIndex();
+        cache.writeFile("select-description", "yaml", endpointId, writer -> {
+            YamlWriter yamlWriter = new YamlWriter(writer);
+            yamlWriter.write(state);
+            yamlWriter.close();
+        });
+    }
+
+    protected static @Nonnull State toState(@Nonnull Set<Term> predicates,
+                                            @Nullable Set<Term> classes) {
+        State st = new State();
+        st.predicates = predicates.stream().filter(Term::isURI)
+                                  .map(t -> t.asURI().getURI()).collect(toList());
+        if (classes != null) {
+            st.classes = classes.stream().filter(Term::isURI).map(t -> t.asURI().getURI())
+                                .collect(toList());
         }
+        return st;
     }
 
     public static @Nullable SelectDescription
@@ -168,13 +219,22 @@ public class SelectDescription implements Description {
             doSaveSpec(); // do it now, since it is ready
     }
 
+    /**
+     * Same as {@link #saveWhenReady(SourceCache, String)}, but does not save the current
+     * data. Only data fetched by subsequent updates will be saved.
+     */
+    public synchronized void saveOnUpdate(@Nonnull SourceCache sourceCache,
+                                          @Nonnull String endpointId) {
+        saveSpec = new SaveSpec(sourceCache, endpointId);
+    }
+
     private void doSaveSpec() {
         if (saveSpec == null) return;
         assert predicates != null;
         assert !fetchClasses || classes != null;
         try {
             Stopwatch sw = Stopwatch.createStarted();
-            saveSpec.save(predicates, classes);
+            save(saveSpec.cache, saveSpec.endpointId);
             logger.debug("Saved description for {} at {} in {}ms", endpoint,
                          saveSpec.cache.getDir(), sw.elapsed(MICROSECONDS)/1000.0);
         } catch (IOException e) {
@@ -213,6 +273,7 @@ public class SelectDescription implements Description {
                     if (fetchClasses && classes == null) classes = Collections.emptySet();
                 }
             }
+            notifyIndexListeners();
         } catch (TimeoutException e) {
             logger.warn("updateSync timed out after {} ms", timeoutMilliseconds);
         }
@@ -220,40 +281,117 @@ public class SelectDescription implements Description {
     }
 
     private void doUpdate() {
+        try {
+            fetch();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                if (isUpdated) {
+                    logger.error("Failed to refresh description of {}. Keeping previous data",
+                                 endpoint, e);
+                    updateTask = null;
+                    return;
+                }
+            }
+            throw e;
+        }
+        doSaveSpec();
+        synchronized (this) {
+            updateTask = null;
+            isUpdated = true;
+        }
+        notifyIndexListeners();
+    }
+
+    protected void notifyIndexListeners() {
+        for (Runnable listener : indexListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                logger.error("Index listener {} of {} failed", listener, this, e);
+            }
+        }
+    }
+
+    @Override public synchronized @Nullable Set<Term> getIndexPredicates() {
+        return predicates;
+    }
+
+    @Override public synchronized @Nullable Set<Term> getIndexClasses() {
+        return classes;
+    }
+
+    @Override public void addIndexListener(@Nonnull Runnable listener) {
+        indexListeners.add(listener);
+    }
+
+    /**
+     * Fetches predicates (and classes, if {@link #isFetchClasses()}) from the endpoint.
+     *
+     * Called from a background thread by {@link #update()}. If the
+     * {@link DescriptionUpdater#getSourceConcurrency()} allows, classes are fetched
+     * concurrently with predicates. Both sets are replaced at once, only after both
+     * are fetched.
+     */
+    protected void fetch() {
         StdVar s = new StdVar("s"), p = new StdVar("p"), o = new StdVar("o");
         Stopwatch sw = Stopwatch.createStarted();
-        Set<Term> predicates = fill(new Triple(s, p, o), "p");
+        FutureTask<Set<Term>> classesTask = null;
+        if (fetchClasses) {
+            classesTask = new FutureTask<>(() -> fill(new Triple(s, V.RDF.type, o), "o"));
+            DescriptionUpdater updater = getUpdater();
+            if (updater.getSourceConcurrency() > 1)
+                updater.execute(classesTask);
+        }
+        Set<Term> predicates, classes = null;
+        try {
+            predicates = fill(new Triple(s, p, o), "p");
+        } catch (RuntimeException e) {
+            if (classesTask != null)
+                classesTask.cancel(false);
+            throw e;
+        }
         logger.debug("Fetched {} predicates from {} in {}ms",
                      predicates.size(), endpoint, sw.elapsed(MICROSECONDS)/1000.0);
-        synchronized (this) {
-            this.predicates = predicates;
-        }
-        if (fetchClasses) {
-            Set<Term> classes = fill(new Triple(s, V.RDF.type, o), "o");
+        if (classesTask != null) {
+            classesTask.run(); // no-op if the updater already started it
+            classes = getFetched(classesTask);
             logger.debug("Fetched {} classes from {} in {}ms",
                          classes.size(), endpoint, sw.elapsed(MICROSECONDS)/1000.0);
-            synchronized (this) {
-                this.classes = classes;
-            }
         }
-        doSaveSpec();
         synchronized (this) {
-            updateTask = null;
-            isUpdated = true;
+            this.predicates = predicates;
+            this.classes = classes;
+        }
+    }
+
+    private static @Nonnull Set<Term> getFetched(@Nonnull FutureTask<Set<Term>> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while fetching", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
         }
     }
 
     @Override
     public synchronized void update() {
         if (updateTask == null) {
-            isUpdated = false;
-            updateTask = ForkJoinPool.commonPool().submit(this::doUpdate);
+            // if isUpdated, keep matching with current data until done
+            updateTask = getUpdater().submit(this::doUpdate);
         }
     }
 
     @Override
     public synchronized void init() {
-        if (!isUpdated && updateTask == null) update();
+        if (updateTask == null && (!isUpdated || refreshOnInit)) {
+            refreshOnInit = false;
+            update();
+        }
     }
 
     @Override
@@ -287,6 +425,7 @@ public class SelectDescription implements Description {
                     if (fetchClasses && classes == null) classes = Collections.emptySet();
                 }
             }
+            notifyIndexListeners();
         } catch (TimeoutException e) {
             if (timeoutMilliseconds > 0)
                 logger.warn("waitForInit timed out after {} ms", timeoutMilliseconds);
@@ -295,7 +434,10 @@ public class SelectDescription implements Description {
         return isUpdated;
     }
 
-    private Set<Term> fill(@Nonnull Triple query, @Nonnull String varName) {
+    protected @Nonnull Set<Term> fill(@Nonnull Triple query, @Nonnull String varName) {
+        int pageSize = getUpdater().getPageSize();
+        if (pageSize > 0 && endpoint.canQuerySPARQL())
+            return fillPaged(query, varName, pageSize);
         Stopwatch sw = Stopwatch.createStarted();
         MutableCQuery cQuery = MutableCQuery.from(query);
         cQuery.mutateModifiers().add(Projection.of(varName));
@@ -316,6 +458,38 @@ public class SelectDescription implements Description {
         }
     }
 
+    private @Nonnull Set<Term> fillPaged(@Nonnull Triple query, @Nonnull String varName,
+                                         int pageSize) {
+        Stopwatch sw = Stopwatch.createStarted();
+        String pattern = term2SPARQL(query.getSubject(), StdPrefixDict.EMPTY) + " "
+                       + term2SPARQL(query.getPredicate(), StdPrefixDict.EMPTY) + " "
+                       + term2SPARQL(query.getObject(), StdPrefixDict.EMPTY) + " .";
+        List<String> vars = Collections.singletonList(varName);
+        Set<Term> set = new HashSet<>();
+        int pages = 0;
+        for (long offset = 0; ; offset += pageSize) {
+            String sparql = String.format("SELECT DISTINCT ?%1$s WHERE { %2$s } " +
+                                          "ORDER BY ?%1$s LIMIT %3$d OFFSET %4$d",
+                                          varName, pattern, pageSize, offset);
+            int rows = 0, oldSize = set.size();
+            try (Results results = endpoint.querySPARQL(sparql, false, vars)) {
+                for (; results.hasNext(); ++rows)
+                    set.add(requireNonNull(results.next().get(varName)));
+            } catch (RuntimeException e) {
+                logger.error("Problem fetching page {} from {} with {}",
+                             pages, endpoint, sparql, e);
+                throw e;
+            }
+            ++pages;
+            if (rows < pageSize || set.size() == oldSize)
+                break; // last page or endpoint is ignoring OFFSET
+        }
+        logger.debug("Fetched {} values for ?{} from {} in {} pages of {} rows in {}ms",
+                     set.size(), varName, endpoint, pages, pageSize,
+                     sw.elapsed(MICROSECONDS)/1000.0);
+        return set;
+    }
+
     protected boolean match(@Nonnull Triple triple, @Nonnull MatchReasoning reasoning) {
         assert predicates != null;
         Term p = triple.getPredicate();
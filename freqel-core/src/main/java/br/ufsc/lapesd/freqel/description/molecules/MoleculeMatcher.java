@@ -1,6 +1,7 @@
 package br.ufsc.lapesd.freqel.description.molecules;
 
 import br.ufsc.lapesd.freqel.description.CQueryMatch;
+import br.ufsc.lapesd.freqel.description.IndexableDescription;
 import br.ufsc.lapesd.freqel.description.MatchReasoning;
 import br.ufsc.lapesd.freqel.description.molecules.annotations.AtomAnnotation;
 import br.ufsc.lapesd.freqel.description.semantic.AlternativesSemanticDescription;
@@ -36,11 +37,12 @@ import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
-public class MoleculeMatcher implements AlternativesSemanticDescription {
+public class MoleculeMatcher implements AlternativesSemanticDescription, IndexableDescription {
     private final @Nonnull Molecule molecule;
     private final @Nonnull TBox reasoner;
     private final @Nonnull MergePolicyAnnotation mergePolicyAnnotation;
     private @Nonnull SoftReference<Index> index = new SoftReference<>(null);
+    private @Nullable Set<Term> edges = null;
 
     public MoleculeMatcher(@Nonnull Molecule molecule, @Nonnull TBox reasoner) {
         this(molecule, reasoner, new NoMergePolicyAnnotation());
@@ -106,6 +108,32 @@ public class MoleculeMatcher implements AlternativesSemanticDescription {
     }
 
 
+    @Override public synchronized @Nonnull Set<Term> getIndexPredicates() {
+        if (edges == null) {
+            Set<Term> set = new HashSet<>();
+            for (Atom atom : molecule.getAtomMap().values()) {
+                for (MoleculeLink link : atom.getIn())
+                    set.add(link.getEdge());
+                for (MoleculeLink link : atom.getOut())
+                    set.add(link.getEdge());
+            }
+            edges = Collections.unmodifiableSet(set);
+        }
+        return edges;
+    }
+
+    @Override public @Nullable Set<Term> getIndexClasses() {
+        return null;
+    }
+
+    @Override public @Nonnull TBox getIndexTBox() {
+        return reasoner;
+    }
+
+    @Override public void addIndexListener(@Nonnull Runnable listener) {
+        /* molecules never change */
+    }
+
     @Override
     public @Nonnull String toString() {
         return String.format("MoleculeMatcher(%s)", molecule);
@@ -84,6 +84,10 @@ public class AlternativesSemanticSelectDescription extends SelectDescription imp
         return b[0] == null ? EMPTY : b[0].build();
     }
 
+    @Override public @Nonnull TBox getIndexTBox() {
+        return reasoner;
+    }
+
     @Override public boolean supports(@Nonnull MatchReasoning mode) {
         return MatchReasoning.NONE.equals(mode) || MatchReasoning.ALTERNATIVES.equals(mode);
     }
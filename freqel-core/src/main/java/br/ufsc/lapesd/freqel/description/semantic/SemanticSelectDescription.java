@@ -76,6 +76,10 @@ public class SemanticSelectDescription extends SelectDescription implements Sema
         return p.isVar() || tBox.withSubProperties(p).anyMatch(predicates::contains);
     }
 
+    @Override public @Nonnull TBox getIndexTBox() {
+        return tBox;
+    }
+
     @Override public boolean supports(@Nonnull MatchReasoning mode) {
         return MatchReasoning.NONE.equals(mode) || MatchReasoning.TRANSPARENT.equals(mode);
     }
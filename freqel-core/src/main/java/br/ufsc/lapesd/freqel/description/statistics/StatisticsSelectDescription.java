@@ -0,0 +1,323 @@
+package br.ufsc.lapesd.freqel.description.statistics;
+
+import br.ufsc.lapesd.freqel.V;
+import br.ufsc.lapesd.freqel.description.SelectDescription;
+import br.ufsc.lapesd.freqel.federation.spec.source.SourceCache;
+import br.ufsc.lapesd.freqel.model.Triple;
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.model.term.std.StdURI;
+import br.ufsc.lapesd.freqel.model.term.std.StdVar;
+import br.ufsc.lapesd.freqel.query.endpoint.CQEndpoint;
+import br.ufsc.lapesd.freqel.query.endpoint.exceptions.MissingCapabilityException;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import com.esotericsoftware.yamlbeans.YamlConfig;
+import com.esotericsoftware.yamlbeans.YamlReader;
+import com.esotericsoftware.yamlbeans.YamlWriter;
+import com.google.common.base.Stopwatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static br.ufsc.lapesd.freqel.description.statistics.SourceStatistics.UNKNOWN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * A {@link SelectDescription} that also collects {@link SourceStatistics}.
+ *
+ * Statistics are read from a VoID document, if one is given, else they are computed with
+ * <code>GROUP BY</code> queries sent to the endpoint (this requires
+ * {@link CQEndpoint#canQuerySPARQL()}). If neither is possible, this behaves as
+ * a plain {@link SelectDescription} and {@link #getStatistics()} will remain null.
+ *
+ * Predicates and classes used for matching are derived from the statistics, thus no
+ * additional <code>SELECT DISTINCT</code> queries are needed.
+ */
+public class StatisticsSelectDescription extends SelectDescription
+        implements StatisticsDescription {
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsSelectDescription.class);
+    public static final @Nonnull String FILE_TYPE = "statistics-description";
+
+    private static final @Nonnull String PREDICATES_SPARQL = "SELECT ?p " +
+            "(COUNT(*) AS ?triples) " +
+            "(COUNT(DISTINCT ?s) AS ?subjects) " +
+            "(COUNT(DISTINCT ?o) AS ?objects) " +
+            "WHERE { ?s ?p ?o } GROUP BY ?p";
+    private static final @Nonnull List<String> PREDICATES_VARS
+            = asList("p", "triples", "subjects", "objects");
+    private static final @Nonnull String CLASSES_SPARQL = "SELECT ?c " +
+            "(COUNT(DISTINCT ?s) AS ?instances) " +
+            "WHERE { ?s <"+V.RDF.type.getURI()+"> ?c } GROUP BY ?c";
+    private static final @Nonnull List<String> CLASSES_VARS = asList("c", "instances");
+
+    private final @Nullable String voidUri;
+    private volatile @Nullable SourceStatistics statistics;
+
+    /**
+     * Constructor.
+     *
+     * @param endpoint the endpoint to describe
+     * @param fetchClasses whether classes (and their instance counts) should be collected
+     * @param voidUri URI of a VoID document describing the endpoint. If null, statistics are
+     *                computed with queries to the endpoint.
+     */
+    public StatisticsSelectDescription(@Nonnull CQEndpoint endpoint, boolean fetchClasses,
+                                       @Nullable String voidUri)
+            throws MissingCapabilityException {
+        super(endpoint, fetchClasses);
+        this.voidUri = voidUri;
+    }
+
+    public StatisticsSelectDescription(@Nonnull CQEndpoint endpoint, boolean fetchClasses)
+            throws MissingCapabilityException {
+        this(endpoint, fetchClasses, null);
+    }
+
+    public StatisticsSelectDescription(@Nonnull CQEndpoint endpoint,
+                                       @Nonnull StatisticsState state) {
+        super(endpoint, state);
+        this.voidUri = null;
+        this.statistics = state.toStatistics();
+    }
+
+    @Override public @Nullable SourceStatistics getStatistics() {
+        return statistics;
+    }
+
+    /* --- --- --- persistence --- --- --- */
+
+    protected static class PredicateState {
+        public String uri = null;
+        public long triples = UNKNOWN, distinctSubjects = UNKNOWN, distinctObjects = UNKNOWN;
+    }
+
+    protected static class ClassState {
+        public String uri = null;
+        public long instances = UNKNOWN;
+    }
+
+    protected static class StatisticsState extends State {
+        public long triples = UNKNOWN, distinctSubjects = UNKNOWN, distinctObjects = UNKNOWN;
+        public List<PredicateState> propertyPartitions = null;
+        public List<ClassState> classPartitions = null;
+
+        @Nonnull SourceStatistics toStatistics() {
+            SourceStatistics.Builder builder = SourceStatistics.builder().triples(triples)
+                    .distinctSubjects(distinctSubjects).distinctObjects(distinctObjects);
+            if (propertyPartitions != null) {
+                for (PredicateState p : propertyPartitions) {
+                    builder.predicate(new StdURI(p.uri), p.triples, p.distinctSubjects,
+                                      p.distinctObjects);
+                }
+            }
+            if (classPartitions != null) {
+                builder.withClasses();
+                for (ClassState c : classPartitions)
+                    builder.classInstances(new StdURI(c.uri), c.instances);
+            }
+            return builder.build();
+        }
+
+        void setStatistics(@Nonnull SourceStatistics statistics) {
+            triples = statistics.getTriples();
+            distinctSubjects = statistics.getDistinctSubjects();
+            distinctObjects = statistics.getDistinctObjects();
+            propertyPartitions = new ArrayList<>();
+            for (Map.Entry<Term, PredicateStatistics> e : statistics.getPredicates().entrySet()) {
+                if (!e.getKey().isURI()) continue;
+                PredicateState p = new PredicateState();
+                p.uri = e.getKey().asURI().getURI();
+                p.triples = e.getValue().getTriples();
+                p.distinctSubjects = e.getValue().getDistinctSubjects();
+                p.distinctObjects = e.getValue().getDistinctObjects();
+                propertyPartitions.add(p);
+            }
+            if (statistics.hasClasses()) {
+                classPartitions = new ArrayList<>();
+                for (Map.Entry<Term, Long> e : statistics.getClasses().entrySet()) {
+                    if (!e.getKey().isURI()) continue;
+                    ClassState c = new ClassState();
+                    c.uri = e.getKey().asURI().getURI();
+                    c.instances = e.getValue();
+                    classPartitions.add(c);
+                }
+            }
+        }
+    }
+
+    private static @Nonnull YamlConfig createYamlConfig() {
+        YamlConfig config = new YamlConfig();
+        config.setPropertyElementType(StatisticsState.class, "predicates", String.class);
+        config.setPropertyElementType(StatisticsState.class, "classes", String.class);
+        config.setPropertyElementType(StatisticsState.class, "propertyPartitions",
+                                      PredicateState.class);
+        config.setPropertyElementType(StatisticsState.class, "classPartitions",
+                                      ClassState.class);
+        return config;
+    }
+
+    @Override
+    protected void save(@Nonnull SourceCache cache, @Nonnull String endpointId) throws IOException {
+        SourceStatistics statistics = this.statistics;
+        if (statistics == null) {
+            super.save(cache, endpointId);
+            return;
+        }
+        Set<Term> predicates, classes;
+        synchronized (this) {
+            predicates = this.predicates;
+            classes = this.classes;
+        }
+        assert predicates != null;
+        StatisticsState state = new StatisticsState();
+        State base = toState(predicates, classes);
+        state.predicates = base.predicates;
+        state.classes = base.classes;
+        state.setStatistics(statistics);
+
+        cache.reloadIndex();
+        cache.writeFile(FILE_TYPE, "yaml", endpointId, writer -> {
+            YamlWriter yamlWriter = new YamlWriter(writer, createYamlConfig());
+            yamlWriter.write(state);
+            yamlWriter.close();
+        });
+    }
+
+    public static @Nullable StatisticsSelectDescription
+    fromCache(@Nonnull CQEndpoint endpoint, @Nonnull SourceCache cache,
+              @Nonnull String endpointId) throws IOException {
+        File file = cache.getFile(FILE_TYPE, endpointId);
+        if (file != null)
+            return fromYaml(endpoint, file);
+        return null;
+    }
+    public static @Nonnull StatisticsSelectDescription
+    fromYaml(@Nonnull CQEndpoint endpoint, @Nonnull File file) throws IOException {
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            return fromYaml(endpoint, inputStream);
+        }
+    }
+    public static @Nonnull StatisticsSelectDescription
+    fromYaml(@Nonnull CQEndpoint endpoint, @Nonnull InputStream inputStream) throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(inputStream, UTF_8)) {
+            return fromYaml(endpoint, reader);
+        }
+    }
+    public static @Nonnull StatisticsSelectDescription
+    fromYaml(@Nonnull CQEndpoint endpoint, @Nonnull Reader reader) throws IOException {
+        YamlReader yamlReader = new YamlReader(reader, createYamlConfig());
+        StatisticsState state = yamlReader.read(StatisticsState.class);
+        if (state.predicates == null)
+            state.predicates = new ArrayList<>();
+        return new StatisticsSelectDescription(endpoint, state);
+    }
+
+    /* --- --- --- fetching --- --- --- */
+
+    @Override protected void fetch() {
+        Stopwatch sw = Stopwatch.createStarted();
+        SourceStatistics statistics = null;
+        String source = null;
+        if (voidUri != null) {
+            try {
+                statistics = VoIDStatisticsParser.load(voidUri, getEndpointURI());
+                source = voidUri;
+                if (statistics == null)
+                    logger.warn("No void:Dataset with statistics at {}", voidUri);
+            } catch (RuntimeException e) {
+                logger.error("Failed to load VoID statistics from {} for {}",
+                             voidUri, getEndpoint(), e);
+            }
+        }
+        if (statistics == null && getEndpoint().canQuerySPARQL()) {
+            try {
+                statistics = query();
+                source = "queries";
+            } catch (RuntimeException e) {
+                logger.error("Failed to compute statistics for {}. Will only fetch predicates",
+                             getEndpoint(), e);
+            }
+        }
+        if (statistics == null) {
+            super.fetch();
+            return;
+        }
+        logger.debug("Got statistics for {} from {} in {}ms: {}", getEndpoint(), source,
+                     sw.elapsed(MICROSECONDS)/1000.0, statistics);
+
+        HashSet<Term> predicates = new HashSet<>(statistics.getPredicates().keySet());
+        HashSet<Term> classes = null;
+        if (isFetchClasses()) {
+            if (statistics.hasClasses()) {
+                classes = new HashSet<>(statistics.getClasses().keySet());
+            } else {
+                StdVar s = new StdVar("s"), o = new StdVar("o");
+                classes = new HashSet<>(fill(new Triple(s, V.RDF.type, o), "o"));
+            }
+        }
+        if (predicates.isEmpty()) {
+            // VoID without property partitions, still need predicates for matching
+            StdVar s = new StdVar("s"), p = new StdVar("p"), o = new StdVar("o");
+            predicates.addAll(fill(new Triple(s, p, o), "p"));
+        }
+        synchronized (this) {
+            this.predicates = predicates;
+            this.classes = classes;
+            this.statistics = statistics;
+        }
+    }
+
+    private @Nullable String getEndpointURI() {
+        String id = getEndpoint().getRemoteId();
+        return id != null && id.matches("^https?://.*") ? id : null;
+    }
+
+    private @Nonnull SourceStatistics query() {
+        SourceStatistics.Builder builder = SourceStatistics.builder();
+        CQEndpoint ep = getEndpoint();
+        try (Results results = ep.querySPARQL(PREDICATES_SPARQL, false, PREDICATES_VARS)) {
+            while (results.hasNext()) {
+                Solution solution = results.next();
+                Term p = solution.get("p");
+                long triples = toLong(solution.get("triples"));
+                if (p == null || triples < 0)
+                    continue;
+                builder.predicate(p, triples, toLong(solution.get("subjects")),
+                                  toLong(solution.get("objects")));
+            }
+        }
+        if (isFetchClasses()) {
+            builder.withClasses();
+            try (Results results = ep.querySPARQL(CLASSES_SPARQL, false, CLASSES_VARS)) {
+                while (results.hasNext()) {
+                    Solution solution = results.next();
+                    Term c = solution.get("c");
+                    long instances = toLong(solution.get("instances"));
+                    if (c != null && instances >= 0)
+                        builder.classInstances(c, instances);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private static long toLong(@Nullable Term term) {
+        if (term == null || !term.isLiteral())
+            return UNKNOWN;
+        try {
+            return Long.parseLong(term.asLiteral().getLexicalForm().trim());
+        } catch (NumberFormatException e) {
+            return UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package br.ufsc.lapesd.freqel.description.statistics;
+
+import br.ufsc.lapesd.freqel.jena.JenaWrappers;
+import org.apache.jena.rdf.model.*;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.vocabulary.RDF;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import static br.ufsc.lapesd.freqel.description.statistics.SourceStatistics.UNKNOWN;
+import static org.apache.jena.rdf.model.ResourceFactory.createProperty;
+import static org.apache.jena.rdf.model.ResourceFactory.createResource;
+
+/**
+ * Reads {@link SourceStatistics} from a <a href="https://www.w3.org/TR/void/">VoID</a>
+ * description of a dataset.
+ */
+public class VoIDStatisticsParser {
+    public static final @Nonnull String NS = "http://rdfs.org/ns/void#";
+    public static final @Nonnull Resource Dataset = createResource(NS+"Dataset");
+    public static final @Nonnull Property sparqlEndpoint = createProperty(NS+"sparqlEndpoint");
+    public static final @Nonnull Property triples = createProperty(NS+"triples");
+    public static final @Nonnull Property entities = createProperty(NS+"entities");
+    public static final @Nonnull Property distinctSubjects = createProperty(NS+"distinctSubjects");
+    public static final @Nonnull Property distinctObjects = createProperty(NS+"distinctObjects");
+    public static final @Nonnull Property propertyPartition = createProperty(NS+"propertyPartition");
+    public static final @Nonnull Property classPartition = createProperty(NS+"classPartition");
+    public static final @Nonnull Property property = createProperty(NS+"property");
+    public static final @Nonnull Property clazz = createProperty(NS+"class");
+
+    /**
+     * Loads the VoID document at the given URI and parses it with
+     * {@link #parse(Model, String)}.
+     *
+     * @throws org.apache.jena.riot.RiotException if the document could not be fetched or parsed
+     */
+    public static @Nullable SourceStatistics load(@Nonnull String documentUri,
+                                                  @Nullable String endpointUri) {
+        Model model = ModelFactory.createDefaultModel();
+        RDFDataMgr.read(model, documentUri);
+        return parse(model, endpointUri);
+    }
+
+    /**
+     * Get statistics for the <code>void:Dataset</code> in model.
+     *
+     * @param model the VoID description
+     * @param endpointUri If non-null, prefer the dataset with this
+     *                    <code>void:sparqlEndpoint</code>.
+     * @return {@link SourceStatistics} or null if no suitable dataset was found.
+     */
+    public static @Nullable SourceStatistics parse(@Nonnull Model model,
+                                                   @Nullable String endpointUri) {
+        Resource dataset = findDataset(model, endpointUri);
+        return dataset == null ? null : parse(dataset);
+    }
+
+    private static @Nullable Resource findDataset(@Nonnull Model model,
+                                                  @Nullable String endpointUri) {
+        if (endpointUri != null) {
+            ResIterator it = model.listSubjectsWithProperty(sparqlEndpoint,
+                                                            createResource(endpointUri));
+            try {
+                while (it.hasNext()) {
+                    Resource candidate = it.next();
+                    if (hasStatistics(candidate))
+                        return candidate;
+                }
+            } finally {
+                it.close();
+            }
+        }
+        Resource fallback = null;
+        ResIterator it = model.listSubjectsWithProperty(RDF.type, Dataset);
+        try {
+            while (it.hasNext()) {
+                Resource candidate = it.next();
+                if (candidate.hasProperty(propertyPartition))
+                    return candidate;
+                if (fallback == null && hasStatistics(candidate))
+                    fallback = candidate;
+            }
+        } finally {
+            it.close();
+        }
+        return fallback;
+    }
+
+    private static boolean hasStatistics(@Nonnull Resource dataset) {
+        return dataset.hasProperty(propertyPartition) || dataset.hasProperty(triples);
+    }
+
+    private static @Nonnull SourceStatistics parse(@Nonnull Resource dataset) {
+        SourceStatistics.Builder builder = SourceStatistics.builder()
+                .triples(getLong(dataset, triples))
+                .distinctSubjects(getLong(dataset, distinctSubjects))
+                .distinctObjects(getLong(dataset, distinctObjects));
+        StmtIterator it = dataset.listProperties(propertyPartition);
+        try {
+            while (it.hasNext()) {
+                RDFNode node = it.next().getObject();
+                if (!node.isResource()) continue;
+                Resource partition = node.asResource();
+                Statement p = partition.getProperty(property);
+                long count = getLong(partition, triples);
+                if (p == null || !p.getObject().isURIResource() || count < 0)
+                    continue;
+                builder.predicate(JenaWrappers.fromJena(p.getObject().asResource()), count,
+                                  getLong(partition, distinctSubjects),
+                                  getLong(partition, distinctObjects));
+            }
+        } finally {
+            it.close();
+        }
+        it = dataset.listProperties(classPartition);
+        try {
+            while (it.hasNext()) {
+                RDFNode node = it.next().getObject();
+                if (!node.isResource()) continue;
+                Resource partition = node.asResource();
+                Statement c = partition.getProperty(clazz);
+                long count = getLong(partition, entities);
+                if (c == null || !c.getObject().isURIResource() || count < 0)
+                    continue;
+                builder.classInstances(JenaWrappers.fromJena(c.getObject().asResource()), count);
+            }
+        } finally {
+            it.close();
+        }
+        return builder.build();
+    }
+
+    private static long getLong(@Nonnull Resource subject, @Nonnull Property property) {
+        Statement statement = subject.getProperty(property);
+        if (statement == null || !statement.getObject().isLiteral())
+            return UNKNOWN;
+        try {
+            return Long.parseLong(statement.getObject().asLiteral().getLexicalForm().trim());
+        } catch (NumberFormatException e) {
+            return UNKNOWN;
+        }
+    }
+}
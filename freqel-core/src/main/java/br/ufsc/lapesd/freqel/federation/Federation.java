@@ -4,16 +4,24 @@ import br.ufsc.lapesd.freqel.algebra.Cardinality;
 import br.ufsc.lapesd.freqel.algebra.Op;
 import br.ufsc.lapesd.freqel.algebra.inner.UnionOp;
 import br.ufsc.lapesd.freqel.algebra.leaf.EmptyOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.EndpointQueryOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.PathOp;
 import br.ufsc.lapesd.freqel.algebra.leaf.QueryOp;
 import br.ufsc.lapesd.freqel.algebra.util.TreeUtils;
+import br.ufsc.lapesd.freqel.cardinality.EstimateCache;
 import br.ufsc.lapesd.freqel.cardinality.InnerCardinalityComputer;
+import br.ufsc.lapesd.freqel.cardinality.StatisticsCatalog;
 import br.ufsc.lapesd.freqel.description.Description;
+import br.ufsc.lapesd.freqel.description.DescriptionUpdater;
 import br.ufsc.lapesd.freqel.description.MatchReasoning;
+import br.ufsc.lapesd.freqel.description.SelectDescription;
 import br.ufsc.lapesd.freqel.federation.concurrent.PlanningExecutorService;
 import br.ufsc.lapesd.freqel.federation.decomp.FilterAssigner;
 import br.ufsc.lapesd.freqel.federation.decomp.agglutinator.Agglutinator;
 import br.ufsc.lapesd.freqel.federation.decomp.match.MatchingStrategy;
 import br.ufsc.lapesd.freqel.federation.execution.PlanExecutor;
+import br.ufsc.lapesd.freqel.federation.performance.FederationMetrics;
+import br.ufsc.lapesd.freqel.federation.performance.MeteredResults;
 import br.ufsc.lapesd.freqel.federation.performance.metrics.Metrics;
 import br.ufsc.lapesd.freqel.federation.performance.metrics.TimeSampler;
 import br.ufsc.lapesd.freqel.federation.planner.ConjunctivePlanner;
@@ -31,6 +39,8 @@ import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
 import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilter;
 import br.ufsc.lapesd.freqel.query.results.Results;
 import br.ufsc.lapesd.freqel.query.results.ResultsExecutor;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.profile.ExecutionProfile;
 import br.ufsc.lapesd.freqel.reason.tbox.TBox;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Stopwatch;
@@ -40,8 +50,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -68,6 +80,9 @@ public class Federation extends AbstractTPEndpoint implements CQEndpoint {
     private final @Nonnull PlanningExecutorService executorService;
     private final @Nonnull SourceCache sourceCache;
     private final @Nonnull TBox tBox;
+    private final @Nonnull StatisticsCatalog statisticsCatalog;
+    private final @Nonnull EstimateCache estimateCache;
+    private final @Nonnull DescriptionUpdater descriptionUpdater;
     private @Nonnull TemplateExpander templateExpander;
 
     @Inject
@@ -82,7 +97,10 @@ public class Federation extends AbstractTPEndpoint implements CQEndpoint {
                       @Nonnull ResultsExecutor resultsExecutor,
                       @Nonnull PlanningExecutorService executorService,
                       @Nonnull SourceCache sourceCache,
-                      @Nonnull TBox tBox) {
+                      @Nonnull TBox tBox,
+                      @Nonnull StatisticsCatalog statisticsCatalog,
+                      @Nonnull EstimateCache estimateCache,
+                      @Nonnull DescriptionUpdater descriptionUpdater) {
         this.prePlanner = prePlanner;
         this.conjunctivePlanner = conjunctivePlanner;
         this.postPlanner = postPlanner;
@@ -90,6 +108,9 @@ public class Federation extends AbstractTPEndpoint implements CQEndpoint {
         this.agglutinator = agglutinator;
         this.sourceCache = sourceCache;
         this.tBox = tBox;
+        this.statisticsCatalog = statisticsCatalog;
+        this.estimateCache = estimateCache;
+        this.descriptionUpdater = descriptionUpdater;
         agglutinator.setMatchingStrategy(matchingStrategy);
         this.executor = executor;
         this.performance = performance;
@@ -113,6 +134,15 @@ public class Federation extends AbstractTPEndpoint implements CQEndpoint {
         return tBox;
     }
 
+    /**
+     * Cardinalities observed when executing queries. Use
+     * {@link StatisticsCatalog#write(java.io.Writer)} and
+     * {@link StatisticsCatalog#read(java.io.Reader)} to export and import them.
+     */
+    public @Nonnull StatisticsCatalog getStatisticsCatalog() {
+        return statisticsCatalog;
+    }
+
     public @Nonnull ConjunctivePlanner getConjunctivePlanner() {
         return conjunctivePlanner;
     }
@@ -127,6 +157,9 @@ public class Federation extends AbstractTPEndpoint implements CQEndpoint {
 
     @Contract("_ -> this") @CanIgnoreReturnValue
     public @Nonnull Federation addSource(@Nonnull TPEndpoint source) {
+        Description description = source.getDescription();
+        if (description instanceof SelectDescription)
+            ((SelectDescription) description).setUpdater(descriptionUpdater);
         matchingStrategy.addSource(source);
         return this;
     }
@@ -139,6 +172,10 @@ public class Federation extends AbstractTPEndpoint implements CQEndpoint {
      * Starts parallel initialization of all source {@link Description}s and waits for
      * at most timeout units until all initializations are complete.
      *
+     * {@link SelectDescription}s are initialized in the {@link DescriptionUpdater} of this
+     * federation. Descriptions loaded from a {@link SourceCache} are immediately
+     * initialized, but may be refreshed in background.
+     *
      * If the timeout expires, false will be returned, but query() can be safely called.
      * All sources that did not yet completed background initialization will simple return
      * empty results from their {@link Description#match(CQuery, MatchReasoning)} calls.
@@ -173,22 +210,64 @@ public class Federation extends AbstractTPEndpoint implements CQEndpoint {
     }
 
     public @Nonnull Results query(@Nonnull Op query) {
+        long startNs = System.nanoTime();
+        FederationMetrics.QUERIES.increment();
         Stopwatch sw = Stopwatch.createStarted();
-        Op plan = plan(expandTemplates(query));
-        double planMs = sw.elapsed(MICROSECONDS)/1000.0;
-        sw.reset().start();
-        Results results = execute(plan);
+        Results results;
+        double planMs;
+        try {
+            Op plan = plan(expandTemplates(query));
+            planMs = sw.elapsed(MICROSECONDS)/1000.0;
+            sw.reset().start();
+            results = execute(plan);
+        } catch (RuntimeException | Error e) {
+            FederationMetrics.recordQuery((System.nanoTime() - startNs)/1000, true);
+            throw e;
+        }
         if (!logger.isDebugEnabled()) {
             logger.info("plan() took {}ms and iterators setup {}ms ",
                         planMs, sw.elapsed(MICROSECONDS)/1000.0);
         }
-        return results;
+        return new MeteredResults(results, startNs);
     }
 
     public @Nonnull Results execute(@Nonnull Op plan) {
         return resultsExecutor.async(executor.executePlan(plan));
     }
 
+    /**
+     * Executes the plan, recording per-operator statistics into profile as the
+     * returned {@link Results} are consumed.
+     *
+     * @param plan a plan, as returned by {@link #plan(Op)}
+     * @param profile profile created for the same plan
+     */
+    public @Nonnull Results execute(@Nonnull Op plan, @Nonnull ExecutionProfile profile) {
+        return resultsExecutor.async(executor.executePlan(plan, profile));
+    }
+
+    /**
+     * Plans and executes the query consuming (and discarding) all its solutions.
+     *
+     * @return The profile of the execution. Use {@link ExecutionProfile#explain()} to get
+     *         the plan annotated with the execution statistics (EXPLAIN ANALYZE).
+     */
+    public @Nonnull ExecutionProfile explainAnalyze(@Nonnull Op query) {
+        Op plan = plan(expandTemplates(query));
+        ExecutionProfile profile = new ExecutionProfile(plan);
+        Solution[] batch = new Solution[256];
+        try (Results results = execute(plan, profile)) {
+            while (results.nextBatch(batch, batch.length) > 0) {
+                /* discard solutions */
+            }
+        }
+        return profile;
+    }
+
+    public @Nonnull ExecutionProfile explainAnalyze(@Nonnull CQuery query) {
+        return explainAnalyze(new QueryOp(query));
+    }
+
     @VisibleForTesting
     @Nonnull Op expandTemplates(@Nonnull Op query) {
         return TreeUtils.replaceNodes(query, null, op -> {
@@ -227,11 +306,47 @@ public class Federation extends AbstractTPEndpoint implements CQEndpoint {
                                 query.prettyPrint().replace("\n", "\n    "));
                 }
                 return componentPlan;
+            } else if (op instanceof PathOp) {
+                planPath((PathOp) op, gCtx);
             }
             return op;
         });
     }
 
+    private void planPath(@Nonnull PathOp op, @Nonnull GlobalContextAnnotation gCtx) {
+        MutableCQuery hop = op.createHopQuery();
+        hop.annotate(gCtx);
+        Collection<Op> nodes = matchingStrategy.match(hop, agglutinator);
+        Op hopPlan;
+        try (TimeSampler ignored = Metrics.PLAN_MS.createThreadSampler(performance)) {
+            hopPlan = conjunctivePlanner.plan(hop, nodes);
+        }
+        op.setHopPlan(hopPlan);
+        op.setSource(getSingleSPARQLSource(hopPlan));
+    }
+
+    /**
+     * If all leaves of plan query the same endpoint, and it accepts SPARQL, return it.
+     */
+    private static @Nullable CQEndpoint getSingleSPARQLSource(@Nonnull Op plan) {
+        TPEndpoint endpoint = null;
+        for (Iterator<Op> it = TreeUtils.iteratePreOrder(plan); it.hasNext(); ) {
+            Op op = it.next();
+            if (op instanceof EndpointQueryOp) {
+                TPEndpoint opEndpoint = ((EndpointQueryOp) op).getEndpoint();
+                if (endpoint == null)
+                    endpoint = opEndpoint;
+                else if (endpoint != opEndpoint)
+                    return null;
+            } else if (op.getChildren().isEmpty()) {
+                return null; // EmptyOp or some leaf not bound to an endpoint
+            }
+        }
+        if (endpoint instanceof CQEndpoint && ((CQEndpoint) endpoint).canQuerySPARQL())
+            return (CQEndpoint) endpoint;
+        return null;
+    }
+
     public @Nonnull Op plan(@Nonnull CQuery query) {
         return plan(new QueryOp(query));
     }
@@ -271,7 +386,9 @@ public class Federation extends AbstractTPEndpoint implements CQEndpoint {
         return (query.modifiers().distinct() == null || plan.modifiers().distinct() != null)
                 && (query.modifiers().limit() == null || plan.modifiers().limit() != null)
                 && (query.modifiers().projection() == null || plan.modifiers().projection() != null)
-                && (query.modifiers().ask() == null || plan.modifiers().ask() != null);
+                && (query.modifiers().ask() == null || plan.modifiers().ask() != null)
+                && (query.modifiers().aggregation() == null
+                    || plan.modifiers().aggregation() != null);
     }
 
     @Override
@@ -308,6 +425,9 @@ public class Federation extends AbstractTPEndpoint implements CQEndpoint {
             }
         }
         resultsExecutor.close();
+        descriptionUpdater.close();
+        statisticsCatalog.flush();
+        estimateCache.flush();
         performance.close();
     }
 }
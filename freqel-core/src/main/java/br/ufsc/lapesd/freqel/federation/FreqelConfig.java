@@ -2,15 +2,19 @@ package br.ufsc.lapesd.freqel.federation;
 
 import br.ufsc.lapesd.freqel.algebra.util.RelativeCardinalityAdder;
 import br.ufsc.lapesd.freqel.cardinality.impl.*;
+import br.ufsc.lapesd.freqel.description.DescriptionUpdater;
 import br.ufsc.lapesd.freqel.federation.concurrent.PoolPlanningExecutorService;
 import br.ufsc.lapesd.freqel.federation.decomp.agglutinator.StandardAgglutinator;
 import br.ufsc.lapesd.freqel.federation.decomp.match.SourcesListMatchingStrategy;
 import br.ufsc.lapesd.freqel.federation.execution.InjectedExecutor;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.LazyCartesianOpExecutor;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.SimpleEmptyOpExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.SimplePathOpExecutor;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.SimplePipeOpExecutor;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.SimpleQueryOpExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.BindSemiJoinOpExecutor;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.DefaultJoinOpExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.adaptive.AdaptiveBindJoinResults;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.bind.SimpleBindJoinResults;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.hash.ParallelInMemoryHashJoinResults;
 import br.ufsc.lapesd.freqel.federation.performance.NoOpPerformanceListener;
@@ -18,10 +22,12 @@ import br.ufsc.lapesd.freqel.federation.planner.conjunctive.GreedyJoinOrderPlann
 import br.ufsc.lapesd.freqel.federation.planner.conjunctive.bitset.BitsetConjunctivePlannerDispatcher;
 import br.ufsc.lapesd.freqel.federation.planner.equiv.NoEquivCleaner;
 import br.ufsc.lapesd.freqel.federation.planner.utils.DefaultFilterJoinPlanner;
+import br.ufsc.lapesd.freqel.query.results.impl.SpillingDistinctResults;
 import br.ufsc.lapesd.freqel.reason.tbox.NoEndpointReasoner;
 import br.ufsc.lapesd.freqel.reason.tbox.NoOpTBoxMaterializer;
 import br.ufsc.lapesd.freqel.reason.tbox.TBoxSpec;
 import br.ufsc.lapesd.freqel.util.DictTree;
+import br.ufsc.lapesd.freqel.util.VirtualThreads;
 import com.github.lapesd.rdfit.util.Utils;
 import com.google.common.base.Splitter;
 
@@ -130,6 +136,21 @@ public class FreqelConfig {
                 return parseDir(value);
             }
         },
+        DESCRIPTION_UPDATE_THREADS {
+            @Override public @Nonnull Integer parse(@Nullable Object value) throws InvalidValueException {
+                return parseInteger(value);
+            }
+        },
+        DESCRIPTION_SOURCE_CONCURRENCY {
+            @Override public @Nonnull Integer parse(@Nullable Object value) throws InvalidValueException {
+                return parseInteger(value);
+            }
+        },
+        DESCRIPTION_PAGE_SIZE {
+            @Override public @Nonnull Integer parse(@Nullable Object value) throws InvalidValueException {
+                return parseInteger(value);
+            }
+        },
         MATCHING {
             @Override public @Nullable String parse(@Nullable Object value) throws InvalidValueException {
                 return parseClassName(value);
@@ -140,11 +161,21 @@ public class FreqelConfig {
                 return parseDouble(value);
             }
         },
+        VIRTUAL_THREADS {
+            @Override public @Nonnull Boolean parse(@Nullable Object value) throws InvalidValueException {
+                return parseBool(value);
+            }
+        },
         RESULTS_EXECUTOR_BUFFER_SIZE {
             @Override public @Nonnull Integer parse(@Nullable Object value) throws InvalidValueException {
                 return parseInteger(value);
             }
         },
+        DISTINCT_MEMORY_BUDGET {
+            @Override public @Nonnull Integer parse(@Nullable Object value) throws InvalidValueException {
+                return parseInteger(value);
+            }
+        },
         ESTIMATE_LIMIT {
             @Override public @Nonnull Integer parse(@Nullable Object value) throws InvalidValueException {
                 return parseInteger(value);
@@ -170,6 +201,31 @@ public class FreqelConfig {
                 return parseBool(value);
             }
         },
+        ESTIMATE_CACHE {
+            @Override public @Nullable String parse(@Nullable Object value) throws InvalidValueException {
+                return parseClassName(value);
+            }
+        },
+        ESTIMATE_CACHE_TTL {
+            @Override public @Nonnull Integer parse(@Nullable Object value) throws InvalidValueException {
+                return parseInteger(value);
+            }
+        },
+        STATISTICS_CATALOG {
+            @Override public @Nullable String parse(@Nullable Object value) throws InvalidValueException {
+                return parseClassName(value);
+            }
+        },
+        STATISTICS_CATALOG_FILE {
+            @Override public @Nullable File parse(@Nullable Object value) throws InvalidValueException {
+                return parseFile(value);
+            }
+        },
+        STATISTICS_CATALOG_TTL {
+            @Override public @Nonnull Integer parse(@Nullable Object value) throws InvalidValueException {
+                return parseInteger(value);
+            }
+        },
         PERFORMANCE_LISTENER {
             @Override public @Nullable String parse(@Nullable Object value) throws InvalidValueException {
                 return parseClassName(value);
@@ -190,6 +246,11 @@ public class FreqelConfig {
                 return parseClassName(value);
             }
         },
+        JOIN_ORDER_DP_MAX_RELATIONS {
+            @Override public @Nonnull Integer parse(@Nullable Object value) throws InvalidValueException {
+                return parseInteger(value);
+            }
+        },
         FILTER_JOIN_PLANNER {
             @Override public @Nullable String parse(@Nullable Object value) throws InvalidValueException {
                 return parseClassName(value);
@@ -330,6 +391,11 @@ public class FreqelConfig {
                 return parseBool(value, true);
             }
         },
+        POSTPLANNER_PUSH_AGGREGATION {
+            @Override public @Nonnull Boolean parse(@Nullable Object value) throws InvalidValueException {
+                return parseBool(value, true);
+            }
+        },
         BIND_JOIN_RESULTS_FACTORY {
             @Override public @Nonnull String parse(@Nullable Object value) throws InvalidValueException {
                 return parseClassName(value);
@@ -345,6 +411,11 @@ public class FreqelConfig {
                 return parseClassName(value);
             }
         },
+        ADAPTIVE_JOIN_SWITCH_ROWS {
+            @Override public @Nonnull Integer parse(@Nullable Object value) throws InvalidValueException {
+                return parseInteger(value);
+            }
+        },
         PLAN_EXECUTOR {
             @Override public @Nonnull String parse(@Nullable Object value) throws InvalidValueException {
                 return parseClassName(value);
@@ -384,6 +455,16 @@ public class FreqelConfig {
             @Override public @Nonnull String parse(@Nullable Object value) throws InvalidValueException {
                 return parseClassName(value);
             }
+        },
+        PATH_OP_EXECUTOR {
+            @Override public @Nonnull String parse(@Nullable Object value) throws InvalidValueException {
+                return parseClassName(value);
+            }
+        },
+        SEMI_JOIN_OP_EXECUTOR {
+            @Override public @Nonnull String parse(@Nullable Object value) throws InvalidValueException {
+                return parseClassName(value);
+            }
         };
 
         public abstract @Nullable Object parse(@Nullable Object value) throws InvalidValueException;
@@ -523,17 +604,26 @@ public class FreqelConfig {
                     return Double.class;
                 case ESTIMATE_LIMIT:
                 case RESULTS_EXECUTOR_BUFFER_SIZE:
+                case DISTINCT_MEMORY_BUDGET:
                 case PLANNING_CORE_THREADS:
                 case PLANNING_MAX_THREADS:
                 case LARGE_CARDINALITY_THRESHOLD:
                 case HUGE_CARDINALITY_THRESHOLD:
                 case REL_CARDINALITY_ADDER_NONEMPTY_MIN:
+                case JOIN_ORDER_DP_MAX_RELATIONS:
+                case ADAPTIVE_JOIN_SWITCH_ROWS:
+                case ESTIMATE_CACHE_TTL:
+                case STATISTICS_CATALOG_TTL:
+                case DESCRIPTION_UPDATE_THREADS:
+                case DESCRIPTION_SOURCE_CONCURRENCY:
+                case DESCRIPTION_PAGE_SIZE:
                     return Integer.class;
                 case ESTIMATE_QUERY_LOCAL:
                 case ESTIMATE_QUERY_REMOTE:
                 case ESTIMATE_ASK_LOCAL:
                 case ESTIMATE_ASK_REMOTE:
                 case REPLACEMENT_PRUNE_BY_DESCRIPTION:
+                case VIRTUAL_THREADS:
                 case PREPLANNER_FLATTEN:
                 case PREPLANNER_CARTESIAN_INTRODUCTION:
                 case PREPLANNER_UNION_DISTRIBUTION:
@@ -545,12 +635,15 @@ public class FreqelConfig {
                 case POSTPLANNER_PUSH_LIMIT:
                 case POSTPLANNER_PIPE_CLEANER:
                 case POSTPLANNER_PUSH_DISJUNCTIVE:
+                case POSTPLANNER_PUSH_AGGREGATION:
                     return Boolean.class;
                 case TBOX_HDT:
                 case TBOX_RDF:
                 case ENDPOINT_REASONER:
                 case MATERIALIZER:
                 case MATCHING:
+                case ESTIMATE_CACHE:
+                case STATISTICS_CATALOG:
                 case PERFORMANCE_LISTENER:
                 case AGGLUTINATOR:
                 case CONJUNCTIVE_PLANNER:
@@ -575,12 +668,15 @@ public class FreqelConfig {
                 case CARTESIAN_OP_EXECUTOR:
                 case EMPTY_OP_EXECUTOR:
                 case PIPE_OP_EXECUTOR:
+                case PATH_OP_EXECUTOR:
+                case SEMI_JOIN_OP_EXECUTOR:
                     return String.class;
                 case CARDINALITY_HEURISTICS:
                     return Set.class;
                 case MATERIALIZER_STORAGE:
                 case SOURCES_CACHE_DIR:
                 case TEMP_DIR:
+                case STATISTICS_CATALOG_FILE:
                     return File.class;
                 case MATERIALIZER_SPEC:
                     return TBoxSpec.class;
@@ -594,12 +690,28 @@ public class FreqelConfig {
                     return -1.0;
                 case RESULTS_EXECUTOR_BUFFER_SIZE:
                     return 10;
+                case DISTINCT_MEMORY_BUDGET:
+                    return (int) (SpillingDistinctResults.DEF_MEMORY_BUDGET / (1024 * 1024));
                 case ESTIMATE_LIMIT:
                     return 100;
                 case LARGE_CARDINALITY_THRESHOLD:
                     return 256;
                 case HUGE_CARDINALITY_THRESHOLD:
                     return 2048;
+                case JOIN_ORDER_DP_MAX_RELATIONS:
+                    return 10;
+                case ADAPTIVE_JOIN_SWITCH_ROWS:
+                    return AdaptiveBindJoinResults.DEF_SWITCH_ROWS;
+                case ESTIMATE_CACHE_TTL:
+                    return TTLEstimateCache.DEF_TTL_SECONDS;
+                case STATISTICS_CATALOG_TTL:
+                    return DefaultStatisticsCatalog.DEF_TTL_SECONDS;
+                case DESCRIPTION_UPDATE_THREADS:
+                    return DescriptionUpdater.getDefaultThreads();
+                case DESCRIPTION_SOURCE_CONCURRENCY:
+                    return DescriptionUpdater.DEF_SOURCE_CONCURRENCY;
+                case DESCRIPTION_PAGE_SIZE:
+                    return DescriptionUpdater.DEF_PAGE_SIZE;
                 case REL_CARDINALITY_ADDER_NONEMPTY_MIN:
                     return 1;
                 case REL_CARDINALITY_ADDER_NONEMPTY_PROPORTION:
@@ -614,6 +726,8 @@ public class FreqelConfig {
                 case ESTIMATE_ASK_REMOTE:
                 case ESTIMATE_QUERY_REMOTE:
                     return false;
+                case VIRTUAL_THREADS:
+                    return VirtualThreads.isSupported();
                 case ESTIMATE_ASK_LOCAL:
                 case ESTIMATE_QUERY_LOCAL:
                 case REPLACEMENT_PRUNE_BY_DESCRIPTION:
@@ -628,9 +742,11 @@ public class FreqelConfig {
                 case POSTPLANNER_PUSH_LIMIT:
                 case POSTPLANNER_PIPE_CLEANER:
                 case POSTPLANNER_PUSH_DISJUNCTIVE:
+                case POSTPLANNER_PUSH_AGGREGATION:
                     return true;
                 case TBOX_HDT:
                 case TBOX_RDF:
+                case STATISTICS_CATALOG_FILE:
                     return null;
                 case ENDPOINT_REASONER:
                     return NoEndpointReasoner.class.getName();
@@ -661,9 +777,13 @@ public class FreqelConfig {
                 case INNER_CARDINALITY_COMPUTER:
                     return DefaultInnerCardinalityComputer.class.getName();
                 case JOIN_CARDINALITY_ESTIMATOR:
-                    return BindJoinCardinalityEstimator.class.getName();
+                    return ObservedJoinCardinalityEstimator.class.getName();
                 case FAST_CARDINALITY_HEURISTIC:
                     return QuickSelectivityHeuristic.class.getName();
+                case ESTIMATE_CACHE:
+                    return TTLEstimateCache.class.getName();
+                case STATISTICS_CATALOG:
+                    return DefaultStatisticsCatalog.class.getName();
                 case CARDINALITY_COMPARATOR:
                     return ThresholdCardinalityComparator.class.getName();
                 case CARDINALITY_ADDER:
@@ -673,7 +793,9 @@ public class FreqelConfig {
                 case CARDINALITY_HEURISTICS:
                     return Collections.unmodifiableSet(new HashSet<>(asList(
                             QuickSelectivityHeuristic.class.getName(),
-                            LimitCardinalityHeuristic.class.getName())
+                            LimitCardinalityHeuristic.class.getName(),
+                            ObservedCardinalityHeuristic.class.getName(),
+                            StatisticsCardinalityHeuristic.class.getName())
                     ));
                 case PLAN_EXECUTOR:
                     return InjectedExecutor.class.getName();
@@ -691,6 +813,10 @@ public class FreqelConfig {
                     return SimpleEmptyOpExecutor.class.getName();
                 case PIPE_OP_EXECUTOR:
                     return SimplePipeOpExecutor.class.getName();
+                case PATH_OP_EXECUTOR:
+                    return SimplePathOpExecutor.class.getName();
+                case SEMI_JOIN_OP_EXECUTOR:
+                    return BindSemiJoinOpExecutor.class.getName();
                 case MATERIALIZER_STORAGE:
                     return new File("materialized");
                 case SOURCES_CACHE_DIR:
@@ -11,6 +11,10 @@ import java.util.Collection;
 
 public interface Agglutinator {
     interface State {
+        /**
+         * Records the match of ep. Endpoints that are never given to this method are
+         * handled as if they had an empty match.
+         */
         void addMatch(@Nonnull TPEndpoint ep, @Nonnull CQueryMatch match);
         @Nonnull Collection<Op> takeLeaves();
     }
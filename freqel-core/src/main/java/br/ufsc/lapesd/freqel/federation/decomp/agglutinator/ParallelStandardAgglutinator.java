@@ -72,6 +72,11 @@ public class ParallelStandardAgglutinator implements Agglutinator {
         private final List<Set<CQuery>> ep2exq;
         private final List<Map<CQuery, Set<CQuery>>> ep2exq2alt;
         private final List<CQueryMatch> ep2match;
+        /** Endpoints given to {@link #addMatch(TPEndpoint, CQueryMatch)}. Others have
+         *  no match and are skipped. Guarded by itself, as matches are added concurrently */
+        private final Bitset matchedEps;
+        /** Indices in matchedEps, filled once all matches have been added */
+        private int[] matchedIdx = new int[0];
         private  RefIndexSet<TPEndpoint> epSet;
         private final List<Bitset> tmpTriplesWithAlt;
         private final List<Bitset> tmpTriplesWithoutAlt;
@@ -94,6 +99,7 @@ public class ParallelStandardAgglutinator implements Agglutinator {
             tmpTriplesWithoutAlt = new ArrayList<>(nEps);
             tmpQueries = new ArrayList<>(nEps);
             mergeExclusiveTriples = new ArrayList<>(nEps);
+            matchedEps = Bitsets.create(nEps);
             for (int i = 0; i < nEps; i++) {
                 ep2net.add(Bitsets.create(nEps));
                 ep2ext.add(Bitsets.create(nEps));
@@ -119,9 +125,18 @@ public class ParallelStandardAgglutinator implements Agglutinator {
             assert ep2net.size() == tmpQueries.size();
             assert ep2net.size() == mergeExclusiveTriples.size();
 
+            for (int i = matchedEps.nextSetBit(0); i >= 0; i = matchedEps.nextSetBit(i+1)) {
+                ep2net.get(i).clear();
+                ep2ext.get(i).clear();
+                ep2exq.get(i).clear();
+                ep2exq2alt.get(i).clear();
+                ep2match.set(i, null);
+            }
+            matchedEps.clear();
             for (int i = ep2ext.size(); i < nEps; i++) { // grow storage if got more eps
                 ep2net.add(Bitsets.create(nTriples));
                 ep2ext.add(Bitsets.create(nTriples));
+                ep2match.add(null);
                 ep2exq.add(new HashSet<>());
                 ep2exq2alt.add(new HashMap<>());
                 tmpQueries.add(new ArrayList<>());
@@ -133,6 +148,9 @@ public class ParallelStandardAgglutinator implements Agglutinator {
 
         @Override public void addMatch(@Nonnull TPEndpoint ep, @Nonnull CQueryMatch match) {
             int epIdx = epSet.indexOf(ep);
+            synchronized (matchedEps) {
+                matchedEps.set(epIdx);
+            }
             ep2match.set(epIdx, match);
             Bitset neTriples = ep2net.get(epIdx);
             neTriples.clear();
@@ -156,12 +174,12 @@ public class ParallelStandardAgglutinator implements Agglutinator {
             assert ep2ext.size() >= epSet.size() && ep2ext.stream().noneMatch(Objects::isNull);
             inEG.clear();
             // phase 0: build a bitset with all triple in some exclusive group
-            for (int i = 0, nEps = epSet.size(); i < nEps; i++) {
+            for (int i : matchedIdx) {
                 for (CQuery eg : ep2exq.get(i))
                     inEG.or(((IndexSubset<Triple>)eg.attr().getSet()).getBitset());
             }
-            executor.parallelFor(0, epSet.size(),
-                                 this::splitNonExclusiveTriplesPhase1Endpoint);
+            executor.parallelFor(0, matchedIdx.length,
+                    i -> splitNonExclusiveTriplesPhase1Endpoint(matchedIdx[i]));
         }
 
         private void splitNonExclusiveTriplesPhase1Endpoint(int epIdx) {
@@ -169,9 +187,9 @@ public class ParallelStandardAgglutinator implements Agglutinator {
             Bitset ex = ep2ext.get(epIdx);
             ex.assign(ep2net.get(epIdx));
             ex.andNot(inEG);
-            int size = epSet.size();
-            for (int j = 0      ; j < epIdx; j++) ex.andNot(ep2net.get(j));
-            for (int j = epIdx+1; j < size ; j++) ex.andNot(ep2net.get(j));
+            for (int j : matchedIdx) {
+                if (j != epIdx) ex.andNot(ep2net.get(j));
+            }
         }
 
         private void splitNonExclusiveTriplesPhase2(int epIdx) {
@@ -343,8 +361,16 @@ public class ParallelStandardAgglutinator implements Agglutinator {
 
         @Override public @Nonnull Collection<Op> takeLeaves() {
             try (TimeSampler ignored = Metrics.AGGLUTINATION_MS.createThreadSampler(perfListener)) {
+                synchronized (matchedEps) {
+                    matchedIdx = new int[matchedEps.cardinality()];
+                    for (int i = matchedEps.nextSetBit(0), j = 0; i >= 0;
+                             i = matchedEps.nextSetBit(i+1)) {
+                        matchedIdx[j++] = i;
+                    }
+                }
                 splitNonExclusiveTriplesPhase1();
-                executor.parallelFor(0, epSet.size(), this::takeLeavesEndpointPreprocess);
+                executor.parallelFor(0, matchedIdx.length,
+                                     i -> takeLeavesEndpointPreprocess(matchedIdx[i]));
                 List<Op> nodes = buildNodes();
                 assert checkNodesUniverseSets(nodes);
                 assert checkLostGroups(nodes);
@@ -378,7 +404,7 @@ public class ParallelStandardAgglutinator implements Agglutinator {
 
         private List<Op> buildNodes() {
             List<Op> result = new ArrayList<>();
-            for (int epIdx = 0, nEps = epSet.size(); epIdx < nEps; epIdx++) {
+            for (int epIdx : matchedIdx) {
                 TPEndpoint ep = epSet.get(epIdx);
                 Map<CQuery, Set<CQuery>> exq2alt = ep2exq2alt.get(epIdx);
                 CQueryMatch m = ep2match.get(epIdx);
@@ -67,6 +67,9 @@ public class StandardAgglutinator implements Agglutinator {
         private final List<Set<CQuery>> ep2exq;
         private final List<Map<CQuery, Set<CQuery>>> ep2exq2alt;
         private final List<CQueryMatch> ep2match;
+        /** Endpoints given to {@link #addMatch(TPEndpoint, CQueryMatch)}. Others have
+         *  no match and are skipped. */
+        private final Bitset matchedEps;
         private RefIndexSet<TPEndpoint> epSet;
         private Bitset tmpTriplesWithAlt;
         private Bitset tmpTriplesWithoutAlt;
@@ -83,6 +86,7 @@ public class StandardAgglutinator implements Agglutinator {
             ep2exq = new ArrayList<>(epSetSize);
             ep2match = new ArrayList<>(epSetSize);
             ep2exq2alt = new ArrayList<>(epSetSize);
+            matchedEps = Bitsets.create(epSetSize);
             for (int i = 0; i < epSetSize; i++) {
                 ep2net.add(Bitsets.create(epSetSize));
                 ep2ext.add(Bitsets.create(epSetSize));
@@ -101,10 +105,19 @@ public class StandardAgglutinator implements Agglutinator {
             assert matchingStrategy != null;
             this.epSet = matchingStrategy.getEndpoints();
             assert ep2net.size() == ep2match.size();
+            for (int i = matchedEps.nextSetBit(0); i >= 0; i = matchedEps.nextSetBit(i+1)) {
+                ep2net.get(i).clear();
+                ep2ext.get(i).clear();
+                ep2exq.get(i).clear();
+                ep2exq2alt.get(i).clear();
+                ep2match.set(i, null);
+            }
+            matchedEps.clear();
             int nTriples = triplesUniverse.size();
             for (int i = ep2ext.size(), size = epSet.size(); i < size; i++) {
                 ep2net.add(Bitsets.create(nTriples));
                 ep2ext.add(Bitsets.create(nTriples));
+                ep2match.add(null);
                 ep2exq.add(new HashSet<>());
                 ep2exq2alt.add(new HashMap<>());
             }
@@ -116,6 +129,7 @@ public class StandardAgglutinator implements Agglutinator {
 
         @Override public void addMatch(@Nonnull TPEndpoint ep, @Nonnull CQueryMatch match) {
             int epIdx = epSet.indexOf(ep);
+            matchedEps.set(epIdx);
             ep2match.set(epIdx, match);
             Bitset neTriples = ep2net.get(epIdx);
             neTriples.clear();
@@ -136,25 +150,25 @@ public class StandardAgglutinator implements Agglutinator {
          * into {@link StandardState#ep2exq}.
          */
         private void splitNonExclusiveTriples() {
-            int nEps = epSet.size();
-            assert ep2ext.size() >= nEps && ep2ext.stream().noneMatch(Objects::isNull);
+            assert ep2ext.size() >= epSet.size() && ep2ext.stream().noneMatch(Objects::isNull);
             Bitset inEG = this.tmpTriplesWithoutAlt;
             inEG.clear();
             // phase 1: build a bitset with all triple in some exclusive group
-            for (int i = 0; i < nEps; i++) {
+            for (int i = matchedEps.nextSetBit(0); i >= 0; i = matchedEps.nextSetBit(i+1)) {
                 for (CQuery eg : ep2exq.get(i))
                     inEG.or(((IndexSubset<Triple>)eg.attr().getSet()).getBitset());
             }
             // phase 2: find exclusive groups
-            for (int i = 0; i < nEps; i++) {
+            for (int i = matchedEps.nextSetBit(0); i >= 0; i = matchedEps.nextSetBit(i+1)) {
                 Bitset ex = ep2ext.get(i);
                 ex.assign(ep2net.get(i));
                 ex.andNot(inEG);
-                for (int j = 0  ; j < i   ; j++) ex.andNot(ep2net.get(j));
-                for (int j = i+1; j < nEps; j++) ex.andNot(ep2net.get(j));
+                for (int j = matchedEps.nextSetBit(0); j >= 0; j = matchedEps.nextSetBit(j+1)) {
+                    if (j != i) ex.andNot(ep2net.get(j));
+                }
             }
             // phase 3: remove the exclusive groups from ep2ne
-            for (int i = 0; i < nEps; i++) {
+            for (int i = matchedEps.nextSetBit(0); i >= 0; i = matchedEps.nextSetBit(i+1)) {
                 ep2exq2alt.get(i).clear();
                 Bitset triples = ep2ext.get(i);
                 ep2net.get(i).andNot(triples);
@@ -246,7 +260,8 @@ public class StandardAgglutinator implements Agglutinator {
          *  query will replace the non-mergeable EG. */
         private void mergeExclusiveQueries() {
             Bitset mergeable = tmpTriplesWithAlt;
-            for (int epIdx = 0, nEps = epSet.size(); epIdx < nEps; epIdx++) {
+            for (int epIdx = matchedEps.nextSetBit(0); epIdx >= 0;
+                     epIdx = matchedEps.nextSetBit(epIdx+1)) {
                 TPEndpoint ep = epSet.get(epIdx);
                 Set<CQuery> exqSet = ep2exq.get(epIdx);
                 int nQueries = exqSet.size();
@@ -361,7 +376,8 @@ public class StandardAgglutinator implements Agglutinator {
 
         private List<Op> buildNodes() {
             List<Op> result = new ArrayList<>();
-            for (int epIdx = 0, nEps = epSet.size(); epIdx < nEps; epIdx++) {
+            for (int epIdx = matchedEps.nextSetBit(0); epIdx >= 0;
+                     epIdx = matchedEps.nextSetBit(epIdx+1)) {
                 TPEndpoint ep = epSet.get(epIdx);
                 Map<CQuery, Set<CQuery>> exq2alt = ep2exq2alt.get(epIdx);
                 CQueryMatch m = ep2match.get(epIdx);
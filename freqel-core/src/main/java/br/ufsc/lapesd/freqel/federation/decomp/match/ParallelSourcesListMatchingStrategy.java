@@ -9,6 +9,7 @@ import br.ufsc.lapesd.freqel.federation.performance.metrics.Metrics;
 import br.ufsc.lapesd.freqel.federation.performance.metrics.TimeSampler;
 import br.ufsc.lapesd.freqel.query.CQuery;
 import br.ufsc.lapesd.freqel.query.annotations.GlobalContextAnnotation;
+import br.ufsc.lapesd.freqel.util.Bitset;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
@@ -38,8 +39,12 @@ public class ParallelSourcesListMatchingStrategy extends SourcesListMatchingStra
         AtomicInteger nMatches = new AtomicInteger(0);
         try (TimeSampler ignored = Metrics.SELECTION_MS.createThreadSampler(perfListener)) {
             Agglutinator.State state = agglutinator.createState(q);
-            executor.parallelFor(0, endpoints.size(), i -> {
-                if (match(endpoints.get(i), q, state))
+            Bitset candidates = index.getCandidates(q);
+            int[] matchable = new int[candidates.cardinality()];
+            for (int i = candidates.nextSetBit(0), j = 0; i >= 0; i = candidates.nextSetBit(i+1))
+                matchable[j++] = i;
+            executor.parallelFor(0, matchable.length, i -> {
+                if (match(endpoints.get(matchable[i]), q, state))
                     nMatches.incrementAndGet();
             });
             perfListener.sample(Metrics.SOURCES_COUNT, nMatches.get());
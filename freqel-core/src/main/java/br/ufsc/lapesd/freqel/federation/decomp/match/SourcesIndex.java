@@ -0,0 +1,217 @@
+package br.ufsc.lapesd.freqel.federation.decomp.match;
+
+import br.ufsc.lapesd.freqel.V;
+import br.ufsc.lapesd.freqel.description.Description;
+import br.ufsc.lapesd.freqel.description.IndexableDescription;
+import br.ufsc.lapesd.freqel.description.MatchReasoning;
+import br.ufsc.lapesd.freqel.description.semantic.AlternativesSemanticDescription;
+import br.ufsc.lapesd.freqel.model.Triple;
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+import br.ufsc.lapesd.freqel.reason.tbox.TBox;
+import br.ufsc.lapesd.freqel.util.Bitset;
+import br.ufsc.lapesd.freqel.util.bitset.Bitsets;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Inverted index from predicates and classes to the sources whose
+ * {@link IndexableDescription} may match them.
+ *
+ * Sources are identified by the order in which they were added. Sources whose description
+ * is not an {@link IndexableDescription} or whose predicates are not yet known are always
+ * reported as candidates. The index is updated whenever an {@link IndexableDescription}
+ * notifies its listeners.
+ *
+ * Note that if a source has its description replaced after it has been added,
+ * the index will not notice.
+ */
+public class SourcesIndex {
+    private static final @Nonnull Term TYPE = V.RDF.type;
+
+    private final @Nonnull ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final @Nonnull List<Entry> entries = new ArrayList<>();
+    private final @Nonnull Map<Term, Bitset> predicates = new HashMap<>();
+    private final @Nonnull Map<Term, Bitset> classes = new HashMap<>();
+    /** Sources that must always be visited */
+    private final @Nonnull Bitset unindexed = Bitsets.create(0);
+    /** Sources that are matched with {@link Entry#classes} for rdf:type triples */
+    private final @Nonnull Bitset withClasses = Bitsets.create(0);
+    /** Sources that always match with reasoning */
+    private final @Nonnull Bitset alwaysReason = Bitsets.create(0);
+    /** Sources that use a TBox for reasoning, grouped by TBox (identity) */
+    private final @Nonnull Map<TBox, Bitset> tBoxes = new IdentityHashMap<>();
+
+    private static class Entry {
+        final @Nullable IndexableDescription description;
+        @Nullable Set<Term> predicates, classes;
+        @Nullable TBox tBox;
+
+        Entry(@Nullable IndexableDescription description) {
+            this.description = description;
+        }
+    }
+
+    /**
+     * Add a source and returns its index.
+     */
+    public int add(@Nonnull TPEndpoint source) {
+        Description description = source.getDescription();
+        IndexableDescription indexable = description instanceof IndexableDescription
+                ? (IndexableDescription) description : null;
+        int id;
+        lock.writeLock().lock();
+        try {
+            id = entries.size();
+            entries.add(new Entry(indexable));
+            if (indexable != null) {
+                if (description instanceof AlternativesSemanticDescription)
+                    alwaysReason.set(id);
+                index(id);
+            } else {
+                unindexed.set(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (indexable != null)
+            indexable.addIndexListener(() -> update(id));
+        return id;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Re-index the source with the given index.
+     */
+    public void update(int id) {
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+            index(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(int id) {
+        Entry e = entries.get(id);
+        assert e.description != null;
+        Set<Term> predicates = e.description.getIndexPredicates();
+        if (predicates == null) {
+            unindexed.set(id);
+            return;
+        }
+        Set<Term> classes = e.description.getIndexClasses();
+        e.predicates = predicates;
+        e.classes = classes;
+        e.tBox = e.description.getIndexTBox();
+        for (Term p : predicates)
+            this.predicates.computeIfAbsent(p, k -> Bitsets.create(0)).set(id);
+        if (classes != null) {
+            withClasses.set(id);
+            for (Term c : classes)
+                this.classes.computeIfAbsent(c, k -> Bitsets.create(0)).set(id);
+        }
+        if (e.tBox != null)
+            tBoxes.computeIfAbsent(e.tBox, k -> Bitsets.create(0)).set(id);
+    }
+
+    private void unindex(int id) {
+        Entry e = entries.get(id);
+        unindexed.clear(id);
+        withClasses.clear(id);
+        if (e.predicates != null)
+            clear(this.predicates, e.predicates, id);
+        if (e.classes != null)
+            clear(this.classes, e.classes, id);
+        if (e.tBox != null) {
+            Bitset bitset = tBoxes.get(e.tBox);
+            if (bitset != null) {
+                bitset.clear(id);
+                if (bitset.isEmpty())
+                    tBoxes.remove(e.tBox);
+            }
+        }
+        e.predicates = e.classes = null;
+        e.tBox = null;
+    }
+
+    private static void clear(@Nonnull Map<Term, Bitset> map, @Nonnull Set<Term> keys, int id) {
+        for (Term key : keys) {
+            Bitset bitset = map.get(key);
+            if (bitset != null) {
+                bitset.clear(id);
+                if (bitset.isEmpty())
+                    map.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Get the indices of the sources that may match at least one triple of the query.
+     *
+     * @param query the query to be matched
+     * @return a new {@link Bitset}, where set bits are candidate sources
+     */
+    public @Nonnull Bitset getCandidates(@Nonnull CQuery query) {
+        boolean reason = MatchReasoning.TRANSPARENT.ifRequested(query) != MatchReasoning.NONE;
+        lock.readLock().lock();
+        try {
+            Bitset result = unindexed.copy();
+            for (Triple triple : query) {
+                Term p = triple.getPredicate(), o = triple.getObject();
+                if (!p.isGround()) {
+                    result.set(0, entries.size());
+                    break; // all sources are candidates
+                }
+                if (p.equals(TYPE) && o.isURI() && !withClasses.isEmpty()) {
+                    Bitset typed = lookup(classes, o, reason, TBox::subClasses);
+                    typed.and(withClasses);
+                    result.or(typed);
+                    Bitset untyped = lookup(predicates, p, reason, TBox::subProperties);
+                    untyped.andNot(withClasses);
+                    result.or(untyped);
+                } else {
+                    result.or(lookup(predicates, p, reason, TBox::subProperties));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private interface Expander {
+        @Nonnull Stream<Term> expand(@Nonnull TBox tBox, @Nonnull Term term);
+    }
+
+    private @Nonnull Bitset lookup(@Nonnull Map<Term, Bitset> map, @Nonnull Term term,
+                                   boolean reason, @Nonnull Expander expander) {
+        Bitset direct = map.get(term);
+        Bitset result = direct == null ? Bitsets.create(0) : direct.copy();
+        for (Map.Entry<TBox, Bitset> e : tBoxes.entrySet()) {
+            Bitset reasoning = reason ? e.getValue() : e.getValue().createAnd(alwaysReason);
+            if (reasoning.isEmpty())
+                continue;
+            expander.expand(e.getKey(), term).forEach(sub -> {
+                Bitset bitset = map.get(sub);
+                if (bitset != null)
+                    result.or(bitset.createAnd(reasoning));
+            });
+        }
+        return result;
+    }
+}
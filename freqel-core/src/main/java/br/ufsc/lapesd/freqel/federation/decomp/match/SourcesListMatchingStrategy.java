@@ -16,6 +16,7 @@ import br.ufsc.lapesd.freqel.query.CQuery;
 import br.ufsc.lapesd.freqel.query.MutableCQuery;
 import br.ufsc.lapesd.freqel.query.annotations.GlobalContextAnnotation;
 import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+import br.ufsc.lapesd.freqel.util.Bitset;
 import br.ufsc.lapesd.freqel.util.indexed.ref.ImmRefIndexSet;
 import br.ufsc.lapesd.freqel.util.indexed.ref.RefIndexSet;
 
@@ -26,6 +27,7 @@ import java.util.Collection;
 
 public class SourcesListMatchingStrategy implements MatchingStrategy {
     protected final @Nonnull RefIndexSet<TPEndpoint> endpoints = new RefIndexSet<>();
+    protected final @Nonnull SourcesIndex index = new SourcesIndex();
     private final @Nonnull ImmRefIndexSet<TPEndpoint> immEndpoints = endpoints.asImmutable();
     protected final @Nonnull PerformanceListener perfListener;
 
@@ -38,8 +40,11 @@ public class SourcesListMatchingStrategy implements MatchingStrategy {
         this(NoOpPerformanceListener.INSTANCE);
     }
 
-    @Override public void addSource(@Nonnull TPEndpoint endpoint) {
-        endpoints.add(endpoint);
+    @Override public synchronized void addSource(@Nonnull TPEndpoint endpoint) {
+        if (endpoints.add(endpoint)) {
+            int id = index.add(endpoint);
+            assert endpoints.get(id) == endpoint;
+        }
     }
 
     protected boolean match(@Nonnull TPEndpoint source, @Nonnull CQuery query,
@@ -73,8 +78,10 @@ public class SourcesListMatchingStrategy implements MatchingStrategy {
         int nMatches = 0;
         try (TimeSampler ignored = Metrics.SELECTION_MS.createThreadSampler(perfListener)) {
             Agglutinator.State state = agglutinator.createState(query);
-            for (TPEndpoint source : endpoints) {
-                if (match(source, query, state))
+            Bitset candidates = index.getCandidates(query);
+            // sources that are not candidates are not given to state: they have no match
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i+1)) {
+                if (match(endpoints.get(i), query, state))
                     nMatches++;
             }
             perfListener.sample(Metrics.SOURCES_COUNT, nMatches);
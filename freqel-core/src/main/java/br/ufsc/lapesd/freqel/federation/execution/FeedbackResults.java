@@ -0,0 +1,76 @@
+package br.ufsc.lapesd.freqel.federation.execution;
+
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.leaf.EndpointQueryOp;
+import br.ufsc.lapesd.freqel.cardinality.StatisticsCatalog;
+import br.ufsc.lapesd.freqel.query.results.DelegatingResults;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.ResultsCloseException;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Counts the solutions of a node and reports the count to a {@link StatisticsCatalog}
+ * once closed.
+ *
+ * The count is reported as complete only if the results were exhausted before close().
+ */
+public class FeedbackResults extends DelegatingResults {
+    private final @Nonnull Op node;
+    private final @Nonnull StatisticsCatalog catalog;
+    private long rows = 0;
+    private boolean exhausted = false, closed = false;
+
+    public FeedbackResults(@Nonnull Results in, @Nonnull Op node,
+                           @Nonnull StatisticsCatalog catalog) {
+        super(in.getVarNames(), in);
+        this.node = node;
+        this.catalog = catalog;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    @Override public boolean hasNext() {
+        if (exhausted)
+            return false;
+        boolean has = in.hasNext();
+        if (!has)
+            exhausted = true;
+        return has;
+    }
+
+    @Override public @Nonnull Solution next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        Solution solution = in.next();
+        ++rows;
+        return solution;
+    }
+
+    private void report() {
+        if (node instanceof EndpointQueryOp) {
+            EndpointQueryOp qn = (EndpointQueryOp) node;
+            catalog.recordQuery(qn.getEndpoint(), qn.getQuery(), rows, exhausted);
+        } else {
+            List<Op> children = node.getChildren();
+            if (children.size() == 2 && children.get(0) instanceof EndpointQueryOp
+                                     && children.get(1) instanceof EndpointQueryOp) {
+                catalog.recordJoin((EndpointQueryOp) children.get(0),
+                                   (EndpointQueryOp) children.get(1), rows, exhausted);
+            }
+        }
+    }
+
+    @Override public void close() throws ResultsCloseException {
+        if (!closed) {
+            closed = true;
+            report();
+        }
+        super.close();
+    }
+}
@@ -3,19 +3,39 @@ package br.ufsc.lapesd.freqel.federation.execution;
 import br.ufsc.lapesd.freqel.algebra.Op;
 import br.ufsc.lapesd.freqel.algebra.inner.CartesianOp;
 import br.ufsc.lapesd.freqel.algebra.inner.JoinOp;
+import br.ufsc.lapesd.freqel.algebra.inner.PipeOp;
+import br.ufsc.lapesd.freqel.algebra.inner.SemiJoinOp;
 import br.ufsc.lapesd.freqel.algebra.inner.UnionOp;
 import br.ufsc.lapesd.freqel.algebra.leaf.DQueryOp;
 import br.ufsc.lapesd.freqel.algebra.leaf.EmptyOp;
 import br.ufsc.lapesd.freqel.algebra.leaf.EndpointQueryOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.PathOp;
 import br.ufsc.lapesd.freqel.algebra.leaf.SPARQLValuesTemplateOp;
 import br.ufsc.lapesd.freqel.algebra.util.TreeUtils;
+import br.ufsc.lapesd.freqel.cardinality.StatisticsCatalog;
 import br.ufsc.lapesd.freqel.federation.execution.tree.*;
+import br.ufsc.lapesd.freqel.query.results.DistinctResultsFactory;
 import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.TermDictionary;
+import br.ufsc.lapesd.freqel.query.results.impl.InterningResults;
+import br.ufsc.lapesd.freqel.query.results.impl.SpillingDistinctResults;
+import br.ufsc.lapesd.freqel.query.results.profile.ExecutionProfile;
+import br.ufsc.lapesd.freqel.query.results.profile.OperatorStats;
+import br.ufsc.lapesd.freqel.query.results.profile.ProfilingResults;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.File;
 
 public class InjectedExecutor implements PlanExecutor {
+    /**
+     * Once the dictionary holds more terms than this, a new dictionary is used for
+     * operators created afterwards. Solutions interned by the old dictionary remain
+     * correct, they are just encoded again by operators that use the new one.
+     */
+    public static final int MAX_DICTIONARY_TERMS = 1 << 20;
+
     private final @Nonnull QueryOpExecutor queryNodeExecutor;
     private final @Nonnull DQueryOpExecutor dQueryOpExecutor;
     private final @Nonnull UnionOpExecutor multiQueryNodeExecutor;
@@ -23,6 +43,13 @@ public class InjectedExecutor implements PlanExecutor {
     private final @Nonnull CartesianOpExecutor cartesianNodeExecutor;
     private final @Nonnull EmptyOpExecutor emptyNodeExecutor;
     private final @Nonnull SPARQLValuesTemplateOpExecutor sparqlValuesTemplateNodeExecutor;
+    private final @Nonnull PipeOpExecutor pipeOpExecutor;
+    private final @Nonnull PathOpExecutor pathOpExecutor;
+    private final @Nonnull SemiJoinOpExecutor semiJoinOpExecutor;
+    private final @Nonnull StatisticsCatalog statisticsCatalog;
+    private final @Nonnull File tempDir;
+    private final long distinctMemoryBudget;
+    private volatile @Nonnull TermDictionary dictionary = new TermDictionary();
 
     @Inject
     public InjectedExecutor(@Nonnull QueryOpExecutor queryNodeExecutor,
@@ -31,7 +58,13 @@ public class InjectedExecutor implements PlanExecutor {
                             @Nonnull JoinOpExecutor joinNodeExecutor,
                             @Nonnull CartesianOpExecutor cartesianNodeExecutor,
                             @Nonnull EmptyOpExecutor emptyNodeExecutor,
-                            @Nonnull SPARQLValuesTemplateOpExecutor sparqlValuesTemplateNodeExecutor) {
+                            @Nonnull SPARQLValuesTemplateOpExecutor sparqlValuesTemplateNodeExecutor,
+                            @Nonnull PipeOpExecutor pipeOpExecutor,
+                            @Nonnull PathOpExecutor pathOpExecutor,
+                            @Nonnull SemiJoinOpExecutor semiJoinOpExecutor,
+                            @Nonnull StatisticsCatalog statisticsCatalog,
+                            @Named("tempDir") @Nonnull File tempDir,
+                            @Named("distinctMemoryBudget") long distinctMemoryBudget) {
         this.queryNodeExecutor = queryNodeExecutor;
         this.dQueryOpExecutor = dQueryOpExecutor;
         this.multiQueryNodeExecutor = multiQueryNodeExecutor;
@@ -39,6 +72,35 @@ public class InjectedExecutor implements PlanExecutor {
         this.cartesianNodeExecutor = cartesianNodeExecutor;
         this.emptyNodeExecutor = emptyNodeExecutor;
         this.sparqlValuesTemplateNodeExecutor = sparqlValuesTemplateNodeExecutor;
+        this.pipeOpExecutor = pipeOpExecutor;
+        this.pathOpExecutor = pathOpExecutor;
+        this.semiJoinOpExecutor = semiJoinOpExecutor;
+        this.statisticsCatalog = statisticsCatalog;
+        this.tempDir = tempDir;
+        this.distinctMemoryBudget = distinctMemoryBudget;
+    }
+
+    public @Nonnull StatisticsCatalog getStatisticsCatalog() {
+        return statisticsCatalog;
+    }
+
+    @Override
+    public @Nonnull TermDictionary getTermDictionary() {
+        TermDictionary dictionary = this.dictionary;
+        if (dictionary.size() > MAX_DICTIONARY_TERMS) {
+            synchronized (this) {
+                if (this.dictionary == dictionary)
+                    this.dictionary = new TermDictionary();
+                dictionary = this.dictionary;
+            }
+        }
+        return dictionary;
+    }
+
+    @Override
+    public @Nonnull DistinctResultsFactory getDistinctResultsFactory() {
+        return new SpillingDistinctResults.Factory(getTermDictionary(), tempDir,
+                                                   distinctMemoryBudget);
     }
 
     @Override
@@ -46,10 +108,42 @@ public class InjectedExecutor implements PlanExecutor {
         return executeNode(plan);
     }
 
+    @Override
+    public @Nonnull Results executePlan(@Nonnull Op plan, @Nonnull ExecutionProfile profile) {
+        try (OperatorStats.Scope ignored = OperatorStats.bind(profile.getRootContext())) {
+            return executePlan(plan);
+        }
+    }
+
     @Override
     public @Nonnull Results executeNode(@Nonnull Op node) {
         assert TreeUtils.isAcyclic(node) : "Node is not a tree";
         assert node.getRequiredInputVars().isEmpty() : "Node needs inputs";
+        /* profiling is active if executing a profiled plan or consuming its results */
+        OperatorStats context = OperatorStats.current();
+        OperatorStats stats = context == null ? null
+                            : context.getProfile().statsFor(node, context);
+        Results results;
+        try (OperatorStats.Scope ignored = OperatorStats.bind(stats)) {
+            results = dispatch(node);
+        }
+        // solutions from sources are interned once, not by each operator that hashes them
+        if (node.getChildren().isEmpty() && !(node instanceof EmptyOp))
+            results = new InterningResults(results, getTermDictionary());
+        if (statisticsCatalog.canRecord(node))
+            results = new FeedbackResults(results, node, statisticsCatalog);
+        if (stats != null)
+            results = new ProfilingResults(results, stats);
+        results.setNodeName(node.getName());
+        // optionality of results must always corresponds to optionality in the plan
+        assert results.isOptional() == (node.modifiers().optional() != null);
+        // it may happen (as an optimization) that a non-distinct node has distinct
+        // results because distinct was pushed from the query root to the leaves
+        assert node.modifiers().distinct() == null || results.isAsync() || results.isDistinct();
+        return results;
+    }
+
+    private @Nonnull Results dispatch(@Nonnull Op node) {
         Class<? extends Op> cls = node.getClass();
         Results results;
         if (EndpointQueryOp.class.isAssignableFrom(cls))
@@ -66,14 +160,14 @@ public class InjectedExecutor implements PlanExecutor {
             results = emptyNodeExecutor.execute(node);
         else if (SPARQLValuesTemplateOp.class.isAssignableFrom(cls))
             results = sparqlValuesTemplateNodeExecutor.execute(node);
+        else if (PipeOp.class.isAssignableFrom(cls))
+            results = pipeOpExecutor.execute(node);
+        else if (PathOp.class.isAssignableFrom(cls))
+            results = pathOpExecutor.execute(node);
+        else if (SemiJoinOp.class.isAssignableFrom(cls))
+            results = semiJoinOpExecutor.execute(node);
         else
             throw new UnsupportedOperationException("No executor for "+cls);
-        results.setNodeName(node.getName());
-        // optionality of results must always corresponds to optionality in the plan
-        assert results.isOptional() == (node.modifiers().optional() != null);
-        // it may happen (as an optimization) that a non-distinct node has distinct
-        // results because distinct was pushed from the query root to the leaves
-        assert node.modifiers().distinct() == null || results.isAsync() || results.isDistinct();
         return results;
     }
 }
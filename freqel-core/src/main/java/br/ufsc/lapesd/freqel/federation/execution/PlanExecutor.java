@@ -1,11 +1,39 @@
 package br.ufsc.lapesd.freqel.federation.execution;
 
 import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.query.results.DistinctResultsFactory;
 import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.TermDictionary;
+import br.ufsc.lapesd.freqel.query.results.profile.ExecutionProfile;
 
 import javax.annotation.Nonnull;
 
 public interface PlanExecutor {
     @Nonnull Results executePlan(@Nonnull Op plan);
     @Nonnull Results executeNode(@Nonnull Op node);
+
+    /**
+     * The dictionary into which solutions from sources are interned by
+     * {@link #executeNode(Op)}. Operators that encode terms (hash joins, DISTINCT) should
+     * use this dictionary so that they reuse the ids stored in interned solutions.
+     */
+    @Nonnull TermDictionary getTermDictionary();
+
+    /**
+     * Factory for the DISTINCT operators created while executing a plan. Carries the
+     * configured memory budget and temp dir for spilling.
+     */
+    @Nonnull DistinctResultsFactory getDistinctResultsFactory();
+
+    /**
+     * Executes the plan recording per-operator statistics into the given profile.
+     *
+     * The default implementation does not support profiling and simply executes the plan.
+     *
+     * @param plan the plan to execute. Must be the same plan given to the profile.
+     * @param profile where statistics will be recorded as the results are consumed.
+     */
+    default @Nonnull Results executePlan(@Nonnull Op plan, @Nonnull ExecutionProfile profile) {
+        return executePlan(plan);
+    }
 }
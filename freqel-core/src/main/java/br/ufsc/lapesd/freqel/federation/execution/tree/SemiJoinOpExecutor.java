@@ -0,0 +1,10 @@
+package br.ufsc.lapesd.freqel.federation.execution.tree;
+
+import br.ufsc.lapesd.freqel.algebra.inner.SemiJoinOp;
+import br.ufsc.lapesd.freqel.query.results.Results;
+
+import javax.annotation.Nonnull;
+
+public interface SemiJoinOpExecutor extends OpExecutor {
+    @Nonnull Results execute(@Nonnull SemiJoinOp op);
+}
@@ -6,6 +6,7 @@ import br.ufsc.lapesd.freqel.algebra.inner.CartesianOp;
 import br.ufsc.lapesd.freqel.cardinality.CardinalityComparator;
 import br.ufsc.lapesd.freqel.federation.execution.PlanExecutor;
 import br.ufsc.lapesd.freqel.federation.execution.tree.CartesianOpExecutor;
+import br.ufsc.lapesd.freqel.query.results.DistinctResultsFactory;
 import br.ufsc.lapesd.freqel.query.results.Results;
 import br.ufsc.lapesd.freqel.query.results.ResultsList;
 import br.ufsc.lapesd.freqel.query.results.ResultsUtils;
@@ -20,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
 public class LazyCartesianOpExecutor extends SimpleOpExecutor implements CartesianOpExecutor {
     private final  @Nonnull CardinalityComparator comp;
@@ -55,8 +57,10 @@ public class LazyCartesianOpExecutor extends SimpleOpExecutor implements Cartesi
             Set<String> varNames = node.getResultVars();
             // parallelizing the inputs provides no significant improvement
             // the parallelization provided by lazyness is enough and is significant
-            Results r = new LazyCartesianResults(list.steal(), varNames);
-            return ResultsUtils.applyModifiers(r, node.modifiers());
+            DistinctResultsFactory distinct = planExecutor.getDistinctResultsFactory();
+            Results r = new LazyCartesianResults(list.steal(), varNames, Function.identity(),
+                                                 distinct);
+            return ResultsUtils.applyModifiers(r, node.modifiers(), distinct);
         }
     }
 
@@ -0,0 +1,58 @@
+package br.ufsc.lapesd.freqel.federation.execution.tree.impl;
+
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.leaf.PathOp;
+import br.ufsc.lapesd.freqel.federation.execution.PlanExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.PathOpExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.bind.BindJoinResultsFactory;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.paths.FrontierPathResults;
+import br.ufsc.lapesd.freqel.model.SPARQLString;
+import br.ufsc.lapesd.freqel.query.endpoint.CQEndpoint;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.ResultsUtils;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+/**
+ * Evaluates a {@link PathOp} either by sending the whole path to its single source or by a
+ * breadth-first traversal that issues one bind join of the hop plan per level.
+ */
+public class SimplePathOpExecutor extends SimpleOpExecutor implements PathOpExecutor {
+    private final @Nonnull BindJoinResultsFactory bindJoinResultsFactory;
+
+    @Inject
+    public SimplePathOpExecutor(@Nonnull Provider<PlanExecutor> planExecutorProvider,
+                                @Nonnull BindJoinResultsFactory bindJoinResultsFactory) {
+        super(planExecutorProvider);
+        this.bindJoinResultsFactory = bindJoinResultsFactory;
+    }
+
+    @Override public boolean canExecute(@Nonnull Class<? extends Op> nodeClass) {
+        return PathOp.class.isAssignableFrom(nodeClass);
+    }
+
+    @Override public @Nonnull Results execute(@Nonnull PathOp op) {
+        CQEndpoint source = op.getSource();
+        if (source != null) {
+            SPARQLString ss = SPARQLString.create(op);
+            Results r = source.querySPARQL(ss.getSparql(), ss.isAsk(), ss.getVarNames());
+            return ResultsUtils.applyNonFilterModifiers(
+                    r, op.modifiers(), getPlanExecutor().getDistinctResultsFactory());
+        }
+        Op hopPlan = op.getHopPlan();
+        if (hopPlan == null)
+            throw new IllegalArgumentException("PathOp "+op+" was not planned");
+        Results r = new FrontierPathResults(op, hopPlan, getPlanExecutor(),
+                                            bindJoinResultsFactory);
+        return ResultsUtils.applyModifiers(r, op.modifiers(),
+                                           getPlanExecutor().getDistinctResultsFactory());
+    }
+
+    @Override public @Nonnull Results execute(@Nonnull Op node) throws IllegalArgumentException {
+        Preconditions.checkArgument(node instanceof PathOp);
+        return execute((PathOp)node);
+    }
+}
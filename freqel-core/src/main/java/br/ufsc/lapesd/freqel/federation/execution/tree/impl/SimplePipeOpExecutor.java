@@ -25,8 +25,10 @@ public class SimplePipeOpExecutor extends SimpleOpExecutor implements PipeOpExec
     @Override public @Nonnull Results execute(@Nonnull PipeOp op) {
         assert op.getChildren().size() == 1;
         Op child = op.getChildren().get(0);
-        Results r = getPlanExecutor().executeNode(child);
-        return ResultsUtils.applyModifiers(r, op.modifiers());
+        PlanExecutor planExecutor = getPlanExecutor();
+        Results r = planExecutor.executeNode(child);
+        return ResultsUtils.applyModifiers(r, op.modifiers(),
+                                           planExecutor.getDistinctResultsFactory());
     }
 
     @Override public @Nonnull Results execute(@Nonnull Op node) throws IllegalArgumentException {
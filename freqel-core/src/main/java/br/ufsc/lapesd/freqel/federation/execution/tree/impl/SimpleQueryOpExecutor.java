@@ -14,8 +14,10 @@ import br.ufsc.lapesd.freqel.query.endpoint.Capability;
 import br.ufsc.lapesd.freqel.query.endpoint.DQEndpoint;
 import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
 import br.ufsc.lapesd.freqel.query.endpoint.exceptions.QueryExecutionException;
+import br.ufsc.lapesd.freqel.query.modifiers.Aggregation;
 import br.ufsc.lapesd.freqel.query.modifiers.Modifier;
 import br.ufsc.lapesd.freqel.query.modifiers.ModifiersSet;
+import br.ufsc.lapesd.freqel.query.modifiers.Projection;
 import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilter;
 import br.ufsc.lapesd.freqel.query.results.Results;
 import br.ufsc.lapesd.freqel.query.results.ResultsExecutor;
@@ -174,11 +176,31 @@ public class SimpleQueryOpExecutor extends SimpleOpExecutor
                 if (pending.add(modifiers.limit())) modifiers.remove(modifiers.limit());
                 if (pending.add(modifiers.ask()  )) modifiers.remove(modifiers.ask()  );
             }
+            Aggregation aggregation = pending == null ? null : pending.aggregation();
+            if (aggregation != null) {
+                // projection, DISTINCT and LIMIT apply to the groups: evaluate them locally
+                copy();
+                if (pending.add(modifiers.limit()))    modifiers.remove(modifiers.limit());
+                if (pending.add(modifiers.distinct())) modifiers.remove(modifiers.distinct());
+                Projection projection = modifiers.projection();
+                if (projection != null) {
+                    if (pending.projection() == null)
+                        pending.add(projection);
+                    modifiers.remove(projection);
+                }
+            }
             if (pending != null) {
                 assert !pending.isEmpty();
                 copy();
                 modifiers.removeAll(pending);
             }
+            if (aggregation != null) {
+                Set<String> inputVars = new HashSet<>(aggregation.getInputVarNames());
+                for (SPARQLFilter filter : pending.filters())
+                    inputVars.addAll(filter.getVarNames());
+                if (!inputVars.isEmpty())
+                    modifiers.add(Projection.of(inputVars));
+            }
             return pending;
         }
 
@@ -199,7 +221,8 @@ public class SimpleQueryOpExecutor extends SimpleOpExecutor
             Op query = data.dqOp().getQuery();
             assert new DQPushChecker(ep.getDisjunctiveProfile()).setEndpoint(ep).canPush(query)
                     : "Why did a non-executable plan got to this point!?";
-            return ResultsUtils.applyModifiers(ep.query(query), data.pending);
+            return ResultsUtils.applyModifiers(ep.query(query), data.pending,
+                                               getPlanExecutor().getDistinctResultsFactory());
         }
     }
 
@@ -220,7 +243,8 @@ public class SimpleQueryOpExecutor extends SimpleOpExecutor
         if (data.pending != null && data.pending.reasoning() != null)
             return endpointReasoner.apply(data.eqOp(), this::execute);
         CQuery q = data.eqOp().getQuery();
-        return ResultsUtils.applyModifiers(ep.query(q), data.pending);
+        return ResultsUtils.applyModifiers(ep.query(q), data.pending,
+                                           getPlanExecutor().getDistinctResultsFactory());
     }
 
     @CheckReturnValue
@@ -235,7 +259,8 @@ public class SimpleQueryOpExecutor extends SimpleOpExecutor
             resultList.add(executor.executeNode(pushingFilters(child, unionFilters)));
         Results results = size > 1 ? resultsExecutor.async(resultList, node.getResultVars())
                                    : resultList.get(0);
-        return ResultsUtils.applyNonFilterModifiers(results, node.modifiers());
+        return ResultsUtils.applyNonFilterModifiers(results, node.modifiers(),
+                                                    executor.getDistinctResultsFactory());
     }
 
     private @Nonnull Op pushingFilters(@Nonnull Op original,
@@ -36,6 +36,7 @@ public abstract class AbstractSimpleJoinOpExecutor extends SimpleOpExecutor
     protected abstract @Nonnull Results innerExecute(@Nonnull JoinOp node);
 
     public final @Nonnull Results execute(@Nonnull JoinOp node) {
-        return ResultsUtils.applyModifiers(innerExecute(node), node.modifiers());
+        return ResultsUtils.applyModifiers(innerExecute(node), node.modifiers(),
+                                           getPlanExecutor().getDistinctResultsFactory());
     }
 }
@@ -0,0 +1,52 @@
+package br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins;
+
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.inner.SemiJoinOp;
+import br.ufsc.lapesd.freqel.federation.execution.PlanExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.SemiJoinOpExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.SimpleOpExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.bind.BindJoinResultsFactory;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.semi.BindSemiJoinResults;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.ResultsUtils;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+/**
+ * Executes the left side of a {@link SemiJoinOp} and probes the right side with batches
+ * of left solutions. See {@link BindSemiJoinResults}.
+ */
+public class BindSemiJoinOpExecutor extends SimpleOpExecutor implements SemiJoinOpExecutor {
+    private final @Nonnull BindJoinResultsFactory bindJoinResultsFactory;
+
+    @Inject
+    public BindSemiJoinOpExecutor(@Nonnull Provider<PlanExecutor> planExecutorProvider,
+                                  @Nonnull BindJoinResultsFactory bindJoinResultsFactory) {
+        super(planExecutorProvider);
+        this.bindJoinResultsFactory = bindJoinResultsFactory;
+    }
+
+    @Override public boolean canExecute(@Nonnull Class<? extends Op> nodeClass) {
+        return SemiJoinOp.class.isAssignableFrom(nodeClass);
+    }
+
+    @Override public @Nonnull Results execute(@Nonnull SemiJoinOp op) {
+        PlanExecutor planExecutor = getPlanExecutor();
+        Results left = planExecutor.executeNode(op.getLeft());
+        Results r;
+        if (op.getMode() == SemiJoinOp.Mode.MINUS && op.getJoinVars().isEmpty())
+            r = left; // MINUS with disjoint domains removes nothing
+        else
+            r = new BindSemiJoinResults(op, left, planExecutor, bindJoinResultsFactory);
+        return ResultsUtils.applyModifiers(r, op.modifiers(),
+                                           planExecutor.getDistinctResultsFactory());
+    }
+
+    @Override public @Nonnull Results execute(@Nonnull Op node) throws IllegalArgumentException {
+        Preconditions.checkArgument(node instanceof SemiJoinOp);
+        return execute((SemiJoinOp)node);
+    }
+}
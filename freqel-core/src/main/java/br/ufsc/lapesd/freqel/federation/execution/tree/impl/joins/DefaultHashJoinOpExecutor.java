@@ -9,26 +9,38 @@ import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.hash.InMemoryH
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.hash.ParallelInMemoryHashJoinResults;
 import br.ufsc.lapesd.freqel.query.results.Results;
 import br.ufsc.lapesd.freqel.query.results.ResultsList;
+import br.ufsc.lapesd.freqel.util.VirtualThreads;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Provider;
 import java.util.Set;
 
 public class DefaultHashJoinOpExecutor extends AbstractSimpleJoinOpExecutor {
     private final @Nonnull CardinalityComparator comparator;
+    private final boolean virtualThreads;
 
     @Inject
     public DefaultHashJoinOpExecutor(@Nonnull Provider<PlanExecutor> planExecutorProvider,
-                                     @Nonnull CardinalityComparator comparator) {
+                                     @Nonnull CardinalityComparator comparator,
+                                     @Named("virtualThreads") boolean virtualThreads) {
         super(planExecutorProvider);
         this.comparator = comparator;
+        this.virtualThreads = virtualThreads;
     }
 
     public DefaultHashJoinOpExecutor(@Nonnull PlanExecutor planExecutor,
                                      @Nonnull CardinalityComparator comparator) {
+        this(planExecutor, comparator, VirtualThreads.isEnabled());
+    }
+
+    public DefaultHashJoinOpExecutor(@Nonnull PlanExecutor planExecutor,
+                                     @Nonnull CardinalityComparator comparator,
+                                     boolean virtualThreads) {
         super(planExecutor);
         this.comparator = comparator;
+        this.virtualThreads = virtualThreads;
     }
 
     @Override
@@ -44,11 +56,15 @@ public class DefaultHashJoinOpExecutor extends AbstractSimpleJoinOpExecutor {
             int diff = comparator.compare(lc, rc);
             if (diff == 0) {
                 results = new ParallelInMemoryHashJoinResults(list.get(0), list.get(1),
-                                                              joinVars, resultVars);
+                                                              joinVars, resultVars,
+                                                              exec.getTermDictionary(),
+                                                              virtualThreads);
             } else {
                 int i = diff <= 0 ? 0 : 1;
                 results = new InMemoryHashJoinResults(list.get(i), list.get((i+1) % 2),
-                                                      joinVars, resultVars);
+                                                      joinVars, resultVars,
+                                                      exec.getTermDictionary(), true,
+                                                      virtualThreads);
             }
             list.clear();
             return results;
@@ -6,17 +6,21 @@ import br.ufsc.lapesd.freqel.algebra.inner.JoinOp;
 import br.ufsc.lapesd.freqel.cardinality.CardinalityComparator;
 import br.ufsc.lapesd.freqel.cardinality.impl.ThresholdCardinalityComparator;
 import br.ufsc.lapesd.freqel.federation.execution.PlanExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.adaptive.AdaptiveBindJoinResults;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.bind.BindJoinResultsFactory;
 import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.util.VirtualThreads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Provider;
 
 import static br.ufsc.lapesd.freqel.algebra.Cardinality.Reliability.UPPER_BOUND;
 import static br.ufsc.lapesd.freqel.cardinality.CardinalityUtils.multiply;
+import static br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.adaptive.AdaptiveBindJoinResults.DEF_SWITCH_ROWS;
 
 public class DefaultJoinOpExecutor extends AbstractSimpleJoinOpExecutor {
     private static final Logger logger = LoggerFactory.getLogger(DefaultJoinOpExecutor.class);
@@ -24,14 +28,23 @@ public class DefaultJoinOpExecutor extends AbstractSimpleJoinOpExecutor {
     private @Nonnull final DefaultHashJoinOpExecutor hashExecutor;
     private @Nonnull final FixedBindJoinOpExecutor bindExecutor;
     private @Nonnull final CardinalityComparator comparator;
+    private @Nonnull final BindJoinResultsFactory bindJoinResultsFactory;
+    private final int switchRows;
+    private final boolean virtualThreads;
 
     @Inject
     public DefaultJoinOpExecutor(@Nonnull Provider<PlanExecutor> planExecutorProvider,
                                  @Nonnull BindJoinResultsFactory bindJoinResultsFactory,
-                                 @Nonnull CardinalityComparator cardinalityComparator) {
+                                 @Nonnull CardinalityComparator cardinalityComparator,
+                                 @Named("adaptiveJoinSwitchRows") int switchRows,
+                                 @Named("virtualThreads") boolean virtualThreads) {
         super(planExecutorProvider);
         this.comparator = cardinalityComparator;
-        this.hashExecutor = new DefaultHashJoinOpExecutor(planExecutorProvider, comparator);
+        this.bindJoinResultsFactory = bindJoinResultsFactory;
+        this.switchRows = switchRows;
+        this.virtualThreads = virtualThreads;
+        this.hashExecutor = new DefaultHashJoinOpExecutor(planExecutorProvider, comparator,
+                                                          virtualThreads);
         this.bindExecutor = new FixedBindJoinOpExecutor(planExecutorProvider,
                                                           bindJoinResultsFactory);
     }
@@ -40,7 +53,11 @@ public class DefaultJoinOpExecutor extends AbstractSimpleJoinOpExecutor {
                                  @Nonnull BindJoinResultsFactory bindJoinResultsFactory) {
         super(planExecutor);
         this.comparator = ThresholdCardinalityComparator.DEFAULT;
-        this.hashExecutor = new DefaultHashJoinOpExecutor(planExecutor, this.comparator);
+        this.bindJoinResultsFactory = bindJoinResultsFactory;
+        this.switchRows = DEF_SWITCH_ROWS;
+        this.virtualThreads = VirtualThreads.isEnabled();
+        this.hashExecutor = new DefaultHashJoinOpExecutor(planExecutor, this.comparator,
+                                                          virtualThreads);
         this.bindExecutor = new FixedBindJoinOpExecutor(planExecutor, bindJoinResultsFactory);
     }
 
@@ -63,7 +80,7 @@ public class DefaultJoinOpExecutor extends AbstractSimpleJoinOpExecutor {
             Cardinality minC = diff <= 0 ? lc : rc;
             Cardinality.Reliability lr = lc.getReliability(), rr = rc.getReliability();
             if (lr.isAtLeast(UPPER_BOUND) && rr.isAtLeast(UPPER_BOUND)) {
-                if (minC.getValue(Integer.MAX_VALUE) < 1024)
+                if (minC.getValue(Integer.MAX_VALUE) < switchRows)
                     return hashExecutor.innerExecute(node);
             }
 
@@ -74,7 +91,39 @@ public class DefaultJoinOpExecutor extends AbstractSimpleJoinOpExecutor {
             if (askDegenerate && comparator.compare(m.getCardinality(), askDegenCeil) <= 0)
                 return hashExecutor.innerExecute(node);
 
-            return bindExecutor.innerExecute(node);
+            if (leftOptional || node.getRight().modifiers().optional() != null)
+                return bindExecutor.innerExecute(node);
+            return adaptiveExecute(node);
+        }
+    }
+
+    /**
+     * Left-side rows after which a bind join started by this executor switches to a hash
+     * join. Joins where both sides have reliable estimates below this go straight to a
+     * hash join.
+     */
+    public int getSwitchRows() {
+        return switchRows;
+    }
+
+    /**
+     * Starts a bind join that will switch to a hash join if the estimates were wrong and
+     * the left side turns out to be large.
+     */
+    private @Nonnull Results adaptiveExecute(@Nonnull JoinOp node) {
+        Op[] nodes = bindExecutor.orderForBind(node);
+        PlanExecutor planExecutor = getPlanExecutor();
+        Results left = planExecutor.executeNode(nodes[0]);
+        try {
+            Results results = new AdaptiveBindJoinResults(left, nodes[1], node.getJoinVars(),
+                                                          node.getResultVars(), planExecutor,
+                                                          bindJoinResultsFactory, switchRows,
+                                                          virtualThreads);
+            left = null; // ownership transferred
+            return results;
+        } finally {
+            if (left != null)
+                left.close();
         }
     }
 }
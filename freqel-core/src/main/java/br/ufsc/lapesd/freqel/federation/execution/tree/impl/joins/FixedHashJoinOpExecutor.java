@@ -34,7 +34,8 @@ public class FixedHashJoinOpExecutor extends AbstractSimpleJoinOpExecutor {
             for (Op child : node.getChildren()) list.add(exec.executeNode(child));
 
             Results results = factory.createResults(list.get(0), list.get(1),
-                                                    node.getJoinVars(), node.getResultVars());
+                                                    node.getJoinVars(), node.getResultVars(),
+                                                    exec.getTermDictionary());
             list.clear(); // ownership transferred
             return results;
         }
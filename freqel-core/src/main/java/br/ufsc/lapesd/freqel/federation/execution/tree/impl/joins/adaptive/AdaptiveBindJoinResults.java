@@ -0,0 +1,227 @@
+package br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.adaptive;
+
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.util.TreeUtils;
+import br.ufsc.lapesd.freqel.federation.execution.PlanExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.bind.BindJoinResultsFactory;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.hash.ParallelInMemoryHashJoinResults;
+import br.ufsc.lapesd.freqel.query.results.AbstractResults;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.ResultsCloseException;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.util.VirtualThreads;
+import com.google.common.base.Stopwatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * A join that starts as a bind join and switches to a hash join if the left side proves
+ * to be large.
+ *
+ * The left side is fed to the bind join through a meter. Once the meter decides it is time
+ * to switch, it stops handing left solutions to the bind join, which then finishes joining
+ * all left solutions it already received. The remaining left solutions (which were never
+ * seen by the bind join) are then hash-joined with the whole right side. Thus, every left
+ * solution is joined exactly once.
+ *
+ * The meter switches when {@link #getSwitchRows()} left solutions were consumed or
+ * when left solutions arrive faster than binds can consume them: after a quarter of the
+ * switch threshold was consumed, if the left side already has another quarter ready.
+ */
+public class AdaptiveBindJoinResults extends AbstractResults {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveBindJoinResults.class);
+    public static final int DEF_SWITCH_ROWS = 1024;
+
+    private final @Nonnull Results left;
+    private final @Nonnull Op right;
+    private final @Nonnull Collection<String> joinVars;
+    private final @Nonnull PlanExecutor planExecutor;
+    private final int switchRows;
+    private final boolean virtualThreads;
+    private final @Nonnull Meter meter;
+    private @Nonnull Results current;
+    private boolean hashPhase = false;
+    /* solutions delivered so far and at which count the consumer demand hint ends */
+    private long delivered = 0, demandEnd = Long.MAX_VALUE;
+    private final @Nonnull Stopwatch age = Stopwatch.createStarted();
+
+    public AdaptiveBindJoinResults(@Nonnull Results left, @Nonnull Op right,
+                                   @Nonnull Collection<String> joinVars,
+                                   @Nonnull Collection<String> resultVars,
+                                   @Nonnull PlanExecutor planExecutor,
+                                   @Nonnull BindJoinResultsFactory bindJoinResultsFactory,
+                                   int switchRows) {
+        this(left, right, joinVars, resultVars, planExecutor, bindJoinResultsFactory,
+             switchRows, VirtualThreads.isEnabled());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param virtualThreads whether the hash join started once switchRows is exceeded
+     *                       should use virtual threads (if supported)
+     */
+    public AdaptiveBindJoinResults(@Nonnull Results left, @Nonnull Op right,
+                                   @Nonnull Collection<String> joinVars,
+                                   @Nonnull Collection<String> resultVars,
+                                   @Nonnull PlanExecutor planExecutor,
+                                   @Nonnull BindJoinResultsFactory bindJoinResultsFactory,
+                                   int switchRows, boolean virtualThreads) {
+        super(resultVars);
+        this.left = left;
+        this.right = right;
+        this.joinVars = joinVars;
+        this.planExecutor = planExecutor;
+        this.switchRows = switchRows;
+        this.virtualThreads = virtualThreads;
+        this.meter = new Meter();
+        // bind joins may add VALUES modifiers anywhere in the right tree: give them a copy
+        this.current = bindJoinResultsFactory.createResults(meter, TreeUtils.deepCopy(right),
+                                                            joinVars, resultVars);
+    }
+
+    public AdaptiveBindJoinResults(@Nonnull Results left, @Nonnull Op right,
+                                   @Nonnull Collection<String> joinVars,
+                                   @Nonnull Collection<String> resultVars,
+                                   @Nonnull PlanExecutor planExecutor,
+                                   @Nonnull BindJoinResultsFactory bindJoinResultsFactory) {
+        this(left, right, joinVars, resultVars, planExecutor, bindJoinResultsFactory,
+             DEF_SWITCH_ROWS);
+    }
+
+    public int getSwitchRows() {
+        return switchRows;
+    }
+
+    /**
+     * Whether the bind join was abandoned in favor of a hash join.
+     */
+    public boolean hasSwitched() {
+        return meter.tripped;
+    }
+
+    private class Meter extends AbstractResults {
+        private volatile int consumed = 0;
+        private volatile boolean tripped = false;
+
+        Meter() {
+            super(left.getVarNames());
+        }
+
+        private boolean shouldSwitch() {
+            int consumed = this.consumed;
+            if (consumed >= switchRows)
+                return true;
+            int quarter = Math.max(1, switchRows / 4);
+            return consumed >= quarter && left.getReadyCount() >= quarter;
+        }
+
+        @Override public int getReadyCount() {
+            return tripped ? 0 : left.getReadyCount();
+        }
+
+        @Override public boolean isDistinct() {
+            return left.isDistinct();
+        }
+
+        @Override public boolean hasNext() {
+            if (tripped)
+                return false;
+            if (!left.hasNext())
+                return false;
+            if (shouldSwitch()) {
+                tripped = true;
+                logger.debug("{}: switching from bind join to hash join after {} left " +
+                             "solutions and {}ms", getNodeName(), consumed,
+                             age.elapsed(MILLISECONDS));
+                return false;
+            }
+            return true;
+        }
+
+        @Override public @Nonnull Solution next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            ++consumed;
+            return left.next();
+        }
+
+        @Override public void close() {
+            /* left is owned by the enclosing AdaptiveBindJoinResults */
+        }
+    }
+
+    @Override public int getReadyCount() {
+        return current.getReadyCount();
+    }
+
+    @Override public boolean isAsync() {
+        return current.isAsync();
+    }
+
+    @Override public void setDemand(int solutions) {
+        demandEnd = solutions < 0 ? Long.MAX_VALUE : delivered + solutions;
+        current.setDemand(solutions);
+    }
+
+    @Override public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (hashPhase || !meter.tripped)
+                return false;
+            startHashPhase();
+        }
+        return true;
+    }
+
+    private void startHashPhase() {
+        assert !hashPhase;
+        hashPhase = true;
+        Results old = current;
+        Results rightResults = null;
+        try {
+            rightResults = planExecutor.executeNode(right);
+            current = new ParallelInMemoryHashJoinResults(left, rightResults, joinVars, varNames,
+                                                          planExecutor.getTermDictionary(),
+                                                          virtualThreads);
+            rightResults = null; // ownership transferred
+            if (demandEnd != Long.MAX_VALUE)
+                current.setDemand((int) Math.max(0, demandEnd - delivered));
+        } finally {
+            if (rightResults != null)
+                rightResults.close();
+            closeQuietly(old);
+        }
+    }
+
+    @Override public @Nonnull Solution next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        ++delivered;
+        return current.next();
+    }
+
+    private static void closeQuietly(@Nullable Results results) {
+        if (results == null) return;
+        try {
+            results.close();
+        } catch (ResultsCloseException e) {
+            logger.error("Failed to close {}", results, e);
+        }
+    }
+
+    @Override public void close() throws ResultsCloseException {
+        try {
+            current.close();
+        } finally {
+            if (!hashPhase)
+                left.close();
+        }
+    }
+}
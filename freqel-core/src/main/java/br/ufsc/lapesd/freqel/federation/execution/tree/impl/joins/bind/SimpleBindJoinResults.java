@@ -57,7 +57,8 @@ public class SimpleBindJoinResults extends AbstractResults implements Results {
 
     private final @Nonnull Stopwatch age = Stopwatch.createUnstarted();
     private final @Nonnull Stopwatch notifyWindow = Stopwatch.createUnstarted();
-    private int binds = 0, results = 0;
+    private int binds = 0, results = 0, boundRows = 0;
+    private long demandEnd = Long.MAX_VALUE;
     private double callBindMs = 0;
 
     public static class Factory implements BindJoinResultsFactory {
@@ -115,7 +116,28 @@ public class SimpleBindJoinResults extends AbstractResults implements Results {
 
     @Override
     public int getReadyCount() {
-        return next != null ? 1 : 0;
+        int ready = currentResults == null ? 0 : currentResults.getReadyCount();
+        return (next != null ? 1 : 0) + ready;
+    }
+
+    @Override
+    public void setDemand(int solutions) {
+        // results counts next, but not the solutions ready in currentResults
+        demandEnd = solutions < 0 ? Long.MAX_VALUE : results - (next != null ? 1 : 0) + solutions;
+    }
+
+    /**
+     * Number of left solutions to bind in the next VALUES request. If there is a demand
+     * hint, the number of solutions still required is converted into left solutions using
+     * the results/left solution ratio observed so far.
+     */
+    private int getValuesBatchSize() {
+        long remaining = demandEnd - results;
+        if (remaining >= valuesRows)
+            return valuesRows;
+        double perRow = boundRows == 0 ? 1 : results / (double) boundRows;
+        double rows = Math.ceil(Math.max(remaining, 1) / perRow); // +Inf if perRow == 0
+        return (int) Math.max(1, Math.min(valuesRows, rows));
     }
 
     private void logStatus(boolean exhausted) {
@@ -167,7 +189,7 @@ public class SimpleBindJoinResults extends AbstractResults implements Results {
                 : node.getChildren().stream().map(n -> (EndpointQueryOp)n);
     }
 
-    private static boolean canValuesBind(Op node) {
+    public static boolean canValuesBind(@Nonnull Op node) {
         // require a QN or a MQ of QN
         boolean ok = node instanceof EndpointQueryOp ||
                 ( node instanceof UnionOp
@@ -185,7 +207,8 @@ public class SimpleBindJoinResults extends AbstractResults implements Results {
         SPARQLValuesTemplateOp template = null;
 
         public ValuesBind() {
-            table = new CrudeSolutionHashTable(joinVars, valuesRows*10);
+            table = new CrudeSolutionHashTable(joinVars, valuesRows*10,
+                                               planExecutor.getTermDictionary());
             if (rightTree.modifiers().optional() != null)
                 table.recordFetches();
         }
@@ -195,8 +218,8 @@ public class SimpleBindJoinResults extends AbstractResults implements Results {
             table.clear();
             bindValues.clear();
             initTemplate();
-            int shortcut = Integer.MAX_VALUE;
-            while (bindValues.size() < valuesRows && smaller.hasNext(shortcut)) {
+            int shortcut = Integer.MAX_VALUE, batchSize = getValuesBatchSize();
+            while (bindValues.size() < batchSize && smaller.hasNext(shortcut)) {
                 addLeftSolution(smaller.next());
                 shortcut = getShortcut();
             }
@@ -239,6 +262,7 @@ public class SimpleBindJoinResults extends AbstractResults implements Results {
         }
 
         private void addLeftSolution(@Nonnull Solution solution) {
+            ++boundRows;
             table.add(solution);
             bindValues.add(bindSolutionFactory.fromFunction(solution::get));
         }
@@ -2,6 +2,7 @@ package br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.hash;
 
 import br.ufsc.lapesd.freqel.model.term.Term;
 import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.TermDictionary;
 import com.google.common.base.Preconditions;
 
 import javax.annotation.Nonnull;
@@ -12,21 +13,48 @@ import java.util.function.Consumer;
 import static java.util.Collections.singletonList;
 
 /**
- * A Simple HashMap for use during hash-joins that does not use memory for the keys
+ * A Simple HashMap for use during hash-joins that does not use memory for the keys.
+ *
+ * When joining on one or two variables, join values are encoded with the given
+ * {@link TermDictionary} into a single long, which is stored alongside the solution and
+ * is used for both hashing and matching.
  */
 public class CrudeSolutionHashTable {
     private final @Nonnull List<ArrayList<Solution>> buckets;
     private final @Nonnull Collection<String> varNames;
     private final int nBuckets, bucketCapacity;
+    private final @Nullable String[] keyVars;
+    private final @Nullable TermDictionary dictionary;
+    /* keys.get(i)[j] is the encoded key of buckets.get(i).get(j) */
+    private final @Nullable ArrayList<long[]> keys;
     private @Nullable ArrayList<BitSet> fetched = null;
 
+    /**
+     * Create a table that encodes join values with a private {@link TermDictionary}.
+     */
     public CrudeSolutionHashTable(@Nonnull Collection<String> varNames, int expectedValues) {
-        this(varNames, expectedValues, 16);
+        this(varNames, expectedValues, new TermDictionary());
     }
 
-    public CrudeSolutionHashTable(@Nonnull Collection<String> varNames,
-                                  int expectedValues, int bucketCapacity) {
+    public CrudeSolutionHashTable(@Nonnull Collection<String> varNames, int expectedValues,
+                                  @Nonnull TermDictionary dictionary) {
+        this(varNames, expectedValues, 16, dictionary);
+    }
+
+    /**
+     * Create a table that encodes join values using the given dictionary. Tables whose
+     * solutions are probed against each other must share the same dictionary.
+     */
+    public CrudeSolutionHashTable(@Nonnull Collection<String> varNames, int expectedValues,
+                                  int bucketCapacity, @Nonnull TermDictionary dictionary) {
         this.varNames = varNames;
+        if (!varNames.isEmpty() && varNames.size() <= 2) {
+            this.keyVars = varNames.toArray(new String[0]);
+            this.dictionary = dictionary;
+        } else {
+            this.keyVars = null;
+            this.dictionary = null;
+        }
         if (varNames.isEmpty()) { // only a single bucket will ever be used
             this.nBuckets = 1;
             this.bucketCapacity = expectedValues;
@@ -38,6 +66,13 @@ public class CrudeSolutionHashTable {
             for (int i = 0; i < nBuckets; i++)
                 this.buckets.add(new ArrayList<>(bucketCapacity));
         }
+        if (keyVars != null) {
+            this.keys = new ArrayList<>(nBuckets);
+            for (int i = 0; i < nBuckets; i++)
+                this.keys.add(new long[bucketCapacity]);
+        } else {
+            this.keys = null;
+        }
     }
 
     public void recordFetches() {
@@ -48,7 +83,18 @@ public class CrudeSolutionHashTable {
             fetched.add(new BitSet());
     }
 
+    private long getKey(@Nonnull Solution solution) {
+        assert dictionary != null && keyVars != null;
+        return dictionary.encodeKey(solution, keyVars);
+    }
+
+    private int getBucketIndex(long key) {
+        return (TermDictionary.hash(key) & Integer.MAX_VALUE) % nBuckets;
+    }
+
     protected int getBucketIndex(@Nonnull Solution solution) {
+        if (keyVars != null)
+            return getBucketIndex(getKey(solution));
         int hash = 17;
         for (String name : varNames) {
             Term term = solution.get(name);
@@ -79,10 +125,24 @@ public class CrudeSolutionHashTable {
     }
 
     public AddedHandle add(@Nonnull Solution solution) {
-        int bucketIndex = getBucketIndex(solution);
+        long key = 0;
+        int bucketIndex;
+        if (keys != null)
+            bucketIndex = getBucketIndex(key = getKey(solution));
+        else
+            bucketIndex = getBucketIndex(solution);
         ArrayList<Solution> bucket = buckets.get(bucketIndex);
-        AddedHandle handle = new AddedHandle(bucketIndex, bucket.size());
+        int solutionIndex = bucket.size();
+        AddedHandle handle = new AddedHandle(bucketIndex, solutionIndex);
         bucket.add(solution);
+        if (keys != null) {
+            long[] bucketKeys = keys.get(bucketIndex);
+            if (solutionIndex == bucketKeys.length) {
+                bucketKeys = Arrays.copyOf(bucketKeys, Math.max(solutionIndex*2, 4));
+                keys.set(bucketIndex, bucketKeys);
+            }
+            bucketKeys[solutionIndex] = key;
+        }
         return handle;
     }
 
@@ -93,6 +153,8 @@ public class CrudeSolutionHashTable {
                 fetched.get(0).set(0, bucket.size()); //mark all as fetched
             return Collections.unmodifiableList(bucket);
         }
+        if (keys != null)
+            return getAllByKey(getKey(reference));
         ArrayList<Solution> list = new ArrayList<>(bucketCapacity);
         int bit = -1, bucketIndex = getBucketIndex(reference);
         BitSet bitset = fetched == null ? null : fetched.get(bucketIndex);
@@ -109,6 +171,22 @@ public class CrudeSolutionHashTable {
         return list;
     }
 
+    private @Nonnull Collection<Solution> getAllByKey(long key) {
+        assert keys != null;
+        int bucketIndex = getBucketIndex(key);
+        ArrayList<Solution> bucket = buckets.get(bucketIndex);
+        long[] bucketKeys = keys.get(bucketIndex);
+        BitSet bitset = fetched == null ? null : fetched.get(bucketIndex);
+        ArrayList<Solution> list = null;
+        for (int i = 0, size = bucket.size(); i < size; i++) {
+            if (bucketKeys[i] != key) continue;
+            if (list == null) list = new ArrayList<>(bucketCapacity);
+            list.add(bucket.get(i));
+            if (bitset != null) bitset.set(i);
+        }
+        return list == null ? Collections.emptyList() : list;
+    }
+
     public void forEachNotFetched(@Nonnull Consumer<Solution> consumer) {
         Preconditions.checkState(fetched != null, "Fetches not recorded");
         assert fetched.size() == buckets.size();
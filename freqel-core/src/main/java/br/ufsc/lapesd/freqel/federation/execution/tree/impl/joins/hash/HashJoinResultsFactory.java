@@ -1,6 +1,8 @@
 package br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.hash;
 
+import br.ufsc.lapesd.freqel.federation.execution.PlanExecutor;
 import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.TermDictionary;
 
 import javax.annotation.Nonnull;
 import java.util.Collection;
@@ -13,6 +15,9 @@ public interface HashJoinResultsFactory {
      * @param right right operand of the join
      * @param joinVars Variables which must be equal on solutions from both sides to yield a match
      * @param resultVars Variables that should remain from the joined solution
+     * @param dictionary Dictionary used to encode join values. Usually the
+     *                   {@link PlanExecutor#getTermDictionary()} of the executor that
+     *                   produced left and right.
      * @throws IllegalArgumentException if there are resultVars or joinVars not in the
      *                                  {@link Results#getVarNames()} from left nor right.
      * @return A new {@link Results} object that yields the join results. Closing this object
@@ -20,5 +25,6 @@ public interface HashJoinResultsFactory {
      */
     @Nonnull Results createResults(@Nonnull Results left, @Nonnull Results right,
                                    @Nonnull Collection<String> joinVars,
-                                   @Nonnull Collection<String> resultVars);
+                                   @Nonnull Collection<String> resultVars,
+                                   @Nonnull TermDictionary dictionary);
 }
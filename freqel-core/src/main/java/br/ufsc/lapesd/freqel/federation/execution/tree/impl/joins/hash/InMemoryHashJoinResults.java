@@ -5,7 +5,9 @@ import br.ufsc.lapesd.freqel.query.results.AbstractResults;
 import br.ufsc.lapesd.freqel.query.results.Results;
 import br.ufsc.lapesd.freqel.query.results.ResultsCloseException;
 import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.TermDictionary;
 import br.ufsc.lapesd.freqel.query.results.impl.ArraySolution;
+import br.ufsc.lapesd.freqel.util.VirtualThreads;
 import com.google.common.base.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,43 +36,65 @@ public class InMemoryHashJoinResults extends AbstractResults implements Results
 
     public static class Factory implements HashJoinResultsFactory {
         private boolean useThread = true;
+        private boolean virtualThreads = VirtualThreads.isEnabled();
 
         public @Nonnull Factory setUseThread(boolean useThread) {
             this.useThread = useThread;
             return this;
         }
 
+        /**
+         * Whether the fetch thread should be a virtual thread (if supported).
+         */
+        public @Nonnull Factory setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
         @Override
         public @Nonnull Results createResults(@Nonnull Results left, @Nonnull Results right,
                                               @Nonnull Collection<String> joinVars,
-                                              @Nonnull Collection<String> resultVars) {
-            return new InMemoryHashJoinResults(left, right, joinVars, resultVars, useThread);
+                                              @Nonnull Collection<String> resultVars,
+                                              @Nonnull TermDictionary dictionary) {
+            return new InMemoryHashJoinResults(left, right, joinVars, resultVars, dictionary,
+                                               useThread, virtualThreads);
         }
     }
     public static final @Nonnull Factory FACTORY = new Factory();
 
     public InMemoryHashJoinResults(@Nonnull Results smaller, @Nonnull Results larger,
                                @Nonnull Collection<String> joinVars,
-                               @Nonnull Collection<String> resultVars) {
-        this(smaller, larger, joinVars, resultVars, true);
+                               @Nonnull Collection<String> resultVars,
+                               @Nonnull TermDictionary dictionary) {
+        this(smaller, larger, joinVars, resultVars, dictionary, true);
+    }
+
+    public InMemoryHashJoinResults(@Nonnull Results smaller, @Nonnull Results larger,
+                                   @Nonnull Collection<String> joinVars,
+                                   @Nonnull Collection<String> resultVars,
+                                   @Nonnull TermDictionary dictionary, boolean useThread) {
+        this(smaller, larger, joinVars, resultVars, dictionary, useThread,
+             VirtualThreads.isEnabled());
     }
 
     public InMemoryHashJoinResults(@Nonnull Results smaller, @Nonnull Results larger,
                                    @Nonnull Collection<String> joinVars,
                                    @Nonnull Collection<String> resultVars,
-                                   boolean useThread) {
+                                   @Nonnull TermDictionary dictionary, boolean useThread,
+                                   boolean virtualThreads) {
         super(resultVars);
         Set<String> allVars = Stream.concat(smaller.getVarNames().stream(),
                                             larger.getVarNames().stream()).collect(toSet());
         Preconditions.checkArgument(allVars.containsAll(joinVars));
 
-        this.hashTable = new CrudeSolutionHashTable(joinVars, 512);
+        this.hashTable = new CrudeSolutionHashTable(joinVars, 512, dictionary);
         this.smaller = smaller;
         this.larger = larger;
         this.queue = new ArrayDeque<>();
         this.factory = ArraySolution.forVars(getVarNames());
         if (useThread) {
-            this.executorService = Executors.newSingleThreadExecutor();
+            this.executorService = VirtualThreads.newExecutor("InMemoryHashJoin",
+                    virtualThreads, Executors::newSingleThreadExecutor);
             this.fetchTask = executorService.submit(this::fetchAll);
         } else {
             this.executorService = null;
@@ -4,7 +4,9 @@ import br.ufsc.lapesd.freqel.query.results.AbstractResults;
 import br.ufsc.lapesd.freqel.query.results.Results;
 import br.ufsc.lapesd.freqel.query.results.ResultsCloseException;
 import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.TermDictionary;
 import br.ufsc.lapesd.freqel.query.results.impl.ArraySolution;
+import br.ufsc.lapesd.freqel.util.VirtualThreads;
 import com.google.common.base.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +29,7 @@ public class ParallelInMemoryHashJoinResults extends AbstractResults implements
     private final @Nonnull ExecutorService executorService;
     private final @Nonnull BlockingQueue<Solution> queue = new ArrayBlockingQueue<>(1024);
     private final @Nonnull ArraySolution.ValueFactory solFac;
+    private final @Nonnull TermDictionary dictionary;
 
     private class Side {
         private Future<?> task = null;
@@ -39,7 +42,7 @@ public class ParallelInMemoryHashJoinResults extends AbstractResults implements
         public Side(@Nonnull Collection<String> joinVars, @Nonnull Results results, int idx) {
             this.results = results;
             this.idx = idx;
-            this.table = new CrudeSolutionHashTable(joinVars,  512);
+            this.table = new CrudeSolutionHashTable(joinVars, 512, 16, dictionary);
             this.table.recordFetches();
             this.optional = results.isOptional();
         }
@@ -110,26 +113,49 @@ public class ParallelInMemoryHashJoinResults extends AbstractResults implements
     }
 
     public static class Factory implements HashJoinResultsFactory {
+        private boolean virtualThreads = VirtualThreads.isEnabled();
+
+        /**
+         * Whether the fetch threads should be virtual threads (if supported).
+         */
+        public @Nonnull Factory setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
         @Override
         public @Nonnull Results createResults(@Nonnull Results left, @Nonnull Results right,
                                               @Nonnull Collection<String> joinVars,
-                                              @Nonnull Collection<String> resultVars) {
-            return new ParallelInMemoryHashJoinResults(left, right, joinVars, resultVars);
+                                              @Nonnull Collection<String> resultVars,
+                                              @Nonnull TermDictionary dictionary) {
+            return new ParallelInMemoryHashJoinResults(left, right, joinVars, resultVars,
+                                                       dictionary, virtualThreads);
         }
     }
     public static final @Nonnull Factory FACTORY = new Factory();
 
     public ParallelInMemoryHashJoinResults(@Nonnull Results left, @Nonnull Results right,
                                            @Nonnull Collection<String> joinVars,
-                                           @Nonnull Collection<String> resultVars) {
+                                           @Nonnull Collection<String> resultVars,
+                                           @Nonnull TermDictionary dictionary) {
+        this(left, right, joinVars, resultVars, dictionary, VirtualThreads.isEnabled());
+    }
+
+    public ParallelInMemoryHashJoinResults(@Nonnull Results left, @Nonnull Results right,
+                                           @Nonnull Collection<String> joinVars,
+                                           @Nonnull Collection<String> resultVars,
+                                           @Nonnull TermDictionary dictionary,
+                                           boolean virtualThreads) {
         super(resultVars);
+        this.dictionary = dictionary;
         Set<String> allVars = Stream.concat(left.getVarNames().stream(),
                                             right.getVarNames().stream()).collect(toSet());
         Preconditions.checkArgument(allVars.containsAll(joinVars));
         solFac = ArraySolution.forVars(resultVars);
 
-        executorService = new ThreadPoolExecutor(0, 2,
-                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(8));
+        executorService = VirtualThreads.newExecutor("ParallelInMemoryHashJoin", virtualThreads,
+                () -> new ThreadPoolExecutor(0, 2,
+                        0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(8)));
         sides = new Side[] {new Side(joinVars, left, 0), new Side(joinVars, right, 1)};
         sides[0].start();
         sides[1].start();
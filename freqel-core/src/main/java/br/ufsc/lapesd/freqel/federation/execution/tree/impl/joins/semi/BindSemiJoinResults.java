@@ -0,0 +1,186 @@
+package br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.semi;
+
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.inner.SemiJoinOp;
+import br.ufsc.lapesd.freqel.algebra.util.TreeUtils;
+import br.ufsc.lapesd.freqel.federation.execution.PlanExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.bind.BindJoinResultsFactory;
+import br.ufsc.lapesd.freqel.query.modifiers.Ask;
+import br.ufsc.lapesd.freqel.query.modifiers.Distinct;
+import br.ufsc.lapesd.freqel.query.modifiers.Projection;
+import br.ufsc.lapesd.freqel.query.results.AbstractResults;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.ResultsCloseException;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.impl.ArraySolution;
+import br.ufsc.lapesd.freqel.query.results.impl.CollectionResults;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Evaluates a {@link SemiJoinOp} by probing the right side with batches of the left side.
+ *
+ * Left solutions are consumed in batches. The distinct values of the join variables in a
+ * batch are bound into the right side with a single bind join (which uses VALUES blocks when
+ * the sources support them). The right side is projected to the join variables and made
+ * DISTINCT, so the sources return at most one row per key, regardless of how many matches
+ * exist. The cost of a negation is thus proportional to the left side, not to the right.
+ *
+ * Left solutions that leave some join variable unbound, and FILTER (NOT) EXISTS whose right
+ * side has filters mentioning left variables that it does not bind, are probed one at a time
+ * with an ASK query of the bound right side.
+ *
+ * Failures while probing the right side are propagated as
+ * {@link br.ufsc.lapesd.freqel.query.endpoint.exceptions.QueryExecutionException}s: assuming
+ * no matches would silently produce wrong results, especially for negations.
+ */
+public class BindSemiJoinResults extends AbstractResults {
+    public static final int DEF_BATCH_SIZE = 256;
+
+    private final @Nonnull SemiJoinOp op;
+    private final @Nonnull Results left;
+    private final @Nonnull PlanExecutor planExecutor;
+    private final @Nonnull BindJoinResultsFactory bindJoinResultsFactory;
+    private final @Nonnull List<String> joinVars;
+    private final @Nonnull Set<String> substitutedVars;
+    private final @Nonnull ArraySolution.ValueFactory keyFactory;
+    private final @Nonnull ArraySolution.ValueFactory outFactory;
+    private final int batchSize;
+    private final @Nonnull ArrayDeque<Solution> ready = new ArrayDeque<>();
+    private final @Nonnull List<Solution> batch = new ArrayList<>();
+    private final @Nonnull Set<Solution> batchKeys = new HashSet<>();
+    private final @Nonnull Set<Solution> foundKeys = new HashSet<>();
+    private boolean exhausted = false;
+    private @Nullable Boolean rightNonEmpty;
+
+    public BindSemiJoinResults(@Nonnull SemiJoinOp op, @Nonnull Results left,
+                               @Nonnull PlanExecutor planExecutor,
+                               @Nonnull BindJoinResultsFactory bindJoinResultsFactory,
+                               int batchSize) {
+        super(op.getLeft().getResultVars());
+        this.op = op;
+        this.left = left;
+        this.planExecutor = planExecutor;
+        this.bindJoinResultsFactory = bindJoinResultsFactory;
+        this.batchSize = batchSize;
+        this.joinVars = new ArrayList<>(op.getJoinVars());
+        this.keyFactory = ArraySolution.forVars(joinVars);
+        this.outFactory = ArraySolution.forVars(varNames);
+        Set<String> substituted = new HashSet<>();
+        if (op.getMode() != SemiJoinOp.Mode.MINUS) {
+            substituted.addAll(op.getRight().getAllVars());
+            substituted.retainAll(varNames);
+            substituted.removeAll(joinVars);
+        }
+        this.substitutedVars = substituted;
+    }
+
+    public BindSemiJoinResults(@Nonnull SemiJoinOp op, @Nonnull Results left,
+                               @Nonnull PlanExecutor planExecutor,
+                               @Nonnull BindJoinResultsFactory bindJoinResultsFactory) {
+        this(op, left, planExecutor, bindJoinResultsFactory, DEF_BATCH_SIZE);
+    }
+
+    @Override public int getReadyCount() {
+        return ready.size();
+    }
+
+    @Override public boolean isDistinct() {
+        return left.isDistinct();
+    }
+
+    @Override public boolean hasNext() {
+        while (ready.isEmpty() && !exhausted)
+            fetchBatch();
+        return !ready.isEmpty();
+    }
+
+    @Override public @Nonnull Solution next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        return ready.remove();
+    }
+
+    @Override public void close() throws ResultsCloseException {
+        ready.clear();
+        exhausted = true;
+        left.close();
+    }
+
+    /* --- --- --- internals --- --- --- */
+
+    private boolean isAnti() {
+        return op.getMode().isAnti();
+    }
+
+    private void fetchBatch() {
+        batch.clear();
+        batchKeys.clear();
+        foundKeys.clear();
+        while (batch.size() < batchSize && left.hasNext()) {
+            Solution solution = left.next();
+            batch.add(solution);
+            if (canProbeKey(solution))
+                batchKeys.add(keyFactory.fromFunction(solution::get));
+        }
+        exhausted = batch.size() < batchSize;
+        if (!batchKeys.isEmpty())
+            probeKeys();
+        for (Solution solution : batch) {
+            boolean found;
+            if (op.getMode() == SemiJoinOp.Mode.MINUS && !hasAnyBound(solution))
+                found = false; // MINUS never removes solutions with disjoint domains
+            else if (joinVars.isEmpty() && substitutedVars.isEmpty())
+                found = rightNonEmpty();
+            else if (canProbeKey(solution))
+                found = foundKeys.contains(keyFactory.fromFunction(solution::get));
+            else
+                found = ask(solution);
+            if (found != isAnti())
+                ready.add(outFactory.fromSolution(solution));
+        }
+    }
+
+    private boolean canProbeKey(@Nonnull Solution solution) {
+        return !joinVars.isEmpty() && substitutedVars.isEmpty() && isFullyBound(solution);
+    }
+
+    private boolean rightNonEmpty() {
+        if (rightNonEmpty == null)
+            rightNonEmpty = ask(ArraySolution.EMPTY);
+        return rightNonEmpty;
+    }
+
+    private boolean isFullyBound(@Nonnull Solution solution) {
+        for (String var : joinVars) {
+            if (solution.get(var) == null) return false;
+        }
+        return true;
+    }
+
+    private boolean hasAnyBound(@Nonnull Solution solution) {
+        for (String var : joinVars) {
+            if (solution.get(var) != null) return true;
+        }
+        return false;
+    }
+
+    private void probeKeys() {
+        Op probe = TreeUtils.deepCopy(op.getRight()); // never mutate the shared plan
+        probe.modifiers().add(Projection.of(joinVars));
+        probe.modifiers().add(Distinct.INSTANCE);
+        Results keys = new CollectionResults(new ArrayList<>(batchKeys), joinVars);
+        bindJoinResultsFactory.createResults(keys, probe, joinVars, joinVars)
+                .forEachRemainingThenClose(s -> foundKeys.add(keyFactory.fromSolution(s)));
+    }
+
+    private boolean ask(@Nonnull Solution solution) {
+        Op bound = op.getRight().createBound(solution);
+        bound.modifiers().add(Ask.INSTANCE);
+        try (Results results = planExecutor.executeNode(bound)) {
+            return results.hasNext();
+        }
+    }
+}
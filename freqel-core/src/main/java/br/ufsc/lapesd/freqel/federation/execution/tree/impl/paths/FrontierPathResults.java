@@ -0,0 +1,249 @@
+package br.ufsc.lapesd.freqel.federation.execution.tree.impl.paths;
+
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.leaf.PathOp;
+import br.ufsc.lapesd.freqel.federation.execution.PlanExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.bind.BindJoinResultsFactory;
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.query.results.AbstractResults;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.ResultsCloseException;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.impl.ArraySolution;
+import br.ufsc.lapesd.freqel.query.results.impl.CollectionResults;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+import static br.ufsc.lapesd.freqel.algebra.leaf.PathOp.HOP_IN;
+import static br.ufsc.lapesd.freqel.algebra.leaf.PathOp.HOP_OUT;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+/**
+ * Evaluates a {@link PathOp} with a level-synchronous breadth-first search.
+ *
+ * If one end of the path is bound, the traversal starts at it and each level issues a
+ * single bind join of the hop plan for the whole frontier: nodes reached in that level that
+ * were never expanded. The {@link BindJoinResultsFactory} takes care of batching the
+ * frontier into VALUES blocks. Successors of each node are fetched at most once. If both
+ * ends are unbound, the whole hop relation is fetched once and the closure is computed
+ * locally, with every node in that relation as a start node, one start node at a time.
+ * Zero-length paths are then only generated for nodes that appear in the hop relation,
+ * instead of all graph nodes.
+ *
+ * Solutions are produced one level at a time, as they are consumed. Terms are interned
+ * into integer ids and only the visited set and the frontier of the current start node are
+ * kept, as {@link BitSet}s.
+ */
+public class FrontierPathResults extends AbstractResults {
+    private final @Nonnull PathOp op;
+    private final @Nonnull Op hopPlan;
+    private final @Nonnull PlanExecutor planExecutor;
+    private final @Nonnull BindJoinResultsFactory bindJoinResultsFactory;
+    private final @Nonnull ArraySolution.ValueFactory factory;
+    private final @Nonnull Map<Term, Integer> term2id = new HashMap<>();
+    private final @Nonnull List<Term> id2term = new ArrayList<>();
+    private final @Nonnull List<int[]> successors = new ArrayList<>();
+    private final @Nonnull List<Integer> successorsSize = new ArrayList<>();
+    private final @Nonnull BitSet expanded = new BitSet();
+    private final @Nonnull ArrayDeque<Solution> ready = new ArrayDeque<>();
+    private final boolean forward, sameVar;
+    private final @Nonnull String inVar, outVar;
+    /* traversal state */
+    private final @Nonnull BitSet visited = new BitSet();
+    private @Nullable BitSet frontier;
+    private int startId = -1, endId = -1, startsEnd = -1;
+    private boolean started = false, exhausted = false;
+
+    public FrontierPathResults(@Nonnull PathOp op, @Nonnull Op hopPlan,
+                               @Nonnull PlanExecutor planExecutor,
+                               @Nonnull BindJoinResultsFactory bindJoinResultsFactory) {
+        super(endVars(op));
+        this.op = op;
+        this.hopPlan = hopPlan;
+        this.planExecutor = planExecutor;
+        this.bindJoinResultsFactory = bindJoinResultsFactory;
+        this.factory = ArraySolution.forVars(varNames);
+        Term subject = op.getSubject(), object = op.getObject();
+        this.forward = !subject.isVar() || object.isVar();
+        this.inVar = forward ? HOP_IN : HOP_OUT;
+        this.outVar = forward ? HOP_OUT : HOP_IN;
+        this.sameVar = subject.isVar() && subject.equals(object);
+    }
+
+    private static @Nonnull Set<String> endVars(@Nonnull PathOp op) {
+        Set<String> set = new LinkedHashSet<>();
+        if (op.getSubject().isVar()) set.add(op.getSubject().asVar().getName());
+        if (op.getObject().isVar()) set.add(op.getObject().asVar().getName());
+        return set;
+    }
+
+    @Override public int getReadyCount() {
+        return ready.size();
+    }
+
+    @Override public boolean isDistinct() {
+        return true; // each start node reaches each node at most once
+    }
+
+    @Override public boolean hasNext() {
+        while (ready.isEmpty() && !exhausted) {
+            if (frontier == null || frontier.isEmpty()) {
+                if (!nextStart())
+                    exhausted = true;
+            } else {
+                step();
+            }
+        }
+        return !ready.isEmpty();
+    }
+
+    @Override public @Nonnull Solution next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        return ready.remove();
+    }
+
+    @Override public void close() throws ResultsCloseException {
+        exhausted = true;
+        ready.clear();
+        frontier = null;
+    }
+
+    /* --- --- --- term interning and adjacency --- --- --- */
+
+    private int intern(@Nonnull Term term) {
+        Integer id = term2id.get(term);
+        if (id == null) {
+            term2id.put(term, id = id2term.size());
+            id2term.add(term);
+            successors.add(null);
+            successorsSize.add(0);
+        }
+        return id;
+    }
+
+    private void addEdge(int from, int to) {
+        int[] array = successors.get(from);
+        int size = successorsSize.get(from);
+        if (array == null)
+            successors.set(from, array = new int[4]);
+        else if (size == array.length)
+            successors.set(from, array = Arrays.copyOf(array, size*2));
+        array[size] = to;
+        successorsSize.set(from, size+1);
+    }
+
+    private void addEdges(@Nonnull Results results) {
+        results.forEachRemainingThenClose(s -> {
+            Term in = s.get(inVar), out = s.get(outVar);
+            if (in != null && out != null)
+                addEdge(intern(in), intern(out));
+        });
+    }
+
+    /**
+     * Fetches the successors of all nodes in pending with a single bind join.
+     */
+    private void expand(@Nonnull BitSet pending) {
+        ArraySolution.ValueFactory inFactory = ArraySolution.forVars(singletonList(inVar));
+        List<Solution> values = new ArrayList<>(pending.cardinality());
+        for (int i = pending.nextSetBit(0); i >= 0; i = pending.nextSetBit(i+1))
+            values.add(inFactory.fromValues(id2term.get(i)));
+        Results smaller = new CollectionResults(values, singletonList(inVar));
+        addEdges(bindJoinResultsFactory.createResults(smaller, hopPlan, singletonList(inVar),
+                                                      asList(HOP_IN, HOP_OUT)));
+        expanded.or(pending);
+    }
+
+    /* --- --- --- traversal --- --- --- */
+
+    /**
+     * Starts the traversal from the next start node.
+     *
+     * @return false iff there are no more start nodes
+     */
+    private boolean nextStart() {
+        Term start = forward ? op.getSubject() : op.getObject();
+        Term end = forward ? op.getObject() : op.getSubject();
+        PathOp.Quantifier quantifier = op.getQuantifier();
+        if (!started) {
+            started = true;
+            if (start.isVar()) { // every node in the hop relation is a start node
+                addEdges(planExecutor.executeNode(hopPlan));
+                expanded.set(0, id2term.size());
+                startsEnd = id2term.size();
+            } else {
+                startId = intern(start) - 1;
+                startsEnd = startId + 2;
+            }
+            endId = end.isVar() ? -1 : intern(end);
+        }
+        do {
+            ++startId; // nodes without successors only have zero-length paths
+        } while (startId < startsEnd && start.isVar() && !quantifier.allowsZero()
+                                     && successorsSize.get(startId) == 0);
+        if (startId >= startsEnd)
+            return false;
+        visited.clear();
+        frontier = new BitSet();
+        frontier.set(startId);
+        if (quantifier.allowsZero()) {
+            visited.set(startId);
+            if (emit(startId))
+                frontier = null; // reached the bound end
+        }
+        return true;
+    }
+
+    /**
+     * Advances the traversal from the current start node by one level.
+     */
+    private void step() {
+        assert frontier != null;
+        BitSet pending = (BitSet) frontier.clone();
+        pending.andNot(expanded);
+        if (!pending.isEmpty())
+            expand(pending);
+        BitSet next = new BitSet();
+        boolean reachedEnd = false;
+        for (int i = frontier.nextSetBit(0); i >= 0 && !reachedEnd; i = frontier.nextSetBit(i+1)) {
+            int[] array = successors.get(i);
+            for (int j = 0, size = successorsSize.get(i); j < size; j++) {
+                int node = array[j];
+                if (visited.get(node)) continue;
+                visited.set(node);
+                next.set(node);
+                if (emit(node)) {
+                    reachedEnd = true;
+                    break;
+                }
+            }
+        }
+        frontier = reachedEnd || !op.getQuantifier().allowsMany() ? null : next;
+    }
+
+    /**
+     * Queues a solution if reached satisfies the path end.
+     *
+     * @return true iff the end of the path is bound and was reached, so there is no
+     *         reason to continue the search from the current start node.
+     */
+    private boolean emit(int reached) {
+        if (endId >= 0 && endId != reached)
+            return false;
+        if (sameVar && startId != reached)
+            return false;
+        Term startTerm = id2term.get(startId), reachedTerm = id2term.get(reached);
+        Term s = forward ? startTerm : reachedTerm, o = forward ? reachedTerm : startTerm;
+        Term subject = op.getSubject(), object = op.getObject();
+        ready.add(factory.fromFunction(name -> {
+            if (subject.isVar() && subject.asVar().getName().equals(name)) return s;
+            if (object.isVar() && object.asVar().getName().equals(name)) return o;
+            return null;
+        }));
+        return endId >= 0;
+    }
+}
@@ -55,6 +55,8 @@ public interface FederationComponent {
         @BindsInstance Builder overrideCartesianOpExecutor(@Named("override") @Nullable CartesianOpExecutor e);
         @BindsInstance Builder overrideEmptyOpExecutor(@Named("override") @Nullable EmptyOpExecutor e);
         @BindsInstance Builder overridePipeOpExecutor(@Named("override") @Nullable PipeOpExecutor e);
+        @BindsInstance Builder overridePathOpExecutor(@Named("override") @Nullable PathOpExecutor e);
+        @BindsInstance Builder overrideSemiJoinOpExecutor(@Named("override") @Nullable SemiJoinOpExecutor e);
         @BindsInstance Builder overrideResultsExecutor(@Named("override") @Nullable ResultsExecutor e);
         @BindsInstance Builder overrideHashJoinResultsFactory(@Named("override") @Nullable HashJoinResultsFactory f);
         @BindsInstance Builder overrideBindJoinResultsFactory(@Named("override") @Nullable BindJoinResultsFactory f);
@@ -76,6 +78,8 @@ public interface FederationComponent {
         @BindsInstance Builder overrideInnerCardinalityComputer(@Nullable @Named("override") InnerCardinalityComputer c);
         @BindsInstance Builder overrideJoinCardinalityEstimator(@Nullable @Named("override") JoinCardinalityEstimator e);
         @BindsInstance Builder overrideCardinalityComparator(@Nullable @Named("override") CardinalityComparator c);
+        @BindsInstance Builder overrideEstimateCache(@Nullable @Named("override") EstimateCache c);
+        @BindsInstance Builder overrideStatisticsCatalog(@Nullable @Named("override") StatisticsCatalog c);
         @BindsInstance Builder overrideRelCardAdderNoneEmptyMin(@Nullable @Named("relCardAdder.neMinOverride") Integer i);
         @BindsInstance Builder overrideRelCardAdderNonEmptyProportion(@Named("relCardAdder.neProportionOverride") @Nullable Double p);
         @BindsInstance Builder overrideRelCardAdderUnsupportedProportion(@Named("relCardAdder.unsProportionOverride") @Nullable Double p);
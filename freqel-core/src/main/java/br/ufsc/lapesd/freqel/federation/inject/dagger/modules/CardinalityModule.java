@@ -12,6 +12,9 @@ import dagger.multibindings.ElementsIntoSet;
 
 import javax.annotation.Nullable;
 import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.io.File;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -39,26 +42,74 @@ public abstract class CardinalityModule {
         return policy;
     }
 
+    @Provides @Reusable public static @Named("estimateCacheTTL") int
+    estimateCacheTTL(FreqelConfig config) {
+        return config.get(ESTIMATE_CACHE_TTL, Integer.class);
+    }
+
+    @Provides @Singleton public static EstimateCache
+    estimateCache(@Named("override") @Nullable EstimateCache override, FreqelConfig config,
+                  Provider<TTLEstimateCache> ttlProvider,
+                  Provider<PersistentEstimateCache> persistentProvider) {
+        if (override != null)
+            return override;
+        String name = requireNonNull(config.get(ESTIMATE_CACHE, String.class));
+        String ttlName = TTLEstimateCache.class.getName();
+        String persistentName = PersistentEstimateCache.class.getName();
+        if (name.equals(ttlName) || ttlName.endsWith(name))
+            return ttlProvider.get();
+        if (name.equals(persistentName) || persistentName.endsWith(name))
+            return persistentProvider.get();
+        return ModuleHelper.get(EstimateCache.class, name, NoEstimateCache.INSTANCE);
+    }
+
+    @Provides @Reusable public static @Named("statisticsCatalogFile") @Nullable File
+    statisticsCatalogFile(FreqelConfig config) {
+        return config.get(STATISTICS_CATALOG_FILE, File.class);
+    }
+
+    @Provides @Reusable public static @Named("statisticsCatalogTTL") int
+    statisticsCatalogTTL(FreqelConfig config) {
+        return config.get(STATISTICS_CATALOG_TTL, Integer.class);
+    }
+
+    @Provides @Singleton public static StatisticsCatalog
+    statisticsCatalog(@Named("override") @Nullable StatisticsCatalog override,
+                      FreqelConfig config, Provider<DefaultStatisticsCatalog> defProvider) {
+        if (override != null)
+            return override;
+        String name = requireNonNull(config.get(STATISTICS_CATALOG, String.class));
+        String defName = DefaultStatisticsCatalog.class.getName();
+        if (name.equals(defName) || defName.endsWith(name))
+            return defProvider.get();
+        return ModuleHelper.get(StatisticsCatalog.class, name, NoStatisticsCatalog.INSTANCE);
+    }
+
     @Provides @Reusable @ElementsIntoSet public static Set<CardinalityHeuristic>
     cardinalityHeuristics(@Named("override") @Nullable Set<CardinalityHeuristic> override,
-                          FreqelConfig config, LimitCardinalityHeuristic limit) {
+                          FreqelConfig config, LimitCardinalityHeuristic limit,
+                          ObservedCardinalityHeuristic observed,
+                          StatisticsCardinalityHeuristic statistics) {
         @SuppressWarnings("unchecked")
         Set<String> names = (Set<String>) config.get(CARDINALITY_HEURISTICS, Set.class);
         assert names != null;
         assert !names.isEmpty();
         Set<CardinalityHeuristic> set = new HashSet<>();
         for (String name : names)
-            set.add(ModuleHelper.get(CardinalityHeuristic.class, name, limit));
+            set.add(ModuleHelper.get(CardinalityHeuristic.class, name, limit, observed,
+                                     statistics));
         return set;
     }
 
     @Provides @Reusable public static @Named("fast") CardinalityHeuristic
     fastCardinalityHeuristic(@Named("fastOverride") @Nullable CardinalityHeuristic override,
-                             FreqelConfig config, LimitCardinalityHeuristic limit) {
+                             FreqelConfig config, LimitCardinalityHeuristic limit,
+                             ObservedCardinalityHeuristic observed,
+                             StatisticsCardinalityHeuristic statistics) {
         if (override != null)
             return override;
         String name = requireNonNull(config.get(FAST_CARDINALITY_HEURISTIC, String.class));
-        return ModuleHelper.get(CardinalityHeuristic.class, name, limit);
+        return ModuleHelper.get(CardinalityHeuristic.class, name, limit, observed, statistics);
     }
 
     @Provides @Reusable public static @Named("relCardAdder.neMin") int
@@ -104,11 +155,12 @@ public abstract class CardinalityModule {
     @Provides @Reusable public static JoinCardinalityEstimator
     joinCardinalityEstimator(@Named("override") @Nullable JoinCardinalityEstimator override,
                              FreqelConfig config, BindJoinCardinalityEstimator bind,
-                             AverageJoinCardinalityEstimator avg) {
+                             AverageJoinCardinalityEstimator avg,
+                             ObservedJoinCardinalityEstimator observed) {
         if (override != null)
             return override;
         String name = requireNonNull(config.get(JOIN_CARDINALITY_ESTIMATOR, String.class));
-        return ModuleHelper.get(JoinCardinalityEstimator.class, name, bind, avg);
+        return ModuleHelper.get(JoinCardinalityEstimator.class, name, bind, avg, observed);
     }
 
     @Provides @Reusable public static @Named("largeCardinalityThreshold") Integer
@@ -5,8 +5,10 @@ import br.ufsc.lapesd.freqel.federation.execution.InjectedExecutor;
 import br.ufsc.lapesd.freqel.federation.execution.PlanExecutor;
 import br.ufsc.lapesd.freqel.federation.execution.tree.*;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.LazyCartesianOpExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.SimplePathOpExecutor;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.SimplePipeOpExecutor;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.SimpleQueryOpExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.BindSemiJoinOpExecutor;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.DefaultHashJoinOpExecutor;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.DefaultJoinOpExecutor;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.FixedBindJoinOpExecutor;
@@ -14,9 +16,12 @@ import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.FixedHashJoinO
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.bind.BindJoinResultsFactory;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.bind.SimpleBindJoinResults;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.hash.HashJoinResultsFactory;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.hash.InMemoryHashJoinResults;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.hash.ParallelInMemoryHashJoinResults;
 import br.ufsc.lapesd.freqel.query.results.ResultsExecutor;
-import br.ufsc.lapesd.freqel.query.results.impl.BufferedResultsExecutor;
+import br.ufsc.lapesd.freqel.query.results.impl.RingBufferResultsExecutor;
 import br.ufsc.lapesd.freqel.query.results.impl.SequentialResultsExecutor;
+import br.ufsc.lapesd.freqel.util.VirtualThreads;
 import dagger.Module;
 import dagger.Provides;
 import dagger.Reusable;
@@ -104,15 +109,37 @@ public abstract class ExecutionModule {
         String name = requireNonNull(config.get(PIPE_OP_EXECUTOR, String.class));
         return ModuleHelper.get(PipeOpExecutor.class, name, def);
     }
+    @Provides @Reusable public static PathOpExecutor
+    pathExecutor(@Nullable @Named("override") PathOpExecutor override,
+                 FreqelConfig config, SimplePathOpExecutor def) {
+        if (override != null)
+            return override;
+        String name = requireNonNull(config.get(PATH_OP_EXECUTOR, String.class));
+        return ModuleHelper.get(PathOpExecutor.class, name, def);
+    }
+    @Provides @Reusable public static SemiJoinOpExecutor
+    semiJoinExecutor(@Nullable @Named("override") SemiJoinOpExecutor override,
+                     FreqelConfig config, BindSemiJoinOpExecutor def) {
+        if (override != null)
+            return override;
+        String name = requireNonNull(config.get(SEMI_JOIN_OP_EXECUTOR, String.class));
+        return ModuleHelper.get(SemiJoinOpExecutor.class, name, def);
+    }
 
     @Provides @Singleton public static ResultsExecutor
-    resultsExecutor(@Named("override") @Nullable ResultsExecutor override, FreqelConfig config) {
+    resultsExecutor(@Named("override") @Nullable ResultsExecutor override, FreqelConfig config,
+                    @Named("virtualThreads") boolean virtualThreads) {
         if (override != null)
             return override;
         double factor = config.get(RESULTS_EXECUTOR_CONCURRENCY_FACTOR, Double.class);
         int cores = Runtime.getRuntime().availableProcessors();
         int max = factor == -1 ? Integer.MAX_VALUE : (int)Math.ceil(cores * factor);
-        if (max > 1) {
+        int bufferSize = config.get(RESULTS_EXECUTOR_BUFFER_SIZE, Integer.class);
+        if (factor == -1 && virtualThreads && VirtualThreads.isSupported()) { // unbounded & cheap
+            ExecutorService executor = VirtualThreads.newExecutor("ResultsExecutor", true,
+                    Executors::newCachedThreadPool);
+            return new RingBufferResultsExecutor(executor, bufferSize);
+        } else if (max > 1) {
             assert max > 100 : "max threads too low, may cause starvation";
             BlockingQueue<Runnable> queue = factor == -1 ? new SynchronousQueue<>()
                     : new LinkedBlockingQueue<>();
@@ -123,8 +150,7 @@ public abstract class ExecutionModule {
                 t.setDaemon(true);
                 return t;
             });
-            int bufferSize = config.get(RESULTS_EXECUTOR_BUFFER_SIZE, Integer.class);
-            return new BufferedResultsExecutor(executor, bufferSize);
+            return new RingBufferResultsExecutor(executor, bufferSize);
         } else {
             return new SequentialResultsExecutor();
         }
@@ -132,11 +158,14 @@ public abstract class ExecutionModule {
 
     @Provides @Reusable public static HashJoinResultsFactory
     hashJoinResultsFactory(@Nullable @Named("override") HashJoinResultsFactory override,
-                           FreqelConfig config) {
+                           FreqelConfig config,
+                           @Named("virtualThreads") boolean virtualThreads) {
         if (override != null)
             return override;
         String name = requireNonNull(config.get(HASH_JOIN_RESULTS_FACTORY, String.class));
-        return ModuleHelper.get(HashJoinResultsFactory.class, name);
+        return ModuleHelper.get(HashJoinResultsFactory.class, name,
+                new InMemoryHashJoinResults.Factory().setVirtualThreads(virtualThreads),
+                new ParallelInMemoryHashJoinResults.Factory().setVirtualThreads(virtualThreads));
     }
 
     @Provides @Reusable public static BindJoinResultsFactory
@@ -149,6 +178,11 @@ public abstract class ExecutionModule {
         return ModuleHelper.get(BindJoinResultsFactory.class, name, simpleFac);
     }
 
+    @Provides @Reusable public static @Named("adaptiveJoinSwitchRows") int
+    adaptiveJoinSwitchRows(FreqelConfig config) {
+        return requireNonNull(config.get(ADAPTIVE_JOIN_SWITCH_ROWS, Integer.class));
+    }
+
     @Provides @Reusable public static JoinOpExecutor
     joinExecutor(@Nullable @Named("override") JoinOpExecutor override,
                  FreqelConfig config,
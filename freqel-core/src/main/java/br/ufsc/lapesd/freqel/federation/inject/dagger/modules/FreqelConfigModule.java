@@ -23,14 +23,29 @@ public abstract class FreqelConfigModule {
         return tempDir;
     }
 
+    @Provides @Reusable @Named("distinctMemoryBudget") public static long
+    distinctMemoryBudget(FreqelConfig config) {
+        Integer mib = config.get(FreqelConfig.Key.DISTINCT_MEMORY_BUDGET, Integer.class);
+        assert mib != null;
+        return mib < 0 ? -1 : mib * 1024L * 1024L;
+    }
+
+    @Provides @Reusable @Named("virtualThreads") public static boolean
+    virtualThreads(FreqelConfig config) {
+        Boolean virtual = config.get(FreqelConfig.Key.VIRTUAL_THREADS, Boolean.class);
+        return virtual != null && virtual;
+    }
+
     @Provides @Singleton public static FreqelConfig
     config(@Named("override") @Nullable FreqelConfig override) {
-        if (override != null)
-            return override;
-        try {
-            return new FreqelConfig(); //load configs from default locations
-        } catch (IOException | FreqelConfig.InvalidValueException e) {
-            throw new RuntimeException("Failed to create default FreqelConfig", e);
+        FreqelConfig config = override;
+        if (config == null) {
+            try {
+                config = new FreqelConfig(); //load configs from default locations
+            } catch (IOException | FreqelConfig.InvalidValueException e) {
+                throw new RuntimeException("Failed to create default FreqelConfig", e);
+            }
         }
+        return config;
     }
 }
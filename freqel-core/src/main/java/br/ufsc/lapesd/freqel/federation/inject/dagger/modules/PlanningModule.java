@@ -13,6 +13,7 @@ import br.ufsc.lapesd.freqel.federation.decomp.match.ParallelSourcesListMatching
 import br.ufsc.lapesd.freqel.federation.decomp.match.SourcesListMatchingStrategy;
 import br.ufsc.lapesd.freqel.federation.planner.*;
 import br.ufsc.lapesd.freqel.federation.planner.conjunctive.ArbitraryJoinOrderPlanner;
+import br.ufsc.lapesd.freqel.federation.planner.conjunctive.DPJoinOrderPlanner;
 import br.ufsc.lapesd.freqel.federation.planner.conjunctive.GreedyJoinOrderPlanner;
 import br.ufsc.lapesd.freqel.federation.planner.conjunctive.JoinPathsConjunctivePlanner;
 import br.ufsc.lapesd.freqel.federation.planner.conjunctive.bitset.BitsetConjunctivePlanner;
@@ -93,11 +94,17 @@ public abstract class PlanningModule {
 
     @Provides @Reusable public static JoinOrderPlanner
     joinOrderPlanner(@Named("override") @Nullable JoinOrderPlanner override, FreqelConfig config,
-                     GreedyJoinOrderPlanner greedy, ArbitraryJoinOrderPlanner arbitrary) {
+                     GreedyJoinOrderPlanner greedy, ArbitraryJoinOrderPlanner arbitrary,
+                     DPJoinOrderPlanner dp) {
         if (override != null)
             return override;
         String name = requireNonNull(config.get(JOIN_ORDER_PLANNER, String.class));
-        return ModuleHelper.get(JoinOrderPlanner.class, name, greedy, arbitrary);
+        return ModuleHelper.get(JoinOrderPlanner.class, name, greedy, arbitrary, dp);
+    }
+
+    @Provides @Reusable public static @Named("joinOrderDPMaxRelations") int
+    joinOrderDPMaxRelations(FreqelConfig config) {
+        return config.get(JOIN_ORDER_DP_MAX_RELATIONS, Integer.class);
     }
 
     @Provides @Reusable public static @Named("planningCoreThreads") int
@@ -181,6 +188,8 @@ public abstract class PlanningModule {
             deepSteps.add(new PipeCleanerStep());
         if (config.get(POSTPLANNER_PUSH_DISJUNCTIVE, Boolean.class))
             deepSteps.add(new PushDisjunctiveStep());
+        if (config.get(POSTPLANNER_PUSH_AGGREGATION, Boolean.class))
+            deepSteps.add(new PushAggregationStep());
         return new PhasedPostPlanner(performanceListener).addDeepPhase(deepSteps);
     }
 }
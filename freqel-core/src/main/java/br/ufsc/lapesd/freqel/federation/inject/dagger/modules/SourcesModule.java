@@ -1,5 +1,6 @@
 package br.ufsc.lapesd.freqel.federation.inject.dagger.modules;
 
+import br.ufsc.lapesd.freqel.description.DescriptionUpdater;
 import br.ufsc.lapesd.freqel.federation.FreqelConfig;
 import br.ufsc.lapesd.freqel.federation.spec.source.SourceCache;
 import br.ufsc.lapesd.freqel.federation.spec.source.SourceLoader;
@@ -14,18 +15,20 @@ import javax.inject.Singleton;
 import java.io.File;
 import java.io.IOException;
 
-import static br.ufsc.lapesd.freqel.federation.FreqelConfig.Key.SOURCES_CACHE_DIR;
+import static br.ufsc.lapesd.freqel.federation.FreqelConfig.Key.*;
 import static java.util.Objects.requireNonNull;
 
 @Module
 public abstract class SourcesModule {
 
     @Provides @Singleton public static SourceLoaderRegistry
-    sourceLoaderRegistry(@Named("tempDir") File tempDir, SourceCache sourceCache) {
+    sourceLoaderRegistry(@Named("tempDir") File tempDir, SourceCache sourceCache,
+                         @Named("virtualThreads") boolean virtualThreads) {
         SourceLoaderRegistry registry = new SourceLoaderRegistry().registerAllSPIs();
         for (SourceLoader loader : registry.getSourceLoaders()) {
             loader.setTempDir(tempDir);
             loader.setSourceCache(sourceCache);
+            loader.setVirtualThreads(virtualThreads);
         }
         return registry;
     }
@@ -46,4 +49,11 @@ public abstract class SourcesModule {
         }
         return instance;
     }
+
+    @Provides @Singleton public static DescriptionUpdater
+    descriptionUpdater(FreqelConfig config) {
+        return new DescriptionUpdater(config.get(DESCRIPTION_UPDATE_THREADS, Integer.class),
+                                      config.get(DESCRIPTION_SOURCE_CONCURRENCY, Integer.class),
+                                      config.get(DESCRIPTION_PAGE_SIZE, Integer.class));
+    }
 }
@@ -0,0 +1,80 @@
+package br.ufsc.lapesd.freqel.federation.performance;
+
+import br.ufsc.lapesd.freqel.federation.PerformanceListener;
+import br.ufsc.lapesd.freqel.util.metrics.AtomicHistogram;
+import br.ufsc.lapesd.freqel.util.metrics.MetricsRegistry;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.LongAdder;
+
+import static br.ufsc.lapesd.freqel.util.metrics.MetricsRegistry.LATENCY_BUCKETS;
+import static br.ufsc.lapesd.freqel.util.metrics.MetricsRegistry.SIZE_BUCKETS;
+import static java.util.concurrent.TimeUnit.HOURS;
+
+/**
+ * Production metrics of federations and endpoint clients, recorded into
+ * {@link MetricsRegistry#getDefault()}.
+ *
+ * Unlike {@link PerformanceListener}, which keeps every
+ * sample for benchmarks, these metrics are aggregated into counters and histograms as they
+ * are recorded, with constant memory and lock-free updates.
+ *
+ * Latencies are recorded in microseconds and exported in seconds.
+ */
+public class FederationMetrics {
+    private static final double MICROS = 1e-6;
+    private static final long MAX_MICROS = HOURS.toMicros(1);
+    private static final long MAX_BYTES = 1L << 40;
+
+    public static final @Nonnull LongAdder QUERIES = MetricsRegistry.getDefault().counter(
+            "freqel_queries_total", "Queries submitted to the federation");
+    public static final @Nonnull LongAdder QUERY_ERRORS = MetricsRegistry.getDefault().counter(
+            "freqel_query_errors_total", "Queries that failed during planning or execution");
+    public static final @Nonnull AtomicHistogram QUERY_LATENCY =
+            MetricsRegistry.getDefault().histogram("freqel_query_duration_seconds",
+                    "Time from query submission until its results are exhausted or closed",
+                    MICROS, MAX_MICROS, LATENCY_BUCKETS);
+    public static final @Nonnull AtomicHistogram FIRST_RESULT_LATENCY =
+            MetricsRegistry.getDefault().histogram("freqel_query_first_result_seconds",
+                    "Time from query submission until its first solution is consumed",
+                    MICROS, MAX_MICROS, LATENCY_BUCKETS);
+
+    /**
+     * Instruments of a single endpoint, labeled with the endpoint URI.
+     */
+    public static class Endpoint {
+        public final @Nonnull LongAdder requests, errors;
+        public final @Nonnull AtomicHistogram latency, bytes;
+
+        private Endpoint(@Nonnull String endpoint) {
+            MetricsRegistry registry = MetricsRegistry.getDefault();
+            requests = registry.counter("freqel_endpoint_requests_total",
+                    "Requests sent to a remote endpoint", "endpoint", endpoint);
+            errors = registry.counter("freqel_endpoint_request_errors_total",
+                    "Requests to a remote endpoint that failed or got a non-2xx status",
+                    "endpoint", endpoint);
+            latency = registry.histogram("freqel_endpoint_request_duration_seconds",
+                    "Time until the response headers of a remote endpoint are received",
+                    MICROS, MAX_MICROS, LATENCY_BUCKETS, "endpoint", endpoint);
+            bytes = registry.histogram("freqel_endpoint_response_bytes",
+                    "Size of response bodies received from a remote endpoint",
+                    1, MAX_BYTES, SIZE_BUCKETS, "endpoint", endpoint);
+        }
+    }
+
+    /**
+     * Get the instruments for an endpoint. Callers should keep the returned object.
+     */
+    public static @Nonnull Endpoint forEndpoint(@Nonnull String endpoint) {
+        return new Endpoint(endpoint);
+    }
+
+    /**
+     * Record a query latency.
+     */
+    public static void recordQuery(long microseconds, boolean failed) {
+        QUERY_LATENCY.record(microseconds);
+        if (failed)
+            QUERY_ERRORS.increment();
+    }
+}
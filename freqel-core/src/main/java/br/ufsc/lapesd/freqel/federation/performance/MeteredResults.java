@@ -0,0 +1,103 @@
+package br.ufsc.lapesd.freqel.federation.performance;
+
+import br.ufsc.lapesd.freqel.query.results.DelegatingResults;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.ResultsCloseException;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Records the latency of a query into {@link FederationMetrics} as its results are consumed.
+ *
+ * The time to first result is recorded when the first solution is consumed and the query
+ * duration is recorded once, when the results are exhausted, fail or are closed.
+ */
+public class MeteredResults extends DelegatingResults {
+    private final long startNs;
+    private boolean first = true, done = false;
+
+    /**
+     * Wraps the results of a query.
+     *
+     * @param startNs {@link System#nanoTime()} when the query was submitted
+     */
+    public MeteredResults(@Nonnull Results in, long startNs) {
+        super(in.getVarNames(), in);
+        this.startNs = startNs;
+    }
+
+    private long elapsedUs() {
+        return (System.nanoTime() - startNs) / 1000;
+    }
+
+    private void finish(boolean failed) {
+        if (!done) {
+            done = true;
+            FederationMetrics.recordQuery(elapsedUs(), failed);
+        }
+    }
+
+    private void consumed(int count) {
+        if (first && count > 0) {
+            first = false;
+            FederationMetrics.FIRST_RESULT_LATENCY.record(elapsedUs());
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        boolean ok = false, has = false;
+        try {
+            has = in.hasNext();
+            ok = true;
+        } finally {
+            if (!ok || !has)
+                finish(!ok);
+        }
+        return has;
+    }
+
+    @Override
+    public boolean hasNext(int millisecondsTimeout) {
+        boolean ok = false;
+        try {
+            boolean has = in.hasNext(millisecondsTimeout);
+            ok = true;
+            return has;
+        } finally {
+            if (!ok)
+                finish(true);
+        }
+    }
+
+    @Override
+    public @Nonnull Solution next() {
+        Solution solution = in.next();
+        consumed(1);
+        return solution;
+    }
+
+    @Override
+    public int nextBatch(@Nonnull Solution[] buffer, int max) {
+        int n = in.nextBatch(buffer, max);
+        consumed(n);
+        if (n == 0 && max > 0)
+            finish(false);
+        return n;
+    }
+
+    @Override
+    public void setDemand(int solutions) {
+        in.setDemand(solutions);
+    }
+
+    @Override
+    public void close() throws ResultsCloseException {
+        try {
+            in.close();
+        } finally {
+            finish(false);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package br.ufsc.lapesd.freqel.federation.planner.conjunctive;
+
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.algebra.JoinInfo;
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.inner.JoinOp;
+import br.ufsc.lapesd.freqel.cardinality.JoinCardinalityEstimator;
+import br.ufsc.lapesd.freqel.federation.PerformanceListener;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.bind.SimpleBindJoinResults;
+import br.ufsc.lapesd.freqel.federation.performance.metrics.Metrics;
+import br.ufsc.lapesd.freqel.federation.performance.metrics.TimeSampler;
+import br.ufsc.lapesd.freqel.federation.planner.EquivCleaner;
+import br.ufsc.lapesd.freqel.federation.planner.JoinOrderPlanner;
+import br.ufsc.lapesd.freqel.federation.planner.utils.LeafCardinalityEstimator;
+import br.ufsc.lapesd.freqel.query.modifiers.Optional;
+import br.ufsc.lapesd.freqel.util.indexed.ref.RefIndexSet;
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static br.ufsc.lapesd.freqel.algebra.Cardinality.Reliability.UNSUPPORTED;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Exhaustive join order enumeration using the DPccp algorithm (Moerkotte &amp; Neumann, 2006).
+ *
+ * Only connected subgraphs of the join graph and their connected complements are
+ * enumerated, thus no cartesian product is ever considered and no subset is visited twice.
+ * The cost model estimates the rows transferred plus a fixed cost per request sent to a
+ * source. For each join, the cost is the smallest of a hash join (both sides are fully
+ * fetched) and a bind join, whose number of requests depends on whether the right side
+ * accepts VALUES blocks (see {@link SimpleBindJoinResults#canValuesBind(Op)}).
+ *
+ * The number of connected subgraphs grows exponentially with the number of nodes. If there
+ * are more nodes than the configured maximum (or DPccp finds no valid plan), planning
+ * is delegated to {@link GreedyJoinOrderPlanner}.
+ */
+public class DPJoinOrderPlanner implements JoinOrderPlanner {
+    private static final Logger logger = LoggerFactory.getLogger(DPJoinOrderPlanner.class);
+    /** Nodes are represented as bits of a long */
+    private static final int MAX_NODES = 63;
+    /** Cost of a request, relative to the cost of transferring a row */
+    @VisibleForTesting static final double REQUEST_COST = 64;
+    /** Row count assumed for UNSUPPORTED cardinalities */
+    @VisibleForTesting static final long HUGE = 10000;
+
+    private final @Nonnull PerformanceListener performance;
+    private final @Nonnull LeafCardinalityEstimator leafEstimator;
+    private final @Nonnull JoinCardinalityEstimator joinCardinalityEstimator;
+    private final @Nonnull EquivCleaner equivCleaner;
+    private final @Nonnull GreedyJoinOrderPlanner greedy;
+    private final int maxRelations;
+
+    @Inject
+    public DPJoinOrderPlanner(@Nonnull PerformanceListener performance,
+                              @Nonnull LeafCardinalityEstimator leafEstimator,
+                              @Nonnull JoinCardinalityEstimator joinCardinalityEstimator,
+                              @Nonnull EquivCleaner equivCleaner,
+                              @Nonnull GreedyJoinOrderPlanner greedy,
+                              @Named("joinOrderDPMaxRelations") int maxRelations) {
+        this.performance = performance;
+        this.leafEstimator = leafEstimator;
+        this.joinCardinalityEstimator = joinCardinalityEstimator;
+        this.equivCleaner = equivCleaner;
+        this.greedy = greedy;
+        this.maxRelations = Math.min(maxRelations, MAX_NODES);
+    }
+
+    public int getMaxRelations() {
+        return maxRelations;
+    }
+
+    @Override
+    public @Nonnull Op plan(@Nonnull JoinGraph joinGraph, @Nonnull Collection<Op> nodes) {
+        checkArgument(!nodes.isEmpty(), "Cannot optimize joins without nodes to join!");
+        if (nodes.size() > maxRelations)
+            return greedy.plan(joinGraph, nodes);
+        Op plan;
+        try (TimeSampler ignored = Metrics.OPT_MS.createThreadSampler(performance)) {
+            plan = new State(joinGraph, nodes).run();
+        }
+        if (plan == null) {
+            logger.debug("DPccp found no valid plan for {} nodes, falling back to greedy",
+                         nodes.size());
+            return greedy.plan(joinGraph, nodes);
+        }
+        return plan;
+    }
+
+    /* --- --- --- internals --- --- --- */
+
+    @VisibleForTesting
+    static class Entry {
+        final @Nonnull Op plan;
+        final long rows;
+        final double cost;
+        final int leaves;
+
+        Entry(@Nonnull Op plan, long rows, double cost, int leaves) {
+            this.plan = plan;
+            this.rows = rows;
+            this.cost = cost;
+            this.leaves = leaves;
+        }
+    }
+
+    @VisibleForTesting
+    static long rows(@Nonnull Cardinality cardinality) {
+        if (cardinality.getReliability() == UNSUPPORTED)
+            return HUGE;
+        return Math.max(1, cardinality.getValue(HUGE));
+    }
+
+    /**
+     * Cost of joining l and r if l is the outer (left) side and r is the inner side.
+     *
+     * @return the cost or {@link Double#POSITIVE_INFINITY} if the join is not possible
+     *         in this orientation
+     */
+    @VisibleForTesting
+    static double joinCost(@Nonnull Entry l, @Nonnull Entry r, long outRows) {
+        if (!l.plan.getRequiredInputVars().isEmpty())
+            return Double.POSITIVE_INFINITY; // inputs must be bound from the other side
+        double bindRequests = SimpleBindJoinResults.canValuesBind(r.plan)
+                ? Math.ceil(l.rows / (double) SimpleBindJoinResults.DEF_VALUES_ROWS)
+                : l.rows;
+        double bind = l.cost + bindRequests * r.leaves * REQUEST_COST + outRows;
+        if (!r.plan.getRequiredInputVars().isEmpty())
+            return bind;
+        double hash = l.cost + r.cost + outRows;
+        return Math.min(bind, hash);
+    }
+
+    private class State {
+        private final @Nonnull JoinGraph graph;
+        private final @Nonnull List<Op> clean;
+        private final @Nonnull long[] neighbors;
+        private final @Nonnull Map<Long, Entry> best = new HashMap<>();
+
+        State(@Nonnull JoinGraph graph, @Nonnull Collection<Op> nodes) {
+            this.graph = graph;
+            this.clean = new ArrayList<>(nodes.size());
+            for (Op node : nodes) {
+                clean.add(equivCleaner.cleanEquivalents(node,
+                        GreedyJoinOrderPlanner.OrderTuple.NODE_COMPARATOR));
+            }
+            leafEstimator.estimate(clean);
+            int size = clean.size();
+            this.neighbors = new long[size];
+            for (int i = 0; i < size; i++) {
+                for (int j = i+1; j < size; j++) {
+                    JoinInfo info = weight(clean.get(i), clean.get(j));
+                    if (info != null && info.isValid()) {
+                        neighbors[i] |= 1L << j;
+                        neighbors[j] |= 1L << i;
+                    }
+                }
+            }
+        }
+
+        private @Nullable JoinInfo weight(@Nonnull Op a, @Nonnull Op b) {
+            RefIndexSet<Op> nodes = graph.getNodes();
+            if (nodes.contains(a) && nodes.contains(b))
+                return graph.getWeight(a, b);
+            return JoinInfo.getJoinability(a, b);
+        }
+
+        @Nullable Op run() {
+            int size = clean.size();
+            for (int i = 0; i < size; i++) {
+                Op node = clean.get(i);
+                long rows = rows(node.getCardinality());
+                best.put(1L << i, new Entry(node, rows, REQUEST_COST + rows, 1));
+            }
+            if (size == 1)
+                return clean.get(0);
+            for (int i = size-1; i >= 0; i--) {
+                long v = 1L << i;
+                emitCsg(v);
+                enumerateCsgRec(v, below(i) | v);
+            }
+            Entry entry = best.get((1L << size) - 1);
+            return entry == null ? null : entry.plan;
+        }
+
+        /** Set of all nodes with index smaller than i */
+        private long below(int i) {
+            return (1L << i) - 1;
+        }
+
+        private long neighborhood(long set) {
+            long n = 0;
+            for (long rem = set; rem != 0; rem &= rem - 1)
+                n |= neighbors[Long.numberOfTrailingZeros(rem)];
+            return n & ~set;
+        }
+
+        private void enumerateCsgRec(long s, long x) {
+            long n = neighborhood(s) & ~x;
+            if (n == 0)
+                return;
+            for (long sub = n; sub != 0; sub = (sub - 1) & n)
+                emitCsg(s | sub);
+            for (long sub = n; sub != 0; sub = (sub - 1) & n)
+                enumerateCsgRec(s | sub, x | n);
+        }
+
+        private void emitCsg(long s1) {
+            long x = s1 | below(Long.numberOfTrailingZeros(s1));
+            long n = neighborhood(s1) & ~x;
+            for (long rem = n; rem != 0; ) {
+                int i = 63 - Long.numberOfLeadingZeros(rem);
+                long v = 1L << i;
+                rem &= ~v;
+                emitCsgCmp(s1, v);
+                enumerateCmpRec(s1, v, x | (below(i) & n));
+            }
+        }
+
+        private void enumerateCmpRec(long s1, long s2, long x) {
+            long n = neighborhood(s2) & ~x;
+            if (n == 0)
+                return;
+            for (long sub = n; sub != 0; sub = (sub - 1) & n)
+                emitCsgCmp(s1, s2 | sub);
+            for (long sub = n; sub != 0; sub = (sub - 1) & n)
+                enumerateCmpRec(s1, s2 | sub, x | n);
+        }
+
+        private void emitCsgCmp(long s1, long s2) {
+            Entry a = best.get(s1), b = best.get(s2);
+            if (a == null || b == null)
+                return; // one side has no valid plan (e.g., unsatisfiable inputs)
+            JoinInfo info = JoinInfo.getJoinability(a.plan, b.plan);
+            if (!info.isValid())
+                return;
+            Cardinality cardinality = joinCardinalityEstimator.estimate(info);
+            long outRows = rows(cardinality);
+            double ab = joinCost(a, b, outRows), ba = joinCost(b, a, outRows);
+            double cost = Math.min(ab, ba);
+            if (cost == Double.POSITIVE_INFINITY)
+                return;
+            long key = s1 | s2;
+            Entry old = best.get(key);
+            if (old != null && old.cost <= cost)
+                return;
+            Entry l = ab <= ba ? a : b, r = ab <= ba ? b : a;
+            JoinOp op = JoinOp.create(l.plan, r.plan);
+            op.setCardinality(cardinality);
+            if (l.plan.modifiers().optional() != null && r.plan.modifiers().optional() != null)
+                op.modifiers().add(Optional.IMPLICIT);
+            best.put(key, new Entry(op, outRows, cost, l.leaves + r.leaves));
+        }
+    }
+}
@@ -14,6 +14,7 @@ import br.ufsc.lapesd.freqel.federation.performance.metrics.Metrics;
 import br.ufsc.lapesd.freqel.federation.performance.metrics.TimeSampler;
 import br.ufsc.lapesd.freqel.federation.planner.EquivCleaner;
 import br.ufsc.lapesd.freqel.federation.planner.JoinOrderPlanner;
+import br.ufsc.lapesd.freqel.federation.planner.utils.LeafCardinalityEstimator;
 import br.ufsc.lapesd.freqel.query.modifiers.Optional;
 import br.ufsc.lapesd.freqel.util.indexed.ref.RefIndexSet;
 import br.ufsc.lapesd.freqel.util.indexed.subset.IndexSubset;
@@ -33,22 +34,28 @@ import static java.lang.Long.MAX_VALUE;
 
 public class GreedyJoinOrderPlanner implements JoinOrderPlanner {
     private final @Nonnull PerformanceListener performance;
-    private final @Nonnull CardinalityEnsemble cardEnsemble;
-    private final @Nonnull CardinalityAdder cardAdder;
     private final @Nonnull JoinCardinalityEstimator joinCardinalityEstimator;
     private final @Nonnull EquivCleaner equivCleaner;
+    private final @Nonnull LeafCardinalityEstimator leafEstimator;
 
     @Inject
     public GreedyJoinOrderPlanner(@Nonnull PerformanceListener performance,
-                                  @Nonnull CardinalityEnsemble cardEnsemble,
-                                  @Nonnull CardinalityAdder cardinalityAdder,
                                   @Nonnull JoinCardinalityEstimator joinCardinalityEstimator,
-                                  @Nonnull EquivCleaner equivCleaner) {
+                                  @Nonnull EquivCleaner equivCleaner,
+                                  @Nonnull LeafCardinalityEstimator leafEstimator) {
         this.performance = performance;
-        this.cardEnsemble = cardEnsemble;
-        this.cardAdder = cardinalityAdder;
         this.joinCardinalityEstimator = joinCardinalityEstimator;
         this.equivCleaner = equivCleaner;
+        this.leafEstimator = leafEstimator;
+    }
+
+    public GreedyJoinOrderPlanner(@Nonnull PerformanceListener performance,
+                                  @Nonnull CardinalityEnsemble cardEnsemble,
+                                  @Nonnull CardinalityAdder cardinalityAdder,
+                                  @Nonnull JoinCardinalityEstimator joinCardinalityEstimator,
+                                  @Nonnull EquivCleaner equivCleaner) {
+        this(performance, joinCardinalityEstimator, equivCleaner,
+             new LeafCardinalityEstimator(cardEnsemble, cardinalityAdder));
     }
 
     @VisibleForTesting
@@ -61,11 +68,9 @@ public class GreedyJoinOrderPlanner implements JoinOrderPlanner {
         public Data(@Nonnull JoinGraph graph, @Nonnull Collection<Op> nodesCollection) {
             this.graph = graph;
             List<Op> cleanList = new ArrayList<>();
-            for (Op node : nodesCollection) {
-                Op c = equivCleaner.cleanEquivalents(node, OrderTuple.NODE_COMPARATOR);
-                c.setCardinality(TreeUtils.estimate(c, cardEnsemble, cardAdder));
-                cleanList.add(c);
-            }
+            for (Op node : nodesCollection)
+                cleanList.add(equivCleaner.cleanEquivalents(node, OrderTuple.NODE_COMPARATOR));
+            leafEstimator.estimate(cleanList);
             this.clean = RefIndexSet.fromRefDistinct(cleanList);
             this.webApi = clean.subset(OrderTuple::hasWebApi);
             this.pending = clean.fullSubset();
@@ -58,6 +58,8 @@ public class PipeCleanerStep implements PlannerStep {
             if (!(op instanceof PipeOp))
                 continue;
             PipeOp pipe = (PipeOp) op;
+            if (pipe.modifiers().aggregation() != null)
+                continue; // the child result vars are the aggregation input, not its output
             assert pipe.getChildren().size() == 1;
             Op child = pipe.getChildren().get(0);
             if (n2pipe == null)
@@ -0,0 +1,104 @@
+package br.ufsc.lapesd.freqel.federation.planner.post.steps;
+
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.TakenChildren;
+import br.ufsc.lapesd.freqel.algebra.inner.PipeOp;
+import br.ufsc.lapesd.freqel.algebra.inner.UnionOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.EndpointQueryOp;
+import br.ufsc.lapesd.freqel.algebra.util.TreeUtils;
+import br.ufsc.lapesd.freqel.federation.planner.phased.PlannerStep;
+import br.ufsc.lapesd.freqel.query.endpoint.Capability;
+import br.ufsc.lapesd.freqel.query.modifiers.Aggregation;
+import br.ufsc.lapesd.freqel.query.modifiers.Modifier;
+import br.ufsc.lapesd.freqel.query.modifiers.ModifiersSet;
+import br.ufsc.lapesd.freqel.query.modifiers.Projection;
+import br.ufsc.lapesd.freqel.util.ref.RefSet;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves {@link Aggregation}s (which are carried by {@link PipeOp}s) towards the sources.
+ *
+ * If the child of the {@link PipeOp} is a query against an endpoint that can evaluate
+ * the aggregation, the {@link PipeOp} is replaced by the query. If the child is a
+ * {@link UnionOp} and the aggregation is decomposable, every member of the union computes
+ * a partial aggregation and the {@link PipeOp} only combines the partial groups.
+ */
+public class PushAggregationStep implements PlannerStep {
+    @Override
+    public @Nonnull Op plan(@Nonnull Op root, @Nonnull RefSet<Op> shared) {
+        return TreeUtils.replaceNodes(root, null, op -> visit(op, shared));
+    }
+
+    @Override
+    public @Nonnull String toString() {
+        return getClass().getSimpleName();
+    }
+
+    private static @Nonnull Op visit(@Nonnull Op op, @Nonnull RefSet<Op> shared) {
+        if (!(op instanceof PipeOp) || shared.contains(op))
+            return op;
+        ModifiersSet modifiers = op.modifiers();
+        Aggregation aggregation = modifiers.aggregation();
+        if (aggregation == null || !modifiers.filters().isEmpty())
+            return op;
+        Op child = op.getChildren().get(0);
+        if (shared.contains(child))
+            return op;
+        if (canEvaluate(child))
+            return merge(op, child);
+        if (child instanceof UnionOp && aggregation.isDecomposable() && isPlain(child))
+            splitPartial(op, (UnionOp) child, aggregation);
+        return op;
+    }
+
+    private static boolean canEvaluate(@Nonnull Op op) {
+        if (!(op instanceof EndpointQueryOp))
+            return false;
+        if (!((EndpointQueryOp) op).getEndpoint().hasCapability(Capability.AGGREGATION))
+            return false;
+        ModifiersSet mods = op.modifiers();
+        return mods.limit() == null && mods.distinct() == null && mods.ask() == null
+                && mods.optional() == null && !op.hasRequiredInputs();
+    }
+
+    private static boolean isPlain(@Nonnull Op op) {
+        ModifiersSet mods = op.modifiers();
+        return mods.filters().isEmpty() && mods.limit() == null && mods.distinct() == null
+                && mods.ask() == null && mods.optional() == null && mods.aggregation() == null
+                && mods.valueModifier() == null;
+    }
+
+    private static @Nonnull Op merge(@Nonnull Op pipe, @Nonnull Op child) {
+        ModifiersSet childMods = child.modifiers();
+        childMods.remove(childMods.projection()); // was the aggregation input
+        List<Modifier> list = new ArrayList<>(pipe.modifiers());
+        childMods.addAll(list);
+        if (childMods.projection() == null) {
+            Aggregation aggregation = childMods.aggregation();
+            assert aggregation != null;
+            childMods.add(Projection.of(aggregation.getResultVarNames()));
+        }
+        child.purgeCachesShallow();
+        return child;
+    }
+
+    private static void splitPartial(@Nonnull Op pipe, @Nonnull UnionOp union,
+                                     @Nonnull Aggregation aggregation) {
+        Projection partialProjection = Projection.of(aggregation.getResultVarNames());
+        try (TakenChildren children = union.takeChildren()) {
+            for (int i = 0, size = children.size(); i < size; i++) {
+                // visited later by replaceNodes(), which may push it further
+                PipeOp partial = new PipeOp(children.get(i));
+                partial.modifiers().add(aggregation);
+                partial.modifiers().add(partialProjection);
+                children.set(i, partial);
+            }
+        }
+        union.modifiers().add(partialProjection);
+        pipe.modifiers().add(aggregation.toCombining());
+        union.purgeCachesUpward();
+    }
+}
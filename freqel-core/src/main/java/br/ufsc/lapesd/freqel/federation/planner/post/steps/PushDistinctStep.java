@@ -25,7 +25,9 @@ public class PushDistinctStep implements PlannerStep {
                                      boolean makeDistinct) {
         boolean distinct = op.modifiers().distinct() != null;
         if (op instanceof InnerOp) {
-            boolean effMakeDistinct = makeDistinct || distinct;
+            // solutions below an aggregation must not be de-duplicated
+            boolean aggregated = op.modifiers().aggregation() != null;
+            boolean effMakeDistinct = !aggregated && (makeDistinct || distinct);
             try (TakenChildren children = ((InnerOp) op).takeChildren().setNoContentChange()) {
                 for (int i = 0, size = children.size(); i < size; i++)
                     children.set(i, visit(children.get(i), shared, effMakeDistinct));
@@ -4,6 +4,7 @@ import br.ufsc.lapesd.freqel.algebra.InnerOp;
 import br.ufsc.lapesd.freqel.algebra.Op;
 import br.ufsc.lapesd.freqel.algebra.TakenChildren;
 import br.ufsc.lapesd.freqel.algebra.inner.PipeOp;
+import br.ufsc.lapesd.freqel.algebra.inner.SemiJoinOp;
 import br.ufsc.lapesd.freqel.federation.planner.phased.PlannerStep;
 import br.ufsc.lapesd.freqel.jena.query.modifiers.filter.JenaSPARQLFilter;
 import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilter;
@@ -70,6 +71,8 @@ public class PushFiltersStep implements PlannerStep {
             for (SPARQLFilter filter : root.modifiers().filters()) {
                 boolean pushed = false;
                 for (ListIterator<Op> it = children.listIterator(); it.hasNext(); ) {
+                    if (!canReceiveFilters(root, it.nextIndex()))
+                        break;
                     Op replacement = pushFilter(filter, locked, it.next());
                     if (replacement != null) {
                         pushed = true;
@@ -84,6 +87,14 @@ public class PushFiltersStep implements PlannerStep {
             root.modifiers().removeAll(victims);
     }
 
+    /**
+     * The right side of a {@link SemiJoinOp} only tests for existence and has its own
+     * variable scope, thus filters from above must not be pushed into it.
+     */
+    private static boolean canReceiveFilters(@Nonnull Op parent, int childIndex) {
+        return !(parent instanceof SemiJoinOp) || childIndex == 0;
+    }
+
     /**
      * @return null if filter could not be pushed, else return op or a replacement
      */
@@ -95,6 +106,8 @@ public class PushFiltersStep implements PlannerStep {
         if (op instanceof InnerOp) {
             try (TakenChildren children = ((InnerOp) op).takeChildren()) {
                 for (ListIterator<Op> it = children.listIterator(); it.hasNext(); ) {
+                    if (!canReceiveFilters(op, it.nextIndex()))
+                        break;
                     Op replacement = pushFilter(filter, locked, it.next());
                     if (replacement != null) {
                         it.set(replacement);
@@ -0,0 +1,91 @@
+package br.ufsc.lapesd.freqel.federation.planner.utils;
+
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.leaf.EndpointQueryOp;
+import br.ufsc.lapesd.freqel.algebra.util.CardinalityAdder;
+import br.ufsc.lapesd.freqel.algebra.util.TreeUtils;
+import br.ufsc.lapesd.freqel.cardinality.CardinalityEnsemble;
+import br.ufsc.lapesd.freqel.cardinality.EstimateCache;
+import br.ufsc.lapesd.freqel.federation.concurrent.PlanningExecutorService;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.util.List;
+
+/**
+ * Estimates the cardinalities of the nodes given to a
+ * {@link br.ufsc.lapesd.freqel.federation.planner.JoinOrderPlanner}.
+ *
+ * Estimating a node may require a round trip to a remote endpoint (e.g., the ASK queries
+ * sent by {@link br.ufsc.lapesd.freqel.cardinality.impl.LimitCardinalityHeuristic}). If more
+ * than one node targets a remote endpoint (see
+ * {@link br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint#getRemoteId()}), all nodes are
+ * estimated concurrently on the {@link PlanningExecutorService}.
+ *
+ * Estimates stored into the {@link EstimateCache} by the ensemble are not flushed here, as
+ * that would rewrite a persistent cache for every planned query. The cache is flushed when
+ * the {@link br.ufsc.lapesd.freqel.federation.Federation} is closed.
+ */
+public class LeafCardinalityEstimator {
+    private final @Nonnull CardinalityEnsemble ensemble;
+    private final @Nonnull CardinalityAdder adder;
+    private final @Nullable PlanningExecutorService executor;
+
+    @Inject
+    public LeafCardinalityEstimator(@Nonnull CardinalityEnsemble ensemble,
+                                    @Nonnull CardinalityAdder adder,
+                                    @Nonnull PlanningExecutorService executor) {
+        this.ensemble = ensemble;
+        this.adder = adder;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates an estimator that works sequentially on the calling thread.
+     */
+    public LeafCardinalityEstimator(@Nonnull CardinalityEnsemble ensemble,
+                                    @Nonnull CardinalityAdder adder) {
+        this.ensemble = ensemble;
+        this.adder = adder;
+        this.executor = null;
+    }
+
+    /**
+     * Set the cardinality of every node in the list.
+     *
+     * Nodes in the list must be distinct (by reference).
+     */
+    public void estimate(@Nonnull List<Op> nodes) {
+        int size = nodes.size();
+        if (executor != null && countRemote(nodes) > 1) {
+            executor.bind();
+            try {
+                executor.parallelFor(0, size, i -> estimate(nodes.get(i)));
+            } finally {
+                executor.release();
+            }
+        } else {
+            for (Op node : nodes)
+                estimate(node);
+        }
+    }
+
+    private void estimate(@Nonnull Op node) {
+        node.setCardinality(TreeUtils.estimate(node, ensemble, adder));
+    }
+
+    private static int countRemote(@Nonnull List<Op> nodes) {
+        int count = 0;
+        for (Op node : nodes) {
+            if (TreeUtils.streamPreOrder(node).anyMatch(LeafCardinalityEstimator::isRemote))
+                ++count;
+        }
+        return count;
+    }
+
+    private static boolean isRemote(@Nonnull Op op) {
+        return op instanceof EndpointQueryOp
+                && ((EndpointQueryOp) op).getEndpoint().getRemoteId() != null;
+    }
+}
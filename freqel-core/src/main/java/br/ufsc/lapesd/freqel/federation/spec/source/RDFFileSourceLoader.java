@@ -14,6 +14,7 @@ import javax.annotation.Nullable;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -29,9 +30,16 @@ public class RDFFileSourceLoader implements SourceLoader {
         return NAMES;
     }
 
-    @Override public void setTempDir(@Nonnull File ignored) { }
+    private @Nonnull File tempDir = new File(System.getProperty("java.io.tmpdir"));
+    private @Nullable SourceCache sourceCache;
 
-    @Override public void setSourceCache(@Nullable SourceCache ignored) { }
+    @Override public void setTempDir(@Nonnull File tempDir) {
+        this.tempDir = tempDir;
+    }
+
+    @Override public void setSourceCache(@Nullable SourceCache sourceCache) {
+        this.sourceCache = sourceCache;
+    }
 
     @Override
     public @Nonnull Set<TPEndpoint> load(@Nonnull DictTree spec,
@@ -46,6 +54,8 @@ public class RDFFileSourceLoader implements SourceLoader {
             throw new SourceLoadException("No file/files/url/urls property present " +
                                           "in this source spec!", spec);
         }
+        if (spec.getBoolean("hdt", false))
+            return loadAsHDT(spec, reference);
 
         for (String key : asList("file", "files", "url", "urls")) {
             for (Object source : spec.getListNN(key))
@@ -56,6 +66,23 @@ public class RDFFileSourceLoader implements SourceLoader {
         return singleton(ARQEndpoint.forModel(model, name));
     }
 
+    /**
+     * Converts the RDF files into HDT (once, if there is a {@link SourceCache}) and serves
+     * them from a memory-mapped HDT file instead of an in-memory {@link Model}.
+     */
+    private @Nonnull Set<TPEndpoint> loadAsHDT(@Nonnull DictTree spec,
+                                               @Nonnull File reference)
+            throws SourceLoadException {
+        for (SourceLoader loader : ServiceLoader.load(SourceLoader.class)) {
+            if (loader.names().contains("hdt")) {
+                loader.setTempDir(tempDir);
+                loader.setSourceCache(sourceCache);
+                return loader.load(spec, reference);
+            }
+        }
+        throw new SourceLoadException("hdt: true requires freqel-hdt in the classpath", spec);
+    }
+
     private @Nonnull String loadSource(@Nonnull DictTree spec, @Nonnull String src,
                                        @Nonnull Model model,
                                        @Nonnull File ref) throws SourceLoadException {
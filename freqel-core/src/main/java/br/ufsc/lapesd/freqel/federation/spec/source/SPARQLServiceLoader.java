@@ -1,9 +1,11 @@
 package br.ufsc.lapesd.freqel.federation.spec.source;
 
 import br.ufsc.lapesd.freqel.description.SelectDescription;
+import br.ufsc.lapesd.freqel.description.statistics.StatisticsSelectDescription;
 import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
 import br.ufsc.lapesd.freqel.query.endpoint.impl.SPARQLClient;
 import br.ufsc.lapesd.freqel.util.DictTree;
+import br.ufsc.lapesd.freqel.util.VirtualThreads;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.Sets;
 import org.slf4j.Logger;
@@ -22,9 +24,10 @@ import static java.util.Collections.singleton;
 public class SPARQLServiceLoader implements SourceLoader {
     private static final Logger logger = LoggerFactory.getLogger(SPARQLServiceLoader.class);
     private static final Set<String> NAMES = Sets.newHashSet("sparql");
-    private static final Set<String> DESCRIPTION_NAMES = Sets.newHashSet("select", "ask");
+    private static final Set<String> DESCRIPTION_NAMES = Sets.newHashSet("select", "ask", "statistics");
 
     private @Nullable SourceCache sourceCache;
+    private boolean virtualThreads = VirtualThreads.isEnabled();
 
     @Override
     public @Nonnull Set<String> names() {
@@ -37,6 +40,10 @@ public class SPARQLServiceLoader implements SourceLoader {
         this.sourceCache = sourceCache;
     }
 
+    @Override public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
     @Override
     public @Nonnull Set<TPEndpoint> load(@Nonnull DictTree spec,
                                          @Nonnull File reference) throws SourceLoadException {
@@ -45,7 +52,7 @@ public class SPARQLServiceLoader implements SourceLoader {
             throw new IllegalArgumentException(this+" does not support loader="+loader);
         String uri = getURI(spec);
 
-        SPARQLClient ep = new SPARQLClient(uri);
+        SPARQLClient ep = new SPARQLClient(URI.create(uri), virtualThreads);
         setupDescription(spec, sourceCache, ep);
         return singleton(ep);
     }
@@ -58,6 +65,11 @@ public class SPARQLServiceLoader implements SourceLoader {
                     " expected one of"+DESCRIPTION_NAMES);
         }
         boolean fetchClasses = spec.getBoolean("fetchClasses", true);
+        boolean refresh = spec.getBoolean("refresh", true);
+        if (descriptionType.equalsIgnoreCase("statistics")) {
+            setupStatisticsDescription(spec, cacheDir, ep, fetchClasses, refresh);
+            return;
+        }
         SelectDescription description = null;
         if (descriptionType.equalsIgnoreCase("select")) {
             if (cacheDir != null) {
@@ -74,6 +86,9 @@ public class SPARQLServiceLoader implements SourceLoader {
                 if (description == null) {
                     description = new SelectDescription(ep, fetchClasses);
                     description.saveWhenReady(cacheDir, ep.getURI());
+                } else if (refresh) {
+                    description.setRefreshOnInit(true);
+                    description.saveOnUpdate(cacheDir, ep.getURI());
                 }
             } else {
                 description = new SelectDescription(ep, fetchClasses);
@@ -82,6 +97,36 @@ public class SPARQLServiceLoader implements SourceLoader {
         }
     }
 
+    private void setupStatisticsDescription(@Nonnull DictTree spec,
+                                            @Nullable SourceCache cacheDir,
+                                            @Nonnull SPARQLClient ep, boolean fetchClasses,
+                                            boolean refresh) {
+        String voidUri = spec.getString("void", null);
+        StatisticsSelectDescription description = null;
+        if (cacheDir != null) {
+            try {
+                Stopwatch sw = Stopwatch.createStarted();
+                description = StatisticsSelectDescription.fromCache(ep, cacheDir, ep.getURI());
+                logger.debug("Loaded StatisticsSelectDescription for {} from {} in {}ms",
+                             ep.getURI(), cacheDir.getDir(),
+                             sw.elapsed(TimeUnit.MICROSECONDS) / 1000.0);
+            } catch (IOException e) {
+                logger.error("Failed to load StatisticsSelectDescription from cache dir {}",
+                             cacheDir.getDir(), e);
+            }
+        }
+        if (description == null) {
+            description = new StatisticsSelectDescription(ep, fetchClasses, voidUri);
+            if (cacheDir != null)
+                description.saveWhenReady(cacheDir, ep.getURI());
+        } else if (refresh && voidUri == null && cacheDir != null) {
+            // cached descriptions do not retain voidUri, only refresh query-based statistics
+            description.setRefreshOnInit(true);
+            description.saveOnUpdate(cacheDir, ep.getURI());
+        }
+        ep.setDescription(description);
+    }
+
     private @Nonnull String getURI(@Nonnull DictTree spec) throws SourceLoadException {
         String uri = spec.getString("uri", null);
         if (uri == null)
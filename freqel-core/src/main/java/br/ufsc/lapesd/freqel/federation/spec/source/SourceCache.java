@@ -1,5 +1,6 @@
 package br.ufsc.lapesd.freqel.federation.spec.source;
 
+import br.ufsc.lapesd.freqel.util.AtomicFiles;
 import com.esotericsoftware.yamlbeans.YamlException;
 import com.esotericsoftware.yamlbeans.YamlReader;
 import com.esotericsoftware.yamlbeans.YamlWriter;
@@ -132,6 +133,21 @@ public class SourceCache {
         return path.toAbsolutePath().toFile();
     }
 
+    /**
+     * Writes the contents of the given file type for a source, replacing any previous
+     * contents. Contents are first written to a temporary file that is then moved over the
+     * existing file, thus concurrent readers never observe partially written files.
+     *
+     * @return the written file
+     */
+    @CanIgnoreReturnValue
+    public @Nonnull File writeFile(@Nonnull String fileType, @Nonnull String ext,
+                                   @Nonnull String sourceIdentifier,
+                                   @Nonnull AtomicFiles.ContentWriter contentWriter)
+            throws IOException {
+        return AtomicFiles.write(createFile(fileType, ext, sourceIdentifier), contentWriter);
+    }
+
     public @Nonnull File getDir() {
         return dir;
     }
@@ -27,6 +27,16 @@ public interface SourceLoader {
      */
     void setSourceCache(@Nullable SourceCache sourceCache);
 
+    /**
+     * Set whether background threads started by loaded sources should be virtual threads
+     * (if supported by the JVM).
+     *
+     * Loaders whose sources do not start threads may ignore this.
+     *
+     * @param virtualThreads true to use virtual threads.
+     */
+    default void setVirtualThreads(boolean virtualThreads) { }
+
     /**
      * Loads the source described by the given sourceSpec.
      * @param sourceSpec Source specification
@@ -6,6 +6,7 @@ import br.ufsc.lapesd.freqel.algebra.Op;
 import br.ufsc.lapesd.freqel.algebra.util.DQPushChecker;
 import br.ufsc.lapesd.freqel.cardinality.EstimatePolicy;
 import br.ufsc.lapesd.freqel.description.Description;
+import br.ufsc.lapesd.freqel.federation.performance.FederationMetrics;
 import br.ufsc.lapesd.freqel.model.NTParseException;
 import br.ufsc.lapesd.freqel.model.RDFUtils;
 import br.ufsc.lapesd.freqel.model.SPARQLString;
@@ -24,9 +25,12 @@ import br.ufsc.lapesd.freqel.query.results.Results;
 import br.ufsc.lapesd.freqel.query.results.ResultsCloseException;
 import br.ufsc.lapesd.freqel.query.results.Solution;
 import br.ufsc.lapesd.freqel.query.results.impl.ArraySolution;
+import br.ufsc.lapesd.freqel.query.results.profile.OperatorStats;
 import br.ufsc.lapesd.freqel.util.CollectionUtils;
+import br.ufsc.lapesd.freqel.util.VirtualThreads;
 import com.google.common.base.Splitter;
 import com.google.common.base.Stopwatch;
+import com.google.common.io.CountingInputStream;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.errorprone.annotations.CheckReturnValue;
 import com.google.gson.Gson;
@@ -98,7 +102,7 @@ public class SPARQLClient extends AbstractTPEndpoint implements DQEndpoint {
             = new PoolingHttpClientConnectionManager();
     private final @Nonnull ConcurrentLinkedQueue<CloseableHttpClient> clientPool
             = new ConcurrentLinkedQueue<>();
-    private final @Nonnull ThreadPoolExecutor connectExecutor;
+    private final @Nonnull ExecutorService connectExecutor;
     private boolean warnedCSVFormat = false;
     private int fallbackKeepAliveTimeout = 10;
     private long statsLogMs = 5*60*1000;
@@ -106,6 +110,7 @@ public class SPARQLClient extends AbstractTPEndpoint implements DQEndpoint {
     private double createSPARQLMsAvg, createGetMsAvg, createClientMsAvg, responseMsAvg;
     private final @Nonnull Stopwatch statsLogSw = Stopwatch.createStarted();
     private final @Nonnull List<Callable<?>> onCloseCallbacks = new ArrayList<>();
+    private final @Nonnull FederationMetrics.Endpoint metrics;
 
     /* --- --- --- Configuration --- --- --- */
 
@@ -120,14 +125,30 @@ public class SPARQLClient extends AbstractTPEndpoint implements DQEndpoint {
     }
 
     public SPARQLClient(@Nonnull URI uri) {
+        this(uri, VirtualThreads.isEnabled());
+    }
+
+    /**
+     * Create a client for the given SPARQL endpoint URI.
+     *
+     * @param uri the endpoint URI where to send SPARQL requests
+     * @param virtualThreads whether connections should be started from virtual threads
+     *                       (if supported by the JVM)
+     */
+    public SPARQLClient(@Nonnull URI uri, boolean virtualThreads) {
         this.uri = uri.toString();
         this.host = URIUtils.extractHost(uri);
+        this.metrics = FederationMetrics.forEndpoint(this.uri);
         connMgr.setDefaultMaxPerRoute(128);
         connMgr.setMaxTotal(128);
-        this.connectExecutor = new ThreadPoolExecutor(0,
-                2, 30, TimeUnit.SECONDS,
-                new LinkedBlockingQueue<>(), new ThreadPoolExecutor.CallerRunsPolicy());
-        connectExecutor.submit(() -> {}); //dummy to keep an initial thread ready
+        this.connectExecutor = VirtualThreads.newExecutor("SPARQLClient-connect",
+                                                          virtualThreads, () -> {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(0,
+                    2, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), new ThreadPoolExecutor.CallerRunsPolicy());
+            executor.submit(() -> {}); //dummy to keep an initial thread ready
+            return executor;
+        });
     }
 
     public @Nonnull String getURI() {
@@ -291,6 +312,10 @@ public class SPARQLClient extends AbstractTPEndpoint implements DQEndpoint {
         return 0.25;
     }
 
+    @Override public @Nonnull String getRemoteId() {
+        return uri;
+    }
+
     @Override
     public @Nonnull Cardinality estimate(@Nonnull CQuery query, int policy) {
         if (query.isEmpty()) return EMPTY;
@@ -330,6 +355,7 @@ public class SPARQLClient extends AbstractTPEndpoint implements DQEndpoint {
             case VALUES:
             case OPTIONAL:
             case ASK:
+            case AGGREGATION:
                 return true;
             default:
                 return false;
@@ -408,6 +434,9 @@ public class SPARQLClient extends AbstractTPEndpoint implements DQEndpoint {
         @Nullable CloseableHttpResponse httpResponse;
         @Nullable HttpGet httpGet;
         @Nullable Reader reader;
+        @Nullable CountingInputStream countingStream;
+        /* captured on the thread that issued the query, if it is being profiled */
+        final @Nullable OperatorStats stats = OperatorStats.current();
         boolean distinct, ask;
         @Nullable Op opQuery;
         @Nullable CQuery query;
@@ -456,25 +485,41 @@ public class SPARQLClient extends AbstractTPEndpoint implements DQEndpoint {
                 httpGet = createGet(sparqlQuery, accept);
                 double createGetMs = sw.elapsed(TimeUnit.MICROSECONDS)/1000.0;
                 sw.reset().start();
+                if (stats != null)
+                    stats.recordRequest();
+                metrics.requests.increment();
                 httpResponse = httpClient.execute(host, httpGet, httpContext);
                 assert httpResponse != null;
-                double responseMs = sw.elapsed(TimeUnit.MICROSECONDS)/1000.0;
-                updateTimes(createSPARQLMs, setupMs, createGetMs, responseMs, httpResponse.getStatusLine().getStatusCode());
+                long responseUs = sw.elapsed(TimeUnit.MICROSECONDS);
+                double responseMs = responseUs/1000.0;
+                int status = httpResponse.getStatusLine().getStatusCode();
+                metrics.latency.record(responseUs);
+                if (status < 200 || status > 299)
+                    metrics.errors.increment();
+                updateTimes(createSPARQLMs, setupMs, createGetMs, responseMs, status);
                 if (!httpResponse.getEntity().isStreaming()) {
                     logger.warn("HttpResponse entity for {} is not streaming. " +
                                 "This will hurt parallelism", httpGet.getURI());
                 }
                 logger.debug("{}ms for GET {} ", responseMs, httpGet.getURI());
                 Charset cs = ask ? UTF_8 : getCharset(httpResponse, httpContext);
-                this.reader = new InputStreamReader(httpResponse.getEntity().getContent(), cs);
+                countingStream = new CountingInputStream(httpResponse.getEntity().getContent());
+                this.reader = new InputStreamReader(countingStream, cs);
                 return this;
             } catch (IOException e) {
+                metrics.errors.increment();
                 throw new QueryExecutionException("IOException while reading from "
                                                   +httpGet.getURI()+": "+e.getMessage());
             }
         }
 
         public void close() throws Exception {
+            if (countingStream != null) {
+                metrics.bytes.record(countingStream.getCount());
+                if (stats != null)
+                    stats.recordBytes(countingStream.getCount());
+                countingStream = null;
+            }
             Exception exception = null;
             if (httpResponse != null) {
                 assert httpContext != null;
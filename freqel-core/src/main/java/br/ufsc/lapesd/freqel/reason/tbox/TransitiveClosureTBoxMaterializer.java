@@ -1,8 +1,6 @@
 package br.ufsc.lapesd.freqel.reason.tbox;
 
-import br.ufsc.lapesd.freqel.jena.JenaWrappers;
-import br.ufsc.lapesd.freqel.jena.ModelUtils;
-import br.ufsc.lapesd.freqel.jena.model.term.JenaTerm;
+import br.ufsc.lapesd.freqel.jena.model.term.JenaBaseTerm;
 import br.ufsc.lapesd.freqel.jena.query.ARQEndpoint;
 import br.ufsc.lapesd.freqel.model.term.Blank;
 import br.ufsc.lapesd.freqel.model.term.Res;
@@ -12,15 +10,13 @@ import br.ufsc.lapesd.freqel.query.endpoint.impl.EmptyEndpoint;
 import br.ufsc.lapesd.freqel.util.indexed.FullIndexSet;
 import br.ufsc.lapesd.freqel.util.indexed.IndexSet;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
 import org.apache.jena.graph.Graph;
 import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
-import org.apache.jena.rdf.model.Property;
-import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.sparql.graph.GraphFactory;
-import org.apache.jena.util.iterator.ExtendedIterator;
 import org.apache.jena.vocabulary.RDFS;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,17 +24,19 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayDeque;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.stream.Stream;
 
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
 /**
  * A Simple reasoner that only processes the transitivity of subClassOf/subPropertyOf properties.
  */
 public class TransitiveClosureTBoxMaterializer implements TBoxMaterializer {
     private static final Logger logger = LoggerFactory.getLogger(TransitiveClosureTBoxMaterializer.class);
     private @Nullable Model model;
+    private @Nullable TransitiveHierarchyIndex classes, properties;
     private boolean warnedEmpty = false;
     private @Nullable TPEndpoint endpoint = null;
     private @Nullable String name;
@@ -109,41 +107,41 @@ public class TransitiveClosureTBoxMaterializer implements TBoxMaterializer {
     @Override
     public void load(@Nonnull TBoxSpec sources) {
         model = sources.loadModel();
+        Stopwatch sw = Stopwatch.createStarted();
+        classes = TransitiveHierarchyIndex.build(model, RDFS.subClassOf.asNode());
+        properties = TransitiveHierarchyIndex.build(model, RDFS.subPropertyOf.asNode());
+        logger.debug("{}: indexed {} classes and {} properties in {}ms", this, classes.size(),
+                     properties.size(), sw.elapsed(MICROSECONDS)/1000.0);
         if (endpoint != null)
             endpoint.close();
         endpoint = null;
     }
 
     private @Nonnull Stream<Term> transitiveClosure(boolean strict, @Nonnull Term start,
-                                                    @Nonnull Property property) {
+                                                    @Nullable TransitiveHierarchyIndex index) {
         Preconditions.checkArgument(start instanceof Res, "Term start must be a instance of Res");
-        if (model == null) {
+        if (index == null) {
             warnEmpty();
             return Stream.empty();
         }
-        Resource resource;
-        if (start instanceof JenaTerm)
-            resource = ((JenaTerm) start).getModelNode().asResource();
-        else if (start instanceof Blank)
+        if (start instanceof Blank && !(start instanceof JenaBaseTerm))
             return Stream.empty();
-        else
-            resource = model.createResource(start.asURI().getURI());
-        return ModelUtils.closure(model, resource, property, true, strict)
-                .map(JenaWrappers::fromJena);
+        return index.descendants(start, strict);
     }
 
     @Override
     public @Nonnull Stream<Term> subClasses(@Nonnull Term term) {
-        return transitiveClosure(true, term, RDFS.subClassOf);
+        return transitiveClosure(true, term, classes);
     }
     @Override public @Nonnull Stream<Term> withSubClasses(@Nonnull Term term) {
-        return transitiveClosure(false, term, RDFS.subClassOf);
+        return transitiveClosure(false, term, classes);
     }
 
     @Override public boolean isSubClass(@Nonnull Term subClass, @Nonnull Term superClass) {
         if (subClass.equals(superClass))
             return true;
-        if (model == null) {
+        TransitiveHierarchyIndex classes = this.classes;
+        if (classes == null) {
             warnEmpty();
             return false;
         }
@@ -157,39 +155,22 @@ public class TransitiveClosureTBoxMaterializer implements TBoxMaterializer {
                          subClass, superClass, superClass);
             return false;
         }
-        Node subRes = JenaWrappers.toJena(subClass).asResource().asNode();
-        Node superRes = JenaWrappers.toJena(superClass).asResource().asNode();
-        return hasPath(model.getGraph(), subRes, RDFS.subClassOf.asNode(), superRes);
+        return classes.isDescendant(subClass, superClass);
     }
 
-    private boolean hasPath(@Nonnull Graph graph, @Nonnull Node start, @Nonnull Node edge,
-                            @Nonnull Node end) {
-        Set<Node> visited = new HashSet<>();
-        ArrayDeque<Node> stack = new ArrayDeque<>();
-        stack.push(start);
-        while (!stack.isEmpty()) {
-            Node next = stack.pop();
-            if (next.equals(end))
-                return true;
-            if (!visited.add(next))
-                continue;
-            for (ExtendedIterator<Triple> it = graph.find(next, edge, null); it.hasNext(); )
-                stack.push(it.next().getObject());
-        }
-        return false;
-    }
     @Override public @Nonnull Stream<Term> subProperties(@Nonnull Term term) {
-        return transitiveClosure(true, term, RDFS.subPropertyOf);
+        return transitiveClosure(true, term, properties);
     }
 
     @Override public @Nonnull Stream<Term> withSubProperties(@Nonnull Term term) {
-        return transitiveClosure(false, term, RDFS.subPropertyOf);
+        return transitiveClosure(false, term, properties);
     }
 
     @Override public boolean isSubProperty(@Nonnull Term subProperty, @Nonnull Term superProperty) {
         if (subProperty.equals(superProperty))
             return true;
-        if (model == null) {
+        TransitiveHierarchyIndex properties = this.properties;
+        if (properties == null) {
             warnEmpty();
             return false;
         }
@@ -203,14 +184,13 @@ public class TransitiveClosureTBoxMaterializer implements TBoxMaterializer {
                          subProperty, superProperty, superProperty);
             return false;
         }
-        Node start = JenaWrappers.toJena(subProperty).asNode();
-        Node end = JenaWrappers.toJena(superProperty).asNode();
-        return hasPath(model.getGraph(), start, RDFS.subPropertyOf.asNode(), end);
+        return properties.isDescendant(subProperty, superProperty);
     }
 
     @Override
     public void close() {
         model = null;
+        classes = properties = null;
     }
 
     @Override public @Nonnull String toString() {
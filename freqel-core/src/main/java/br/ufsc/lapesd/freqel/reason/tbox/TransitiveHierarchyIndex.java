@@ -0,0 +1,157 @@
+package br.ufsc.lapesd.freqel.reason.tbox;
+
+import br.ufsc.lapesd.freqel.jena.JenaWrappers;
+import br.ufsc.lapesd.freqel.jena.model.term.JenaBaseTerm;
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.util.indexed.FullIndexSet;
+import br.ufsc.lapesd.freqel.util.indexed.IndexSet;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Pre-computed reflexive and transitive closure of a single property
+ * (e.g., <code>rdfs:subClassOf</code>) in a model.
+ *
+ * Every subject or object of the property gets an integer id. For each id, the index stores
+ * the sorted ids of all its ancestors (for subsumption tests with a binary search) and the
+ * {@link Term}s of all its strict descendants (enumerated without further graph access).
+ */
+public class TransitiveHierarchyIndex {
+    private static final @Nonnull Term[] NO_TERMS = new Term[0];
+
+    private final @Nonnull IndexSet<Node> nodes;
+    private final @Nonnull Term[] terms;
+    /** ancestors[i] is sorted and includes i */
+    private final @Nonnull int[][] ancestors;
+    /** strict descendants of each node */
+    private final @Nonnull Term[][] descendants;
+
+    private TransitiveHierarchyIndex(@Nonnull IndexSet<Node> nodes, @Nonnull Term[] terms,
+                                     @Nonnull int[][] ancestors,
+                                     @Nonnull Term[][] descendants) {
+        this.nodes = nodes;
+        this.terms = terms;
+        this.ancestors = ancestors;
+        this.descendants = descendants;
+    }
+
+    /**
+     * Build an index for the given property.
+     *
+     * @param model the model containing the (non-materialized) property triples
+     * @param property the transitive property, where the subject is the descendant
+     *                 (e.g., <code>rdfs:subClassOf</code>)
+     */
+    public static @Nonnull TransitiveHierarchyIndex build(@Nonnull Model model,
+                                                          @Nonnull Node property) {
+        List<Node> list = new ArrayList<>();
+        Set<Node> seen = new HashSet<>();
+        for (Iterator<Triple> it = model.getGraph().find(null, property, null); it.hasNext(); ) {
+            Triple triple = it.next();
+            if (seen.add(triple.getSubject())) list.add(triple.getSubject());
+            if (seen.add(triple.getObject()))  list.add(triple.getObject());
+        }
+        IndexSet<Node> nodes = FullIndexSet.fromDistinct(list);
+        int size = nodes.size();
+
+        int[][] parents = new int[size][];
+        for (int i = 0; i < size; i++) {
+            parents[i] = model.getGraph().find(nodes.get(i), property, null).toList().stream()
+                              .mapToInt(t -> nodes.indexOf(t.getObject())).toArray();
+        }
+        int[][] ancestors = new int[size][];
+        IntStream.range(0, size).parallel().forEach(i -> ancestors[i] = ancestors(parents, i));
+
+        int[] descendantsCount = new int[size];
+        for (int i = 0; i < size; i++) {
+            for (int a : ancestors[i]) {
+                if (a != i) ++descendantsCount[a];
+            }
+        }
+        Term[] terms = new Term[size];
+        Term[][] descendants = new Term[size][];
+        for (int i = 0; i < size; i++) {
+            terms[i] = JenaWrappers.fromJena(model.asRDFNode(nodes.get(i)));
+            descendants[i] = descendantsCount[i] == 0 ? NO_TERMS : new Term[descendantsCount[i]];
+        }
+        for (int i = 0; i < size; i++) {
+            for (int a : ancestors[i]) {
+                if (a != i) descendants[a][--descendantsCount[a]] = terms[i];
+            }
+        }
+        return new TransitiveHierarchyIndex(nodes, terms, ancestors, descendants);
+    }
+
+    private static @Nonnull int[] ancestors(@Nonnull int[][] parents, int start) {
+        BitSet visited = new BitSet(parents.length);
+        ArrayDeque<Integer> stack = new ArrayDeque<>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            int next = stack.pop();
+            if (visited.get(next))
+                continue;
+            visited.set(next);
+            for (int parent : parents[next])
+                stack.push(parent);
+        }
+        return visited.stream().toArray(); // sorted
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    private int idOf(@Nonnull Term term) {
+        Node node;
+        if (term instanceof JenaBaseTerm)
+            node = ((JenaBaseTerm) term).getGraphNode();
+        else if (term.isURI())
+            node = JenaWrappers.toJenaNode(term.asURI());
+        else
+            return -1;
+        return nodes.indexOf(node);
+    }
+
+    /**
+     * Tests whether <code>ancestor</code> is reachable from <code>descendant</code> through
+     * zero or more steps of the property.
+     */
+    public boolean isDescendant(@Nonnull Term descendant, @Nonnull Term ancestor) {
+        if (descendant.equals(ancestor))
+            return true;
+        int d = idOf(descendant);
+        if (d < 0)
+            return false;
+        int a = idOf(ancestor);
+        return a >= 0 && Arrays.binarySearch(ancestors[d], a) >= 0;
+    }
+
+    /**
+     * Get the strict descendants of term.
+     *
+     * @return a possibly empty array that <b>MUST NOT</b> be modified
+     */
+    public @Nonnull Term[] getDescendants(@Nonnull Term term) {
+        int id = idOf(term);
+        return id < 0 ? NO_TERMS : descendants[id];
+    }
+
+    /**
+     * Stream of descendants of term.
+     *
+     * @param strict if false, term itself will be the first element in the stream
+     */
+    public @Nonnull Stream<Term> descendants(@Nonnull Term term, boolean strict) {
+        int id = idOf(term);
+        Term[] array = id < 0 ? NO_TERMS : descendants[id];
+        if (strict)
+            return Arrays.stream(array);
+        return Stream.concat(Stream.of(id < 0 ? term : terms[id]), Arrays.stream(array));
+    }
+}
@@ -9,20 +9,19 @@ import br.ufsc.lapesd.freqel.model.term.Var;
 import br.ufsc.lapesd.freqel.model.term.std.StdVar;
 import br.ufsc.lapesd.freqel.query.CQuery;
 import br.ufsc.lapesd.freqel.query.MutableCQuery;
+import br.ufsc.lapesd.freqel.query.endpoint.Capability;
 import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+import br.ufsc.lapesd.freqel.query.modifiers.ModifiersSet;
 import br.ufsc.lapesd.freqel.query.modifiers.Projection;
+import br.ufsc.lapesd.freqel.query.modifiers.ValuesModifier;
 import br.ufsc.lapesd.freqel.query.results.Results;
 import br.ufsc.lapesd.freqel.query.results.Solution;
-import br.ufsc.lapesd.freqel.query.results.impl.PredicateFilterResults;
-import br.ufsc.lapesd.freqel.query.results.impl.ThenResults;
+import br.ufsc.lapesd.freqel.query.results.impl.*;
 import br.ufsc.lapesd.freqel.reason.tbox.EndpointReasoner;
 import br.ufsc.lapesd.freqel.reason.tbox.TBox;
 import br.ufsc.lapesd.freqel.reason.tbox.replacements.Replacement;
 import br.ufsc.lapesd.freqel.reason.tbox.replacements.ReplacementGenerator;
 import br.ufsc.lapesd.freqel.reason.tbox.replacements.VarReplacement;
-import br.ufsc.lapesd.freqel.util.indexed.FullIndexSet;
-import br.ufsc.lapesd.freqel.util.indexed.IndexSet;
-import br.ufsc.lapesd.freqel.util.indexed.subset.IndexSubset;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Maps;
 import org.slf4j.Logger;
@@ -42,6 +41,7 @@ public class HeuristicEndpointReasoner implements EndpointReasoner {
     private static final Logger logger = LoggerFactory.getLogger(HeuristicEndpointReasoner.class);
 
     private static final int DEF_ESTIMATION_THRESHOLD = 3;
+    public static final int DEF_VALUES_ROWS = 40;
     private static final Var hVar = new StdVar( "HeuristicEndpointReasoner_est");
     private static final AtomicInteger nextInstanceId = new AtomicInteger(1);
 
@@ -51,6 +51,7 @@ public class HeuristicEndpointReasoner implements EndpointReasoner {
     private final @Nonnull String myPrefix =
             "HeuristicEndpointReasoner_" + nextInstanceId.getAndIncrement() + "_";
     private int estimationThreshold = DEF_ESTIMATION_THRESHOLD;
+    private int valuesRows = DEF_VALUES_ROWS;
 
     @Inject
     public HeuristicEndpointReasoner(@Nonnull ReplacementGenerator replacementGenerator,
@@ -66,6 +67,19 @@ public class HeuristicEndpointReasoner implements EndpointReasoner {
         this.estimationThreshold = estimationThreshold;
     }
 
+    public int getValuesRows() {
+        return valuesRows;
+    }
+
+    /**
+     * Max number of alternative combinations sent in a single VALUES block to endpoints
+     * that support {@link Capability#VALUES}. Values below 2 disable batching and send one
+     * query per combination.
+     */
+    public void setValuesRows(int valuesRows) {
+        this.valuesRows = valuesRows;
+    }
+
     @Override public void setTBox(@Nonnull TBox tBox) {
         this.tBox = tBox;
         TBox old = replacementGenerator.setTBox(tBox);
@@ -100,43 +114,69 @@ public class HeuristicEndpointReasoner implements EndpointReasoner {
         return replacements;
     }
 
-    private static class RewritingResultsIterator implements Iterator<Callable<Results>> {
+    /**
+     * Sort the alternatives of ground replacements so that rewritings expected to produce
+     * more results are executed first. This allows queries with a LIMIT to be satisfied
+     * with fewer rewritings.
+     */
+    private @Nonnull List<Replacement>
+    sortBySelectivity(@Nonnull List<Replacement> replacements, @Nonnull TPEndpoint ep) {
+        List<Replacement> sorted = new ArrayList<>(replacements.size());
+        for (Replacement r : replacements) {
+            if (r instanceof VarReplacement || r.getAlternatives().size() < 2) {
+                sorted.add(r);
+                continue;
+            }
+            Term original = r.getTerm();
+            CQuery ctxQuery = r.getCtx().getQuery();
+            Map<Term, Long> estimates = Maps.newHashMapWithExpectedSize(r.getAlternatives().size());
+            for (Term alt : r.getAlternatives()) {
+                CQuery bound = ctxQuery.bind(t -> t.equals(original) ? alt : t);
+                estimates.put(alt, cardinalityHeuristic.estimate(bound, ep).getValue(0));
+            }
+            List<Term> alternatives = new ArrayList<>(r.getAlternatives());
+            alternatives.sort(Comparator.comparing(estimates::get, Comparator.reverseOrder()));
+            sorted.add(new Replacement(original, new LinkedHashSet<>(alternatives), r.getCtx()));
+        }
+        return sorted;
+    }
+
+    private class RewritingResultsIterator implements Iterator<Callable<Results>> {
         private final @Nonnull Function<EndpointOp, Results> executor;
         private final @Nonnull EndpointQueryOp op;
         private final @Nonnull CQuery originalQuery;
         private final @Nonnull List<Replacement> replacements;
-        private final @Nonnull List<IndexSet<Term>> alternativeSets;
+        private final @Nonnull List<List<Term>> alternativeLists;
         private final @Nonnull List<Iterator<Term>> alternativeIts;
         private final @Nonnull List<Term> alternativeTerms;
         private final @Nonnull Map<Term, Term> bindings;
         private @Nullable Callable<Results> next;
         private boolean exhausted = false;
         private final boolean hasVarBindings;
+        /* batching with VALUES. If null, each combination is a query */
+        private final @Nullable MutableCQuery valuesTemplate;
+        private final @Nonnull List<String> valuesVars;
+        private final @Nonnull List<Solution> batchRows;
+        private final @Nullable ArraySolution.ValueFactory batchRowFactory;
 
         public RewritingResultsIterator(@Nonnull EndpointQueryOp op,
                                         @Nonnull Function<EndpointOp, Results> executor,
-                                        @Nonnull List<Replacement> replacements) {
+                                        @Nonnull List<Replacement> replacements,
+                                        boolean batch) {
             this.op = op;
             this.executor = executor;
             this.replacements = replacements;
             this.bindings = Maps.newHashMapWithExpectedSize(replacements.size());
 
-            int capacity = 0;
-            for (Replacement replacement : replacements)
-                capacity += replacement.getAlternatives().size();
-            FullIndexSet<Term> universe = new FullIndexSet<>(capacity);
-            for (Replacement replacement : replacements)
-                universe.addAll(replacement.getAlternatives());
-
-            this.alternativeSets = new ArrayList<>(replacements.size());
+            this.alternativeLists = new ArrayList<>(replacements.size());
             this.alternativeIts = new ArrayList<>(replacements.size());
             this.alternativeTerms = new ArrayList<>(replacements.size());
             boolean hasVarBindings = false;
             for (Replacement replacement : replacements) {
-                IndexSubset<Term> ss = universe.subset(replacement.getAlternatives());
-                Iterator<Term> it = ss.iterator();
+                List<Term> list = new ArrayList<>(replacement.getAlternatives());
+                Iterator<Term> it = list.iterator();
                 hasVarBindings |= replacement instanceof VarReplacement;
-                alternativeSets.add(ss);
+                alternativeLists.add(list);
                 alternativeIts.add(it);
                 if (it.hasNext())
                     alternativeTerms.add(it.next());
@@ -151,6 +191,34 @@ public class HeuristicEndpointReasoner implements EndpointReasoner {
             } else {
                 originalQuery = op.getQuery();
             }
+
+            if (batch) {
+                valuesVars = new ArrayList<>(replacements.size());
+                Map<Term, Term> templateBindings = new HashMap<>();
+                Set<String> projection = new HashSet<>(op.getResultVars());
+                for (int i = 0, size = replacements.size(); i < size; i++) {
+                    Replacement r = replacements.get(i);
+                    if (r instanceof VarReplacement) {
+                        Var var = ((VarReplacement) r).getVar();
+                        templateBindings.put(r.getTerm(), var);
+                        projection.add(var.getName());
+                    } else {
+                        StdVar var = new StdVar(myPrefix + "values_" + i);
+                        templateBindings.put(r.getTerm(), var);
+                        valuesVars.add(var.getName());
+                    }
+                }
+                valuesTemplate = originalQuery.bind(templateBindings);
+                if (originalQuery.getModifiers().ask() == null)
+                    valuesTemplate.mutateModifiers().add(Projection.of(projection));
+                batchRows = new ArrayList<>(valuesRows);
+                batchRowFactory = ArraySolution.forVars(valuesVars);
+            } else {
+                valuesTemplate = null;
+                valuesVars = Collections.emptyList();
+                batchRows = Collections.emptyList();
+                batchRowFactory = null;
+            }
         }
 
         private @Nonnull Results handleVarBindings(@Nonnull Results results) {
@@ -166,32 +234,59 @@ public class HeuristicEndpointReasoner implements EndpointReasoner {
             return new PredicateFilterResults(op.getResultVars(), results, predicates);
         }
 
-        @Override public boolean hasNext() {
-            if (next == null && !exhausted) {
-                int size = replacements.size();
+        /**
+         * Moves alternativeTerms to the next combination or sets exhausted.
+         */
+        private void advance() {
+            boolean advanced = false;
+            for (int i = replacements.size()-1; !advanced && i >= 0; i--) {
+                Iterator<Term> it = alternativeIts.get(i);
+                if (it.hasNext()) {
+                    alternativeTerms.set(i, it.next());
+                    advanced = true;
+                } else {
+                    Iterator<Term> newIt = alternativeLists.get(i).iterator();
+                    alternativeIts.set(i, newIt);
+                    alternativeTerms.set(i, newIt.next());
+                }
+            }
+            if (!advanced)
+                exhausted = true;
+        }
+
+        private @Nonnull MutableCQuery nextQuery() {
+            int size = replacements.size();
+            if (valuesTemplate == null) {
                 for (int i = 0; i < size; i++)
                     bindings.put(replacements.get(i).getTerm(), alternativeTerms.get(i));
                 assert bindings.values().stream().allMatch(Objects::nonNull);
                 MutableCQuery bound = originalQuery.bind(bindings);
-                EndpointQueryOp boundOp = new EndpointQueryOp(op.getEndpoint(), bound);
+                advance();
+                return bound;
+            }
+            assert batchRowFactory != null;
+            batchRows.clear();
+            while (!exhausted && batchRows.size() < valuesRows) {
+                List<Term> row = new ArrayList<>(valuesVars.size());
+                for (int i = 0; i < size; i++) {
+                    if (!(replacements.get(i) instanceof VarReplacement))
+                        row.add(alternativeTerms.get(i));
+                }
+                batchRows.add(batchRowFactory.fromValues(row));
+                advance();
+            }
+            MutableCQuery bound = new MutableCQuery(valuesTemplate);
+            bound.mutateModifiers().add(new ValuesModifier(valuesVars, batchRows));
+            return bound;
+        }
+
+        @Override public boolean hasNext() {
+            if (next == null && !exhausted) {
+                EndpointQueryOp boundOp = new EndpointQueryOp(op.getEndpoint(), nextQuery());
                 if (hasVarBindings)
                     next = () -> handleVarBindings(executor.apply(boundOp));
                 else
                     next = () -> executor.apply(boundOp);
-                boolean advanced = false;
-                for (int i = size-1; !advanced && i >= 0; i--) {
-                    Iterator<Term> it = alternativeIts.get(i);
-                    if (it.hasNext()) {
-                        alternativeTerms.set(i, it.next());
-                        advanced = true;
-                    } else {
-                        Iterator<Term> newIt = alternativeSets.get(i).iterator();
-                        alternativeIts.set(i, newIt);
-                        alternativeTerms.set(i, newIt.next());
-                    }
-                }
-                if (!advanced)
-                    exhausted = true;
             }
             return next != null;
         }
@@ -215,12 +310,22 @@ public class HeuristicEndpointReasoner implements EndpointReasoner {
         assert query.modifiers().reasoning() == null : "query should not have a REASONING mod";
 
         MutableCQuery cQuery = ((EndpointQueryOp) query).getQuery();
-        List<Replacement> replacements = getReplacements(cQuery, query.getEndpoint());
+        TPEndpoint ep = query.getEndpoint();
+        List<Replacement> replacements = getReplacements(cQuery, ep);
         if (replacements.isEmpty())
             return executor.apply(query);
+        ModifiersSet modifiers = cQuery.getModifiers();
+        if (modifiers.limit() != null)
+            replacements = sortBySelectivity(replacements, ep);
+        boolean batch = valuesRows > 1 && modifiers.valueModifier() == null
+                && ep.hasCapability(Capability.VALUES)
+                && replacements.stream().anyMatch(r -> !(r instanceof VarReplacement));
         RewritingResultsIterator it =
-                new RewritingResultsIterator((EndpointQueryOp) query, executor, replacements);
-        return new ThenResults(query.getResultVars(), it);
+                new RewritingResultsIterator((EndpointQueryOp) query, executor, replacements, batch);
+        Results results = new ThenResults(query.getResultVars(), it);
+        // rewritings may overlap (e.g., an instance of two subclasses), hence distinct again
+        results = HashDistinctResults.applyIf(results, modifiers);
+        return LimitResults.applyIf(results, modifiers);
     }
 
     @Override public @Nonnull String toString() {
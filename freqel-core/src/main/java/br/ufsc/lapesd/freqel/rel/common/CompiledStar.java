@@ -0,0 +1,175 @@
+package br.ufsc.lapesd.freqel.rel.common;
+
+import br.ufsc.lapesd.freqel.jena.JenaWrappers;
+import br.ufsc.lapesd.freqel.model.Triple;
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilter;
+import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilterExecutor;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.impl.ArraySolution;
+import br.ufsc.lapesd.freqel.rel.mappings.RowConverter;
+import br.ufsc.lapesd.freqel.util.indexed.FullIndexSet;
+import br.ufsc.lapesd.freqel.util.indexed.IndexSet;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+
+/**
+ * Matches the pending triples of a star against the RDF view of a single record.
+ *
+ * Everything that does not depend on the record values (the {@link RowConverter}, the
+ * positions of variables in the triple patterns and the output layout) is computed once
+ * per query. Each record is converted into a handful of {@link Triple}s that are matched
+ * by backtracking, without building a Jena Model nor running ARQ.
+ */
+public final class CompiledStar {
+    private final @Nonnull RowConverter converter;
+    private final @Nonnull Term[][] ground;
+    private final @Nonnull int[][] slots;
+    private final int slotCount;
+    private final @Nonnull int[] outSlots;
+    private final @Nonnull IndexSet<String> outVars;
+    private final @Nonnull List<SPARQLFilter> filters;
+    private final @Nonnull SPARQLFilterExecutor filterExecutor;
+    private final boolean distinct;
+    private final @Nonnull List<Triple> rdf = new ArrayList<>();
+
+    /**
+     * Creates a matcher for the given triple patterns.
+     *
+     * @param converter compiled mapping for the columns of the star
+     * @param patterns the triple patterns to match. Variables and blank nodes match anything
+     * @param filters filters to apply to each solution
+     * @param projection variables to output, in this order
+     * @param distinct whether to remove duplicate solutions (for a single record)
+     */
+    public CompiledStar(@Nonnull RowConverter converter, @Nonnull Collection<Triple> patterns,
+                        @Nonnull Collection<SPARQLFilter> filters,
+                        @Nonnull SPARQLFilterExecutor filterExecutor,
+                        @Nonnull Collection<String> projection, boolean distinct) {
+        this.converter = converter;
+        this.filters = new ArrayList<>(filters);
+        this.filterExecutor = filterExecutor;
+        this.distinct = distinct;
+        int size = patterns.size();
+        this.ground = new Term[size][3];
+        this.slots = new int[size][3];
+        Map<Term, Integer> term2slot = new LinkedHashMap<>();
+        int i = 0;
+        for (Triple triple : patterns) {
+            for (int k = 0; k < 3; k++) {
+                Term term = at(triple, k);
+                if (term.isVar() || term.isBlank()) {
+                    slots[i][k] = term2slot.computeIfAbsent(term, x -> term2slot.size());
+                } else {
+                    slots[i][k] = -1;
+                    ground[i][k] = term;
+                }
+            }
+            ++i;
+        }
+        this.slotCount = term2slot.size();
+        List<String> vars = new ArrayList<>();
+        List<Integer> varSlots = new ArrayList<>();
+        for (String name : projection) {
+            for (Map.Entry<Term, Integer> e : term2slot.entrySet()) {
+                Term term = e.getKey();
+                if (term.isVar() && term.asVar().getName().equals(name)) {
+                    vars.add(name);
+                    varSlots.add(e.getValue());
+                    break;
+                }
+            }
+        }
+        this.outVars = FullIndexSet.fromDistinct(vars);
+        this.outSlots = varSlots.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public @Nonnull IndexSet<String> getVarNames() {
+        return outVars;
+    }
+
+    /**
+     * Convert the record into RDF and add all solutions of the star to out.
+     */
+    public void evaluate(@Nonnull List<?> values, @Nonnull List<Solution> out) {
+        rdf.clear();
+        converter.convert(values, rdf);
+        int start = out.size();
+        match(0, new Term[slotCount], out);
+        if (distinct && out.size() - start > 1) {
+            List<Solution> tail = out.subList(start, out.size());
+            LinkedHashSet<Solution> set = new LinkedHashSet<>(tail);
+            tail.clear();
+            tail.addAll(set);
+        }
+    }
+
+    private void match(int pattern, @Nonnull Term[] binding, @Nonnull List<Solution> out) {
+        if (pattern == slots.length) {
+            Term[] values = new Term[outSlots.length];
+            for (int i = 0; i < values.length; i++)
+                values[i] = binding[outSlots[i]];
+            ArraySolution solution = new ArraySolution(outVars, values);
+            for (SPARQLFilter filter : filters) {
+                if (!filterExecutor.evaluate(filter, solution))
+                    return;
+            }
+            out.add(solution);
+            return;
+        }
+        int[] patternSlots = slots[pattern];
+        Term[] patternGround = ground[pattern];
+        boolean[] assigned = new boolean[3];
+        triples:
+        for (Triple triple : rdf) {
+            Arrays.fill(assigned, false);
+            for (int k = 0; k < 3; k++) {
+                Term term = at(triple, k);
+                int slot = patternSlots[k];
+                if (slot < 0) {
+                    if (!sameTerm(patternGround[k], term)) {
+                        undo(binding, patternSlots, assigned);
+                        continue triples;
+                    }
+                } else if (binding[slot] == null) {
+                    binding[slot] = term;
+                    assigned[k] = true;
+                } else if (!sameTerm(binding[slot], term)) {
+                    undo(binding, patternSlots, assigned);
+                    continue triples;
+                }
+            }
+            match(pattern+1, binding, out);
+            undo(binding, patternSlots, assigned);
+        }
+    }
+
+    private static void undo(@Nonnull Term[] binding, @Nonnull int[] patternSlots,
+                             @Nonnull boolean[] assigned) {
+        for (int k = 0; k < 3; k++) {
+            if (assigned[k]) binding[patternSlots[k]] = null;
+        }
+    }
+
+    /**
+     * Literals are compared by value, as graph matching in Jena did before records were
+     * matched here: <code>"1"^^xsd:int</code> matches <code>"01"^^xsd:int</code> and
+     * <code>"1"^^xsd:integer</code>.
+     */
+    private static boolean sameTerm(@Nonnull Term a, @Nonnull Term b) {
+        if (a.equals(b))
+            return true;
+        if (!a.isLiteral() || !b.isLiteral())
+            return false;
+        return JenaWrappers.toJenaNode(a).sameValueAs(JenaWrappers.toJenaNode(b));
+    }
+
+    private static @Nonnull Term at(@Nonnull Triple triple, int k) {
+        switch (k) {
+            case 0: return triple.getSubject();
+            case 1: return triple.getPredicate();
+            default: return triple.getObject();
+        }
+    }
+}
@@ -1,60 +1,47 @@
 package br.ufsc.lapesd.freqel.rel.common;
 
-import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.hash.InMemoryHashJoinResults;
-import br.ufsc.lapesd.freqel.jena.query.JenaBindingSolution;
-import br.ufsc.lapesd.freqel.model.SPARQLString;
 import br.ufsc.lapesd.freqel.model.Triple;
 import br.ufsc.lapesd.freqel.model.term.Term;
 import br.ufsc.lapesd.freqel.model.term.Var;
 import br.ufsc.lapesd.freqel.model.term.std.StdVar;
-import br.ufsc.lapesd.freqel.query.MutableCQuery;
-import br.ufsc.lapesd.freqel.query.modifiers.*;
-import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilterFactory;
 import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilter;
 import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilterExecutor;
+import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilterFactory;
 import br.ufsc.lapesd.freqel.query.results.AbstractResults;
-import br.ufsc.lapesd.freqel.query.results.Results;
 import br.ufsc.lapesd.freqel.query.results.ResultsCloseException;
 import br.ufsc.lapesd.freqel.query.results.Solution;
 import br.ufsc.lapesd.freqel.query.results.impl.ArraySolution;
-import br.ufsc.lapesd.freqel.query.results.impl.CollectionResults;
-import br.ufsc.lapesd.freqel.query.results.impl.LazyCartesianResults;
 import br.ufsc.lapesd.freqel.rel.mappings.RelationalMapping;
 import br.ufsc.lapesd.freqel.rel.sql.RelationalRewriting;
 import br.ufsc.lapesd.freqel.util.indexed.IndexSet;
 import br.ufsc.lapesd.freqel.util.indexed.subset.IndexSubset;
-import org.apache.jena.query.Query;
-import org.apache.jena.query.QueryExecution;
-import org.apache.jena.query.QueryExecutionFactory;
-import org.apache.jena.query.QueryFactory;
-import org.apache.jena.rdf.model.Model;
-import org.apache.jena.rdf.model.ModelFactory;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
 
-import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 
+/**
+ * Converts the records of a relational query into {@link Solution}s.
+ *
+ * The conversion of each star is compiled once per query into a {@link CompiledStar}, which
+ * uses the {@link RelationalMapping#compile(List)} to convert column values directly into
+ * terms. The per-star solutions of a record are then joined by nested loops (each record
+ * yields very few solutions per star).
+ */
 public abstract class RelationalResults extends AbstractResults {
-    private static final Logger logger = LoggerFactory.getLogger(RelationalResults.class);
-
     private static final Var p = new StdVar("p"), o = new StdVar("o");
 
     private boolean closed = false;
     private final boolean ask;
     private Exception exception = null;
-    private final @Nonnull RelationalMapping mapping;
     private final @Nonnull Queue<Solution> queue = new ArrayDeque<>();
     private final @Nonnull RelationalRewriting rewriting;
-    private final @Nonnull Model tmpModel = ModelFactory.createDefaultModel();
-    private final @Nonnull List<Query> jenaStars;
-    private final @Nonnull List<Set<String>> jenaVars;
-    private final @Nonnull List<JenaBindingSolution.Factory> jenaSolutionFac;
-    private final @Nonnull List<Set<String>> jVars;
-    private final @Nonnull List<Set<String>> jrVars;
+    private final @Nonnull List<CompiledStar> stars;
+    private final @Nonnull List<List<String>> jVars;
+    private final @Nonnull List<ArraySolution.ValueFactory> jrFactories;
+    private final @Nonnull List<List<Object>> starValues;
     private final @Nullable ArraySolution.ValueFactory projector;
     private final @Nonnull SPARQLFilterExecutor filterExecutor = SPARQLFilterFactory.createExecutor();
 
@@ -62,49 +49,54 @@ public abstract class RelationalResults extends AbstractResults {
                                 @Nonnull RelationalMapping mapping) {
         super(rw.getQuery().attr().publicTripleVarNames());
         this.rewriting = rw;
-        this.mapping = mapping;
         this.ask = rw.getQuery().attr().isAsk();
-        this.jenaStars = new ArrayList<>(rw.getStarsCount());
-        this.jenaVars = new ArrayList<>(rw.getStarsCount());
-        this.jenaSolutionFac = new ArrayList<>(rw.getStarsCount());
-        this.jVars = new ArrayList<>(rw.getStarsCount());
-        this.jrVars = new ArrayList<>(rw.getStarsCount());
+        int starsCount = rw.getStarsCount();
+        this.stars = new ArrayList<>(starsCount);
+        this.jVars = new ArrayList<>(starsCount);
+        this.jrFactories = new ArrayList<>(starsCount);
+        this.starValues = new ArrayList<>(starsCount);
         StarVarIndex index = rw.getIndex();
         IndexSet<String> allVars = index.getAllSparqlVars();
         Set<String> projection = getVarNames();
-        for (int i = 0, size = rw.getStarsCount(); i < size; i++) {
-            MutableCQuery b = MutableCQuery.from(index.getPendingTriples(i));
-            b.mutateModifiers().addAll(index.getPendingFilters(i));
-            if (b.isEmpty()) {
-                assert index.getPendingFilters(i).isEmpty();
+        Set<String> previousVars = null;
+        for (int i = 0; i < starsCount; i++) {
+            starValues.add(new ArrayList<>(rw.getStarVars(i).size()));
+            IndexSubset<Triple> pendingTriples = index.getPendingTriples(i);
+            IndexSubset<SPARQLFilter> pendingFilters = index.getPendingFilters(i);
+            CompiledStar star = null;
+            if (pendingTriples.isEmpty()) {
+                assert pendingFilters.isEmpty();
                 Term core = rw.getStar(i).getCore();
                 if (core.isVar() && projection.contains(core.asVar().getName())) {
-                    b.add(new Triple(core, p, o));
-                    b.mutateModifiers().add(Projection.of(core.asVar().getName()));
-                    b.mutateModifiers().add(Distinct.INSTANCE);
-                } else { // no work on our side, skip it
-                    jenaStars.add(null);
-                    jenaVars.add(Collections.emptySet());
-                    jenaSolutionFac.add(null);
-                    jVars.add(Collections.emptySet());
-                    jrVars.add(Collections.emptySet());
-                    continue;
+                    star = new CompiledStar(mapping.compile(rw.getStarColumns(i)),
+                                            singletonList(new Triple(core, p, o)),
+                                            pendingFilters, filterExecutor,
+                                            singletonList(core.asVar().getName()), true);
+                } // else: no work on our side, skip it
+            } else {
+                Set<String> patternVars = new LinkedHashSet<>();
+                for (Triple triple : pendingTriples) {
+                    triple.forEach(t -> {
+                        if (t.isVar()) patternVars.add(t.asVar().getName());
+                    });
                 }
+                star = new CompiledStar(mapping.compile(rw.getStarColumns(i)), pendingTriples,
+                                        pendingFilters, filterExecutor, patternVars, false);
             }
-            SPARQLString ss = SPARQLString.create(b);
-            jenaStars.add(QueryFactory.create(ss.getSparql()));
-            jenaVars.add(ss.getVarNames());
-            jenaSolutionFac.add(JenaBindingSolution.forVars(jenaVars.get(i)));
-            if (i == 0) {
-                jVars.add(Collections.emptySet());
-                jrVars.add(jenaVars.get(i));
-            } else {
-                // subseting on allVars avoid joining the over the dummy p and o vars
-                IndexSubset<String> set = allVars.subset(jenaVars.get(i));
-                jVars.add(set.createIntersection(jenaVars.get(i-1)));
-                set.addAll(jrVars.get(i-1));
-                jrVars.add(set);
+            stars.add(star);
+            if (star == null || previousVars == null) {
+                jVars.add(Collections.emptyList());
+                jrFactories.add(null);
+                if (star != null)
+                    previousVars = star.getVarNames();
+                continue;
             }
+            // subseting on allVars avoid joining the over the dummy p and o vars
+            IndexSubset<String> set = allVars.subset(star.getVarNames());
+            jVars.add(new ArrayList<>(set.createIntersection(previousVars)));
+            set.addAll(previousVars);
+            jrFactories.add(ArraySolution.forVars(new ArrayList<>(set)));
+            previousVars = set;
         }
         projector = allVars.equals(projection) ? null : ArraySolution.forVars(projection);
     }
@@ -151,63 +143,54 @@ public abstract class RelationalResults extends AbstractResults {
 
 
     private void convert() throws Exception {
-        // results will be a tree of hash joins among the results of each star
-        Results results = null;
-        try {
-            for (int i = 0; i < rewriting.getStarsCount(); i++) {
-                if (jenaStars.get(i) == null)
-                    continue; // the query is an ASK that was already executed in SPARQL
-                Results r = executeStar(i);
-                if (results == null) {
-                    results = r; // first result, use as root
-                } else if (jVars.get(i).isEmpty()) {
-                    results = new LazyCartesianResults(asList(results, r), jrVars.get(i));
-                } else {
-                    results = new InMemoryHashJoinResults(results, r, jVars.get(i),
-                            jrVars.get(i), false);
-                }
-            }
-            assert results != null;
-            filter(results);
-        } finally {
-            if (results != null) {
-                try {
-                    results.close();
-                } catch (ResultsCloseException e) {
-                    logger.error("results.close() threw during convert(): ", e);
-                }
+        List<Solution> results = null, next = new ArrayList<>();
+        for (int i = 0, size = stars.size(); i < size; i++) {
+            CompiledStar star = stars.get(i);
+            if (star == null)
+                continue; // the query is an ASK that was already executed in SPARQL
+            List<Object> values = starValues.get(i);
+            values.clear();
+            for (String v : rewriting.getStarVars(i))
+                values.add(relationalGetValue(v));
+            next.clear();
+            star.evaluate(values, next);
+            if (results == null) {
+                results = new ArrayList<>(next); // first result, use as root
+            } else {
+                results = join(results, next, jVars.get(i), jrFactories.get(i));
             }
+            if (results.isEmpty())
+                return;
         }
+        if (results == null) // no star has work to do, the record itself is the solution
+            results = singletonList(ArraySolution.EMPTY);
+        filter(results);
     }
 
-    private @Nonnull Results executeStar(int i) throws Exception {
-        List<String> starVars = rewriting.getStarVars(i);
-        List<Object> starValues = new ArrayList<>(starVars.size());
-        for (String v : starVars)
-            starValues.add(relationalGetValue(v));
-
-        tmpModel.removeAll();
-        mapping.toRDF(tmpModel, rewriting.getStarColumns(i), starValues);
-        JenaBindingSolution.Factory factory = jenaSolutionFac.get(i);
-        List<Solution> solutions = new ArrayList<>();
-        try (QueryExecution exec = QueryExecutionFactory.create(jenaStars.get(i), tmpModel)) {
-            org.apache.jena.query.ResultSet rs = exec.execSelect();
-            while (rs.hasNext())
-                solutions.add(factory.transform(rs.nextBinding()));
-        } catch (Exception e) {
-            logger.error("Problem executing ARQ query for star {}={}. Will continue with " +
-                    "{}} results.", i, jenaStars.get(i), solutions.size(), e);
+    private static @Nonnull List<Solution> join(@Nonnull List<Solution> left,
+                                                @Nonnull List<Solution> right,
+                                                @Nonnull List<String> joinVars,
+                                                @Nonnull ArraySolution.ValueFactory factory) {
+        List<Solution> out = new ArrayList<>(Math.max(left.size(), right.size()));
+        for (Solution l : left) {
+            right_loop:
+            for (Solution r : right) {
+                for (String v : joinVars) {
+                    if (!Objects.equals(l.get(v), r.get(v)))
+                        continue right_loop;
+                }
+                out.add(factory.fromSolutions(l, r));
+            }
         }
-        return new CollectionResults(solutions, jenaVars.get(i));
+        return out;
     }
 
     /**
      * Apply filters not applied in SQL to the results and add valid Solutions to the queue
      */
-    private void filter(@Nonnull Results results) {
+    private void filter(@Nonnull List<Solution> results) {
         rs_loop:
-        while (results.hasNext()) {
-            Solution solution = results.next();
+        for (Solution solution : results) {
             for (SPARQLFilter filter : rewriting.getPendingFilters()) {
                 if (!filterExecutor.evaluate(filter, solution))
                     continue rs_loop;
@@ -1,9 +1,12 @@
 package br.ufsc.lapesd.freqel.rel.mappings;
 
 import br.ufsc.lapesd.freqel.description.molecules.Molecule;
+import br.ufsc.lapesd.freqel.jena.JenaWrappers;
 import br.ufsc.lapesd.freqel.model.term.Term;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.StmtIterator;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -265,6 +268,29 @@ public interface RelationalMapping {
         return toRDF(model, map);
     }
 
+    /**
+     * Compiles the conversion of records with the given columns into RDF.
+     *
+     * The default implementation writes each record into a temporary {@link Model} using
+     * {@link RelationalMapping#toRDF(Model, List, List)} and then reads back its statements.
+     * Implementations should override this to build {@link Term}s directly from the values.
+     *
+     * @param columns the columns of all records that will be given to the converter
+     * @return a {@link RowConverter} that can be reused for all records
+     */
+    default @Nonnull RowConverter compile(@Nonnull List<Column> columns) {
+        List<Column> copy = new ArrayList<>(columns);
+        Model model = ModelFactory.createDefaultModel();
+        return (values, out) -> {
+            model.removeAll();
+            toRDF(model, copy, values);
+            int count = 0;
+            for (StmtIterator it = model.listStatements(); it.hasNext(); ++count)
+                out.add(JenaWrappers.fromJena(it.next()));
+            return count;
+        };
+    }
+
     /* --- multi-instance variants --- */
 
     default int toRDF(@Nonnull Model model, @Nonnull List<Map<Column, Object>> values) {
@@ -0,0 +1,27 @@
+package br.ufsc.lapesd.freqel.rel.mappings;
+
+import br.ufsc.lapesd.freqel.model.Triple;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * Converts records of a fixed list of columns into RDF triples.
+ *
+ * Instances are obtained from {@link RelationalMapping#compile(List)} once per list of
+ * columns and then reused for every record. Instances are not required to be thread-safe.
+ */
+@FunctionalInterface
+public interface RowConverter {
+    /**
+     * Adds the RDF representation of a record to out.
+     *
+     * @param values possibly null values, the i-th value corresponding to the i-th column
+     *               given to {@link RelationalMapping#compile(List)}
+     * @param out where to add triples
+     * @return the number of triples added
+     */
+    @CanIgnoreReturnValue
+    int convert(@Nonnull List<?> values, @Nonnull List<Triple> out);
+}
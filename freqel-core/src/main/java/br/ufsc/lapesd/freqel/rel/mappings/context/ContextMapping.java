@@ -10,6 +10,7 @@ import br.ufsc.lapesd.freqel.model.term.std.StdURI;
 import br.ufsc.lapesd.freqel.rel.mappings.Column;
 import br.ufsc.lapesd.freqel.rel.mappings.RelationalMapping;
 import br.ufsc.lapesd.freqel.rel.mappings.RelationalMappingUtils;
+import br.ufsc.lapesd.freqel.rel.mappings.RowConverter;
 import br.ufsc.lapesd.freqel.util.DictTree;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
@@ -383,6 +384,34 @@ public class ContextMapping implements RelationalMapping {
         return triples;
     }
 
+    @Override
+    public @Nonnull RowConverter compile(@Nonnull List<Column> columns) {
+        if (columns.isEmpty())
+            return RelationalMapping.super.compile(columns);
+        List<RowConverter> converters = new ArrayList<>();
+        Set<String> tables = new LinkedHashSet<>();
+        for (Column column : columns)
+            tables.add(column.getTable());
+        for (String table : tables) {
+            TableContext context = table2context.get(table);
+            if (context == null) {
+                assert false : "Unexpected table";
+                logger.warn("Ignoring unexpected table {}. Known tables: {}",
+                            table, table2context.keySet());
+            } else {
+                converters.add(context.compile(nextId, columns));
+            }
+        }
+        if (converters.size() == 1)
+            return converters.get(0);
+        return (values, out) -> {
+            int triples = 0;
+            for (RowConverter converter : converters)
+                triples += converter.convert(values, out);
+            return triples;
+        };
+    }
+
     private @Nonnull Resource createResource(@Nullable Model model, @Nonnull List<Column> columns,
                                              @Nonnull List<?> values) {
         Preconditions.checkArgument(columns.size() == values.size(), "#columns != #values");
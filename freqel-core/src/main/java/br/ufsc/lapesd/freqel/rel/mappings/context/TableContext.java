@@ -5,10 +5,15 @@ import br.ufsc.lapesd.freqel.description.molecules.Molecule;
 import br.ufsc.lapesd.freqel.description.molecules.MoleculeBuilder;
 import br.ufsc.lapesd.freqel.description.molecules.tags.ValueTag;
 import br.ufsc.lapesd.freqel.jena.JenaWrappers;
+import br.ufsc.lapesd.freqel.model.Triple;
 import br.ufsc.lapesd.freqel.model.term.Lit;
+import br.ufsc.lapesd.freqel.model.term.Term;
 import br.ufsc.lapesd.freqel.model.term.URI;
+import br.ufsc.lapesd.freqel.model.term.std.StdBlank;
+import br.ufsc.lapesd.freqel.model.term.std.StdLit;
 import br.ufsc.lapesd.freqel.model.term.std.StdURI;
 import br.ufsc.lapesd.freqel.rel.mappings.Column;
+import br.ufsc.lapesd.freqel.rel.mappings.RowConverter;
 import br.ufsc.lapesd.freqel.rel.mappings.tags.ColumnsTag;
 import br.ufsc.lapesd.freqel.rel.mappings.tags.PostRelationalTag;
 import br.ufsc.lapesd.freqel.rel.mappings.tags.TableTag;
@@ -16,6 +21,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.annotations.Immutable;
+import org.apache.jena.datatypes.RDFDatatype;
+import org.apache.jena.datatypes.TypeMapper;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.Property;
 import org.apache.jena.rdf.model.Resource;
@@ -27,8 +34,11 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -38,6 +48,7 @@ import static java.util.Collections.singletonList;
 class TableContext {
     private static final Logger logger = LoggerFactory.getLogger(TableContext.class);
     private static final URI rdfType = new StdURI(RDF.type.getURI());
+    private static final URI owlThing = new StdURI(OWL2.Thing.getURI());
 
     private @Nonnull final String tableName;
     private @Nonnull final ImmutableMap<String, URI> column2uri;
@@ -170,6 +181,96 @@ class TableContext {
         return triples;
     }
 
+    /**
+     * Compiled equivalent of {@link #toRDF(AtomicLong, Model, List, List)}: predicates, the
+     * positions of id columns and datatypes are resolved once, and each record is converted
+     * directly into {@link Term}s.
+     */
+    public @Nonnull RowConverter compile(@Nonnull AtomicLong nextId,
+                                         @Nonnull List<Column> columns) {
+        List<Integer> valueIndices = new ArrayList<>();
+        List<URI> predicates = new ArrayList<>();
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            Column column = columns.get(i);
+            if (!column.table.equals(tableName)) continue;
+            URI uri = getUri(column.column);
+            if (uri != null) {
+                valueIndices.add(i);
+                predicates.add(uri);
+            }
+        }
+        int[] idIndices = new int[idColumns.size()];
+        for (int i = 0; i < idIndices.length; i++) {
+            idIndices[i] = -1;
+            for (int j = 0, size = columns.size(); j < size; j++) {
+                Column column = columns.get(j);
+                if (column.table.equals(tableName) && column.column.equals(idColumns.get(i))) {
+                    idIndices[i] = j;
+                    break;
+                }
+            }
+        }
+        Map<Class<?>, RDFDatatype> datatypes = new HashMap<>();
+        return (values, out) -> {
+            Term subject = createSubject(nextId, idIndices, values);
+            int triples = 0;
+            for (URI aClass : classes) {
+                out.add(new Triple(subject, rdfType, aClass));
+                ++triples;
+            }
+            for (int i = 0, size = valueIndices.size(); i < size; i++) {
+                Object value = values.get(valueIndices.get(i));
+                if (value != null) {
+                    out.add(new Triple(subject, predicates.get(i), toLiteral(datatypes, value)));
+                    ++triples;
+                }
+            }
+            if (triples == 0) {
+                out.add(new Triple(subject, rdfType, owlThing));
+                ++triples; // out must reflect the returned count
+            }
+            return triples;
+        };
+    }
+
+    private @Nonnull Term createSubject(@Nonnull AtomicLong nextId, @Nonnull int[] idIndices,
+                                        @Nonnull List<?> values) {
+        if (uriGeneratorType == ContextMapping.UriGeneratorType.BLANK) {
+            return new StdBlank();
+        } else if (uriGeneratorType == ContextMapping.UriGeneratorType.SEQ) {
+            assert instancePrefix != null : "Can only use generator SEQ if instancePrefix != null";
+            return new StdURI(instancePrefix + nextId.incrementAndGet());
+        }
+        assert uriGeneratorType == ContextMapping.UriGeneratorType.CONCAT
+                : "Unexpected uriGeneratorType="+uriGeneratorType;
+        StringBuilder b = new StringBuilder();
+        if (instancePrefix != null)
+            b.append(instancePrefix);
+        boolean any = false;
+        for (int idx : idIndices) {
+            if (idx < 0) continue;
+            Object o = values.get(idx);
+            if (o instanceof Lit)
+                o = ((Lit) o).getLexicalForm();
+            b.append(o).append(idColumnsSeparator);
+            any = true;
+        }
+        if (any)
+            b.setLength(b.length()-idColumnsSeparator.length());
+        return new StdURI(b.toString());
+    }
+
+    private static @Nonnull Term toLiteral(@Nonnull Map<Class<?>, RDFDatatype> datatypes,
+                                           @Nonnull Object value) {
+        if (value instanceof Term)
+            return (Term) value;
+        RDFDatatype dt = datatypes.computeIfAbsent(value.getClass(),
+                                                   TypeMapper.getInstance()::getTypeByClass);
+        if (dt == null) // same as toRDF(), but slower
+            return JenaWrappers.fromJena(ResourceFactory.createTypedLiteral(value));
+        return StdLit.fromUnescaped(dt.unparse(value), new StdURI(dt.getURI()));
+    }
+
     public @Nonnull Resource
     createResource(@Nonnull AtomicLong nextId, @Nullable Model model,
                    @Nonnull List<Column> columns, @Nonnull List<?> values) {
@@ -16,6 +16,8 @@ import br.ufsc.lapesd.freqel.query.endpoint.Capability;
 import br.ufsc.lapesd.freqel.query.endpoint.decorators.EndpointDecorators;
 import br.ufsc.lapesd.freqel.query.endpoint.exceptions.QueryExecutionException;
 import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.ResultsUtils;
+import br.ufsc.lapesd.freqel.query.results.impl.AggregatingResults;
 import br.ufsc.lapesd.freqel.query.results.impl.HashDistinctResults;
 import br.ufsc.lapesd.freqel.query.results.impl.LimitResults;
 import br.ufsc.lapesd.freqel.reason.tbox.EmptyTBox;
@@ -166,6 +168,13 @@ public class JDBCCQEndpoint extends AbstractTPEndpoint implements CQEndpoint {
 
     @Override
     public @Nonnull Results query(@Nonnull CQuery query) {
+        if (query.getModifiers().aggregation() != null) {
+            // The mapping may "unfold" a row into several solutions and builds terms from
+            // column values, thus GROUP BY cannot be delegated. Aggregating here still ships
+            // only the groups to the mediator
+            Results in = query(AggregatingResults.createInputQuery(query));
+            return ResultsUtils.applyNonFilterModifiers(in, query.getModifiers());
+        }
         AnnotationStatus st = new AnnotationStatus(query);
         if (!st.isValid()) {
             if (st.isEmpty()) return runUnderFederation(query);
@@ -203,6 +212,11 @@ public class JDBCCQEndpoint extends AbstractTPEndpoint implements CQEndpoint {
         return Cardinality.UNSUPPORTED;
     }
 
+    @Override
+    public boolean hasCapability(@Nonnull Capability capability) {
+        return capability == Capability.AGGREGATION || hasRemoteCapability(capability);
+    }
+
     @Override
     public boolean hasRemoteCapability(@Nonnull Capability capability) {
         switch (capability) {
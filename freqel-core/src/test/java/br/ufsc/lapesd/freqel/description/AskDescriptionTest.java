@@ -8,6 +8,7 @@ import br.ufsc.lapesd.freqel.query.CQuery;
 import br.ufsc.lapesd.freqel.query.MutableCQuery;
 import br.ufsc.lapesd.freqel.query.results.Results;
 import br.ufsc.lapesd.freqel.util.indexed.subset.IndexSubset;
+import br.ufsc.lapesd.freqel.util.metrics.MetricsRegistry;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryExecution;
 import org.apache.jena.rdf.model.Model;
@@ -24,6 +25,7 @@ import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
@@ -141,6 +143,35 @@ public class AskDescriptionTest implements TestContext {
         assertEquals(match.getNonExclusiveRelevant(), singletonList(new Triple(Alice, knows, x)));
     }
 
+    private static @Nonnull LongAdder cacheRequests(@Nonnull String result) {
+        return MetricsRegistry.getDefault().counter("freqel_cache_requests_total",
+                "Cache lookups, by cache and result", "cache", "ask", "result", result);
+    }
+
+    @Test
+    public void testCacheMetrics() {
+        CountingARQEndpoint ep = createEndpoint();
+        AskDescription d = new AskDescription(ep);
+        long hits = cacheRequests("hit").sum(), misses = cacheRequests("miss").sum();
+
+        d.match(createQuery(Alice, knows, o), MatchReasoning.NONE);
+        assertEquals(ep.calls, 1);
+        assertEquals(cacheRequests("miss").sum(), misses + 1);
+        assertEquals(cacheRequests("hit").sum(), hits);
+
+        d.match(createQuery(Alice, knows, x), MatchReasoning.NONE);
+        assertEquals(ep.calls, 1);
+        assertEquals(cacheRequests("miss").sum(), misses + 1);
+        assertEquals(cacheRequests("hit").sum(), hits + 1);
+
+        // only-cache lookups are also counted, but never send an ASK
+        d.localMatch(createQuery(Alice, knows, x), MatchReasoning.NONE);
+        d.localMatch(createQuery(x, name, y), MatchReasoning.NONE);
+        assertEquals(ep.calls, 1);
+        assertEquals(cacheRequests("miss").sum(), misses + 2);
+        assertEquals(cacheRequests("hit").sum(), hits + 2);
+    }
+
     @Test
     public void testCacheLearnsGeneralized() {
         CountingARQEndpoint ep = createEndpoint();
@@ -39,6 +39,7 @@ import java.util.function.Function;
 import static br.ufsc.lapesd.freqel.description.MatchReasoning.NONE;
 import static br.ufsc.lapesd.freqel.model.term.std.StdLit.fromUnescaped;
 import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Arrays.asList;
 import static java.util.Collections.*;
 import static org.testng.Assert.*;
@@ -59,7 +60,9 @@ public class SelectDescriptionTest implements TestContext {
         @Override
         public @Nonnull  Results doQuery(@Nonnull Query query, boolean isAsk,
                                          @Nonnull Set<String> vars) {
-            ++queries;
+            synchronized (this) {
+                ++queries;
+            }
             return super.doQuery(query, isAsk, vars);
         }
     }
@@ -272,4 +275,55 @@ public class SelectDescriptionTest implements TestContext {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test(dataProvider = "constructorData", groups = {"fast"})
+    public void testPagedFetch(boolean fetchClasses, boolean concurrent) {
+        DescriptionUpdater updater = new DescriptionUpdater(2, concurrent ? 2 : 1, 1);
+        try {
+            SelectDescription d = new SelectDescription(rdf1, fetchClasses);
+            d.setUpdater(updater);
+            rdf1.queries = 0;
+            d.init();
+            assertTrue(d.waitForInit(10000));
+            // 4 predicates need 5 pages, 1 class needs 2 pages
+            assertEquals(rdf1.queries, fetchClasses ? 7 : 5);
+            assertEquals(d.getIndexPredicates(), newHashSet(knows, type, age, name));
+            assertEquals(d.getIndexClasses(), fetchClasses ? singleton(Person) : null);
+        } finally {
+            updater.close();
+        }
+    }
+
+    @Test(groups = {"fast"})
+    public void testRefreshCachedDescription() throws IOException {
+        File dir = Files.createTempDirectory("freqel").toFile();
+        try {
+            String uri = "http://rdf1.example.org/sparql";
+            SourceCache cache = new SourceCache(dir);
+            SelectDescription d1 = new SelectDescription(rdf1, true);
+            d1.saveWhenReady(cache, uri);
+            assertTrue(d1.initSync());
+
+            SelectDescription d2 = SelectDescription.fromCache(rdf1, cache, uri);
+            assertNotNull(d2);
+            List<Integer> notifications = new ArrayList<>();
+            d2.addIndexListener(() -> {
+                synchronized (notifications) {
+                    notifications.add(1);
+                }
+            });
+            d2.setRefreshOnInit(true);
+            d2.init(); // starts a background refresh
+            assertTrue(d2.waitForInit(0)); // but cached data is available
+            CQuery q = createQuery(s, name, o);
+            assertEquals(d2.match(q, NONE).getNonExclusiveRelevant(), q.asList());
+            assertTrue(d2.updateSync(10000));
+            synchronized (notifications) {
+                assertFalse(notifications.isEmpty());
+            }
+            assertEquals(d2.match(q, NONE).getNonExclusiveRelevant(), q.asList());
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package br.ufsc.lapesd.freqel.description.statistics;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.cardinality.impl.StatisticsCardinalityHeuristic;
+import br.ufsc.lapesd.freqel.description.CQueryMatch;
+import br.ufsc.lapesd.freqel.federation.spec.source.SourceCache;
+import br.ufsc.lapesd.freqel.jena.query.ARQEndpoint;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static br.ufsc.lapesd.freqel.description.MatchReasoning.NONE;
+import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class StatisticsSelectDescriptionTest implements TestContext {
+    private static final String VOID_TTL = "@prefix void: <http://rdfs.org/ns/void#> .\n" +
+            "@prefix foaf: <http://xmlns.com/foaf/0.1/> .\n" +
+            "<http://example.org/other> a void:Dataset ;\n" +
+            "  void:sparqlEndpoint <http://example.org/other/sparql> ;\n" +
+            "  void:triples 10 .\n" +
+            "<http://example.org/ds> a void:Dataset ;\n" +
+            "  void:sparqlEndpoint <http://example.org/sparql> ;\n" +
+            "  void:triples 1000 ;\n" +
+            "  void:distinctSubjects 100 ;\n" +
+            "  void:distinctObjects 500 ;\n" +
+            "  void:propertyPartition [\n" +
+            "    void:property foaf:knows ;\n" +
+            "    void:triples 400 ;\n" +
+            "    void:distinctSubjects 100 ;\n" +
+            "    void:distinctObjects 80\n" +
+            "  ], [\n" +
+            "    void:property foaf:name ;\n" +
+            "    void:triples 100 ;\n" +
+            "    void:distinctSubjects 100 ;\n" +
+            "    void:distinctObjects 90\n" +
+            "  ] ;\n" +
+            "  void:classPartition [\n" +
+            "    void:class foaf:Person ;\n" +
+            "    void:entities 100\n" +
+            "  ] .\n";
+
+    private ARQEndpoint rdf1;
+
+    @BeforeClass
+    public void setUp() {
+        Model model = ModelFactory.createDefaultModel();
+        RDFDataMgr.read(model, open("rdf-1.nt"), Lang.TTL);
+        rdf1 = ARQEndpoint.forModel(model, "rdf-1.nt");
+    }
+
+    private static void checkRdf1Statistics(SourceStatistics stats) {
+        assertNotNull(stats);
+        assertEquals(stats.getTriples(), 7);
+        assertEquals(stats.getPredicates().size(), 4);
+        assertEquals(stats.getPredicate(knows), new PredicateStatistics(1, 1, 1));
+        assertEquals(stats.getPredicate(type), new PredicateStatistics(2, 2, 1));
+        assertEquals(stats.getPredicate(name), new PredicateStatistics(3, 2, 3));
+        assertTrue(stats.hasClasses());
+        assertEquals(stats.getClassInstances(Person), 2);
+        assertEquals(stats.getClassInstances(Document), 0);
+    }
+
+    @Test
+    public void testQueryStatistics() {
+        StatisticsSelectDescription d = new StatisticsSelectDescription(rdf1, true);
+        assertNull(d.getStatistics());
+        d.init();
+        assertTrue(d.waitForInit(10000));
+        checkRdf1Statistics(d.getStatistics());
+
+        CQuery query = createQuery(x, knows, y, y, primaryTopic, z);
+        CQueryMatch match = d.match(query, NONE);
+        assertEquals(match.getNonExclusiveRelevant(), createQuery(x, knows, y).asList());
+        assertEquals(d.match(createQuery(x, type, Document), NONE).getNonExclusiveRelevant(),
+                     emptyList());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        File dir = Files.createTempDirectory("freqel").toFile();
+        try {
+            String uri = "http://rdf1.example.org/sparql";
+            SourceCache cache = new SourceCache(dir);
+            StatisticsSelectDescription d1 = new StatisticsSelectDescription(rdf1, true);
+            d1.saveWhenReady(cache, uri);
+            d1.init();
+            assertTrue(d1.waitForInit(10000));
+
+            StatisticsSelectDescription d2 = StatisticsSelectDescription.fromCache(rdf1, cache, uri);
+            assertNotNull(d2);
+            assertTrue(d2.waitForInit(0));
+            checkRdf1Statistics(d2.getStatistics());
+            assertEquals(d2.getStatistics(), d1.getStatistics());
+            CQuery q = createQuery(s, name, o);
+            assertEquals(d2.match(q, NONE).getNonExclusiveRelevant(), q.asList());
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test
+    public void testParseVoID() {
+        Model model = ModelFactory.createDefaultModel();
+        RDFDataMgr.read(model, new ByteArrayInputStream(VOID_TTL.getBytes(UTF_8)), Lang.TTL);
+        SourceStatistics stats = VoIDStatisticsParser.parse(model, "http://example.org/sparql");
+        assertNotNull(stats);
+        assertEquals(stats.getTriples(), 1000);
+        assertEquals(stats.getDistinctSubjects(), 100);
+        assertEquals(stats.getDistinctObjects(), 500);
+        assertEquals(stats.getPredicate(knows), new PredicateStatistics(400, 100, 80));
+        assertEquals(stats.getPredicate(name), new PredicateStatistics(100, 100, 90));
+        assertEquals(stats.getClassInstances(Person), 100);
+
+        SourceStatistics other = VoIDStatisticsParser.parse(model,
+                                                            "http://example.org/other/sparql");
+        assertNotNull(other);
+        assertEquals(other.getTriples(), 10);
+        assertFalse(other.hasClasses());
+
+        // without an endpoint, prefer the dataset with property partitions
+        assertEquals(VoIDStatisticsParser.parse(model, null), stats);
+    }
+
+    @Test
+    public void testEstimate() {
+        Model model = ModelFactory.createDefaultModel();
+        RDFDataMgr.read(model, new ByteArrayInputStream(VOID_TTL.getBytes(UTF_8)), Lang.TTL);
+        SourceStatistics stats = VoIDStatisticsParser.parse(model, "http://example.org/sparql");
+        assertNotNull(stats);
+
+        assertEquals(StatisticsCardinalityHeuristic.estimate(createQuery(x, knows, y), stats),
+                     Cardinality.guess(400));
+        assertEquals(StatisticsCardinalityHeuristic.estimate(createQuery(Alice, knows, y), stats),
+                     Cardinality.guess(4));
+        assertEquals(StatisticsCardinalityHeuristic.estimate(createQuery(x, knows, Bob), stats),
+                     Cardinality.guess(5));
+        assertEquals(StatisticsCardinalityHeuristic.estimate(createQuery(x, type, Person), stats),
+                     Cardinality.guess(100));
+        assertEquals(StatisticsCardinalityHeuristic.estimate(createQuery(x, age, y), stats),
+                     Cardinality.guess(0));
+        // Alice knows at most 4 x: 4 * 100 / max(4, 100)
+        assertEquals(StatisticsCardinalityHeuristic.estimate(
+                createQuery(Alice, knows, x, x, name, y), stats), Cardinality.guess(4));
+        // x has 100 subjects in both patterns: 400 * 100 / 100
+        assertEquals(StatisticsCardinalityHeuristic.estimate(
+                createQuery(x, knows, y, x, name, z), stats), Cardinality.guess(400));
+    }
+
+    @Test
+    public void testHeuristicRequiresStatisticsDescription() {
+        StatisticsCardinalityHeuristic heuristic = new StatisticsCardinalityHeuristic();
+        CQuery query = createQuery(x, knows, y);
+        assertEquals(heuristic.estimate(query, (TPEndpoint) null), Cardinality.UNSUPPORTED);
+        assertEquals(heuristic.estimate(query, rdf1), Cardinality.UNSUPPORTED);
+
+        ARQEndpoint ep = ARQEndpoint.forModel(ModelFactory.createDefaultModel());
+        StatisticsSelectDescription d = new StatisticsSelectDescription(ep, true);
+        ep.setDescription(d);
+        assertEquals(heuristic.estimate(query, ep), Cardinality.UNSUPPORTED); // not ready
+        d.init();
+        assertTrue(d.waitForInit(10000));
+        assertEquals(heuristic.estimate(query, ep), Cardinality.UNSUPPORTED); // no predicates
+    }
+}
@@ -0,0 +1,103 @@
+package br.ufsc.lapesd.freqel.federation.decomp.match;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.description.SelectDescription;
+import br.ufsc.lapesd.freqel.jena.query.ARQEndpoint;
+import br.ufsc.lapesd.freqel.util.Bitset;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Test(groups = {"fast"})
+public class SourcesIndexTest implements TestContext {
+    private static final String PREFIXES = "@prefix foaf: <http://xmlns.com/foaf/0.1/> .\n" +
+            "@prefix ex: <http://example.org/> .\n";
+
+    private static @Nonnull ARQEndpoint createEndpoint(@Nonnull String ttl) {
+        Model model = ModelFactory.createDefaultModel();
+        byte[] bytes = (PREFIXES + ttl).getBytes(UTF_8);
+        RDFDataMgr.read(model, new ByteArrayInputStream(bytes), Lang.TTL);
+        return ARQEndpoint.forModel(model);
+    }
+
+    private static @Nonnull SelectDescription describe(@Nonnull ARQEndpoint ep,
+                                                       boolean fetchClasses, boolean init) {
+        SelectDescription description = new SelectDescription(ep, fetchClasses);
+        ep.setDescription(description);
+        if (init) {
+            description.init();
+            assertTrue(description.waitForInit(10000));
+        }
+        return description;
+    }
+
+    private static @Nonnull List<Integer> toList(@Nonnull Bitset bitset) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = bitset.nextSetBit(0); i >= 0; i = bitset.nextSetBit(i+1))
+            list.add(i);
+        return list;
+    }
+
+    @Test
+    public void testCandidates() {
+        ARQEndpoint people = createEndpoint("ex:Alice foaf:knows ex:Bob ; a foaf:Person .");
+        ARQEndpoint docs = createEndpoint("ex:doc a foaf:Document ; foaf:primaryTopic ex:Alice .");
+        ARQEndpoint ask = createEndpoint("ex:Alice foaf:age 23 .");
+        ARQEndpoint noClasses = createEndpoint("ex:Bob foaf:name \"bob\" ; a foaf:Agent .");
+        describe(people, true, true);
+        describe(docs, true, true);
+        describe(noClasses, false, true);
+
+        SourcesIndex index = new SourcesIndex();
+        assertEquals(index.add(people), 0);
+        assertEquals(index.add(docs), 1);
+        assertEquals(index.add(ask), 2);
+        assertEquals(index.add(noClasses), 3);
+        assertEquals(index.size(), 4);
+
+        assertEquals(toList(index.getCandidates(createQuery(x, knows, y))), asList(0, 2));
+        assertEquals(toList(index.getCandidates(createQuery(x, age, y))), asList(2));
+        assertEquals(toList(index.getCandidates(createQuery(x, name, y))), asList(2, 3));
+        assertEquals(toList(index.getCandidates(createQuery(x, knows, y, y, name, z))),
+                     asList(0, 2, 3));
+        assertEquals(toList(index.getCandidates(createQuery(x, p, y))), asList(0, 1, 2, 3));
+
+        // rdf:type uses classes when known, else the rdf:type predicate
+        assertEquals(toList(index.getCandidates(createQuery(x, type, Person))), asList(0, 2, 3));
+        assertEquals(toList(index.getCandidates(createQuery(x, type, Document))),
+                     asList(1, 2, 3));
+        assertEquals(toList(index.getCandidates(createQuery(x, type, y))), asList(0, 1, 2, 3));
+    }
+
+    @Test
+    public void testUpdateOnInit() {
+        ARQEndpoint people = createEndpoint("ex:Alice foaf:knows ex:Bob .");
+        ARQEndpoint docs = createEndpoint("ex:doc foaf:primaryTopic ex:Alice .");
+        describe(people, false, true);
+        SelectDescription docsDescription = describe(docs, false, false);
+
+        SourcesIndex index = new SourcesIndex();
+        index.add(people);
+        index.add(docs);
+        // docs predicates are not yet known
+        assertEquals(toList(index.getCandidates(createQuery(x, knows, y))), asList(0, 1));
+
+        docsDescription.init();
+        assertTrue(docsDescription.waitForInit(10000));
+        assertEquals(toList(index.getCandidates(createQuery(x, knows, y))), asList(0));
+        assertEquals(toList(index.getCandidates(createQuery(x, primaryTopic, y))), asList(1));
+    }
+}
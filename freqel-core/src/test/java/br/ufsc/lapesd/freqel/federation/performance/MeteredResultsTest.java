@@ -0,0 +1,127 @@
+package br.ufsc.lapesd.freqel.federation.performance;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.impl.CollectionResults;
+import br.ufsc.lapesd.freqel.query.results.impl.IteratorResults;
+import br.ufsc.lapesd.freqel.query.results.impl.MapSolution;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static br.ufsc.lapesd.freqel.federation.performance.FederationMetrics.*;
+import static java.util.Collections.singleton;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class MeteredResultsTest implements TestContext {
+    private long queries, firstResults, errors;
+
+    @BeforeMethod
+    public void setUp() {
+        queries = QUERY_LATENCY.getCount();
+        firstResults = FIRST_RESULT_LATENCY.getCount();
+        errors = QUERY_ERRORS.sum();
+    }
+
+    private void assertRecorded(int queries, int firstResults, int errors) {
+        assertEquals(QUERY_LATENCY.getCount(), this.queries + queries);
+        assertEquals(FIRST_RESULT_LATENCY.getCount(), this.firstResults + firstResults);
+        assertEquals(QUERY_ERRORS.sum(), this.errors + errors);
+    }
+
+    private @Nonnull Results values(int count) {
+        List<Solution> list = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            list.add(MapSolution.build(x, lit(i)));
+        return new CollectionResults(list, singleton("x"));
+    }
+
+    private @Nonnull Results failing() {
+        return new IteratorResults(new Iterator<Solution>() {
+            private boolean first = true;
+
+            @Override public boolean hasNext() {
+                if (first)
+                    return true;
+                throw new RuntimeException("failed fetching solutions");
+            }
+
+            @Override public Solution next() {
+                first = false;
+                return MapSolution.build(x, lit(0));
+            }
+        }, singleton("x"));
+    }
+
+    @Test
+    public void testExhaustWithHasNext() throws InterruptedException {
+        long start = System.nanoTime();
+        Thread.sleep(2);
+        try (Results results = new MeteredResults(values(3), start)) {
+            assertTrue(results.hasNext());
+            assertRecorded(0, 0, 0);
+            results.next();
+            assertRecorded(0, 1, 0);
+            results.next();
+            results.next();
+            assertRecorded(0, 1, 0);
+            assertFalse(results.hasNext());
+            assertRecorded(1, 1, 0);
+            assertFalse(results.hasNext());
+        }
+        assertRecorded(1, 1, 0); // close() does not record again
+        assertTrue(QUERY_LATENCY.getSum() >= 2000);
+    }
+
+    @Test
+    public void testExhaustWithNextBatch() {
+        Solution[] batch = new Solution[2];
+        try (Results results = new MeteredResults(values(3), System.nanoTime())) {
+            assertEquals(results.nextBatch(batch, 2), 2);
+            assertRecorded(0, 1, 0);
+            assertEquals(results.nextBatch(batch, 2), 1);
+            assertRecorded(0, 1, 0);
+            assertEquals(results.nextBatch(batch, 0), 0); // not an end
+            assertRecorded(0, 1, 0);
+            assertEquals(results.nextBatch(batch, 2), 0);
+            assertRecorded(1, 1, 0);
+        }
+        assertRecorded(1, 1, 0);
+    }
+
+    @Test
+    public void testEmpty() {
+        try (Results results = new MeteredResults(values(0), System.nanoTime())) {
+            assertFalse(results.hasNext());
+        }
+        assertRecorded(1, 0, 0);
+    }
+
+    @Test
+    public void testCloseBeforeExhausted() {
+        Results results = new MeteredResults(values(3), System.nanoTime());
+        assertTrue(results.hasNext());
+        results.next();
+        results.close();
+        assertRecorded(1, 1, 0);
+        results.close();
+        assertRecorded(1, 1, 0);
+    }
+
+    @Test
+    public void testFailure() {
+        try (Results results = new MeteredResults(failing(), System.nanoTime())) {
+            assertTrue(results.hasNext());
+            results.next();
+            expectThrows(RuntimeException.class, results::hasNext);
+            assertRecorded(1, 1, 1);
+        }
+        assertRecorded(1, 1, 1);
+    }
+}
@@ -239,6 +239,59 @@ public class SPARQLStringTest implements TestContext {
         assertExpectedResults(ARQEndpoint.forModel(rdf2).query(query), expected);
     }
 
+    @Test
+    public void testAggregation() throws IOException {
+        Aggregation aggregation = Aggregation.of(singleton("u"),
+                Aggregation.Aggregate.countAll("c"),
+                Aggregation.Aggregate.of(Aggregation.Function.MIN, "x", "m"));
+        CQuery query = createQuery(x, age, u, aggregation);
+        SPARQLString ss = SPARQLString.create(query);
+        assertEquals(ss.getVarNames(), Sets.newHashSet("u", "c", "m"));
+        String sparql = ss.getSparql();
+        assertTrue(Pattern.compile("SELECT +\\?u +\\(COUNT\\(\\*\\) AS \\?c\\) " +
+                                   "+\\(MIN\\(\\?x\\) AS \\?m\\) +WHERE").matcher(sparql).find());
+        assertTrue(sparql.endsWith("} GROUP BY ?u"));
+
+        Set<Solution> expected = Sets.newHashSet(
+                MapSolution.builder().put(u, lit(23)).put("c", integer(2))
+                                     .put("m", Alice).build(),
+                MapSolution.builder().put(u, lit(25)).put("c", integer(1))
+                                     .put("m", Dave).build());
+        Model rdf2 = getRdf2();
+        Set<Solution> actual = new HashSet<>();
+        try (QueryExecution ex = QueryExecutionFactory.create(sparql, rdf2)) {
+            ResultSet set = ex.execSelect();
+            while (set.hasNext())
+                actual.add(new JenaSolution(set.next()));
+        }
+        assertEquals(actual, expected);
+
+        // should also work through ARQEndpoint
+        assertExpectedResults(ARQEndpoint.forModel(rdf2).query(query), expected);
+    }
+
+    @Test
+    public void testAggregationWithProjectionAndLimit() {
+        Aggregation aggregation = Aggregation.of(singleton("x"),
+                new Aggregation.Aggregate(Aggregation.Function.COUNT, "y", "c", true));
+        CQuery query = createQuery(x, knows, y, aggregation, Projection.of("c"), Limit.of(5));
+        String sparql = SPARQLString.create(query).getSparql();
+        assertTrue(Pattern.compile("SELECT +\\(COUNT\\(DISTINCT \\?y\\) AS \\?c\\) +WHERE")
+                          .matcher(sparql).find());
+        assertTrue(sparql.endsWith("} GROUP BY ?x LIMIT 5"));
+        QueryFactory.create(sparql); //throws if invalid syntax
+    }
+
+    @Test
+    public void testAskIgnoresAggregation() {
+        Aggregation aggregation = Aggregation.of(singleton("x"),
+                                                 Aggregation.Aggregate.countAll("c"));
+        CQuery query = createQuery(x, knows, y, Ask.INSTANCE, aggregation);
+        String sparql = SPARQLString.create(query).getSparql();
+        assertTrue(Pattern.compile("ASK +\\{").matcher(sparql).find());
+        assertFalse(sparql.contains("GROUP BY"));
+    }
+
     @DataProvider
     public static Object[][] reParseData() {
         String prolog = "PREFIX ex: <"+ EX +">\n" +
@@ -0,0 +1,87 @@
+package br.ufsc.lapesd.freqel.reason.tbox;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.model.term.std.StdURI;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.vocabulary.RDFS;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class TransitiveHierarchyIndexTest implements TestContext {
+    private static final @Nonnull String EX = "http://example.org/";
+    private static final @Nonnull Term A = new StdURI(EX+"A"), B = new StdURI(EX+"B"),
+            C = new StdURI(EX+"C"), D = new StdURI(EX+"D"), E = new StdURI(EX+"E"),
+            X = new StdURI(EX+"X");
+
+    private static @Nonnull TransitiveHierarchyIndex build(@Nonnull String ttl) {
+        Model model = ModelFactory.createDefaultModel();
+        byte[] bytes = ("@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n" +
+                        "@prefix ex: <"+EX+"> .\n" + ttl).getBytes(UTF_8);
+        RDFDataMgr.read(model, new ByteArrayInputStream(bytes), Lang.TTL);
+        return TransitiveHierarchyIndex.build(model, RDFS.subClassOf.asNode());
+    }
+
+    private static @Nonnull Set<Term> descendants(@Nonnull TransitiveHierarchyIndex index,
+                                                  @Nonnull Term term, boolean strict) {
+        return index.descendants(term, strict).collect(toSet());
+    }
+
+    @Test
+    public void testChain() {
+        TransitiveHierarchyIndex index = build("ex:D rdfs:subClassOf ex:C .\n" +
+                                               "ex:C rdfs:subClassOf ex:B .\n" +
+                                               "ex:B rdfs:subClassOf ex:A .\n" +
+                                               "ex:E rdfs:subClassOf ex:B .\n");
+        assertEquals(index.size(), 5);
+
+        assertTrue(index.isDescendant(D, A));
+        assertTrue(index.isDescendant(E, A));
+        assertTrue(index.isDescendant(C, C));
+        assertTrue(index.isDescendant(X, X));
+        assertFalse(index.isDescendant(A, D));
+        assertFalse(index.isDescendant(E, C));
+        assertFalse(index.isDescendant(X, A));
+
+        assertEquals(descendants(index, A, true), newHashSet(B, C, D, E));
+        assertEquals(descendants(index, B, true), newHashSet(C, D, E));
+        assertEquals(descendants(index, D, true), newHashSet());
+        assertEquals(descendants(index, X, true), newHashSet());
+        assertEquals(descendants(index, X, false), newHashSet(X));
+        assertEquals(index.getDescendants(C).length, 1);
+
+        List<Term> withC = index.descendants(C, false).collect(toList());
+        assertEquals(withC.get(0), C);
+        assertEquals(newHashSet(withC), newHashSet(C, D));
+    }
+
+    @Test
+    public void testCycle() {
+        TransitiveHierarchyIndex index = build("ex:A rdfs:subClassOf ex:B .\n" +
+                                               "ex:B rdfs:subClassOf ex:C .\n" +
+                                               "ex:C rdfs:subClassOf ex:A .\n" +
+                                               "ex:D rdfs:subClassOf ex:C .\n");
+        assertTrue(index.isDescendant(A, C));
+        assertTrue(index.isDescendant(C, A));
+        assertTrue(index.isDescendant(D, B));
+        assertFalse(index.isDescendant(B, D));
+
+        assertEquals(descendants(index, A, true), newHashSet(B, C, D));
+        assertEquals(descendants(index, D, true), newHashSet());
+        assertEquals(descendants(index, B, false), newHashSet(A, B, C, D));
+    }
+}
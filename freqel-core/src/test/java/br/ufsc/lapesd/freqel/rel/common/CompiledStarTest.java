@@ -0,0 +1,104 @@
+package br.ufsc.lapesd.freqel.rel.common;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.model.Triple;
+import br.ufsc.lapesd.freqel.model.term.Lit;
+import br.ufsc.lapesd.freqel.model.term.std.StdLit;
+import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilter;
+import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilterFactory;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.impl.MapSolution;
+import br.ufsc.lapesd.freqel.rel.mappings.RowConverter;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.testng.Assert.assertEquals;
+
+@Test(groups = {"fast"})
+public class CompiledStarTest implements TestContext {
+    private static final @Nonnull Lit i23 = StdLit.fromUnescaped("23", xsdInt);
+
+    private static @Nonnull RowConverter converter(@Nonnull Triple... triples) {
+        return (values, out) -> {
+            out.addAll(asList(triples));
+            return triples.length;
+        };
+    }
+
+    private static @Nonnull List<Solution> evaluate(@Nonnull RowConverter converter,
+                                                    @Nonnull Collection<Triple> patterns,
+                                                    @Nonnull Collection<SPARQLFilter> filters,
+                                                    @Nonnull List<String> projection,
+                                                    boolean distinct) {
+        CompiledStar star = new CompiledStar(converter, patterns, filters,
+                                             SPARQLFilterFactory.createExecutor(),
+                                             projection, distinct);
+        assertEquals(star.getVarNames(), projection);
+        List<Solution> list = new ArrayList<>();
+        star.evaluate(emptyList(), list);
+        return list;
+    }
+
+    public void testJoinPatterns() {
+        RowConverter converter = converter(new Triple(Alice, age, i23),
+                                           new Triple(Alice, knows, Bob),
+                                           new Triple(Alice, knows, Charlie));
+        List<Solution> actual = evaluate(converter,
+                asList(new Triple(x, age, u), new Triple(x, knows, y)),
+                emptyList(), asList("x", "u", "y"), false);
+        assertEquals(actual, asList(
+                MapSolution.builder().put(x, Alice).put(u, i23).put(y, Bob).build(),
+                MapSolution.builder().put(x, Alice).put(u, i23).put(y, Charlie).build()));
+    }
+
+    public void testGroundMismatch() {
+        RowConverter converter = converter(new Triple(Alice, age, i23));
+        assertEquals(evaluate(converter, singletonList(new Triple(x, age, lit(22))),
+                              emptyList(), singletonList("x"), false),
+                     emptyList());
+        assertEquals(evaluate(converter, singletonList(new Triple(x, knows, y)),
+                              emptyList(), asList("x", "y"), false),
+                     emptyList());
+    }
+
+    public void testLiteralsComparedByValue() {
+        RowConverter converter = converter(new Triple(Alice, age,
+                                                      StdLit.fromUnescaped("023", xsdInt)));
+        for (Lit lit : asList(i23, StdLit.fromUnescaped("23", xsdInteger))) {
+            List<Solution> actual = evaluate(converter,
+                    singletonList(new Triple(x, age, lit)),
+                    emptyList(), singletonList("x"), false);
+            assertEquals(actual, singletonList(MapSolution.build(x, Alice)), "lit="+lit);
+        }
+    }
+
+    public void testFilters() {
+        RowConverter converter = converter(new Triple(Alice, age, i23));
+        List<Triple> patterns = singletonList(new Triple(x, age, u));
+        assertEquals(evaluate(converter, patterns,
+                              singletonList(SPARQLFilterFactory.parseFilter("?u > 22")),
+                              asList("x", "u"), false),
+                     singletonList(MapSolution.builder().put(x, Alice).put(u, i23).build()));
+        assertEquals(evaluate(converter, patterns,
+                              singletonList(SPARQLFilterFactory.parseFilter("?u > 23")),
+                              asList("x", "u"), false),
+                     emptyList());
+    }
+
+    public void testDistinct() {
+        RowConverter converter = converter(new Triple(Alice, knows, Bob),
+                                           new Triple(Alice, knows, Charlie));
+        List<Triple> patterns = singletonList(new Triple(x, knows, y));
+        assertEquals(evaluate(converter, patterns, emptyList(), singletonList("x"), false),
+                     asList(MapSolution.build(x, Alice), MapSolution.build(x, Alice)));
+        assertEquals(evaluate(converter, patterns, emptyList(), singletonList("x"), true),
+                     singletonList(MapSolution.build(x, Alice)));
+    }
+}
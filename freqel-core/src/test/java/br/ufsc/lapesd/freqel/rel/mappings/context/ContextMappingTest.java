@@ -4,17 +4,22 @@ import br.ufsc.lapesd.freqel.TestContext;
 import br.ufsc.lapesd.freqel.description.molecules.Molecule;
 import br.ufsc.lapesd.freqel.description.molecules.tags.ValueTag;
 import br.ufsc.lapesd.freqel.jena.JenaWrappers;
+import br.ufsc.lapesd.freqel.model.Triple;
 import br.ufsc.lapesd.freqel.model.term.Term;
 import br.ufsc.lapesd.freqel.model.term.std.StdPlain;
+import br.ufsc.lapesd.freqel.model.term.std.StdURI;
 import br.ufsc.lapesd.freqel.rel.mappings.Column;
+import br.ufsc.lapesd.freqel.rel.mappings.RowConverter;
 import br.ufsc.lapesd.freqel.rel.mappings.tags.ColumnsTag;
 import br.ufsc.lapesd.freqel.rel.mappings.tags.PostRelationalTag;
 import br.ufsc.lapesd.freqel.rel.mappings.tags.TableTag;
 import br.ufsc.lapesd.freqel.util.DictTree;
 import org.apache.jena.rdf.model.Model;
 import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.vocabulary.OWL2;
 import org.apache.jena.vocabulary.RDF;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -377,5 +382,31 @@ public class ContextMappingTest implements TestContext {
         assertTrue(actual.isIsomorphicWith(expected));
         if (!nameFor.isBlank())
             assertTrue(actual.containsResource(JenaWrappers.toJena(nameFor)));
+
+        ContextMapping.resetNextIdForTesting();
+        actual.removeAll();
+        List<Triple> triples = new ArrayList<>();
+        RowConverter converter = mapping.compile(colObjects);
+        assertEquals(converter.convert(values, triples), triples.size());
+        Map<Term, Resource> subjects = new HashMap<>(); // toJena(Blank) is not stable
+        for (Triple triple : triples) {
+            actual.add(subjects.computeIfAbsent(triple.getSubject(),
+                                                t -> JenaWrappers.toJena(t).asResource()),
+                       JenaWrappers.toJenaProperty(triple.getPredicate()),
+                       JenaWrappers.toJena(triple.getObject()));
+        }
+        assertTrue(actual.isIsomorphicWith(expected));
+    }
+
+    @Test
+    public void testCompileCountsPlaceholderType() throws Exception {
+        ContextMapping mapping = parse("{\"@tableName\": \"T\"}");
+        RowConverter converter = mapping.compile(singletonList(new Column("T", "name")));
+        List<Triple> triples = new ArrayList<>();
+        // a record with no values is still typed as owl:Thing, which must be counted
+        assertEquals(converter.convert(singletonList(null), triples), 1);
+        assertEquals(triples.size(), 1);
+        assertEquals(triples.get(0).getPredicate(), type);
+        assertEquals(triples.get(0).getObject(), new StdURI(OWL2.Thing.getURI()));
     }
-}
\ No newline at end of file
+}
@@ -6,7 +6,13 @@ import br.ufsc.lapesd.freqel.federation.spec.source.SourceLoader;
 import br.ufsc.lapesd.freqel.hdt.query.HDTEndpoint;
 import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
 import br.ufsc.lapesd.freqel.util.DictTree;
+import com.github.lapesd.rdfit.RIt;
+import com.github.lapesd.rdfit.components.hdt.HDTHelpers;
+import com.google.common.base.Stopwatch;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import org.apache.commons.io.IOUtils;
+import org.rdfhdt.hdt.triples.TripleString;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,19 +21,25 @@ import javax.annotation.Nullable;
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
-import java.util.Collections;
-import java.util.Set;
+import java.util.*;
 import java.util.regex.Pattern;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
 public class HDTSourceLoader implements SourceLoader {
     private static final @Nonnull Logger logger = LoggerFactory.getLogger(HDTSourceLoader.class);
     private static final @Nonnull Set<String> NAMES = Collections.singleton("hdt");
     private static final @Nonnull Pattern URI_RX = Pattern.compile("^[^:]+:");
+    private static final @Nonnull byte[] HDT_COOKIE = "$HDT".getBytes(UTF_8);
     private @Nonnull File tempDir = new File(System.getProperty("java.io.tmpdir"));
     private @Nullable SourceCache sourceCache;
 
-
     @Override public @Nonnull Set<String> names() {
         return NAMES;
     }
@@ -46,10 +58,27 @@ public class HDTSourceLoader implements SourceLoader {
         return Files.createTempFile(tempDir.toPath(), "freqel", ".hdt").toFile();
     }
 
+    /**
+     * Loads an HDT source or converts RDF files into a memory-mapped HDT source.
+     *
+     * If the spec has a <code>files</code>, <code>url</code> or <code>urls</code> key or if
+     * its <code>file</code> is not an HDT file, all those sources are converted into a single
+     * HDT file. When a {@link SourceCache} is set, that HDT file is kept there and is reused
+     * by later loads of the same sources (local files are identified by path, size and
+     * modification time, so modifying them triggers a new conversion). This is also used
+     * by <code>loader: rdf-file</code> specs with <code>hdt: true</code>.
+     */
     @Override
     public @Nonnull Set<TPEndpoint> load(@Nonnull DictTree spec,
                                          @Nonnull File referenceDir) throws SourceLoadException {
-        File file = getFile(spec, referenceDir);
+        File file = null;
+        if (!spec.containsKey("files") && !spec.containsKey("url") && !spec.containsKey("urls")) {
+            file = getFile(spec, referenceDir);
+            if (!isHDT(file) && spec.getString("file") == null)
+                throw new SourceLoadException(file+" is not an HDT file", spec);
+        }
+        if (file == null || !isHDT(file))
+            file = convert(spec, getRDFSources(spec, referenceDir));
         try {
             return Collections.singleton(HDTEndpoint.fromFile(file));
         } catch (IOException e) {
@@ -57,6 +86,79 @@ public class HDTSourceLoader implements SourceLoader {
         }
     }
 
+    private static boolean isHDT(@Nonnull File file) {
+        if (!file.isFile())
+            return false;
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] cookie = new byte[4];
+            return in.read(cookie) == 4 && Arrays.equals(cookie, HDT_COOKIE);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private @Nonnull List<String> getRDFSources(@Nonnull DictTree spec,
+                                                @Nonnull File reference) {
+        List<String> sources = new ArrayList<>();
+        for (String key : asList("file", "files", "url", "urls")) {
+            for (Object source : spec.getListNN(key)) {
+                String src = source.toString();
+                if (!URI_RX.matcher(src).find() && !new File(src).isAbsolute())
+                    src = new File(reference, src).getAbsolutePath();
+                sources.add(src);
+            }
+        }
+        return sources;
+    }
+
+    private static @Nonnull String getCacheId(@Nonnull List<String> sources) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (String src : sources) {
+            hasher.putString(src, UTF_8);
+            File file = new File(src);
+            if (!URI_RX.matcher(src).find() && file.exists())
+                hasher.putLong(file.length()).putLong(file.lastModified());
+        }
+        return "rdf2hdt-" + hasher.hash().toString();
+    }
+
+    private @Nonnull File convert(@Nonnull DictTree spec,
+                                  @Nonnull List<String> sources) throws SourceLoadException {
+        if (sources.isEmpty())
+            throw new SourceLoadException("No file/files/url/urls entry!", spec);
+        String id = getCacheId(sources);
+        File file = null, tmp = null;
+        try {
+            if (sourceCache != null) {
+                File cached = sourceCache.getFile("hdt", id);
+                if (cached != null && isHDT(cached)) {
+                    logger.info("Reusing HDT conversion of {} at {}", sources, cached);
+                    return cached;
+                }
+                file = sourceCache.createFile("hdt", "hdt", id);
+            } else {
+                file = createTempFile();
+                file.deleteOnExit();
+            }
+            tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+            Stopwatch sw = Stopwatch.createStarted();
+            HDTHelpers.toHDTFile(tmp, RIt.iterateTriples(TripleString.class, sources));
+            try {
+                Files.move(tmp.toPath(), file.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), REPLACE_EXISTING);
+            }
+            logger.info("Converted {} into HDT at {} in {}s", sources, file,
+                        sw.elapsed(MILLISECONDS)/1000.0);
+            return file;
+        } catch (IOException|RuntimeException e) {
+            if (tmp != null && tmp.exists() && !tmp.delete())
+                logger.error("Failed to delete temp file {}", tmp);
+            throw new SourceLoadException("Problem converting "+sources+" to HDT at "+file+
+                                          ": "+e.getMessage(), e, spec);
+        }
+    }
+
     private @Nonnull File getFile(DictTree s, @Nonnull File reference) throws SourceLoadException {
         String path = s.getString("file");
         if (path != null)
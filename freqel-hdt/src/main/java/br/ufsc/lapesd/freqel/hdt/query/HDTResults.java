@@ -100,5 +100,14 @@ public class HDTResults extends AbstractResults implements Results {
         return next;
     }
 
+    @Override public int nextBatch(@Nonnull Solution[] buffer, int max) {
+        int end = Math.min(max, buffer.length), n = 0;
+        while (n < end && hasNext()) {
+            buffer[n++] = next;
+            next = null;
+        }
+        return n;
+    }
+
     @Override public void close() {/* nothing */}
 }
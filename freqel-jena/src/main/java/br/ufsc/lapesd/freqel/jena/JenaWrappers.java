@@ -184,6 +184,8 @@ public class JenaWrappers {
         else if (term.isVar()) return toJenaNode(term.asVar());
         else if (term.isURI()) return toJenaNode(term.asURI());
         else if (term.isLiteral()) return toJenaNode(term.asLiteral());
+        else if (term.isBlank())
+            return NodeFactory.createBlankNode(term.asBlank().getId().toString());
 
         String msg = "Cannot convert Term of class " + term.getClass() + " to Jena";
         throw new UnsupportedOperationException(msg);
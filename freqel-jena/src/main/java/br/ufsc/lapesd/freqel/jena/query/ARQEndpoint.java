@@ -23,8 +23,12 @@ import org.apache.http.client.HttpClient;
 import org.apache.http.protocol.HttpContext;
 import org.apache.jena.query.*;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.sparql.algebra.Algebra;
+import org.apache.jena.sparql.core.DatasetGraph;
+import org.apache.jena.sparql.core.DatasetGraphFactory;
 import org.apache.jena.sparql.core.Transactional;
 import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.QueryIterator;
 import org.apache.jena.system.Txn;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -58,6 +62,8 @@ public class ARQEndpoint extends AbstractTPEndpoint implements DQEndpoint {
     private final @Nullable Transactional transactional;
     @SuppressWarnings("Immutable")
     private final @Nonnull Runnable closer;
+    @SuppressWarnings("Immutable")
+    private final @Nullable DatasetGraph localGraph;
     private final @Nullable String name;
     private final boolean local;
 
@@ -65,11 +71,27 @@ public class ARQEndpoint extends AbstractTPEndpoint implements DQEndpoint {
                           @Nonnull Function<Query, QueryExecution> executionFactory,
                           @Nullable Transactional transactional,
                           @Nonnull Runnable closer, boolean local) {
+        this(name, executionFactory, transactional, closer, local, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param localGraph if non-null, {@link #query(CQuery)} will evaluate queries by compiling
+     *                   them into ARQ algebra and evaluating over this {@link DatasetGraph},
+     *                   skipping SPARQL generation and parsing.
+     */
+    protected ARQEndpoint(@Nullable String name,
+                          @Nonnull Function<Query, QueryExecution> executionFactory,
+                          @Nullable Transactional transactional,
+                          @Nonnull Runnable closer, boolean local,
+                          @Nullable DatasetGraph localGraph) {
         this.executionFactory = executionFactory;
         this.name = name;
         this.transactional = transactional;
         this.closer = closer;
         this.local = local;
+        this.localGraph = localGraph;
     }
 
     public @Nullable String getName() {
@@ -95,15 +117,15 @@ public class ARQEndpoint extends AbstractTPEndpoint implements DQEndpoint {
     }
     public static ARQEndpoint forModel(@Nonnull Model model, @Nonnull String name) {
         return new ARQEndpoint(name, sparql -> create(sparql, model), null,
-                               () -> {}, true);
+                               () -> {}, true, DatasetGraphFactory.wrap(model.getGraph()));
     }
     public static ARQEndpoint forDataset(@Nonnull Dataset ds) {
         return new ARQEndpoint(ds.toString(), sparql -> create(sparql, ds), ds,
-                               () -> {}, true);
+                               () -> {}, true, ds.asDatasetGraph());
     }
     public static ARQEndpoint forCloseableDataset(@Nonnull Dataset ds) {
         return new ARQEndpoint(ds.toString(), sparql -> create(sparql, ds),
-                               ds, ds::close, true);
+                               ds, ds::close, true, ds.asDatasetGraph());
     }
 
     public static ARQEndpoint forService(@Nonnull String uri) {
@@ -143,6 +165,7 @@ public class ARQEndpoint extends AbstractTPEndpoint implements DQEndpoint {
             case VALUES:
             case OPTIONAL:
             case ASK:
+            case AGGREGATION:
                 return true;
             default:
                 return false;
@@ -190,6 +213,14 @@ public class ARQEndpoint extends AbstractTPEndpoint implements DQEndpoint {
     @Override
     public @Nonnull Results query(@Nonnull CQuery query) throws QueryExecutionException {
         ModifierUtils.check(this, query.getModifiers());
+        if (localGraph != null) {
+            JenaAlgebraCompiler.Compiled compiled = JenaAlgebraCompiler.compile(query);
+            if (compiled != null) {
+                Results r = doTransactional(() -> doAlgebraQuery(compiled, localGraph));
+                r.setOptional(query.getModifiers().optional() != null);
+                return r;
+            }
+        }
         SPARQLString ss = SPARQLString.create(query);
         Query jenaQuery = parseSparql(ss.getSparql());
         Results r = doTransactional(() -> doQuery(jenaQuery, ss.isAsk(), ss.getVarNames()));
@@ -270,6 +301,33 @@ public class ARQEndpoint extends AbstractTPEndpoint implements DQEndpoint {
         }
     }
 
+    private @Nonnull Results doAlgebraQuery(@Nonnull JenaAlgebraCompiler.Compiled compiled,
+                                            @Nonnull DatasetGraph graph) {
+        Stopwatch sw = Stopwatch.createStarted();
+        QueryIterator it = null;
+        try {
+            it = Algebra.exec(compiled.getOp(), graph);
+            if (compiled.isAsk()) {
+                boolean ans = it.hasNext();
+                it.close();
+                Set<Solution> solutions = ans ? singleton(MapSolution.EMPTY) : emptySet();
+                if (logger.isDebugEnabled())
+                    LogUtils.logQuery(logger, compiled.toString(), this, solutions.size(), sw);
+                return new CollectionResults(solutions, emptySet());
+            }
+            if (logger.isDebugEnabled())
+                LogUtils.logQuery(logger, compiled.toString(), this, -1, sw);
+            return JenaBindingResults.fromIterator(it, compiled.getVarNames(),
+                                                   compiled.isDistinct());
+        } catch (Throwable t) {
+            if (it != null)
+                it.close();
+            String msg = format("Failed to evaluate algebra. Reason: %s. Op: \"\"\"%s\"\"\"",
+                                t.getMessage(), compiled);
+            throw new QueryExecutionException(msg, t);
+        }
+    }
+
     private @Nonnull QueryExecution createExecution(@Nonnull String string) {
         Query query = QueryFactory.create(string);
         return executionFactory.apply(query);
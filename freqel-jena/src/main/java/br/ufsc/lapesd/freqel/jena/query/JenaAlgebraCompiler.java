@@ -0,0 +1,178 @@
+package br.ufsc.lapesd.freqel.jena.query;
+
+import br.ufsc.lapesd.freqel.jena.JenaWrappers;
+import br.ufsc.lapesd.freqel.jena.query.modifiers.filter.JenaSPARQLFilter;
+import br.ufsc.lapesd.freqel.model.SPARQLString;
+import br.ufsc.lapesd.freqel.model.Triple;
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.modifiers.ModifiersSet;
+import br.ufsc.lapesd.freqel.query.modifiers.Projection;
+import br.ufsc.lapesd.freqel.query.modifiers.ValuesModifier;
+import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilter;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import org.apache.jena.graph.Node;
+import org.apache.jena.sparql.algebra.Op;
+import org.apache.jena.sparql.algebra.Table;
+import org.apache.jena.sparql.algebra.TableFactory;
+import org.apache.jena.sparql.algebra.op.*;
+import org.apache.jena.sparql.core.BasicPattern;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.engine.binding.BindingFactory;
+import org.apache.jena.sparql.engine.binding.BindingMap;
+import org.apache.jena.sparql.expr.ExprList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiles a {@link CQuery} directly into ARQ algebra.
+ *
+ * The resulting {@link Op} is equivalent to parsing the output of
+ * {@link SPARQLString#create(CQuery)}, but does not write nor parse any SPARQL. Queries that
+ * cannot be compiled (e.g., with aggregations) yield null, and should go through SPARQL.
+ */
+public class JenaAlgebraCompiler {
+    private static final Logger logger = LoggerFactory.getLogger(JenaAlgebraCompiler.class);
+
+    public static class Compiled {
+        private final @Nonnull Op op;
+        private final boolean ask, distinct;
+        private final @Nonnull Set<String> varNames;
+
+        public Compiled(@Nonnull Op op, boolean ask, boolean distinct,
+                        @Nonnull Set<String> varNames) {
+            this.op = op;
+            this.ask = ask;
+            this.distinct = distinct;
+            this.varNames = varNames;
+        }
+
+        public @Nonnull Op getOp() {
+            return op;
+        }
+        public boolean isAsk() {
+            return ask;
+        }
+        public boolean isDistinct() {
+            return distinct;
+        }
+        public @Nonnull Set<String> getVarNames() {
+            return varNames;
+        }
+
+        @Override public @Nonnull String toString() {
+            return op.toString();
+        }
+    }
+
+    private final @Nonnull Map<String, Var> blankVars = new HashMap<>();
+    private int nextAnonBlank = 0;
+
+    private JenaAlgebraCompiler() { }
+
+    /**
+     * Compile the query.
+     *
+     * @return the compiled query or null if it cannot be represented in ARQ algebra
+     *         without SPARQL parsing.
+     */
+    public static @Nullable Compiled compile(@Nonnull CQuery query) {
+        ModifiersSet modifiers = query.getModifiers();
+        if (modifiers.aggregation() != null)
+            return null;
+        try {
+            return new JenaAlgebraCompiler().doCompile(query, modifiers);
+        } catch (RuntimeException e) {
+            logger.debug("Cannot compile {} into ARQ algebra, will use SPARQL", query, e);
+            return null;
+        }
+    }
+
+    private @Nonnull Compiled doCompile(@Nonnull CQuery query, @Nonnull ModifiersSet modifiers) {
+        boolean ask = query.attr().isAsk();
+        boolean distinct = modifiers.distinct() != null;
+        int limit = query.attr().limit();
+        Projection projection = modifiers.projection();
+        Set<String> varNames = ask ? Collections.emptySet()
+                : (projection != null ? projection.getVarNames()
+                                      : query.attr().publicTripleVarNames());
+
+        BasicPattern bgp = new BasicPattern();
+        for (Triple t : query) {
+            if (SPARQLString.omitTriple(t, query))
+                continue;
+            bgp.add(new org.apache.jena.graph.Triple(toNode(t.getSubject()),
+                                                     toNode(t.getPredicate()),
+                                                     toNode(t.getObject())));
+        }
+        Op op = new OpBGP(bgp);
+
+        ValuesModifier values = modifiers.valueModifier();
+        if (values != null)
+            op = OpJoin.create(op, OpTable.create(toTable(values)));
+
+        Set<SPARQLFilter> filters = modifiers.filters();
+        if (!filters.isEmpty()) {
+            ExprList exprList = new ExprList();
+            for (SPARQLFilter filter : filters) {
+                JenaSPARQLFilter jenaFilter = filter instanceof JenaSPARQLFilter
+                        ? (JenaSPARQLFilter) filter : JenaSPARQLFilter.build(filter);
+                exprList.add(jenaFilter.getJenaExpr());
+            }
+            op = OpFilter.filterBy(exprList, op);
+        }
+
+        if (ask) {
+            op = new OpSlice(op, 0, 1);
+        } else {
+            List<Var> vars = new ArrayList<>(varNames.size());
+            for (String name : varNames)
+                vars.add(Var.alloc(name));
+            op = new OpProject(op, vars);
+            if (distinct)
+                op = OpDistinct.create(op);
+            if (limit > 0)
+                op = new OpSlice(op, 0, limit);
+        }
+        return new Compiled(op, ask, distinct, varNames);
+    }
+
+    private @Nonnull Node toNode(@Nonnull Term term) {
+        if (term.isBlank()) {
+            // as in SPARQL syntax, blank nodes are non-distinguished variables
+            String name = term.asBlank().getName();
+            if (name == null)
+                return Var.alloc("?a" + (nextAnonBlank++));
+            return blankVars.computeIfAbsent(name, k -> Var.alloc("?b_" + k));
+        }
+        if (term.isVar()) // algebra ops require Var instances, not plain Node_Variables
+            return Var.alloc(term.asVar().getName());
+        return JenaWrappers.toJenaNode(term);
+    }
+
+    private @Nonnull Table toTable(@Nonnull ValuesModifier values) {
+        List<Var> vars = new ArrayList<>(values.getVarNames().size());
+        for (String name : values.getVarNames())
+            vars.add(Var.alloc(name));
+        Table table = TableFactory.create(vars);
+        for (Solution solution : values.getAssignments()) {
+            BindingMap binding = BindingFactory.create();
+            for (Var var : vars) {
+                Term term = solution.get(var.getVarName());
+                if (term != null)
+                    binding.add(var, toNode(term));
+            }
+            table.addBinding(binding);
+        }
+        return table;
+    }
+}
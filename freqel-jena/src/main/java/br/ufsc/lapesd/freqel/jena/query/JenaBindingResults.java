@@ -7,15 +7,19 @@ import br.ufsc.lapesd.freqel.query.results.Solution;
 import br.ufsc.lapesd.freqel.util.ArraySet;
 import org.apache.jena.query.QueryExecution;
 import org.apache.jena.query.ResultSet;
+import org.apache.jena.query.ResultSetFactory;
+import org.apache.jena.sparql.engine.QueryIterator;
 import org.apache.jena.sparql.engine.binding.Binding;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
 public class JenaBindingResults extends AbstractResults implements Results {
     private final @Nullable QueryExecution execution;
+    private final @Nullable QueryIterator iterator;
     private final @Nonnull ResultSet resultSet;
     private final JenaBindingSolution.Factory solutionFactory;
     private final boolean distinct;
@@ -28,9 +32,16 @@ public class JenaBindingResults extends AbstractResults implements Results {
 
     public JenaBindingResults(@Nonnull ResultSet resultSet, @Nullable QueryExecution execution,
                               @Nonnull Set<String> varNames, boolean distinct) {
+        this(resultSet, execution, null, varNames, distinct);
+    }
+
+    private JenaBindingResults(@Nonnull ResultSet resultSet, @Nullable QueryExecution execution,
+                               @Nullable QueryIterator iterator, @Nonnull Set<String> varNames,
+                               boolean distinct) {
         super(varNames);
         this.resultSet = resultSet;
         this.execution = execution;
+        this.iterator = iterator;
         this.solutionFactory = JenaBindingSolution.forVars(varNames);
         this.distinct = distinct;
     }
@@ -39,6 +50,17 @@ public class JenaBindingResults extends AbstractResults implements Results {
         this(resultSet, execution, ArraySet.fromDistinct(resultSet.getResultVars()));
     }
 
+    /**
+     * Wraps bindings from an algebra evaluation (without a {@link QueryExecution}).
+     * The iterator will be closed when the results are closed.
+     */
+    public static @Nonnull JenaBindingResults
+    fromIterator(@Nonnull QueryIterator iterator, @Nonnull Set<String> varNames,
+                 boolean distinct) {
+        ResultSet rs = ResultSetFactory.create(iterator, new ArrayList<>(varNames));
+        return new JenaBindingResults(rs, null, iterator, varNames, distinct);
+    }
+
     @Override
     public int getReadyCount() {
         return binding != null ? 1 : 0;
@@ -72,8 +94,21 @@ public class JenaBindingResults extends AbstractResults implements Results {
         return wrapped;
     }
 
+    @Override
+    public int nextBatch(@Nonnull Solution[] buffer, int max) {
+        int end = Math.min(max, buffer.length), n = 0;
+        if (end > 0 && binding != null) {
+            buffer[n++] = solutionFactory.apply(binding);
+            binding = null;
+        }
+        while (n < end && resultSet.hasNext())
+            buffer[n++] = solutionFactory.apply(resultSet.nextBinding());
+        return n;
+    }
+
     @Override
     public void close() throws ResultsCloseException {
         if (execution != null) execution.close();
+        if (iterator != null) iterator.close();
     }
 }
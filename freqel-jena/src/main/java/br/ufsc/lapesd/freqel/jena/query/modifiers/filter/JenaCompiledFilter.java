@@ -0,0 +1,734 @@
+package br.ufsc.lapesd.freqel.jena.query.modifiers.filter;
+
+import br.ufsc.lapesd.freqel.model.term.Lit;
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.model.term.std.StdLit;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import com.google.errorprone.annotations.Immutable;
+import org.apache.jena.sparql.expr.*;
+import org.apache.jena.sparql.expr.nodevalue.XSDFuncOp;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static br.ufsc.lapesd.freqel.V.XSD;
+import static br.ufsc.lapesd.freqel.jena.JenaWrappers.fromJena;
+
+/**
+ * A filter expression compiled into evaluators that work directly on the {@link Term}s of a
+ * {@link Solution}.
+ *
+ * Common operators (logical connectives, comparisons, <code>bound</code>,
+ * <code>isIRI</code>/<code>isLiteral</code>/<code>isBlank</code>, <code>regex</code>,
+ * <code>str</code>, <code>lang</code>, <code>langMatches</code>, <code>lcase</code>,
+ * <code>ucase</code>, <code>strstarts</code>, <code>strends</code> and
+ * <code>contains</code>) are evaluated without converting terms into Jena
+ * {@link org.apache.jena.graph.Node}s. Other functions, and inputs whose semantics are
+ * not trivial (e.g., comparisons of dates or of ill-formed numbers), fall back to
+ * {@link Expr#eval(org.apache.jena.sparql.engine.binding.Binding,
+ * org.apache.jena.sparql.function.FunctionEnv)} for the smallest enclosing boolean
+ * sub-expression. Constant numbers and regular expressions are parsed only once.
+ *
+ * Instances are immutable and can be shared among threads.
+ */
+@Immutable
+class JenaCompiledFilter {
+    private static final int FALSE = 0, TRUE = 1, ERROR = -1;
+    private static final @Nonnull Pattern INTEGER_RX = Pattern.compile("[+-]?\\d+");
+    private static final @Nonnull Pattern DECIMAL_RX
+            = Pattern.compile("[+-]?(\\d+(\\.\\d*)?|\\.\\d+)");
+    private static final @Nonnull Pattern DOUBLE_RX
+            = Pattern.compile("[+-]?(\\d+(\\.\\d*)?|\\.\\d+)([eE][+-]?\\d+)?");
+
+    private final @SuppressWarnings("Immutable") @Nonnull BoolNode root;
+
+    private JenaCompiledFilter(@Nonnull BoolNode root) {
+        this.root = root;
+    }
+
+    public static @Nonnull JenaCompiledFilter compile(@Nonnull Expr expr) {
+        return new JenaCompiledFilter(compileBool(expr));
+    }
+
+    /**
+     * Whether the filter evaluates to true under the given solution. Evaluation errors
+     * (e.g., unbound variables in comparisons) yield false, as in SPARQL.
+     */
+    public boolean evaluate(@Nonnull Solution solution) {
+        return root.eval(solution) == TRUE;
+    }
+
+    /** True iff some part of the expression was compiled (i.e., does not always use Jena). */
+    public boolean isCompiled() {
+        return !(root instanceof JenaNode);
+    }
+
+    @Override public @Nonnull String toString() {
+        return root.toString();
+    }
+
+    /* --- --- --- Compilation --- --- --- */
+
+    private static @Nonnull BoolNode compileBool(@Nonnull Expr e) {
+        if (e instanceof E_LogicalAnd || e instanceof E_LogicalOr) {
+            ExprFunction2 f = (ExprFunction2) e;
+            BoolNode l = compileBool(f.getArg1()), r = compileBool(f.getArg2());
+            return e instanceof E_LogicalAnd ? new AndNode(e, l, r) : new OrNode(e, l, r);
+        } else if (e instanceof E_LogicalNot) {
+            return new NotNode(e, compileBool(((E_LogicalNot) e).getArg()));
+        } else if (e instanceof E_Bound && ((E_Bound) e).getArg().isVariable()) {
+            return new BoundNode(e, ((E_Bound) e).getArg().getVarName());
+        }
+        BoolNode node = null;
+        if (e instanceof ExprFunction) {
+            List<ValueNode> args = compileArgs((ExprFunction) e);
+            if (args != null)
+                node = compileBool(e, args);
+        }
+        return node == null ? new JenaNode(e) : node;
+    }
+
+    private static @Nullable BoolNode compileBool(@Nonnull Expr e,
+                                                  @Nonnull List<ValueNode> args) {
+        if (e instanceof E_Equals)
+            return new CompareNode(e, args.get(0), args.get(1), CompareOp.EQ);
+        if (e instanceof E_NotEquals)
+            return new CompareNode(e, args.get(0), args.get(1), CompareOp.NE);
+        if (e instanceof E_LessThan)
+            return new CompareNode(e, args.get(0), args.get(1), CompareOp.LT);
+        if (e instanceof E_LessThanOrEqual)
+            return new CompareNode(e, args.get(0), args.get(1), CompareOp.LE);
+        if (e instanceof E_GreaterThan)
+            return new CompareNode(e, args.get(0), args.get(1), CompareOp.GT);
+        if (e instanceof E_GreaterThanOrEqual)
+            return new CompareNode(e, args.get(0), args.get(1), CompareOp.GE);
+        if (e instanceof E_IsIRI)
+            return new TypeTestNode(e, args.get(0), Term.Type.URI);
+        if (e instanceof E_IsLiteral)
+            return new TypeTestNode(e, args.get(0), Term.Type.LITERAL);
+        if (e instanceof E_IsBlank)
+            return new TypeTestNode(e, args.get(0), Term.Type.BLANK);
+        if (e instanceof E_StrStartsWith)
+            return new StrTestNode(e, args.get(0), args.get(1), StrTest.STARTS);
+        if (e instanceof E_StrEndsWith)
+            return new StrTestNode(e, args.get(0), args.get(1), StrTest.ENDS);
+        if (e instanceof E_StrContains)
+            return new StrTestNode(e, args.get(0), args.get(1), StrTest.CONTAINS);
+        if (e instanceof E_LangMatches) {
+            Term range = args.get(1).getConstant();
+            if (isSimpleString(range))
+                return new LangMatchesNode(e, args.get(0), range.asLiteral().getLexicalForm());
+        } else if (e instanceof E_Regex) {
+            Pattern pattern = compileRegex(args);
+            if (pattern != null)
+                return new RegexNode(e, args.get(0), pattern);
+        }
+        return null;
+    }
+
+    private static @Nullable List<ValueNode> compileArgs(@Nonnull ExprFunction f) {
+        List<ValueNode> list = new ArrayList<>(f.numArgs());
+        for (int i = 1; i <= f.numArgs(); i++) {
+            ValueNode node = compileValue(f.getArg(i));
+            if (node == null)
+                return null;
+            list.add(node);
+        }
+        return list;
+    }
+
+    private static @Nullable ValueNode compileValue(@Nonnull Expr e) {
+        if (e.isVariable())
+            return new VarNode(e.getVarName());
+        if (e instanceof NodeValue)
+            return new ConstantNode(fromJena(((NodeValue) e).asNode()));
+        if (e instanceof E_Str || e instanceof E_Lang
+                || e instanceof E_StrLowerCase || e instanceof E_StrUpperCase) {
+            ValueNode arg = compileValue(((ExprFunction1) e).getArg());
+            if (arg == null)
+                return null;
+            if (e instanceof E_Str)  return new StrNode(arg);
+            if (e instanceof E_Lang) return new LangNode(arg);
+            return new CaseNode(arg, e instanceof E_StrUpperCase);
+        }
+        return null;
+    }
+
+    private static @Nullable Pattern compileRegex(@Nonnull List<ValueNode> args) {
+        Term pattern = args.get(1).getConstant();
+        Term flagsTerm = args.size() > 2 ? args.get(2).getConstant() : null;
+        if (!isSimpleString(pattern) || (args.size() > 2 && !isSimpleString(flagsTerm)))
+            return null;
+        int flags = 0;
+        String flagsString = flagsTerm == null ? "" : flagsTerm.asLiteral().getLexicalForm();
+        for (int i = 0; i < flagsString.length(); i++) {
+            switch (flagsString.charAt(i)) {
+                case 'i': flags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE; break;
+                case 's': flags |= Pattern.DOTALL; break;
+                case 'm': flags |= Pattern.MULTILINE; break;
+                case 'x': flags |= Pattern.COMMENTS; break;
+                default: return null; // let jena handle (or reject) other flags
+            }
+        }
+        try {
+            return Pattern.compile(pattern.asLiteral().getLexicalForm(), flags);
+        } catch (RuntimeException e) {
+            return null; // jena will report the error
+        }
+    }
+
+    /* --- --- --- Helpers --- --- --- */
+
+    /**
+     * Thrown by {@link ValueNode}s and {@link BoolNode#fastEval(Solution)} when the input
+     * cannot be handled without Jena. Has no stack trace and is pre-allocated.
+     */
+    private static final class Fallback extends RuntimeException {
+        static final @Nonnull Fallback INSTANCE = new Fallback();
+
+        private Fallback() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static boolean isSimpleString(@Nullable Term term) {
+        if (term == null || !term.isLiteral())
+            return false;
+        Lit lit = term.asLiteral();
+        return lit.getLangTag() == null && lit.getDatatype().getURI().equals(XSD.xstring.getURI());
+    }
+
+    private static boolean isLangString(@Nonnull Term term) {
+        return term.isLiteral() && term.asLiteral().getLangTag() != null;
+    }
+
+    private static int bool(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    private enum NumKind { INTEGER, DECIMAL, FLOAT, DOUBLE }
+
+    private static final class Num {
+        final @Nonnull NumKind kind;
+        final long longValue;
+        final @Nullable BigDecimal decimal;
+        final double doubleValue;
+
+        Num(long value) {
+            kind = NumKind.INTEGER;
+            longValue = value;
+            decimal = null;
+            doubleValue = value;
+        }
+        Num(@Nonnull BigDecimal value) {
+            kind = NumKind.DECIMAL;
+            longValue = 0;
+            decimal = value;
+            doubleValue = value.doubleValue();
+        }
+        Num(@Nonnull NumKind kind, double value) {
+            this.kind = kind;
+            longValue = 0;
+            decimal = null;
+            doubleValue = value;
+        }
+
+        @Nonnull BigDecimal toDecimal() {
+            return decimal != null ? decimal : BigDecimal.valueOf(longValue);
+        }
+
+        int compareTo(@Nonnull Num o) {
+            if (kind == NumKind.INTEGER && o.kind == NumKind.INTEGER)
+                return Long.compare(longValue, o.longValue);
+            if (kind == NumKind.DOUBLE || o.kind == NumKind.DOUBLE)
+                return compare(doubleValue, o.doubleValue);
+            if (kind == NumKind.FLOAT || o.kind == NumKind.FLOAT)
+                return compare((float) doubleValue, (float) o.doubleValue);
+            return toDecimal().compareTo(o.toDecimal());
+        }
+
+        private static int compare(double l, double r) {
+            return l < r ? -1 : (l > r ? 1 : 0); // unlike Double.compare(), -0.0 == 0.0
+        }
+    }
+
+    /**
+     * Parses a numeric literal.
+     *
+     * @return null if term is not a numeric literal
+     * @throws Fallback if the datatype is numeric but the lexical form is not trivially valid
+     *                  or the datatype has not been handled.
+     */
+    private static @Nullable Num parseNum(@Nonnull Term term) {
+        if (!term.isLiteral())
+            return null;
+        Lit lit = term.asLiteral();
+        String dt = lit.getDatatype().getURI();
+        if (!dt.startsWith(XSD.NS))
+            return null;
+        String lex = lit.getLexicalForm();
+        try {
+            switch (dt.substring(XSD.NS.length())) {
+                case "integer":
+                case "long":
+                    if (INTEGER_RX.matcher(lex).matches())
+                        return new Num(Long.parseLong(lex));
+                    break;
+                case "int":
+                    if (INTEGER_RX.matcher(lex).matches())
+                        return new Num(Integer.parseInt(lex));
+                    break;
+                case "decimal":
+                    if (DECIMAL_RX.matcher(lex).matches())
+                        return new Num(new BigDecimal(lex));
+                    break;
+                case "double":
+                    if (DOUBLE_RX.matcher(lex).matches())
+                        return new Num(NumKind.DOUBLE, Double.parseDouble(lex));
+                    break;
+                case "float":
+                    if (DOUBLE_RX.matcher(lex).matches())
+                        return new Num(NumKind.FLOAT, Float.parseFloat(lex));
+                    break;
+                case "short": case "byte": case "nonPositiveInteger": case "negativeInteger":
+                case "nonNegativeInteger": case "positiveInteger": case "unsignedLong":
+                case "unsignedInt": case "unsignedShort": case "unsignedByte":
+                    break; // numeric, but with range restrictions
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException ignored) { }
+        throw Fallback.INSTANCE;
+    }
+
+    /* --- --- --- Value nodes --- --- --- */
+
+    private static abstract class ValueNode {
+        /**
+         * Evaluates this node.
+         *
+         * @return the value or null if evaluation yields an error.
+         * @throws Fallback if cannot evaluate without Jena.
+         */
+        abstract @Nullable Term eval(@Nonnull Solution solution);
+
+        /** Same as {@link JenaCompiledFilter#parseNum(Term)}, but may use cached parses. */
+        @Nullable Num toNum(@Nonnull Term value) {
+            return parseNum(value);
+        }
+
+        /** The value of this node if it is a constant, else null */
+        @Nullable Term getConstant() {
+            return null;
+        }
+    }
+
+    private static class VarNode extends ValueNode {
+        private final @Nonnull String name;
+
+        VarNode(@Nonnull String name) {
+            this.name = name;
+        }
+
+        @Override @Nullable Term eval(@Nonnull Solution solution) {
+            return solution.get(name); // unbound is an error
+        }
+
+        @Override public @Nonnull String toString() {
+            return "?"+name;
+        }
+    }
+
+    private static class ConstantNode extends ValueNode {
+        private final @Nonnull Term value;
+        private final @Nullable Num num;
+        private final boolean fallback;
+
+        ConstantNode(@Nonnull Term value) {
+            this.value = value;
+            Num num = null;
+            boolean fallback = false;
+            try {
+                num = parseNum(value);
+            } catch (Fallback e) {
+                fallback = true;
+            }
+            this.num = num;
+            this.fallback = fallback;
+        }
+
+        @Override @Nonnull Term eval(@Nonnull Solution solution) {
+            return value;
+        }
+
+        @Override @Nullable Num toNum(@Nonnull Term value) {
+            if (value != this.value)
+                return parseNum(value);
+            if (fallback)
+                throw Fallback.INSTANCE;
+            return num;
+        }
+
+        @Override @Nonnull Term getConstant() {
+            return value;
+        }
+
+        @Override public @Nonnull String toString() {
+            return value.toString();
+        }
+    }
+
+    private static class StrNode extends ValueNode {
+        private final @Nonnull ValueNode arg;
+
+        StrNode(@Nonnull ValueNode arg) {
+            this.arg = arg;
+        }
+
+        @Override @Nullable Term eval(@Nonnull Solution solution) {
+            Term value = arg.eval(solution);
+            if (value == null || value.isBlank())
+                return null;
+            if (value.isURI())
+                return StdLit.fromUnescaped(value.asURI().getURI(), XSD.xstring);
+            if (value.isLiteral())
+                return isSimpleString(value) ? value
+                        : StdLit.fromUnescaped(value.asLiteral().getLexicalForm(), XSD.xstring);
+            throw Fallback.INSTANCE;
+        }
+
+        @Override public @Nonnull String toString() {
+            return "str("+arg+")";
+        }
+    }
+
+    private static class LangNode extends ValueNode {
+        private static final @Nonnull Term EMPTY = StdLit.fromUnescaped("", XSD.xstring);
+        private final @Nonnull ValueNode arg;
+
+        LangNode(@Nonnull ValueNode arg) {
+            this.arg = arg;
+        }
+
+        @Override @Nullable Term eval(@Nonnull Solution solution) {
+            Term value = arg.eval(solution);
+            if (value == null || !value.isLiteral())
+                return null;
+            String lang = value.asLiteral().getLangTag();
+            return lang == null || lang.isEmpty() ? EMPTY
+                                                  : StdLit.fromUnescaped(lang, XSD.xstring);
+        }
+
+        @Override public @Nonnull String toString() {
+            return "lang("+arg+")";
+        }
+    }
+
+    private static class CaseNode extends ValueNode {
+        private final @Nonnull ValueNode arg;
+        private final boolean upper;
+
+        CaseNode(@Nonnull ValueNode arg, boolean upper) {
+            this.arg = arg;
+            this.upper = upper;
+        }
+
+        @Override @Nullable Term eval(@Nonnull Solution solution) {
+            Term value = arg.eval(solution);
+            if (value == null)
+                return null;
+            if (!isSimpleString(value) && !isLangString(value))
+                throw Fallback.INSTANCE;
+            Lit lit = value.asLiteral();
+            // same as jena: default locale
+            String lex = upper ? lit.getLexicalForm().toUpperCase()
+                               : lit.getLexicalForm().toLowerCase();
+            String lang = lit.getLangTag();
+            return lang == null ? StdLit.fromUnescaped(lex, XSD.xstring)
+                                : StdLit.fromUnescaped(lex, lang);
+        }
+
+        @Override public @Nonnull String toString() {
+            return (upper ? "ucase(" : "lcase(")+arg+")";
+        }
+    }
+
+    /* --- --- --- Boolean nodes --- --- --- */
+
+    private static abstract class BoolNode {
+        protected final @Nonnull Expr expr;
+
+        BoolNode(@Nonnull Expr expr) {
+            this.expr = expr;
+        }
+
+        /**
+         * Evaluates this node, delegating to Jena if necessary.
+         *
+         * @return {@link #TRUE}, {@link #FALSE} or {@link #ERROR}
+         */
+        int eval(@Nonnull Solution solution) {
+            try {
+                return fastEval(solution);
+            } catch (Fallback e) {
+                return JenaNode.evalJena(expr, solution);
+            }
+        }
+
+        /**
+         * Evaluates this node without Jena.
+         *
+         * @throws Fallback if the node must be evaluated by Jena for this solution
+         */
+        abstract int fastEval(@Nonnull Solution solution);
+
+        @Override public @Nonnull String toString() {
+            return expr.toString();
+        }
+    }
+
+    private static class JenaNode extends BoolNode {
+        JenaNode(@Nonnull Expr expr) {
+            super(expr);
+        }
+
+        static int evalJena(@Nonnull Expr expr, @Nonnull Solution solution) {
+            try {
+                NodeValue value = expr.eval(JenaSPARQLFilterExecutor.wrap(solution),
+                                            JenaSPARQLFilterExecutor.getFunctionEnv());
+                return bool(XSDFuncOp.booleanEffectiveValue(value));
+            } catch (ExprEvalException e) {
+                return ERROR;
+            }
+        }
+
+        @Override int eval(@Nonnull Solution solution) {
+            return evalJena(expr, solution);
+        }
+
+        @Override int fastEval(@Nonnull Solution solution) {
+            throw Fallback.INSTANCE;
+        }
+    }
+
+    private static class AndNode extends BoolNode {
+        private final @Nonnull BoolNode left, right;
+
+        AndNode(@Nonnull Expr expr, @Nonnull BoolNode left, @Nonnull BoolNode right) {
+            super(expr);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override int fastEval(@Nonnull Solution solution) {
+            int l = left.eval(solution);
+            if (l == FALSE)
+                return FALSE;
+            int r = right.eval(solution);
+            return r == FALSE ? FALSE : (l == ERROR || r == ERROR ? ERROR : TRUE);
+        }
+    }
+
+    private static class OrNode extends BoolNode {
+        private final @Nonnull BoolNode left, right;
+
+        OrNode(@Nonnull Expr expr, @Nonnull BoolNode left, @Nonnull BoolNode right) {
+            super(expr);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override int fastEval(@Nonnull Solution solution) {
+            int l = left.eval(solution);
+            if (l == TRUE)
+                return TRUE;
+            int r = right.eval(solution);
+            return r == TRUE ? TRUE : (l == ERROR || r == ERROR ? ERROR : FALSE);
+        }
+    }
+
+    private static class NotNode extends BoolNode {
+        private final @Nonnull BoolNode arg;
+
+        NotNode(@Nonnull Expr expr, @Nonnull BoolNode arg) {
+            super(expr);
+            this.arg = arg;
+        }
+
+        @Override int fastEval(@Nonnull Solution solution) {
+            int value = arg.eval(solution);
+            return value == ERROR ? ERROR : (value == TRUE ? FALSE : TRUE);
+        }
+    }
+
+    private static class BoundNode extends BoolNode {
+        private final @Nonnull String var;
+
+        BoundNode(@Nonnull Expr expr, @Nonnull String var) {
+            super(expr);
+            this.var = var;
+        }
+
+        @Override int fastEval(@Nonnull Solution solution) {
+            return bool(solution.get(var) != null);
+        }
+    }
+
+    private static class TypeTestNode extends BoolNode {
+        private final @Nonnull ValueNode arg;
+        private final @Nonnull Term.Type type;
+
+        TypeTestNode(@Nonnull Expr expr, @Nonnull ValueNode arg, @Nonnull Term.Type type) {
+            super(expr);
+            this.arg = arg;
+            this.type = type;
+        }
+
+        @Override int fastEval(@Nonnull Solution solution) {
+            Term value = arg.eval(solution);
+            return value == null ? ERROR : bool(value.getType() == type);
+        }
+    }
+
+    private enum CompareOp {
+        EQ, NE, LT, LE, GT, GE;
+
+        int test(int cmp) {
+            switch (this) {
+                case EQ: return bool(cmp == 0);
+                case NE: return bool(cmp != 0);
+                case LT: return bool(cmp <  0);
+                case LE: return bool(cmp <= 0);
+                case GT: return bool(cmp >  0);
+                case GE: return bool(cmp >= 0);
+            }
+            throw new UnsupportedOperationException();
+        }
+
+        boolean isEquality() {
+            return this == EQ || this == NE;
+        }
+    }
+
+    private static class CompareNode extends BoolNode {
+        private final @Nonnull ValueNode left, right;
+        private final @Nonnull CompareOp op;
+
+        CompareNode(@Nonnull Expr expr, @Nonnull ValueNode left, @Nonnull ValueNode right,
+                    @Nonnull CompareOp op) {
+            super(expr);
+            this.left = left;
+            this.right = right;
+            this.op = op;
+        }
+
+        @Override int fastEval(@Nonnull Solution solution) {
+            Term l = left.eval(solution), r = right.eval(solution);
+            if (l == null || r == null)
+                return ERROR;
+            Num ln = left.toNum(l), rn = right.toNum(r);
+            if (ln != null && rn != null)
+                return op.test(ln.compareTo(rn));
+            if (isSimpleString(l) && isSimpleString(r)) {
+                return op.test(l.asLiteral().getLexicalForm()
+                                .compareTo(r.asLiteral().getLexicalForm()));
+            }
+            if (op.isEquality()) {
+                if (l.isURI() && r.isURI())
+                    return op.test(l.asURI().getURI().equals(r.asURI().getURI()) ? 0 : 1);
+                if ((l.isURI() && (r.isLiteral() || r.isBlank()))
+                        || (r.isURI() && (l.isLiteral() || l.isBlank()))) {
+                    return op.test(1); // different kinds of RDF terms are never equal
+                }
+                if (isLangString(l) && isLangString(r)) {
+                    Lit ll = l.asLiteral(), rl = r.asLiteral();
+                    //noinspection ConstantConditions
+                    if (ll.getLangTag().equalsIgnoreCase(rl.getLangTag()))
+                        return op.test(ll.getLexicalForm().equals(rl.getLexicalForm()) ? 0 : 1);
+                }
+            }
+            throw Fallback.INSTANCE;
+        }
+    }
+
+    private enum StrTest { STARTS, ENDS, CONTAINS }
+
+    private static class StrTestNode extends BoolNode {
+        private final @Nonnull ValueNode left, right;
+        private final @Nonnull StrTest test;
+
+        StrTestNode(@Nonnull Expr expr, @Nonnull ValueNode left, @Nonnull ValueNode right,
+                    @Nonnull StrTest test) {
+            super(expr);
+            this.left = left;
+            this.right = right;
+            this.test = test;
+        }
+
+        @Override int fastEval(@Nonnull Solution solution) {
+            Term l = left.eval(solution), r = right.eval(solution);
+            if (l == null || r == null)
+                return ERROR;
+            if (!isSimpleString(r) || !(isSimpleString(l) || isLangString(l)))
+                throw Fallback.INSTANCE;
+            String ls = l.asLiteral().getLexicalForm(), rs = r.asLiteral().getLexicalForm();
+            switch (test) {
+                case STARTS: return bool(ls.startsWith(rs));
+                case ENDS: return bool(ls.endsWith(rs));
+                case CONTAINS: return bool(ls.contains(rs));
+            }
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class LangMatchesNode extends BoolNode {
+        private final @Nonnull ValueNode arg;
+        private final @Nonnull String range;
+
+        LangMatchesNode(@Nonnull Expr expr, @Nonnull ValueNode arg, @Nonnull String range) {
+            super(expr);
+            this.arg = arg;
+            this.range = range;
+        }
+
+        @Override int fastEval(@Nonnull Solution solution) {
+            Term value = arg.eval(solution);
+            if (value == null)
+                return ERROR;
+            if (!isSimpleString(value))
+                throw Fallback.INSTANCE;
+            String tag = value.asLiteral().getLexicalForm();
+            if (range.equals("*"))
+                return bool(!tag.isEmpty());
+            if (tag.length() < range.length())
+                return FALSE;
+            if (!tag.regionMatches(true, 0, range, 0, range.length()))
+                return FALSE;
+            return bool(tag.length() == range.length() || tag.charAt(range.length()) == '-');
+        }
+    }
+
+    private static class RegexNode extends BoolNode {
+        private final @Nonnull ValueNode arg;
+        private final @Nonnull Pattern pattern;
+
+        RegexNode(@Nonnull Expr expr, @Nonnull ValueNode arg, @Nonnull Pattern pattern) {
+            super(expr);
+            this.arg = arg;
+            this.pattern = pattern;
+        }
+
+        @Override int fastEval(@Nonnull Solution solution) {
+            Term value = arg.eval(solution);
+            if (value == null)
+                return ERROR;
+            if (!isSimpleString(value) && !isLangString(value))
+                throw Fallback.INSTANCE;
+            return bool(pattern.matcher(value.asLiteral().getLexicalForm()).find());
+        }
+    }
+}
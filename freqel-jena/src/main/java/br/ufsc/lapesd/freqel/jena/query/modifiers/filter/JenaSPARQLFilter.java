@@ -44,6 +44,7 @@ public class JenaSPARQLFilter implements SPARQLFilter {
     private final @Nonnull String filter;
     private final @SuppressWarnings("Immutable") @Nonnull Expr expr;
     private @LazyInit @Nullable SPARQLFilterNode root;
+    private @LazyInit @Nullable JenaCompiledFilter compiled;
     private @LazyInit int hash = 0;
     private @Nullable IndexSet<String> varNamesUniverse = null;
     private @SuppressWarnings("Immutable") @Nullable @LazyInit Set<Var> vars = null;
@@ -135,6 +136,12 @@ public class JenaSPARQLFilter implements SPARQLFilter {
         return expr;
     }
 
+    @Nonnull JenaCompiledFilter getCompiled() {
+        if (compiled == null)
+            compiled = JenaCompiledFilter.compile(expr);
+        return compiled;
+    }
+
     @Override public boolean isTrivial() {
         return getVarNames().isEmpty();
     }
@@ -470,7 +477,11 @@ public class JenaSPARQLFilter implements SPARQLFilter {
             Term bound = mapper.apply(term);
             boolean termChange = bound != null && bound != term;
             anyChange[0] |= termChange;
-            return termChange ? JenaWrappers.toJenaNode(bound) : n;
+            if (!termChange)
+                return n;
+            Node node = JenaWrappers.toJenaNode(bound);
+            // ExprVar requires a Var, not a plain Node_Variable
+            return node.isVariable() ? org.apache.jena.sparql.core.Var.alloc(node) : node;
         });
         return anyChange[0] ?  build(boundExpr) : this;
     }
@@ -10,6 +10,7 @@ import org.apache.jena.sparql.core.DatasetGraph;
 import org.apache.jena.sparql.core.Var;
 import org.apache.jena.sparql.engine.binding.Binding;
 import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.function.FunctionEnv;
 import org.apache.jena.sparql.function.FunctionEnvBase;
 import org.apache.jena.sparql.util.Context;
 
@@ -20,17 +21,34 @@ import java.util.Iterator;
 
 import static br.ufsc.lapesd.freqel.jena.JenaWrappers.toJenaNode;
 
+/**
+ * Evaluates filters using their {@link JenaCompiledFilter} form, which only delegates to Jena
+ * the sub-expressions that it cannot evaluate directly over freqel terms.
+ */
 @NotThreadSafe
 public class JenaSPARQLFilterExecutor implements SPARQLFilterExecutor {
     private static final @Nonnull ExecutionContext defaultExecutionContext = new ExecutionContext();
 
-    private final @Nonnull BindingWrapper tmp = new BindingWrapper();
-
     @Override public boolean evaluate(@Nullable SPARQLFilter filter, @Nonnull Solution solution) {
         if (filter == null)  return true; //a null filter is a non-filter
-        tmp.setSolution(solution); //avoid the cost of new
+        return JenaSPARQLFilter.build(filter).getCompiled().evaluate(solution);
+    }
+
+    /**
+     * Evaluates the filter only with Jena, without the {@link JenaCompiledFilter}.
+     */
+    public boolean evaluateWithJena(@Nullable SPARQLFilter filter, @Nonnull Solution solution) {
+        if (filter == null)  return true; //a null filter is a non-filter
         Expr expr = (JenaSPARQLFilter.build(filter)).getJenaExpr();
-        return expr.isSatisfied(tmp, defaultExecutionContext.functionEnv);
+        return expr.isSatisfied(wrap(solution), defaultExecutionContext.functionEnv);
+    }
+
+    static @Nonnull Binding wrap(@Nonnull Solution solution) {
+        return new BindingWrapper().setSolution(solution);
+    }
+
+    static @Nonnull FunctionEnv getFunctionEnv() {
+        return defaultExecutionContext.functionEnv;
     }
 
     private static class BindingWrapper implements Binding {
@@ -48,7 +66,7 @@ public class JenaSPARQLFilterExecutor implements SPARQLFilterExecutor {
 
         @Override public boolean contains(Var var) {
             if (solution == null) throw new IllegalStateException("No solution bound!");
-            return false;
+            return solution.get(var.getVarName()) != null;
         }
 
         @Override public Node get(Var var) {
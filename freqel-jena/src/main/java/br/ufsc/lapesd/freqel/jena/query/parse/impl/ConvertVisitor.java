@@ -3,16 +3,21 @@ package br.ufsc.lapesd.freqel.jena.query.parse.impl;
 import br.ufsc.lapesd.freqel.algebra.Op;
 import br.ufsc.lapesd.freqel.algebra.TakenChildren;
 import br.ufsc.lapesd.freqel.algebra.inner.ConjunctionOp;
+import br.ufsc.lapesd.freqel.algebra.inner.PipeOp;
+import br.ufsc.lapesd.freqel.algebra.inner.SemiJoinOp;
 import br.ufsc.lapesd.freqel.algebra.inner.UnionOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.PathOp;
 import br.ufsc.lapesd.freqel.algebra.leaf.QueryOp;
 import br.ufsc.lapesd.freqel.algebra.util.TreeUtils;
 import br.ufsc.lapesd.freqel.jena.query.JenaBindingSolution;
 import br.ufsc.lapesd.freqel.jena.query.modifiers.filter.JenaSPARQLFilter;
+import br.ufsc.lapesd.freqel.model.RDFUtils;
 import br.ufsc.lapesd.freqel.model.prefix.PrefixDict;
 import br.ufsc.lapesd.freqel.model.prefix.StdPrefixDict;
 import br.ufsc.lapesd.freqel.model.term.Term;
 import br.ufsc.lapesd.freqel.model.term.std.StdVar;
 import br.ufsc.lapesd.freqel.query.MutableCQuery;
+import br.ufsc.lapesd.freqel.query.SimplePath;
 import br.ufsc.lapesd.freqel.query.modifiers.Optional;
 import br.ufsc.lapesd.freqel.query.modifiers.*;
 import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilter;
@@ -24,25 +29,32 @@ import br.ufsc.lapesd.freqel.util.indexed.IndexSet;
 import br.ufsc.lapesd.freqel.util.indexed.subset.IndexSubset;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import org.apache.jena.graph.Node;
 import org.apache.jena.graph.Triple;
 import org.apache.jena.query.Query;
 import org.apache.jena.query.QueryVisitor;
 import org.apache.jena.sparql.core.Prologue;
 import org.apache.jena.sparql.core.TriplePath;
 import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.core.VarExprList;
 import org.apache.jena.sparql.engine.binding.Binding;
 import org.apache.jena.sparql.expr.E_Exists;
 import org.apache.jena.sparql.expr.E_NotExists;
 import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprAggregator;
+import org.apache.jena.sparql.expr.ExprList;
+import org.apache.jena.sparql.expr.aggregate.*;
 import org.apache.jena.sparql.path.*;
 import org.apache.jena.sparql.syntax.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.*;
 
 import static br.ufsc.lapesd.freqel.jena.JenaWrappers.fromJena;
+import static br.ufsc.lapesd.freqel.query.modifiers.Aggregation.Function.*;
 
 public class ConvertVisitor implements QueryVisitor {
     private static final Logger logger = LoggerFactory.getLogger(ConvertVisitor.class);
@@ -51,6 +63,7 @@ public class ConvertVisitor implements QueryVisitor {
     private Op op;
     private ModifiersSet outerModifiers;
     private Set<SPARQLFilter> groupFilters;
+    private List<PendingExists> groupExists;
     private PrefixDict prefixDict;
     private FullIndexSet<br.ufsc.lapesd.freqel.model.Triple> triplesUniverse;
     private FullIndexSet<String> varsUniverse;
@@ -72,6 +85,20 @@ public class ConvertVisitor implements QueryVisitor {
             super(message);
         }
     }
+
+    /**
+     * A FILTER (NOT) EXISTS is applied to the whole group, regardless of its position
+     */
+    private static class PendingExists {
+        final @Nonnull SemiJoinOp.Mode mode;
+        final @Nonnull Op pattern;
+
+        PendingExists(@Nonnull SemiJoinOp.Mode mode, @Nonnull Op pattern) {
+            this.mode = mode;
+            this.pattern = pattern;
+        }
+    }
+
     @Override
     public void startVisit(Query query) {
         outerModifiers = new ModifiersSet();
@@ -135,8 +162,64 @@ public class ConvertVisitor implements QueryVisitor {
     }
     @Override
     public void visitGroupBy(Query query) {
-        if (query.hasGroupBy() && !SPARQLParserOptions.getEraseGroupBy())
-            throw new FeatureException("GROUP BY is not supported");
+        if (!query.hasGroupBy() && !query.hasAggregators())
+            return;
+        if (SPARQLParserOptions.getEraseGroupBy())
+            return;
+        if (!query.isSelectType())
+            throw new FeatureException("GROUP BY is only supported in SELECT queries");
+        List<String> groupVars = new ArrayList<>();
+        if (query.hasGroupBy()) {
+            VarExprList groupBy = query.getGroupBy();
+            for (Var v : groupBy.getVars()) {
+                if (groupBy.getExpr(v) != null)
+                    throw new FeatureException("Only variables are supported in GROUP BY");
+                groupVars.add(v.getVarName());
+            }
+        }
+        List<Aggregation.Aggregate> aggregates = new ArrayList<>();
+        VarExprList project = query.getProject();
+        for (Var v : project.getVars()) {
+            Expr expr = project.getExpr(v);
+            if (expr == null) {
+                if (!groupVars.contains(v.getVarName()))
+                    throw new FeatureException("Projected variable "+v+" is not grouped");
+            } else if (expr instanceof ExprAggregator) {
+                aggregates.add(convertAggregate(((ExprAggregator) expr).getAggregator(),
+                                                v.getVarName()));
+            } else {
+                throw new FeatureException("Only aggregates are supported as " +
+                                           "SELECT expressions, found "+expr);
+            }
+        }
+        outerModifiers.add(new Aggregation(groupVars, aggregates));
+    }
+
+    private @Nonnull Aggregation.Aggregate convertAggregate(@Nonnull Aggregator agg,
+                                                            @Nonnull String outputVar) {
+        if (agg instanceof AggCount)
+            return Aggregation.Aggregate.countAll(outputVar);
+        if (agg instanceof AggCountDistinct)
+            return new Aggregation.Aggregate(COUNT, null, outputVar, true);
+        Aggregation.Function function;
+        boolean distinct;
+        if      (agg instanceof AggCountVar)         { function = COUNT; distinct = false; }
+        else if (agg instanceof AggCountVarDistinct) { function = COUNT; distinct = true;  }
+        else if (agg instanceof AggSum)              { function = SUM;   distinct = false; }
+        else if (agg instanceof AggSumDistinct)      { function = SUM;   distinct = true;  }
+        else if (agg instanceof AggMin)              { function = MIN;   distinct = false; }
+        else if (agg instanceof AggMinDistinct)      { function = MIN;   distinct = true;  }
+        else if (agg instanceof AggMax)              { function = MAX;   distinct = false; }
+        else if (agg instanceof AggMaxDistinct)      { function = MAX;   distinct = true;  }
+        else if (agg instanceof AggAvg)              { function = AVG;   distinct = false; }
+        else if (agg instanceof AggAvgDistinct)      { function = AVG;   distinct = true;  }
+        else throw new FeatureException("Aggregate "+agg+" is not supported");
+
+        ExprList args = agg.getExprList();
+        if (args == null || args.size() != 1 || !args.get(0).isVariable())
+            throw new FeatureException("Only variables are supported as aggregate arguments");
+        String inputVar = args.get(0).getVarName();
+        return new Aggregation.Aggregate(function, inputVar, outputVar, distinct);
     }
     @Override
     public void visitHaving(Query query) {
@@ -176,6 +259,11 @@ public class ConvertVisitor implements QueryVisitor {
     @Override
     public void finishVisit(Query q) {
         assert op != null;
+        Aggregation aggregation = outerModifiers.aggregation();
+        if (aggregation != null) {
+            finishAggregation(aggregation);
+            return;
+        }
         Projection p = outerModifiers.projection();
         if (p != null && !q.isAskType()) {
             Set<String> pVars = p.getVarNames();
@@ -198,6 +286,44 @@ public class ConvertVisitor implements QueryVisitor {
         op.modifiers().addAll(outerModifiers);
     }
 
+    /**
+     * Results of inner nodes are defined by their projections, thus the aggregation and
+     * everything evaluated after it is placed in a {@link PipeOp} above the WHERE clause.
+     */
+    private void finishAggregation(@Nonnull Aggregation aggregation) {
+        Set<String> inputVars = aggregation.getInputVarNames();
+        if (!tripleVars.containsAll(inputVars)) {
+            throw new IllegalArgumentException("The grouped or aggregated variables " +
+                                               "cannot be bound from any triple pattern");
+        }
+        ValuesModifier values = outerModifiers.valueModifier();
+        if (values != null && values.getVarNames().stream()
+                                    .anyMatch(aggregation.getResultVarNames()::contains)) {
+            throw new FeatureException("VALUES after GROUP BY is not supported");
+        }
+        PipeOp pipe = new PipeOp(op);
+        List<Modifier> outer = new ArrayList<>();
+        for (Modifier m : outerModifiers) {
+            if (m instanceof Aggregation || m instanceof Projection || m instanceof Distinct
+                    || m instanceof Limit) {
+                outer.add(m);
+            }
+        }
+        outerModifiers.removeAll(outer);
+        pipe.modifiers().addAll(outer);
+        if (!inputVars.isEmpty() && !tripleVars.equals(inputVars))
+            op.modifiers().add(Projection.of(inputVars));
+        op = pipe;
+        for (Iterator<Op> it = TreeUtils.iteratePreOrder(op); it.hasNext(); ) {
+            Op node = it.next();
+            node.offerVarsUniverse(varsUniverse);
+            node.offerTriplesUniverse(triplesUniverse);
+            if (prefixDict != null && node instanceof QueryOp)
+                ((QueryOp) node).getQuery().setPrefixDict(prefixDict);
+        }
+        pipe.getChildren().get(0).modifiers().addAll(outerModifiers);
+    }
+
     private class ElementVisitor extends ElementVisitorBase {
         private @Nonnull MutableCQuery getMutableCQuery() {
             if (op instanceof QueryOp) {
@@ -250,10 +376,14 @@ public class ConvertVisitor implements QueryVisitor {
         @Override
         public void visit(ElementFilter el) {
             Expr expr = el.getExpr();
-            if (expr instanceof E_Exists)
-                throw new FeatureException("FILTER EXISTS is not supported");
-            if (expr instanceof E_NotExists)
-                throw new FeatureException("FILTER NOT EXISTS is not supported");
+            if (expr instanceof E_Exists) {
+                addExists(SemiJoinOp.Mode.EXISTS, ((E_Exists) expr).getElement());
+                return;
+            }
+            if (expr instanceof E_NotExists) {
+                addExists(SemiJoinOp.Mode.NOT_EXISTS, ((E_NotExists) expr).getElement());
+                return;
+            }
             for (Var v : expr.getVarsMentioned())
                 varsUniverse.add(v.getVarName());
             SPARQLFilter filter = JenaSPARQLFilter.build(expr);
@@ -334,11 +464,38 @@ public class ConvertVisitor implements QueryVisitor {
         @Override
         public void visit(ElementGroup el) {
             Set<SPARQLFilter> oldGroupFilters = groupFilters;
+            List<PendingExists> oldGroupExists = groupExists;
             groupFilters = new HashSet<>();
+            groupExists = new ArrayList<>();
             el.getElements().forEach(e -> e.visit(this));
+            if (op == null && !groupExists.isEmpty())
+                throw new FeatureException("FILTER (NOT) EXISTS in an empty group is not supported");
             assert op != null;
             op.modifiers().addAll(groupFilters);
+            for (PendingExists pending : groupExists)
+                op = new SemiJoinOp(pending.mode, op, pending.pattern);
             groupFilters = oldGroupFilters;
+            groupExists = oldGroupExists;
+        }
+
+        private void addExists(@Nonnull SemiJoinOp.Mode mode, @Nonnull Element element) {
+            groupExists.add(new PendingExists(mode, convertNested(element)));
+        }
+
+        /**
+         * Converts a pattern whose variables are not visible outside of it.
+         */
+        private @Nonnull Op convertNested(@Nonnull Element element) {
+            Op oldOp = ConvertVisitor.this.op;
+            Set<String> oldTripleVars = new HashSet<>(tripleVars);
+            op = null;
+            element.visit(this);
+            Op nested = op;
+            op = oldOp;
+            tripleVars.retainAll(oldTripleVars);
+            if (nested == null)
+                throw new FeatureException("Empty EXISTS or MINUS patterns are not supported");
+            return nested;
         }
 
         @Override
@@ -348,17 +505,20 @@ public class ConvertVisitor implements QueryVisitor {
 
         @Override
         public void visit(ElementExists el) {
-            throw new FeatureException("FILTER EXISTS is not supported");
+            addExists(SemiJoinOp.Mode.EXISTS, el.getElement());
         }
 
         @Override
         public void visit(ElementNotExists el) {
-            throw new FeatureException("FILTER NOT EXISTS is not supported");
+            addExists(SemiJoinOp.Mode.NOT_EXISTS, el.getElement());
         }
 
         @Override
         public void visit(ElementMinus el) {
-            throw new FeatureException("MINUS is not supported");
+            if (op == null)
+                throw new FeatureException("MINUS without a preceding pattern is not supported");
+            Op right = convertNested(el.getMinusElement());
+            op = new SemiJoinOp(SemiJoinOp.Mode.MINUS, op, right);
         }
 
         @Override
@@ -374,109 +534,155 @@ public class ConvertVisitor implements QueryVisitor {
         @Override
         public void visit(ElementPathBlock el) {
             MutableCQuery cQuery = getMutableCQuery();
+            List<PathOp> pathOps = new ArrayList<>();
             for (Iterator<TriplePath> it = el.patternElts(); it.hasNext(); ) {
                 TriplePath path = it.next();
                 Triple triple = path.asTriple();
-                if (triple != null) {
+                if (triple != null)
                     addTriple(cQuery, fromJena(triple));
-                    continue;
-                }
-                List<Term> terms = new ArrayList<>();
-                terms.add(fromJena(path.getSubject()));
-                path.getPath().visit(new PathVisitor() {
-                    @Override
-                    public void visit(P_Link pathNode) {
-                        terms.add(fromJena(pathNode.getNode()));
-                    }
-
-                    @Override
-                    public void visit(P_Seq pathSeq) {
-                        pathSeq.getLeft().visit(this);
-                        StdVar hidden = SPARQLParser.hidden(++lastHidden);
-                        terms.add(hidden); //as object ...
-                        terms.add(hidden); //and subject of next triple
-                        pathSeq.getRight().visit(this);
-                    }
-
-                    @Override
-                    public void visit(P_ReverseLink pathNode) {
-                        throw new FeatureException("SPARQL 1.1 paths with ^ are not supported (yet)");
-                    }
-
-                    @Override
-                    public void visit(P_NegPropSet pathNotOneOf) {
-                        throw new FeatureException("SPARQL 1.1 paths with ! are not supported");
-                    }
-
-                    @Override
-                    public void visit(P_Inverse inversePath) {
-                        throw new FeatureException("SPARQL 1.1 paths with ^ are not supported (yet)");
-                    }
-
-                    @Override
-                    public void visit(P_Mod pathMod) {
-                        throw new FeatureException("Jena {M,N} path extension is not supported");
-                    }
-
-                    @Override
-                    public void visit(P_FixedLength pFixedLength) {
-                        throw new FeatureException("Jena {N} path extension is not supported");
-                    }
-
-                    @Override
-                    public void visit(P_Distinct pathDistinct) {
-                        throw new FeatureException("Jena P_Distinct path extension is not supported");
-                    }
+                else
+                    addPath(cQuery, pathOps, fromJena(path.getSubject()), path.getPath(),
+                            fromJena(path.getObject()));
+            }
+            if (!cQuery.isEmpty() || pathOps.isEmpty())
+                saveCQuery(cQuery);
+            for (PathOp pathOp : pathOps)
+                savePathOp(pathOp);
+        }
 
-                    @Override
-                    public void visit(P_Multi pathMulti) {
-                        throw new FeatureException("Jena P_Multi path extension is not supported");
-                    }
+        private void savePathOp(@Nonnull PathOp pathOp) {
+            pathOp.offerVarsUniverse(varsUniverse);
+            pathOp.offerTriplesUniverse(triplesUniverse);
+            if (op == null)
+                op = pathOp;
+            else if (op instanceof ConjunctionOp)
+                ((ConjunctionOp) op).addChild(pathOp);
+            else
+                op = ConjunctionOp.builder().add(op).add(pathOp).build();
+        }
 
-                    @Override
-                    public void visit(P_Shortest pathShortest) {
-                        throw new FeatureException("Jena shortest path extension is not supported");
-                    }
+        private void addPath(@Nonnull MutableCQuery query, @Nonnull List<PathOp> pathOps,
+                             @Nonnull Term subj, @Nonnull Path path, @Nonnull Term obj) {
+            if (path instanceof P_Link) {
+                addTriple(query, subj, fromJena(((P_Link) path).getNode()), obj);
+            } else if (path instanceof P_ReverseLink) {
+                addTriple(query, obj, fromJena(((P_ReverseLink) path).getNode()), subj);
+            } else if (path instanceof P_Inverse) {
+                addPath(query, pathOps, obj, ((P_Inverse) path).getSubPath(), subj);
+            } else if (path instanceof P_Seq) {
+                List<Path> steps = new ArrayList<>();
+                flattenSeq(path, steps);
+                Term s = subj;
+                for (int i = 0, last = steps.size()-1; i <= last; i++) {
+                    Term o = i == last ? obj : SPARQLParser.hidden(++lastHidden);
+                    addPath(query, pathOps, s, steps.get(i), o);
+                    s = o;
+                }
+            } else if (path instanceof P_NegPropSet) {
+                P_NegPropSet neg = (P_NegPropSet) path;
+                boolean reverse = isReverse(neg);
+                StdVar predicate = SPARQLParser.hidden(++lastHidden);
+                if (reverse) addTriple(query, obj, predicate, subj);
+                else         addTriple(query, subj, predicate, obj);
+                varsUniverse.add(predicate.getName());
+                StringBuilder b = new StringBuilder();
+                b.append('?').append(predicate.getName()).append(" NOT IN (");
+                for (Term excluded : excludedOf(neg))
+                    b.append(RDFUtils.toNT(excluded)).append(", ");
+                b.setLength(b.length()-2);
+                SPARQLFilter filter = JenaSPARQLFilter.build(b.append(')').toString());
+                filter.offerVarsNamesUniverse(varsUniverse);
+                groupFilters.add(filter);
+            } else if (quantifierOf(path) != null) {
+                SimplePath.Builder builder = SimplePath.builder();
+                addHop(builder, ((P_Path1) path).getSubPath(), false);
+                if (subj.isVar()) tripleVars.parentAdd(subj.asVar().getName());
+                if (obj.isVar()) tripleVars.parentAdd(obj.asVar().getName());
+                pathOps.add(new PathOp(subj, builder.build(), quantifierOf(path), obj));
+            } else {
+                throw unsupported(path);
+            }
+        }
 
-                    @Override
-                    public void visit(P_ZeroOrOne path) {
-                        throw new FeatureException("SPARQL 1.1 paths with ? are not supported");
-                    }
+        /** Hidden variables are numbered from subject to object along a sequence path. */
+        private void flattenSeq(@Nonnull Path path, @Nonnull List<Path> steps) {
+            if (path instanceof P_Seq) {
+                flattenSeq(((P_Seq) path).getLeft(), steps);
+                flattenSeq(((P_Seq) path).getRight(), steps);
+            } else {
+                steps.add(path);
+            }
+        }
 
-                    @Override
-                    public void visit(P_ZeroOrMore1 path) {
-                        throw new FeatureException("SPARQL 1.1 paths with * are not supported");
-                    }
+        private void addHop(@Nonnull SimplePath.Builder builder, @Nonnull Path path,
+                            boolean reverse) {
+            if (path instanceof P_Link) {
+                Term predicate = fromJena(((P_Link) path).getNode());
+                if (reverse) builder.from(predicate);
+                else         builder.to(predicate);
+            } else if (path instanceof P_ReverseLink) {
+                Term predicate = fromJena(((P_ReverseLink) path).getNode());
+                if (reverse) builder.to(predicate);
+                else         builder.from(predicate);
+            } else if (path instanceof P_Inverse) {
+                addHop(builder, ((P_Inverse) path).getSubPath(), !reverse);
+            } else if (path instanceof P_Seq) {
+                P_Seq seq = (P_Seq) path;
+                addHop(builder, reverse ? seq.getRight() : seq.getLeft(), reverse);
+                addHop(builder, reverse ? seq.getLeft() : seq.getRight(), reverse);
+            } else if (path instanceof P_NegPropSet) {
+                P_NegPropSet neg = (P_NegPropSet) path;
+                if (reverse != isReverse(neg)) builder.notFrom(excludedOf(neg));
+                else                           builder.notTo(excludedOf(neg));
+            } else if (quantifierOf(path) != null) {
+                throw new FeatureException("Nested SPARQL 1.1 path closures are not supported");
+            } else {
+                throw unsupported(path);
+            }
+        }
 
-                    @Override
-                    public void visit(P_ZeroOrMoreN path) {
-                        throw new FeatureException("SPARQL 1.1 paths with * are not supported");
-                    }
+        /** Whether a negated property set has only inverse (<code>^p</code>) members. */
+        private boolean isReverse(@Nonnull P_NegPropSet path) {
+            boolean hasFwd = !path.getFwdNodes().isEmpty(), hasBwd = !path.getBwdNodes().isEmpty();
+            if (hasFwd && hasBwd) {
+                throw new FeatureException("SPARQL 1.1 paths with ! mixing direct and " +
+                                           "inverse (^) properties are not supported");
+            }
+            return hasBwd;
+        }
 
-                    @Override
-                    public void visit(P_OneOrMore1 path) {
-                        throw new FeatureException("SPARQL 1.1 paths with + are not supported");
-                    }
+        private @Nonnull List<Term> excludedOf(@Nonnull P_NegPropSet path) {
+            List<Node> nodes = isReverse(path) ? path.getBwdNodes() : path.getFwdNodes();
+            List<Term> terms = new ArrayList<>(nodes.size());
+            for (Node node : nodes)
+                terms.add(fromJena(node));
+            return terms;
+        }
 
-                    @Override
-                    public void visit(P_OneOrMoreN path) {
-                        throw new FeatureException("SPARQL 1.1 paths with + are not supported");
-                    }
+        private @Nullable PathOp.Quantifier quantifierOf(@Nonnull Path path) {
+            if (path instanceof P_ZeroOrOne)
+                return PathOp.Quantifier.ZERO_OR_ONE;
+            if (path instanceof P_ZeroOrMore1 || path instanceof P_ZeroOrMoreN)
+                return PathOp.Quantifier.ZERO_OR_MORE;
+            if (path instanceof P_OneOrMore1 || path instanceof P_OneOrMoreN)
+                return PathOp.Quantifier.ONE_OR_MORE;
+            return null;
+        }
 
-                    @Override
-                    public void visit(P_Alt pathAlt) {
-                        throw new FeatureException("SPARQL 1.1 paths with | are not supported");
-                    }
-                });
-                terms.add(fromJena(path.getObject()));
-                if ((terms.size() % 3) != 0) {
-                    throw new IllegalArgumentException("SPARQL 1.1 path yielded a triple with " +
-                                                       "less than 3 terms. This is likely a bug");
-                }
-                for (int i = 0; i < terms.size(); i += 3)
-                    addTriple(cQuery, terms.get(i), terms.get(i+1), terms.get(i+2));
-            }
-            saveCQuery(cQuery);
+        private @Nonnull FeatureException unsupported(@Nonnull Path path) {
+            if (path instanceof P_Alt)
+                return new FeatureException("SPARQL 1.1 paths with | are not supported");
+            if (path instanceof P_Mod)
+                return new FeatureException("Jena {M,N} path extension is not supported");
+            if (path instanceof P_FixedLength)
+                return new FeatureException("Jena {N} path extension is not supported");
+            if (path instanceof P_Distinct)
+                return new FeatureException("Jena P_Distinct path extension is not supported");
+            if (path instanceof P_Multi)
+                return new FeatureException("Jena P_Multi path extension is not supported");
+            if (path instanceof P_Shortest)
+                return new FeatureException("Jena shortest path extension is not supported");
+            return new FeatureException("Unsupported SPARQL 1.1 path: "+path);
         }
     }
 }
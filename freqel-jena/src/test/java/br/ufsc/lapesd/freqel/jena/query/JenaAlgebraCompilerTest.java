@@ -0,0 +1,87 @@
+package br.ufsc.lapesd.freqel.jena.query;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.model.term.std.StdBlank;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.modifiers.*;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.impl.MapSolution;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+import static br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilterFactory.parseFilter;
+import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static br.ufsc.lapesd.freqel.query.results.impl.CollectionResults.greedy;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static org.apache.jena.query.QueryExecutionFactory.create;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+@Test(groups = {"fast"})
+public class JenaAlgebraCompilerTest implements TestContext {
+    private ARQEndpoint algebraEp, sparqlEp;
+
+    @BeforeClass(groups = {"fast"})
+    public void beforeClass() {
+        String ttl = "@prefix foaf: <http://xmlns.com/foaf/0.1/> .\n" +
+                "@prefix ex: <" + EX + "> .\n" +
+                "ex:Alice foaf:knows ex:Bob, ex:Charlie ; foaf:age 23 .\n" +
+                "ex:Bob foaf:knows ex:Charlie ; foaf:age 25 .\n" +
+                "ex:Charlie foaf:age 19 .\n";
+        Model model = ModelFactory.createDefaultModel();
+        RDFDataMgr.read(model, new ByteArrayInputStream(ttl.getBytes(UTF_8)), Lang.TTL);
+        algebraEp = ARQEndpoint.forModel(model, "algebra");
+        sparqlEp = new ARQEndpoint("sparql", q -> create(q, model), null, () -> {}, true);
+    }
+
+    @DataProvider public @Nonnull Object[][] queryData() {
+        return new Object[][] {
+                new Object[] {createQuery(x, knows, y)},
+                new Object[] {createQuery(x, knows, y, y, age, z)},
+                new Object[] {createQuery(x, knows, y, y, age, z, parseFilter("?z > 20"))},
+                new Object[] {createQuery(x, knows, y,
+                        new ValuesModifier(singleton("x"), asList(MapSolution.build(x, Bob),
+                                                                  MapSolution.build(x, Dave))))},
+                new Object[] {createQuery(x, knows, y, Projection.of("x"))},
+                new Object[] {createQuery(x, knows, y, Projection.of("x"), Distinct.INSTANCE)},
+                new Object[] {createQuery(x, knows, new StdBlank("b"),
+                                          new StdBlank("b"), age, z)},
+                new Object[] {createQuery(Alice, knows, Bob, Ask.INSTANCE)},
+                new Object[] {createQuery(Bob, knows, Alice, Ask.INSTANCE)},
+        };
+    }
+
+    @Test(dataProvider = "queryData")
+    public void testSameResultsAsSPARQL(@Nonnull CQuery query) {
+        assertNotNull(JenaAlgebraCompiler.compile(query));
+        Set<Solution> expected = new HashSet<>(greedy(sparqlEp.query(query)).getCollection());
+        Set<Solution> actual = new HashSet<>(greedy(algebraEp.query(query)).getCollection());
+        assertEquals(actual, expected);
+    }
+
+    @Test
+    public void testLimit() {
+        CQuery query = createQuery(x, knows, y, Limit.of(2));
+        assertEquals(greedy(algebraEp.query(query)).getCollection().size(), 2);
+    }
+
+    @Test
+    public void testDistinctVarsCount() {
+        CQuery query = createQuery(x, knows, y, Projection.of("x"), Distinct.INSTANCE);
+        assertEquals(greedy(algebraEp.query(query)).getCollection().size(), 2);
+        query = createQuery(x, knows, y, Projection.of("x"));
+        assertEquals(greedy(algebraEp.query(query)).getCollection().size(), 3);
+    }
+}
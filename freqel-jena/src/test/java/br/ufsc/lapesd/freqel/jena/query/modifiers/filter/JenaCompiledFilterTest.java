@@ -0,0 +1,79 @@
+package br.ufsc.lapesd.freqel.jena.query.modifiers.filter;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.model.term.std.StdBlank;
+import br.ufsc.lapesd.freqel.model.term.std.StdLit;
+import br.ufsc.lapesd.freqel.model.term.std.StdURI;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.impl.ArraySolution;
+import br.ufsc.lapesd.freqel.query.results.impl.MapSolution;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class JenaCompiledFilterTest implements TestContext {
+    private static final @Nonnull String XSD = "http://www.w3.org/2001/XMLSchema#";
+    private final @Nonnull List<Term> values = asList(
+            Alice, new StdBlank("b1"), lit(1), lit(23), integer(23), lit(-7), lit(2.5),
+            StdLit.fromUnescaped("23.0", xsdDecimal), StdLit.fromUnescaped("0.1", xsdDecimal),
+            StdLit.fromUnescaped("1e1", xsdDouble), StdLit.fromUnescaped("abc", xsdInt),
+            StdLit.fromUnescaped("300", new StdURI(XSD+"byte")),
+            lit("alice"), lit("Alice"), lit("Alice", "en"), lit("Alice", "en-US"),
+            lit("Alicia", "es"), lit(""), date("2019-11-02"),
+            StdLit.fromUnescaped("true", xsdBoolean));
+
+    @DataProvider public @Nonnull Object[][] filterData() {
+        return asList(
+                "?x = 23", "?x != 23", "?x < 23", "?x <= 23.0", "?x > 1.5", "?x >= -7",
+                "23 = ?x", "?x > ?y", "?x = ?y", "?x = <http://example.org/Alice>",
+                "?x != <http://example.org/Alice>", "?x = \"Alice\"", "?x < \"b\"",
+                "?x = \"Alice\"@en", "?x = \"2019-11-02\"^^<http://www.w3.org/2001/XMLSchema#date>",
+                "?x > \"2019-01-01\"^^<http://www.w3.org/2001/XMLSchema#date>",
+                "?x = 1e1", "?x = \"0.1\"^^<http://www.w3.org/2001/XMLSchema#float>",
+                "?x > 1 && ?x < 30", "?x < 1 || ?x > 20", "!(?x > 1)", "?y > 1 || ?x > 1",
+                "?y > 1 && ?x > 1", "!(?y > 1)", "bound(?x)", "!bound(?y)",
+                "isIRI(?x)", "isLiteral(?x)", "isBlank(?x)", "isIRI(?y)",
+                "regex(?x, \"^ali\")", "regex(?x, \"^ali\", \"i\")", "regex(str(?x), \"Alice$\")",
+                "regex(?x, \"a\", \"q\")", "str(?x) = \"23\"", "lang(?x) = \"en\"",
+                "lang(?x) = \"\"", "langMatches(lang(?x), \"en\")",
+                "langMatches(lang(?x), \"*\")", "lcase(?x) = \"alice\"",
+                "ucase(str(?x)) = \"ALICE\"", "strstarts(?x, \"Al\")", "strends(?x, \"ce\")",
+                "contains(?x, \"lic\")", "strstarts(str(?x), \"http://\")",
+                "strlen(?x) > 3", "?x", "abs(?x) > 5 && isLiteral(?x)", "?x + 1 > 10"
+        ).stream().map(s -> new Object[] {s}).toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "filterData")
+    public void testSameAsJena(@Nonnull String filterString) {
+        JenaSPARQLFilter filter = JenaSPARQLFilter.build(filterString);
+        JenaSPARQLFilterExecutor executor = new JenaSPARQLFilterExecutor();
+        List<Solution> solutions = new ArrayList<>();
+        solutions.add(ArraySolution.EMPTY);
+        for (Term value : values) {
+            solutions.add(MapSolution.build(x, value));
+            solutions.add(MapSolution.builder().put(x, value).put(y, integer(5)).build());
+        }
+        for (Solution solution : solutions) {
+            assertEquals(executor.evaluate(filter, solution),
+                         executor.evaluateWithJena(filter, solution),
+                         "filter=" + filter + ", solution=" + solution);
+        }
+    }
+
+    @Test
+    public void testCompiles() {
+        assertTrue(JenaSPARQLFilter.build("?x > 23 && regex(str(?y), \"a\")")
+                                   .getCompiled().isCompiled());
+        assertTrue(JenaSPARQLFilter.build("langMatches(lang(?x), \"en\")")
+                                   .getCompiled().isCompiled());
+        assertFalse(JenaSPARQLFilter.build("strlen(?x) > 3").getCompiled().isCompiled());
+    }
+}
@@ -3,10 +3,14 @@ package br.ufsc.lapesd.freqel.jena.query.parse;
 import br.ufsc.lapesd.freqel.TestContext;
 import br.ufsc.lapesd.freqel.algebra.Op;
 import br.ufsc.lapesd.freqel.algebra.inner.ConjunctionOp;
+import br.ufsc.lapesd.freqel.algebra.inner.PipeOp;
+import br.ufsc.lapesd.freqel.algebra.inner.SemiJoinOp;
 import br.ufsc.lapesd.freqel.algebra.inner.UnionOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.PathOp;
 import br.ufsc.lapesd.freqel.algebra.leaf.QueryOp;
 import br.ufsc.lapesd.freqel.algebra.util.TreeUtils;
 import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.SimplePath;
 import br.ufsc.lapesd.freqel.query.modifiers.*;
 import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilterFactory;
 import br.ufsc.lapesd.freqel.query.parse.SPARQLParseException;
@@ -21,6 +25,7 @@ import org.testng.annotations.Test;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
@@ -64,9 +69,73 @@ public class SPARQLParserTest implements TestContext {
                 asList(prolog+"ASK WHERE {?x ?p ?o.}", true,
                        createQuery(TestContext.x, TestContext.p, TestContext.o, Ask.INSTANCE),
                        null),
-                asList(prolog+"ASK WHERE {?x rdf:type/rdfs:subClassOf* ?o.}", true,
+                asList(prolog+"ASK WHERE {?x rdf:type/(rdfs:subClassOf|ex:p) ?o.}", true,
                        null,
                        UnsupportedSPARQLFeatureException.class),
+                asList(prolog+"ASK WHERE {?x (foaf:knows*/ex:p)+ ?o.}", true,
+                       null,
+                       UnsupportedSPARQLFeatureException.class),
+                asList(prolog+"SELECT * WHERE {?x foaf:knows+ ?y.}", true,
+                       new PathOp(TestContext.x, SimplePath.to(TestContext.knows).build(),
+                                  PathOp.Quantifier.ONE_OR_MORE, TestContext.y),
+                       null),
+                asList(prolog+"SELECT * WHERE {\n" +
+                               "ex:Alice foaf:name ?y ;\n" +
+                               "         (foaf:knows/^foaf:knows)* ?x.\n}", true,
+                       ConjunctionOp.builder()
+                               .add(new QueryOp(createQuery(TestContext.Alice, TestContext.name, TestContext.y)))
+                               .add(new PathOp(TestContext.Alice,
+                                               SimplePath.to(TestContext.knows)
+                                                         .from(TestContext.knows).build(),
+                                               PathOp.Quantifier.ZERO_OR_MORE, TestContext.x))
+                               .build(),
+                       null),
+                asList(prolog+"SELECT * WHERE {?x !(foaf:knows|foaf:name) ?y.}", true,
+                       createQuery(TestContext.x, hidden(0), TestContext.y,
+                                   SPARQLFilterFactory.parseFilter("?"+hidden(0).getName()+
+                                           " NOT IN (<"+FOAF.knows.getURI()+">, " +
+                                                    "<"+FOAF.name.getURI()+">)"),
+                                   Projection.of("x", "y")),
+                       null),
+                asList(prolog+"SELECT * WHERE {?x !^foaf:knows ?y.}", true,
+                       createQuery(TestContext.y, hidden(0), TestContext.x,
+                                   SPARQLFilterFactory.parseFilter("?"+hidden(0).getName()+
+                                           " NOT IN (<"+FOAF.knows.getURI()+">)"),
+                                   Projection.of("x", "y")),
+                       null),
+                asList(prolog+"SELECT * WHERE {?x (!foaf:name)+ ?y.}", true,
+                       new PathOp(TestContext.x,
+                                  SimplePath.builder()
+                                            .notTo(Collections.singletonList(TestContext.name))
+                                            .build(),
+                                  PathOp.Quantifier.ONE_OR_MORE, TestContext.y),
+                       null),
+                asList(prolog+"SELECT * WHERE {?x (^foaf:knows/!^foaf:name)* ?y.}", true,
+                       new PathOp(TestContext.x,
+                                  SimplePath.from(TestContext.knows)
+                                            .notFrom(Collections.singletonList(TestContext.name))
+                                            .build(),
+                                  PathOp.Quantifier.ZERO_OR_MORE, TestContext.y),
+                       null),
+                asList(prolog+"SELECT * WHERE {?x !(foaf:knows|^foaf:name) ?y.}", true,
+                       null, UnsupportedSPARQLFeatureException.class),
+                asList(prolog+"SELECT * WHERE {\n" +
+                               "?x foaf:knows ?y.\n" +
+                               "MINUS { ?y foaf:age ?u. }\n}", true,
+                       new SemiJoinOp(SemiJoinOp.Mode.MINUS,
+                                      new QueryOp(createQuery(TestContext.x, TestContext.knows, TestContext.y)),
+                                      new QueryOp(createQuery(TestContext.y, TestContext.age, TestContext.u))),
+                       null),
+                asList(prolog+"SELECT * WHERE {\n" +
+                               "FILTER NOT EXISTS { ?y foaf:age ?u. }\n" +
+                               "?x foaf:knows ?y.\n}", true,
+                       new SemiJoinOp(SemiJoinOp.Mode.NOT_EXISTS,
+                                      new QueryOp(createQuery(TestContext.x, TestContext.knows, TestContext.y)),
+                                      new QueryOp(createQuery(TestContext.y, TestContext.age, TestContext.u))),
+                       null),
+                asList(prolog+"ASK WHERE {\n" +
+                               "FILTER EXISTS { ?y foaf:age ?u. }\n}", true,
+                       null, UnsupportedSPARQLFeatureException.class),
                 asList("DESCRIBE <"+ TestContext.EX+"Alice>", true, null, UnsupportedSPARQLFeatureException.class),
                 asList(prolog+"SELECT * WHERE {\n" +
                                 "ex:Alice foaf:knows ?x.\n" +
@@ -275,6 +344,81 @@ public class SPARQLParserTest implements TestContext {
         ).map(List::toArray).toArray(Object[][]::new);
     }
 
+    @DataProvider
+    public static @Nonnull Object[][] groupByData() {
+        String prolog = "PREFIX foaf: <"+ FOAF.getURI() +">\n";
+        return Stream.of(
+                asList(prolog+"SELECT ?x (COUNT(*) AS ?c) WHERE {?x foaf:knows ?y.} GROUP BY ?x",
+                       true, pipe(new QueryOp(createQuery(TestContext.x, TestContext.knows,
+                                                           TestContext.y, Projection.of("x"))),
+                                  Aggregation.of(Collections.singleton("x"),
+                                                 Aggregation.Aggregate.countAll("c")),
+                                  Projection.of("x", "c")),
+                       null),
+                asList(prolog+"SELECT (SUM(DISTINCT ?u) AS ?s) (MAX(?u) AS ?m) WHERE {\n" +
+                               "  ?x foaf:age ?u.\n}", true,
+                       pipe(new QueryOp(createQuery(TestContext.x, TestContext.age,
+                                                    TestContext.u, Projection.of("u"))),
+                            Aggregation.of(Collections.emptySet(),
+                                    new Aggregation.Aggregate(Aggregation.Function.SUM, "u",
+                                                              "s", true),
+                                    Aggregation.Aggregate.of(Aggregation.Function.MAX, "u",
+                                                             "m")),
+                            Projection.of("s", "m")),
+                       null),
+                asList(prolog+"SELECT DISTINCT ?y (COUNT(?x) AS ?c) WHERE {\n" +
+                               "  ?x foaf:knows ?y.\n} GROUP BY ?y LIMIT 10", true,
+                       pipe(new QueryOp(createQuery(TestContext.x, TestContext.knows,
+                                                    TestContext.y)),
+                            Aggregation.of(Collections.singleton("y"),
+                                    Aggregation.Aggregate.of(Aggregation.Function.COUNT, "x",
+                                                             "c")),
+                            Projection.of("y", "c"), Distinct.INSTANCE, Limit.of(10)),
+                       null),
+                asList(prolog+"SELECT ?x (COUNT(*)+1 AS ?c) WHERE {?x foaf:knows ?y.} GROUP BY ?x",
+                       true, null, UnsupportedSPARQLFeatureException.class),
+                asList(prolog+"SELECT (COUNT(*) AS ?c) WHERE {?x foaf:knows ?y.} GROUP BY (str(?x))",
+                       true, null, UnsupportedSPARQLFeatureException.class),
+                asList(prolog+"SELECT (GROUP_CONCAT(?y) AS ?c) WHERE {?x foaf:knows ?y.}",
+                       true, null, UnsupportedSPARQLFeatureException.class)
+        ).map(List::toArray).toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "groupByData")
+    public void testParseGroupBy(@Nonnull String sparql, boolean strict, @Nullable Op expected,
+                                 Class<? extends Throwable> exception) throws Exception {
+        SPARQLParser parser = strict ? SPARQLParser.strict() : SPARQLParser.tolerant();
+        if (exception == null) {
+            assertNotNull(expected); // bad test data
+            Op query = parser.parse(sparql);
+            assertEquals(query.getMatchedTriples(), expected.getMatchedTriples());
+            assertEquals(query.modifiers(), expected.modifiers());
+            assertEquals(query.getResultVars(), expected.getResultVars());
+            //noinspection SimplifiedTestNGAssertion
+            assertTrue(query.equals(expected));
+            assertTripleUniverse(query);
+            assertVarsUniverse(query);
+        } else {
+            assertNull(expected); //bad test data
+            expectThrows(exception, () -> parser.parse(sparql));
+        }
+    }
+
+    @Test
+    public void testTolerantErasesGroupBy() throws Exception {
+        String sparql = "PREFIX foaf: <"+ FOAF.getURI() +">\n" +
+                "SELECT ?x (COUNT(*) AS ?c) WHERE {?x foaf:knows ?y.} GROUP BY ?x";
+        Op query = SPARQLParser.tolerant().parse(sparql);
+        assertEquals(TreeUtils.streamPreOrder(query).filter(PipeOp.class::isInstance).count(), 0);
+        assertNull(query.modifiers().aggregation());
+    }
+
+    private static @Nonnull PipeOp pipe(@Nonnull Op child, @Nonnull Modifier... modifiers) {
+        PipeOp pipe = new PipeOp(child);
+        pipe.modifiers().addAll(asList(modifiers));
+        return pipe;
+    }
+
     @Test(dataProvider = "parseData")
     public void testParse(@Nonnull String sparql, boolean strict, @Nullable Object expectedObj,
                           Class<? extends Throwable> exception) throws Exception {
@@ -0,0 +1,170 @@
+package br.ufsc.lapesd.freqel.algebra.inner;
+
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.query.modifiers.Modifier;
+import br.ufsc.lapesd.freqel.query.modifiers.Projection;
+import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilter;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Keeps the solutions of the left child that have (or do not have) a compatible solution
+ * on the right child. The right child never contributes bindings to the results.
+ *
+ * This represents <code>FILTER EXISTS</code>, <code>FILTER NOT EXISTS</code> and
+ * <code>MINUS</code>. The difference between the last two is that <code>MINUS</code> does
+ * not remove anything if the left and right sides share no variable.
+ */
+public class SemiJoinOp extends AbstractInnerOp {
+    public enum Mode {
+        EXISTS,
+        NOT_EXISTS,
+        MINUS;
+
+        /** Whether left solutions with a compatible right solution are removed. */
+        public boolean isAnti() {
+            return this != EXISTS;
+        }
+
+        public @Nonnull String getSymbol() {
+            return isAnti() ? "▷" : "⋉";
+        }
+    }
+
+    private final @Nonnull Mode mode;
+
+    protected SemiJoinOp(@Nonnull Mode mode, @Nonnull List<Op> children) {
+        super(children);
+        assert children.size() == 2;
+        this.mode = mode;
+    }
+
+    public SemiJoinOp(@Nonnull Mode mode, @Nonnull Op left, @Nonnull Op right) {
+        this(mode, new ArrayList<>(Arrays.asList(left, right)));
+    }
+
+    public @Nonnull Mode getMode() {
+        return mode;
+    }
+
+    public @Nonnull Op getLeft() {
+        return getChildren().get(0);
+    }
+
+    public @Nonnull Op getRight() {
+        return getChildren().get(1);
+    }
+
+    /**
+     * Variables whose values decide whether a left solution is compatible with a right
+     * solution: left result variables also exposed by the right side.
+     */
+    public @Nonnull Set<String> getJoinVars() {
+        Set<String> set = new HashSet<>(getLeft().getResultVars());
+        set.retainAll(getRight().getResultVars());
+        return set;
+    }
+
+    @Override public @Nonnull List<Op> setChildren(@Nonnull List<Op> children) {
+        checkArgument(children.size() == 2, "SemiJoinOp MUST have exactly two children");
+        return super.setChildren(children);
+    }
+
+    @Override public void addChild(@Nonnull Op child) {
+        throw new UnsupportedOperationException("A SemiJoinOp cannot addChild()");
+    }
+
+    /**
+     * Variables of the right side are not visible outside this node, unless they are
+     * inputs to it.
+     */
+    @Override
+    public @Nonnull Set<String> getAllVars() {
+        if (allVarsCache == null) {
+            cacheHit = true;
+            Set<String> set = new HashSet<>(getLeft().getPublicVars());
+            set.addAll(getRight().getRequiredInputVars());
+            for (SPARQLFilter filter : modifiers().filters())
+                set.addAll(filter.getVarNames());
+            allVarsCache = varsUniverse != null ? varsUniverse.subset(set) : set;
+        }
+        return allVarsCache;
+    }
+
+    @Override
+    public @Nonnull Set<String> getResultVars() {
+        if (resultVarsCache == null) {
+            cacheHit = true;
+            Projection projection = modifiers().projection();
+            Set<String> set = projection != null ? projection.getVarNames()
+                                                 : getLeft().getResultVars();
+            resultVarsCache = varsUniverse != null ? varsUniverse.subset(set) : set;
+        }
+        return resultVarsCache;
+    }
+
+    @Override
+    public @Nonnull Set<String> getRequiredInputVars() {
+        if (reqInputsCache == null) {
+            cacheHit = true;
+            Set<String> leftResults = getLeft().getResultVars();
+            Set<String> set = new HashSet<>(getLeft().getRequiredInputVars());
+            for (String v : getRight().getRequiredInputVars()) {
+                if (!leftResults.contains(v)) set.add(v);
+            }
+            for (SPARQLFilter filter : modifiers().filters()) {
+                for (String v : filter.getVarNames()) {
+                    if (!leftResults.contains(v)) set.add(v);
+                }
+            }
+            reqInputsCache = varsUniverse != null ? varsUniverse.subset(set) : set;
+        }
+        return reqInputsCache;
+    }
+
+    @Override
+    public @Nonnull Set<String> getOptionalInputVars() {
+        if (optInputsCache == null) {
+            cacheHit = true;
+            Set<String> set = new HashSet<>(getLeft().getOptionalInputVars());
+            set.removeAll(getRequiredInputVars());
+            optInputsCache = varsUniverse != null ? varsUniverse.subset(set) : set;
+        }
+        return optInputsCache;
+    }
+
+    @Override protected @Nonnull StringBuilder prettyPrintNodeType(@Nonnull StringBuilder builder) {
+        return builder.append(mode.getSymbol()).append(mode);
+    }
+
+    @Override protected @Nonnull String toStringSeparator() {
+        return " " + mode.getSymbol() + " ";
+    }
+
+    @Override
+    public @Nonnull Op createWith(@Nonnull List<Op> children, @Nullable Collection<Modifier> mods) {
+        checkArgument(children.size() == 2);
+        SemiJoinOp op = new SemiJoinOp(mode, children);
+        op.setCardinality(getCardinality());
+        if (mods != null)
+            op.modifiers().addAll(mods);
+        return op;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SemiJoinOp)) return false;
+        if (!super.equals(o)) return false;
+        return mode == ((SemiJoinOp) o).mode;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), mode);
+    }
+}
@@ -0,0 +1,270 @@
+package br.ufsc.lapesd.freqel.algebra.leaf;
+
+import br.ufsc.lapesd.freqel.algebra.AbstractOp;
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.util.TreeUtils;
+import br.ufsc.lapesd.freqel.model.Triple;
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.model.term.std.StdVar;
+import br.ufsc.lapesd.freqel.query.MutableCQuery;
+import br.ufsc.lapesd.freqel.query.SimplePath;
+import br.ufsc.lapesd.freqel.query.endpoint.CQEndpoint;
+import br.ufsc.lapesd.freqel.query.modifiers.ModifiersSet;
+import br.ufsc.lapesd.freqel.query.modifiers.Projection;
+import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilter;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.util.indexed.IndexSet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+import static java.util.Collections.emptySet;
+
+/**
+ * A SPARQL 1.1 property path closure: <code>subject (path)? object</code>,
+ * <code>subject (path)* object</code> or <code>subject (path)+ object</code>.
+ *
+ * The repeated path (the hop) is a {@link SimplePath}, i.e., a sequence of possibly inverted
+ * predicates. During planning, the hop query ({@link #createHopQuery()}) is planned as any
+ * other conjunctive query and the resulting plan is stored with {@link #setHopPlan(Op)}.
+ * If only a single source can answer the hop, it is also stored with
+ * {@link #setSource(CQEndpoint)} and the whole path is sent to that source.
+ */
+public class PathOp extends AbstractOp {
+    /** Variable bound to the start of a hop in {@link #createHopQuery()} */
+    public static final @Nonnull String HOP_IN = "freqelPathHopIn";
+    /** Variable bound to the end of a hop in {@link #createHopQuery()} */
+    public static final @Nonnull String HOP_OUT = "freqelPathHopOut";
+
+    public enum Quantifier {
+        ZERO_OR_ONE("?"),
+        ZERO_OR_MORE("*"),
+        ONE_OR_MORE("+");
+
+        private final @Nonnull String symbol;
+
+        Quantifier(@Nonnull String symbol) {
+            this.symbol = symbol;
+        }
+
+        /** Whether the path relates every node to itself. */
+        public boolean allowsZero() {
+            return this != ONE_OR_MORE;
+        }
+
+        /** Whether the hop may be repeated more than once */
+        public boolean allowsMany() {
+            return this != ZERO_OR_ONE;
+        }
+
+        public @Nonnull String getSymbol() {
+            return symbol;
+        }
+    }
+
+    private final @Nonnull Term subject, object;
+    private final @Nonnull SimplePath path;
+    private final @Nonnull Quantifier quantifier;
+    private final @Nonnull ModifiersSet modifiers = new ModifiersSet();
+    private @Nullable Op hopPlan;
+    private @Nullable CQEndpoint source;
+    private @Nullable IndexSet<Triple> triplesUniverse;
+    private @Nullable IndexSet<String> varsUniverse;
+
+    public PathOp(@Nonnull Term subject, @Nonnull SimplePath path,
+                  @Nonnull Quantifier quantifier, @Nonnull Term object) {
+        if (path.isEmpty())
+            throw new IllegalArgumentException("Empty path");
+        this.subject = subject;
+        this.path = path;
+        this.quantifier = quantifier;
+        this.object = object;
+        assertAllInvariants();
+    }
+
+    public @Nonnull Term getSubject() {
+        return subject;
+    }
+
+    public @Nonnull SimplePath getPath() {
+        return path;
+    }
+
+    public @Nonnull Quantifier getQuantifier() {
+        return quantifier;
+    }
+
+    public @Nonnull Term getObject() {
+        return object;
+    }
+
+    /**
+     * Creates a query that matches a single hop of the path, from {@link #HOP_IN} to
+     * {@link #HOP_OUT}.
+     */
+    public @Nonnull MutableCQuery createHopQuery() {
+        MutableCQuery query = new MutableCQuery();
+        query.add(new StdVar(HOP_IN), path, new StdVar(HOP_OUT));
+        if (!path.isSingle() || path.hasNegated())
+            query.mutateModifiers().add(Projection.of(HOP_IN, HOP_OUT));
+        return query;
+    }
+
+    /**
+     * Plan for {@link #createHopQuery()}, null if the path was not yet planned.
+     */
+    public @Nullable Op getHopPlan() {
+        return hopPlan;
+    }
+
+    public void setHopPlan(@Nullable Op hopPlan) {
+        this.hopPlan = hopPlan;
+    }
+
+    /**
+     * The single source that can answer all hops of the path, if any.
+     */
+    public @Nullable CQEndpoint getSource() {
+        return source;
+    }
+
+    public void setSource(@Nullable CQEndpoint source) {
+        this.source = source;
+    }
+
+    @Override public void offerTriplesUniverse(@Nonnull IndexSet<Triple> universe) {
+        triplesUniverse = universe;
+    }
+
+    @Override public @Nullable IndexSet<Triple> getOfferedTriplesUniverse() {
+        return triplesUniverse;
+    }
+
+    @Override public void offerVarsUniverse(@Nonnull IndexSet<String> universe) {
+        varsUniverse = universe;
+    }
+
+    @Override public @Nullable IndexSet<String> getOfferedVarsUniverse() {
+        return varsUniverse;
+    }
+
+    private @Nonnull Set<String> vars(@Nonnull Set<String> set) {
+        return varsUniverse == null ? set : varsUniverse.subset(set);
+    }
+
+    private @Nonnull Set<String> getEndVars() {
+        Set<String> set = new LinkedHashSet<>();
+        if (subject.isVar()) set.add(subject.asVar().getName());
+        if (object.isVar()) set.add(object.asVar().getName());
+        return set;
+    }
+
+    @Override public @Nonnull Set<String> getAllVars() {
+        cacheHit = true;
+        Set<String> set = getEndVars();
+        for (SPARQLFilter filter : modifiers.filters())
+            set.addAll(filter.getVarNames());
+        return vars(set);
+    }
+
+    @Override public @Nonnull Set<String> getResultVars() {
+        cacheHit = true;
+        Projection projection = modifiers.projection();
+        return vars(projection != null ? projection.getVarNames() : getEndVars());
+    }
+
+    @Override public @Nonnull Set<String> getStrictResultVars() {
+        return getResultVars();
+    }
+
+    @Override public @Nonnull Set<String> getPublicVars() {
+        return getResultVars();
+    }
+
+    @Override public @Nonnull Set<String> getInputVars() {
+        return vars(emptySet());
+    }
+
+    @Override public @Nonnull Set<String> getRequiredInputVars() {
+        return vars(emptySet());
+    }
+
+    @Override public @Nonnull Set<String> getOptionalInputVars() {
+        return vars(emptySet());
+    }
+
+    @Override public @Nonnull Set<Triple> getMatchedTriples() {
+        cacheHit = true;
+        return triplesUniverse == null ? emptySet() : triplesUniverse.emptySubset();
+    }
+
+    @Override public @Nonnull ModifiersSet modifiers() {
+        return modifiers;
+    }
+
+    private @Nonnull Term bind(@Nonnull Term term, @Nonnull Solution solution) {
+        return term.isVar() ? solution.get(term.asVar().getName(), term) : term;
+    }
+
+    @Override public @Nonnull Op createBound(@Nonnull Solution solution) {
+        PathOp bound = new PathOp(bind(subject, solution), path, quantifier,
+                                  bind(object, solution));
+        bound.copyPlanning(this);
+        TreeUtils.addBoundModifiers(bound.modifiers, modifiers, solution);
+        return bound;
+    }
+
+    @Override public @Nonnull Op flatCopy() {
+        PathOp copy = new PathOp(subject, path, quantifier, object);
+        copy.copyPlanning(this);
+        copy.modifiers.addAll(modifiers);
+        copy.copyCaches(this);
+        copy.setCardinality(getCardinality());
+        return copy;
+    }
+
+    private void copyPlanning(@Nonnull PathOp other) {
+        hopPlan = other.hopPlan;
+        source = other.source;
+        triplesUniverse = other.triplesUniverse;
+        varsUniverse = other.varsUniverse;
+    }
+
+    @Override public @Nonnull StringBuilder toString(@Nonnull StringBuilder builder) {
+        if (isProjected())
+            builder.append(getPiWithNames()).append('(');
+        builder.append("Path(").append(subject).append(' ')
+               .append(path).append(quantifier.getSymbol()).append(' ')
+               .append(object).append(')');
+        if (isProjected())
+            builder.append(')');
+        return builder;
+    }
+
+    @Override
+    public @Nonnull StringBuilder prettyPrint(@Nonnull StringBuilder builder,
+                                              @Nonnull String indent) {
+        toString(builder.append(indent)).append(' ').append(getName());
+        if (source != null)
+            builder.append(" @").append(source);
+        if (hopPlan != null)
+            hopPlan.prettyPrint(builder.append('\n'), indent + "  ");
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PathOp)) return false;
+        if (!super.equals(o)) return false;
+        PathOp pathOp = (PathOp) o;
+        return subject.equals(pathOp.subject) && object.equals(pathOp.object)
+                && path.equals(pathOp.path) && quantifier == pathOp.quantifier;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), subject, path, quantifier, object);
+    }
+}
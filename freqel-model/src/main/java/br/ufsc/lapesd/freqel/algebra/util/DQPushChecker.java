@@ -92,6 +92,11 @@ public class DQPushChecker {
                 else                                                 allowed = Role.OUTER;
             }
         }
+        if (op.modifiers().aggregation() != null) {
+            if (allowed == Role.INNER || !shared.hasCapability(Capability.AGGREGATION))
+                return Role.NONE;
+            allowed = Role.OUTER;
+        }
         return allowed;
     }
 
@@ -3,10 +3,23 @@ package br.ufsc.lapesd.freqel.cardinality;
 import br.ufsc.lapesd.freqel.algebra.Cardinality;
 import br.ufsc.lapesd.freqel.algebra.Cardinality.Reliability;
 import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.model.Triple;
+import br.ufsc.lapesd.freqel.model.prefix.PrefixDict;
+import br.ufsc.lapesd.freqel.model.prefix.StdPrefixDict;
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.model.term.std.StdVar;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.MutableCQuery;
+import br.ufsc.lapesd.freqel.query.modifiers.Modifier;
+import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilter;
 import com.google.common.base.Preconditions;
 
 import javax.annotation.Nonnull;
-import java.util.Comparator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.*;
 
 import static br.ufsc.lapesd.freqel.algebra.Cardinality.Reliability.GUESS;
 import static br.ufsc.lapesd.freqel.algebra.Cardinality.Reliability.NON_EMPTY;
@@ -44,4 +57,144 @@ public class CardinalityUtils {
         int diff = comparator.compare(l.getCardinality(), r.getCardinality());
         return diff >= 0 ? l : r;
     }
+
+    /**
+     * Get a string that is equal for any two queries that differ only on the names of
+     * variables (or blank nodes) and on the order of triples (when the order can be
+     * recovered from the triples themselves).
+     *
+     * Variables are renamed in order of first appearance after sorting the triples by their
+     * string representation with variables masked. Modifiers (including filters) are
+     * rewritten with the renamed variables and sorted.
+     */
+    public static @Nonnull String canonicalShape(@Nonnull CQuery query) {
+        PrefixDict dict = StdPrefixDict.EMPTY;
+        List<Triple> triples = new ArrayList<>(query.asList());
+        triples.sort(Comparator.comparing(t -> maskedString(t, dict)));
+        Map<Term, Term> renaming = new HashMap<>();
+        for (Triple triple : triples)
+            triple.forEach(t -> rename(renaming, t));
+        List<String> filterVars = new ArrayList<>();
+        for (SPARQLFilter filter : query.getModifiers().filters())
+            filterVars.addAll(filter.getVarNames());
+        Collections.sort(filterVars);
+        for (String name : filterVars)
+            rename(renaming, new StdVar(name));
+        MutableCQuery bound = query.bind(t -> renaming.getOrDefault(t, t));
+
+        StringBuilder b = new StringBuilder();
+        for (Triple triple : triples) {
+            triple.forEach(t -> b.append(renaming.getOrDefault(t, t).toString(dict)).append(' '));
+            b.append(". ");
+        }
+        List<String> modifiers = new ArrayList<>();
+        for (Modifier modifier : bound.getModifiers())
+            modifiers.add(modifier.toString());
+        Collections.sort(modifiers);
+        for (String modifier : modifiers)
+            b.append(modifier).append(' ');
+        return b.toString().trim();
+    }
+
+    private static void rename(@Nonnull Map<Term, Term> renaming, @Nonnull Term term) {
+        if (term.isVar() || term.isBlank())
+            renaming.computeIfAbsent(term, k -> new StdVar("v" + renaming.size()));
+    }
+
+    private static @Nonnull String maskedString(@Nonnull Triple triple, @Nonnull PrefixDict dict) {
+        StringBuilder b = new StringBuilder();
+        triple.forEach(t -> b.append(t.isVar() || t.isBlank() ? "?" : t.toString(dict)).append(' '));
+        return b.toString();
+    }
+
+    /**
+     * Format the cardinality in a way understood by {@link Cardinality#parse(String)}.
+     */
+    public static @Nonnull String toParseable(@Nonnull Cardinality cardinality) {
+        long value = cardinality.getValue(-1);
+        String name = cardinality.getReliability().name();
+        return value < 0 ? name : name + "(" + value + ")";
+    }
+
+    /**
+     * Escape backslashes and line breaks so that the string fits in a single line.
+     */
+    public static @Nonnull String escapeLineBreaks(@Nonnull String string) {
+        return string.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    /**
+     * Reverses {@link #escapeLineBreaks(String)}.
+     */
+    public static @Nonnull String unescapeLineBreaks(@Nonnull String string) {
+        StringBuilder b = new StringBuilder(string.length());
+        for (int i = 0, size = string.length(); i < size; i++) {
+            char c = string.charAt(i);
+            if (c == '\\' && i+1 < size) {
+                char next = string.charAt(++i);
+                b.append(next == 'n' ? '\n' : (next == 'r' ? '\r' : next));
+            } else {
+                b.append(c);
+            }
+        }
+        return b.toString();
+    }
+
+    /**
+     * Receives records parsed by {@link #readRecords(Reader, RecordConsumer)}.
+     */
+    @FunctionalInterface
+    public interface RecordConsumer {
+        /**
+         * @return true if the record was accepted, false if it was discarded (e.g., stale)
+         */
+        boolean accept(@Nonnull String key, @Nonnull Cardinality cardinality, long timestamp);
+    }
+
+    /**
+     * Write a timestamped cardinality as a single line: timestamp, cardinality and key,
+     * separated by tabs. Line breaks and backslashes within the key are escaped.
+     */
+    public static void writeRecord(@Nonnull Writer writer, @Nonnull String key,
+                                   @Nonnull Cardinality cardinality,
+                                   long timestamp) throws IOException {
+        writer.write(Long.toString(timestamp));
+        writer.write('\t');
+        writer.write(toParseable(cardinality));
+        writer.write('\t');
+        writer.write(escapeLineBreaks(key));
+        writer.write('\n');
+    }
+
+    /**
+     * Parse all lines written by {@link #writeRecord(Writer, String, Cardinality, long)}.
+     * Malformed lines are ignored.
+     *
+     * @return the number of records accepted by the consumer
+     */
+    public static int readRecords(@Nonnull Reader reader,
+                                  @Nonnull RecordConsumer consumer) throws IOException {
+        int count = 0;
+        BufferedReader bufferedReader = reader instanceof BufferedReader
+                ? (BufferedReader) reader : new BufferedReader(reader);
+        for (String line = bufferedReader.readLine(); line != null;
+                    line = bufferedReader.readLine()) {
+            String[] fields = line.split("\t", 3);
+            if (fields.length != 3)
+                continue;
+            Cardinality cardinality;
+            long timestamp;
+            try {
+                cardinality = Cardinality.parse(fields[1]);
+                timestamp = Long.parseLong(fields[0]);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (cardinality == null)
+                continue;
+            if (consumer.accept(unescapeLineBreaks(fields[2]), cardinality, timestamp))
+                ++count;
+        }
+        return count;
+    }
 }
@@ -0,0 +1,33 @@
+package br.ufsc.lapesd.freqel.cardinality;
+
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Remembers the results of {@link TPEndpoint#estimate(CQuery, int)} across queries.
+ *
+ * Entries are keyed by {@link TPEndpoint#getRemoteId()}, the estimate policy and the
+ * canonical shape of the query (see {@link CardinalityUtils#canonicalShape(CQuery)}).
+ * Endpoints without a remote id are never cached. Implementations must be thread-safe.
+ */
+public interface EstimateCache {
+    /**
+     * Get a previously stored and still valid estimate.
+     *
+     * @return the estimate or null if there is none or it is stale.
+     */
+    @Nullable Cardinality get(@Nonnull TPEndpoint endpoint, @Nonnull CQuery query, int policy);
+
+    void put(@Nonnull TPEndpoint endpoint, @Nonnull CQuery query, int policy,
+             @Nonnull Cardinality cardinality);
+
+    /**
+     * Persist any entries added since the last flush. Implementations that do not persist
+     * entries may ignore this.
+     */
+    default void flush() { }
+}
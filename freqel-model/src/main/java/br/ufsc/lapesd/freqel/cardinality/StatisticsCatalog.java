@@ -0,0 +1,70 @@
+package br.ufsc.lapesd.freqel.cardinality;
+
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.leaf.EndpointQueryOp;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Stores cardinalities observed while executing queries, so that future plans can use
+ * them instead of guesses.
+ *
+ * Observations are keyed by {@link TPEndpoint#getRemoteId()} and the canonical query shape
+ * (see {@link CardinalityUtils#canonicalShape(CQuery)}). If all results of a node were
+ * consumed, the observation is {@link Cardinality.Reliability#EXACT}, else it is a
+ * {@link Cardinality.Reliability#LOWER_BOUND}. Implementations must be thread-safe.
+ */
+public interface StatisticsCatalog {
+    /**
+     * Whether results of executing the given node would be recorded. Executors should
+     * not bother counting results of nodes for which this returns false.
+     */
+    boolean canRecord(@Nonnull Op node);
+
+    /**
+     * Record that rows solutions were observed for query at endpoint.
+     *
+     * @param complete whether all results were consumed
+     */
+    void recordQuery(@Nonnull TPEndpoint endpoint, @Nonnull CQuery query,
+                     long rows, boolean complete);
+
+    /**
+     * Record that rows solutions were observed for the join of two endpoint queries.
+     *
+     * @param complete whether all results were consumed
+     */
+    void recordJoin(@Nonnull EndpointQueryOp left, @Nonnull EndpointQueryOp right,
+                    long rows, boolean complete);
+
+    @Nullable Cardinality getQueryCardinality(@Nonnull TPEndpoint endpoint,
+                                              @Nonnull CQuery query);
+
+    @Nullable Cardinality getJoinCardinality(@Nonnull EndpointQueryOp left,
+                                             @Nonnull EndpointQueryOp right);
+
+    /**
+     * Write all observations, in a format understood by {@link #read(Reader)}.
+     */
+    void write(@Nonnull Writer writer) throws IOException;
+
+    /**
+     * Import observations written by {@link #write(Writer)}. Observations for the same key
+     * are replaced by the most recent one.
+     *
+     * @return number of observations read
+     */
+    int read(@Nonnull Reader reader) throws IOException;
+
+    /**
+     * Save observations to wherever this catalog was loaded from, if anywhere.
+     */
+    default void flush() { }
+}
@@ -0,0 +1,261 @@
+package br.ufsc.lapesd.freqel.cardinality.impl;
+
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.inner.JoinOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.EndpointQueryOp;
+import br.ufsc.lapesd.freqel.cardinality.CardinalityUtils;
+import br.ufsc.lapesd.freqel.cardinality.StatisticsCatalog;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.MutableCQuery;
+import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+import br.ufsc.lapesd.freqel.query.modifiers.UnsafeMergeException;
+import br.ufsc.lapesd.freqel.util.AtomicFiles;
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static br.ufsc.lapesd.freqel.algebra.Cardinality.Reliability.EXACT;
+import static br.ufsc.lapesd.freqel.cardinality.CardinalityUtils.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * In-memory {@link StatisticsCatalog}, optionally loaded from and saved to a file.
+ *
+ * A complete observation always replaces the previous one, since the data may have changed.
+ * An incomplete observation (a lower bound) only replaces a previous exact observation if
+ * it shows the exact value is no longer valid.
+ *
+ * Observations older than {@link #getTTLMillis()} are reported as
+ * {@link Cardinality.Reliability#GUESS}es of the observed value, since the data may have
+ * changed since. Any new observation replaces such an old observation.
+ *
+ * To avoid unbounded growth (e.g., due to bind joins, which create many queries that
+ * differ only on constants), new keys are not accepted once the catalog holds
+ * {@link #getMaxEntries()} observations.
+ */
+public class DefaultStatisticsCatalog implements StatisticsCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(DefaultStatisticsCatalog.class);
+    public static final int DEF_MAX_ENTRIES = 1 << 16;
+    public static final int DEF_TTL_SECONDS = 7*24*60*60;
+
+    private final @Nonnull Map<String, Observation> map = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final @Nullable File file;
+    private volatile boolean dirty = false;
+
+    private static final class Observation {
+        final @Nonnull Cardinality cardinality;
+        final long timestamp;
+
+        Observation(@Nonnull Cardinality cardinality, long timestamp) {
+            this.cardinality = cardinality;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * Create a catalog that loads from and saves to file.
+     *
+     * @param file where to load observations from, and save to on {@link #flush()}. If null,
+     *             observations will only be kept in memory.
+     */
+    @Inject public DefaultStatisticsCatalog(@Named("statisticsCatalogFile") @Nullable File file,
+                                            @Named("statisticsCatalogTTL") int ttlSeconds) {
+        this(file, DEF_MAX_ENTRIES, ttlSeconds);
+    }
+
+    public DefaultStatisticsCatalog(@Nullable File file, int maxEntries, int ttlSeconds) {
+        this.file = file;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = SECONDS.toMillis(ttlSeconds);
+        if (file != null && file.exists())
+            load(file);
+    }
+
+    public DefaultStatisticsCatalog(@Nullable File file) {
+        this(file, DEF_MAX_ENTRIES, DEF_TTL_SECONDS);
+    }
+
+    public DefaultStatisticsCatalog() {
+        this(null);
+    }
+
+    public @Nullable File getFile() {
+        return file;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getTTLMillis() {
+        return ttlMillis;
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public void clear() {
+        map.clear();
+        dirty = true;
+    }
+
+    @VisibleForTesting
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    private boolean isStale(@Nonnull Observation observation) {
+        return now() - observation.timestamp > ttlMillis;
+    }
+
+    private @Nullable Cardinality toCardinality(@Nullable Observation observation) {
+        if (observation == null)
+            return null;
+        if (isStale(observation))
+            return Cardinality.guess(observation.cardinality.getValue(0));
+        return observation.cardinality;
+    }
+
+    /* --- --- --- keys --- --- --- */
+
+    private static @Nullable String queryKey(@Nonnull TPEndpoint endpoint, @Nonnull CQuery query) {
+        String id = endpoint.getRemoteId();
+        return id == null ? null : "Q\t" + id + "\t" + canonicalShape(query);
+    }
+
+    private static @Nullable String joinKey(@Nonnull EndpointQueryOp left,
+                                            @Nonnull EndpointQueryOp right) {
+        String l = left.getEndpoint().getRemoteId(), r = right.getEndpoint().getRemoteId();
+        if (l == null || r == null)
+            return null;
+        MutableCQuery merged = new MutableCQuery(left.getQuery());
+        try {
+            merged.mergeWith(right.getQuery());
+        } catch (UnsafeMergeException e) {
+            return null; // modifiers of one side cannot be described in a single query
+        }
+        String a = l.compareTo(r) <= 0 ? l : r, b = a == l ? r : l;
+        return "J\t" + a + "\t" + b + "\t" + canonicalShape(merged);
+    }
+
+    /* --- --- --- StatisticsCatalog methods --- --- --- */
+
+    @Override public boolean canRecord(@Nonnull Op node) {
+        if (node instanceof EndpointQueryOp)
+            return ((EndpointQueryOp) node).getEndpoint().getRemoteId() != null;
+        if (node instanceof JoinOp) {
+            List<Op> children = node.getChildren();
+            return children.size() == 2 && children.stream().allMatch(c ->
+                    c instanceof EndpointQueryOp
+                            && ((EndpointQueryOp) c).getEndpoint().getRemoteId() != null);
+        }
+        return false;
+    }
+
+    @Override
+    public void recordQuery(@Nonnull TPEndpoint endpoint, @Nonnull CQuery query, long rows,
+                            boolean complete) {
+        String key = queryKey(endpoint, query);
+        if (key != null)
+            record(key, rows, complete);
+    }
+
+    @Override
+    public void recordJoin(@Nonnull EndpointQueryOp left, @Nonnull EndpointQueryOp right,
+                           long rows, boolean complete) {
+        String key = joinKey(left, right);
+        if (key != null)
+            record(key, rows, complete);
+    }
+
+    private void record(@Nonnull String key, long rows, boolean complete) {
+        if (!complete && rows == 0)
+            return; // no information
+        Cardinality cardinality = complete ? Cardinality.exact(rows)
+                                           : Cardinality.lowerBound(rows);
+        Observation observation = new Observation(cardinality, now());
+        map.compute(key, (k, old) -> {
+            if (old == null)
+                return map.size() < maxEntries ? observation : null;
+            if (!complete && !isStale(old) && old.cardinality.getReliability() == EXACT
+                          && old.cardinality.getValue(-1) >= rows) {
+                return old; // lower bound is consistent with what we know
+            }
+            return observation;
+        });
+        dirty = true;
+    }
+
+    @Override
+    public @Nullable Cardinality getQueryCardinality(@Nonnull TPEndpoint endpoint,
+                                                     @Nonnull CQuery query) {
+        String key = queryKey(endpoint, query);
+        return toCardinality(key == null ? null : map.get(key));
+    }
+
+    @Override
+    public @Nullable Cardinality getJoinCardinality(@Nonnull EndpointQueryOp left,
+                                                    @Nonnull EndpointQueryOp right) {
+        String key = joinKey(left, right);
+        return toCardinality(key == null ? null : map.get(key));
+    }
+
+    /* --- --- --- import/export --- --- --- */
+
+    /**
+     * Writes one observation per line, in the format of {@link CardinalityUtils#readRecords}.
+     */
+    @Override public void write(@Nonnull Writer writer) throws IOException {
+        dirty = false;
+        for (Map.Entry<String, Observation> e : map.entrySet()) {
+            Observation observation = e.getValue();
+            writeRecord(writer, e.getKey(), observation.cardinality, observation.timestamp);
+        }
+        writer.flush();
+    }
+
+    @Override public int read(@Nonnull Reader reader) throws IOException {
+        int count = readRecords(reader, (key, cardinality, timestamp) -> {
+            map.merge(key, new Observation(cardinality, timestamp),
+                      (o, n) -> o.timestamp >= n.timestamp ? o : n);
+            return true;
+        });
+        dirty = true;
+        return count;
+    }
+
+    private void load(@Nonnull File file) {
+        try (FileInputStream in = new FileInputStream(file);
+             Reader reader = new InputStreamReader(in, UTF_8)) {
+            int count = read(reader);
+            dirty = false;
+            logger.debug("Loaded {} observed cardinalities from {}", count, file);
+        } catch (IOException e) {
+            logger.error("Failed to load statistics from {}. Starting empty", file, e);
+        }
+    }
+
+    @Override public synchronized void flush() {
+        if (file == null || !dirty)
+            return;
+        try {
+            AtomicFiles.write(file, this::write);
+        } catch (IOException e) {
+            logger.error("Failed to save statistics into {}", file, e);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package br.ufsc.lapesd.freqel.cardinality.impl;
 
 import br.ufsc.lapesd.freqel.algebra.Cardinality;
 import br.ufsc.lapesd.freqel.cardinality.CardinalityHeuristic;
+import br.ufsc.lapesd.freqel.cardinality.EstimateCache;
 import br.ufsc.lapesd.freqel.query.CQuery;
 import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
 
@@ -14,21 +15,38 @@ import javax.inject.Named;
  * Estimates cardinality by delegation to {@link TPEndpoint#estimate(CQuery, int)}.
  *
  * This will issue ASK and LIMIT queries to the endpoint as allowed by the estimatePolicy.
+ * Estimates from remote endpoints are remembered in an {@link EstimateCache}.
  */
 public class LimitCardinalityHeuristic implements CardinalityHeuristic {
     private final int policy;
+    private final @Nonnull EstimateCache cache;
 
-    @Inject public LimitCardinalityHeuristic(@Named("estimatePolicy") int policy) {
+    @Inject public LimitCardinalityHeuristic(@Named("estimatePolicy") int policy,
+                                             @Nonnull EstimateCache cache) {
         this.policy = policy;
+        this.cache = cache;
+    }
+
+    public LimitCardinalityHeuristic(int policy) {
+        this(policy, NoEstimateCache.INSTANCE);
     }
 
     public int getPolicy() {
         return policy;
     }
 
+    public @Nonnull EstimateCache getCache() {
+        return cache;
+    }
+
     @Override
     public @Nonnull Cardinality estimate(@Nonnull CQuery query, @Nullable TPEndpoint endpoint) {
         if (endpoint == null) return Cardinality.UNSUPPORTED;
-        return endpoint.estimate(query, policy);
+        Cardinality cardinality = cache.get(endpoint, query, policy);
+        if (cardinality == null) {
+            cardinality = endpoint.estimate(query, policy);
+            cache.put(endpoint, query, policy, cardinality);
+        }
+        return cardinality;
     }
 }
@@ -0,0 +1,27 @@
+package br.ufsc.lapesd.freqel.cardinality.impl;
+
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.cardinality.EstimateCache;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+import com.google.errorprone.annotations.Immutable;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+@Immutable
+public class NoEstimateCache implements EstimateCache {
+    public static final @Nonnull NoEstimateCache INSTANCE = new NoEstimateCache();
+
+    @Override
+    public @Nullable Cardinality get(@Nonnull TPEndpoint endpoint, @Nonnull CQuery query,
+                                     int policy) {
+        return null;
+    }
+
+    @Override
+    public void put(@Nonnull TPEndpoint endpoint, @Nonnull CQuery query, int policy,
+                    @Nonnull Cardinality cardinality) {
+        /* do nothing */
+    }
+}
@@ -0,0 +1,51 @@
+package br.ufsc.lapesd.freqel.cardinality.impl;
+
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.leaf.EndpointQueryOp;
+import br.ufsc.lapesd.freqel.cardinality.StatisticsCatalog;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+import com.google.errorprone.annotations.Immutable;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Reader;
+import java.io.Writer;
+
+@Immutable
+public class NoStatisticsCatalog implements StatisticsCatalog {
+    public static final @Nonnull NoStatisticsCatalog INSTANCE = new NoStatisticsCatalog();
+
+    @Override public boolean canRecord(@Nonnull Op node) {
+        return false;
+    }
+
+    @Override public void recordQuery(@Nonnull TPEndpoint endpoint, @Nonnull CQuery query,
+                                      long rows, boolean complete) {
+        /* do nothing */
+    }
+
+    @Override public void recordJoin(@Nonnull EndpointQueryOp left, @Nonnull EndpointQueryOp right,
+                                     long rows, boolean complete) {
+        /* do nothing */
+    }
+
+    @Override public @Nullable Cardinality getQueryCardinality(@Nonnull TPEndpoint endpoint,
+                                                               @Nonnull CQuery query) {
+        return null;
+    }
+
+    @Override public @Nullable Cardinality getJoinCardinality(@Nonnull EndpointQueryOp left,
+                                                              @Nonnull EndpointQueryOp right) {
+        return null;
+    }
+
+    @Override public void write(@Nonnull Writer writer) {
+        /* nothing to write */
+    }
+
+    @Override public int read(@Nonnull Reader reader) {
+        return 0;
+    }
+}
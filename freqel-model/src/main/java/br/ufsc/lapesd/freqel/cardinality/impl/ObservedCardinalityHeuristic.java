@@ -0,0 +1,37 @@
+package br.ufsc.lapesd.freqel.cardinality.impl;
+
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.cardinality.CardinalityHeuristic;
+import br.ufsc.lapesd.freqel.cardinality.StatisticsCatalog;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+
+/**
+ * Uses cardinalities observed in previous executions of the same query shape at the
+ * same endpoint, as recorded in a {@link StatisticsCatalog}.
+ *
+ * Estimates are {@link Cardinality.Reliability#EXACT} if all results were consumed in the
+ * last execution or {@link Cardinality.Reliability#LOWER_BOUND} otherwise.
+ */
+public class ObservedCardinalityHeuristic implements CardinalityHeuristic {
+    private final @Nonnull StatisticsCatalog catalog;
+
+    @Inject public ObservedCardinalityHeuristic(@Nonnull StatisticsCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    public @Nonnull StatisticsCatalog getCatalog() {
+        return catalog;
+    }
+
+    @Override
+    public @Nonnull Cardinality estimate(@Nonnull CQuery query, @Nullable TPEndpoint endpoint) {
+        if (endpoint == null) return Cardinality.UNSUPPORTED;
+        Cardinality cardinality = catalog.getQueryCardinality(endpoint, query);
+        return cardinality == null ? Cardinality.UNSUPPORTED : cardinality;
+    }
+}
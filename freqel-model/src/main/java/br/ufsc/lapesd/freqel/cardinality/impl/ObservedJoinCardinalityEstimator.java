@@ -0,0 +1,40 @@
+package br.ufsc.lapesd.freqel.cardinality.impl;
+
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.algebra.JoinInfo;
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.leaf.EndpointQueryOp;
+import br.ufsc.lapesd.freqel.cardinality.JoinCardinalityEstimator;
+import br.ufsc.lapesd.freqel.cardinality.StatisticsCatalog;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+/**
+ * Uses the cardinality observed in a previous execution of a join between the same two
+ * endpoint queries (see {@link StatisticsCatalog}). If there is no such observation,
+ * delegates to {@link BindJoinCardinalityEstimator}.
+ */
+public class ObservedJoinCardinalityEstimator implements JoinCardinalityEstimator {
+    private final @Nonnull StatisticsCatalog catalog;
+    private final @Nonnull JoinCardinalityEstimator fallback;
+
+    @Inject
+    public ObservedJoinCardinalityEstimator(@Nonnull StatisticsCatalog catalog,
+                                            @Nonnull BindJoinCardinalityEstimator fallback) {
+        this.catalog = catalog;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public @Nonnull Cardinality estimate(@Nonnull JoinInfo info) {
+        Op l = info.getLeft(), r = info.getRight();
+        if (l instanceof EndpointQueryOp && r instanceof EndpointQueryOp) {
+            Cardinality observed = catalog.getJoinCardinality((EndpointQueryOp) l,
+                                                              (EndpointQueryOp) r);
+            if (observed != null)
+                return observed;
+        }
+        return fallback.estimate(info);
+    }
+}
@@ -0,0 +1,188 @@
+package br.ufsc.lapesd.freqel.cardinality.impl;
+
+import br.ufsc.lapesd.freqel.V;
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.cardinality.CardinalityHeuristic;
+import br.ufsc.lapesd.freqel.description.Description;
+import br.ufsc.lapesd.freqel.description.statistics.PredicateStatistics;
+import br.ufsc.lapesd.freqel.description.statistics.SourceStatistics;
+import br.ufsc.lapesd.freqel.description.statistics.StatisticsDescription;
+import br.ufsc.lapesd.freqel.model.Triple;
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.util.*;
+
+import static br.ufsc.lapesd.freqel.description.statistics.SourceStatistics.UNKNOWN;
+
+/**
+ * Estimates cardinalities from the {@link SourceStatistics} of endpoints whose description
+ * is a {@link StatisticsDescription}.
+ *
+ * Each triple pattern is estimated from the counts of its predicate (or class, for
+ * <code>rdf:type</code> with a ground object), assuming uniform distribution of subjects
+ * and objects. Triple patterns are then joined in increasing order of cardinality with
+ * the classic |R|*|S|/max(V(R,a), V(S,a)) formula for each shared variable a.
+ *
+ * Estimates are always {@link Cardinality.Reliability#GUESS}es, since the statistics may
+ * be outdated.
+ */
+public class StatisticsCardinalityHeuristic implements CardinalityHeuristic {
+    private static final @Nonnull Term TYPE = V.RDF.type;
+
+    @Inject public StatisticsCardinalityHeuristic() { }
+
+    private static final class PatternEstimate {
+        final @Nonnull Triple triple;
+        final double rows;
+        final double subjects, predicates, objects;
+
+        PatternEstimate(@Nonnull Triple triple, double rows, double subjects,
+                        double predicates, double objects) {
+            this.triple = triple;
+            this.rows = rows;
+            this.subjects = Math.min(subjects, rows);
+            this.predicates = Math.min(predicates, rows);
+            this.objects = Math.min(objects, rows);
+        }
+
+        double distinct(@Nonnull Triple.Position position) {
+            switch (position) {
+                case SUBJ: return subjects;
+                case PRED: return predicates;
+                case OBJ:  return objects;
+            }
+            throw new IllegalArgumentException("Unexpected position "+position);
+        }
+    }
+
+    @Override
+    public @Nonnull Cardinality estimate(@Nonnull CQuery query, @Nullable TPEndpoint endpoint) {
+        if (endpoint == null || query.isEmpty())
+            return Cardinality.UNSUPPORTED;
+        Description description = endpoint.getDescription();
+        if (!(description instanceof StatisticsDescription))
+            return Cardinality.UNSUPPORTED;
+        SourceStatistics statistics = ((StatisticsDescription) description).getStatistics();
+        if (statistics == null)
+            return Cardinality.UNSUPPORTED;
+        return estimate(query, statistics);
+    }
+
+    public static @Nonnull Cardinality estimate(@Nonnull CQuery query,
+                                                @Nonnull SourceStatistics statistics) {
+        List<PatternEstimate> pending = new ArrayList<>(query.size());
+        for (Triple triple : query) {
+            PatternEstimate estimate = estimate(triple, statistics);
+            if (estimate == null)
+                return Cardinality.UNSUPPORTED;
+            pending.add(estimate);
+        }
+        pending.sort(Comparator.comparingDouble(e -> e.rows));
+
+        Map<Term, Double> distinct = new HashMap<>();
+        PatternEstimate first = pending.remove(0);
+        double rows = first.rows;
+        addDistinct(distinct, first);
+        while (!pending.isEmpty()) {
+            PatternEstimate next = pending.remove(nextJoinable(pending, distinct));
+            rows *= next.rows;
+            for (Triple.Position position : Triple.Position.VALUES_LIST) {
+                Term term = next.triple.get(position);
+                if (term.isGround())
+                    continue;
+                Double old = distinct.get(term);
+                double current = next.distinct(position);
+                if (old != null) {
+                    rows /= Math.max(1, Math.max(old, current));
+                    distinct.put(term, Math.min(old, current));
+                } else {
+                    distinct.put(term, current);
+                }
+            }
+        }
+        long value = rows >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) Math.ceil(rows);
+        return Cardinality.guess(value);
+    }
+
+    private static int nextJoinable(@Nonnull List<PatternEstimate> pending,
+                                    @Nonnull Map<Term, Double> distinct) {
+        for (int i = 0, size = pending.size(); i < size; i++) {
+            Triple triple = pending.get(i).triple;
+            for (Triple.Position position : Triple.Position.VALUES_LIST) {
+                if (distinct.containsKey(triple.get(position)))
+                    return i;
+            }
+        }
+        return 0; // no join variable: cartesian product
+    }
+
+    private static void addDistinct(@Nonnull Map<Term, Double> distinct,
+                                    @Nonnull PatternEstimate estimate) {
+        for (Triple.Position position : Triple.Position.VALUES_LIST) {
+            Term term = estimate.triple.get(position);
+            if (!term.isGround())
+                distinct.merge(term, estimate.distinct(position), Math::min);
+        }
+    }
+
+    private static @Nullable PatternEstimate estimate(@Nonnull Triple triple,
+                                                      @Nonnull SourceStatistics statistics) {
+        Term s = triple.getSubject(), p = triple.getPredicate(), o = triple.getObject();
+        if (p.isGround()) {
+            if (p.equals(TYPE) && o.isGround() && statistics.hasClasses()) {
+                long instances = statistics.getClassInstances(o);
+                double rows = s.isGround() ? Math.min(1, instances) : instances;
+                return new PatternEstimate(triple, rows, rows, 1, 1);
+            }
+            PredicateStatistics ps = statistics.getPredicate(p);
+            if (ps == null) {
+                if (statistics.getPredicates().isEmpty())
+                    return null; // no per-predicate information
+                return new PatternEstimate(triple, 0, 0, 0, 0);
+            }
+            return estimate(triple, ps.getTriples(), ps.getDistinctSubjects(), 1,
+                            ps.getDistinctObjects());
+        }
+        long triples = statistics.getTriples();
+        if (triples < 0)
+            return null;
+        long subjects = statistics.getDistinctSubjects();
+        long objects = statistics.getDistinctObjects();
+        if (subjects == UNKNOWN || objects == UNKNOWN) {
+            long maxSubjects = UNKNOWN, maxObjects = UNKNOWN;
+            for (PredicateStatistics ps : statistics.getPredicates().values()) {
+                maxSubjects = Math.max(maxSubjects, ps.getDistinctSubjects());
+                maxObjects = Math.max(maxObjects, ps.getDistinctObjects());
+            }
+            if (subjects == UNKNOWN) subjects = maxSubjects;
+            if (objects  == UNKNOWN) objects  = maxObjects;
+        }
+        if (subjects < 0 || objects < 0)
+            return null;
+        int predicates = statistics.getPredicates().size();
+        return estimate(triple, triples, subjects, predicates > 0 ? predicates : triples,
+                        objects);
+    }
+
+    private static @Nonnull PatternEstimate estimate(@Nonnull Triple triple, double triples,
+                                                     double subjects, double predicates,
+                                                     double objects) {
+        double rows = triples;
+        if (triple.getSubject().isGround())
+            rows /= Math.max(1, subjects);
+        if (triple.getObject().isGround())
+            rows /= Math.max(1, objects);
+        if (triples > 0)
+            rows = Math.max(1, rows);
+        return new PatternEstimate(triple, rows, subjects, predicates, objects);
+    }
+
+    @Override public @Nonnull String toString() {
+        return StatisticsCardinalityHeuristic.class.getSimpleName();
+    }
+}
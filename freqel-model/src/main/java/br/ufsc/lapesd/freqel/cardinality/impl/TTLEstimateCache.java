@@ -0,0 +1,165 @@
+package br.ufsc.lapesd.freqel.cardinality.impl;
+
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.cardinality.CardinalityUtils;
+import br.ufsc.lapesd.freqel.cardinality.EstimateCache;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+import br.ufsc.lapesd.freqel.util.metrics.MetricsRegistry;
+import com.google.common.annotations.VisibleForTesting;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static br.ufsc.lapesd.freqel.cardinality.CardinalityUtils.*;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * In-memory {@link EstimateCache} whose entries expire after a fixed time-to-live.
+ *
+ * Expiry is lazy: a stale entry is dropped by the {@link #get(TPEndpoint, CQuery, int)}
+ * that finds it, which then reports a miss so that the caller estimates again and
+ * {@link #put(TPEndpoint, CQuery, int, Cardinality)}s the new value. Nothing is
+ * re-estimated in background.
+ *
+ * Entries can be written to and read from a line-oriented text format (see
+ * {@link #write(Writer)} and {@link #read(Reader)}), which subclasses use for persistence.
+ */
+public class TTLEstimateCache implements EstimateCache {
+    public static final int DEF_TTL_SECONDS = 24*60*60;
+    private static final @Nonnull LongAdder HITS = MetricsRegistry.getDefault().counter(
+            "freqel_cache_requests_total", "Cache lookups, by cache and result",
+            "cache", "estimate", "result", "hit");
+    private static final @Nonnull LongAdder MISSES = MetricsRegistry.getDefault().counter(
+            "freqel_cache_requests_total", "Cache lookups, by cache and result",
+            "cache", "estimate", "result", "miss");
+
+    private final @Nonnull Map<String, Entry> map = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private volatile boolean dirty = false;
+
+    private static final class Entry {
+        final @Nonnull Cardinality cardinality;
+        final long timestamp;
+
+        Entry(@Nonnull Cardinality cardinality, long timestamp) {
+            this.cardinality = cardinality;
+            this.timestamp = timestamp;
+        }
+    }
+
+    @Inject public TTLEstimateCache(@Named("estimateCacheTTL") int ttlSeconds) {
+        this.ttlMillis = SECONDS.toMillis(ttlSeconds);
+    }
+
+    public TTLEstimateCache() {
+        this(DEF_TTL_SECONDS);
+    }
+
+    public long getTTLMillis() {
+        return ttlMillis;
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void clear() {
+        map.clear();
+        dirty = true;
+    }
+
+    /**
+     * Key for the cache entry, or null if the endpoint has no remote id and cannot be cached.
+     */
+    public static @Nullable String key(@Nonnull TPEndpoint endpoint, @Nonnull CQuery query,
+                                       int policy) {
+        String id = endpoint.getRemoteId();
+        if (id == null)
+            return null;
+        return id + '\t' + policy + '\t' + CardinalityUtils.canonicalShape(query);
+    }
+
+    @VisibleForTesting
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    private boolean isStale(@Nonnull Entry entry) {
+        return now() - entry.timestamp > ttlMillis;
+    }
+
+    @Override
+    public @Nullable Cardinality get(@Nonnull TPEndpoint endpoint, @Nonnull CQuery query,
+                                     int policy) {
+        String key = key(endpoint, query, policy);
+        if (key == null)
+            return null;
+        Entry entry = map.get(key);
+        if (entry == null) {
+            MISSES.increment();
+            return null;
+        }
+        if (isStale(entry)) {
+            if (map.remove(key, entry))
+                dirty = true;
+            MISSES.increment();
+            return null;
+        }
+        HITS.increment();
+        return entry.cardinality;
+    }
+
+    @Override
+    public void put(@Nonnull TPEndpoint endpoint, @Nonnull CQuery query, int policy,
+                    @Nonnull Cardinality cardinality) {
+        String key = key(endpoint, query, policy);
+        if (key == null)
+            return;
+        map.put(key, new Entry(cardinality, now()));
+        dirty = true;
+    }
+
+    /* --- --- --- serialization --- --- --- */
+
+    /**
+     * Write all non-stale entries, one per line, in the format of
+     * {@link CardinalityUtils#readRecords}.
+     */
+    public void write(@Nonnull Writer writer) throws IOException {
+        dirty = false;
+        for (Map.Entry<String, Entry> e : map.entrySet()) {
+            Entry entry = e.getValue();
+            if (!isStale(entry))
+                writeRecord(writer, e.getKey(), entry.cardinality, entry.timestamp);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Add entries written by {@link #write(Writer)}. Stale and malformed lines are ignored.
+     *
+     * @return the number of loaded entries
+     */
+    public int read(@Nonnull Reader reader) throws IOException {
+        return readRecords(reader, (key, cardinality, timestamp) -> {
+            Entry entry = new Entry(cardinality, timestamp);
+            if (isStale(entry))
+                return false;
+            map.merge(key, entry, (o, n) -> o.timestamp >= n.timestamp ? o : n);
+            return true;
+        });
+    }
+}
@@ -9,6 +9,7 @@ import br.ufsc.lapesd.freqel.query.endpoint.Capability;
 import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
 import br.ufsc.lapesd.freqel.query.modifiers.Ask;
 import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.util.metrics.MetricsRegistry;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -20,6 +21,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Objects;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
 import static java.lang.Math.max;
 
@@ -29,6 +31,12 @@ public class AskDescription implements Description {
     protected static final StdVar surrogateObject  = new StdVar("AskDescriptionSurrogateObject");
     private static final @Nonnull Logger logger = LoggerFactory.getLogger(AskDescription.class);
     private static final int DEFAULT_CACHE_SIZE = 8192;
+    private static final @Nonnull LongAdder HITS = MetricsRegistry.getDefault().counter(
+            "freqel_cache_requests_total", "Cache lookups, by cache and result",
+            "cache", "ask", "result", "hit");
+    private static final @Nonnull LongAdder MISSES = MetricsRegistry.getDefault().counter(
+            "freqel_cache_requests_total", "Cache lookups, by cache and result",
+            "cache", "ask", "result", "miss");
     protected @Nonnull final TPEndpoint endpoint;
     protected final LoadingCache<Triple, Boolean> cache;
 
@@ -43,11 +51,7 @@ public class AskDescription implements Description {
                 .build(new CacheLoader<Triple, Boolean>() {
                     @Override
                     public Boolean load(@Nonnull Triple triple) {
-                        MutableCQuery query = MutableCQuery.from(triple);
-                        query.mutateModifiers().add(Ask.INSTANCE);
-                        try (Results results = endpoint.query(query)) {
-                            return results.hasNext();
-                        }
+                        return ask(triple);
                     }
                 });
     }
@@ -58,6 +62,14 @@ public class AskDescription implements Description {
 
     /* ~~~ private methods ~~~ */
 
+    private boolean ask(@Nonnull Triple triple) {
+        MutableCQuery query = MutableCQuery.from(triple);
+        query.mutateModifiers().add(Ask.INSTANCE);
+        try (Results results = endpoint.query(query)) {
+            return results.hasNext();
+        }
+    }
+
     protected @Nonnull Triple sanitize(@Nonnull Triple triple) {
         Term p = triple.getPredicate(), o = triple.getObject();
         if (p.isVar()) p = surrogatePredicate;
@@ -75,10 +87,18 @@ public class AskDescription implements Description {
             if (maybe != null && !maybe)
                 return false; //generalized already failed, do not try new ASK
         }
-        if (onlyCache)
-            return cache.getIfPresent(t);
+        if (onlyCache) {
+            Boolean cached = cache.getIfPresent(t);
+            (cached == null ? MISSES : HITS).increment();
+            return cached;
+        }
+        Triple key = t;
+        boolean[] loaded = {false};
         try {
-            ok = cache.get(t);
+            ok = cache.get(key, () -> {
+                loaded[0] = true;
+                return ask(key);
+            });
             if (t.getObject().isGround()) {
                 Triple gen = t.withObject(surrogateObject);
                 if (ok) cache.put(gen, true);  //remember success for generalized
@@ -86,6 +106,8 @@ public class AskDescription implements Description {
             }
         } catch (ExecutionException | UncheckedExecutionException e) {
             logger.error("Exception while sending ASK.", e.getCause());
+        } finally {
+            (loaded[0] ? MISSES : HITS).increment();
         }
         return ok;
     }
@@ -0,0 +1,58 @@
+package br.ufsc.lapesd.freqel.description;
+
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.reason.tbox.TBox;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Set;
+
+/**
+ * A {@link Description} that can enumerate the predicates and classes it may match, allowing
+ * source selection to skip sources that cannot match any triple of a query without
+ * calling {@link #match(CQuery, MatchReasoning)}.
+ *
+ * The sets must over-approximate {@link #match(CQuery, MatchReasoning)}:
+ * <ul>
+ *     <li>Triples with a variable predicate are assumed to always match.</li>
+ *     <li>If {@link #getIndexClasses()} is non-null, a <code>?s rdf:type C</code> triple
+ *         where C is an URI matches only if C (or a subclass, if reasoning) is in that
+ *         set.</li>
+ *     <li>Any other triple with a ground predicate p matches only if p (or a subproperty,
+ *         if reasoning) is in {@link #getIndexPredicates()}.</li>
+ * </ul>
+ */
+public interface IndexableDescription extends Description {
+    /**
+     * Predicates present in the source.
+     *
+     * @return a set of predicates or null if the predicates are not known (yet).
+     */
+    @Nullable Set<Term> getIndexPredicates();
+
+    /**
+     * Classes with instances in the source.
+     *
+     * @return a set of classes or null if the description does not track classes
+     */
+    @Nullable Set<Term> getIndexClasses();
+
+    /**
+     * {@link TBox} used to find sub-properties and sub-classes when matching with reasoning.
+     *
+     * @return the {@link TBox} or null if {@link #match(CQuery, MatchReasoning)} never
+     *         performs reasoning.
+     */
+    default @Nullable TBox getIndexTBox() {
+        return null;
+    }
+
+    /**
+     * Register a listener to be notified whenever the values returned by
+     * {@link #getIndexPredicates()} or {@link #getIndexClasses()} change.
+     *
+     * Listeners may be called from any thread.
+     */
+    void addIndexListener(@Nonnull Runnable listener);
+}
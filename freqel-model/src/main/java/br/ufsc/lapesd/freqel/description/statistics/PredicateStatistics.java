@@ -0,0 +1,63 @@
+package br.ufsc.lapesd.freqel.description.statistics;
+
+import com.google.errorprone.annotations.Immutable;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+
+/**
+ * Number of triples and distinct subjects/objects of a single predicate in a source
+ * (a <code>void:propertyPartition</code>).
+ */
+@Immutable
+public class PredicateStatistics {
+    private final long triples, distinctSubjects, distinctObjects;
+
+    /**
+     * Constructor.
+     *
+     * @param triples number of triples with the predicate
+     * @param distinctSubjects number of distinct subjects. If unknown (negative), will
+     *                         assume the same as triples
+     * @param distinctObjects number of distinct objects. If unknown (negative), will
+     *                         assume the same as triples
+     */
+    public PredicateStatistics(long triples, long distinctSubjects, long distinctObjects) {
+        if (triples < 0)
+            throw new IllegalArgumentException("triples="+triples+" < 0");
+        this.triples = triples;
+        this.distinctSubjects = distinctSubjects < 0 ? triples
+                                                     : Math.min(distinctSubjects, triples);
+        this.distinctObjects = distinctObjects < 0 ? triples
+                                                   : Math.min(distinctObjects, triples);
+    }
+
+    public long getTriples() {
+        return triples;
+    }
+
+    public long getDistinctSubjects() {
+        return distinctSubjects;
+    }
+
+    public long getDistinctObjects() {
+        return distinctObjects;
+    }
+
+    @Override public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PredicateStatistics)) return false;
+        PredicateStatistics that = (PredicateStatistics) o;
+        return triples == that.triples && distinctSubjects == that.distinctSubjects &&
+                distinctObjects == that.distinctObjects;
+    }
+
+    @Override public int hashCode() {
+        return Objects.hash(triples, distinctSubjects, distinctObjects);
+    }
+
+    @Override public @Nonnull String toString() {
+        return String.format("{triples=%d, distinctSubjects=%d, distinctObjects=%d}",
+                             triples, distinctSubjects, distinctObjects);
+    }
+}
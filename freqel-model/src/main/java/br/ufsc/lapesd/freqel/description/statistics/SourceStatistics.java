@@ -0,0 +1,168 @@
+package br.ufsc.lapesd.freqel.description.statistics;
+
+import br.ufsc.lapesd.freqel.model.term.Term;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * VoID-style statistics of a source: total triples, distinct subjects and objects, counts
+ * per predicate (<code>void:propertyPartition</code>) and instances per class
+ * (<code>void:classPartition</code>).
+ *
+ * Counts that are not known are reported as {@link #UNKNOWN}.
+ */
+@Immutable
+public class SourceStatistics {
+    public static final long UNKNOWN = -1;
+
+    private final long triples, distinctSubjects, distinctObjects;
+    private final @Nonnull Map<Term, PredicateStatistics> predicates;
+    private final @Nullable Map<Term, Long> classes;
+
+    protected SourceStatistics(long triples, long distinctSubjects, long distinctObjects,
+                               @Nonnull Map<Term, PredicateStatistics> predicates,
+                               @Nullable Map<Term, Long> classes) {
+        this.triples = triples;
+        this.distinctSubjects = distinctSubjects;
+        this.distinctObjects = distinctObjects;
+        this.predicates = Collections.unmodifiableMap(predicates);
+        this.classes = classes == null ? null : Collections.unmodifiableMap(classes);
+    }
+
+    public static class Builder {
+        private long triples = UNKNOWN, distinctSubjects = UNKNOWN, distinctObjects = UNKNOWN;
+        private final @Nonnull Map<Term, PredicateStatistics> predicates = new HashMap<>();
+        private @Nullable Map<Term, Long> classes = null;
+
+        public @Nonnull Builder triples(long value) {
+            triples = value;
+            return this;
+        }
+        public @Nonnull Builder distinctSubjects(long value) {
+            distinctSubjects = value;
+            return this;
+        }
+        public @Nonnull Builder distinctObjects(long value) {
+            distinctObjects = value;
+            return this;
+        }
+        public @Nonnull Builder predicate(@Nonnull Term predicate,
+                                          @Nonnull PredicateStatistics statistics) {
+            predicates.put(predicate, statistics);
+            return this;
+        }
+        public @Nonnull Builder predicate(@Nonnull Term predicate, long triples,
+                                          long distinctSubjects, long distinctObjects) {
+            return predicate(predicate,
+                    new PredicateStatistics(triples, distinctSubjects, distinctObjects));
+        }
+
+        /**
+         * Marks that class instance counts are known. Classes without a count in
+         * a built {@link SourceStatistics} will then be reported as having no instances.
+         */
+        public @Nonnull Builder withClasses() {
+            if (classes == null)
+                classes = new HashMap<>();
+            return this;
+        }
+        public @Nonnull Builder classInstances(@Nonnull Term cls, long instances) {
+            withClasses();
+            assert classes != null;
+            classes.put(cls, instances);
+            return this;
+        }
+
+        public @Nonnull SourceStatistics build() {
+            long triples = this.triples;
+            if (triples < 0 && !predicates.isEmpty()) {
+                triples = 0;
+                for (PredicateStatistics ps : predicates.values())
+                    triples += ps.getTriples();
+            }
+            return new SourceStatistics(triples, distinctSubjects, distinctObjects,
+                                        new HashMap<>(predicates),
+                                        classes == null ? null : new HashMap<>(classes));
+        }
+    }
+
+    public static @Nonnull Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Total number of triples or {@link #UNKNOWN}. If not explicitly given, this is the sum
+     * of triples in {@link #getPredicates()}.
+     */
+    public long getTriples() {
+        return triples;
+    }
+
+    public long getDistinctSubjects() {
+        return distinctSubjects;
+    }
+
+    public long getDistinctObjects() {
+        return distinctObjects;
+    }
+
+    /**
+     * Per-predicate statistics. If non-empty, predicates absent from this map are assumed
+     * to not occur in the source.
+     */
+    public @Nonnull Map<Term, PredicateStatistics> getPredicates() {
+        return predicates;
+    }
+
+    public @Nullable PredicateStatistics getPredicate(@Nonnull Term predicate) {
+        return predicates.get(predicate);
+    }
+
+    /**
+     * Whether {@link #getClassInstances(Term)} can return something other than
+     * {@link #UNKNOWN}.
+     */
+    public boolean hasClasses() {
+        return classes != null;
+    }
+
+    /**
+     * Instances per class. Empty if {@link #hasClasses()} is false.
+     */
+    public @Nonnull Map<Term, Long> getClasses() {
+        return classes == null ? Collections.emptyMap() : classes;
+    }
+
+    /**
+     * Number of distinct instances of the given class, {@link #UNKNOWN} if
+     * {@link #hasClasses()} is false.
+     */
+    public long getClassInstances(@Nonnull Term cls) {
+        return classes == null ? UNKNOWN : classes.getOrDefault(cls, 0L);
+    }
+
+    @Override public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SourceStatistics)) return false;
+        SourceStatistics that = (SourceStatistics) o;
+        return triples == that.triples && distinctSubjects == that.distinctSubjects &&
+                distinctObjects == that.distinctObjects &&
+                predicates.equals(that.predicates) && Objects.equals(classes, that.classes);
+    }
+
+    @Override public int hashCode() {
+        return Objects.hash(triples, distinctSubjects, distinctObjects, predicates, classes);
+    }
+
+    @Override public @Nonnull String toString() {
+        return String.format("SourceStatistics{triples=%d, %d predicates, %s classes}",
+                             triples, predicates.size(),
+                             classes == null ? "unknown" : String.valueOf(classes.size()));
+    }
+}
@@ -0,0 +1,20 @@
+package br.ufsc.lapesd.freqel.description.statistics;
+
+import br.ufsc.lapesd.freqel.description.Description;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Description} that also provides {@link SourceStatistics} for its source.
+ */
+public interface StatisticsDescription extends Description {
+    /**
+     * Get the statistics of the source, if already available.
+     *
+     * This method never blocks nor sends requests to the source. Use
+     * {@link Description#waitForInit(int)} to wait for statistics.
+     *
+     * @return {@link SourceStatistics} or null if not available (yet).
+     */
+    @Nullable SourceStatistics getStatistics();
+}
@@ -4,6 +4,7 @@ import br.ufsc.lapesd.freqel.V;
 import br.ufsc.lapesd.freqel.algebra.Op;
 import br.ufsc.lapesd.freqel.algebra.inner.*;
 import br.ufsc.lapesd.freqel.algebra.leaf.EmptyOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.PathOp;
 import br.ufsc.lapesd.freqel.algebra.leaf.QueryOp;
 import br.ufsc.lapesd.freqel.algebra.leaf.SPARQLValuesTemplateOp;
 import br.ufsc.lapesd.freqel.algebra.util.TreeUtils;
@@ -14,6 +15,7 @@ import br.ufsc.lapesd.freqel.model.term.Term;
 import br.ufsc.lapesd.freqel.model.term.URI;
 import br.ufsc.lapesd.freqel.model.term.std.StdURI;
 import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.SimplePath;
 import br.ufsc.lapesd.freqel.query.annotations.InputAnnotation;
 import br.ufsc.lapesd.freqel.query.annotations.PureDescriptive;
 import br.ufsc.lapesd.freqel.query.annotations.TermAnnotation;
@@ -22,6 +24,7 @@ import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilter;
 import br.ufsc.lapesd.freqel.query.results.Solution;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -56,7 +59,10 @@ public class SPARQLString {
         PrefixDict dict = query.getPrefixDict(StdPrefixDict.STANDARD);
         // honor projection if present, else expose only vars in triple patterns
         Projection p = query.getModifiers().projection();
-        Set<String> varNames = p == null ? query.attr().publicTripleVarNames() : p.getVarNames();
+        Aggregation aggregation = query.getModifiers().aggregation();
+        Set<String> varNames = p != null ? p.getVarNames()
+                : (aggregation != null && !ask ? aggregation.getResultVarNames()
+                                               : query.attr().publicTripleVarNames());
 
         // write body to discover which variables in publicTripleVarNames should be removed
         StringBuilder bb = new StringBuilder(query.size()*60);
@@ -92,13 +98,16 @@ public class SPARQLString {
         final @Nonnull String sparql;
         StringBuilder b = new StringBuilder(dict.size()*50 + 60 + bodyBuilder.length());
         writePrefixes(b, dict);
-        writeHeader(b, ask, distinct, varNames);
+        Aggregation aggregation = ask ? null : modifiers.aggregation();
+        writeHeader(b, ask, distinct, varNames, aggregation);
         b.append(bodyBuilder); //add the body (appending builder is faster than appending String)
         writeFilters(b, modifiers.filters());
         ValuesModifier values = modifiers.valueModifier();
         if (values != null)
             writeValues(b, values.getVarNames(), values.getAssignments(), dict);
         b.append('}'); // ends SELECT/ASK
+        if (aggregation != null)
+            aggregation.writeGroupBy(b);
         if (limit > 0)
             b.append(" LIMIT ").append(limit);
         sparql = b.toString();
@@ -137,12 +146,23 @@ public class SPARQLString {
 
     public static void writeHeader(@Nonnull StringBuilder b, boolean ask, boolean distinct,
                                    @Nonnull Collection<String> varNames) {
+        writeHeader(b, ask, distinct, varNames, null);
+    }
+
+    public static void writeHeader(@Nonnull StringBuilder b, boolean ask, boolean distinct,
+                                   @Nonnull Collection<String> varNames,
+                                   @Nullable Aggregation aggregation) {
         assert !ask || varNames.isEmpty() : "If ASK, cannot have vars";
         assert !varNames.isEmpty() || ask : "If has no vars, should be ASK";
+        assert aggregation == null || !ask : "ASK queries cannot have aggregates";
         b.append(ask ? "ASK " : "SELECT ");
         if (!ask && distinct) b.append("DISTINCT ");
-        for (String n : varNames)
-            b.append('?').append(n).append(' ');
+        if (aggregation != null) {
+            aggregation.writeSelectExpressions(b, varNames);
+        } else {
+            for (String n : varNames)
+                b.append('?').append(n).append(' ');
+        }
         b.append(ask ? "{" : "WHERE {");
     }
 
@@ -186,6 +206,10 @@ public class SPARQLString {
                 else            b.append(" UNION");
                 writeBody(b.append(" { "), child, dict).append(" } ");
             }
+        } else if (op instanceof PathOp) {
+            writePath(b, (PathOp) op, dict);
+        } else if (op instanceof SemiJoinOp) {
+            writeSemiJoin(b, (SemiJoinOp) op, dict);
         } else if (op instanceof SPARQLValuesTemplateOp) {
             String sparql = ((SPARQLValuesTemplateOp) op).createSPARQL();
             String body = sparql.substring(sparql.indexOf('}') + 1, sparql.lastIndexOf('}'));
@@ -213,6 +237,42 @@ public class SPARQLString {
         return b;
     }
 
+    public static @Nonnull StringBuilder
+    writeSemiJoin(@Nonnull StringBuilder b, @Nonnull SemiJoinOp op, @Nonnull PrefixDict dict) {
+        // the group isolates the FILTER from siblings of op
+        writeBody(b.append(" { "), op.getLeft(), dict);
+        switch (op.getMode()) {
+            case EXISTS:     b.append(" FILTER EXISTS { "); break;
+            case NOT_EXISTS: b.append(" FILTER NOT EXISTS { "); break;
+            case MINUS:      b.append(" MINUS { "); break;
+        }
+        return writeBody(b, op.getRight(), dict).append(" } } ");
+    }
+
+    public static @Nonnull StringBuilder
+    writePath(@Nonnull StringBuilder b, @Nonnull PathOp op, @Nonnull PrefixDict dict) {
+        b.append(term2SPARQL(op.getSubject(), dict)).append(" (");
+        for (SimplePath.Segment segment : op.getPath().getSegments()) {
+            if (segment.isNegated()) {
+                b.append("!(");
+                for (Term excluded : segment.getExcluded()) {
+                    if (segment.isReverse())
+                        b.append('^');
+                    b.append(term2SPARQL(excluded, dict)).append('|');
+                }
+                b.setLength(b.length()-1);
+                b.append(")/");
+                continue;
+            }
+            if (segment.isReverse())
+                b.append('^');
+            b.append(term2SPARQL(segment.getTerm(), dict)).append('/');
+        }
+        b.setLength(b.length()-1);
+        b.append(')').append(op.getQuantifier().getSymbol()).append(' ');
+        return b.append(term2SPARQL(op.getObject(), dict)).append(" . ");
+    }
+
     public static boolean omitTriple(@Nonnull Triple triple, @Nonnull CQuery query) {
         if (query.getTripleAnnotations(triple).contains(PureDescriptive.INSTANCE))
             return true;
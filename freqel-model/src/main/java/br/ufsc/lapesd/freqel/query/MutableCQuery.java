@@ -1,5 +1,6 @@
 package br.ufsc.lapesd.freqel.query;
 
+import br.ufsc.lapesd.freqel.model.RDFUtils;
 import br.ufsc.lapesd.freqel.model.Triple;
 import br.ufsc.lapesd.freqel.model.prefix.PrefixDict;
 import br.ufsc.lapesd.freqel.model.term.Term;
@@ -9,11 +10,13 @@ import br.ufsc.lapesd.freqel.query.annotations.QueryAnnotation;
 import br.ufsc.lapesd.freqel.query.annotations.TermAnnotation;
 import br.ufsc.lapesd.freqel.query.annotations.TripleAnnotation;
 import br.ufsc.lapesd.freqel.query.endpoint.Capability;
+import br.ufsc.lapesd.freqel.query.modifiers.Aggregation;
 import br.ufsc.lapesd.freqel.query.modifiers.Modifier;
 import br.ufsc.lapesd.freqel.query.modifiers.ModifiersSet;
 import br.ufsc.lapesd.freqel.query.modifiers.Projection;
 import br.ufsc.lapesd.freqel.query.modifiers.UnsafeMergeException;
 import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilter;
+import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilterFactory;
 import br.ufsc.lapesd.freqel.util.indexed.IndexSet;
 import br.ufsc.lapesd.freqel.util.indexed.subset.IndexSubset;
 import com.google.common.annotations.VisibleForTesting;
@@ -655,17 +658,23 @@ public class MutableCQuery extends CQuery {
         makeExclusive();
         Term focus = subj;
         ArrayList<Term> terms = new ArrayList<>();
+        List<SPARQLFilter> filters = new ArrayList<>();
         for (Iterator<SimplePath.Segment> it = path.getSegments().iterator(); it.hasNext(); ) {
             SimplePath.Segment segment = it.next();
             Term oldFocus = focus;
             focus = it.hasNext() ? nextHidden() : obj;
+            Term predicate = segment.getTerm();
+            if (segment.isNegated()) {
+                predicate = nextHidden();
+                filters.add(notIn(predicate.asVar(), segment.getExcluded()));
+            }
             if (segment.isReverse()) {
                 terms.add(focus);
-                terms.add(segment.getTerm());
+                terms.add(predicate);
                 terms.add(oldFocus);
             } else {
                 terms.add(oldFocus);
-                terms.add(segment.getTerm());
+                terms.add(predicate);
                 terms.add(focus);
             }
         }
@@ -675,9 +684,21 @@ public class MutableCQuery extends CQuery {
             change |= d.list.add(new Triple(terms.get(i), terms.get(i+1), terms.get(i+2)));
         if (change)
             d.cache.invalidateTriples();
+        for (SPARQLFilter filter : filters)
+            change |= mutateModifiers().add(filter);
         return change;
     }
 
+    private static @Nonnull SPARQLFilter notIn(@Nonnull Var var,
+                                               @Nonnull Collection<Term> excluded) {
+        StringBuilder b = new StringBuilder();
+        b.append('?').append(var.getName()).append(" NOT IN (");
+        for (Term term : excluded)
+            b.append(RDFUtils.toNT(term)).append(", ");
+        b.setLength(b.length()-2);
+        return SPARQLFilterFactory.parseFilter(b.append(')').toString());
+    }
+
     @Override
     public final boolean remove(Object o) {
         if (!(o instanceof Triple)) return false;
@@ -780,7 +801,15 @@ public class MutableCQuery extends CQuery {
         IndexSet<String> allowed = strict ? attr().tripleVarNames() : attr().allVarNames();
         Set<String> current = p.getVarNames();
 
-        IndexSubset<String> fixed = allowed.fullSubset().intersect(current);
+        Set<String> fixed = allowed.fullSubset().intersect(current);
+        Aggregation aggregation = d.modifiers.aggregation();
+        if (aggregation != null) { // outputs of aggregates are not bound by any triple
+            Set<String> withOutputs = new HashSet<>(fixed);
+            for (String name : aggregation.getResultVarNames()) {
+                if (current.contains(name)) withOutputs.add(name);
+            }
+            fixed = withOutputs;
+        }
         if (fixed.size() == current.size())
             return false; // no change
         boolean change = d.modifiers.add(new Projection(fixed));
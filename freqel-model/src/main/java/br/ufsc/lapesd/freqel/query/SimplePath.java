@@ -3,7 +3,10 @@ package br.ufsc.lapesd.freqel.query;
 import br.ufsc.lapesd.freqel.model.prefix.PrefixDict;
 import br.ufsc.lapesd.freqel.model.prefix.StdPrefixDict;
 import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.model.term.Var;
+import br.ufsc.lapesd.freqel.model.term.std.StdVar;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.errorprone.annotations.Immutable;
 import com.google.errorprone.annotations.concurrent.LazyInit;
 
@@ -14,8 +17,12 @@ import java.util.*;
 public class SimplePath {
     @Immutable
     public static class Segment {
+        /** Placeholder predicate of negated segments */
+        public static final @Nonnull Var NEGATED = new StdVar("freqelNegatedPredicate");
+
         private final @Nonnull Term term;
         private final boolean reverse;
+        private final @Nonnull ImmutableSet<Term> excluded;
 
         public Segment(@Nonnull Term term) {
             this(term, false);
@@ -24,8 +31,29 @@ public class SimplePath {
         public Segment(@Nonnull Term term, boolean reverse) {
             this.term = term;
             this.reverse = reverse;
+            this.excluded = ImmutableSet.of();
+        }
+
+        private Segment(@Nonnull Collection<? extends Term> excluded, boolean reverse) {
+            if (excluded.isEmpty())
+                throw new IllegalArgumentException("Negated property set cannot be empty");
+            this.term = NEGATED;
+            this.reverse = reverse;
+            this.excluded = ImmutableSet.copyOf(excluded);
+        }
+
+        /**
+         * A segment matching any predicate not in excluded, i.e., the SPARQL
+         * <code>!(p1|p2)</code> (or <code>!(^p1|^p2)</code> if reverse).
+         */
+        public static @Nonnull Segment negated(@Nonnull Collection<? extends Term> excluded,
+                                               boolean reverse) {
+            return new Segment(excluded, reverse);
         }
 
+        /**
+         * The predicate, or {@link #NEGATED} if {@link #isNegated()}.
+         */
         public @Nonnull Term getTerm() {
             return term;
         }
@@ -34,18 +62,29 @@ public class SimplePath {
             return reverse;
         }
 
+        public boolean isNegated() {
+            return !excluded.isEmpty();
+        }
+
+        /**
+         * Predicates that are not matched by a negated segment. Empty if not negated.
+         */
+        public @Nonnull ImmutableSet<Term> getExcluded() {
+            return excluded;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
             if (!(o instanceof Segment)) return false;
             Segment segment = (Segment) o;
             return reverse == segment.reverse &&
-                    term.equals(segment.term);
+                    term.equals(segment.term) && excluded.equals(segment.excluded);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(term, reverse);
+            return Objects.hash(term, reverse, excluded);
         }
 
         @Override
@@ -54,7 +93,13 @@ public class SimplePath {
         }
 
         public @Nonnull String toString(@Nonnull PrefixDict prefixDict) {
-            return (reverse ? "^" : "")+term.toString(prefixDict);
+            if (!isNegated())
+                return (reverse ? "^" : "")+term.toString(prefixDict);
+            StringBuilder b = new StringBuilder("!(");
+            for (Term t : excluded)
+                b.append(reverse ? "^" : "").append(t.toString(prefixDict)).append('|');
+            b.setLength(b.length()-1);
+            return b.append(')').toString();
         }
     }
 
@@ -104,6 +149,16 @@ public class SimplePath {
             return this;
         }
 
+        public @Nonnull Builder notTo(@Nonnull Collection<? extends Term> excluded) {
+            segments.add(Segment.negated(excluded, false));
+            return this;
+        }
+
+        public @Nonnull Builder notFrom(@Nonnull Collection<? extends Term> excluded) {
+            segments.add(Segment.negated(excluded, true));
+            return this;
+        }
+
         public @Nonnull SimplePath build() {
             return segments.isEmpty() ? EMPTY : new SimplePath(segments);
         }
@@ -121,6 +176,13 @@ public class SimplePath {
         return segments.size();
     }
 
+    public boolean hasNegated() {
+        for (Segment segment : segments) {
+            if (segment.isNegated()) return true;
+        }
+        return false;
+    }
+
     public @Nonnull List<Segment> getSegments() {
         return segments;
     }
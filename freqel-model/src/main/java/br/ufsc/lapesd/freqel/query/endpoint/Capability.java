@@ -14,7 +14,8 @@ public enum  Capability {
     VALUES,
     OPTIONAL,
     CARTESIAN,
-    REASONING;
+    REASONING,
+    AGGREGATION;
 
     public boolean isUniqueModifier() {
         switch (this) {
@@ -26,6 +27,7 @@ public enum  Capability {
             case OPTIONAL:
             case CARTESIAN:
             case REASONING:
+            case AGGREGATION:
                 return true;
             default:
                 return false;
@@ -41,6 +43,7 @@ public enum  Capability {
      * - LIMIT is unsafe as the number of results from the join cannot be foreseen
      * - ASK is unsafe since the receiving query was not under ASK semantics and results are lost
      * - DISTINCT is unsafe since it can cause result eliminations
+     * - AGGREGATION is unsafe since it replaces the solutions with groups
      */
     public boolean isMergeUnsafe() {
         switch (this) {
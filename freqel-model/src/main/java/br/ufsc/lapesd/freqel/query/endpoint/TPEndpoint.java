@@ -74,6 +74,17 @@ public interface TPEndpoint extends AutoCloseable {
         return estimate(query, 0);
     }
 
+    /**
+     * A stable identifier of the remote service behind this endpoint (e.g., its URI).
+     *
+     * Estimates (see {@link #estimate(CQuery, int)}) are only cached and persisted across
+     * queries for endpoints that return non-null. Local endpoints, whose data may change
+     * at any time and are cheap to query, should return null.
+     */
+    default @Nullable String getRemoteId() {
+        return null;
+    }
+
     @Nonnull Description getDescription();
 
     /**
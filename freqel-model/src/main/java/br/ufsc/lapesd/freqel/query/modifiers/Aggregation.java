@@ -0,0 +1,283 @@
+package br.ufsc.lapesd.freqel.query.modifiers;
+
+import br.ufsc.lapesd.freqel.query.endpoint.Capability;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.errorprone.annotations.Immutable;
+import com.google.errorprone.annotations.concurrent.LazyInit;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+import static java.util.Arrays.asList;
+
+/**
+ * A GROUP BY clause together with the aggregate expressions projected by the query.
+ *
+ * The result variables of an aggregated query are the grouping variables plus the output
+ * variables of each {@link Aggregate}. Any {@link Projection} present alongside this modifier
+ * must be a subset of {@link #getResultVarNames()} and is applied after the aggregation.
+ */
+@Immutable
+public class Aggregation implements Modifier {
+    public enum Function {
+        COUNT,
+        SUM,
+        MIN,
+        MAX,
+        AVG;
+
+        /**
+         * Whether partial results of this function over disjoint subsets of the input can
+         * be combined into the result of the function over the whole input.
+         */
+        public boolean isDecomposable() {
+            return this != AVG;
+        }
+
+        /**
+         * The function that combines partial results of this function.
+         */
+        public @Nonnull Function getCombiner() {
+            switch (this) {
+                case COUNT:
+                case SUM:
+                    return SUM;
+                case MIN:
+                    return MIN;
+                case MAX:
+                    return MAX;
+                default:
+                    throw new UnsupportedOperationException(this+" is not decomposable");
+            }
+        }
+    }
+
+    @Immutable
+    public static class Aggregate {
+        private final @Nonnull Function function;
+        private final @Nullable String inputVar;
+        private final @Nonnull String outputVar;
+        private final boolean distinct;
+
+        public Aggregate(@Nonnull Function function, @Nullable String inputVar,
+                         @Nonnull String outputVar, boolean distinct) {
+            if (inputVar == null && function != Function.COUNT)
+                throw new IllegalArgumentException(function+" requires an input variable");
+            this.function = function;
+            this.inputVar = inputVar;
+            this.outputVar = outputVar;
+            this.distinct = distinct;
+        }
+
+        public static @Nonnull Aggregate countAll(@Nonnull String outputVar) {
+            return new Aggregate(Function.COUNT, null, outputVar, false);
+        }
+        public static @Nonnull Aggregate of(@Nonnull Function function, @Nonnull String inputVar,
+                                            @Nonnull String outputVar) {
+            return new Aggregate(function, inputVar, outputVar, false);
+        }
+
+        public @Nonnull Function getFunction() {
+            return function;
+        }
+
+        /**
+         * The aggregated variable or null if this is a <code>COUNT(*)</code>.
+         */
+        public @Nullable String getInputVar() {
+            return inputVar;
+        }
+
+        public @Nonnull String getOutputVar() {
+            return outputVar;
+        }
+
+        public boolean isDistinct() {
+            return distinct;
+        }
+
+        public boolean isDecomposable() {
+            return !distinct && function.isDecomposable();
+        }
+
+        /**
+         * An aggregate that combines partial results of this aggregate, which are assumed to be
+         * bound to {@link #getOutputVar()}.
+         */
+        public @Nonnull Aggregate toCombining() {
+            return new Aggregate(function.getCombiner(), outputVar, outputVar, false);
+        }
+
+        public @Nonnull String toSPARQL() {
+            StringBuilder b = new StringBuilder();
+            b.append('(').append(function.name()).append('(');
+            if (distinct) b.append("DISTINCT ");
+            b.append(inputVar == null ? "*" : "?"+inputVar);
+            return b.append(") AS ?").append(outputVar).append(')').toString();
+        }
+
+        @Override public @Nonnull String toString() {
+            return toSPARQL();
+        }
+
+        @Override public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Aggregate)) return false;
+            Aggregate that = (Aggregate) o;
+            return distinct == that.distinct && function == that.function
+                    && Objects.equals(inputVar, that.inputVar)
+                    && outputVar.equals(that.outputVar);
+        }
+
+        @Override public int hashCode() {
+            return Objects.hash(function, inputVar, outputVar, distinct);
+        }
+    }
+
+    private final @Nonnull ImmutableSet<String> groupVarNames;
+    private final @Nonnull ImmutableList<Aggregate> aggregates;
+    @SuppressWarnings("Immutable")
+    private @LazyInit @Nullable Set<String> resultVarNames, inputVarNames;
+
+    /* ~~~ Constructor & builder ~~~ */
+
+    public Aggregation(@Nonnull Collection<String> groupVarNames,
+                       @Nonnull Collection<Aggregate> aggregates) {
+        this.groupVarNames = ImmutableSet.copyOf(groupVarNames);
+        this.aggregates = ImmutableList.copyOf(aggregates);
+        for (Aggregate a : this.aggregates) {
+            if (this.groupVarNames.contains(a.getOutputVar()))
+                throw new IllegalArgumentException("Output of "+a+" is also a grouping var");
+        }
+    }
+
+    public static @Nonnull Aggregation of(@Nonnull Collection<String> groupVarNames,
+                                          @Nonnull Aggregate... aggregates) {
+        return new Aggregation(groupVarNames, asList(aggregates));
+    }
+
+    /* ~~~ actual methods ~~~ */
+
+    public @Nonnull ImmutableSet<String> getGroupVarNames() {
+        return groupVarNames;
+    }
+
+    public @Nonnull ImmutableList<Aggregate> getAggregates() {
+        return aggregates;
+    }
+
+    /**
+     * Grouping variables and output variables of all aggregates.
+     */
+    public @Nonnull Set<String> getResultVarNames() {
+        if (resultVarNames == null) {
+            Set<String> set = new LinkedHashSet<>(groupVarNames);
+            for (Aggregate a : aggregates)
+                set.add(a.getOutputVar());
+            resultVarNames = Collections.unmodifiableSet(set);
+        }
+        return resultVarNames;
+    }
+
+    /**
+     * Variables that must be present in the solutions fed to the aggregation.
+     */
+    public @Nonnull Set<String> getInputVarNames() {
+        if (inputVarNames == null) {
+            Set<String> set = new LinkedHashSet<>(groupVarNames);
+            for (Aggregate a : aggregates) {
+                if (a.getInputVar() != null)
+                    set.add(a.getInputVar());
+            }
+            inputVarNames = Collections.unmodifiableSet(set);
+        }
+        return inputVarNames;
+    }
+
+    /**
+     * Whether the aggregation can be computed over disjoint partitions of the input and
+     * later combined using {@link #toCombining()}.
+     */
+    public boolean isDecomposable() {
+        for (Aggregate a : aggregates) {
+            if (!a.isDecomposable()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get an {@link Aggregation} that combines rows produced by this aggregation over
+     * disjoint partitions of the input into the rows this aggregation would produce over
+     * the whole input.
+     *
+     * @throws UnsupportedOperationException if {@link #isDecomposable()} is false
+     */
+    public @Nonnull Aggregation toCombining() {
+        List<Aggregate> list = new ArrayList<>(aggregates.size());
+        for (Aggregate a : aggregates) {
+            if (!a.isDecomposable())
+                throw new UnsupportedOperationException(a+" is not decomposable");
+            list.add(a.toCombining());
+        }
+        return new Aggregation(groupVarNames, list);
+    }
+
+    /**
+     * Writes the given result vars as SELECT expressions, replacing output vars of
+     * aggregates with the aggregate expression.
+     */
+    public @Nonnull StringBuilder writeSelectExpressions(@Nonnull StringBuilder b,
+                                                         @Nonnull Collection<String> varNames) {
+        for (String v : varNames) {
+            Aggregate aggregate = null;
+            for (Aggregate a : aggregates) {
+                if (a.getOutputVar().equals(v)) { aggregate = a; break; }
+            }
+            if (aggregate != null) b.append(aggregate.toSPARQL()).append(' ');
+            else                   b.append('?').append(v).append(' ');
+        }
+        return b;
+    }
+
+    public @Nonnull StringBuilder writeGroupBy(@Nonnull StringBuilder b) {
+        if (groupVarNames.isEmpty())
+            return b;
+        b.append(" GROUP BY");
+        for (String v : groupVarNames)
+            b.append(" ?").append(v);
+        return b;
+    }
+
+    @Override
+    public @Nonnull Capability getCapability() {
+        return Capability.AGGREGATION;
+    }
+
+    /* ~~~ Object-ish methods ~~~ */
+
+    @Override
+    public @Nonnull String toString() {
+        StringBuilder b = new StringBuilder("γ(");
+        for (String v : groupVarNames)
+            b.append(v).append(", ");
+        for (Aggregate a : aggregates)
+            b.append(a).append(", ");
+        if (b.length() > 2) b.setLength(b.length()-2);
+        return b.append(')').toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Aggregation)) return false;
+        Aggregation that = (Aggregation) o;
+        return groupVarNames.equals(that.groupVarNames) && aggregates.equals(that.aggregates);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(groupVarNames, aggregates);
+    }
+}
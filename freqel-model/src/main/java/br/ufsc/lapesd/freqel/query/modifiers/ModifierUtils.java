@@ -21,6 +21,7 @@ public class ModifierUtils {
         map.put(Limit.class, Capability.LIMIT);
         map.put(SPARQLFilter.class, Capability.SPARQL_FILTER);
         map.put(ValuesModifier.class, Capability.VALUES);
+        map.put(Aggregation.class, Capability.AGGREGATION);
         cls2cap = map;
     }
 
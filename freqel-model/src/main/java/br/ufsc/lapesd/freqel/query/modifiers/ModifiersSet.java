@@ -271,6 +271,8 @@ public class ModifiersSet extends AbstractSet<Modifier> {
             Limit mine = limit();
             int value = Math.min(mine == null ? Integer.MAX_VALUE : mine.getValue(), theirs);
             change |= add(new Limit(value));
+        } else if (modifier instanceof Aggregation) {
+            change |= add(modifier);
         } else if (modifier instanceof Optional) {
             Optional mine = optional();
             boolean explicit =  (mine != null && mine.isExplicit())
@@ -318,6 +320,7 @@ public class ModifiersSet extends AbstractSet<Modifier> {
      * - values: join (if there are shared variables) or cartesian product of bindings
      * - limit: minimum value among existing modifiers
      * - ask: only the required flag rules apply
+     * - aggregation: replaced (merging aggregations is always unsafe)
      *
      * @param collection the collection of modifiers to add
      * @param fallbackProjection if this set has no projection, consider this to be the
@@ -395,6 +398,9 @@ public class ModifiersSet extends AbstractSet<Modifier> {
     public @Nullable Reasoning reasoning() {
         return (Reasoning) d.uniqueModifiers[Capability.REASONING.ordinal()];
     }
+    public @Nullable Aggregation aggregation() {
+        return (Aggregation) d.uniqueModifiers[Capability.AGGREGATION.ordinal()];
+    }
     public @Nonnull Set<SPARQLFilter> filters() {
         return d.filtersView;
     }
@@ -0,0 +1,26 @@
+package br.ufsc.lapesd.freqel.query.results;
+
+import br.ufsc.lapesd.freqel.query.modifiers.ModifiersSet;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Creates the {@link Results} that remove duplicate solutions (DISTINCT).
+ */
+public interface DistinctResultsFactory {
+    /**
+     * Create a {@link Results} that yields the distinct solutions of <code>in</code>.
+     * Closing the returned {@link Results} will close <code>in</code>.
+     */
+    @Nonnull Results create(@Nonnull Results in);
+
+    default @Nonnull Results applyIfNotDistinct(@Nonnull Results in) {
+        return in.isDistinct() ? in : create(in);
+    }
+
+    default @Nonnull Results applyIf(@Nonnull Results in, @Nonnull ModifiersSet modifiers) {
+        if (modifiers.distinct() != null && !in.isDistinct())
+            return create(in);
+        return in;
+    }
+}
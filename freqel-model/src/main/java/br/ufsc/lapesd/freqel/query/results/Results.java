@@ -45,6 +45,22 @@ public interface Results extends Iterator<Solution>, AutoCloseable {
      */
     void setOptional(boolean value);
 
+    /**
+     * Hints that the consumer will take at most <code>solutions</code> further solutions
+     * from this {@link Results} (e.g., because a LIMIT is applied downstream).
+     *
+     * Implementations that fetch from sources in batches may use this to request less
+     * solutions or to stop fetching early. Decorators that never produce more solutions
+     * than they consume (projections, LIMIT, unions) should forward the hint to their
+     * inputs. This is only a hint: if the consumer asks for more solutions anyway, they
+     * must still be produced, unless the hint was zero. A zero hint is final and allows
+     * implementations to close their inputs. The default implementation ignores the hint.
+     *
+     * @param solutions maximum number of solutions that will be consumed from now on.
+     *                  A negative value cancels a previous hint.
+     */
+    default void setDemand(int solutions) { }
+
     /**
      * Wait for availability of a next() element for at most the given ammount of milliseconds.
      *
@@ -66,6 +82,37 @@ public interface Results extends Iterator<Solution>, AutoCloseable {
     @Override
     @Nonnull Solution next();
 
+    /**
+     * Moves up to <code>max</code> solutions into <code>buffer</code>, starting at index 0.
+     *
+     * This is equivalent to a sequence of {@link #hasNext()}/{@link #next()} calls, but allows
+     * implementations to process whole batches of solutions per call, avoiding per-row
+     * virtual calls and bookkeeping in long chains of {@link Results} decorators. Like
+     * {@link #hasNext()}, this blocks until at least one solution is available. Once some
+     * solutions were stored, implementations should not block waiting for more. This
+     * default implementation is a row-at-a-time adapter: after the first solution, it keeps
+     * storing solutions while {@link #getReadyCount()} reports solutions that are already
+     * available, be this {@link #isAsync()} or not.
+     *
+     * Positions of buffer after the returned count may be overwritten with garbage.
+     *
+     * @param buffer where to store solutions. Positions before the returned count will be
+     *               overwritten on the next call.
+     * @param max maximum number of solutions to store. If larger than
+     *            <code>buffer.length</code>, will be treated as <code>buffer.length</code>.
+     * @return number of solutions stored in buffer. Zero iff there are no more solutions
+     *         (or <code>max</code> is zero).
+     */
+    default int nextBatch(@Nonnull Solution[] buffer, int max) {
+        int end = Math.min(max, buffer.length), n = 0;
+        if (end == 0 || !hasNext())
+            return 0;
+        buffer[n++] = next();
+        while (n < end && getReadyCount() > 0 && hasNext())
+            buffer[n++] = next();
+        return n;
+    }
+
     /**
      * Set of variable names (the x in ?x) that {@link Solution}s from next() may contain.
      *
@@ -7,20 +7,44 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 public class ResultsUtils {
+    private static final @Nonnull DistinctResultsFactory IN_MEMORY_DISTINCT =
+            HashDistinctResults::new;
+
+    /**
+     * Same as {@link #applyModifiers(Results, ModifiersSet, DistinctResultsFactory)}, but
+     * DISTINCT is always evaluated in memory.
+     */
     public static @Nonnull Results applyModifiers(@Nonnull Results in,
                                                   @Nullable ModifiersSet modifiers) {
+        return applyModifiers(in, modifiers, IN_MEMORY_DISTINCT);
+    }
+
+    public static @Nonnull Results applyModifiers(@Nonnull Results in,
+                                                  @Nullable ModifiersSet modifiers,
+                                                  @Nonnull DistinctResultsFactory distinct) {
         if (modifiers == null)
             return in;
         Results r = SPARQLFilterResults.applyIf(in, modifiers.filters());
-        return applyNonFilterModifiers(r, modifiers);
+        return applyNonFilterModifiers(r, modifiers, distinct);
     }
 
+    /**
+     * Same as {@link #applyNonFilterModifiers(Results, ModifiersSet, DistinctResultsFactory)},
+     * but DISTINCT is always evaluated in memory.
+     */
     public static @Nonnull Results applyNonFilterModifiers(@Nonnull Results in,
                                                            @Nullable ModifiersSet modifiers) {
+        return applyNonFilterModifiers(in, modifiers, IN_MEMORY_DISTINCT);
+    }
+
+    public static @Nonnull Results
+    applyNonFilterModifiers(@Nonnull Results in, @Nullable ModifiersSet modifiers,
+                            @Nonnull DistinctResultsFactory distinct) {
         if (modifiers == null)
             return in;
-        Results r = ProjectingResults.applyIf(in, modifiers);
-        r = HashDistinctResults.applyIf(r, modifiers);
+        Results r = AggregatingResults.applyIf(in, modifiers);
+        r = ProjectingResults.applyIf(r, modifiers);
+        r = distinct.applyIf(r, modifiers);
         r = LimitResults.applyIf(r, modifiers);
         r = AskResults.applyIf(r, modifiers);
         if (modifiers.optional() != null)
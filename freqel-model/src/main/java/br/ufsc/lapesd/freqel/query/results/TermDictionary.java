@@ -0,0 +1,140 @@
+package br.ufsc.lapesd.freqel.query.results;
+
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.query.results.impl.ArraySolution;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns {@link Term}s into compact integer ids.
+ *
+ * Ids are only meaningful within the dictionary that assigned them. Operators that hash
+ * or compare the same bindings many times (hash joins, DISTINCT) encode each term once
+ * and then work on primitive keys. Terms are never rewritten: solutions keep their
+ * original {@link Term} objects and {@link #decode(int)} is only needed by consumers that
+ * keep ids alone.
+ *
+ * Solutions can be interned once, where they enter the execution from a source
+ * ({@link ArraySolution.ValueFactory#intern(Solution, TermDictionary)}). Interned
+ * solutions carry the ids of their values, and operators given the same dictionary read
+ * these ids instead of looking up each term again. Ids are kept by solutions derived from
+ * interned solutions by an {@link ArraySolution.ValueFactory}.
+ */
+@ThreadSafe
+public class TermDictionary {
+    /** Id of an unbound (null) term. Never assigned to an actual term. */
+    public static final int NULL_ID = 0;
+
+    private final @Nonnull ConcurrentHashMap<Term, Integer> ids;
+    private volatile @Nonnull Term[] terms;
+    private int nextId = NULL_ID + 1; // guarded by this
+
+    public TermDictionary() {
+        this(256);
+    }
+
+    public TermDictionary(int expectedTerms) {
+        ids = new ConcurrentHashMap<>(expectedTerms);
+        terms = new Term[Math.max(expectedTerms, 16)];
+    }
+
+    /**
+     * Get the id of the given term, assigning a new one if necessary.
+     *
+     * @return {@link #NULL_ID} if term is null, else a positive id.
+     */
+    public int encode(@Nullable Term term) {
+        if (term == null)
+            return NULL_ID;
+        Integer id = ids.get(term);
+        return id != null ? id : ids.computeIfAbsent(term, this::assign);
+    }
+
+    /**
+     * Get the id of the value of var in solution, assigning a new one if necessary.
+     *
+     * If the solution was interned by this dictionary, its stored id is used.
+     */
+    public int encode(@Nonnull Solution solution, @Nonnull String var) {
+        if (solution instanceof ArraySolution) {
+            int id = ((ArraySolution) solution).getId(this, var);
+            if (id >= NULL_ID)
+                return id;
+        }
+        return encode(solution.get(var));
+    }
+
+    /**
+     * Encodes the values of the given variables into a single key. Two solutions get the
+     * same key iff they have equal values (or are both unbound) for all the variables.
+     *
+     * @param vars one or two variable names
+     */
+    public long encodeKey(@Nonnull Solution solution, @Nonnull String[] vars) {
+        assert vars.length > 0 && vars.length <= 2;
+        long key = encode(solution, vars[0]);
+        if (vars.length > 1)
+            key = (key << 32) | encode(solution, vars[1]);
+        return key;
+    }
+
+    /**
+     * Encodes the values of all given vars into an array of ids
+     */
+    public @Nonnull int[] encode(@Nonnull Solution solution, @Nonnull String[] vars) {
+        int[] result = new int[vars.length];
+        for (int i = 0; i < vars.length; i++)
+            result[i] = encode(solution, vars[i]);
+        return result;
+    }
+
+    /**
+     * Get the term that was assigned the given id.
+     *
+     * @return null if id is {@link #NULL_ID}
+     * @throws IllegalArgumentException if the id was not assigned by this dictionary
+     */
+    public @Nullable Term decode(int id) {
+        if (id == NULL_ID)
+            return null;
+        Term[] array = this.terms;
+        Term term = id > 0 && id < array.length ? array[id] : null;
+        if (term == null)
+            throw new IllegalArgumentException("Unknown term id "+id);
+        return term;
+    }
+
+    /**
+     * Number of distinct terms in the dictionary
+     */
+    public synchronized int size() {
+        return nextId - 1;
+    }
+
+    private synchronized @Nonnull Integer assign(@Nonnull Term term) {
+        int id = nextId++;
+        Term[] array = this.terms;
+        if (id >= array.length)
+            array = Arrays.copyOf(array, array.length * 2);
+        array[id] = term;
+        this.terms = array; // publishes the store above
+        return id;
+    }
+
+    /**
+     * Mixes the bits of a key so that consecutive ids spread over hash table slots.
+     */
+    public static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public @Nonnull String toString() {
+        return String.format("TermDictionary@%x{size=%d}", System.identityHashCode(this), size());
+    }
+}
@@ -0,0 +1,340 @@
+package br.ufsc.lapesd.freqel.query.results.impl;
+
+import br.ufsc.lapesd.freqel.V;
+import br.ufsc.lapesd.freqel.model.term.Lit;
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.model.term.std.StdLit;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.MutableCQuery;
+import br.ufsc.lapesd.freqel.query.modifiers.Aggregation;
+import br.ufsc.lapesd.freqel.query.modifiers.ModifiersSet;
+import br.ufsc.lapesd.freqel.query.modifiers.Projection;
+import br.ufsc.lapesd.freqel.query.results.DelegatingResults;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.ResultsCloseException;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import com.google.common.collect.Sets;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.*;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Hash-based GROUP BY evaluation.
+ *
+ * Memory usage is proportional to the number of groups (plus the number of distinct values
+ * for DISTINCT aggregates), not to the number of input solutions. Since any group may
+ * receive a solution until the input is exhausted, the first call to {@link #hasNext()}
+ * consumes the whole input.
+ */
+public class AggregatingResults extends DelegatingResults {
+    private static final @Nonnull Set<String> INTEGER_TYPES = Sets.newHashSet(
+            V.XSD.integer.getURI(), V.XSD.xint.getURI(), V.XSD.xlong.getURI(),
+            V.XSD.xshort.getURI(), V.XSD.xbyte.getURI(), V.XSD.unsignedByte.getURI(),
+            V.XSD.unsignedShort.getURI(), V.XSD.unsignedInt.getURI(),
+            V.XSD.unsignedLong.getURI(), V.XSD.nonPositiveInteger.getURI(),
+            V.XSD.nonNegativeInteger.getURI(), V.XSD.positiveInteger.getURI(),
+            V.XSD.negativeInteger.getURI());
+    private static final int INTEGER = 0, DECIMAL = 1, DOUBLE = 2;
+    private static final int BATCH_SIZE = 256;
+
+    private final @Nonnull Aggregation aggregation;
+    private final @Nonnull ArraySolution.ValueFactory factory;
+    private @Nullable List<Solution> output;
+    private int outputPos = 0;
+
+    public AggregatingResults(@Nonnull Results in, @Nonnull Aggregation aggregation) {
+        super(aggregation.getResultVarNames(), in);
+        this.aggregation = aggregation;
+        this.factory = ArraySolution.forVars(aggregation.getResultVarNames());
+    }
+
+    public static @Nonnull Results applyIf(@Nonnull Results in, @Nonnull ModifiersSet modifiers) {
+        Aggregation aggregation = modifiers.aggregation();
+        return aggregation == null ? in : new AggregatingResults(in, aggregation);
+    }
+
+    /**
+     * Creates a copy of the query that yields the solutions to be fed into the
+     * {@link Aggregation} of the query. Modifiers that must be evaluated after the aggregation
+     * (projection, DISTINCT and LIMIT) are also removed.
+     *
+     * @throws IllegalArgumentException if the query has no {@link Aggregation}
+     */
+    public static @Nonnull CQuery createInputQuery(@Nonnull CQuery query) {
+        Aggregation aggregation = query.getModifiers().aggregation();
+        if (aggregation == null)
+            throw new IllegalArgumentException("Query has no aggregation");
+        MutableCQuery copy = new MutableCQuery(query);
+        ModifiersSet modifiers = copy.mutateModifiers();
+        modifiers.remove(aggregation);
+        modifiers.remove(modifiers.projection());
+        modifiers.remove(modifiers.distinct());
+        modifiers.remove(modifiers.limit());
+        if (!aggregation.getInputVarNames().isEmpty())
+            modifiers.add(Projection.of(aggregation.getInputVarNames()));
+        return copy;
+    }
+
+    public @Nonnull Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    @Override
+    public int getReadyCount() {
+        return output == null ? 0 : output.size() - outputPos;
+    }
+
+    @Override
+    public int getLimit() {
+        return -1;
+    }
+
+    @Override
+    public boolean isDistinct() {
+        return true; // there is a single solution per group
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (output == null)
+            output = aggregate();
+        return outputPos < output.size();
+    }
+
+    @Override
+    public @Nonnull Solution next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        assert output != null;
+        return output.get(outputPos++);
+    }
+
+    @Override
+    public void close() throws ResultsCloseException {
+        output = Collections.emptyList();
+        outputPos = 0;
+        super.close();
+    }
+
+    private @Nonnull List<Solution> aggregate() {
+        List<String> groupVars = aggregation.getGroupVarNames().asList();
+        Map<List<Term>, Accumulator[]> groups = new LinkedHashMap<>();
+        Solution[] batch = new Solution[BATCH_SIZE];
+        for (int n; (n = in.nextBatch(batch, batch.length)) > 0; ) {
+            for (int j = 0; j < n; j++) {
+                Solution solution = batch[j];
+                Term[] key = new Term[groupVars.size()];
+                for (int i = 0; i < key.length; i++)
+                    key[i] = solution.get(groupVars.get(i));
+                Accumulator[] accumulators = groups.computeIfAbsent(asList(key), k -> create());
+                for (Accumulator accumulator : accumulators)
+                    accumulator.add(solution);
+            }
+        }
+        if (groups.isEmpty() && groupVars.isEmpty())
+            groups.put(Collections.emptyList(), create()); // implicit group over no solutions
+
+        List<Solution> list = new ArrayList<>(groups.size());
+        List<Aggregation.Aggregate> aggregates = aggregation.getAggregates();
+        for (Map.Entry<List<Term>, Accumulator[]> e : groups.entrySet()) {
+            List<Term> key = e.getKey();
+            Accumulator[] accumulators = e.getValue();
+            list.add(factory.fromFunction(name -> {
+                int idx = groupVars.indexOf(name);
+                if (idx >= 0)
+                    return key.get(idx);
+                for (int i = 0; i < accumulators.length; i++) {
+                    if (aggregates.get(i).getOutputVar().equals(name))
+                        return accumulators[i].get();
+                }
+                return null;
+            }));
+        }
+        return list;
+    }
+
+    private @Nonnull Accumulator[] create() {
+        List<Aggregation.Aggregate> aggregates = aggregation.getAggregates();
+        Accumulator[] accumulators = new Accumulator[aggregates.size()];
+        for (int i = 0; i < accumulators.length; i++) {
+            Aggregation.Aggregate a = aggregates.get(i);
+            switch (a.getFunction()) {
+                case COUNT:
+                    accumulators[i] = new CountAccumulator(a); break;
+                case SUM:
+                case AVG:
+                    accumulators[i] = new SumAccumulator(a); break;
+                case MIN:
+                case MAX:
+                    accumulators[i] = new ExtremeAccumulator(a); break;
+                default:
+                    throw new UnsupportedOperationException("Unexpected "+a.getFunction());
+            }
+        }
+        return accumulators;
+    }
+
+    private static abstract class Accumulator {
+        protected final @Nullable String inputVar;
+        private final @Nullable Set<Object> seen;
+
+        protected Accumulator(@Nonnull Aggregation.Aggregate aggregate) {
+            this.inputVar = aggregate.getInputVar();
+            this.seen = aggregate.isDistinct() ? new HashSet<>() : null;
+        }
+
+        void add(@Nonnull Solution solution) {
+            if (inputVar == null) {
+                if (seen == null || seen.add(solution))
+                    accept(null);
+            } else {
+                Term term = solution.get(inputVar);
+                if (term != null && (seen == null || seen.add(term)))
+                    accept(term);
+            }
+        }
+
+        protected abstract void accept(@Nullable Term term);
+        abstract @Nullable Term get();
+    }
+
+    private static class CountAccumulator extends Accumulator {
+        private long count = 0;
+
+        CountAccumulator(@Nonnull Aggregation.Aggregate aggregate) {
+            super(aggregate);
+        }
+
+        @Override protected void accept(@Nullable Term term) {
+            ++count;
+        }
+
+        @Override @Nonnull Term get() {
+            return StdLit.fromUnescaped(String.valueOf(count), V.XSD.integer);
+        }
+    }
+
+    private static class SumAccumulator extends Accumulator {
+        private final boolean average;
+        private @Nonnull BigDecimal sum = BigDecimal.ZERO;
+        private long count = 0;
+        private int type = INTEGER;
+        private boolean error = false;
+
+        SumAccumulator(@Nonnull Aggregation.Aggregate aggregate) {
+            super(aggregate);
+            this.average = aggregate.getFunction() == Aggregation.Function.AVG;
+        }
+
+        @Override protected void accept(@Nullable Term term) {
+            if (error || term == null) return;
+            int termType = numericType(term);
+            BigDecimal value = termType < 0 ? null : toNumber(term.asLiteral());
+            if (value == null) {
+                error = true; // SPARQL: type errors make the aggregate unbound
+                return;
+            }
+            type = Math.max(type, termType);
+            sum = sum.add(value);
+            ++count;
+        }
+
+        @Override @Nullable Term get() {
+            if (error) return null;
+            BigDecimal value = sum;
+            int resultType = type;
+            if (average && count > 0) {
+                value = value.divide(BigDecimal.valueOf(count), MathContext.DECIMAL64);
+                resultType = Math.max(resultType, DECIMAL);
+            }
+            return toLiteral(value, resultType);
+        }
+    }
+
+    private static class ExtremeAccumulator extends Accumulator {
+        private final boolean max;
+        private @Nullable Term best;
+
+        ExtremeAccumulator(@Nonnull Aggregation.Aggregate aggregate) {
+            super(aggregate);
+            this.max = aggregate.getFunction() == Aggregation.Function.MAX;
+        }
+
+        @Override protected void accept(@Nullable Term term) {
+            if (term == null) return;
+            if (best == null) {
+                best = term;
+            } else {
+                int diff = compare(term, best);
+                if (max ? diff > 0 : diff < 0)
+                    best = term;
+            }
+        }
+
+        @Override @Nullable Term get() {
+            return best;
+        }
+    }
+
+    /**
+     * Orders numeric literals by value and everything else by the SPARQL ORDER BY rules:
+     * blank nodes, then IRIs, then literals (by lexical form).
+     */
+    static int compare(@Nonnull Term l, @Nonnull Term r) {
+        if (numericType(l) >= 0 && numericType(r) >= 0) {
+            BigDecimal lv = toNumber(l.asLiteral()), rv = toNumber(r.asLiteral());
+            if (lv != null && rv != null)
+                return lv.compareTo(rv);
+        }
+        int diff = Integer.compare(rank(l), rank(r));
+        if (diff != 0) return diff;
+        if (l.isURI())     return l.asURI().getURI().compareTo(r.asURI().getURI());
+        if (l.isLiteral()) return l.asLiteral().getLexicalForm()
+                                   .compareTo(r.asLiteral().getLexicalForm());
+        return l.toString().compareTo(r.toString());
+    }
+
+    private static int rank(@Nonnull Term term) {
+        if (term.isBlank()) return 0;
+        if (term.isURI()) return 1;
+        return term.isLiteral() ? 2 : 3;
+    }
+
+    private static int numericType(@Nonnull Term term) {
+        if (!term.isLiteral()) return -1;
+        String dt = term.asLiteral().getDatatype().getURI();
+        if (INTEGER_TYPES.contains(dt))             return INTEGER;
+        if (dt.equals(V.XSD.decimal.getURI()))      return DECIMAL;
+        if (dt.equals(V.XSD.xdouble.getURI())
+                || dt.equals(V.XSD.xfloat.getURI())) return DOUBLE;
+        return -1;
+    }
+
+    private static @Nullable BigDecimal toNumber(@Nonnull Lit lit) {
+        String lexical = lit.getLexicalForm().trim();
+        try {
+            if (lexical.startsWith("+"))
+                lexical = lexical.substring(1);
+            return new BigDecimal(lexical);
+        } catch (NumberFormatException e) {
+            return null; // NaN, INF or ill-formed lexical form
+        }
+    }
+
+    private static @Nonnull Lit toLiteral(@Nonnull BigDecimal value, int type) {
+        switch (type) {
+            case INTEGER:
+                return StdLit.fromUnescaped(value.toBigInteger().toString(), V.XSD.integer);
+            case DECIMAL:
+                return StdLit.fromUnescaped(value.stripTrailingZeros().toPlainString(),
+                                            V.XSD.decimal);
+            default:
+                return StdLit.fromUnescaped(String.valueOf(value.doubleValue()), V.XSD.xdouble);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package br.ufsc.lapesd.freqel.query.results.impl;
 import br.ufsc.lapesd.freqel.model.term.Term;
 import br.ufsc.lapesd.freqel.query.results.MutableSolution;
 import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.TermDictionary;
 import br.ufsc.lapesd.freqel.util.indexed.FullIndexSet;
 import br.ufsc.lapesd.freqel.util.indexed.ImmFullIndexSet;
 import br.ufsc.lapesd.freqel.util.indexed.IndexSet;
@@ -20,6 +21,9 @@ import java.util.function.Function;
 public class ArraySolution extends AbstractSolution implements MutableSolution {
     private final @Nonnull IndexSet<String> vars;
     private final @Nonnull Term[] values;
+    /* ids[i] is the id of values[i] in dictionary. Both are null if not interned */
+    private @Nullable TermDictionary dictionary;
+    private @Nullable int[] ids;
     public static final @Nonnull ArraySolution EMPTY
             = new ArraySolution(ImmFullIndexSet.empty(), new Term[0]);
 
@@ -29,6 +33,38 @@ public class ArraySolution extends AbstractSolution implements MutableSolution {
         this.values = values;
     }
 
+    private ArraySolution(@Nonnull IndexSet<String> vars, @Nonnull Term[] values,
+                          @Nullable TermDictionary dictionary, @Nullable int[] ids) {
+        this.vars = vars;
+        this.values = values;
+        if (dictionary != null && ids != null) {
+            this.dictionary = dictionary;
+            this.ids = ids;
+        }
+    }
+
+    /**
+     * Get the id assigned by the given dictionary to the value of var, if this solution
+     * was interned by that dictionary.
+     *
+     * @return the id (which is {@link TermDictionary#NULL_ID} if var is unbound) or -1 if
+     *         this solution was not interned by dictionary.
+     */
+    public int getId(@Nonnull TermDictionary dictionary, @Nonnull String var) {
+        if (this.dictionary != dictionary)
+            return -1;
+        assert ids != null;
+        int idx = vars.indexOf(var);
+        return idx < 0 ? TermDictionary.NULL_ID : ids[idx];
+    }
+
+    /**
+     * The dictionary that interned this solution, or null if it was not interned.
+     */
+    public @Nullable TermDictionary getDictionary() {
+        return dictionary;
+    }
+
     @Override
     public Term get(@Nonnull String varName, Term fallback) {
         int idx = vars.indexOf(varName);
@@ -42,12 +78,16 @@ public class ArraySolution extends AbstractSolution implements MutableSolution {
             throw new IllegalArgumentException(varName+" is not a variable of this ArraySolution");
         Term old = values[idx];
         values[idx] = value;
+        dictionary = null; // ids are now stale
+        ids = null;
         return old;
     }
 
     @Override
     public @CanIgnoreReturnValue @Contract(" -> this") @Nonnull ArraySolution clear() {
         Arrays.fill(values, null);
+        dictionary = null;
+        ids = null;
         return this;
     }
 
@@ -55,7 +95,7 @@ public class ArraySolution extends AbstractSolution implements MutableSolution {
     public @CheckReturnValue @Nonnull ArraySolution copy() {
         Term[] copy = new Term[values.length];
         System.arraycopy(values, 0, copy, 0, values.length);
-        return new ArraySolution(vars, copy);
+        return new ArraySolution(vars, copy, dictionary, ids); // ids are never modified
     }
 
     @Override
@@ -87,6 +127,10 @@ public class ArraySolution extends AbstractSolution implements MutableSolution {
         return super.equals(obj);
     }
 
+    private static @Nullable TermDictionary dictionaryOf(@Nonnull Solution solution) {
+        return solution instanceof ArraySolution ? ((ArraySolution) solution).dictionary : null;
+    }
+
     public static @Nonnull ArraySolution empty(@Nonnull Collection<String> vars) {
         IndexSet<String> indexSet = FullIndexSet.from(vars);
         return new ArraySolution(indexSet, new Term[indexSet.size()]);
@@ -98,8 +142,31 @@ public class ArraySolution extends AbstractSolution implements MutableSolution {
         return new ValueFactory(indexSet);
     }
 
+    /**
+     * Creates {@link ArraySolution}s with a fixed variables layout.
+     *
+     * When copying values from input {@link ArraySolution}s ({@link #fromSolution(Solution)}
+     * and {@link #fromSolutions(Solution...)}), the mapping from the input slots into the
+     * slots of this factory is computed once per input layout and reused while inputs keep
+     * the same layout (which is the case for all solutions produced by a single
+     * {@link ValueFactory}). Thus, operators copy {@link Term} references between arrays
+     * without hashing variable names for each row.
+     */
     public static class ValueFactory  {
+        private static final @Nonnull Layout[] NO_LAYOUTS = new Layout[0];
         private final @Nonnull IndexSet<String> vars;
+        /** Last layout seen for each argument position. Copied on write */
+        private volatile @Nonnull Layout[] layouts = NO_LAYOUTS;
+
+        private static final class Layout {
+            final @Nonnull IndexSet<String> source;
+            final @Nonnull int[] slots;
+
+            Layout(@Nonnull IndexSet<String> source, @Nonnull int[] slots) {
+                this.source = source;
+                this.slots = slots;
+            }
+        }
 
         public ValueFactory(@Nonnull IndexSet<String> vars) {
             this.vars = vars;
@@ -110,6 +177,33 @@ public class ArraySolution extends AbstractSolution implements MutableSolution {
             return vars;
         }
 
+        /**
+         * Computes, for each variable of this factory, its index in <code>source</code>
+         * (or -1 if absent).
+         */
+        @CheckReturnValue
+        public @Nonnull int[] slotsFrom(@Nonnull IndexSet<String> source) {
+            int size = vars.size();
+            int[] slots = new int[size];
+            for (int i = 0; i < size; i++)
+                slots[i] = source.indexOf(vars.get(i));
+            return slots;
+        }
+
+        private @Nonnull int[] getSlots(@Nonnull IndexSet<String> source, int position) {
+            Layout[] layouts = this.layouts;
+            if (position < layouts.length) {
+                Layout layout = layouts[position];
+                if (layout != null && layout.source == source)
+                    return layout.slots;
+            }
+            Layout layout = new Layout(source, slotsFrom(source));
+            Layout[] copy = Arrays.copyOf(layouts, Math.max(layouts.length, position+1));
+            copy[position] = layout;
+            this.layouts = copy; // racing writers only cause a recomputation
+            return layout.slots;
+        }
+
         @CheckReturnValue
         public @Nonnull ArraySolution fromValues(@Nonnull Collection<Term> collection) {
             Preconditions.checkArgument(collection.size() == vars.size());
@@ -135,26 +229,86 @@ public class ArraySolution extends AbstractSolution implements MutableSolution {
         public @Nonnull ArraySolution fromSolution(@Nonnull Solution solution) {
             int size = vars.size();
             Term[] values = new Term[size];
-            for (int i = 0; i < size; i++)
-                values[i] = solution.get(vars.get(i));
+            if (solution instanceof ArraySolution) {
+                ArraySolution in = (ArraySolution) solution;
+                if (in.vars == vars) {
+                    System.arraycopy(in.values, 0, values, 0, size);
+                    return new ArraySolution(vars, values, in.dictionary, in.ids);
+                }
+                int[] slots = getSlots(in.vars, 0);
+                int[] ids = in.ids == null ? null : new int[size];
+                for (int i = 0; i < size; i++) {
+                    int slot = slots[i];
+                    values[i] = slot < 0 ? null : in.values[slot];
+                    if (ids != null)
+                        ids[i] = slot < 0 ? TermDictionary.NULL_ID : in.ids[slot];
+                }
+                return new ArraySolution(vars, values, in.dictionary, ids);
+            } else {
+                for (int i = 0; i < size; i++)
+                    values[i] = solution.get(vars.get(i));
+            }
             return new ArraySolution(vars, values);
         }
 
+        /**
+         * Copies the values of solution and stores their ids in the given dictionary.
+         *
+         * This is meant to be done once, when solutions enter the execution from a
+         * source. Operators given the same dictionary will use the stored ids instead of
+         * encoding the terms again.
+         */
+        @CheckReturnValue
+        public @Nonnull ArraySolution intern(@Nonnull Solution solution,
+                                             @Nonnull TermDictionary dictionary) {
+            if (solution instanceof ArraySolution) {
+                ArraySolution in = (ArraySolution) solution;
+                if (in.dictionary == dictionary && in.vars == vars)
+                    return in;
+            }
+            ArraySolution out = fromSolution(solution);
+            if (out.dictionary != dictionary) {
+                int size = vars.size();
+                int[] ids = new int[size];
+                for (int i = 0; i < size; i++)
+                    ids[i] = dictionary.encode(out.values[i]);
+                out.dictionary = dictionary;
+                out.ids = ids;
+            }
+            return out;
+        }
+
         @CheckReturnValue
         public @Nonnull ArraySolution fromSolutions(@Nonnull Solution... solutions) {
             int size = vars.size();
             Term[] values = new Term[size];
-            for (int i = 0; i < size; i++) {
-                String var = vars.get(i);
-                for (Solution solution : solutions) {
-                    Term term = solution.get(var);
-                    if (term != null) {
-                        values[i] = term;
-                        break;
+            /* ids are kept only if all solutions were interned by the same dictionary */
+            TermDictionary dictionary = solutions.length > 0 ? dictionaryOf(solutions[0]) : null;
+            int[] ids = dictionary == null ? null : new int[size];
+            // earlier solutions take precedence: only fill the values still unbound
+            for (int j = 0; j < solutions.length; j++) {
+                Solution solution = solutions[j];
+                if (solution instanceof ArraySolution) {
+                    ArraySolution in = (ArraySolution) solution;
+                    if (ids != null && in.dictionary != dictionary)
+                        ids = null;
+                    int[] slots = getSlots(in.vars, j);
+                    for (int i = 0; i < size; i++) {
+                        if (values[i] == null && slots[i] >= 0) {
+                            values[i] = in.values[slots[i]];
+                            if (ids != null)
+                                ids[i] = in.ids[slots[i]];
+                        }
+                    }
+                } else {
+                    ids = null;
+                    for (int i = 0; i < size; i++) {
+                        if (values[i] == null)
+                            values[i] = solution.get(vars.get(i));
                     }
                 }
             }
-            return new ArraySolution(vars, values);
+            return new ArraySolution(vars, values, dictionary, ids);
         }
     }
 }
@@ -1,6 +1,8 @@
 package br.ufsc.lapesd.freqel.query.results.impl;
 
 import br.ufsc.lapesd.freqel.query.results.*;
+import br.ufsc.lapesd.freqel.query.results.profile.OperatorStats;
+import br.ufsc.lapesd.freqel.util.VirtualThreads;
 import br.ufsc.lapesd.freqel.util.indexed.FullIndexSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,9 +14,23 @@ import javax.inject.Named;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.util.stream.Collectors.toSet;
 
+/**
+ * A {@link ResultsExecutor} where tasks consuming each input deliver solutions to the
+ * consumer through a shared {@link BlockingQueue}.
+ *
+ * A demand hint ({@link Results#setDemand(int)}) on the returned {@link Results} is
+ * forwarded to every input and bounds the total number of solutions that the tasks will
+ * fetch: once the consumer has enough solutions fetched for it, tasks stop pulling from
+ * their inputs. If the consumer asks for more than it hinted, fetching resumes. A hint of
+ * zero is final: tasks close their inputs, releasing the sources behind them.
+ *
+ * Time the consumer spends waiting on an empty queue is recorded as blocked time in the
+ * {@link OperatorStats} bound to the consumer thread, if any.
+ */
 public class BufferedResultsExecutor implements ResultsExecutor {
     private static final Logger logger = LoggerFactory.getLogger(BufferedResultsExecutor.class);
     private static final int DEFAULT_PER_INPUT_BUFFER = 10;
@@ -30,7 +46,8 @@ public class BufferedResultsExecutor implements ResultsExecutor {
     }
 
     public BufferedResultsExecutor(int perInputBufferSize) {
-        this(Executors.newCachedThreadPool(), perInputBufferSize);
+        this(VirtualThreads.newExecutor("ResultsExecutor", Executors::newCachedThreadPool),
+             perInputBufferSize);
     }
 
     public BufferedResultsExecutor() {
@@ -57,11 +74,12 @@ public class BufferedResultsExecutor implements ResultsExecutor {
 
         List<FeedTask> list = new ArrayList<>(coll.size());
         BlockingQueue<FeedTask.Message> queue = new LinkedBlockingQueue<>();
+        Demand demand = new Demand();
         boolean distinct = false;
         int idx = 0;
         for (Results results : coll) {
             distinct = results.isDistinct();
-            FeedTask task = new FeedTask(idx++, results, queue, buffer);
+            FeedTask task = new FeedTask(idx++, results, queue, demand, buffer);
             list.add(task);
             task.schedule();
         }
@@ -75,7 +93,7 @@ public class BufferedResultsExecutor implements ResultsExecutor {
             projecting = coll.stream().anyMatch(r -> !r.getVarNames().equals(set));
             names = set;
         }
-        return new ConsumingResults(list, queue, names, projecting, distinct);
+        return new ConsumingResults(list, queue, demand, names, projecting, distinct);
     }
 
     private boolean closed;
@@ -125,21 +143,46 @@ public class BufferedResultsExecutor implements ResultsExecutor {
             Thread.currentThread().interrupt(); //restore flag
     }
 
+    /** Demand hint shared by a {@link ConsumingResults} and its {@link FeedTask}s. */
+    protected static class Demand {
+        /* solutions delivered by all tasks and how many the tasks should deliver in total */
+        private final @Nonnull AtomicLong fetched = new AtomicLong();
+        private volatile long fetchLimit = Long.MAX_VALUE;
+        private volatile int inputDemand = -1;
+
+        boolean isWanted() {
+            return fetched.get() < fetchLimit;
+        }
+
+        /** Drops the hint if it was met. Tasks must be re-scheduled if this returns true. */
+        boolean resumeIfMet() {
+            if (fetchLimit == Long.MAX_VALUE || isWanted())
+                return false;
+            fetchLimit = Long.MAX_VALUE;
+            inputDemand = -1;
+            return true;
+        }
+    }
+
     protected static class ConsumingResults extends AbstractResults {
         private @Nonnull final List<FeedTask> tasks;
         private @Nonnull final BitSet activeTasks;
         private boolean exhausted = false;
         private final boolean distinct;
         private @Nonnull final BlockingQueue<FeedTask.Message> queue;
+        private @Nonnull final Demand demand;
         private @Nullable final ArraySolution.ValueFactory projector;
         private @Nullable Solution next = null;
+        private long consumed = 0;
 
         public ConsumingResults(@Nonnull List<FeedTask> tasks,
                                 @Nonnull BlockingQueue<FeedTask.Message> queue,
+                                @Nonnull Demand demand,
                                 @Nonnull Collection<String> varNames, boolean projecting,
                                 boolean distinct) {
             super(varNames);
             this.tasks = tasks;
+            this.demand = demand;
             this.activeTasks = new BitSet(tasks.size());
             this.activeTasks.flip(0, tasks.size());
             this.queue = queue;
@@ -166,6 +209,21 @@ public class BufferedResultsExecutor implements ResultsExecutor {
             return ready;
         }
 
+        @Override
+        public void setDemand(int solutions) {
+            // inputs are not thread safe: each FeedTask forwards this from its own thread
+            demand.inputDemand = solutions;
+            demand.fetchLimit = solutions < 0 ? Long.MAX_VALUE : consumed + solutions;
+            // tasks may have stopped at a previous, smaller hint or must close their inputs
+            if (demand.isWanted() || solutions == 0)
+                scheduleActive();
+        }
+
+        private void scheduleActive() {
+            for (int i = activeTasks.nextSetBit(0); i >= 0; i = activeTasks.nextSetBit(i+1))
+                tasks.get(i).schedule();
+        }
+
         @Override
         public boolean hasNext() {
             return hasNext(Integer.MAX_VALUE);
@@ -177,7 +235,14 @@ public class BufferedResultsExecutor implements ResultsExecutor {
                 return true;
             boolean interrupted = false;
             while (!exhausted) {
+                if (queue.isEmpty() && demand.resumeIfMet()) {
+                    logger.debug("{}: consumer went beyond its demand hint", this);
+                    scheduleActive();
+                }
                 FeedTask.Message m;
+                // only look for a profile if poll() is likely to block
+                OperatorStats stats = queue.isEmpty() ? OperatorStats.current() : null;
+                long pollStart = stats == null ? 0 : System.nanoTime();
                 try {
                     m = queue.poll(millisecondsTimeout, TimeUnit.MILLISECONDS);
 //                    m = queue.take();
@@ -186,6 +251,9 @@ public class BufferedResultsExecutor implements ResultsExecutor {
                                 "restore flag upon return");
                     interrupted = true;
                     continue;
+                } finally {
+                    if (stats != null)
+                        stats.recordBlocked(System.nanoTime() - pollStart);
                 }
                 if (m == null)
                     return false; //timed out
@@ -210,6 +278,7 @@ public class BufferedResultsExecutor implements ResultsExecutor {
             assert this.next != null;
             Solution next = projector == null ? this.next : projector.fromSolution(this.next);
             this.next = null;
+            ++consumed;
             return next;
         }
 
@@ -235,11 +304,13 @@ public class BufferedResultsExecutor implements ResultsExecutor {
     protected class FeedTask implements Runnable {
         private final @Nonnull Results in;
         private final @Nonnull BlockingQueue<Message> queue;
+        private final @Nonnull Demand demand;
         private final @Nonnull AtomicInteger free;
         private final int id;
         private final int scheduleThreshold;
         private boolean active = false;
         private boolean exhausted = false;
+        private int forwardedDemand = -1; // only accessed from run()
 
         public class Message {
             private @Nullable final Solution solution;
@@ -269,10 +340,11 @@ public class BufferedResultsExecutor implements ResultsExecutor {
         }
 
         public FeedTask(int id, @Nonnull Results in, @Nonnull BlockingQueue<Message> queue,
-                        int bufferSize) {
+                        @Nonnull Demand demand, int bufferSize) {
             this.id = id;
             this.in = in;
             this.queue = queue;
+            this.demand = demand;
             this.free = new AtomicInteger(bufferSize);
             this.scheduleThreshold = Math.max(1, bufferSize/2);
         }
@@ -306,10 +378,14 @@ public class BufferedResultsExecutor implements ResultsExecutor {
         }
 
         private synchronized boolean acquireFreeSlot() {
+            // read under the lock: the consumer drops the hint before calling schedule()
+            if (!exhausted && demand.inputDemand == 0)
+                return true; // run() will close the input, even without free slots
+            boolean wanted = demand.isWanted();
             // get a permission (note: take() is not synchronized)
             int e = free.get();
-            while (!free.compareAndSet(e, e <= 0 ? e : e-1)) e = free.get();
-            if (exhausted || e <= 0) { /* no permission left: become inactive */
+            while (!free.compareAndSet(e, e <= 0 || !wanted ? e : e-1)) e = free.get();
+            if (exhausted || e <= 0 || !wanted) { /* no permission or demand: become inactive */
                 assert e >= 0 : "free had negative value";
                 active = false;
                 notifyAll(); // close() waits for !active
@@ -322,8 +398,15 @@ public class BufferedResultsExecutor implements ResultsExecutor {
         public void run() {
             try {
                 while (acquireFreeSlot()) {
+                    if (demand.inputDemand == 0) {
+                        closeInput();
+                        continue; // acquireFreeSlot() will see exhausted and deactivate
+                    }
                     Solution solution = null;
                     try {
+                        int inputDemand = demand.inputDemand;
+                        if (inputDemand != forwardedDemand)
+                            in.setDemand(forwardedDemand = inputDemand);
                         if (in.hasNext())
                             solution = in.next();
                     } catch (Throwable t) {
@@ -334,6 +417,7 @@ public class BufferedResultsExecutor implements ResultsExecutor {
                         putUninterruptibly(queue, new Message(null));
                     } else {
                         putUninterruptibly(queue, new Message(solution));
+                        demand.fetched.incrementAndGet();
                     }
                 }
             } catch (Throwable t) {
@@ -341,6 +425,19 @@ public class BufferedResultsExecutor implements ResultsExecutor {
             }
         }
 
+        /**
+         * Closes the input from run() once the consumer hinted it wants no more solutions.
+         */
+        private void closeInput() {
+            try {
+                in.close();
+            } catch (Throwable t) {
+                logger.error("Problem closing in={} after zero demand", in, t);
+            }
+            exhausted = true;
+            putUninterruptibly(queue, new Message(null));
+        }
+
         public void close(boolean forceInactive) throws ResultsCloseException {
             boolean interrupted = false;
             synchronized (this) {
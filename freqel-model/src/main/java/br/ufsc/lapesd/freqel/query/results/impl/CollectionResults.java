@@ -93,6 +93,16 @@ public class CollectionResults extends AbstractResults implements BufferedResult
         return solution;
     }
 
+    @Override
+    public int nextBatch(@Nonnull Solution[] buffer, int max) {
+        Iterator<? extends Solution> it = getIterator();
+        int end = Math.min(max, buffer.length), n = 0;
+        while (n < end && it.hasNext())
+            buffer[n++] = it.next();
+        size -= n;
+        return n;
+    }
+
     @Override
     public void close() { }
 }
@@ -0,0 +1,101 @@
+package br.ufsc.lapesd.freqel.query.results.impl;
+
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.TermDictionary;
+import br.ufsc.lapesd.freqel.util.LongHashSet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.function.Consumer;
+
+/**
+ * A set of solutions keyed by the {@link TermDictionary} ids of their values: a single long
+ * if there are at most two vars, else an int[].
+ *
+ * Not thread-safe.
+ */
+class DistinctKeys {
+    /* HashMap.Node + IdsKey + int[] headers */
+    private static final int IDS_KEY_OVERHEAD = 32 + 24 + 16;
+
+    private final @Nonnull TermDictionary dictionary;
+    private final @Nonnull String[] vars;
+    private final @Nullable LongHashSet longKeys;
+    private final @Nullable HashSet<IdsKey> idsKeys;
+
+    DistinctKeys(@Nonnull TermDictionary dictionary, @Nonnull String[] vars) {
+        this.dictionary = dictionary;
+        this.vars = vars;
+        this.longKeys = vars.length <= 2 ? new LongHashSet() : null;
+        this.idsKeys = vars.length <= 2 ? null : new HashSet<>();
+    }
+
+    private static final class IdsKey {
+        private final @Nonnull int[] ids;
+        private final int hash;
+
+        private IdsKey(@Nonnull int[] ids) {
+            this.ids = ids;
+            this.hash = Arrays.hashCode(ids);
+        }
+
+        @Override public boolean equals(Object o) {
+            return o instanceof IdsKey && Arrays.equals(ids, ((IdsKey) o).ids);
+        }
+
+        @Override public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Adds the key of the given solution.
+     *
+     * @return true iff no solution with the same values was previously added.
+     */
+    boolean add(@Nonnull Solution solution) {
+        if (longKeys != null)
+            return longKeys.add(vars.length == 0 ? 0 : dictionary.encodeKey(solution, vars));
+        assert idsKeys != null;
+        return idsKeys.add(new IdsKey(dictionary.encode(solution, vars)));
+    }
+
+    /**
+     * Estimated number of bytes used by the keys (not counting terms in the dictionary).
+     */
+    long estimateBytes() {
+        if (longKeys != null)
+            return longKeys.getSlotsBytes();
+        assert idsKeys != null;
+        return idsKeys.size() * (IDS_KEY_OVERHEAD + 4L * vars.length);
+    }
+
+    /**
+     * Decodes each key into the values of the vars, in the same order as the vars given
+     * in the constructor. The array given to the consumer is reused between calls.
+     */
+    void forEachValues(@Nonnull Consumer<Term[]> consumer) {
+        Term[] values = new Term[vars.length];
+        if (longKeys != null) {
+            longKeys.forEach(key -> {
+                if (values.length == 1) {
+                    values[0] = dictionary.decode((int) key);
+                } else if (values.length == 2) {
+                    values[0] = dictionary.decode((int) (key >>> 32));
+                    values[1] = dictionary.decode((int) key);
+                }
+                consumer.accept(values);
+            });
+        } else {
+            assert idsKeys != null;
+            for (IdsKey key : idsKeys) {
+                for (int i = 0; i < values.length; i++)
+                    values[i] = dictionary.decode(key.ids[i]);
+                consumer.accept(values);
+            }
+        }
+    }
+}
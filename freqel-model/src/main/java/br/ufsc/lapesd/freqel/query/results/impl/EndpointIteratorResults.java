@@ -94,6 +94,19 @@ public class EndpointIteratorResults extends AbstractResults implements Results
         return next;
     }
 
+    @Override
+    public int nextBatch(@Nonnull Solution[] buffer, int max) {
+        if (Math.min(max, buffer.length) == 0 || !hasNext())
+            return 0;
+        assert current != null;
+        int n = current.nextBatch(buffer, max);
+        if (projectingFactory != null) {
+            for (int i = 0; i < n; i++)
+                buffer[i] = projectingFactory.fromSolution(buffer[i]);
+        }
+        return n;
+    }
+
     @Override
     public void close() throws ResultsCloseException {
         if (currentEp != null) {
@@ -7,22 +7,43 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
-import java.util.HashSet;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.NoSuchElementException;
 
 public class HashDistinctResults extends DelegatingResults implements BufferedResults {
     private static final Logger logger = LoggerFactory.getLogger(HashDistinctResults.class);
 
-    private final @Nonnull HashSet<Solution> set = new HashSet<>();
+    private final @Nonnull DistinctKeys keys;
+    private final @Nonnull ArrayList<Solution> unique = new ArrayList<>();
     private final @Nonnull Results original;
     private Solution next = null;
     private boolean wasReset = false;
 
     public static final @Nonnull Factory FACTORY = HashDistinctResults::new;
 
+    /**
+     * Create a DISTINCT over input that encodes values with a private {@link TermDictionary}.
+     */
     public HashDistinctResults(@Nonnull Results input) {
+        this(input, new TermDictionary());
+    }
+
+    /**
+     * Create a DISTINCT over input that encodes values with the given dictionary. Solutions
+     * interned by that same dictionary are not encoded again.
+     */
+    public HashDistinctResults(@Nonnull Results input, @Nonnull TermDictionary dictionary) {
         super(input.getVarNames(), input);
         this.original = input;
+        this.keys = new DistinctKeys(dictionary, input.getVarNames().toArray(new String[0]));
+    }
+
+    private boolean add(@Nonnull Solution solution) {
+        boolean isNew = keys.add(solution);
+        if (isNew)
+            unique.add(solution);
+        return isNew;
     }
 
     public static @Nonnull Results applyIf(@Nonnull Results in, @Nonnull ModifiersSet modifiers) {
@@ -52,7 +73,7 @@ public class HashDistinctResults extends DelegatingResults implements BufferedRe
     public void reset(boolean close) throws ResultsCloseException {
         if (!wasReset && original.hasNext())
             logger.warn("Input iterator {} still has results, reset() will discard them", original);
-        in = new CollectionResults(set, original.getVarNames());
+        in = new CollectionResults(unique, original.getVarNames());
         if (close && !wasReset)
             original.close();
         wasReset = true;
@@ -67,7 +88,7 @@ public class HashDistinctResults extends DelegatingResults implements BufferedRe
     public boolean hasNext() {
         while (this.next == null && in.hasNext()) {
             Solution next = in.next();
-            if (wasReset || set.add(next))
+            if (wasReset || add(next))
                 this.next = next;
         }
         return this.next != null;
@@ -82,6 +103,29 @@ public class HashDistinctResults extends DelegatingResults implements BufferedRe
         return current;
     }
 
+    @Override
+    public int nextBatch(@Nonnull Solution[] buffer, int max) {
+        if (Math.min(max, buffer.length) == 0)
+            return 0;
+        if (this.next != null) {
+            buffer[0] = this.next;
+            this.next = null;
+            return 1;
+        }
+        for (int n; (n = in.nextBatch(buffer, max)) > 0; ) {
+            if (wasReset)
+                return n;
+            int kept = 0;
+            for (int i = 0; i < n; i++) {
+                if (add(buffer[i]))
+                    buffer[kept++] = buffer[i];
+            }
+            if (kept > 0)
+                return kept;
+        }
+        return 0;
+    }
+
     @Override
     public void close() throws ResultsCloseException {
         super.close();
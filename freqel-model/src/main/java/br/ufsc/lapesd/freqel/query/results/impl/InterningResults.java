@@ -0,0 +1,46 @@
+package br.ufsc.lapesd.freqel.query.results.impl;
+
+import br.ufsc.lapesd.freqel.query.results.DelegatingResults;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.TermDictionary;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Interns the solutions of a source into a {@link TermDictionary}.
+ *
+ * @see ArraySolution.ValueFactory#intern(Solution, TermDictionary)
+ */
+public class InterningResults extends DelegatingResults implements Results {
+    private final @Nonnull TermDictionary dictionary;
+    private final @Nonnull ArraySolution.ValueFactory factory;
+
+    public InterningResults(@Nonnull Results delegate, @Nonnull TermDictionary dictionary) {
+        super(delegate.getVarNames(), delegate);
+        this.dictionary = dictionary;
+        this.factory = ArraySolution.forVars(delegate.getVarNames());
+    }
+
+    public @Nonnull TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public void setDemand(int solutions) {
+        in.setDemand(solutions);
+    }
+
+    @Override
+    public @Nonnull Solution next() {
+        return factory.intern(in.next(), dictionary);
+    }
+
+    @Override
+    public int nextBatch(@Nonnull Solution[] buffer, int max) {
+        int n = in.nextBatch(buffer, max);
+        for (int i = 0; i < n; i++)
+            buffer[i] = factory.intern(buffer[i], dictionary);
+        return n;
+    }
+}
@@ -37,6 +37,20 @@ public class LazyCartesianResults extends AbstractResults implements Results {
 
     public LazyCartesianResults(@Nonnull Collection<Results> ins, @Nonnull Set<String> varNames,
                                 @Nonnull Function<Results, Results> parallelFactory) {
+        this(ins, varNames, parallelFactory, HashDistinctResults::new);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param ins the inputs, which must not share any variable
+     * @param varNames result variables
+     * @param parallelFactory applied to each input after DISTINCT
+     * @param distinctFactory used to make every non-distinct input distinct
+     */
+    public LazyCartesianResults(@Nonnull Collection<Results> ins, @Nonnull Set<String> varNames,
+                                @Nonnull Function<Results, Results> parallelFactory,
+                                @Nonnull DistinctResultsFactory distinctFactory) {
         super(varNames);
         int size = ins.size();
         this.inputs = new ResultsList<>(size);
@@ -45,10 +59,10 @@ public class LazyCartesianResults extends AbstractResults implements Results {
         for (Results in : ins) {
             if (first) {
                 first = false;
-                Results dr = parallelFactory.apply(WindowDistinctResults.applyIfNotDistinct(in));
+                Results dr = parallelFactory.apply(distinctFactory.applyIfNotDistinct(in));
                 this.inputs.add(dr);
             } else {
-                Results dr = parallelFactory.apply(HashDistinctResults.applyIfNotDistinct(in));
+                Results dr = parallelFactory.apply(distinctFactory.applyIfNotDistinct(in));
                 this.inputs.add(ListBufferedResults.applyIfNotBuffered(dr));
             }
         }
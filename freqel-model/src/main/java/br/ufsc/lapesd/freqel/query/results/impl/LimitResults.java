@@ -34,6 +34,13 @@ public class LimitResults extends DelegatingResults {
     public LimitResults(@Nonnull Results in, int limit) {
         super(in.getVarNames(), in);
         this.limit = limit;
+        in.setDemand(limit);
+    }
+
+    @Override
+    public void setDemand(int solutions) {
+        int remaining = limit - consumed;
+        in.setDemand(solutions < 0 ? remaining : Math.min(solutions, remaining));
     }
 
     @Override
@@ -51,17 +58,31 @@ public class LimitResults extends DelegatingResults {
         if (!hasNext()) throw new NoSuchElementException();
         ++consumed;
         Solution solution = in.next();
-        if (consumed >= limit) {
-            try {
-                in.close();
-            } catch (ResultsCloseException e) {
-                logger.warn("{}: Failed to close input {}", this, in, e);
-                closeException = e;
-            }
-        }
+        if (consumed >= limit)
+            closeInput();
         return solution;
     }
 
+    @Override
+    public int nextBatch(@Nonnull Solution[] buffer, int max) {
+        if (consumed >= limit)
+            return 0;
+        int n = in.nextBatch(buffer, Math.min(max, limit - consumed));
+        consumed += n;
+        if (consumed >= limit)
+            closeInput();
+        return n;
+    }
+
+    private void closeInput() {
+        try {
+            in.close();
+        } catch (ResultsCloseException e) {
+            logger.warn("{}: Failed to close input {}", this, in, e);
+            closeException = e;
+        }
+    }
+
     @Override
     public void close() throws ResultsCloseException {
         if (closeException != null) {
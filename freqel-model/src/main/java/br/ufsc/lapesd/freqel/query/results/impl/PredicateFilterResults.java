@@ -54,6 +54,31 @@ public class PredicateFilterResults extends DelegatingResults implements Results
         return next != null;
     }
 
+    @Override public int nextBatch(@Nonnull Solution[] buffer, int max) {
+        if (Math.min(max, buffer.length) == 0)
+            return 0;
+        if (next != null) {
+            buffer[0] = next;
+            next = null;
+            return 1;
+        }
+        for (int n; (n = in.nextBatch(buffer, max)) > 0; ) {
+            int kept = 0;
+            outer:
+            for (int i = 0; i < n; i++) {
+                Solution solution = buffer[i];
+                for (Predicate<Solution> predicate : predicates) {
+                    if (!predicate.test(solution))
+                        continue outer;
+                }
+                buffer[kept++] = projector == null ? solution : projector.fromSolution(solution);
+            }
+            if (kept > 0)
+                return kept;
+        }
+        return 0;
+    }
+
     @Override public @Nonnull Solution next() {
         if (!hasNext()) throw new NoSuchElementException();
         Solution solution = this.next;
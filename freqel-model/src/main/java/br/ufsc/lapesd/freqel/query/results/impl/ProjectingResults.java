@@ -29,8 +29,21 @@ public class ProjectingResults extends DelegatingResults implements Results {
         return applyIf(in, query.getModifiers());
     }
 
+    @Override
+    public void setDemand(int solutions) {
+        in.setDemand(solutions);
+    }
+
     @Override
     public @Nonnull Solution next() {
         return factory.fromSolution(in.next());
     }
+
+    @Override
+    public int nextBatch(@Nonnull Solution[] buffer, int max) {
+        int n = in.nextBatch(buffer, max);
+        for (int i = 0; i < n; i++)
+            buffer[i] = factory.fromSolution(buffer[i]);
+        return n;
+    }
 }
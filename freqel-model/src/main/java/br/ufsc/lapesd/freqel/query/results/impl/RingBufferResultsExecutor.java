@@ -0,0 +1,543 @@
+package br.ufsc.lapesd.freqel.query.results.impl;
+
+import br.ufsc.lapesd.freqel.query.endpoint.exceptions.QueryExecutionException;
+import br.ufsc.lapesd.freqel.query.results.*;
+import br.ufsc.lapesd.freqel.query.results.profile.OperatorStats;
+import br.ufsc.lapesd.freqel.util.VirtualThreads;
+import br.ufsc.lapesd.freqel.util.indexed.FullIndexSet;
+import br.ufsc.lapesd.freqel.util.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * A {@link ResultsExecutor} that moves solutions from each input to the consumer through
+ * a bounded single-producer/single-consumer ring buffer.
+ *
+ * Each input is consumed by a task in the {@link ExecutorService} that fetches solutions
+ * in batches ({@link Results#nextBatch(Solution[], int)}) directly into free slots of its
+ * ring. A batch never asks for more than the input's {@link Results#getReadyCount()} (but
+ * at least one solution), so that a slow input does not hold back solutions it already
+ * produced while blocking for the next ones. When the ring is full, the task leaves the
+ * thread and is re-scheduled by the consumer once half of the ring is free again, so that
+ * fast inputs do not outrun a slow consumer. The consumer visits rings in round-robin,
+ * draining one batch at a time and only parks when all rings are empty. Time parked is
+ * recorded as blocked time in the {@link OperatorStats} bound to the consumer thread, if
+ * any.
+ *
+ * Compared to {@link BufferedResultsExecutor}, there is no shared queue lock and no
+ * per-solution allocation.
+ *
+ * A demand hint ({@link Results#setDemand(int)}) on the returned {@link Results} is
+ * forwarded to every input and bounds the total number of solutions that the tasks will
+ * fetch: once enough solutions were fetched, tasks stop pulling from their inputs instead
+ * of filling their rings. If the consumer asks for more than it hinted, fetching resumes.
+ * A hint of zero is final: tasks close their inputs, releasing the sources behind them.
+ *
+ * If an input throws while fetching, the solutions it produced before the failure are still
+ * delivered and then the consumer's {@link Results#hasNext()} throws a
+ * {@link QueryExecutionException} with the original exception as cause.
+ *
+ * The number of solutions waiting in rings and the number of enqueued or running tasks,
+ * summed over all instances, are exported as gauges in {@link MetricsRegistry#getDefault()}.
+ */
+public class RingBufferResultsExecutor implements ResultsExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(RingBufferResultsExecutor.class);
+    private static final int DEFAULT_PER_INPUT_BUFFER = 64;
+    private static final @Nonnull LongAdder BUFFERED = new LongAdder(), ACTIVE = new LongAdder();
+
+    static {
+        MetricsRegistry registry = MetricsRegistry.getDefault();
+        registry.gauge("freqel_results_executor_buffered_solutions",
+                       "Solutions fetched from inputs and not yet consumed",
+                       () -> BUFFERED.sum());
+        registry.gauge("freqel_results_executor_active_tasks",
+                       "Tasks enqueued or running to fetch solutions from inputs",
+                       () -> ACTIVE.sum());
+    }
+
+    private final @Nonnull ExecutorService executorService;
+    private final int perInputBufferSize;
+    private volatile boolean closed;
+
+    @Inject
+    public RingBufferResultsExecutor(@Named("resultsExecutor") @Nonnull ExecutorService service,
+                                     @Named("resultsExecutorBufferSize") int perInputBufferSize) {
+        this.executorService = service;
+        this.perInputBufferSize = perInputBufferSize;
+    }
+
+    public RingBufferResultsExecutor(int perInputBufferSize) {
+        this(VirtualThreads.newExecutor("ResultsExecutor", Executors::newCachedThreadPool),
+             perInputBufferSize);
+    }
+
+    public RingBufferResultsExecutor() {
+        this(DEFAULT_PER_INPUT_BUFFER);
+    }
+
+    @Override
+    public @Nonnull Results async(@Nonnull Collection<? extends Results> coll,
+                                  @Nullable Collection<String> namesHint) {
+        return async(coll, namesHint, perInputBufferSize);
+    }
+
+    @Override
+    public @Nonnull Results async(@Nonnull Collection<? extends Results> coll,
+                                  @Nullable Collection<String> namesHint, int buffer) {
+        Collection<String> names = namesHint != null ? namesHint
+                : coll.stream().flatMap(r -> r.getVarNames().stream()).collect(toSet());
+        if (closed) {
+            logger.error("Calling async() after close()! Will return empty results");
+            return CollectionResults.empty(names);
+        }
+        if (coll.isEmpty())
+            return CollectionResults.empty(names);
+
+        boolean projecting = false;
+        if (namesHint != null) {
+            Set<String> set = names instanceof Set ? (Set<String>)names : FullIndexSet.from(names);
+            projecting = coll.stream().anyMatch(r -> !r.getVarNames().equals(set));
+            names = set;
+        }
+        boolean distinct = coll.size() == 1 && coll.iterator().next().isDistinct();
+        ConsumingResults consumer = new ConsumingResults(names, projecting, distinct,
+                                                         coll, capacityFor(buffer));
+        for (FeedTask task : consumer.tasks)
+            task.schedule();
+        if (closed)
+            logger.error("Race: close() called during async()! Will discard solutions");
+        return consumer;
+    }
+
+    private static int capacityFor(int bufferSize) {
+        int size = Math.max(bufferSize, 2);
+        int capacity = Integer.highestOneBit(size);
+        return capacity == size ? capacity : capacity << 1;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        // FeedTasks still executing will be closed when their schedule() gets rejected
+        for (Runnable runnable : executorService.shutdownNow()) {
+            FeedTask task = (FeedTask) runnable;
+            try {
+                task.close(true);
+            } catch (ResultsCloseException e) {
+                logger.error("Problem closing {} from its FeedTask at close(). Ignoring.", task.in);
+            }
+        }
+        // no need to wait per the interface contract
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout,
+                                    @Nonnull TimeUnit unit) throws InterruptedException {
+        return executorService.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return "RingBufferResultsExecutor(" + perInputBufferSize + ")";
+    }
+
+    protected class ConsumingResults extends AbstractResults {
+        private final @Nonnull List<FeedTask> tasks;
+        private final @Nonnull BitSet activeTasks;
+        private final boolean distinct;
+        private final @Nullable ArraySolution.ValueFactory projector;
+        private final @Nonnull Solution[] batch;
+        private int batchPos = 0, batchSize = 0, cursor = 0;
+        private volatile @Nullable Thread waiter;
+        /* total fetched by all tasks and how many the tasks should fetch in total */
+        private final @Nonnull AtomicLong fetched = new AtomicLong();
+        private volatile long fetchLimit = Long.MAX_VALUE;
+        private volatile int inputDemand = -1;
+
+        public ConsumingResults(@Nonnull Collection<String> varNames, boolean projecting,
+                                boolean distinct, @Nonnull Collection<? extends Results> inputs,
+                                int capacity) {
+            super(varNames);
+            this.tasks = new ArrayList<>(inputs.size());
+            for (Results in : inputs)
+                tasks.add(new FeedTask(this, in, capacity));
+            this.activeTasks = new BitSet(tasks.size());
+            this.activeTasks.set(0, tasks.size());
+            this.projector = projecting ? ArraySolution.forVars(varNames) : null;
+            this.distinct = distinct;
+            this.batch = new Solution[capacity];
+        }
+
+        @Override
+        public boolean isAsync() {
+            return true;
+        }
+
+        @Override
+        public boolean isDistinct() {
+            return distinct;
+        }
+
+        @Override
+        public int getReadyCount() {
+            int ready = batchSize - batchPos;
+            for (FeedTask task : tasks)
+                ready += task.available();
+            return ready;
+        }
+
+        @Override
+        public void setDemand(int solutions) {
+            // inputs are not thread safe: each FeedTask forwards this from its own thread
+            inputDemand = solutions;
+            fetchLimit = solutions < 0 ? Long.MAX_VALUE
+                                       : fetched.get() - getReadyCount() + solutions;
+            // tasks may have stopped at a previous, smaller hint or must close their inputs
+            if (wanted() > 0 || solutions == 0) {
+                for (int i = activeTasks.nextSetBit(0); i >= 0; i = activeTasks.nextSetBit(i+1))
+                    tasks.get(i).schedule();
+            }
+        }
+
+        /** How many more solutions producers should fetch, never negative. */
+        long wanted() {
+            return Math.max(0, fetchLimit - fetched.get());
+        }
+
+        /**
+         * Called when all rings are empty. If tasks stopped because the demand hint was
+         * met but the consumer still wants solutions, drop the hint and resume them.
+         *
+         * @return true if tasks were resumed
+         */
+        private boolean resumeBeyondDemand() {
+            if (fetchLimit == Long.MAX_VALUE || wanted() > 0)
+                return false;
+            logger.debug("{}: consumer went beyond its demand hint of {}", this, inputDemand);
+            fetchLimit = Long.MAX_VALUE;
+            inputDemand = -1;
+            for (int i = activeTasks.nextSetBit(0); i >= 0; i = activeTasks.nextSetBit(i+1))
+                tasks.get(i).schedule();
+            return true;
+        }
+
+        /** Called by producers after publishing solutions or exhaustion */
+        void signal() {
+            Thread thread = waiter;
+            if (thread != null)
+                LockSupport.unpark(thread);
+        }
+
+        /**
+         * Drains one batch from the next non-empty ring into {@link #batch}, also
+         * retiring exhausted inputs.
+         *
+         * @return true iff the batch was refilled
+         * @throws QueryExecutionException if a retired input failed while fetching
+         */
+        private boolean fill() {
+            int size = tasks.size();
+            for (int i = 0; i < size && !activeTasks.isEmpty(); i++) {
+                int idx = (cursor + i) % size;
+                if (!activeTasks.get(idx))
+                    continue;
+                FeedTask task = tasks.get(idx);
+                boolean exhausted = task.exhausted; // read before checking the ring
+                int n = task.drain(batch);
+                if (n > 0) {
+                    batchPos = 0;
+                    batchSize = n;
+                    cursor = idx + 1;
+                    return true;
+                } else if (exhausted) {
+                    activeTasks.clear(idx);
+                    Throwable failure = task.failure;
+                    if (failure != null) {
+                        waiter = null;
+                        throw new QueryExecutionException("Failed to fetch solutions from "
+                                                          + task.in, failure);
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext(Integer.MAX_VALUE);
+        }
+
+        @Override
+        public boolean hasNext(int millisecondsTimeout) {
+            if (batchPos < batchSize)
+                return true;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millisecondsTimeout);
+            boolean interrupted = false, has = false;
+            while (!(has = fill()) && !activeTasks.isEmpty()) {
+                if (resumeBeyondDemand())
+                    continue;
+                long remaining = deadline - System.nanoTime();
+                if (millisecondsTimeout <= 0 || remaining <= 0)
+                    break; // timed out
+                waiter = Thread.currentThread();
+                if (!(has = fill()) && !activeTasks.isEmpty()) {
+                    OperatorStats stats = OperatorStats.current(); // null if not profiling
+                    long parkStart = System.nanoTime();
+                    LockSupport.parkNanos(this, remaining);
+                    if (stats != null)
+                        stats.recordBlocked(System.nanoTime() - parkStart);
+                }
+                waiter = null;
+                if (Thread.interrupted()) {
+                    if (!interrupted) {
+                        logger.info("Suppressing interrupt of ConsumingResults.hasNext(). " +
+                                    "Will restore flag upon return");
+                    }
+                    interrupted = true;
+                }
+                if (has)
+                    break;
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt(); // restore interrupt flag
+            return has;
+        }
+
+        @Override
+        public @Nonnull Solution next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Solution next = batch[batchPos];
+            batch[batchPos++] = null;
+            return projector == null ? next : projector.fromSolution(next);
+        }
+
+        @Override
+        public int nextBatch(@Nonnull Solution[] buffer, int max) {
+            int end = Math.min(max, buffer.length), n = 0;
+            if (end == 0 || !hasNext())
+                return 0;
+            while (n < end && (batchPos < batchSize || fill())) {
+                int count = Math.min(end - n, batchSize - batchPos);
+                for (int i = 0; i < count; i++, n++) {
+                    Solution solution = batch[batchPos];
+                    batch[batchPos++] = null;
+                    buffer[n] = projector == null ? solution : projector.fromSolution(solution);
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws ResultsCloseException {
+            List<ResultsCloseException> exceptions = new ArrayList<>();
+            for (FeedTask task : tasks) {
+                try {
+                    task.close(false);
+                } catch (ResultsCloseException e) { exceptions.add(e); }
+            }
+            if (exceptions.size() == 1) {
+                throw exceptions.get(0);
+            } else if (exceptions.size() > 1) {
+                ResultsCloseException e;
+                e = new ResultsCloseException(this, "Exceptions when closing child Results");
+                exceptions.forEach(e::addSuppressed);
+                throw e;
+            }
+        }
+    }
+
+    protected class FeedTask implements Runnable {
+        private final @Nonnull ConsumingResults consumer;
+        private final @Nonnull Results in;
+        private final @Nonnull Solution[] ring, scratch;
+        private final int mask, scheduleThreshold;
+        /* head is only written by the consumer, tail only by the producer */
+        private volatile long head = 0, tail = 0;
+        private volatile boolean active = false, exhausted = false, closed = false;
+        /* set by the producer before finish(), thus visible once exhausted is seen */
+        private volatile @Nullable Throwable failure;
+        private int forwardedDemand = -1; // only accessed from run()
+
+        public FeedTask(@Nonnull ConsumingResults consumer, @Nonnull Results in, int capacity) {
+            assert Integer.bitCount(capacity) == 1 : "capacity must be a power of 2";
+            this.consumer = consumer;
+            this.in = in;
+            this.ring = new Solution[capacity];
+            this.scratch = new Solution[capacity];
+            this.mask = capacity - 1;
+            this.scheduleThreshold = Math.max(1, capacity / 2);
+        }
+
+        int available() {
+            return (int) (tail - head);
+        }
+
+        private int free() {
+            return ring.length - (int) (tail - head);
+        }
+
+        /** Consumer side: moves all available solutions into dst. */
+        int drain(@Nonnull Solution[] dst) {
+            long head = this.head;
+            int n = Math.min((int) (tail - head), dst.length);
+            for (int i = 0; i < n; i++) {
+                int slot = (int) (head + i) & mask;
+                dst[i] = ring[slot];
+                ring[slot] = null;
+            }
+            if (n > 0) {
+                this.head = head + n;
+                BUFFERED.add(-n);
+                if (!active && !exhausted && free() >= scheduleThreshold)
+                    schedule();
+            }
+            return n;
+        }
+
+        public synchronized void schedule() {
+            if (!active && !exhausted && !closed) { // "enqueued or running" at most once
+                active = true;
+                ACTIVE.increment();
+                try {
+                    executorService.execute(this);
+                } catch (RejectedExecutionException e) {
+                    logger.error("RejectedExecutionException when scheduling execution " +
+                                 "over {}. This indicates a race condition with " +
+                                 "ResultsExecutor.close() being called concurrently with " +
+                                 "async() or with consumption of async() Results.", in);
+                    active = false;
+                    ACTIVE.decrement();
+                    try {
+                        close(false);
+                    } catch (ResultsCloseException e2) {
+                        logger.error("Ignoring exception while handling " +
+                                     "RejectedExecutionException", e2);
+                    }
+                }
+            }
+        }
+
+        private synchronized void deactivate() {
+            if (active)
+                ACTIVE.decrement();
+            active = false;
+            notifyAll(); // close() waits for !active
+        }
+
+        private void finish() {
+            exhausted = true;
+            deactivate();
+            consumer.signal();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    if (consumer.inputDemand == 0) {
+                        closeInput();
+                        finish();
+                        return;
+                    }
+                    int free = free();
+                    long wanted = consumer.wanted();
+                    if (free == 0 || wanted == 0) {
+                        deactivate();
+                        // the consumer may have drained everything or dropped its demand to
+                        // zero before seeing !active
+                        if ((free() >= scheduleThreshold && consumer.wanted() > 0)
+                                || consumer.inputDemand == 0) {
+                            schedule();
+                        }
+                        return;
+                    }
+                    int demand = consumer.inputDemand;
+                    if (demand != forwardedDemand)
+                        in.setDemand(forwardedDemand = demand);
+                    int max = (int) Math.min(Math.min(free, wanted),
+                                             Math.max(1, in.getReadyCount()));
+                    int n = 0;
+                    boolean failed = false;
+                    try {
+                        n = in.nextBatch(scratch, max);
+                    } catch (Throwable t) {
+                        logger.debug("Problem with in.nextBatch() for in={}", in, t);
+                        failure = t;
+                        failed = true;
+                    }
+                    long tail = this.tail;
+                    for (int i = 0; i < n; i++) {
+                        ring[(int) (tail + i) & mask] = scratch[i];
+                        scratch[i] = null;
+                    }
+                    if (n > 0) {
+                        this.tail = tail + n; // publishes the ring stores above
+                        BUFFERED.add(n);
+                        consumer.fetched.addAndGet(n);
+                        consumer.signal();
+                    }
+                    if (n == 0 || failed) {
+                        finish();
+                        return;
+                    }
+                }
+                deactivate();
+            } catch (Throwable t) {
+                logger.error("Unexpected exception", t);
+                failure = t;
+                finish();
+            }
+        }
+
+        /**
+         * Closes the input from run() once the consumer hinted it wants no more solutions.
+         */
+        private void closeInput() {
+            try {
+                in.close();
+            } catch (Throwable t) {
+                logger.error("Problem closing in={} after zero demand", in, t);
+            }
+        }
+
+        public void close(boolean forceInactive) throws ResultsCloseException {
+            boolean interrupted = false;
+            synchronized (this) {
+                closed = true; // disallow new production requests
+                if (forceInactive) {
+                    if (active)
+                        ACTIVE.decrement();
+                    active = false;
+                    notifyAll(); // wake other threads once we leave the synchronized
+                }
+                while (active) { //wait until task is not running
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                exhausted = true;
+                BUFFERED.add(-(tail - head)); // solutions left in the ring are discarded
+                head = tail;
+            }
+            consumer.signal();
+            if (interrupted)
+                Thread.currentThread().interrupt(); // restore suppressed interrupt
+            in.close();
+        }
+    }
+}
@@ -99,6 +99,37 @@ public class SPARQLFilterResults extends DelegatingResults implements Results {
         return ready.remove();
     }
 
+    @Override
+    public int nextBatch(@Nonnull Solution[] buffer, int max) {
+        int end = Math.min(max, buffer.length);
+        if (end == 0)
+            return 0;
+        if (!ready.isEmpty()) {
+            int n = 0;
+            while (n < end && !ready.isEmpty())
+                buffer[n++] = ready.remove();
+            return n;
+        }
+        for (int n; (n = in.nextBatch(buffer, end)) > 0; ) {
+            int kept = 0;
+            outer:
+            for (int i = 0; i < n; i++) {
+                Solution solution = buffer[i];
+                for (SPARQLFilter filter : filters) {
+                    if (!filterExecutor.evaluate(filter, solution)) {
+                        ++excluded;
+                        continue outer;
+                    }
+                }
+                ++included;
+                buffer[kept++] = solution;
+            }
+            if (kept > 0)
+                return kept;
+        }
+        return 0;
+    }
+
     @Override
     public String toString() {
         return String.format("SPARQLFilterResults@%x{node=%s, incl=%d, exc=%d, filters=%s, in=%s}",
@@ -41,6 +41,12 @@ public class SequentialResults extends AbstractResults implements Results {
         return results.get(idx).getReadyCount();
     }
 
+    @Override
+    public void setDemand(int solutions) {
+        for (int i = idx; i < results.size(); i++)
+            results.get(i).setDemand(solutions);
+    }
+
     @Override
     public boolean hasNext() {
         while (idx < results.size()) {
@@ -0,0 +1,499 @@
+package br.ufsc.lapesd.freqel.query.results.impl;
+
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.query.results.*;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.UnsignedBytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Exact DISTINCT with a bounded amount of buffered solutions.
+ *
+ * While the estimated size of the distinct solutions seen so far fits the memory budget,
+ * this behaves as a {@link HashDistinctResults}, keeping only the {@link TermDictionary}
+ * ids of each solution. Once the budget is exceeded, these keys are converted into
+ * canonical byte strings identified by a 64-bit fingerprint, which are written as sorted
+ * run files into the temp dir whenever the budget is exceeded again. Each run keeps a
+ * bloom filter and a sparse index whose sizes do not depend on the number of rows, so
+ * that rows which were not spilled rarely touch the disk. A row whose fingerprint matches
+ * a spilled one is compared against the spilled rows, so fingerprint collisions never
+ * drop a row.
+ *
+ * Since the first occurrence of a row is immediately delivered, spilled rows are never
+ * read back in full, only probed.
+ *
+ * Executors should create instances through a {@link Factory}, which carries the
+ * configured temp dir and budget.
+ */
+public class SpillingDistinctResults extends DelegatingResults {
+    private static final Logger logger = LoggerFactory.getLogger(SpillingDistinctResults.class);
+    public static final long DEF_MEMORY_BUDGET = 64 * 1024 * 1024;
+    private static final int ROW_OVERHEAD = 64; // HashSet entry + Row + byte[] headers
+    private static final int MIN_INDEX_INTERVAL = 64;
+    private static final int MAX_INDEX_ENTRIES = 4096;
+    private static final int MIN_FILTER_BYTES = 1024;
+    private static final double FILTER_FPP = 0.01;
+    private static final @Nonnull HashFunction HASH = Hashing.murmur3_128();
+
+    private final @Nonnull String[] vars;
+    private final @Nonnull File tempDir;
+    private final long memoryBudget;
+    private @Nullable DistinctKeys keys;
+    private final @Nonnull HashSet<Row> buffered = new HashSet<>();
+    private long bufferedBytes = 0;
+    private final @Nonnull List<Run> runs = new ArrayList<>();
+    private final @Nonnull ByteArrayOutputStream rowBytes = new ByteArrayOutputStream();
+    private final @Nonnull DataOutputStream rowOut = new DataOutputStream(rowBytes);
+    private @Nullable Solution next;
+
+    /**
+     * Creates {@link SpillingDistinctResults} instances sharing the same settings.
+     */
+    public static class Factory implements DistinctResultsFactory {
+        private final @Nonnull TermDictionary dictionary;
+        private final @Nonnull File tempDir;
+        private final long memoryBudget;
+
+        /**
+         * Constructor.
+         *
+         * @param dictionary dictionary used to encode solutions while they fit memoryBudget
+         * @param tempDir where run files are created
+         * @param memoryBudget budget in bytes. If negative, a {@link HashDistinctResults},
+         *                     which never spills, will be created.
+         */
+        public Factory(@Nonnull TermDictionary dictionary, @Nonnull File tempDir,
+                       long memoryBudget) {
+            this.dictionary = dictionary;
+            this.tempDir = tempDir;
+            this.memoryBudget = memoryBudget;
+        }
+
+        public @Nonnull File getTempDir() {
+            return tempDir;
+        }
+
+        public long getMemoryBudget() {
+            return memoryBudget;
+        }
+
+        @Override
+        public @Nonnull Results create(@Nonnull Results in) {
+            if (memoryBudget < 0)
+                return new HashDistinctResults(in, dictionary);
+            return new SpillingDistinctResults(in, dictionary, tempDir, memoryBudget);
+        }
+    }
+
+    public SpillingDistinctResults(@Nonnull Results in, @Nonnull File tempDir,
+                                   long memoryBudget) {
+        this(in, new TermDictionary(), tempDir, memoryBudget);
+    }
+
+    public SpillingDistinctResults(@Nonnull Results in, @Nonnull TermDictionary dictionary,
+                                   @Nonnull File tempDir, long memoryBudget) {
+        super(in.getVarNames(), in);
+        this.vars = in.getVarNames().toArray(new String[0]);
+        Arrays.sort(this.vars);
+        this.tempDir = tempDir;
+        this.memoryBudget = memoryBudget;
+        this.keys = new DistinctKeys(dictionary, this.vars);
+    }
+
+    /* --- --- --- Results interface --- --- --- */
+
+    @Override
+    public boolean isDistinct() {
+        return true;
+    }
+
+    @Override
+    public int getReadyCount() {
+        return in.getReadyCount() + (next != null ? 1 : 0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (this.next == null && in.hasNext()) {
+            Solution solution = in.next();
+            if (add(solution))
+                this.next = solution;
+        }
+        return this.next != null;
+    }
+
+    @Override
+    public @Nonnull Solution next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        Solution current = this.next;
+        assert current != null;
+        this.next = null;
+        return current;
+    }
+
+    @Override
+    public int nextBatch(@Nonnull Solution[] buffer, int max) {
+        if (Math.min(max, buffer.length) == 0)
+            return 0;
+        if (this.next != null) {
+            buffer[0] = this.next;
+            this.next = null;
+            return 1;
+        }
+        for (int n; (n = in.nextBatch(buffer, max)) > 0; ) {
+            int kept = 0;
+            for (int i = 0; i < n; i++) {
+                if (add(buffer[i]))
+                    buffer[kept++] = buffer[i];
+            }
+            if (kept > 0)
+                return kept;
+        }
+        return 0;
+    }
+
+    @Override
+    public void close() throws ResultsCloseException {
+        try {
+            super.close();
+        } finally {
+            for (Run run : runs)
+                run.delete();
+            runs.clear();
+            buffered.clear();
+            keys = null;
+        }
+    }
+
+    /**
+     * Number of run files currently holding spilled rows.
+     */
+    public int getSpilledRuns() {
+        return runs.size();
+    }
+
+    /* --- --- --- Implementation --- --- --- */
+
+    private static final class Row {
+        final long fingerprint;
+        final @Nonnull byte[] data;
+
+        Row(long fingerprint, @Nonnull byte[] data) {
+            this.fingerprint = fingerprint;
+            this.data = data;
+        }
+
+        @Override public boolean equals(Object o) {
+            if (!(o instanceof Row)) return false;
+            Row rhs = (Row) o;
+            return fingerprint == rhs.fingerprint && Arrays.equals(data, rhs.data);
+        }
+
+        @Override public int hashCode() {
+            return (int) (fingerprint ^ (fingerprint >>> 32));
+        }
+    }
+
+    private static final @Nonnull Comparator<Row> ROW_COMPARATOR =
+            Comparator.<Row>comparingLong(r -> r.fingerprint)
+                      .thenComparing(r -> r.data, UnsignedBytes.lexicographicalComparator());
+
+    private @Nonnull Row toRow(@Nonnull Solution solution) {
+        Term[] values = new Term[vars.length];
+        for (int i = 0; i < vars.length; i++)
+            values[i] = solution.get(vars[i]);
+        return toRow(values);
+    }
+
+    private @Nonnull Row toRow(@Nonnull Term[] values) {
+        rowBytes.reset();
+        try {
+            for (Term value : values)
+                writeTerm(value);
+            rowOut.flush();
+        } catch (IOException e) {
+            throw new AssertionError("ByteArrayOutputStream should not throw", e);
+        }
+        byte[] data = rowBytes.toByteArray();
+        return new Row(HASH.hashBytes(data).asLong(), data);
+    }
+
+    private void writeTerm(@Nullable Term term) throws IOException {
+        String string;
+        if (term == null) {
+            rowOut.writeByte(0);
+            return;
+        } else if (term.isURI()) {
+            rowOut.writeByte('U');
+            string = term.asURI().getURI();
+        } else if (term.isLiteral()) {
+            rowOut.writeByte('L');
+            string = term.asLiteral().toNT();
+        } else if (term.isBlank()) {
+            rowOut.writeByte('B');
+            Object id = term.asBlank().getId();
+            string = id.getClass().getName() + ":" + id;
+        } else {
+            rowOut.writeByte('?');
+            string = term.toString();
+        }
+        byte[] bytes = string.getBytes(UTF_8);
+        rowOut.writeInt(bytes.length);
+        rowOut.write(bytes);
+    }
+
+    private boolean add(@Nonnull Solution solution) {
+        if (keys != null) {
+            if (!keys.add(solution))
+                return false;
+            if (keys.estimateBytes() > memoryBudget)
+                convertKeys();
+            return true;
+        }
+        Row row = toRow(solution);
+        if (buffered.contains(row))
+            return false;
+        for (Run run : runs) {
+            if (run.contains(row))
+                return false;
+        }
+        buffer(row);
+        return true;
+    }
+
+    private void buffer(@Nonnull Row row) {
+        buffered.add(row);
+        bufferedBytes += row.data.length + ROW_OVERHEAD;
+        if (bufferedBytes > memoryBudget)
+            spill();
+    }
+
+    /**
+     * Moves the in-memory keys into rows, spilling them as needed. From this point on,
+     * all solutions are handled as rows.
+     */
+    private void convertKeys() {
+        DistinctKeys keys = this.keys;
+        assert keys != null;
+        this.keys = null;
+        logger.info("{} exceeded memory budget of {} bytes with {} in-memory keys. " +
+                    "Will spill rows to {}", this, memoryBudget, keys.estimateBytes(), tempDir);
+        keys.forEachValues(values -> buffer(toRow(values)));
+    }
+
+    private void spill() {
+        Row[] rows = buffered.toArray(new Row[0]);
+        Arrays.sort(rows, ROW_COMPARATOR);
+        try {
+            long filterBytes = Math.max(memoryBudget / 32, MIN_FILTER_BYTES);
+            Run run = Run.write(createRunFile(), rows.length, filterBytes,
+                                Arrays.asList(rows).iterator());
+            runs.add(run);
+            /* keep O(log n) runs, so that a probe reads at most that many blocks */
+            for (int n = runs.size(); n > 1; n = runs.size()) {
+                Run left = runs.get(n - 2), right = runs.get(n - 1);
+                if (left.rows >= 2L * right.rows)
+                    break;
+                runs.set(n - 2, Run.merge(createRunFile(), filterBytes, left, right));
+                runs.remove(n - 1);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill DISTINCT rows into "+tempDir, e);
+        }
+        buffered.clear();
+        bufferedBytes = 0;
+    }
+
+    private @Nonnull File createRunFile() throws IOException {
+        return File.createTempFile("distinct-", ".run", tempDir);
+    }
+
+    /**
+     * A file with rows sorted by fingerprint. Each row is stored as its fingerprint,
+     * data length and data. At most {@link #MAX_INDEX_ENTRIES} rows (and at least one every
+     * {@link #MIN_INDEX_INTERVAL}) are indexed, and a bloom filter of at most filterBytes
+     * holds the fingerprints.
+     */
+    private static final class Run {
+        final @Nonnull File file;
+        final @Nonnull BloomFilter<Long> filter;
+        final int indexInterval;
+        @Nonnull long[] indexFingerprints = new long[16], indexOffsets = new long[16];
+        int indexSize = 0, rows = 0;
+        long length = 0;
+        @Nullable RandomAccessFile raf;
+
+        private Run(@Nonnull File file, int expectedRows, long filterBytes) {
+            this.file = file;
+            long filterRows = Math.max(Math.min(expectedRows, filterBytes * 8 / 10), 1);
+            this.filter = BloomFilter.create(Funnels.longFunnel(), filterRows, FILTER_FPP);
+            int interval = (expectedRows + MAX_INDEX_ENTRIES - 1) / MAX_INDEX_ENTRIES;
+            this.indexInterval = Math.max(MIN_INDEX_INTERVAL, interval);
+        }
+
+        static @Nonnull Run write(@Nonnull File file, int expectedRows, long filterBytes,
+                                  @Nonnull Iterator<Row> sorted) throws IOException {
+            Run run = new Run(file, expectedRows, filterBytes);
+            try (FileOutputStream fileOut = new FileOutputStream(file);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+                while (sorted.hasNext())
+                    run.append(out, sorted.next());
+            } catch (IOException|RuntimeException e) {
+                run.delete();
+                throw e;
+            }
+            return run;
+        }
+
+        static @Nonnull Run merge(@Nonnull File file, long filterBytes, @Nonnull Run left,
+                                  @Nonnull Run right) throws IOException {
+            Run merged;
+            try (Reader l = new Reader(left); Reader r = new Reader(right)) {
+                int expectedRows = left.rows + right.rows;
+                merged = write(file, expectedRows, filterBytes, new Iterator<Row>() {
+                    @Override public boolean hasNext() {
+                        return l.peek != null || r.peek != null;
+                    }
+                    @Override public @Nonnull Row next() {
+                        Reader src = r.peek == null ? l : (l.peek == null ? r
+                                   : (ROW_COMPARATOR.compare(l.peek, r.peek) <= 0 ? l : r));
+                        Row row = src.peek;
+                        if (row == null)
+                            throw new NoSuchElementException();
+                        src.advance();
+                        return row;
+                    }
+                });
+            }
+            left.delete();
+            right.delete();
+            return merged;
+        }
+
+        private void append(@Nonnull DataOutputStream out, @Nonnull Row row) throws IOException {
+            if (rows % indexInterval == 0) {
+                if (indexSize == indexFingerprints.length) {
+                    indexFingerprints = Arrays.copyOf(indexFingerprints, indexSize * 2);
+                    indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+                }
+                indexFingerprints[indexSize] = row.fingerprint;
+                indexOffsets[indexSize++] = length;
+            }
+            filter.put(row.fingerprint);
+            out.writeLong(row.fingerprint);
+            out.writeInt(row.data.length);
+            out.write(row.data);
+            length += 12 + row.data.length;
+            ++rows;
+        }
+
+        /** Sequential reader used for merging */
+        private static final class Reader implements Closeable {
+            final @Nonnull DataInputStream in;
+            int remaining;
+            @Nullable Row peek;
+
+            Reader(@Nonnull Run run) throws IOException {
+                in = new DataInputStream(new BufferedInputStream(new FileInputStream(run.file)));
+                remaining = run.rows;
+                advance();
+            }
+
+            void advance() {
+                if (remaining == 0) {
+                    peek = null;
+                    return;
+                }
+                --remaining;
+                try {
+                    long fingerprint = in.readLong();
+                    byte[] data = new byte[in.readInt()];
+                    in.readFully(data);
+                    peek = new Row(fingerprint, data);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override public void close() throws IOException {
+                in.close();
+            }
+        }
+
+        boolean contains(@Nonnull Row row) {
+            long fp = row.fingerprint;
+            if (indexSize == 0 || fp < indexFingerprints[0] || !filter.mightContain(fp))
+                return false;
+            // start at the last block whose first fingerprint is smaller than fp, since
+            // rows with fingerprint fp may begin at its tail
+            int block = Arrays.binarySearch(indexFingerprints, 0, indexSize, fp);
+            if (block < 0)
+                block = -(block + 1);
+            while (block > 0 && indexFingerprints[block - 1] >= fp)
+                --block;
+            block = Math.max(block - 1, 0);
+            try {
+                if (raf == null)
+                    raf = new RandomAccessFile(file, "r");
+                for (; block < indexSize; ++block) {
+                    long end = block + 1 < indexSize ? indexOffsets[block + 1] : length;
+                    byte[] data = new byte[(int) (end - indexOffsets[block])];
+                    raf.seek(indexOffsets[block]);
+                    raf.readFully(data);
+                    ByteBuffer bb = ByteBuffer.wrap(data);
+                    while (bb.hasRemaining()) {
+                        long entryFp = bb.getLong();
+                        int entryLen = bb.getInt();
+                        if (entryFp > fp)
+                            return false;
+                        if (entryFp == fp && entryLen == row.data.length
+                                && equals(data, bb.position(), row.data)) {
+                            return true;
+                        }
+                        bb.position(bb.position() + entryLen);
+                    }
+                }
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read DISTINCT run file "+file, e);
+            }
+        }
+
+        private static boolean equals(@Nonnull byte[] data, int offset, @Nonnull byte[] row) {
+            for (int i = 0; i < row.length; i++) {
+                if (data[offset + i] != row[i]) return false;
+            }
+            return true;
+        }
+
+        void delete() {
+            try {
+                if (raf != null)
+                    raf.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close run file {}", file, e);
+            }
+            raf = null;
+            if (file.exists() && !file.delete())
+                logger.warn("Failed to delete run file {}", file);
+        }
+    }
+
+    @Override
+    public @Nonnull String toString() {
+        return String.format("SpillingDistinctResults@%x", System.identityHashCode(this));
+    }
+}
@@ -18,6 +18,11 @@ public class TransformedResults extends DelegatingResults implements Results {
         this.op = op;
     }
 
+    @Override
+    public void setDemand(int solutions) {
+        in.setDemand(solutions);
+    }
+
     @Override
     public @Nonnull Solution next() {
         Solution solution = op.apply(in.next());
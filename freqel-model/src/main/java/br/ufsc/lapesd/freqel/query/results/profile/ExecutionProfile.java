@@ -0,0 +1,172 @@
+package br.ufsc.lapesd.freqel.query.results.profile;
+
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.leaf.EndpointOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.SPARQLValuesTemplateOp;
+import br.ufsc.lapesd.freqel.algebra.util.TreeUtils;
+import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+import br.ufsc.lapesd.freqel.util.ref.IdentityHashSet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Per-operator execution statistics of a plan (EXPLAIN ANALYZE).
+ *
+ * A profile is created for a plan before it is executed. Plan executors that support
+ * profiling wrap the {@link br.ufsc.lapesd.freqel.query.results.Results} of each executed
+ * node with a {@link ProfilingResults} that records into the node {@link OperatorStats}.
+ * Nodes executed at runtime that are not part of the original plan (e.g., bound copies
+ * of the right side of a bind join) are recorded as extra children of the operator
+ * on whose behalf they were executed.
+ *
+ * Once the results were consumed, {@link #explain()} renders the plan annotated with the
+ * collected statistics.
+ */
+@ThreadSafe
+public class ExecutionProfile {
+    private final @Nonnull Op plan;
+    /* written only by the constructor */
+    private final @Nonnull IdentityHashMap<Op, OperatorStats> planStats = new IdentityHashMap<>();
+    private final @Nonnull OperatorStats unattributed;
+
+    public ExecutionProfile(@Nonnull Op plan) {
+        this.plan = plan;
+        for (Iterator<Op> it = TreeUtils.iteratePreOrder(plan); it.hasNext(); ) {
+            Op op = it.next();
+            planStats.computeIfAbsent(op, k -> new OperatorStats(this, k.getName()));
+        }
+        unattributed = new OperatorStats(this, "unattributed");
+    }
+
+    public @Nonnull Op getPlan() {
+        return plan;
+    }
+
+    /**
+     * Get the stats of a node of the profiled plan.
+     *
+     * @return null if node is not part of the plan
+     */
+    public @Nullable OperatorStats getStats(@Nonnull Op node) {
+        return planStats.get(node);
+    }
+
+    /**
+     * Stats that should be used as context when starting the execution of the plan.
+     */
+    public @Nonnull OperatorStats getRootContext() {
+        return unattributed;
+    }
+
+    /**
+     * Get the stats to which executions of the given node should be recorded.
+     *
+     * @param node the node being executed
+     * @param context the stats bound to the executing thread (see
+     *                {@link OperatorStats#current()}). Used if node is not in the plan.
+     */
+    public @Nonnull OperatorStats statsFor(@Nonnull Op node, @Nullable OperatorStats context) {
+        OperatorStats stats = planStats.get(node);
+        if (stats != null)
+            return stats;
+        if (context == null || context.getProfile() != this)
+            context = unattributed;
+        TPEndpoint endpoint = getEndpoint(node);
+        String label = node.getClass().getSimpleName() + (endpoint == null ? "" : " " + endpoint);
+        return context.getExtraChild(Arrays.asList(node.getClass(), endpoint), label);
+    }
+
+    private static @Nullable TPEndpoint getEndpoint(@Nonnull Op node) {
+        if (node instanceof EndpointOp)
+            return ((EndpointOp) node).getEndpoint();
+        if (node instanceof SPARQLValuesTemplateOp)
+            return ((SPARQLValuesTemplateOp) node).getEndpoint();
+        return null;
+    }
+
+    /**
+     * Renders the plan, with each node annotated with its statistics.
+     *
+     * Stats of each node are: <code>rows</code> output, <code>rows in</code> (sum of
+     * rows output by children), <code>execs</code> (times the node was executed),
+     * <code>time</code> spent inside calls to its results (including children),
+     * the part of such time <code>blocked</code> (parked waiting for the background
+     * producers of async results, as measured by the {@link
+     * br.ufsc.lapesd.freqel.query.results.ResultsExecutor}),
+     * <code>self</code> time (time not blocked nor inside children) and, if any,
+     * <code>requests</code> and <code>bytes</code> received from remote sources.
+     */
+    public @Nonnull String explain() {
+        StringBuilder b = new StringBuilder();
+        explain(b, plan, "", new IdentityHashSet<>());
+        if (!unattributed.getExtraChildren().isEmpty()) {
+            b.append('\n');
+            explainExtra(b, unattributed, "");
+        }
+        return b.toString();
+    }
+
+    private void explain(@Nonnull StringBuilder b, @Nonnull Op node, @Nonnull String indent,
+                         @Nonnull IdentityHashSet<Op> visited) {
+        if (!visited.add(node))
+            return;
+        OperatorStats stats = planStats.get(node);
+        assert stats != null;
+        String header = node.prettyPrint(new StringBuilder(), "").toString();
+        int lineEnd = header.indexOf('\n');
+        b.append(indent).append(lineEnd < 0 ? header : header.substring(0, lineEnd));
+        List<Op> children = node.getChildren();
+        appendStats(b.append("  "), stats, children);
+        for (Op child : children)
+            explain(b.append('\n'), child, indent + "  ", visited);
+        for (OperatorStats extra : stats.getExtraChildren())
+            explainExtra(b.append('\n'), extra, indent + "  ");
+    }
+
+    private void explainExtra(@Nonnull StringBuilder b, @Nonnull OperatorStats stats,
+                              @Nonnull String indent) {
+        b.append(indent).append("+ ").append(stats.getLabel());
+        appendStats(b.append("  "), stats, null);
+        for (OperatorStats extra : stats.getExtraChildren())
+            explainExtra(b.append('\n'), extra, indent + "  ");
+    }
+
+    private void appendStats(@Nonnull StringBuilder b, @Nonnull OperatorStats stats,
+                             @Nullable List<Op> children) {
+        long rowsIn = 0;
+        double childrenMs = 0;
+        if (children != null) {
+            for (Op child : children) {
+                OperatorStats childStats = planStats.get(child);
+                assert childStats != null;
+                rowsIn += childStats.getRows();
+                childrenMs += childStats.getTimeMs();
+            }
+        }
+        for (OperatorStats extra : stats.getExtraChildren()) {
+            rowsIn += extra.getRows();
+            childrenMs += extra.getTimeMs();
+        }
+        double selfMs = Math.max(0, stats.getTimeMs() - stats.getBlockedMs() - childrenMs);
+        b.append(String.format("{rows: %d, rows in: %d, execs: %d, time: %.3fms, " +
+                               "blocked: %.3fms, self: %.3fms", stats.getRows(), rowsIn,
+                               stats.getExecutions(), stats.getTimeMs(),
+                               stats.getBlockedMs(), selfMs));
+        if (stats.getRequests() > 0 || stats.getBytes() > 0) {
+            b.append(", requests: ").append(stats.getRequests())
+             .append(", bytes: ").append(stats.getBytes());
+        }
+        b.append('}');
+    }
+
+    @Override
+    public @Nonnull String toString() {
+        return explain();
+    }
+}
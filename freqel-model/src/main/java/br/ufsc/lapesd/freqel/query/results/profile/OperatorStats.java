@@ -0,0 +1,166 @@
+package br.ufsc.lapesd.freqel.query.results.profile;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Execution counters of a single operator (plan node) within an {@link ExecutionProfile}.
+ *
+ * Counters may be updated concurrently: a node may be executed more than once (e.g., the
+ * right side of a bind join) and its results may be consumed from background threads.
+ *
+ * While an operator is being executed or its results are being consumed, its stats are
+ * bound to the current thread (see {@link #current()}), allowing components that have no
+ * access to the plan, such as endpoint clients, to record requests and received bytes.
+ */
+@ThreadSafe
+public class OperatorStats {
+    private static final @Nonnull ThreadLocal<OperatorStats> current = new ThreadLocal<>();
+
+    private final @Nonnull ExecutionProfile profile;
+    private final @Nonnull String label;
+    private final @Nonnull LongAdder executions = new LongAdder(), rows = new LongAdder(),
+            timeNs = new LongAdder(), blockedNs = new LongAdder(),
+            requests = new LongAdder(), bytes = new LongAdder();
+    private final @Nonnull Map<Object, OperatorStats> extraChildren = new ConcurrentHashMap<>();
+
+    OperatorStats(@Nonnull ExecutionProfile profile, @Nonnull String label) {
+        this.profile = profile;
+        this.label = label;
+    }
+
+    /**
+     * Get the stats bound to the current thread, or null if no profiled execution or
+     * consumption is happening in this thread.
+     */
+    public static @Nullable OperatorStats current() {
+        return current.get();
+    }
+
+    /**
+     * Binds stats to the current thread until the returned {@link Scope} is closed.
+     *
+     * @param stats stats to bind. If null, the current binding is kept.
+     */
+    public static @Nonnull Scope bind(@Nullable OperatorStats stats) {
+        OperatorStats old = current.get();
+        if (stats == null || stats == old)
+            return Scope.NOOP;
+        current.set(stats);
+        return new Scope(old);
+    }
+
+    public static class Scope implements AutoCloseable {
+        private static final @Nonnull Scope NOOP = new Scope(null);
+        private final @Nullable OperatorStats previous;
+
+        private Scope(@Nullable OperatorStats previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (this == NOOP)
+                return;
+            if (previous == null)
+                current.remove();
+            else
+                current.set(previous);
+        }
+    }
+
+    public @Nonnull ExecutionProfile getProfile() {
+        return profile;
+    }
+
+    public @Nonnull String getLabel() {
+        return label;
+    }
+
+    /**
+     * Get (or create) stats for an operator that is not part of the profiled plan, but
+     * was executed on behalf of this operator (e.g., rewritten or bound copies of a child).
+     * Operators sharing the same key have their stats aggregated.
+     */
+    public @Nonnull OperatorStats getExtraChild(@Nonnull Object key, @Nonnull String label) {
+        return extraChildren.computeIfAbsent(key, k -> new OperatorStats(profile, label));
+    }
+
+    public @Nonnull List<OperatorStats> getExtraChildren() {
+        return new ArrayList<>(extraChildren.values());
+    }
+
+    public void recordExecution() {
+        executions.increment();
+    }
+
+    public void recordRows(long count) {
+        rows.add(count);
+    }
+
+    public void recordTime(long nanoseconds) {
+        timeNs.add(nanoseconds);
+    }
+
+    /**
+     * Records time the thread to which this is bound spent parked waiting for background
+     * producers (e.g., tasks of a {@link br.ufsc.lapesd.freqel.query.results.ResultsExecutor}).
+     */
+    public void recordBlocked(long nanoseconds) {
+        blockedNs.add(nanoseconds);
+    }
+
+    public void recordRequest() {
+        requests.increment();
+    }
+
+    public void recordBytes(long count) {
+        bytes.add(count);
+    }
+
+    /** Number of times the operator was executed (i.e., its {@link
+     *  br.ufsc.lapesd.freqel.query.results.Results} were created). */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /** Number of solutions output by the operator */
+    public long getRows() {
+        return rows.sum();
+    }
+
+    /** Time spent inside calls to the operator results, including its inputs */
+    public double getTimeMs() {
+        return NANOSECONDS.toMicros(timeNs.sum()) / 1000.0;
+    }
+
+    /** Part of {@link #getTimeMs()} spent parked waiting for background producers */
+    public double getBlockedMs() {
+        return NANOSECONDS.toMicros(blockedNs.sum()) / 1000.0;
+    }
+
+    /** Number of requests sent to remote sources */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /** Number of bytes received from remote sources */
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public @Nonnull String toString() {
+        return String.format("%s{executions=%d, rows=%d, time=%.3fms, blocked=%.3fms, " +
+                             "requests=%d, bytes=%d}", label, getExecutions(), getRows(),
+                             getTimeMs(), getBlockedMs(), getRequests(), getBytes());
+    }
+}
@@ -0,0 +1,86 @@
+package br.ufsc.lapesd.freqel.query.results.profile;
+
+import br.ufsc.lapesd.freqel.query.results.DelegatingResults;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.ResultsCloseException;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Records solutions and time spent in the input {@link Results} into {@link OperatorStats}.
+ *
+ * While the input is being called, the stats are bound to the calling thread, so that
+ * nodes executed lazily by the input (e.g., by a bind join) are attributed to it. Async
+ * results created by a {@link br.ufsc.lapesd.freqel.query.results.ResultsExecutor} also
+ * use that binding to record how long they parked waiting for their background tasks.
+ */
+public class ProfilingResults extends DelegatingResults {
+    private final @Nonnull OperatorStats stats;
+
+    public ProfilingResults(@Nonnull Results in, @Nonnull OperatorStats stats) {
+        super(in.getVarNames(), in);
+        this.stats = stats;
+        stats.recordExecution();
+    }
+
+    public @Nonnull OperatorStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public boolean hasNext() {
+        long start = System.nanoTime();
+        try (OperatorStats.Scope ignored = OperatorStats.bind(stats)) {
+            return in.hasNext();
+        } finally {
+            stats.recordTime(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean hasNext(int millisecondsTimeout) {
+        long start = System.nanoTime();
+        try (OperatorStats.Scope ignored = OperatorStats.bind(stats)) {
+            return in.hasNext(millisecondsTimeout);
+        } finally {
+            stats.recordTime(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public @Nonnull Solution next() {
+        long start = System.nanoTime();
+        try (OperatorStats.Scope ignored = OperatorStats.bind(stats)) {
+            Solution solution = in.next();
+            stats.recordRows(1);
+            return solution;
+        } finally {
+            stats.recordTime(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public int nextBatch(@Nonnull Solution[] buffer, int max) {
+        long start = System.nanoTime();
+        try (OperatorStats.Scope ignored = OperatorStats.bind(stats)) {
+            int n = in.nextBatch(buffer, max);
+            stats.recordRows(n);
+            return n;
+        } finally {
+            stats.recordTime(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void setDemand(int solutions) {
+        in.setDemand(solutions);
+    }
+
+    @Override
+    public void close() throws ResultsCloseException {
+        try (OperatorStats.Scope ignored = OperatorStats.bind(stats)) {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package br.ufsc.lapesd.freqel.util;
+
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+public class AtomicFiles {
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(@Nonnull Writer writer) throws IOException;
+    }
+
+    /**
+     * Replaces the contents of file with UTF-8 text written by contentWriter.
+     *
+     * Contents are first written to a temporary file in the same directory, which is then
+     * moved over file. Thus, concurrent readers never observe a partially written file.
+     * Missing parent directories are created.
+     *
+     * @return the given file
+     */
+    @CanIgnoreReturnValue
+    public static @Nonnull File write(@Nonnull File file,
+                                      @Nonnull ContentWriter contentWriter) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (!dir.exists() && !dir.mkdirs())
+            throw new IOException("Could not mkdir "+dir);
+        Path tmp = Files.createTempFile(dir.toPath(), file.getName() + "-", ".tmp");
+        try {
+            try (FileOutputStream stream = new FileOutputStream(tmp.toFile());
+                 OutputStreamWriter writer = new OutputStreamWriter(stream, UTF_8)) {
+                contentWriter.write(writer);
+            }
+            try {
+                Files.move(tmp, file.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file.toPath(), REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,116 @@
+package br.ufsc.lapesd.freqel.util;
+
+import br.ufsc.lapesd.freqel.query.results.TermDictionary;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * An open-addressing set of primitive longs (linear probing, no boxing).
+ *
+ * Not thread-safe.
+ */
+public class LongHashSet {
+    private static final long FREE = 0;
+    private static final double LOAD_FACTOR = 0.5;
+
+    private long[] slots;
+    private boolean hasFreeKey = false;
+    private int size = 0, mask, resizeAt;
+
+    public LongHashSet() {
+        this(64);
+    }
+
+    public LongHashSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max((int)(expected / LOAD_FACTOR), 16) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        slots = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Adds value to the set.
+     *
+     * @return true if the value was not present
+     */
+    public boolean add(long value) {
+        if (value == FREE) {
+            if (hasFreeKey)
+                return false;
+            ++size;
+            return hasFreeKey = true;
+        }
+        long[] slots = this.slots;
+        for (int i = TermDictionary.hash(value) & mask; ; i = (i+1) & mask) {
+            long current = slots[i];
+            if (current == value)
+                return false;
+            if (current == FREE) {
+                slots[i] = value;
+                if (++size > resizeAt)
+                    rehash();
+                return true;
+            }
+        }
+    }
+
+    public boolean contains(long value) {
+        if (value == FREE)
+            return hasFreeKey;
+        for (int i = TermDictionary.hash(value) & mask; ; i = (i+1) & mask) {
+            long current = slots[i];
+            if (current == value)
+                return true;
+            if (current == FREE)
+                return false;
+        }
+    }
+
+    private void rehash() {
+        long[] old = this.slots;
+        allocate(old.length * 2);
+        for (long value : old) {
+            if (value == FREE) continue;
+            int i = TermDictionary.hash(value) & mask;
+            while (slots[i] != FREE)
+                i = (i+1) & mask;
+            slots[i] = value;
+        }
+    }
+
+    public void forEach(@Nonnull LongConsumer consumer) {
+        if (hasFreeKey)
+            consumer.accept(FREE);
+        for (long value : slots) {
+            if (value != FREE)
+                consumer.accept(value);
+        }
+    }
+
+    /**
+     * Number of bytes used by the slots array
+     */
+    public long getSlotsBytes() {
+        return 8L * slots.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, FREE);
+        hasFreeKey = false;
+        size = 0;
+    }
+}
@@ -0,0 +1,124 @@
+package br.ufsc.lapesd.freqel.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+/**
+ * Creates threads and executors backed by virtual threads when the runtime supports
+ * them (Java 21+), falling back to platform threads otherwise.
+ *
+ * The code is compiled for Java 8, thus all virtual thread APIs are accessed through
+ * reflection. Methods without an explicit choice follow a process-wide setting: it is
+ * enabled by default if supported and can be changed with {@link #setEnabled(boolean)}.
+ * A federation does not change this setting: its VIRTUAL_THREADS configuration key is
+ * passed explicitly to the components it creates.
+ */
+public class VirtualThreads {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreads.class);
+    private static final @Nullable Method ofVirtual, builderName, builderFactory,
+            newThreadPerTaskExecutor;
+    private static volatile boolean enabled;
+
+    static {
+        Method ofV = null, name = null, factory = null, perTask = null;
+        try {
+            ofV = Thread.class.getMethod("ofVirtual");
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            name = builderClass.getMethod("name", String.class, long.class);
+            factory = builderClass.getMethod("factory");
+            perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            ofV.invoke(null); // fails if preview APIs are not enabled (Java 19/20)
+        } catch (ReflectiveOperationException|RuntimeException|LinkageError e) {
+            ofV = name = factory = perTask = null;
+        }
+        ofVirtual = ofV;
+        builderName = name;
+        builderFactory = factory;
+        newThreadPerTaskExecutor = perTask;
+        enabled = ofVirtual != null;
+    }
+
+    /**
+     * Whether the running JVM supports virtual threads.
+     */
+    public static boolean isSupported() {
+        return ofVirtual != null;
+    }
+
+    /**
+     * Whether new executors will use virtual threads.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable or disable use of virtual threads by executors created after this call.
+     *
+     * Enabling on a runtime without support logs a warning and has no effect.
+     */
+    public static void setEnabled(boolean value) {
+        if (value && !isSupported()) {
+            logger.warn("Virtual threads requested, but not supported by this JVM ({}). " +
+                        "Will use platform threads", System.getProperty("java.version"));
+            value = false;
+        }
+        enabled = value;
+    }
+
+    /**
+     * Get a factory of virtual threads named namePrefix-0, namePrefix-1, etc.
+     *
+     * @return null if virtual threads are not enabled
+     */
+    public static @Nullable ThreadFactory factory(@Nonnull String namePrefix) {
+        return factory(namePrefix, enabled);
+    }
+
+    private static @Nullable ThreadFactory factory(@Nonnull String namePrefix, boolean virtual) {
+        if (!virtual || !isSupported())
+            return null;
+        assert ofVirtual != null && builderName != null && builderFactory != null;
+        try {
+            Object builder = builderName.invoke(ofVirtual.invoke(null), namePrefix + "-", 0L);
+            return (ThreadFactory) builderFactory.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create virtual thread factory", e);
+        }
+    }
+
+    /**
+     * Create an {@link ExecutorService} that starts a new virtual thread for every task or
+     * return fallback's value if virtual threads are not enabled.
+     */
+    public static @Nonnull ExecutorService
+    newExecutor(@Nonnull String namePrefix, @Nonnull Supplier<ExecutorService> fallback) {
+        return newExecutor(namePrefix, enabled, fallback);
+    }
+
+    /**
+     * Same as {@link #newExecutor(String, Supplier)}, but uses virtual threads iff virtual
+     * is true and they are supported, regardless of {@link #isEnabled()}.
+     */
+    public static @Nonnull ExecutorService
+    newExecutor(@Nonnull String namePrefix, boolean virtual,
+                @Nonnull Supplier<ExecutorService> fallback) {
+        ThreadFactory factory = factory(namePrefix, virtual);
+        if (factory == null)
+            return fallback.get();
+        assert newThreadPerTaskExecutor != null;
+        try {
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create virtual thread executor", e);
+        }
+    }
+}
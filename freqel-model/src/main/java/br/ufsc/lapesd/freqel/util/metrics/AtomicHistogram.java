@@ -0,0 +1,131 @@
+package br.ufsc.lapesd.freqel.util.metrics;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative long values with bounded relative error.
+ *
+ * Values are counted in log-linear buckets, as in HDR histograms: each power of two is split
+ * into 2^subBucketBits equally sized buckets, thus the relative error of any quantile or
+ * bucket boundary is at most 2^-subBucketBits. Recording a value is an index computation
+ * and two atomic increments, without locks or allocation.
+ *
+ * Reads ({@link #getCount()}, {@link #getCountAtOrBelow(long)},
+ * {@link #getValueAtQuantile(double)}) are not atomic snapshots: values recorded
+ * concurrently may or may not be observed.
+ */
+@ThreadSafe
+public class AtomicHistogram {
+    private final int subBucketBits, subBucketCount;
+    private final long highestTrackableValue;
+    private final AtomicLongArray counts;
+    private final LongAdder total = new LongAdder(), sum = new LongAdder();
+
+    /**
+     * Create a histogram.
+     *
+     * @param highestTrackableValue larger values are recorded as this value
+     * @param subBucketBits log2 of buckets per power of two (e.g., 5 yields ~3% error)
+     */
+    public AtomicHistogram(long highestTrackableValue, int subBucketBits) {
+        if (highestTrackableValue < 1)
+            throw new IllegalArgumentException("highestTrackableValue must be positive");
+        if (subBucketBits < 1 || subBucketBits > 16)
+            throw new IllegalArgumentException("subBucketBits must be in [1, 16]");
+        this.subBucketBits = subBucketBits;
+        this.subBucketCount = 1 << subBucketBits;
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new AtomicLongArray(indexOf(highestTrackableValue) + 1);
+    }
+
+    /**
+     * Create a histogram with at most ~3% relative error.
+     */
+    public AtomicHistogram(long highestTrackableValue) {
+        this(highestTrackableValue, 5);
+    }
+
+    private int indexOf(long value) {
+        int group = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - subBucketBits);
+        return group == 0 ? (int) value : group * subBucketCount + (int) (value >>> group);
+    }
+
+    /** Lowest value counted in the bucket at the given index */
+    private long lowestOf(int index) {
+        if (index < 2 * subBucketCount)
+            return index;
+        int group = index / subBucketCount - 1;
+        return (long) (index - group * subBucketCount) << group;
+    }
+
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    /**
+     * Count a value. Negative values are counted as zero and values above
+     * {@link #getHighestTrackableValue()} are counted as that value.
+     */
+    public void record(long value) {
+        value = Math.max(0, Math.min(value, highestTrackableValue));
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+    }
+
+    /** Number of recorded values */
+    public long getCount() {
+        return total.sum();
+    }
+
+    /** Sum of all recorded values (after clamping) */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Number of recorded values that are less than or equal to value (within the
+     * relative error of the histogram).
+     */
+    public long getCountAtOrBelow(long value) {
+        if (value < 0)
+            return 0;
+        int last = value >= highestTrackableValue ? counts.length() - 1 : indexOf(value);
+        long count = 0;
+        for (int i = 0; i <= last; i++)
+            count += counts.get(i);
+        return count;
+    }
+
+    /**
+     * Get the (approximate) value below which the given fraction of recorded values lie.
+     *
+     * @param quantile a value in [0, 1]
+     * @return the value or 0 if the histogram is empty
+     */
+    public long getValueAtQuantile(double quantile) {
+        long total = 0;
+        int length = counts.length();
+        for (int i = 0; i < length; i++)
+            total += counts.get(i);
+        if (total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(Math.min(1, Math.max(0, quantile)) * total));
+        long seen = 0;
+        for (int i = 0; i < length; i++) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return Math.min(lowestOf(i), highestTrackableValue);
+        }
+        return highestTrackableValue;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AtomicHistogram{count=%d, p50=%d, p99=%d, max=%d}", getCount(),
+                             getValueAtQuantile(0.5), getValueAtQuantile(0.99),
+                             getValueAtQuantile(1));
+    }
+}
@@ -0,0 +1,220 @@
+package br.ufsc.lapesd.freqel.util.metrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Process-wide registry of counters, gauges and histograms that can be scraped in the
+ * Prometheus/OpenMetrics text exposition format.
+ *
+ * Instruments are identified by a metric name and a list of label name/value pairs and
+ * are created on first use. Recording into an instrument is lock-free: counters are
+ * {@link LongAdder}s and histograms are {@link AtomicHistogram}s. Components on hot paths
+ * should look up their instruments once and keep references to them.
+ */
+@ThreadSafe
+public class MetricsRegistry {
+    private static final @Nonnull MetricsRegistry DEFAULT = new MetricsRegistry();
+    private static final @Nonnull Pattern NAME_RX = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+
+    /** Histogram buckets (in seconds) for latencies, as recommended by Prometheus */
+    public static final @Nonnull double[] LATENCY_BUCKETS = {
+            0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300
+    };
+    /** Histogram buckets for sizes in bytes */
+    public static final @Nonnull double[] SIZE_BUCKETS = {
+            256, 1024, 4096, 16384, 65536, 262144, 1048576, 4194304, 16777216, 67108864,
+            268435456
+    };
+
+    private final @Nonnull Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public static @Nonnull MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    private enum Type {
+        COUNTER, GAUGE, HISTOGRAM;
+
+        @Override
+        public @Nonnull String toString() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static class Family {
+        final @Nonnull String name, help;
+        final @Nonnull Type type;
+        final double scale;
+        final @Nonnull double[] buckets;
+        final @Nonnull Map<String, Object> children = new ConcurrentSkipListMap<>();
+
+        Family(@Nonnull String name, @Nonnull String help, @Nonnull Type type, double scale,
+               @Nonnull double[] buckets) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.scale = scale;
+            this.buckets = buckets;
+        }
+    }
+
+    private @Nonnull Family family(@Nonnull String name, @Nonnull String help,
+                                   @Nonnull Type type, double scale, @Nonnull double[] buckets) {
+        Family family = families.computeIfAbsent(name, n -> {
+            if (!NAME_RX.matcher(n).matches())
+                throw new IllegalArgumentException("Invalid metric name: "+n);
+            return new Family(n, help, type, scale, buckets);
+        });
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric "+name+" already registered as a "
+                                               +family.type+", not as a "+type);
+        }
+        return family;
+    }
+
+    private static @Nonnull String labelsKey(@Nonnull String[] labels) {
+        if (labels.length % 2 != 0)
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        if (labels.length == 0)
+            return "";
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (!NAME_RX.matcher(labels[i]).matches())
+                throw new IllegalArgumentException("Invalid label name: "+labels[i]);
+            b.append(labels[i]).append("=\"");
+            String value = labels[i+1];
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if      (c == '\\') b.append("\\\\");
+                else if (c == '"' ) b.append("\\\"");
+                else if (c == '\n') b.append("\\n");
+                else                b.append(c);
+            }
+            b.append("\",");
+        }
+        b.setLength(b.length()-1);
+        return b.toString();
+    }
+
+    /**
+     * Get (or create) a monotonic counter.
+     *
+     * @param labels label names and values, interleaved: name1, value1, name2, value2...
+     */
+    public @Nonnull LongAdder counter(@Nonnull String name, @Nonnull String help,
+                                      @Nonnull String... labels) {
+        Family family = family(name, help, Type.COUNTER, 1, new double[0]);
+        return (LongAdder) family.children.computeIfAbsent(labelsKey(labels),
+                                                           k -> new LongAdder());
+    }
+
+    /**
+     * Register a gauge whose value is read from supplier at scrape time. Registering
+     * again with the same labels replaces the previous supplier.
+     */
+    public void gauge(@Nonnull String name, @Nonnull String help,
+                      @Nonnull DoubleSupplier supplier, @Nonnull String... labels) {
+        family(name, help, Type.GAUGE, 1, new double[0]).children.put(labelsKey(labels),
+                                                                      supplier);
+    }
+
+    /**
+     * Get (or create) a histogram.
+     *
+     * @param scale factor that converts recorded values into the exported unit (e.g.,
+     *              1e-6 for values recorded in microseconds and exported in seconds)
+     * @param highestTrackableValue largest value (in recorded units) that can be
+     *                              distinguished from larger values.
+     * @param buckets upper bounds (in exported units) of the exported buckets.
+     */
+    public @Nonnull AtomicHistogram histogram(@Nonnull String name, @Nonnull String help,
+                                              double scale, long highestTrackableValue,
+                                              @Nonnull double[] buckets,
+                                              @Nonnull String... labels) {
+        double[] sorted = buckets.clone();
+        Arrays.sort(sorted);
+        Family family = family(name, help, Type.HISTOGRAM, scale, sorted);
+        return (AtomicHistogram) family.children.computeIfAbsent(labelsKey(labels),
+                k -> new AtomicHistogram(highestTrackableValue));
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format (version 0.0.4), which
+     * is also accepted by OpenMetrics scrapers.
+     */
+    public void write(@Nonnull Appendable out) throws IOException {
+        for (Family family : families.values()) {
+            if (family.children.isEmpty())
+                continue;
+            out.append("# HELP ").append(family.name).append(' ')
+               .append(family.help.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ')
+               .append(family.type.toString()).append('\n');
+            for (Map.Entry<String, Object> e : family.children.entrySet()) {
+                String labels = e.getKey();
+                Object value = e.getValue();
+                if (value instanceof LongAdder) {
+                    writeSample(out, family.name, labels, ((LongAdder) value).sum());
+                } else if (value instanceof DoubleSupplier) {
+                    writeSample(out, family.name, labels,
+                                ((DoubleSupplier) value).getAsDouble());
+                } else {
+                    writeHistogram(out, family, labels, (AtomicHistogram) value);
+                }
+            }
+        }
+    }
+
+    private static void writeHistogram(@Nonnull Appendable out, @Nonnull Family family,
+                                       @Nonnull String labels,
+                                       @Nonnull AtomicHistogram histogram) throws IOException {
+        long count = histogram.getCount();
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        for (double bound : family.buckets) {
+            long recordedBound = (long) Math.floor(bound / family.scale);
+            long atOrBelow = Math.min(count, histogram.getCountAtOrBelow(recordedBound));
+            writeSample(out, family.name + "_bucket", prefix + "le=\"" + format(bound) + "\"",
+                        atOrBelow);
+        }
+        writeSample(out, family.name + "_bucket", prefix + "le=\"+Inf\"", count);
+        writeSample(out, family.name + "_sum", labels, histogram.getSum() * family.scale);
+        writeSample(out, family.name + "_count", labels, count);
+    }
+
+    private static void writeSample(@Nonnull Appendable out, @Nonnull String name,
+                                    @Nonnull String labels, double value) throws IOException {
+        out.append(name);
+        if (!labels.isEmpty())
+            out.append('{').append(labels).append('}');
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    private static @Nonnull String format(double value) {
+        if (Double.isNaN(value))
+            return "NaN";
+        if (Double.isInfinite(value))
+            return value > 0 ? "+Inf" : "-Inf";
+        if (value == Math.rint(value) && Math.abs(value) < 1e15)
+            return Long.toString((long) value);
+        return Double.toString(value);
+    }
+
+    @Override
+    public @Nonnull String toString() {
+        StringBuilder b = new StringBuilder();
+        try {
+            write(b);
+        } catch (IOException e) {
+            throw new AssertionError("StringBuilder does not throw IOException", e);
+        }
+        return b.toString();
+    }
+}
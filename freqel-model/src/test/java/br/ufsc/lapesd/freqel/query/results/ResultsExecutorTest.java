@@ -3,9 +3,12 @@ package br.ufsc.lapesd.freqel.query.results;
 import br.ufsc.lapesd.freqel.TestContext;
 import br.ufsc.lapesd.freqel.util.NamedSupplier;
 import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.query.endpoint.exceptions.QueryExecutionException;
 import br.ufsc.lapesd.freqel.query.results.impl.BufferedResultsExecutor;
 import br.ufsc.lapesd.freqel.query.results.impl.CollectionResults;
+import br.ufsc.lapesd.freqel.query.results.impl.IteratorResults;
 import br.ufsc.lapesd.freqel.query.results.impl.MapSolution;
+import br.ufsc.lapesd.freqel.query.results.impl.RingBufferResultsExecutor;
 import br.ufsc.lapesd.freqel.query.results.impl.SequentialResultsExecutor;
 import com.google.common.collect.Sets;
 import org.testng.annotations.DataProvider;
@@ -14,6 +17,7 @@ import org.testng.annotations.Test;
 import javax.annotation.Nonnull;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -25,14 +29,20 @@ import static org.testng.Assert.*;
 
 public class ResultsExecutorTest implements TestContext {
     private static final List<Class<? extends ResultsExecutor>> classes
-            = asList(BufferedResultsExecutor.class, SequentialResultsExecutor.class);
+            = asList(BufferedResultsExecutor.class, SequentialResultsExecutor.class,
+                     RingBufferResultsExecutor.class);
 
     private static final List<NamedSupplier<? extends ResultsExecutor>> suppliers =
             Arrays.asList(
                     new NamedSupplier<>("BufferedAsyncResultsExecutor+singleThread",
                             () -> new BufferedResultsExecutor(Executors.newSingleThreadExecutor(), 2)),
                     new NamedSupplier<>("BufferedAsyncResultsExecutor+singleThread",
-                            () -> new BufferedResultsExecutor(Executors.newSingleThreadExecutor(), 1))
+                            () -> new BufferedResultsExecutor(Executors.newSingleThreadExecutor(), 1)),
+                    new NamedSupplier<>("RingBufferResultsExecutor+singleThread",
+                            () -> new RingBufferResultsExecutor(
+                                    Executors.newSingleThreadExecutor(), 2)),
+                    new NamedSupplier<>("RingBufferResultsExecutor(1)",
+                            () -> new RingBufferResultsExecutor(1))
             );
 
     @DataProvider
@@ -78,7 +88,8 @@ public class ResultsExecutorTest implements TestContext {
     }
 
     private static class MockResults extends CollectionResults{
-        boolean closed = false;
+        volatile boolean closed = false;
+        volatile int fetched = 0;
         private final String name;
 
         public MockResults(@Nonnull Collection<Solution> collection,
@@ -96,6 +107,19 @@ public class ResultsExecutorTest implements TestContext {
             return closed;
         }
 
+        @Override
+        public @Nonnull Solution next() {
+            ++fetched;
+            return super.next();
+        }
+
+        @Override
+        public int nextBatch(@Nonnull Solution[] buffer, int max) {
+            int n = super.nextBatch(buffer, max);
+            fetched += n;
+            return n;
+        }
+
         @Override
         public void close() {
             closed = true;
@@ -281,4 +305,258 @@ public class ResultsExecutorTest implements TestContext {
         outer.shutdown();
         assertTrue(outer.awaitTermination(1, SECONDS));
     }
-}
\ No newline at end of file
+
+    @Test(groups = {"fast"})
+    public void testBufferedHonorsDemand() throws Exception {
+        ExecutorService service = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        service.execute(() -> {
+            try {
+                started.await(); // FeedTasks only run after setDemand()
+            } catch (InterruptedException ignored) { }
+        });
+        BufferedResultsExecutor executor = new BufferedResultsExecutor(service, 64);
+        List<MockResults> inputs = generateInput(generateInputLists(4, 100));
+        Results results = executor.async(inputs, null);
+        results.setDemand(10);
+        started.countDown();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(results.hasNext());
+            results.next();
+        }
+        Thread.sleep(100);
+        assertEquals(fetched(inputs), 10);
+
+        // going beyond the hint still yields all solutions
+        BitSet actual = new BitSet(400);
+        results.forEachRemainingThenClose(s -> store(actual, s));
+        assertEquals(actual.cardinality(), 390);
+        assertTrue(inputs.stream().allMatch(MockResults::isClosed));
+        executor.close();
+        assertTrue(executor.awaitTermination(1, SECONDS));
+    }
+
+    @DataProvider
+    public static @Nonnull Object[][] demandData() {
+        return Stream.<Function<ExecutorService, ResultsExecutor>>of(
+                s -> new BufferedResultsExecutor(s, 64),
+                s -> new RingBufferResultsExecutor(s, 64)
+        ).map(f -> new Object[]{f}).toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "demandData", groups = {"fast"}, timeOut = 10000)
+    public void testLargerDemandResumes(@Nonnull Function<ExecutorService, ResultsExecutor> fac)
+            throws Exception {
+        ExecutorService service = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        service.execute(() -> {
+            try {
+                started.await(); // FeedTasks only run after setDemand()
+            } catch (InterruptedException ignored) { }
+        });
+        ResultsExecutor executor = fac.apply(service);
+        List<MockResults> inputs = generateInput(generateInputLists(2, 100));
+        Results results = executor.async(inputs, null);
+        results.setDemand(5);
+        started.countDown();
+        BitSet actual = new BitSet(200);
+        for (int i = 0; i < 5; i++)
+            store(actual, results.next());
+        Thread.sleep(100); // tasks stop once the hint is met
+        assertEquals(fetched(inputs), 5);
+
+        // a new hint is not "going beyond the hint": tasks must be re-scheduled
+        results.setDemand(5);
+        for (int i = 0; i < 5; i++)
+            store(actual, results.next());
+        Thread.sleep(100);
+        assertEquals(fetched(inputs), 10);
+
+        results.forEachRemainingThenClose(s -> store(actual, s));
+        assertEquals(actual, expected(2, 100));
+        executor.close();
+        assertTrue(executor.awaitTermination(1, SECONDS));
+    }
+
+    @Test(dataProvider = "demandData", groups = {"fast"}, timeOut = 10000)
+    public void testZeroDemandClosesInputs(@Nonnull Function<ExecutorService, ResultsExecutor> fac)
+            throws Exception {
+        ExecutorService service = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        service.execute(() -> {
+            try {
+                started.await(); // FeedTasks only run after setDemand()
+            } catch (InterruptedException ignored) { }
+        });
+        ResultsExecutor executor = fac.apply(service);
+        List<MockResults> inputs = generateInput(generateInputLists(3, 100));
+        Results results = executor.async(inputs, null);
+        results.setDemand(5);
+        started.countDown();
+        for (int i = 0; i < 5; i++)
+            results.next();
+        assertFalse(inputs.stream().anyMatch(MockResults::isClosed));
+
+        // the consumer will not take anything else: release the inputs before close()
+        results.setDemand(0);
+        for (int i = 0; i < 500 && !inputs.stream().allMatch(MockResults::isClosed); i++)
+            Thread.sleep(10);
+        assertTrue(inputs.stream().allMatch(MockResults::isClosed));
+        assertEquals(fetched(inputs), 5);
+        assertFalse(results.hasNext());
+
+        results.close();
+        executor.close();
+        assertTrue(executor.awaitTermination(1, SECONDS));
+    }
+
+    @Test(groups = {"fast"})
+    public void testRingBufferHonorsDemand() throws Exception {
+        ExecutorService service = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        service.execute(() -> {
+            try {
+                started.await(); // FeedTasks only run after setDemand()
+            } catch (InterruptedException ignored) { }
+        });
+        RingBufferResultsExecutor executor = new RingBufferResultsExecutor(service, 64);
+        List<MockResults> inputs = generateInput(generateInputLists(4, 100));
+        Results results = executor.async(inputs, null);
+        results.setDemand(10);
+        started.countDown();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(results.hasNext());
+            results.next();
+        }
+        assertEquals(inputs.stream().mapToInt(r -> r.fetched).sum(), 10);
+
+        // going beyond the hint still yields all solutions
+        BitSet actual = new BitSet(400);
+        results.forEachRemainingThenClose(s -> store(actual, s));
+        assertEquals(actual.cardinality(), 390);
+        assertTrue(inputs.stream().allMatch(MockResults::isClosed));
+        executor.close();
+        assertTrue(executor.awaitTermination(1, SECONDS));
+    }
+
+    private static int fetched(@Nonnull List<MockResults> inputs) {
+        return inputs.stream().mapToInt(r -> r.fetched).sum();
+    }
+
+    private static void awaitFetched(@Nonnull List<MockResults> inputs,
+                                     int expected) throws InterruptedException {
+        for (int i = 0; i < 500 && fetched(inputs) < expected; i++)
+            Thread.sleep(10);
+        assertEquals(fetched(inputs), expected);
+    }
+
+    @Test(groups = {"fast"})
+    public void testRingBufferBackPressure() throws Exception {
+        RingBufferResultsExecutor executor = new RingBufferResultsExecutor(4);
+        List<MockResults> inputs = generateInput(generateInputLists(2, 100));
+        Results results = executor.async(inputs, null);
+        awaitFetched(inputs, 8); // both rings are full
+        Thread.sleep(100);
+        assertEquals(fetched(inputs), 8);
+        assertEquals(results.getReadyCount(), 8);
+
+        // draining a ring re-schedules its task, which fills it again
+        Solution[] buffer = new Solution[4];
+        assertEquals(results.nextBatch(buffer, 4), 4);
+        awaitFetched(inputs, 12);
+        Thread.sleep(100);
+        assertEquals(fetched(inputs), 12);
+
+        BitSet actual = new BitSet(200);
+        for (int i = 0; i < 4; i++)
+            store(actual, buffer[i]);
+        results.forEachRemainingThenClose(s -> store(actual, s));
+        assertEquals(actual, expected(2, 100));
+        executor.close();
+        assertTrue(executor.awaitTermination(1, SECONDS));
+    }
+
+    /**
+     * Results that, like endpoint results, greedily fill the batch and whose
+     * {@link #hasNext()} blocks until <code>release</code> is counted down for every
+     * solution after the first.
+     */
+    private static class SlowResults extends IteratorResults {
+        public SlowResults(@Nonnull List<Solution> solutions, @Nonnull CountDownLatch release) {
+            super(new Iterator<Solution>() {
+                private int next = 0;
+
+                @Override public boolean hasNext() {
+                    if (next > 0 && next < solutions.size()) {
+                        try {
+                            assertTrue(release.await(10, SECONDS));
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                    return next < solutions.size();
+                }
+
+                @Override public Solution next() {
+                    return solutions.get(next++);
+                }
+            }, singleton("x"));
+        }
+
+        @Override public int nextBatch(@Nonnull Solution[] buffer, int max) {
+            int end = Math.min(max, buffer.length), n = 0;
+            while (n < end && hasNext())
+                buffer[n++] = next();
+            return n;
+        }
+    }
+
+    @Test(groups = {"fast"}, timeOut = 10000)
+    public void testRingBufferSlowProducer() {
+        RingBufferResultsExecutor executor = new RingBufferResultsExecutor(64);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Solution> input = generateInputLists(1, 3).get(0);
+        Results results = executor.async(singletonList(new SlowResults(input, release)), null);
+        // the first solution is delivered while the input blocks for the second
+        assertTrue(results.hasNext(5000));
+        assertEquals(results.next(), input.get(0));
+        assertFalse(results.hasNext(50));
+
+        release.countDown();
+        List<Solution> actual = new ArrayList<>();
+        results.forEachRemainingThenClose(actual::add);
+        assertEquals(actual, input.subList(1, 3));
+        executor.close();
+    }
+
+    @Test(groups = {"fast"}, timeOut = 10000)
+    public void testRingBufferPropagatesFailure() {
+        RingBufferResultsExecutor executor = new RingBufferResultsExecutor(64);
+        List<Solution> input = generateInputLists(1, 2).get(0);
+        RuntimeException cause = new RuntimeException("simulated failure");
+        Results failing = new CollectionResults(input, singleton("x")) {
+            @Override public int nextBatch(@Nonnull Solution[] buffer, int max) {
+                int n = super.nextBatch(buffer, max);
+                if (n == 0)
+                    throw cause;
+                return n;
+            }
+        };
+        MockResults other = generateInput(generateInputLists(1, 0)).get(0);
+        Results results = executor.async(asList(failing, other), null);
+
+        List<Solution> actual = new ArrayList<>();
+        QueryExecutionException e = expectThrows(QueryExecutionException.class, () -> {
+            while (results.hasNext())
+                actual.add(results.next());
+        });
+        assertSame(e.getCause(), cause);
+        assertEquals(actual, input); // solutions before the failure are not lost
+        assertFalse(results.hasNext());
+        results.close();
+        assertTrue(other.isClosed());
+        executor.close();
+    }
+}
@@ -0,0 +1,122 @@
+package br.ufsc.lapesd.freqel.query.results;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.query.results.impl.ArraySolution;
+import br.ufsc.lapesd.freqel.query.results.impl.MapSolution;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class TermDictionaryTest implements TestContext {
+    @Test
+    public void testEncodeDecode() {
+        TermDictionary dictionary = new TermDictionary(4);
+        List<Term> terms = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            terms.add(integer(i));
+        terms.addAll(asList(Alice, Bob, lit("Alice"), lit("Alice", "en")));
+        Set<Integer> ids = new HashSet<>();
+        for (Term term : terms) {
+            int id = dictionary.encode(term);
+            assertTrue(id > TermDictionary.NULL_ID);
+            assertTrue(ids.add(id));
+            assertEquals(dictionary.encode(term), id);
+            assertEquals(dictionary.decode(id), term);
+        }
+        assertEquals(dictionary.size(), terms.size());
+        assertEquals(dictionary.encode(null), TermDictionary.NULL_ID);
+        assertNull(dictionary.decode(TermDictionary.NULL_ID));
+        expectThrows(IllegalArgumentException.class, () -> dictionary.decode(terms.size()+1));
+    }
+
+    @Test
+    public void testEncodeKey() {
+        TermDictionary dictionary = new TermDictionary();
+        String[] xy = {"x", "y"};
+        long aliceBob = dictionary.encodeKey(MapSolution.build(x, Alice, y, Bob), xy);
+        long bobAlice = dictionary.encodeKey(MapSolution.build(x, Bob, y, Alice), xy);
+        long aliceNull = dictionary.encodeKey(MapSolution.build(x, Alice), xy);
+        assertNotEquals(aliceBob, bobAlice);
+        assertNotEquals(aliceBob, aliceNull);
+        assertEquals(dictionary.encodeKey(MapSolution.build(y, Bob, x, Alice), xy), aliceBob);
+        assertEquals(dictionary.encodeKey(MapSolution.build(x, Alice, z, Bob), xy), aliceNull);
+    }
+
+    @Test
+    public void testInternedIds() {
+        TermDictionary dictionary = new TermDictionary(), other = new TermDictionary();
+        ArraySolution.ValueFactory xyFac = ArraySolution.forVars(asList("x", "y"));
+        ArraySolution.ValueFactory yzFac = ArraySolution.forVars(asList("y", "z"));
+        ArraySolution xy = xyFac.intern(MapSolution.build(x, Alice, y, Bob), dictionary);
+        assertSame(xy.getDictionary(), dictionary);
+        assertEquals(xy.getId(dictionary, "x"), dictionary.encode(Alice));
+        assertEquals(xy.getId(dictionary, "y"), dictionary.encode(Bob));
+        assertEquals(xy.getId(dictionary, "z"), TermDictionary.NULL_ID);
+        assertEquals(xy.getId(other, "x"), -1);
+        assertSame(xyFac.intern(xy, dictionary), xy);
+
+        // ids are kept by derived solutions only if all inputs share the dictionary
+        ArraySolution.ValueFactory xyzFac = ArraySolution.forVars(asList("x", "y", "z"));
+        ArraySolution yz = yzFac.intern(MapSolution.build(y, Bob, z, Charlie), dictionary);
+        ArraySolution xyz = xyzFac.fromSolutions(xy, yz);
+        assertSame(xyz.getDictionary(), dictionary);
+        assertEquals(xyz.getId(dictionary, "z"), dictionary.encode(Charlie));
+        ArraySolution yzOther = yzFac.intern(MapSolution.build(y, Bob, z, Charlie), other);
+        assertNull(xyzFac.fromSolutions(xy, yzOther).getDictionary());
+        assertNull(xyzFac.fromSolutions(xy, MapSolution.build(z, Charlie)).getDictionary());
+        ArraySolution projected = ArraySolution.forVars(singletonList("y")).fromSolution(xyz);
+        assertEquals(projected.getId(dictionary, "y"), dictionary.encode(Bob));
+
+        // keys from interned and non-interned solutions must match
+        String[] vars = {"x", "y"};
+        assertEquals(dictionary.encodeKey(xyz, vars),
+                     dictionary.encodeKey(MapSolution.build(x, Alice, y, Bob), vars));
+        assertEquals(other.encodeKey(xy, vars),
+                     other.encodeKey(MapSolution.build(x, Alice, y, Bob), vars));
+
+        // changing a value drops the stale ids
+        xyz.set("x", Bob);
+        assertNull(xyz.getDictionary());
+        assertEquals(dictionary.encode(xyz, "x"), dictionary.encode(Bob));
+        assertSame(xy.getDictionary(), dictionary);
+    }
+
+    @Test
+    public void testConcurrentEncode() throws Exception {
+        TermDictionary dictionary = new TermDictionary(2);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    int[] ids = new int[1000];
+                    for (int i = 0; i < ids.length; i++)
+                        ids[i] = dictionary.encode(integer(i));
+                    return ids;
+                }));
+            }
+            int[] expected = futures.get(0).get();
+            for (Future<int[]> future : futures)
+                assertEquals(future.get(), expected);
+            for (int i = 0; i < expected.length; i++)
+                assertEquals(dictionary.decode(expected[i]), integer(i));
+            assertEquals(dictionary.size(), 1000);
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+}
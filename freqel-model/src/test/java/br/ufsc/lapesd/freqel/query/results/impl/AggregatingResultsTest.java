@@ -0,0 +1,149 @@
+package br.ufsc.lapesd.freqel.query.results.impl;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.model.term.std.StdLit;
+import br.ufsc.lapesd.freqel.query.modifiers.Aggregation;
+import br.ufsc.lapesd.freqel.query.modifiers.Aggregation.Aggregate;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+
+import static br.ufsc.lapesd.freqel.query.modifiers.Aggregation.Function.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class AggregatingResultsTest implements TestContext {
+    private static final @Nonnull List<String> inVars = asList("g", "x");
+
+    private @Nonnull Results input(@Nonnull Term... values) {
+        assert values.length % 2 == 0;
+        ArraySolution.ValueFactory fac = ArraySolution.forVars(inVars);
+        List<Solution> list = new ArrayList<>();
+        for (int i = 0; i < values.length; i += 2)
+            list.add(fac.fromValues(values[i], values[i+1]));
+        return new CollectionResults(list, inVars);
+    }
+
+    private @Nonnull Term integer(long value) {
+        return StdLit.fromUnescaped(String.valueOf(value), xsdInteger);
+    }
+
+    private @Nonnull Set<Solution> drain(@Nonnull Results results) {
+        Set<Solution> set = new HashSet<>();
+        results.forEachRemainingThenClose(set::add);
+        return set;
+    }
+
+    private @Nonnull Set<Solution> expected(@Nonnull List<String> vars,
+                                            @Nonnull Term... values) {
+        ArraySolution.ValueFactory fac = ArraySolution.forVars(vars);
+        Set<Solution> set = new HashSet<>();
+        for (int i = 0; i < values.length; i += vars.size())
+            set.add(fac.fromValues(Arrays.copyOfRange(values, i, i + vars.size())));
+        return set;
+    }
+
+    @Test
+    public void testCountByGroup() {
+        Aggregation agg = Aggregation.of(singletonList("g"), Aggregate.countAll("c"));
+        Results in = input(Alice, lit(1), Alice, lit(2), Bob, lit(3), Alice, null);
+        AggregatingResults results = new AggregatingResults(in, agg);
+        assertEquals(results.getVarNames(), new HashSet<>(asList("g", "c")));
+        assertTrue(results.isDistinct());
+        assertEquals(drain(results), expected(asList("g", "c"),
+                                              Alice, integer(3), Bob, integer(1)));
+    }
+
+    @Test
+    public void testCountVarIgnoresUnbound() {
+        Aggregation agg = Aggregation.of(singletonList("g"), Aggregate.of(COUNT, "x", "c"));
+        Results in = input(Alice, lit(1), Alice, null, Bob, null);
+        assertEquals(drain(new AggregatingResults(in, agg)),
+                     expected(asList("g", "c"), Alice, integer(1), Bob, integer(0)));
+    }
+
+    @Test
+    public void testCountDistinct() {
+        Aggregate a = new Aggregate(COUNT, "x", "c", true);
+        Aggregation agg = Aggregation.of(singletonList("g"), a);
+        Results in = input(Alice, lit(1), Alice, lit(1), Alice, lit(2), Bob, lit(1));
+        assertEquals(drain(new AggregatingResults(in, agg)),
+                     expected(asList("g", "c"), Alice, integer(2), Bob, integer(1)));
+    }
+
+    @Test
+    public void testEmptyInput() {
+        Aggregation grouped = Aggregation.of(singletonList("g"), Aggregate.countAll("c"));
+        assertEquals(drain(new AggregatingResults(input(), grouped)), Collections.emptySet());
+
+        Aggregation global = Aggregation.of(emptyList(), Aggregate.countAll("c"),
+                                            Aggregate.of(MAX, "x", "m"));
+        assertEquals(drain(new AggregatingResults(input(), global)),
+                     expected(asList("c", "m"), integer(0), null));
+    }
+
+    @Test
+    public void testSumPromotesType() {
+        Aggregation agg = Aggregation.of(singletonList("g"), Aggregate.of(SUM, "x", "s"));
+        Results in = input(Alice, lit(1), Alice, lit(2), Bob, lit(1), Bob, lit(0.5));
+        assertEquals(drain(new AggregatingResults(in, agg)),
+                     expected(asList("g", "s"), Alice, integer(3), Bob, lit(1.5)));
+    }
+
+    @Test
+    public void testSumOfNonNumericIsUnbound() {
+        Aggregation agg = Aggregation.of(singletonList("g"), Aggregate.of(SUM, "x", "s"));
+        Results in = input(Alice, lit(1), Alice, lit("a"));
+        assertEquals(drain(new AggregatingResults(in, agg)),
+                     expected(asList("g", "s"), Alice, null));
+    }
+
+    @Test
+    public void testMinMaxAvg() {
+        Aggregation agg = Aggregation.of(emptyList(), Aggregate.of(MIN, "x", "min"),
+                                         Aggregate.of(MAX, "x", "max"),
+                                         Aggregate.of(AVG, "x", "avg"));
+        Results in = input(Alice, lit(4), Bob, lit(10), Charlie, lit(1));
+        assertEquals(drain(new AggregatingResults(in, agg)),
+                     expected(asList("min", "max", "avg"),
+                              lit(1), lit(10), StdLit.fromUnescaped("5", xsdDecimal)));
+    }
+
+    @Test
+    public void testCombinePartials() {
+        Aggregation agg = Aggregation.of(singletonList("g"), Aggregate.countAll("c"),
+                                         Aggregate.of(SUM, "x", "s"),
+                                         Aggregate.of(MAX, "x", "m"));
+        assertTrue(agg.isDecomposable());
+        Term[] left = {Alice, lit(1), Alice, lit(2), Bob, lit(7)};
+        Term[] right = {Alice, lit(5), Charlie, lit(3), Bob, lit(1)};
+        List<Term> all = new ArrayList<>(asList(left));
+        all.addAll(asList(right));
+
+        List<Solution> partials = new ArrayList<>();
+        new AggregatingResults(input(left), agg).forEachRemainingThenClose(partials::add);
+        new AggregatingResults(input(right), agg).forEachRemainingThenClose(partials::add);
+        List<String> vars = new ArrayList<>(agg.getResultVarNames());
+        Results combined = new AggregatingResults(new CollectionResults(partials, vars),
+                                                  agg.toCombining());
+
+        Results direct = new AggregatingResults(input(all.toArray(new Term[0])), agg);
+        Set<Solution> expected = drain(direct);
+        assertEquals(expected.size(), 3);
+        assertEquals(drain(combined), expected);
+    }
+
+    @Test
+    public void testAvgIsNotDecomposable() {
+        Aggregation agg = Aggregation.of(singletonList("g"), Aggregate.of(AVG, "x", "a"));
+        assertFalse(agg.isDecomposable());
+        expectThrows(UnsupportedOperationException.class, agg::toCombining);
+    }
+}
@@ -0,0 +1,164 @@
+package br.ufsc.lapesd.freqel.query.results.impl;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import com.google.common.collect.Sets;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class BatchResultsTest implements TestContext {
+    private static final @Nonnull Set<String> XY = Sets.newHashSet("x", "y");
+
+    private @Nonnull List<Solution> input(int size) {
+        ArraySolution.ValueFactory factory = ArraySolution.forVars(asList("x", "y"));
+        List<Solution> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            list.add(factory.fromValues(integer(i % 7), integer(i)));
+        return list;
+    }
+
+    private static @Nonnull List<Solution> drain(@Nonnull Results results) {
+        List<Solution> list = new ArrayList<>();
+        results.forEachRemainingThenClose(list::add);
+        return list;
+    }
+
+    private static @Nonnull List<Solution> drainBatches(@Nonnull Results results, int size) {
+        List<Solution> list = new ArrayList<>();
+        Solution[] buffer = new Solution[size];
+        for (int n; (n = results.nextBatch(buffer, size)) > 0; ) {
+            assertTrue(n <= size);
+            list.addAll(asList(buffer).subList(0, n));
+        }
+        results.close();
+        return list;
+    }
+
+    @DataProvider public @Nonnull Object[][] pipelineData() {
+        List<Function<Results, Results>> pipelines = asList(
+                r -> r,
+                r -> new ProjectingResults(r, singleton("x")),
+                r -> new PredicateFilterResults(r, s -> {
+                    String lex = s.get("y").asLiteral().getLexicalForm();
+                    return Integer.parseInt(lex) % 3 == 0;
+                }),
+                r -> new PredicateFilterResults(singleton("x"), r, s -> true),
+                r -> new HashDistinctResults(new ProjectingResults(r, singleton("x"))),
+                r -> new LimitResults(r, 5),
+                r -> new LimitResults(new HashDistinctResults(
+                        new ProjectingResults(new PredicateFilterResults(r, s -> {
+                            String lex = s.get("y").asLiteral().getLexicalForm();
+                            return Integer.parseInt(lex) % 2 == 0;
+                        }), singleton("x"))), 4)
+        );
+        List<Object[]> rows = new ArrayList<>();
+        for (Function<Results, Results> pipeline : pipelines) {
+            for (int inputSize : asList(0, 1, 10, 100)) {
+                for (int batchSize : asList(1, 3, 64))
+                    rows.add(new Object[]{pipeline, inputSize, batchSize});
+            }
+        }
+        return rows.toArray(new Object[0][]);
+    }
+
+    @Test(dataProvider = "pipelineData")
+    public void testSameAsRowAtATime(@Nonnull Function<Results, Results> pipeline,
+                                     int inputSize, int batchSize) {
+        List<Solution> input = input(inputSize);
+        List<Solution> expected = drain(pipeline.apply(new CollectionResults(input, XY)));
+        List<Solution> actual = drainBatches(pipeline.apply(new CollectionResults(input, XY)),
+                                             batchSize);
+        assertEquals(actual, expected);
+    }
+
+    @Test
+    public void testMixRowsAndBatches() {
+        List<Solution> input = input(20);
+        Results results = new PredicateFilterResults(new CollectionResults(input, XY),
+                                                     s -> true);
+        Solution[] buffer = new Solution[8];
+        List<Solution> actual = new ArrayList<>();
+        assertTrue(results.hasNext()); // leaves a pending solution
+        assertEquals(results.nextBatch(buffer, 8), 1);
+        actual.add(buffer[0]);
+        actual.add(results.next());
+        assertEquals(results.nextBatch(buffer, 0), 0);
+        for (int n; (n = results.nextBatch(buffer, 100)) > 0; )
+            actual.addAll(asList(buffer).subList(0, n));
+        assertEquals(actual, input);
+    }
+
+    @Test
+    public void testDefaultDoesNotBlockAfterFirstRow() {
+        List<Solution> input = input(3);
+        boolean[] mayBlock = {false};
+        Iterator<Solution> it = new Iterator<Solution>() {
+            private int next = 0;
+            @Override public boolean hasNext() {
+                // emulates a source whose hasNext() would block after the first row
+                assertTrue(next == 0 || mayBlock[0], "hasNext() would block");
+                return next < input.size();
+            }
+            @Override public Solution next() {
+                return input.get(next++);
+            }
+        };
+        Results results = new IteratorResults(it, XY);
+        assertFalse(results.isAsync());
+        Solution[] buffer = new Solution[8];
+        assertEquals(results.nextBatch(buffer, 8), 1);
+        assertEquals(buffer[0], input.get(0));
+
+        mayBlock[0] = true;
+        List<Solution> actual = new ArrayList<>(singletonList(buffer[0]));
+        for (int n; (n = results.nextBatch(buffer, 8)) > 0; ) {
+            assertEquals(n, 1);
+            actual.addAll(asList(buffer).subList(0, n));
+        }
+        assertEquals(actual, input);
+    }
+
+    @DataProvider public @Nonnull Object[][] asyncData() {
+        return new Object[][] {{true}, {false}};
+    }
+
+    @Test(dataProvider = "asyncData")
+    public void testDefaultTakesReadyRows(boolean async) {
+        List<Solution> input = input(10);
+        int[] ready = {4};
+        Results results = new IteratorResults(input.iterator(), XY) {
+            @Override public boolean isAsync() {
+                return async;
+            }
+            @Override public int getReadyCount() {
+                return ready[0];
+            }
+            @Override public @Nonnull Solution next() {
+                ready[0] = Math.max(0, ready[0] - 1);
+                return super.next();
+            }
+        };
+        Solution[] buffer = new Solution[8];
+        assertEquals(results.nextBatch(buffer, 8), 4);
+        assertEquals(asList(buffer).subList(0, 4), input.subList(0, 4));
+        assertEquals(results.nextBatch(buffer, 8), 1); // nothing ready: only the first row
+        ready[0] = 20;
+        assertEquals(results.nextBatch(buffer, 3), 3);
+        assertEquals(results.nextBatch(buffer, 8), 2);
+        assertEquals(results.nextBatch(buffer, 8), 0);
+    }
+}
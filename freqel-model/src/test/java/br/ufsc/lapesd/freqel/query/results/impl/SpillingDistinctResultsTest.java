@@ -0,0 +1,181 @@
+package br.ufsc.lapesd.freqel.query.results.impl;
+
+import br.ufsc.lapesd.freqel.ResultsAssert;
+import br.ufsc.lapesd.freqel.model.term.std.StdURI;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.TermDictionary;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class SpillingDistinctResultsTest {
+    private File dir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("freqel").toFile();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null)
+            for (File file : files) assertTrue(file.delete());
+        assertTrue(dir.delete());
+    }
+
+    private static @Nonnull StdURI ex(int local) {
+        return new StdURI("http://example.org/"+local);
+    }
+
+    @DataProvider
+    public static @Nonnull Object[][] budgetData() {
+        return new Object[][] {
+                new Object[] {64*1024*1024},
+                new Object[] {1024*1024},
+                new Object[] {4096},
+        };
+    }
+
+    @Test(dataProvider = "budgetData")
+    public void testDuplicates(int budget) {
+        CollectionResults in = new CollectionResults(asList(
+                MapSolution.builder().put("x", ex(1)).put("y", ex(2)).build(),
+                MapSolution.builder().put("x", ex(2)).put("y", ex(1)).build(),
+                MapSolution.builder().put("x", ex(1)).put("y", ex(2)).build(),
+                MapSolution.builder().put("x", ex(3)).build()),
+                newHashSet("x", "y"));
+        try (SpillingDistinctResults d = new SpillingDistinctResults(in, dir, budget)) {
+            assertEquals(d.getVarNames(), newHashSet("x", "y"));
+            assertTrue(d.isDistinct());
+            ResultsAssert.assertExpectedResults(d, asList(
+                    MapSolution.builder().put("x", ex(1)).put("y", ex(2)).build(),
+                    MapSolution.builder().put("x", ex(2)).put("y", ex(1)).build(),
+                    MapSolution.builder().put("x", ex(3)).build()));
+        }
+    }
+
+    @Test(dataProvider = "budgetData")
+    public void testLargeSequentialDuplicates(int budget) {
+        ArraySolution.ValueFactory solFac = ArraySolution.forVars(singletonList("x"));
+        List<Solution> list = new ArrayList<>(), expected = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            ArraySolution solution = solFac.fromValues(ex(i));
+            expected.add(solution);
+            list.add(solution);
+            list.add(solution);
+        }
+        CollectionResults in = new CollectionResults(list, singleton("x"));
+        try (SpillingDistinctResults d = new SpillingDistinctResults(in, dir, budget)) {
+            ResultsAssert.assertExpectedResults(d, expected);
+        }
+    }
+
+    @Test
+    public void testSpills() {
+        ArraySolution.ValueFactory solFac = ArraySolution.forVars(asList("x", "y"));
+        List<Solution> list = new ArrayList<>(), expected = new ArrayList<>();
+        Random random = new Random(2345);
+        for (int i = 0; i < 20000; i++) {
+            ArraySolution solution = solFac.fromValues(ex(i), i % 3 == 0 ? null : ex(i % 7));
+            expected.add(solution);
+            list.add(solution);
+            for (int j = 0; j < 2; j++) // duplicates of spilled and buffered solutions
+                list.add(list.get(random.nextInt(list.size())));
+        }
+        SpillingDistinctResults d = new SpillingDistinctResults(
+                new CollectionResults(list, newHashSet("x", "y")), dir, 4096);
+        List<Solution> actual = new ArrayList<>();
+        while (d.hasNext())
+            actual.add(d.next());
+        assertTrue(d.getSpilledRuns() > 0);
+        assertTrue(Objects.requireNonNull(dir.listFiles()).length > 0);
+        d.close();
+
+        assertEquals(actual, expected);
+        assertEquals(Objects.requireNonNull(dir.listFiles()).length, 0);
+    }
+
+    @Test
+    public void testSpillsThreeVars() {
+        ArraySolution.ValueFactory solFac = ArraySolution.forVars(asList("x", "y", "z"));
+        List<Solution> list = new ArrayList<>(), expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            ArraySolution solution = solFac.fromValues(ex(i), ex(i % 5), ex(i % 11));
+            expected.add(solution);
+            list.add(solution);
+            list.add(list.get(i));
+        }
+        try (SpillingDistinctResults d = new SpillingDistinctResults(
+                new CollectionResults(list, newHashSet("x", "y", "z")), dir, 4096)) {
+            List<Solution> actual = new ArrayList<>();
+            while (d.hasNext())
+                actual.add(d.next());
+            assertTrue(d.getSpilledRuns() > 0);
+            assertEquals(actual, expected);
+        }
+    }
+
+    @Test
+    public void testNoSpillWithinBudget() {
+        ArraySolution.ValueFactory solFac = ArraySolution.forVars(asList("x", "y"));
+        List<Solution> list = new ArrayList<>(), expected = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            ArraySolution solution = solFac.fromValues(ex(i), ex(i % 7));
+            expected.add(solution);
+            list.add(solution);
+            list.add(solution);
+        }
+        try (SpillingDistinctResults d = new SpillingDistinctResults(
+                new CollectionResults(list, newHashSet("x", "y")), dir, 1024*1024)) {
+            List<Solution> actual = new ArrayList<>();
+            while (d.hasNext())
+                actual.add(d.next());
+            assertEquals(actual, expected);
+            assertEquals(d.getSpilledRuns(), 0);
+            assertEquals(Objects.requireNonNull(dir.listFiles()).length, 0);
+        }
+    }
+
+    @Test
+    public void testApplyIfNotDistinct() {
+        SpillingDistinctResults.Factory factory =
+                new SpillingDistinctResults.Factory(new TermDictionary(), dir, 4096);
+        CollectionResults in = new CollectionResults(asList(
+                MapSolution.build("x", ex(1)), MapSolution.build("x", ex(1))), singleton("x"));
+        Results d = factory.applyIfNotDistinct(in);
+        assertTrue(d instanceof SpillingDistinctResults);
+        assertTrue(d.isDistinct());
+        assertSame(factory.applyIfNotDistinct(d), d);
+        ResultsAssert.assertExpectedResults(d, singletonList(MapSolution.build("x", ex(1))));
+    }
+
+    @Test
+    public void testNegativeBudgetNeverSpills() {
+        SpillingDistinctResults.Factory factory =
+                new SpillingDistinctResults.Factory(new TermDictionary(), dir, -1);
+        CollectionResults in = new CollectionResults(asList(
+                MapSolution.build("x", ex(1)), MapSolution.build("x", ex(1))), singleton("x"));
+        Results d = factory.applyIfNotDistinct(in);
+        assertTrue(d instanceof HashDistinctResults);
+        ResultsAssert.assertExpectedResults(d, singletonList(MapSolution.build("x", ex(1))));
+    }
+}
@@ -0,0 +1,143 @@
+package br.ufsc.lapesd.freqel.query.results.profile;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.inner.ConjunctionOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.QueryOp;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.ResultsExecutor;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.impl.*;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class ExecutionProfileTest implements TestContext {
+
+    private @Nonnull Results values(int count) {
+        List<Solution> list = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            list.add(MapSolution.build(x, lit(i)));
+        return new CollectionResults(list, singleton("x"));
+    }
+
+    @Test
+    public void testRecordRowsAndContext() {
+        Op left = new QueryOp(createQuery(Alice, knows, x));
+        Op right = new QueryOp(createQuery(x, knows, Bob));
+        Op plan = new ConjunctionOp(asList(left, right));
+        ExecutionProfile profile = new ExecutionProfile(plan);
+        OperatorStats rootStats = profile.statsFor(plan, profile.getRootContext());
+        assertSame(rootStats, profile.getStats(plan));
+        assertNull(OperatorStats.current());
+
+        OperatorStats leftStats = profile.statsFor(left, rootStats);
+        List<OperatorStats> seenContexts = new ArrayList<>();
+        Results leftResults = new ProfilingResults(
+                new TransformedResults(values(3), singleton("x"), s -> {
+                    seenContexts.add(OperatorStats.current());
+                    return s;
+                }), leftStats);
+        try (Results results = new ProfilingResults(leftResults, rootStats)) {
+            int count = 0;
+            while (results.hasNext()) {
+                results.next();
+                ++count;
+            }
+            assertEquals(count, 3);
+        }
+        assertNull(OperatorStats.current());
+        assertEquals(seenContexts, asList(leftStats, leftStats, leftStats));
+
+        assertEquals(rootStats.getExecutions(), 1);
+        assertEquals(rootStats.getRows(), 3);
+        assertEquals(leftStats.getRows(), 3);
+        assertEquals(profile.getStats(right).getExecutions(), 0);
+        assertTrue(rootStats.getTimeMs() >= leftStats.getTimeMs());
+    }
+
+    @Test
+    public void testExtraChildrenAggregate() {
+        Op left = new QueryOp(createQuery(Alice, knows, x));
+        Op right = new QueryOp(createQuery(x, knows, Bob));
+        Op plan = new ConjunctionOp(asList(left, right));
+        ExecutionProfile profile = new ExecutionProfile(plan);
+        OperatorStats rightStats = profile.getStats(right);
+        assertNotNull(rightStats);
+
+        for (int i = 0; i < 2; i++) {
+            Op bound = new QueryOp(createQuery(Alice, knows, Bob)); // not in the plan
+            OperatorStats stats = profile.statsFor(bound, rightStats);
+            assertNotSame(stats, rightStats);
+            try (Results results = new ProfilingResults(values(2), stats)) {
+                Solution[] batch = new Solution[8];
+                assertEquals(results.nextBatch(batch, batch.length), 2);
+            }
+        }
+        List<OperatorStats> extra = rightStats.getExtraChildren();
+        assertEquals(extra.size(), 1);
+        assertEquals(extra.get(0).getExecutions(), 2);
+        assertEquals(extra.get(0).getRows(), 4);
+
+        String explain = profile.explain();
+        assertTrue(explain.contains(plan.getName()), explain);
+        assertTrue(explain.contains(right.getName()), explain);
+        assertTrue(explain.contains("+ QueryOp  {rows: 4, rows in: 0, execs: 2"), explain);
+    }
+
+    @DataProvider
+    public static @Nonnull Object[][] executorData() {
+        return new Object[][] {
+                {(Supplier<ResultsExecutor>)() -> new BufferedResultsExecutor(4)},
+                {(Supplier<ResultsExecutor>)() -> new RingBufferResultsExecutor(4)},
+        };
+    }
+
+    @Test(dataProvider = "executorData", timeOut = 10000)
+    public void testRecordBlockedOnSlowProducer(@Nonnull Supplier<ResultsExecutor> supplier) {
+        Op node = new QueryOp(createQuery(Alice, knows, x));
+        ExecutionProfile profile = new ExecutionProfile(node);
+        OperatorStats stats = profile.statsFor(node, profile.getRootContext());
+        Results slow = new TransformedResults(values(3), singleton("x"), s -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return s;
+        });
+        try (ResultsExecutor executor = supplier.get();
+             Results results = new ProfilingResults(executor.async(slow), stats)) {
+            int count = 0;
+            for (; results.hasNext(); results.next())
+                ++count;
+            assertEquals(count, 3);
+        }
+        assertEquals(stats.getRows(), 3);
+        // the consumer waited for (at least) most of the 150ms spent producing solutions
+        assertTrue(stats.getBlockedMs() >= 100, "blocked="+stats.getBlockedMs());
+        assertTrue(stats.getBlockedMs() <= stats.getTimeMs());
+    }
+
+    @Test
+    public void testNoBlockedTimeForSynchronousInput() {
+        Op node = new QueryOp(createQuery(Alice, knows, x));
+        ExecutionProfile profile = new ExecutionProfile(node);
+        OperatorStats stats = profile.statsFor(node, profile.getRootContext());
+        try (Results results = new ProfilingResults(values(3), stats)) {
+            results.forEachRemaining(s -> {});
+        }
+        assertEquals(stats.getRows(), 3);
+        assertEquals(stats.getBlockedMs(), 0.0);
+    }
+}
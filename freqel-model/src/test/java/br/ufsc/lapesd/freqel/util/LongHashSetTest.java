@@ -0,0 +1,44 @@
+package br.ufsc.lapesd.freqel.util;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class LongHashSetTest {
+    @DataProvider
+    public static Object[][] sizeData() {
+        return Stream.of(0, 1, 2, 15, 16, 17, 100, 1000, 10000)
+                .map(i -> new Object[] {i}).toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "sizeData")
+    public void testSameAsHashSet(int size) {
+        Random random = new Random(79);
+        Set<Long> expected = new HashSet<>();
+        LongHashSet actual = new LongHashSet(4);
+        for (int i = 0; i < size; i++) {
+            long value = random.nextInt(4) == 0 ? random.nextInt(size/2 + 1)
+                                                : ((long) random.nextInt(8) << 32) | i;
+            assertEquals(actual.add(value), expected.add(value), "value="+value);
+            assertTrue(actual.contains(value));
+            assertEquals(actual.size(), expected.size());
+        }
+        for (Long value : expected)
+            assertTrue(actual.contains(value));
+        assertEquals(actual.contains(-1), expected.contains(-1L));
+
+        actual.clear();
+        assertTrue(actual.isEmpty());
+        assertFalse(actual.contains(0));
+        assertTrue(actual.add(0));
+        assertFalse(actual.add(0));
+        assertEquals(actual.size(), 1);
+    }
+}
@@ -0,0 +1,89 @@
+package br.ufsc.lapesd.freqel.util;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class VirtualThreadsTest {
+    private boolean wasEnabled;
+
+    @BeforeMethod(groups = {"fast"})
+    public void setUp() {
+        wasEnabled = VirtualThreads.isEnabled();
+    }
+
+    @AfterMethod(groups = {"fast"})
+    public void tearDown() {
+        VirtualThreads.setEnabled(wasEnabled);
+    }
+
+    private static boolean isVirtual(Thread thread) throws Exception {
+        return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+
+    @Test
+    public void testEnabledOnlyIfSupported() {
+        VirtualThreads.setEnabled(true);
+        assertEquals(VirtualThreads.isEnabled(), VirtualThreads.isSupported());
+        VirtualThreads.setEnabled(false);
+        assertFalse(VirtualThreads.isEnabled());
+        assertNull(VirtualThreads.factory("test"));
+    }
+
+    @Test
+    public void testExecutor() throws Exception {
+        for (boolean enable : new boolean[]{false, true}) {
+            VirtualThreads.setEnabled(enable);
+            ExecutorService executor = VirtualThreads.newExecutor("test",
+                                                                  Executors::newCachedThreadPool);
+            try {
+                Thread thread = executor.submit(Thread::currentThread).get();
+                assertNotSame(thread, Thread.currentThread());
+                if (VirtualThreads.isSupported())
+                    assertEquals(isVirtual(thread), enable);
+            } finally {
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    public void testExplicitExecutorIgnoresSetting() throws Exception {
+        for (boolean enable : new boolean[]{false, true}) {
+            VirtualThreads.setEnabled(!enable);
+            ExecutorService executor = VirtualThreads.newExecutor("test", enable,
+                                                                  Executors::newCachedThreadPool);
+            try {
+                Thread thread = executor.submit(Thread::currentThread).get();
+                assertNotSame(thread, Thread.currentThread());
+                if (VirtualThreads.isSupported())
+                    assertEquals(isVirtual(thread), enable);
+            } finally {
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    public void testFactoryNames() {
+        VirtualThreads.setEnabled(true);
+        ThreadFactory factory = VirtualThreads.factory("test");
+        if (!VirtualThreads.isSupported()) {
+            assertNull(factory);
+        } else {
+            assertNotNull(factory);
+            assertEquals(factory.newThread(() -> {}).getName(), "test-0");
+            assertEquals(factory.newThread(() -> {}).getName(), "test-1");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package br.ufsc.lapesd.freqel.util.metrics;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class MetricsRegistryTest {
+
+    @DataProvider public static Object[][] quantileData() {
+        return new Object[][] {
+                new Object[] {0.0},
+                new Object[] {0.5},
+                new Object[] {0.9},
+                new Object[] {0.99},
+                new Object[] {1.0},
+        };
+    }
+
+    @Test(dataProvider = "quantileData")
+    public void testQuantileError(double quantile) {
+        AtomicHistogram histogram = new AtomicHistogram(10_000_000);
+        for (int i = 1; i <= 100_000; i++)
+            histogram.record(i);
+        long expected = Math.max(1, (long) Math.ceil(quantile * 100_000));
+        long actual = histogram.getValueAtQuantile(quantile);
+        assertTrue(Math.abs(actual - expected) <= expected / 32.0 + 1,
+                   "expected=" + expected + ", actual=" + actual);
+        assertEquals(histogram.getCount(), 100_000);
+        assertEquals(histogram.getSum(), 100_000L * 100_001 / 2);
+    }
+
+    @Test
+    public void testCountAtOrBelowAndClamping() {
+        AtomicHistogram histogram = new AtomicHistogram(1000);
+        for (long v : asList(-5L, 0L, 3L, 31L, 64L, 999L, 5000L))
+            histogram.record(v);
+        assertEquals(histogram.getCountAtOrBelow(-1), 0);
+        assertEquals(histogram.getCountAtOrBelow(0), 2);
+        assertEquals(histogram.getCountAtOrBelow(31), 4);
+        assertEquals(histogram.getCountAtOrBelow(64), 5);
+        assertEquals(histogram.getCountAtOrBelow(1000), 7);
+        assertEquals(histogram.getValueAtQuantile(1), 1000 - 1000 % 16, 16.0);
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        AtomicHistogram histogram = new AtomicHistogram(1 << 20);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++)
+                        histogram.record(i);
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(histogram.getCount(), 40_000);
+        assertEquals(histogram.getCountAtOrBelow(1 << 20), 40_000);
+    }
+
+    @Test
+    public void testExposition() {
+        MetricsRegistry registry = new MetricsRegistry();
+        LongAdder counter = registry.counter("test_requests_total", "Requests",
+                                             "endpoint", "http://example.org/\"q\"");
+        assertSame(registry.counter("test_requests_total", "Requests",
+                                    "endpoint", "http://example.org/\"q\""), counter);
+        counter.add(3);
+        registry.gauge("test_depth", "Depth", () -> 7);
+        AtomicHistogram latency = registry.histogram("test_seconds", "Latency", 1e-3, 60_000,
+                                                     new double[]{0.01, 1});
+        latency.record(5);
+        latency.record(500);
+        latency.record(2000);
+
+        String text = registry.toString();
+        assertTrue(text.contains("# TYPE test_requests_total counter\n"), text);
+        String labels = "{endpoint=\"http://example.org/\\\"q\\\"\"}";
+        assertTrue(text.contains("test_requests_total" + labels + " 3\n"), text);
+        assertTrue(text.contains("# TYPE test_depth gauge\ntest_depth 7\n"), text);
+        assertTrue(text.contains("# TYPE test_seconds histogram\n"), text);
+        assertTrue(text.contains("test_seconds_bucket{le=\"0.01\"} 1\n"), text);
+        assertTrue(text.contains("test_seconds_bucket{le=\"1\"} 2\n"), text);
+        assertTrue(text.contains("test_seconds_bucket{le=\"+Inf\"} 3\n"), text);
+        assertTrue(text.contains("test_seconds_count 3\n"), text);
+        assertTrue(text.contains("test_seconds_sum 2.505\n"), text);
+    }
+
+    @Test
+    public void testRejectTypeConflict() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_total", "Test");
+        expectThrows(IllegalArgumentException.class,
+                     () -> registry.gauge("test_total", "Test", () -> 1));
+        expectThrows(IllegalArgumentException.class,
+                     () -> registry.counter("test_total", "Test", "odd"));
+    }
+}
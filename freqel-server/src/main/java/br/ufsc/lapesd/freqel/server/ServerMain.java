@@ -3,6 +3,7 @@ package br.ufsc.lapesd.freqel.server;
 import br.ufsc.lapesd.freqel.federation.Federation;
 import br.ufsc.lapesd.freqel.federation.spec.FederationSpecException;
 import br.ufsc.lapesd.freqel.federation.spec.FederationSpecLoader;
+import br.ufsc.lapesd.freqel.server.endpoints.Metrics;
 import br.ufsc.lapesd.freqel.server.endpoints.Qonfig;
 import br.ufsc.lapesd.freqel.server.endpoints.SPARQLEndpoint;
 import br.ufsc.lapesd.freqel.server.endpoints.UIFiles;
@@ -61,6 +62,7 @@ public class ServerMain {
                 .property(Federation.class.getName(), federation)
                 .register(SPARQLEndpoint.class)
                 .register(Qonfig.class)
+                .register(Metrics.class)
                 .register(UIFiles.class);
     }
 
@@ -72,6 +74,8 @@ public class ServerMain {
 
         System.out.printf("SPARQL endpoint listening on http://%s:%d/sparql/query " +
                           "via GET and POST (form and plain)\n", listenAddress, port);
+        System.out.printf("Metrics for Prometheus scrapers at http://%s:%d/metrics\n",
+                          listenAddress, port);
         System.out.printf("Query interface listening on http://%s:%d/ui/index.html",
                           listenAddress, port);
         Thread.currentThread().join();
@@ -0,0 +1,21 @@
+package br.ufsc.lapesd.freqel.server.endpoints;
+
+import br.ufsc.lapesd.freqel.util.metrics.MetricsRegistry;
+
+import javax.annotation.Nonnull;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+/**
+ * Exposes {@link MetricsRegistry#getDefault()} to Prometheus/OpenMetrics scrapers.
+ */
+@Path("metrics")
+public class Metrics {
+
+    @GET
+    @Produces("text/plain; version=0.0.4; charset=utf-8")
+    public @Nonnull String get() {
+        return MetricsRegistry.getDefault().toString();
+    }
+}
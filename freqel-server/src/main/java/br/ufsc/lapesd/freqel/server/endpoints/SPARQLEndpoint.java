@@ -39,11 +39,23 @@ public class SPARQLEndpoint {
         return (Federation)obj;
     }
 
-    private @Nonnull Response handleQuery(@Nullable String query,
+    private @Nonnull Response handleQuery(@Nullable String query, @Nullable String explain,
                                           @Nullable HttpHeaders headers, UriInfo uriInfo) {
         query = query == null ? "" : query;
+        /* explain=analyze executes the query and returns the plan annotated with
+         * per-operator execution statistics instead of the results */
+        boolean explainAnalyze = explain != null && !explain.isEmpty();
+        if (explainAnalyze && !explain.equalsIgnoreCase("analyze")) {
+            return Response.status(400, "Unsupported explain").type(TEXT_PLAIN_TYPE)
+                    .entity("Unsupported explain="+explain+", only explain=analyze is " +
+                            "supported\n").build();
+        }
         try {
             Op parsed = SPARQLParser.tolerant().parse(query);
+            if (explainAnalyze) {
+                String text = getFederation().explainAnalyze(parsed).explain();
+                return Response.ok(text, TEXT_PLAIN_TYPE).build();
+            }
             Results results = getFederation().query(parsed);
             return ResultsFormatterDispatcher.getDefault()
                     .format(results, parsed.modifiers().ask() != null, headers, uriInfo)
@@ -73,10 +85,11 @@ public class SPARQLEndpoint {
 
     @GET
     @Path("query")
-    public @Nonnull Response queryGet(@QueryParam("query") String query, @Context UriInfo uriInfo,
-                                      @Context HttpHeaders headers) {
+    public @Nonnull Response queryGet(@QueryParam("query") String query,
+                                      @QueryParam("explain") String explain,
+                                      @Context UriInfo uriInfo, @Context HttpHeaders headers) {
         try {
-            return handleQuery(query, headers, uriInfo);
+            return handleQuery(query, explain, headers, uriInfo);
         } catch (Exception e) {
             logger.warn("Exception thrown while processing GET {}", uriInfo.getRequestUri(), e);
             throw e;
@@ -86,10 +99,11 @@ public class SPARQLEndpoint {
     @POST
     @Consumes("application/x-www-form-urlencoded")
     @Path("query")
-    public @Nonnull Response queryForm(@FormParam("query") String query, @Context UriInfo uriInfo,
-                                       @Context HttpHeaders headers) {
+    public @Nonnull Response queryForm(@FormParam("query") String query,
+                                       @FormParam("explain") String explain,
+                                       @Context UriInfo uriInfo, @Context HttpHeaders headers) {
         try {
-            return handleQuery(query, headers, uriInfo);
+            return handleQuery(query, explain, headers, uriInfo);
         } catch (Exception e) {
             logger.warn("Exception thrown while processing POST " +
                         "application/x-www-form-urlencoded {}", uriInfo.getRequestUri(), e);
@@ -100,10 +114,10 @@ public class SPARQLEndpoint {
     @POST
     @Consumes("application/sparql-query")
     @Path("query")
-    public @Nonnull Response queryPost(String query, @Context UriInfo uriInfo,
-                                       @Context HttpHeaders headers) {
+    public @Nonnull Response queryPost(String query, @QueryParam("explain") String explain,
+                                       @Context UriInfo uriInfo, @Context HttpHeaders headers) {
         try {
-            return handleQuery(query, headers, uriInfo);
+            return handleQuery(query, explain, headers, uriInfo);
         } catch (Exception e) {
             logger.warn("Exception thrown while processing POST application/sparql-query {}",
                     uriInfo.getRequestUri(), e);
@@ -0,0 +1,86 @@
+package br.ufsc.lapesd.freqel.server.endpoints;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.federation.Federation;
+import br.ufsc.lapesd.freqel.federation.Freqel;
+import br.ufsc.lapesd.freqel.jena.query.ARQEndpoint;
+import br.ufsc.lapesd.freqel.server.utils.PercentEncoder;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.JerseyTestNg;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.testng.Assert.*;
+
+public class MetricsTest extends JerseyTestNg.ContainerPerClassTest implements TestContext {
+    private static final Pattern QUERIES_RX =
+            Pattern.compile("(?m)^freqel_queries_total (\\d+)$");
+    private Federation federation;
+
+    @Override
+    protected Application configure() {
+        Model model = ModelFactory.createDefaultModel();
+        RDFDataMgr.read(model, open("rdf-1.nt"), Lang.NT);
+        federation = Freqel.createFederation();
+        federation.addSource(ARQEndpoint.forModel(model, "rdf-1.nt"));
+        return new ResourceConfig()
+                .property(Federation.class.getName(), federation)
+                .register(SPARQLEndpoint.class)
+                .register(Metrics.class);
+    }
+
+    @AfterClass
+    @Override
+    public void tearDown() throws Exception {
+        super.tearDown();
+        if (federation != null)
+            federation.close();
+    }
+
+    private @Nonnull String scrape() {
+        Response response = target("metrics").request().get();
+        assertEquals(response.getStatus(), 200);
+        MediaType type = response.getMediaType();
+        assertTrue(type.isCompatible(MediaType.TEXT_PLAIN_TYPE), type.toString());
+        assertEquals(type.getParameters().get("version"), "0.0.4");
+        return response.readEntity(String.class);
+    }
+
+    private static long queries(@Nonnull String text) {
+        Matcher matcher = QUERIES_RX.matcher(text);
+        assertTrue(matcher.find(), text);
+        return Long.parseLong(matcher.group(1));
+    }
+
+    @Test
+    public void testScrapeCountsQueries() {
+        String query = "SELECT * WHERE { <" + Alice.getURI() + "> <" + knows.getURI()
+                     + "> ?x }";
+        String json = target("sparql/query").queryParam("query", PercentEncoder.encode(query))
+                .request(MediaType.APPLICATION_JSON_TYPE).get(String.class);
+        assertTrue(json.contains(Bob.getURI()), json);
+
+        String before = scrape();
+        assertTrue(before.contains("# TYPE freqel_queries_total counter\n"), before);
+        assertTrue(before.contains("# TYPE freqel_query_duration_seconds histogram\n"), before);
+        assertTrue(before.contains("freqel_query_duration_seconds_bucket{le=\"+Inf\"} "),
+                   before);
+        long queries = queries(before);
+        assertTrue(queries >= 1);
+
+        target("sparql/query").queryParam("query", PercentEncoder.encode(query))
+                .request(MediaType.APPLICATION_JSON_TYPE).get(String.class);
+        assertEquals(queries(scrape()), queries + 1);
+    }
+}
@@ -24,8 +24,11 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import javax.annotation.Nonnull;
+import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.Application;
+import javax.ws.rs.core.Form;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
@@ -150,4 +153,44 @@ public class SPARQLEndpointTest extends JerseyTestNg.ContainerPerClassTest imple
 
         assertEquals(solutions, results1TSV);
     }
-}
\ No newline at end of file
+
+    private void checkExplainAnalyze(@Nonnull Response response) {
+        assertEquals(response.getStatus(), 200);
+        assertTrue(response.getMediaType().isCompatible(MediaType.TEXT_PLAIN_TYPE));
+        String text = response.readEntity(String.class);
+        assertTrue(text.contains("{rows: 2, "), text);
+        assertTrue(text.contains("blocked: "), text);
+        assertFalse(text.contains(Alice.getURI()), text); // solutions are not sent
+    }
+
+    @Test
+    public void testExplainAnalyzeGet() {
+        checkExplainAnalyze(target("sparql/query")
+                .queryParam("query", PercentEncoder.encode(query1))
+                .queryParam("explain", "analyze")
+                .request(MediaType.APPLICATION_JSON_TYPE).get());
+    }
+
+    @Test
+    public void testExplainAnalyzeForm() {
+        Form form = new Form().param("query", query1).param("explain", "analyze");
+        checkExplainAnalyze(target("sparql/query").request()
+                .post(Entity.entity(form, MediaType.APPLICATION_FORM_URLENCODED_TYPE)));
+    }
+
+    @Test
+    public void testExplainAnalyzeSPARQLQuery() {
+        checkExplainAnalyze(target("sparql/query").queryParam("explain", "analyze").request()
+                .post(Entity.entity(query1, "application/sparql-query")));
+    }
+
+    @Test
+    public void testUnsupportedExplain() {
+        Response response = target("sparql/query")
+                .queryParam("query", PercentEncoder.encode(query1))
+                .queryParam("explain", "plan")
+                .request(MediaType.APPLICATION_JSON_TYPE).get();
+        assertEquals(response.getStatus(), 400);
+        assertTrue(response.readEntity(String.class).contains("explain=plan"));
+    }
+}
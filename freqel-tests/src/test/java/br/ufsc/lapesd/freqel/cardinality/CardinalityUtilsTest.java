@@ -0,0 +1,118 @@
+package br.ufsc.lapesd.freqel.cardinality;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.jena.query.modifiers.filter.JenaSPARQLFilter;
+import br.ufsc.lapesd.freqel.model.term.std.StdBlank;
+import br.ufsc.lapesd.freqel.query.modifiers.Distinct;
+import br.ufsc.lapesd.freqel.query.modifiers.Limit;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static br.ufsc.lapesd.freqel.cardinality.CardinalityUtils.*;
+import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class CardinalityUtilsTest implements TestContext {
+
+    @Test
+    public void testRenamedVarsHaveSameShape() {
+        assertEquals(canonicalShape(createQuery(x, knows, y)),
+                     canonicalShape(createQuery(u, knows, v)));
+        assertEquals(canonicalShape(createQuery(x, knows, y, y, age, z)),
+                     canonicalShape(createQuery(s, knows, o, o, age, v)));
+    }
+
+    @Test
+    public void testTripleOrderDoesNotMatter() {
+        assertEquals(canonicalShape(createQuery(x, knows, y, y, age, z)),
+                     canonicalShape(createQuery(y, age, z, x, knows, y)));
+        assertEquals(canonicalShape(createQuery(x, knows, y, y, age, z)),
+                     canonicalShape(createQuery(v, age, w, u, knows, v)));
+    }
+
+    @Test
+    public void testJoinStructureMatters() {
+        assertNotEquals(canonicalShape(createQuery(x, knows, y, y, age, z)),
+                        canonicalShape(createQuery(x, knows, y, x, age, z)));
+        assertNotEquals(canonicalShape(createQuery(x, knows, y)),
+                        canonicalShape(createQuery(x, knows, x)));
+    }
+
+    @Test
+    public void testGroundTermsMatter() {
+        assertNotEquals(canonicalShape(createQuery(x, knows, y)),
+                        canonicalShape(createQuery(x, knows, Bob)));
+        assertNotEquals(canonicalShape(createQuery(x, knows, Bob)),
+                        canonicalShape(createQuery(x, knows, Alice)));
+        assertNotEquals(canonicalShape(createQuery(x, knows, y)),
+                        canonicalShape(createQuery(x, age, y)));
+    }
+
+    @Test
+    public void testBlankNodesAreVariables() {
+        assertEquals(canonicalShape(createQuery(x, knows, new StdBlank())),
+                     canonicalShape(createQuery(x, knows, y)));
+    }
+
+    @Test
+    public void testFiltersAreRenamed() {
+        String a = canonicalShape(createQuery(x, age, y, JenaSPARQLFilter.build("?y > 23")));
+        String b = canonicalShape(createQuery(u, age, v, JenaSPARQLFilter.build("?v > 23")));
+        assertEquals(a, b);
+        assertTrue(a.contains("FILTER"), a);
+        assertFalse(a.contains("?y"), a);
+
+        String c = canonicalShape(createQuery(x, age, y, JenaSPARQLFilter.build("?y > 30")));
+        assertNotEquals(a, c);
+        assertNotEquals(a, canonicalShape(createQuery(x, age, y)));
+    }
+
+    @Test
+    public void testModifierOrderDoesNotMatter() {
+        assertEquals(canonicalShape(createQuery(x, knows, y, Distinct.INSTANCE, Limit.of(10))),
+                     canonicalShape(createQuery(u, knows, v, Limit.of(10), Distinct.INSTANCE)));
+        assertNotEquals(canonicalShape(createQuery(x, knows, y, Limit.of(10))),
+                        canonicalShape(createQuery(x, knows, y, Limit.of(20))));
+    }
+
+    @DataProvider
+    public static Object[][] escapeData() {
+        return new Object[][] {
+                new Object[] {""},
+                new Object[] {"plain"},
+                new Object[] {"a\nb"},
+                new Object[] {"a\r\nb"},
+                new Object[] {"back\\slash"},
+                new Object[] {"\\n is not a line break"},
+                new Object[] {"trailing\\"},
+        };
+    }
+
+    @Test(dataProvider = "escapeData")
+    public void testEscapeLineBreaks(String string) {
+        String escaped = escapeLineBreaks(string);
+        assertFalse(escaped.contains("\n"));
+        assertFalse(escaped.contains("\r"));
+        assertEquals(unescapeLineBreaks(escaped), string);
+    }
+
+    @DataProvider
+    public static Object[][] parseableData() {
+        return new Object[][] {
+                new Object[] {Cardinality.UNSUPPORTED},
+                new Object[] {Cardinality.EMPTY},
+                new Object[] {Cardinality.NON_EMPTY},
+                new Object[] {Cardinality.exact(23)},
+                new Object[] {Cardinality.lowerBound(100)},
+                new Object[] {Cardinality.upperBound(7)},
+                new Object[] {Cardinality.guess(1000)},
+        };
+    }
+
+    @Test(dataProvider = "parseableData")
+    public void testToParseable(Cardinality cardinality) {
+        assertEquals(Cardinality.parse(toParseable(cardinality)), cardinality);
+    }
+}
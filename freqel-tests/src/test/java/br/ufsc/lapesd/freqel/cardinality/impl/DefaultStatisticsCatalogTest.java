@@ -0,0 +1,188 @@
+package br.ufsc.lapesd.freqel.cardinality.impl;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.algebra.leaf.EndpointQueryOp;
+import br.ufsc.lapesd.freqel.query.endpoint.impl.EmptyEndpoint;
+import br.ufsc.lapesd.freqel.query.endpoint.impl.SPARQLClient;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+
+import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class DefaultStatisticsCatalogTest implements TestContext {
+    private static final SPARQLClient ep = new SPARQLClient("http://example.org/sparql");
+    private static final SPARQLClient ep2 = new SPARQLClient("http://example.org/other");
+
+    private static class ClockCatalog extends DefaultStatisticsCatalog {
+        long now = 1000000;
+
+        public ClockCatalog(int ttlSeconds) {
+            super(null, DEF_MAX_ENTRIES, ttlSeconds);
+        }
+
+        @Override protected long now() {
+            return now;
+        }
+    }
+
+    @Test
+    public void testHeuristicUsesObservations() {
+        DefaultStatisticsCatalog catalog = new DefaultStatisticsCatalog();
+        ObservedCardinalityHeuristic heuristic = new ObservedCardinalityHeuristic(catalog);
+        assertEquals(heuristic.estimate(createQuery(x, knows, y), ep), Cardinality.UNSUPPORTED);
+
+        catalog.recordQuery(ep, createQuery(x, knows, y), 23, true);
+        assertEquals(heuristic.estimate(createQuery(u, knows, v), ep), Cardinality.exact(23));
+        assertEquals(heuristic.estimate(createQuery(u, knows, v), ep2), Cardinality.UNSUPPORTED);
+        assertEquals(heuristic.estimate(createQuery(u, knows, v), null), Cardinality.UNSUPPORTED);
+
+        catalog.recordQuery(ep, createQuery(x, age, y), 100, false);
+        assertEquals(heuristic.estimate(createQuery(x, age, y), ep), Cardinality.lowerBound(100));
+    }
+
+    @Test
+    public void testLowerBoundKeepsConsistentExact() {
+        DefaultStatisticsCatalog catalog = new DefaultStatisticsCatalog();
+        catalog.recordQuery(ep, createQuery(x, knows, y), 23, true);
+        catalog.recordQuery(ep, createQuery(x, knows, y), 10, false);
+        assertEquals(catalog.getQueryCardinality(ep, createQuery(x, knows, y)),
+                     Cardinality.exact(23));
+        catalog.recordQuery(ep, createQuery(x, knows, y), 30, false);
+        assertEquals(catalog.getQueryCardinality(ep, createQuery(x, knows, y)),
+                     Cardinality.lowerBound(30));
+        catalog.recordQuery(ep, createQuery(x, knows, y), 5, true);
+        assertEquals(catalog.getQueryCardinality(ep, createQuery(x, knows, y)),
+                     Cardinality.exact(5));
+    }
+
+    @Test
+    public void testIgnoreLocalEndpoints() {
+        DefaultStatisticsCatalog catalog = new DefaultStatisticsCatalog();
+        EmptyEndpoint local = new EmptyEndpoint();
+        EndpointQueryOp op = new EndpointQueryOp(local, createQuery(x, knows, y));
+        assertFalse(catalog.canRecord(op));
+        assertTrue(catalog.canRecord(new EndpointQueryOp(ep, createQuery(x, knows, y))));
+        catalog.recordQuery(local, createQuery(x, knows, y), 23, true);
+        assertEquals(catalog.size(), 0);
+    }
+
+    @Test
+    public void testJoin() {
+        DefaultStatisticsCatalog catalog = new DefaultStatisticsCatalog();
+        EndpointQueryOp l = new EndpointQueryOp(ep, createQuery(x, knows, y));
+        EndpointQueryOp r = new EndpointQueryOp(ep2, createQuery(y, age, z));
+        assertNull(catalog.getJoinCardinality(l, r));
+        catalog.recordJoin(l, r, 7, true);
+        assertEquals(catalog.getJoinCardinality(l, r), Cardinality.exact(7));
+        assertEquals(catalog.getJoinCardinality(r, l), Cardinality.exact(7));
+
+        EndpointQueryOp r2 = new EndpointQueryOp(ep2, createQuery(x, age, z));
+        assertNull(catalog.getJoinCardinality(l, r2));
+    }
+
+    @Test
+    public void testExportImport() throws IOException {
+        DefaultStatisticsCatalog catalog = new DefaultStatisticsCatalog();
+        EndpointQueryOp l = new EndpointQueryOp(ep, createQuery(x, knows, y));
+        EndpointQueryOp r = new EndpointQueryOp(ep2, createQuery(y, age, z));
+        catalog.recordQuery(ep, createQuery(x, knows, y), 23, true);
+        catalog.recordQuery(ep2, createQuery(x, name, lit("a\nb")), 4, false);
+        catalog.recordJoin(l, r, 7, true);
+        StringWriter writer = new StringWriter();
+        catalog.write(writer);
+
+        DefaultStatisticsCatalog other = new DefaultStatisticsCatalog();
+        assertEquals(other.read(new StringReader(writer.toString())), 3);
+        assertEquals(other.getQueryCardinality(ep, createQuery(x, knows, y)),
+                     Cardinality.exact(23));
+        assertEquals(other.getQueryCardinality(ep2, createQuery(x, name, lit("a\nb"))),
+                     Cardinality.lowerBound(4));
+        assertEquals(other.getJoinCardinality(l, r), Cardinality.exact(7));
+    }
+
+    @Test
+    public void testOldObservationsAreGuesses() {
+        ClockCatalog catalog = new ClockCatalog(60);
+        EndpointQueryOp l = new EndpointQueryOp(ep, createQuery(x, knows, y));
+        EndpointQueryOp r = new EndpointQueryOp(ep2, createQuery(y, age, z));
+        catalog.recordQuery(ep, createQuery(x, knows, y), 23, true);
+        catalog.recordQuery(ep, createQuery(x, age, y), 10, false);
+        catalog.recordJoin(l, r, 7, true);
+        catalog.now += 59*1000;
+        assertEquals(catalog.getQueryCardinality(ep, createQuery(x, knows, y)),
+                     Cardinality.exact(23));
+        assertEquals(catalog.getQueryCardinality(ep, createQuery(x, age, y)),
+                     Cardinality.lowerBound(10));
+        assertEquals(catalog.getJoinCardinality(l, r), Cardinality.exact(7));
+
+        catalog.now += 2*1000;
+        assertEquals(catalog.getQueryCardinality(ep, createQuery(x, knows, y)),
+                     Cardinality.guess(23));
+        assertEquals(catalog.getQueryCardinality(ep, createQuery(x, age, y)),
+                     Cardinality.guess(10));
+        assertEquals(catalog.getJoinCardinality(l, r), Cardinality.guess(7));
+        assertEquals(catalog.size(), 3);
+    }
+
+    @Test
+    public void testLowerBoundReplacesOldExact() {
+        ClockCatalog catalog = new ClockCatalog(60);
+        catalog.recordQuery(ep, createQuery(x, knows, y), 23, true);
+        catalog.now += 30*1000;
+        catalog.recordQuery(ep, createQuery(x, knows, y), 10, false);
+        assertEquals(catalog.getQueryCardinality(ep, createQuery(x, knows, y)),
+                     Cardinality.exact(23)); // still consistent with the exact value
+
+        catalog.now += 61*1000;
+        assertEquals(catalog.getQueryCardinality(ep, createQuery(x, knows, y)),
+                     Cardinality.guess(23));
+        catalog.recordQuery(ep, createQuery(x, knows, y), 10, false);
+        assertEquals(catalog.getQueryCardinality(ep, createQuery(x, knows, y)),
+                     Cardinality.lowerBound(10));
+    }
+
+    @Test
+    public void testImportedOldObservationsAreGuesses() throws IOException {
+        ClockCatalog catalog = new ClockCatalog(60);
+        catalog.recordQuery(ep, createQuery(x, knows, y), 23, true);
+        StringWriter writer = new StringWriter();
+        catalog.write(writer);
+
+        ClockCatalog other = new ClockCatalog(60);
+        other.now = catalog.now + 120*1000;
+        assertEquals(other.read(new StringReader(writer.toString() + "bad line\n")), 1);
+        assertEquals(other.getQueryCardinality(ep, createQuery(x, knows, y)),
+                     Cardinality.guess(23));
+    }
+
+    @Test
+    public void testFlushAndLoad() throws IOException {
+        File dir = Files.createTempDirectory("freqel").toFile();
+        try {
+            File file = new File(dir, "sub/statistics.tsv");
+            DefaultStatisticsCatalog catalog = new DefaultStatisticsCatalog(file);
+            catalog.recordQuery(ep, createQuery(x, knows, y), 23, true);
+            catalog.flush();
+            assertTrue(file.exists());
+            File[] tmpFiles = file.getParentFile().listFiles((d, n) -> n.endsWith(".tmp"));
+            assertNotNull(tmpFiles);
+            assertEquals(tmpFiles.length, 0);
+
+            DefaultStatisticsCatalog other = new DefaultStatisticsCatalog(file);
+            assertEquals(other.size(), 1);
+            assertEquals(other.getQueryCardinality(ep, createQuery(u, knows, v)),
+                         Cardinality.exact(23));
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+}
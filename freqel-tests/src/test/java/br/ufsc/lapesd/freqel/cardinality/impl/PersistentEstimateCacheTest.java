@@ -0,0 +1,159 @@
+package br.ufsc.lapesd.freqel.cardinality.impl;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.federation.Federation;
+import br.ufsc.lapesd.freqel.federation.inject.dagger.DaggerTestComponent;
+import br.ufsc.lapesd.freqel.federation.spec.source.SourceCache;
+import br.ufsc.lapesd.freqel.query.endpoint.impl.SPARQLClient;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class PersistentEstimateCacheTest implements TestContext {
+    private static final SPARQLClient ep = new SPARQLClient("http://example.org/sparql");
+    private File dir;
+
+    private static class ClockCache extends PersistentEstimateCache {
+        static long now = 1000000;
+
+        public ClockCache(int ttlSeconds, @Nonnull SourceCache sourceCache) {
+            super(ttlSeconds, sourceCache);
+        }
+
+        @Override protected long now() {
+            return now;
+        }
+    }
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("freqel").toFile();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private @Nonnull File getFile() throws IOException {
+        File file = new SourceCache(dir).getFile(PersistentEstimateCache.FILE_TYPE,
+                                                 PersistentEstimateCache.SOURCE_ID);
+        assertNotNull(file);
+        return file;
+    }
+
+    @Test
+    public void testEmptyDir() {
+        PersistentEstimateCache cache = new PersistentEstimateCache(60, new SourceCache(dir));
+        assertEquals(cache.size(), 0);
+        assertNull(cache.get(ep, createQuery(x, knows, y), 7));
+    }
+
+    @Test
+    public void testReload() throws IOException {
+        PersistentEstimateCache cache = new PersistentEstimateCache(60, new SourceCache(dir));
+        cache.put(ep, createQuery(x, knows, y), 7, Cardinality.exact(3));
+        cache.put(ep, createQuery(x, knows, y, y, age, z), 7, Cardinality.lowerBound(10));
+        cache.flush();
+        assertFalse(cache.isDirty());
+        assertTrue(getFile().exists());
+
+        PersistentEstimateCache other = new PersistentEstimateCache(60, new SourceCache(dir));
+        assertEquals(other.size(), 2);
+        assertFalse(other.isDirty());
+        assertEquals(other.get(ep, createQuery(u, knows, v), 7), Cardinality.exact(3));
+        assertEquals(other.get(ep, createQuery(v, age, w, u, knows, v), 7),
+                     Cardinality.lowerBound(10));
+    }
+
+    @Test
+    public void testFlushReplacesFile() throws IOException {
+        PersistentEstimateCache cache = new PersistentEstimateCache(60, new SourceCache(dir));
+        cache.put(ep, createQuery(x, knows, y), 7, Cardinality.exact(3));
+        cache.flush();
+        File file = getFile();
+        cache.clear();
+        cache.put(ep, createQuery(x, age, y), 7, Cardinality.exact(5));
+        cache.flush();
+        assertEquals(getFile(), file);
+
+        PersistentEstimateCache other = new PersistentEstimateCache(60, new SourceCache(dir));
+        assertEquals(other.size(), 1);
+        assertNull(other.get(ep, createQuery(x, knows, y), 7));
+        assertEquals(other.get(ep, createQuery(x, age, y), 7), Cardinality.exact(5));
+
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".tmp"));
+        assertNotNull(files);
+        assertEquals(files.length, 0);
+    }
+
+    @Test
+    public void testFlushOnlyIfDirty() throws IOException {
+        PersistentEstimateCache cache = new PersistentEstimateCache(60, new SourceCache(dir));
+        cache.flush();
+        assertNull(new SourceCache(dir).getFile(PersistentEstimateCache.FILE_TYPE,
+                                                PersistentEstimateCache.SOURCE_ID));
+
+        cache.put(ep, createQuery(x, knows, y), 7, Cardinality.exact(3));
+        cache.flush();
+        File file = getFile();
+        Files.write(file.toPath(), "garbage\n".getBytes(UTF_8));
+        cache.flush(); // not dirty, must not rewrite
+        assertEquals(new String(Files.readAllBytes(file.toPath()), UTF_8), "garbage\n");
+    }
+
+    @Test
+    public void testIgnoresMalformedFile() throws IOException {
+        PersistentEstimateCache cache = new PersistentEstimateCache(60, new SourceCache(dir));
+        cache.put(ep, createQuery(x, knows, y), 7, Cardinality.exact(3));
+        cache.flush();
+        File file = getFile();
+        String good = new String(Files.readAllBytes(file.toPath()), UTF_8);
+        Files.write(file.toPath(), ("garbage\nx\tEXACT(2)\tkey\n" + good).getBytes(UTF_8));
+
+        PersistentEstimateCache other = new PersistentEstimateCache(60, new SourceCache(dir));
+        assertEquals(other.size(), 1);
+        assertEquals(other.get(ep, createQuery(x, knows, y), 7), Cardinality.exact(3));
+    }
+
+    @Test
+    public void testStaleEntriesNotLoaded() {
+        ClockCache.now = 1000000;
+        ClockCache cache = new ClockCache(60, new SourceCache(dir));
+        cache.put(ep, createQuery(x, knows, y), 7, Cardinality.exact(3));
+        ClockCache.now += 30*1000;
+        cache.put(ep, createQuery(x, age, y), 7, Cardinality.exact(5));
+        cache.flush();
+
+        ClockCache.now += 45*1000;
+        ClockCache other = new ClockCache(60, new SourceCache(dir));
+        assertEquals(other.size(), 1);
+        assertNull(other.get(ep, createQuery(x, knows, y), 7));
+        assertEquals(other.get(ep, createQuery(x, age, y), 7), Cardinality.exact(5));
+    }
+
+    @Test
+    public void testFlushedOnFederationClose() throws IOException {
+        PersistentEstimateCache cache = new PersistentEstimateCache(60, new SourceCache(dir));
+        try (Federation federation = DaggerTestComponent.builder()
+                .overrideEstimateCache(cache).build().federation()) {
+            assertNotNull(federation);
+            cache.put(ep, createQuery(x, knows, y), 7, Cardinality.exact(3));
+        }
+        assertFalse(cache.isDirty());
+        PersistentEstimateCache other = new PersistentEstimateCache(60, new SourceCache(dir));
+        assertEquals(other.get(ep, createQuery(x, knows, y), 7), Cardinality.exact(3));
+    }
+}
@@ -0,0 +1,102 @@
+package br.ufsc.lapesd.freqel.cardinality.impl;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.federation.spec.source.SourceCache;
+import br.ufsc.lapesd.freqel.query.endpoint.impl.EmptyEndpoint;
+import br.ufsc.lapesd.freqel.query.endpoint.impl.SPARQLClient;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+
+import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class TTLEstimateCacheTest implements TestContext {
+    private static final SPARQLClient ep = new SPARQLClient("http://example.org/sparql");
+    private static final SPARQLClient ep2 = new SPARQLClient("http://example.org/other");
+
+    private static class ClockCache extends TTLEstimateCache {
+        long now = 1000000;
+
+        public ClockCache(int ttlSeconds) {
+            super(ttlSeconds);
+        }
+
+        @Override protected long now() {
+            return now;
+        }
+    }
+
+    @Test
+    public void testSameShapeHits() {
+        TTLEstimateCache cache = new TTLEstimateCache();
+        cache.put(ep, createQuery(x, knows, y, y, age, z), 7, Cardinality.exact(23));
+        assertEquals(cache.get(ep, createQuery(y, age, v, u, knows, y), 7),
+                     Cardinality.exact(23));
+        assertNull(cache.get(ep, createQuery(x, knows, y, y, age, z), 8));
+        assertNull(cache.get(ep2, createQuery(x, knows, y, y, age, z), 7));
+        assertNull(cache.get(ep, createQuery(x, knows, y, x, age, z), 7));
+        assertNull(cache.get(ep, createQuery(x, knows, Bob), 7));
+    }
+
+    @Test
+    public void testLocalEndpointsNotCached() {
+        TTLEstimateCache cache = new TTLEstimateCache();
+        EmptyEndpoint local = new EmptyEndpoint();
+        cache.put(local, createQuery(x, knows, y), 7, Cardinality.exact(23));
+        assertNull(cache.get(local, createQuery(x, knows, y), 7));
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testExpires() {
+        ClockCache cache = new ClockCache(60);
+        cache.put(ep, createQuery(x, knows, y), 7, Cardinality.NON_EMPTY);
+        cache.now += 59*1000;
+        assertEquals(cache.get(ep, createQuery(x, knows, y), 7), Cardinality.NON_EMPTY);
+        cache.now += 2*1000;
+        assertNull(cache.get(ep, createQuery(x, knows, y), 7));
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        TTLEstimateCache cache = new TTLEstimateCache();
+        cache.put(ep, createQuery(x, knows, y), 7, Cardinality.NON_EMPTY);
+        cache.put(ep, createQuery(x, name, lit("multi\nline\\")), 7, Cardinality.exact(0));
+        cache.put(ep2, createQuery(x, knows, y), 7, Cardinality.lowerBound(10));
+        StringWriter writer = new StringWriter();
+        cache.write(writer);
+        assertFalse(cache.isDirty());
+
+        TTLEstimateCache other = new TTLEstimateCache();
+        assertEquals(other.read(new StringReader(writer.toString())), 3);
+        assertEquals(other.get(ep, createQuery(u, knows, v), 7), Cardinality.NON_EMPTY);
+        assertEquals(other.get(ep, createQuery(y, name, lit("multi\nline\\")), 7),
+                     Cardinality.exact(0));
+        assertEquals(other.get(ep2, createQuery(x, knows, y), 7), Cardinality.lowerBound(10));
+    }
+
+    @Test
+    public void testPersistent() throws IOException {
+        File dir = Files.createTempDirectory("freqel").toFile();
+        try {
+            PersistentEstimateCache cache = new PersistentEstimateCache(60, new SourceCache(dir));
+            cache.put(ep, createQuery(x, knows, y), 7, Cardinality.exact(3));
+            cache.flush();
+
+            PersistentEstimateCache other = new PersistentEstimateCache(60, new SourceCache(dir));
+            assertEquals(other.size(), 1);
+            assertEquals(other.get(ep, createQuery(x, knows, y), 7), Cardinality.exact(3));
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+}
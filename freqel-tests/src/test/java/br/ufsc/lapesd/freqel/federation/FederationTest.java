@@ -79,6 +79,7 @@ import org.apache.jena.rdf.model.ModelFactory;
 import org.apache.jena.rdf.model.Resource;
 import org.apache.jena.riot.Lang;
 import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.sparql.vocabulary.FOAF;
 import org.apache.jena.vocabulary.RDF;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.test.JerseyTestNg;
@@ -759,6 +760,31 @@ public class FederationTest extends JerseyTestNg.ContainerPerClassTest
         );
     }
 
+    public static List<List<Object>> aggregationData() throws SPARQLParseException {
+        String prolog = "PREFIX foaf: <" + FOAF.NS + ">\n";
+        StdLit one = StdLit.fromUnescaped("1", xsdInteger);
+        StdLit two = StdLit.fromUnescaped("2", xsdInteger);
+        return asList(
+                asList(new SetupSingleEp(),
+                       SPARQLParser.strict().parse(prolog +
+                               "SELECT ?x (COUNT(?n) AS ?c) WHERE {?x foaf:name ?n} GROUP BY ?x"),
+                       newHashSet(MapSolution.builder().put(x, Alice).put("c", one).build(),
+                                  MapSolution.builder().put(x, Bob).put("c", two).build())),
+                asList(new SetupTwoEps(),
+                       SPARQLParser.strict().parse(prolog +
+                               "SELECT ?u (COUNT(DISTINCT ?x) AS ?c) WHERE {?x foaf:age ?u}\n" +
+                               "GROUP BY ?u"),
+                       newHashSet(MapSolution.builder().put(u, i23).put("c", two).build(),
+                                  MapSolution.builder().put(u, i25).put("c", one).build())),
+                asList(new SetupTwoEps(),
+                       SPARQLParser.strict().parse(prolog +
+                               "SELECT (MIN(?u) AS ?min) (MAX(?u) AS ?max) WHERE {\n" +
+                               "  ?x foaf:knows ?y ; foaf:age ?u.\n" +
+                               "}"),
+                       newHashSet(MapSolution.builder().put("min", i23).put("max", i25).build()))
+        );
+    }
+
     public static List<List<Object>> crossEpJoinsData() {
         return asList(
                 asList(new SetupBookShop(0),
@@ -914,6 +940,7 @@ public class FederationTest extends JerseyTestNg.ContainerPerClassTest
         basic.addAll(singleTripleData());
         basic.addAll(singleEpQueryData());
         basic.addAll(crossEpJoinsData());
+        basic.addAll(aggregationData());
         basic.addAll(transparencyJoinsData());
         basic.addAll(largeRDFBenchData());
         basic.addAll(bsbmData());
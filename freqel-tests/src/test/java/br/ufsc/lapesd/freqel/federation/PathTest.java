@@ -0,0 +1,110 @@
+package br.ufsc.lapesd.freqel.federation;
+
+import br.ufsc.lapesd.freqel.ResultsAssert;
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.description.SelectDescription;
+import br.ufsc.lapesd.freqel.jena.query.ARQEndpoint;
+import br.ufsc.lapesd.freqel.model.term.Lit;
+import br.ufsc.lapesd.freqel.model.term.URI;
+import br.ufsc.lapesd.freqel.model.term.std.StdLit;
+import br.ufsc.lapesd.freqel.model.term.std.StdURI;
+import br.ufsc.lapesd.freqel.query.parse.SPARQLParseException;
+import br.ufsc.lapesd.freqel.query.parse.SPARQLParser;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.impl.MapSolution;
+import br.ufsc.lapesd.freqel.reason.tbox.TBoxSpec;
+import org.apache.jena.sparql.vocabulary.FOAF;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+/**
+ * Extremely simple end-to-end test for SPARQL 1.1 property paths with closures and
+ * negated property sets.
+ *
+ * The knows relation in rdf-paths-1.ttl has a cycle: Alice, Bob, Charlie and Alice again.
+ * Dave is only reachable from Charlie.
+ */
+public class PathTest implements TestContext {
+    private static final @Nonnull URI l1 = new StdURI(EX+"l1");
+    private static final @Nonnull Lit age23 = StdLit.fromUnescaped("23", xsdInteger);
+
+    @DataProvider
+    public static @Nonnull Object[][] pathData() {
+        String prolog = "PREFIX foaf: <"+ FOAF.NS +">\n" +
+                        "PREFIX ex: <"+ EX +">\n";
+        return Stream.of(
+                // one or more, the cycle leads back to the start
+                asList(prolog+"SELECT ?x WHERE {ex:Alice foaf:knows+ ?x}",
+                       asList(MapSolution.build(x, Bob), MapSolution.build(x, Charlie),
+                              MapSolution.build(x, Alice), MapSolution.build(x, Dave))),
+                // zero or more, the start is reported only once
+                asList(prolog+"SELECT ?x WHERE {ex:Alice foaf:knows* ?x}",
+                       asList(MapSolution.build(x, Alice), MapSolution.build(x, Bob),
+                              MapSolution.build(x, Charlie), MapSolution.build(x, Dave))),
+                // zero or one
+                asList(prolog+"SELECT ?x WHERE {ex:Alice foaf:knows? ?x}",
+                       asList(MapSolution.build(x, Alice), MapSolution.build(x, Bob))),
+                // zero-length path from a node without successors
+                asList(prolog+"SELECT ?x WHERE {ex:Dave foaf:knows* ?x}",
+                       singletonList(MapSolution.build(x, Dave))),
+                asList(prolog+"SELECT ?x WHERE {ex:Dave foaf:knows+ ?x}",
+                       Collections.<Solution>emptyList()),
+                // traversal from a bound object
+                asList(prolog+"SELECT ?x WHERE {?x foaf:knows+ ex:Dave}",
+                       asList(MapSolution.build(x, Alice), MapSolution.build(x, Bob),
+                              MapSolution.build(x, Charlie))),
+                // both ends bound
+                asList(prolog+"ASK WHERE {ex:Bob foaf:knows+ ex:Dave}",
+                       singletonList(MapSolution.EMPTY)),
+                asList(prolog+"ASK WHERE {ex:Dave foaf:knows+ ex:Bob}",
+                       Collections.<Solution>emptyList()),
+                // both ends unbound
+                asList(prolog+"SELECT * WHERE {?x (foaf:knows/foaf:knows)+ ?y}",
+                       asList(MapSolution.builder().put(x, Alice).put(y, Charlie).build(),
+                              MapSolution.builder().put(x, Alice).put(y, Bob).build(),
+                              MapSolution.builder().put(x, Alice).put(y, Alice).build(),
+                              MapSolution.builder().put(x, Alice).put(y, Dave).build(),
+                              MapSolution.builder().put(x, Bob).put(y, Alice).build(),
+                              MapSolution.builder().put(x, Bob).put(y, Dave).build(),
+                              MapSolution.builder().put(x, Bob).put(y, Charlie).build(),
+                              MapSolution.builder().put(x, Bob).put(y, Bob).build(),
+                              MapSolution.builder().put(x, Charlie).put(y, Bob).build(),
+                              MapSolution.builder().put(x, Charlie).put(y, Alice).build(),
+                              MapSolution.builder().put(x, Charlie).put(y, Charlie).build(),
+                              MapSolution.builder().put(x, Charlie).put(y, Dave).build())),
+                // negated property sets
+                asList(prolog+"SELECT ?x WHERE {ex:Alice !foaf:knows ?x}",
+                       asList(MapSolution.build(x, l1), MapSolution.build(x, age23))),
+                asList(prolog+"SELECT * WHERE {?x !(foaf:knows|foaf:age) ?y}",
+                       singletonList(MapSolution.builder().put(x, Alice).put(y, l1).build())),
+                asList(prolog+"SELECT ?x WHERE {ex:Bob !^foaf:age ?x}",
+                       singletonList(MapSolution.build(x, Alice))),
+                asList(prolog+"SELECT ?x WHERE {ex:Alice (!foaf:age)+ ?x}",
+                       asList(MapSolution.build(x, Bob), MapSolution.build(x, l1),
+                              MapSolution.build(x, Charlie), MapSolution.build(x, Alice),
+                              MapSolution.build(x, Dave)))
+        ).map(List::toArray).toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "pathData", groups = {"fast"})
+    public void testPathSingleSource(@Nonnull String sparql,
+                                     @Nonnull List<Solution> expectedList)
+            throws SPARQLParseException {
+        Op query = SPARQLParser.strict().parse(sparql);
+        try (Federation federation = Freqel.createFederation()) {
+            ARQEndpoint ep = ARQEndpoint.forModel(new TBoxSpec()
+                    .addResource(getClass(), "rdf-paths-1.ttl").loadModel());
+            federation.addSource(ep.setDescription(new SelectDescription(ep)));
+            ResultsAssert.assertExpectedResults(federation.query(query), expectedList);
+        }
+    }
+}
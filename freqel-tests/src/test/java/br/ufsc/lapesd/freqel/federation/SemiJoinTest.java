@@ -0,0 +1,72 @@
+package br.ufsc.lapesd.freqel.federation;
+
+import br.ufsc.lapesd.freqel.ResultsAssert;
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.description.SelectDescription;
+import br.ufsc.lapesd.freqel.jena.query.ARQEndpoint;
+import br.ufsc.lapesd.freqel.query.parse.SPARQLParseException;
+import br.ufsc.lapesd.freqel.query.parse.SPARQLParser;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.impl.MapSolution;
+import br.ufsc.lapesd.freqel.reason.tbox.TBoxSpec;
+import org.apache.jena.sparql.vocabulary.FOAF;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+/**
+ * Extremely simple end-to-end test for FILTER EXISTS, FILTER NOT EXISTS and MINUS.
+ *
+ * In rdf-2.nt, all four people are typed, Alice and Dave know Bob, and only Bob has no age.
+ */
+public class SemiJoinTest implements TestContext {
+    private static final @Nonnull String PROLOG = "PREFIX foaf: <"+ FOAF.NS +">\n" +
+                                                  "PREFIX ex: <"+ EX +">\n";
+
+    @DataProvider
+    public static @Nonnull Object[][] semiJoinData() {
+        return Stream.of(
+                asList(PROLOG+"SELECT ?x WHERE {\n" +
+                              "  ?x a foaf:Person FILTER EXISTS {?x foaf:knows ?y}\n}",
+                       asList(MapSolution.build(x, Alice), MapSolution.build(x, Dave))),
+                asList(PROLOG+"SELECT ?x WHERE {\n" +
+                              "  ?x a foaf:Person FILTER NOT EXISTS {?x foaf:age ?u}\n}",
+                       singletonList(MapSolution.build(x, Bob))),
+                asList(PROLOG+"SELECT ?x WHERE {\n" +
+                              "  ?x a foaf:Person MINUS {?x foaf:age ?u}\n}",
+                       singletonList(MapSolution.build(x, Bob))),
+                // MINUS never removes solutions that share no variable with the right side
+                asList(PROLOG+"SELECT ?x WHERE {\n" +
+                              "  ?x a foaf:Person MINUS {?y foaf:knows ex:Bob}\n}",
+                       asList(MapSolution.build(x, Alice), MapSolution.build(x, Bob),
+                              MapSolution.build(x, Charlie), MapSolution.build(x, Dave))),
+                // no join variables: the right side is evaluated once
+                asList(PROLOG+"SELECT ?x WHERE {\n" +
+                              "  ?x foaf:knows ex:Bob FILTER EXISTS {ex:Bob foaf:name ?n}\n}",
+                       asList(MapSolution.build(x, Alice), MapSolution.build(x, Dave))),
+                asList(PROLOG+"SELECT ?x WHERE {\n" +
+                              "  ?x foaf:knows ex:Bob FILTER NOT EXISTS {ex:Bob foaf:age ?n}\n}",
+                       asList(MapSolution.build(x, Alice), MapSolution.build(x, Dave)))
+        ).map(List::toArray).toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "semiJoinData", groups = {"fast"})
+    public void testSemiJoinSingleSource(@Nonnull String sparql,
+                                         @Nonnull List<Solution> expectedList)
+            throws SPARQLParseException {
+        Op query = SPARQLParser.strict().parse(sparql);
+        try (Federation federation = Freqel.createFederation()) {
+            ARQEndpoint ep = ARQEndpoint.forModel(new TBoxSpec()
+                    .addResource(TestContext.class, "rdf-2.nt").loadModel());
+            federation.addSource(ep.setDescription(new SelectDescription(ep)));
+            ResultsAssert.assertExpectedResults(federation.query(query), expectedList);
+        }
+    }
+}
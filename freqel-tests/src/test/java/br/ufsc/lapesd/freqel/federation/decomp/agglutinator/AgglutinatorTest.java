@@ -209,6 +209,40 @@ public class AgglutinatorTest implements TestContext {
         }
     }
 
+    @DataProvider public static @Nonnull Object[][] reuseStateData() {
+        return agglutinatorSuppliers.stream().map(s -> new Object[]{s}).toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "reuseStateData", groups = {"fast"})
+    public void testReuseStateAcrossQueries(@Nonnull Supplier<Agglutinator> supplier)
+            throws IOException {
+        List<CQuery> queries = getAllQueries(LargeRDFBenchSelfTest.QUERY_FILENAMES, n -> {
+            try {
+                return LargeRDFBenchSelfTest.loadQuery(n);
+            } catch (IOException | SPARQLParseException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        SourcesListMatchingStrategy matchingStrategy = new SourcesListMatchingStrategy();
+        ConjunctivePlanBenchmarksTestBase.largeRDFBenchSources()
+                                         .forEach(matchingStrategy::addSource);
+        Agglutinator reused = supplier.get();
+        reused.setMatchingStrategy(matchingStrategy);
+        // each query has a different set of candidate sources, leftovers from previous
+        // queries must not leak into the nodes of the next one
+        for (CQuery query : queries) {
+            Agglutinator fresh = supplier.get();
+            fresh.setMatchingStrategy(matchingStrategy);
+            Collection<Op> expected = matchingStrategy.match(query, fresh);
+            InterceptingAgglutinator intercepting = new InterceptingAgglutinator(reused);
+            Collection<Op> nodes = matchingStrategy.match(query, intercepting);
+            checkValidAgglutination(nodes, query);
+            checkLostComponents(intercepting.matches, nodes);
+            assertEquals(nodes.stream().map(Op::toString).collect(toSet()),
+                         expected.stream().map(Op::toString).collect(toSet()));
+        }
+    }
+
     @Test(dataProvider = "agglutinateBenchmarksData")
     public void testConcurrentAgglutinateBenchmarks(@Nonnull CQuery query,
                                                     @Nonnull List<CQEndpoint> sources,
@@ -0,0 +1,219 @@
+package br.ufsc.lapesd.freqel.federation.execution;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.inner.JoinOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.EndpointQueryOp;
+import br.ufsc.lapesd.freqel.cardinality.impl.DefaultStatisticsCatalog;
+import br.ufsc.lapesd.freqel.federation.inject.dagger.DaggerTestComponent;
+import br.ufsc.lapesd.freqel.jena.query.ARQEndpoint;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+import br.ufsc.lapesd.freqel.query.endpoint.impl.SPARQLClient;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.impl.CollectionResults;
+import br.ufsc.lapesd.freqel.query.results.impl.MapSolution;
+import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+import static br.ufsc.lapesd.freqel.jena.JenaWrappers.toJena;
+import static br.ufsc.lapesd.freqel.jena.JenaWrappers.toJenaProperty;
+import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class FeedbackResultsTest implements TestContext {
+    private static final SPARQLClient ep = new SPARQLClient("http://example.org/sparql");
+    private static final SPARQLClient ep2 = new SPARQLClient("http://example.org/other");
+
+    private static class CountingCatalog extends DefaultStatisticsCatalog {
+        int queries = 0, joins = 0;
+
+        @Override
+        public void recordQuery(@Nonnull TPEndpoint endpoint, @Nonnull CQuery query,
+                                long rows, boolean complete) {
+            ++queries;
+            super.recordQuery(endpoint, query, rows, complete);
+        }
+
+        @Override
+        public void recordJoin(@Nonnull EndpointQueryOp left, @Nonnull EndpointQueryOp right,
+                               long rows, boolean complete) {
+            ++joins;
+            super.recordJoin(left, right, rows, complete);
+        }
+    }
+
+    private @Nonnull CollectionResults rows(int count) {
+        List<Solution> list = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            list.add(MapSolution.build(x, lit(i)));
+        return new CollectionResults(list, singleton("x"));
+    }
+
+    private @Nonnull ARQEndpoint remoteEndpoint(@Nonnull String name) {
+        Model model = ModelFactory.createDefaultModel();
+        model.add(toJena(Alice), toJenaProperty(knows), toJena(Bob));
+        model.add(toJena(Alice), toJenaProperty(knows), toJena(Charlie));
+        model.add(toJena(Bob), toJenaProperty(age), toJena(lit(23)));
+        return new ARQEndpoint(name, q -> QueryExecutionFactory.create(q, model),
+                               null, () -> {}, true) {
+            @Override public String getRemoteId() {
+                return "http://example.org/"+name;
+            }
+        };
+    }
+
+    @Test
+    public void testExhaustedIsExact() {
+        CountingCatalog catalog = new CountingCatalog();
+        EndpointQueryOp node = new EndpointQueryOp(ep, createQuery(Alice, knows, x));
+        try (FeedbackResults results = new FeedbackResults(rows(3), node, catalog)) {
+            assertEquals(results.getVarNames(), singleton("x"));
+            int count = 0;
+            while (results.hasNext()) {
+                results.next();
+                ++count;
+            }
+            assertEquals(count, 3);
+            assertEquals(results.getRows(), 3);
+            assertEquals(catalog.queries, 0); // only reported on close()
+        }
+        assertEquals(catalog.queries, 1);
+        assertEquals(catalog.getQueryCardinality(ep, createQuery(Alice, knows, y)),
+                     Cardinality.exact(3));
+    }
+
+    @Test
+    public void testEmptyIsExact() {
+        CountingCatalog catalog = new CountingCatalog();
+        EndpointQueryOp node = new EndpointQueryOp(ep, createQuery(Alice, knows, x));
+        try (FeedbackResults results = new FeedbackResults(rows(0), node, catalog)) {
+            assertFalse(results.hasNext());
+        }
+        assertEquals(catalog.getQueryCardinality(ep, createQuery(Alice, knows, x)),
+                     Cardinality.EMPTY);
+    }
+
+    @Test
+    public void testPartialIsLowerBound() {
+        CountingCatalog catalog = new CountingCatalog();
+        EndpointQueryOp node = new EndpointQueryOp(ep, createQuery(Alice, knows, x));
+        try (FeedbackResults results = new FeedbackResults(rows(5), node, catalog)) {
+            results.next();
+            results.next();
+            assertTrue(results.hasNext());
+        }
+        assertEquals(catalog.getQueryCardinality(ep, createQuery(Alice, knows, x)),
+                     Cardinality.lowerBound(2));
+    }
+
+    @Test
+    public void testCountsBatches() {
+        CountingCatalog catalog = new CountingCatalog();
+        EndpointQueryOp node = new EndpointQueryOp(ep, createQuery(Alice, knows, x));
+        Solution[] buffer = new Solution[4];
+        int total = 0;
+        try (FeedbackResults results = new FeedbackResults(rows(10), node, catalog)) {
+            for (int n = results.nextBatch(buffer, 4); n > 0; n = results.nextBatch(buffer, 4))
+                total += n;
+        }
+        assertEquals(total, 10);
+        assertEquals(catalog.getQueryCardinality(ep, createQuery(Alice, knows, x)),
+                     Cardinality.exact(10));
+    }
+
+    @Test
+    public void testReportsOnce() {
+        CountingCatalog catalog = new CountingCatalog();
+        EndpointQueryOp node = new EndpointQueryOp(ep, createQuery(Alice, knows, x));
+        FeedbackResults results = new FeedbackResults(rows(2), node, catalog);
+        results.close();
+        results.close();
+        assertEquals(catalog.queries, 1);
+    }
+
+    @Test
+    public void testReportsJoin() {
+        CountingCatalog catalog = new CountingCatalog();
+        EndpointQueryOp l = new EndpointQueryOp(ep, createQuery(x, knows, y));
+        EndpointQueryOp r = new EndpointQueryOp(ep2, createQuery(y, age, z));
+        Op join = JoinOp.create(l, r);
+        try (FeedbackResults results = new FeedbackResults(rows(4), join, catalog)) {
+            results.forEachRemaining(s -> {});
+        }
+        assertEquals(catalog.joins, 1);
+        assertEquals(catalog.queries, 0);
+        assertEquals(catalog.getJoinCardinality(l, r), Cardinality.exact(4));
+        assertEquals(catalog.getJoinCardinality(r, l), Cardinality.exact(4));
+    }
+
+    /* --- --- --- wrapping by InjectedExecutor --- --- --- */
+
+    private static @Nonnull PlanExecutor createExecutor(@Nonnull CountingCatalog catalog) {
+        PlanExecutor executor = DaggerTestComponent.builder().overrideStatisticsCatalog(catalog)
+                                                   .build().planExecutor();
+        assertTrue(executor instanceof InjectedExecutor);
+        return executor;
+    }
+
+    @Test
+    public void testExecutorRecordsRemoteQuery() {
+        CountingCatalog catalog = new CountingCatalog();
+        PlanExecutor executor = createExecutor(catalog);
+        ARQEndpoint remote = remoteEndpoint("remote");
+        EndpointQueryOp node = new EndpointQueryOp(remote, createQuery(Alice, knows, x));
+        List<Solution> list = new ArrayList<>();
+        try (Results results = executor.executeNode(node)) {
+            results.forEachRemaining(list::add);
+        }
+        assertEquals(list.size(), 2);
+        assertEquals(catalog.queries, 1);
+        assertEquals(catalog.getQueryCardinality(remote, createQuery(Alice, knows, y)),
+                     Cardinality.exact(2));
+    }
+
+    @Test
+    public void testExecutorRecordsRemoteJoin() {
+        CountingCatalog catalog = new CountingCatalog();
+        PlanExecutor executor = createExecutor(catalog);
+        ARQEndpoint remote1 = remoteEndpoint("remote1"), remote2 = remoteEndpoint("remote2");
+        EndpointQueryOp l = new EndpointQueryOp(remote1, createQuery(Alice, knows, x));
+        EndpointQueryOp r = new EndpointQueryOp(remote2, createQuery(x, age, y));
+        Op join = JoinOp.create(l, r);
+        List<Solution> list = new ArrayList<>();
+        try (Results results = executor.executeNode(join)) {
+            results.forEachRemaining(list::add);
+        }
+        assertEquals(list, singletonList(MapSolution.builder().put(x, Bob)
+                                                          .put(y, lit(23)).build()));
+        assertEquals(catalog.getJoinCardinality(l, r), Cardinality.exact(1));
+        assertEquals(catalog.joins, 1);
+    }
+
+    @Test
+    public void testExecutorIgnoresLocal() {
+        CountingCatalog catalog = new CountingCatalog();
+        PlanExecutor executor = createExecutor(catalog);
+        Model model = ModelFactory.createDefaultModel();
+        model.add(toJena(Alice), toJenaProperty(knows), toJena(Bob));
+        ARQEndpoint local = ARQEndpoint.forModel(model);
+        EndpointQueryOp node = new EndpointQueryOp(local, createQuery(Alice, knows, x));
+        try (Results results = executor.executeNode(node)) {
+            assertFalse(results instanceof FeedbackResults);
+            results.forEachRemaining(s -> {});
+        }
+        assertEquals(catalog.queries, 0);
+        assertEquals(catalog.size(), 0);
+    }
+}
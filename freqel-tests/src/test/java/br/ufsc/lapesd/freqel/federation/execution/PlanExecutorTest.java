@@ -29,7 +29,12 @@ import br.ufsc.lapesd.freqel.query.CQuery;
 import br.ufsc.lapesd.freqel.query.modifiers.Projection;
 import br.ufsc.lapesd.freqel.query.results.Results;
 import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.TermDictionary;
+import br.ufsc.lapesd.freqel.query.results.impl.ArraySolution;
 import br.ufsc.lapesd.freqel.query.results.impl.MapSolution;
+import br.ufsc.lapesd.freqel.query.results.profile.ExecutionProfile;
+import br.ufsc.lapesd.freqel.query.results.profile.OperatorStats;
+import br.ufsc.lapesd.freqel.query.results.profile.ProfilingResults;
 import br.ufsc.lapesd.freqel.util.ModelMessageBodyWriter;
 import br.ufsc.lapesd.freqel.webapis.WebAPICQEndpoint;
 import br.ufsc.lapesd.freqel.webapis.description.APIMolecule;
@@ -290,6 +295,71 @@ public class PlanExecutorTest extends JerseyTestNg.ContainerPerClassTest impleme
         ));
     }
 
+    @Test(dataProvider = "modulesData")
+    public void testProfileTwoHopsPathJoin(@Nonnull FreqelConfig config) {
+        EndpointQueryOp l  = new EndpointQueryOp(joinsEp, createQuery(ex("h1"), knows, x));
+        EndpointQueryOp r  = new EndpointQueryOp(joinsEp, createQuery(x, knows, y));
+        EndpointQueryOp rr = new EndpointQueryOp(joinsEp, createQuery(y, knows, ex("h4")));
+        JoinOp lRoot = JoinOp.create(l, r);
+        JoinOp root = JoinOp.create(lRoot, rr);
+        PlanExecutor executor = DaggerTestComponent.builder().overrideFreqelConfig(config)
+                                                   .build().planExecutor();
+        ExecutionProfile profile = new ExecutionProfile(root);
+        ResultsAssert.assertExpectedResults(executor.executePlan(root, profile), singleton(
+                MapSolution.builder().put("x", ex("h2")).put("y", ex("h3")).build()));
+        assertNull(OperatorStats.current());
+
+        OperatorStats rootStats = profile.getStats(root), lRootStats = profile.getStats(lRoot);
+        OperatorStats lStats = profile.getStats(l);
+        assertNotNull(rootStats);
+        assertNotNull(lRootStats);
+        assertNotNull(lStats);
+        assertEquals(rootStats.getExecutions(), 1);
+        assertEquals(rootStats.getRows(), 1);
+        assertEquals(lRootStats.getExecutions(), 1);
+        assertEquals(lRootStats.getRows(), 1);
+        assertEquals(lStats.getExecutions(), 1);
+        assertEquals(lStats.getRows(), 1);
+        assertTrue(rootStats.getTimeMs() >= lRootStats.getTimeMs());
+
+        String explain = profile.explain();
+        assertTrue(explain.contains(root.getName()), explain);
+        assertTrue(explain.contains(l.getName()), explain);
+        assertTrue(explain.contains("{rows: 1, "), explain);
+    }
+
+    @Test(dataProvider = "modulesData")
+    public void testJoinKeepsInternedIds(@Nonnull FreqelConfig config) {
+        EndpointQueryOp l  = new EndpointQueryOp(joinsEp, createQuery(ex("h1"), knows, x));
+        EndpointQueryOp r  = new EndpointQueryOp(joinsEp, createQuery(x, knows, y));
+        EndpointQueryOp rr = new EndpointQueryOp(joinsEp, createQuery(y, knows, ex("h4")));
+        JoinOp root = JoinOp.create(JoinOp.create(l, r), rr);
+        PlanExecutor executor = DaggerTestComponent.builder().overrideFreqelConfig(config)
+                                                   .build().planExecutor();
+        List<Solution> solutions = new ArrayList<>();
+        executor.executePlan(root).forEachRemainingThenClose(solutions::add);
+        assertEquals(solutions.size(), 1);
+        TermDictionary dictionary = executor.getTermDictionary();
+        for (Solution solution : solutions) {
+            // source solutions were interned once and joins kept their ids
+            assertTrue(solution instanceof ArraySolution);
+            ArraySolution array = (ArraySolution) solution;
+            assertSame(array.getDictionary(), dictionary);
+            assertEquals(array.getId(dictionary, "x"), dictionary.encode(ex("h2")));
+            assertEquals(array.getId(dictionary, "y"), dictionary.encode(ex("h3")));
+        }
+    }
+
+    @Test
+    public void testNoProfileWithoutExecutePlan() {
+        EndpointQueryOp node = new EndpointQueryOp(ep, createQuery(Alice, knows, x));
+        PlanExecutor executor = DaggerTestComponent.builder().build().planExecutor();
+        try (Results results = executor.executeNode(node)) {
+            assertFalse(results instanceof ProfilingResults);
+            assertEquals(results.next(), MapSolution.build(x, Bob));
+        }
+    }
+
     @Test(dataProvider = "modulesData")
     public void testFiveHopsPathJoinLeftDeep(@Nonnull FreqelConfig config) {
         EndpointQueryOp[] leafs = {
@@ -15,10 +15,13 @@ import br.ufsc.lapesd.freqel.query.endpoint.Capability;
 import br.ufsc.lapesd.freqel.query.endpoint.DQEndpoint;
 import br.ufsc.lapesd.freqel.query.modifiers.Optional;
 import br.ufsc.lapesd.freqel.query.parse.SPARQLParseException;
+import br.ufsc.lapesd.freqel.query.results.DistinctResultsFactory;
 import br.ufsc.lapesd.freqel.query.results.Results;
 import br.ufsc.lapesd.freqel.query.results.ResultsExecutor;
+import br.ufsc.lapesd.freqel.query.results.TermDictionary;
 import br.ufsc.lapesd.freqel.query.results.Solution;
 import br.ufsc.lapesd.freqel.query.results.impl.BufferedResultsExecutor;
+import br.ufsc.lapesd.freqel.query.results.impl.HashDistinctResults;
 import br.ufsc.lapesd.freqel.query.results.impl.MapSolution;
 import br.ufsc.lapesd.freqel.query.results.impl.SequentialResultsExecutor;
 import br.ufsc.lapesd.freqel.reason.tbox.TBoxSpec;
@@ -61,6 +64,16 @@ public class DQueryOpExecutorTest implements TestContext {
         public @Nonnull Results executeNode(@Nonnull Op node) {
             throw new UnsupportedOperationException();
         }
+
+        @Override
+        public @Nonnull TermDictionary getTermDictionary() {
+            return new TermDictionary();
+        }
+
+        @Override
+        public @Nonnull DistinctResultsFactory getDistinctResultsFactory() {
+            return HashDistinctResults::new;
+        }
     };
 
     private static @Nonnull ResultsExecutor saveExecutor(@Nonnull ResultsExecutor executor) {
@@ -3,18 +3,28 @@ package br.ufsc.lapesd.freqel.federation.execution.tree;
 import br.ufsc.lapesd.freqel.ResultsAssert;
 import br.ufsc.lapesd.freqel.TestContext;
 import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.inner.JoinOp;
+import br.ufsc.lapesd.freqel.algebra.inner.UnionOp;
 import br.ufsc.lapesd.freqel.algebra.leaf.EndpointQueryOp;
+import br.ufsc.lapesd.freqel.federation.FreqelConfig;
 import br.ufsc.lapesd.freqel.federation.execution.PlanExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.DefaultJoinOpExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.adaptive.AdaptiveBindJoinResults;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.bind.BindJoinResultsFactory;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.bind.SimpleBindJoinResults;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.hash.InMemoryHashJoinResults;
 import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.hash.ParallelInMemoryHashJoinResults;
 import br.ufsc.lapesd.freqel.federation.inject.dagger.DaggerTestComponent;
+import br.ufsc.lapesd.freqel.federation.inject.dagger.TestComponent;
 import br.ufsc.lapesd.freqel.jena.query.ARQEndpoint;
 import br.ufsc.lapesd.freqel.model.term.Lit;
 import br.ufsc.lapesd.freqel.model.term.std.StdLit;
+import br.ufsc.lapesd.freqel.model.term.std.StdURI;
+import br.ufsc.lapesd.freqel.query.CQuery;
 import br.ufsc.lapesd.freqel.query.endpoint.Capability;
 import br.ufsc.lapesd.freqel.query.modifiers.Optional;
 import br.ufsc.lapesd.freqel.query.parse.SPARQLParser;
+import br.ufsc.lapesd.freqel.query.results.DelegatingResults;
 import br.ufsc.lapesd.freqel.query.results.Results;
 import br.ufsc.lapesd.freqel.query.results.ResultsCloseException;
 import br.ufsc.lapesd.freqel.query.results.Solution;
@@ -43,13 +53,17 @@ import java.util.stream.Stream;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
-import static org.testng.Assert.assertEquals;
-import static org.testng.Assert.assertTrue;
+import static br.ufsc.lapesd.freqel.federation.FreqelConfig.Key.ADAPTIVE_JOIN_SWITCH_ROWS;
+import static br.ufsc.lapesd.freqel.federation.FreqelConfig.createDefault;
+import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static org.testng.Assert.*;
 
 public class JoinResultsTest implements TestContext {
 
     public static final QueryOpExecutor opExecutor = DaggerTestComponent.builder().build().queryOpExecutor();
     public static final PlanExecutor planExecutor = DaggerTestComponent.builder().build().planExecutor();
+    public static final BindJoinResultsFactory bindJoinResultsFactory =
+            DaggerTestComponent.builder().build().bindJoinResultsFactory();
 
     public static abstract class JoinFactory
             implements BiFunction<EndpointQueryOp, EndpointQueryOp, Results> {
@@ -83,20 +97,23 @@ public class JoinResultsTest implements TestContext {
             new JoinFactory("InMemoryHashJoinResults without threads") {
                 @Override public Results apply(EndpointQueryOp left, EndpointQueryOp right) {
                     return new InMemoryHashJoinResults(ex(left), ex(right), joinVars(left, right),
-                                                       resultVars(left, right), false);
+                                                       resultVars(left, right),
+                                                       planExecutor.getTermDictionary(), false);
                 }
             },
             new JoinFactory("InMemoryHashJoinResults with threads") {
                 @Override public Results apply(EndpointQueryOp left, EndpointQueryOp right) {
                     return new InMemoryHashJoinResults(ex(left), ex(right), joinVars(left, right),
-                                                       resultVars(left, right), true);
+                                                       resultVars(left, right),
+                                                       planExecutor.getTermDictionary(), true);
                 }
             },
             new JoinFactory("ParallelInMemoryHashJoinResults") {
                 @Override
                 public Results apply(EndpointQueryOp l, EndpointQueryOp r) {
                     return new ParallelInMemoryHashJoinResults(ex(l), ex(r), joinVars(l, r),
-                                                               resultVars(l, r));
+                                                               resultVars(l, r),
+                                                               planExecutor.getTermDictionary());
                 }
             },
             new JoinFactory("SimpleBindJoinResults + SequentialResultsExecutor") {
@@ -125,6 +142,30 @@ public class JoinResultsTest implements TestContext {
                     };
                 }
 
+                @Override public boolean canLeftOptional() {
+                    return false;
+                }
+            },
+            new JoinFactory("AdaptiveBindJoinResults without switching") {
+                @Override
+                public Results apply(EndpointQueryOp l, EndpointQueryOp r) {
+                    return new AdaptiveBindJoinResults(ex(l), r, joinVars(l, r),
+                                                       resultVars(l, r), planExecutor,
+                                                       bindJoinResultsFactory);
+                }
+
+                @Override public boolean canLeftOptional() {
+                    return false;
+                }
+            },
+            new JoinFactory("AdaptiveBindJoinResults switching after 2 rows") {
+                @Override
+                public Results apply(EndpointQueryOp l, EndpointQueryOp r) {
+                    return new AdaptiveBindJoinResults(ex(l), r, joinVars(l, r),
+                                                       resultVars(l, r), planExecutor,
+                                                       bindJoinResultsFactory, 2);
+                }
+
                 @Override public boolean canLeftOptional() {
                     return false;
                 }
@@ -278,4 +319,126 @@ public class JoinResultsTest implements TestContext {
                      @Nonnull Collection<Solution> expected) throws Exception {
         doTest(f, ep, leftSparql, rightSparql, optionalBitmap, expected, 128);
     }
+
+    @Test(groups = {"fast"})
+    public void testAdaptiveSwitchOverUnion() throws Exception {
+        Model join1 = new TBoxSpec().addResource(getClass(), "join-1.ttl").loadModel();
+        // VALUES are bound into the children of unions that target such endpoints
+        List<ARQEndpoint> noSparql = new ArrayList<>();
+        for (int j = 0; j < 2; j++) {
+            noSparql.add(new ARQEndpoint("join-1[no SPARQL] "+j,
+                    q -> QueryExecutionFactory.create(q, join1), null, () -> {}, true) {
+                @Override public boolean canQuerySPARQL() {
+                    return false;
+                }
+            });
+        }
+        String prolog = "PREFIX ex: <"+EX+">\n";
+        SPARQLParser parser = SPARQLParser.strict();
+        EndpointQueryOp l = new EndpointQueryOp(eps.get(0),
+                parser.parseConjunctive(prolog+"SELECT * WHERE {ex:l1 ex:p1 ?x}"));
+        CQuery rQuery = parser.parseConjunctive(prolog+"SELECT * WHERE {ex:r2 ex:p1 ?x; " +
+                                                                          "ex:p2 ?y}");
+        EndpointQueryOp r1 = new EndpointQueryOp(noSparql.get(0), rQuery);
+        EndpointQueryOp r2 = new EndpointQueryOp(noSparql.get(1), rQuery);
+        Op r = UnionOp.builder().add(r1).add(r2).build();
+        String rString = r.toString();
+        Lit[] i = new Lit[7];
+        for (int j = 0; j < i.length; j++)
+            i[j] = StdLit.fromEscaped(String.valueOf(j), xsdInteger);
+
+        // x=1 goes through the bind join, x=2 through the hash join with the whole union
+        AdaptiveBindJoinResults results = new AdaptiveBindJoinResults(
+                opExecutor.execute(l), r, singletonList("x"), asList("x", "y"),
+                planExecutor, bindJoinResultsFactory, 1);
+        List<Solution> expected = new ArrayList<>();
+        for (int j = 0; j < 2; j++) { // one copy from each union child
+            expected.add(MapSolution.builder().put(x, i[1]).put(y, i[5]).build());
+            expected.add(MapSolution.builder().put(x, i[1]).put(y, i[6]).build());
+            expected.add(MapSolution.builder().put(x, i[2]).put(y, i[5]).build());
+            expected.add(MapSolution.builder().put(x, i[2]).put(y, i[6]).build());
+        }
+        ResultsAssert.assertExpectedResults(results, expected);
+        assertTrue(results.hasSwitched());
+        // the bind join phase must not have bound the shared right tree
+        assertEquals(r.toString(), rString);
+        assertTrue(r1.modifiers().isEmpty());
+        assertTrue(r2.modifiers().isEmpty());
+    }
+
+    @Test(groups = {"fast"})
+    public void testAdaptiveForwardsDemandToBindJoin() throws Exception {
+        String prolog = "PREFIX ex: <"+EX+">\n";
+        SPARQLParser parser = SPARQLParser.strict();
+        EndpointQueryOp l = new EndpointQueryOp(eps.get(0),
+                parser.parseConjunctive(prolog+"SELECT * WHERE {ex:l1 ex:p1 ?x}"));
+        EndpointQueryOp r = new EndpointQueryOp(eps.get(0),
+                parser.parseConjunctive(prolog+"SELECT * WHERE {ex:r2 ex:p1 ?x; ex:p2 ?y}"));
+        List<Integer> demands = new ArrayList<>();
+        BindJoinResultsFactory recording = (smaller, right, joinVars, resultVars) -> {
+            Results in = bindJoinResultsFactory.createResults(smaller, right, joinVars,
+                                                              resultVars);
+            return new DelegatingResults(in.getVarNames(), in) {
+                @Override public void setDemand(int solutions) {
+                    demands.add(solutions);
+                    in.setDemand(solutions);
+                }
+                @Override public @Nonnull Solution next() {
+                    return in.next();
+                }
+            };
+        };
+        try (AdaptiveBindJoinResults results = new AdaptiveBindJoinResults(
+                opExecutor.execute(l), r, singletonList("x"), asList("x", "y"),
+                planExecutor, recording)) {
+            results.setDemand(3);
+            assertEquals(demands, singletonList(3));
+            assertTrue(results.hasNext());
+            results.next();
+            results.setDemand(-1);
+            assertEquals(demands, asList(3, -1));
+            assertFalse(results.hasSwitched());
+        }
+    }
+
+    @DataProvider public static @Nonnull Object[][] switchRowsData() {
+        return new Object[][] {
+                {null, AdaptiveBindJoinResults.DEF_SWITCH_ROWS, false},
+                {1, 1, true},
+        };
+    }
+
+    @Test(dataProvider = "switchRowsData", groups = {"fast"})
+    public void testSwitchRowsFromConfig(Integer configured, int expected, boolean switches) {
+        FreqelConfig config = createDefault();
+        if (configured != null)
+            config.set(ADAPTIVE_JOIN_SWITCH_ROWS, configured);
+        TestComponent component = DaggerTestComponent.builder()
+                .overrideFreqelConfig(config).build();
+        JoinOpExecutor joinExecutor = component.joinOpExecutor();
+        assertTrue(joinExecutor instanceof DefaultJoinOpExecutor);
+        assertEquals(((DefaultJoinOpExecutor) joinExecutor).getSwitchRows(), expected);
+
+        StdURI l1 = new StdURI(EX+"l1"), p1 = new StdURI(EX+"p1"), p2 = new StdURI(EX+"p2");
+        EndpointQueryOp l = new EndpointQueryOp(eps.get(0), createQuery(l1, p1, x));
+        EndpointQueryOp r = new EndpointQueryOp(eps.get(0),
+                                                createQuery(s, p1, x, s, p2, y));
+        Lit[] i = new Lit[7];
+        for (int j = 0; j < i.length; j++)
+            i[j] = StdLit.fromEscaped(String.valueOf(j), xsdInteger);
+        StdURI r1 = new StdURI(EX+"r1"), r2 = new StdURI(EX+"r2");
+        List<Solution> expectedSolutions = asList(
+                MapSolution.builder().put(x, i[1]).put(s, r1).put(y, i[3]).build(),
+                MapSolution.builder().put(x, i[1]).put(s, r2).put(y, i[5]).build(),
+                MapSolution.builder().put(x, i[1]).put(s, r2).put(y, i[6]).build(),
+                MapSolution.builder().put(x, i[2]).put(s, r2).put(y, i[5]).build(),
+                MapSolution.builder().put(x, i[2]).put(s, r2).put(y, i[6]).build());
+
+        Results results = joinExecutor.execute(JoinOp.create(l, r));
+        assertTrue(results instanceof AdaptiveBindJoinResults);
+        AdaptiveBindJoinResults adaptive = (AdaptiveBindJoinResults) results;
+        assertEquals(adaptive.getSwitchRows(), expected);
+        ResultsAssert.assertExpectedResults(adaptive, expectedSolutions);
+        assertEquals(adaptive.hasSwitched(), switches);
+    }
 }
@@ -12,9 +12,12 @@ import br.ufsc.lapesd.freqel.query.CQuery;
 import br.ufsc.lapesd.freqel.query.endpoint.Capability;
 import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
 import br.ufsc.lapesd.freqel.jena.query.modifiers.filter.JenaSPARQLFilter;
+import br.ufsc.lapesd.freqel.query.results.DistinctResultsFactory;
 import br.ufsc.lapesd.freqel.query.results.Results;
 import br.ufsc.lapesd.freqel.query.results.ResultsExecutor;
+import br.ufsc.lapesd.freqel.query.results.TermDictionary;
 import br.ufsc.lapesd.freqel.query.results.impl.BufferedResultsExecutor;
+import br.ufsc.lapesd.freqel.query.results.impl.HashDistinctResults;
 import br.ufsc.lapesd.freqel.query.results.impl.MapSolution;
 import br.ufsc.lapesd.freqel.query.results.impl.SequentialResultsExecutor;
 import br.ufsc.lapesd.freqel.reason.tbox.TBoxSpec;
@@ -51,6 +54,16 @@ public class QueryOpExecutorTest implements TestContext {
         public @Nonnull Results executeNode(@Nonnull Op node) {
             throw new UnsupportedOperationException();
         }
+
+        @Override
+        public @Nonnull TermDictionary getTermDictionary() {
+            return new TermDictionary();
+        }
+
+        @Override
+        public @Nonnull DistinctResultsFactory getDistinctResultsFactory() {
+            return HashDistinctResults::new;
+        }
     };
 
     private static @Nonnull ResultsExecutor saveExecutor(@Nonnull ResultsExecutor executor) {
@@ -0,0 +1,109 @@
+package br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.semi;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.inner.SemiJoinOp;
+import br.ufsc.lapesd.freqel.algebra.inner.UnionOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.QueryOp;
+import br.ufsc.lapesd.freqel.federation.execution.PlanExecutor;
+import br.ufsc.lapesd.freqel.federation.execution.tree.impl.joins.bind.BindJoinResultsFactory;
+import br.ufsc.lapesd.freqel.query.endpoint.exceptions.QueryExecutionException;
+import br.ufsc.lapesd.freqel.query.results.DistinctResultsFactory;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.TermDictionary;
+import br.ufsc.lapesd.freqel.query.results.impl.CollectionResults;
+import br.ufsc.lapesd.freqel.query.results.impl.HashDistinctResults;
+import br.ufsc.lapesd.freqel.query.results.impl.MapSolution;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class BindSemiJoinResultsTest implements TestContext {
+    private static final @Nonnull PlanExecutor FAILING_EXECUTOR = new PlanExecutor() {
+        @Override public @Nonnull Results executePlan(@Nonnull Op plan) {
+            throw new QueryExecutionException("Simulated failure");
+        }
+        @Override public @Nonnull Results executeNode(@Nonnull Op node) {
+            throw new QueryExecutionException("Simulated failure");
+        }
+        @Override public @Nonnull TermDictionary getTermDictionary() {
+            return new TermDictionary();
+        }
+        @Override public @Nonnull DistinctResultsFactory getDistinctResultsFactory() {
+            return HashDistinctResults::new;
+        }
+    };
+    private static final @Nonnull BindJoinResultsFactory FAILING_FACTORY = (s, r, j, rv) -> {
+        throw new QueryExecutionException("Simulated failure");
+    };
+
+    private @Nonnull CollectionResults people() {
+        return new CollectionResults(asList(MapSolution.build(x, Alice),
+                                            MapSolution.build(x, Bob)), singleton("x"));
+    }
+
+    @Test
+    public void testProbeFailureIsPropagated() {
+        for (SemiJoinOp.Mode mode : SemiJoinOp.Mode.values()) {
+            SemiJoinOp op = new SemiJoinOp(mode, new QueryOp(createQuery(x, knows, y)),
+                                           new QueryOp(createQuery(x, age, u)));
+            BindSemiJoinResults r = new BindSemiJoinResults(op, people(), FAILING_EXECUTOR,
+                                                            FAILING_FACTORY);
+            // before the fix, failures were taken as "no match", and NOT EXISTS/MINUS
+            // would output every left solution
+            expectThrows(QueryExecutionException.class, r::hasNext);
+        }
+    }
+
+    @Test
+    public void testAskFailureIsPropagated() {
+        for (SemiJoinOp.Mode mode : asList(SemiJoinOp.Mode.EXISTS,
+                                           SemiJoinOp.Mode.NOT_EXISTS)) {
+            // no join variables: the right side is evaluated with an ASK query
+            SemiJoinOp op = new SemiJoinOp(mode, new QueryOp(createQuery(x, knows, y)),
+                                           new QueryOp(createQuery(Bob, age, u)));
+            BindSemiJoinResults r = new BindSemiJoinResults(op, people(), FAILING_EXECUTOR,
+                                                            FAILING_FACTORY);
+            expectThrows(QueryExecutionException.class, r::hasNext);
+        }
+    }
+
+    @Test
+    public void testProbeDoesNotChangeRightSide() {
+        Op right = UnionOp.builder()
+                .add(new QueryOp(createQuery(x, age, u)))
+                .add(new QueryOp(createQuery(x, name, u)))
+                .build();
+        String rightString = right.toString();
+        List<Op> probes = new ArrayList<>();
+        BindJoinResultsFactory factory = (smaller, rightTree, joinVars, resultVars) -> {
+            probes.add(rightTree);
+            return new CollectionResults(singletonList(MapSolution.build(x, Alice)),
+                                         singleton("x"));
+        };
+        SemiJoinOp op = new SemiJoinOp(SemiJoinOp.Mode.NOT_EXISTS,
+                                       new QueryOp(createQuery(x, knows, y)), right);
+        BindSemiJoinResults r = new BindSemiJoinResults(op, people(), FAILING_EXECUTOR,
+                                                        factory);
+        List<Object> actual = new ArrayList<>();
+        r.forEachRemainingThenClose(actual::add);
+
+        assertEquals(actual, singletonList(MapSolution.build(x, Bob)));
+        assertEquals(probes.size(), 1);
+        Op probe = probes.get(0);
+        assertNotSame(probe, right);
+        for (int i = 0; i < right.getChildren().size(); i++)
+            assertNotSame(probe.getChildren().get(i), right.getChildren().get(i));
+        assertEquals(right.toString(), rightString);
+        assertTrue(right.modifiers().isEmpty());
+    }
+}
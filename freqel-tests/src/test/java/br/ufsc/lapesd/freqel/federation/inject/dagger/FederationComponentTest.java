@@ -4,16 +4,22 @@ import br.ufsc.lapesd.freqel.BSBMSelfTest;
 import br.ufsc.lapesd.freqel.LargeRDFBenchSelfTest;
 import br.ufsc.lapesd.freqel.PlanAssert;
 import br.ufsc.lapesd.freqel.ResultsAssert;
+import br.ufsc.lapesd.freqel.TestContext;
 import br.ufsc.lapesd.freqel.algebra.Op;
 import br.ufsc.lapesd.freqel.description.SelectDescription;
 import br.ufsc.lapesd.freqel.federation.Federation;
 import br.ufsc.lapesd.freqel.federation.Freqel;
+import br.ufsc.lapesd.freqel.federation.FreqelConfig;
 import br.ufsc.lapesd.freqel.jena.query.ARQEndpoint;
 import br.ufsc.lapesd.freqel.query.parse.SPARQLParseException;
 import br.ufsc.lapesd.freqel.query.results.Results;
 import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.profile.ExecutionProfile;
+import br.ufsc.lapesd.freqel.query.results.profile.OperatorStats;
+import br.ufsc.lapesd.freqel.util.VirtualThreads;
 import com.google.common.base.Stopwatch;
 import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -26,10 +32,13 @@ import java.util.*;
 import java.util.concurrent.TimeUnit;
 
 import static java.util.Arrays.asList;
-import static org.testng.Assert.assertNotNull;
-import static org.testng.Assert.assertTrue;
+import static br.ufsc.lapesd.freqel.federation.FreqelConfig.createDefault;
+import static br.ufsc.lapesd.freqel.jena.JenaWrappers.toJena;
+import static br.ufsc.lapesd.freqel.jena.JenaWrappers.toJenaProperty;
+import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static org.testng.Assert.*;
 
-public class FederationComponentTest {
+public class FederationComponentTest implements TestContext {
 
     private Map<String, Model> lrbModels;
     private Map<String, Model> bsbmModels;
@@ -120,4 +129,27 @@ public class FederationComponentTest {
             System.clearProperty("sources.cache.dir");
         }
     }
+
+    @Test(groups = {"fast"})
+    public void testVirtualThreadsNotProcessWide() {
+        boolean wasEnabled = VirtualThreads.isEnabled();
+        try {
+            VirtualThreads.setEnabled(true);
+            for (boolean virtual : asList(false, true)) {
+                FreqelConfig config = createDefault().set(FreqelConfig.Key.VIRTUAL_THREADS,
+                                                          virtual);
+                TestComponent component = DaggerTestComponent.builder()
+                        .overrideFreqelConfig(config).build();
+                assertNotNull(component.planExecutor());
+                assertNotNull(component.joinOpExecutor());
+                try (Federation federation = component.federation()) {
+                    assertNotNull(federation);
+                    // the setting is injected, not applied to the whole process
+                    assertEquals(VirtualThreads.isEnabled(), VirtualThreads.isSupported());
+                }
+            }
+        } finally {
+            VirtualThreads.setEnabled(wasEnabled);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+package br.ufsc.lapesd.freqel.federation.performance;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.federation.Federation;
+import br.ufsc.lapesd.freqel.federation.inject.dagger.DaggerTestComponent;
+import br.ufsc.lapesd.freqel.jena.query.ARQEndpoint;
+import br.ufsc.lapesd.freqel.query.TPEndpointTest.FusekiEndpoint;
+import br.ufsc.lapesd.freqel.query.endpoint.impl.SPARQLClient;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.util.metrics.MetricsRegistry;
+import org.apache.jena.query.Dataset;
+import org.apache.jena.query.DatasetFactory;
+import org.apache.jena.rdf.model.Model;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+
+import static br.ufsc.lapesd.freqel.jena.JenaWrappers.toJena;
+import static br.ufsc.lapesd.freqel.jena.JenaWrappers.toJenaProperty;
+import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class FederationMetricsTest implements TestContext {
+    private FusekiEndpoint fuseki;
+
+    @BeforeMethod
+    public void setUp() {
+        Dataset ds = DatasetFactory.createTxnMem();
+        Model model = ds.getDefaultModel();
+        model.add(toJena(Alice), toJenaProperty(knows), toJena(Bob));
+        model.add(toJena(Alice), toJenaProperty(knows), toJena(Charlie));
+        fuseki = new FusekiEndpoint(ds);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        if (fuseki != null)
+            fuseki.close();
+        fuseki = null;
+    }
+
+    private static int count(@Nonnull Results results) {
+        int count = 0;
+        for (; results.hasNext(); results.next())
+            ++count;
+        return count;
+    }
+
+    @Test
+    public void testSPARQLClientRequest() {
+        // a new Fuseki port yields a fresh set of per-endpoint instruments
+        FederationMetrics.Endpoint metrics = FederationMetrics.forEndpoint(fuseki.uri);
+        assertEquals(metrics.requests.sum(), 0);
+        try (SPARQLClient client = new SPARQLClient(fuseki.uri)) {
+            try (Results results = client.query(createQuery(Alice, knows, x))) {
+                assertEquals(count(results), 2);
+            }
+            assertEquals(metrics.requests.sum(), 1);
+            assertEquals(metrics.errors.sum(), 0);
+            assertEquals(metrics.latency.getCount(), 1);
+            assertEquals(metrics.bytes.getCount(), 1);
+            assertTrue(metrics.bytes.getSum() > 0);
+
+            try (Results results = client.query(createQuery(Bob, knows, x))) {
+                assertEquals(count(results), 0);
+            }
+            assertEquals(metrics.requests.sum(), 2);
+            assertEquals(metrics.errors.sum(), 0);
+            assertEquals(metrics.latency.getCount(), 2);
+            assertEquals(metrics.bytes.getCount(), 2);
+        }
+
+        String text = MetricsRegistry.getDefault().toString();
+        assertTrue(text.contains("freqel_endpoint_requests_total{endpoint=\""
+                                 + fuseki.uri + "\"} 2"), text);
+    }
+
+    @Test
+    public void testSPARQLClientErrorStatus() {
+        String uri = fuseki.uri.replace("/ds/query", "/missing/query");
+        FederationMetrics.Endpoint metrics = FederationMetrics.forEndpoint(uri);
+        try (SPARQLClient client = new SPARQLClient(uri)) {
+            try (Results results = client.query(createQuery(Alice, knows, x))) {
+                count(results);
+            } catch (RuntimeException ignored) { /* a 404 may also fail parsing */ }
+        }
+        assertEquals(metrics.requests.sum(), 1);
+        assertEquals(metrics.errors.sum(), 1);
+        assertEquals(metrics.latency.getCount(), 1);
+    }
+
+    @Test
+    public void testFederationQuery() {
+        long queries = FederationMetrics.QUERIES.sum();
+        long durations = FederationMetrics.QUERY_LATENCY.getCount();
+        long firstResults = FederationMetrics.FIRST_RESULT_LATENCY.getCount();
+        long errors = FederationMetrics.QUERY_ERRORS.sum();
+        try (Federation federation = DaggerTestComponent.builder().build().federation()) {
+            federation.addSource(ARQEndpoint.forService(fuseki.uri));
+            try (Results results = federation.query(createQuery(Alice, knows, x))) {
+                assertEquals(FederationMetrics.QUERIES.sum(), queries + 1);
+                assertEquals(count(results), 2);
+            }
+        }
+        assertEquals(FederationMetrics.QUERY_LATENCY.getCount(), durations + 1);
+        assertEquals(FederationMetrics.FIRST_RESULT_LATENCY.getCount(), firstResults + 1);
+        assertEquals(FederationMetrics.QUERY_ERRORS.sum(), errors);
+    }
+}
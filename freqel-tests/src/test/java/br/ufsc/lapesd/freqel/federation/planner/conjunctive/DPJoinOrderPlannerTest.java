@@ -0,0 +1,172 @@
+package br.ufsc.lapesd.freqel.federation.planner.conjunctive;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.inner.CartesianOp;
+import br.ufsc.lapesd.freqel.algebra.inner.JoinOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.EndpointQueryOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.QueryOp;
+import br.ufsc.lapesd.freqel.cardinality.CardinalityEnsemble;
+import br.ufsc.lapesd.freqel.cardinality.JoinCardinalityEstimator;
+import br.ufsc.lapesd.freqel.federation.inject.dagger.DaggerTestComponent;
+import br.ufsc.lapesd.freqel.federation.planner.JoinOrderPlanner;
+import br.ufsc.lapesd.freqel.model.Triple;
+import br.ufsc.lapesd.freqel.model.term.Term;
+import br.ufsc.lapesd.freqel.query.endpoint.impl.EmptyEndpoint;
+import br.ufsc.lapesd.freqel.util.indexed.ref.RefIndexSet;
+import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static br.ufsc.lapesd.freqel.algebra.JoinInfo.getJoinability;
+import static br.ufsc.lapesd.freqel.algebra.util.TreeUtils.streamPreOrder;
+import static br.ufsc.lapesd.freqel.federation.FreqelConfig.Key.JOIN_ORDER_DP_MAX_RELATIONS;
+import static br.ufsc.lapesd.freqel.federation.FreqelConfig.Key.JOIN_ORDER_PLANNER;
+import static br.ufsc.lapesd.freqel.federation.FreqelConfig.createDefault;
+import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toSet;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class DPJoinOrderPlannerTest implements TestContext {
+    private final EmptyEndpoint ep = new EmptyEndpoint();
+
+    /* chain x -p1-> y -p2-> z -p3-> w: p1 and p2 are large, but p3 is selective */
+    private final Map<Set<Term>, Cardinality> chainCardinalities =
+            ImmutableMap.<Set<Term>, Cardinality>builder()
+                    .put(ImmutableSet.of(p1), Cardinality.exact(10000))
+                    .put(ImmutableSet.of(p2), Cardinality.exact(10000))
+                    .put(ImmutableSet.of(p3), Cardinality.exact(1))
+                    .put(ImmutableSet.of(p1, p2), Cardinality.exact(1))
+                    .put(ImmutableSet.of(p2, p3), Cardinality.exact(5))
+                    .put(ImmutableSet.of(p1, p2, p3), Cardinality.exact(5))
+                    .build();
+
+    private static @Nonnull Set<Term> predicates(@Nonnull Op op) {
+        return streamPreOrder(op).filter(QueryOp.class::isInstance)
+                .flatMap(o -> ((QueryOp) o).getQuery().stream())
+                .map(Triple::getPredicate).collect(toSet());
+    }
+
+    private @Nonnull JoinCardinalityEstimator
+    joinEstimator(@Nonnull Map<Set<Term>, Cardinality> cardinalities) {
+        return info -> {
+            Set<Term> set = predicates(info.getLeft());
+            set.addAll(predicates(info.getRight()));
+            return cardinalities.getOrDefault(set, Cardinality.UNSUPPORTED);
+        };
+    }
+
+    private @Nonnull JoinOrderPlanner
+    createPlanner(@Nonnull Class<? extends JoinOrderPlanner> cls, @Nullable Integer maxRelations,
+                  @Nonnull Map<Set<Term>, Cardinality> cardinalities) {
+        CardinalityEnsemble ensemble = (query, endpoint) -> cardinalities.getOrDefault(
+                query.stream().map(Triple::getPredicate).collect(toSet()),
+                Cardinality.UNSUPPORTED);
+        return DaggerTestComponent.builder()
+                .overrideFreqelConfig(maxRelations == null
+                        ? createDefault().set(JOIN_ORDER_PLANNER, cls)
+                        : createDefault().set(JOIN_ORDER_PLANNER, cls)
+                                         .set(JOIN_ORDER_DP_MAX_RELATIONS, maxRelations))
+                .overrideCardinalityEnsemble(ensemble)
+                .overrideJoinCardinalityEstimator(joinEstimator(cardinalities))
+                .build().joinOrderPlanner();
+    }
+
+    /**
+     * Evaluates a plan using the cost model of {@link DPJoinOrderPlanner}, with the left
+     * child of each join as the outer side.
+     */
+    private @Nonnull DPJoinOrderPlanner.Entry
+    evaluate(@Nonnull Op plan, @Nonnull JoinCardinalityEstimator estimator) {
+        if (!(plan instanceof JoinOp)) {
+            long rows = DPJoinOrderPlanner.rows(plan.getCardinality());
+            return new DPJoinOrderPlanner.Entry(plan, rows,
+                                                DPJoinOrderPlanner.REQUEST_COST + rows, 1);
+        }
+        Op left = plan.getChildren().get(0), right = plan.getChildren().get(1);
+        DPJoinOrderPlanner.Entry l = evaluate(left, estimator), r = evaluate(right, estimator);
+        long rows = DPJoinOrderPlanner.rows(estimator.estimate(getJoinability(left, right)));
+        double cost = DPJoinOrderPlanner.joinCost(l, r, rows);
+        return new DPJoinOrderPlanner.Entry(plan, rows, cost, l.leaves + r.leaves);
+    }
+
+    private @Nonnull List<Op> chain() {
+        return asList(new EndpointQueryOp(ep, createQuery(x, p1, y)),
+                      new EndpointQueryOp(ep, createQuery(y, p2, z)),
+                      new EndpointQueryOp(ep, createQuery(z, p3, w)));
+    }
+
+    private @Nonnull Op plan(@Nonnull JoinOrderPlanner planner, @Nonnull List<Op> nodes) {
+        return planner.plan(new ArrayJoinGraph(RefIndexSet.fromRefDistinct(nodes)), nodes);
+    }
+
+    public void testCheaperThanGreedy() {
+        JoinCardinalityEstimator estimator = joinEstimator(chainCardinalities);
+        JoinOrderPlanner dp = createPlanner(DPJoinOrderPlanner.class, null, chainCardinalities);
+        JoinOrderPlanner greedy = createPlanner(GreedyJoinOrderPlanner.class, null,
+                                                chainCardinalities);
+        Op dpPlan = plan(dp, chain()), greedyPlan = plan(greedy, chain());
+
+        // greedy starts with the smallest join (p1 ⋈ p2), fetching both large sides
+        assertEquals(predicates(greedyPlan.getChildren().get(0)), ImmutableSet.of(p1, p2));
+        // DP starts from the selective p3 and binds it into p1 ⋈ p2
+        assertEquals(predicates(dpPlan.getChildren().get(0)), ImmutableSet.of(p3));
+        assertEquals(predicates(dpPlan.getChildren().get(1)), ImmutableSet.of(p1, p2));
+
+        double dpCost = evaluate(dpPlan, estimator).cost;
+        double greedyCost = evaluate(greedyPlan, estimator).cost;
+        assertTrue(dpCost < greedyCost, "dpCost="+dpCost+", greedyCost="+greedyCost);
+    }
+
+    public void testNoCartesianIfConnected() {
+        // the two ends are tiny, so a cartesian product between them would look cheap
+        Map<Set<Term>, Cardinality> cardinalities =
+                ImmutableMap.<Set<Term>, Cardinality>builder()
+                        .put(ImmutableSet.of(p1), Cardinality.exact(1))
+                        .put(ImmutableSet.of(p2), Cardinality.exact(10000))
+                        .put(ImmutableSet.of(p3), Cardinality.exact(10000))
+                        .put(ImmutableSet.of(p4), Cardinality.exact(1))
+                        .build();
+        JoinOrderPlanner dp = createPlanner(DPJoinOrderPlanner.class, null, cardinalities);
+        List<Op> nodes = asList(new EndpointQueryOp(ep, createQuery(x, p1, y)),
+                                new EndpointQueryOp(ep, createQuery(y, p2, z)),
+                                new EndpointQueryOp(ep, createQuery(z, p3, w)),
+                                new EndpointQueryOp(ep, createQuery(w, p4, x1)));
+        //noinspection UnstableApiUsage
+        for (List<Op> permutation : Collections2.permutations(nodes)) {
+            Op plan = plan(dp, new ArrayList<>(permutation));
+            assertEquals(predicates(plan), ImmutableSet.of(p1, p2, p3, p4));
+            assertFalse(streamPreOrder(plan).anyMatch(CartesianOp.class::isInstance));
+            streamPreOrder(plan).filter(JoinOp.class::isInstance).forEach(
+                    j -> assertFalse(((JoinOp) j).getJoinVars().isEmpty(), "cartesian: "+j));
+        }
+    }
+
+    public void testGreedyAboveMaxRelations() {
+        DPJoinOrderPlanner limited = (DPJoinOrderPlanner) createPlanner(
+                DPJoinOrderPlanner.class, 2, chainCardinalities);
+        assertEquals(limited.getMaxRelations(), 2);
+        JoinOrderPlanner greedy = createPlanner(GreedyJoinOrderPlanner.class, null,
+                                                chainCardinalities);
+        Op limitedPlan = plan(limited, chain()), greedyPlan = plan(greedy, chain());
+        assertEquals(limitedPlan.toString(), greedyPlan.toString());
+        assertEquals(predicates(limitedPlan.getChildren().get(0)), ImmutableSet.of(p1, p2));
+
+        // at the limit DPccp is still used
+        JoinOrderPlanner atLimit = createPlanner(DPJoinOrderPlanner.class, 3,
+                                                 chainCardinalities);
+        assertEquals(predicates(plan(atLimit, chain()).getChildren().get(0)),
+                     ImmutableSet.of(p3));
+    }
+}
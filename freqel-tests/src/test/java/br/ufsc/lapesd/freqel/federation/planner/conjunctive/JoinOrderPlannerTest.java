@@ -120,6 +120,23 @@ public class JoinOrderPlannerTest implements TestContext {
                                         .set(JOIN_ORDER_PLANNER, GreedyJoinOrderPlanner.class)
                                 );
                                 return b.build().joinOrderPlanner();
+                            }),
+                    new NamedSupplier<>("DPJoinOrderPlanner",
+                            () -> {
+                                TestComponent.Builder b = DaggerTestComponent.builder();
+                                b.overrideFreqelConfig(createDefault()
+                                        .set(EQUIV_CLEANER, DefaultEquivCleaner.class)
+                                        .set(JOIN_ORDER_PLANNER, DPJoinOrderPlanner.class));
+                                return b.build().joinOrderPlanner();
+                            }),
+                    new NamedSupplier<>("DPJoinOrderPlanner, greedy above 2 nodes",
+                            () -> {
+                                TestComponent.Builder b = DaggerTestComponent.builder();
+                                b.overrideFreqelConfig(createDefault()
+                                        .set(EQUIV_CLEANER, DefaultEquivCleaner.class)
+                                        .set(JOIN_ORDER_PLANNER, DPJoinOrderPlanner.class)
+                                        .set(JOIN_ORDER_DP_MAX_RELATIONS, 2));
+                                return b.build().joinOrderPlanner();
                             })
             );
 
@@ -0,0 +1,122 @@
+package br.ufsc.lapesd.freqel.federation.planner.post.steps;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.inner.PipeOp;
+import br.ufsc.lapesd.freqel.algebra.inner.UnionOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.EndpointQueryOp;
+import br.ufsc.lapesd.freqel.algebra.util.TreeUtils;
+import br.ufsc.lapesd.freqel.jena.query.modifiers.filter.JenaSPARQLFilter;
+import br.ufsc.lapesd.freqel.query.endpoint.Capability;
+import br.ufsc.lapesd.freqel.query.endpoint.impl.EmptyEndpoint;
+import br.ufsc.lapesd.freqel.query.modifiers.Aggregation;
+import br.ufsc.lapesd.freqel.query.modifiers.Limit;
+import br.ufsc.lapesd.freqel.query.modifiers.Modifier;
+import br.ufsc.lapesd.freqel.query.modifiers.Projection;
+import br.ufsc.lapesd.freqel.query.parse.CQueryContext;
+import br.ufsc.lapesd.freqel.util.ref.EmptyRefSet;
+import br.ufsc.lapesd.freqel.util.ref.IdentityHashSet;
+import br.ufsc.lapesd.freqel.util.ref.RefSet;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static br.ufsc.lapesd.freqel.query.modifiers.Aggregation.Function.*;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+@Test(groups = {"fast"})
+public class PushAggregationStepTest implements TestContext {
+    private static final EmptyEndpoint ep = new EmptyEndpoint();
+    private static final EmptyEndpoint noAggEp = new EmptyEndpoint() {
+        @Override public boolean hasRemoteCapability(@Nonnull Capability capability) {
+            return capability != Capability.AGGREGATION;
+        }
+    };
+
+    private static @Nonnull EndpointQueryOp q(Object... args) {
+        return new EndpointQueryOp(ep, CQueryContext.createQuery(args));
+    }
+
+    private static @Nonnull EndpointQueryOp nq(Object... args) {
+        return new EndpointQueryOp(noAggEp, CQueryContext.createQuery(args));
+    }
+
+    private static @Nonnull PipeOp pipe(@Nonnull Op child, @Nonnull Modifier... modifiers) {
+        PipeOp pipe = new PipeOp(child);
+        pipe.modifiers().addAll(asList(modifiers));
+        return pipe;
+    }
+
+    @DataProvider
+    public static @Nonnull Object[][] testData() {
+        Aggregation count = Aggregation.of(singleton("x"), Aggregation.Aggregate.countAll("c"));
+        Aggregation sum = Aggregation.of(singleton("x"), Aggregation.Aggregate.of(SUM, "u", "s"));
+        Aggregation distinctCount = Aggregation.of(singleton("x"),
+                new Aggregation.Aggregate(COUNT, "y", "c", true));
+        Projection countProjection = Projection.of("x", "c");
+        Projection sumProjection = Projection.of("x", "s");
+
+        EndpointQueryOp shared = q(x, knows, y);
+        return Stream.of(
+                // no aggregation, no effect
+                asList(pipe(q(x, knows, y), Limit.of(10)), EmptyRefSet.emptySet(), null),
+                // endpoint cannot aggregate
+                asList(pipe(nq(x, knows, y), count), EmptyRefSet.emptySet(), null),
+                // filters must be evaluated after the aggregation
+                asList(pipe(q(x, age, u), sum, JenaSPARQLFilter.build("?s > 23")),
+                       EmptyRefSet.emptySet(), null),
+                // shared child cannot be changed
+                asList(pipe(shared, count), IdentityHashSet.of(shared), null),
+                // endpoint cannot apply the aggregation before its LIMIT
+                asList(pipe(q(x, knows, y, Limit.of(5)), count), EmptyRefSet.emptySet(), null),
+                // push into endpoint
+                asList(pipe(q(x, knows, y, Projection.of("x")), count),
+                       EmptyRefSet.emptySet(),
+                       q(x, knows, y, count, countProjection)),
+                asList(pipe(q(x, age, u), sum, sumProjection),
+                       EmptyRefSet.emptySet(),
+                       q(x, age, u, sum, sumProjection)),
+                // partial aggregates in union members which are later pushed
+                asList(pipe(UnionOp.builder().add(q(x, knows, y)).add(q(x, knows, Alice))
+                                             .build(), count),
+                       EmptyRefSet.emptySet(),
+                       pipe(UnionOp.builder()
+                                       .add(q(x, knows, y, count, countProjection))
+                                       .add(q(x, knows, Alice, count, countProjection))
+                                       .add(countProjection).build(),
+                            count.toCombining())),
+                // partial aggregates stay at the mediator if sources cannot aggregate
+                asList(pipe(UnionOp.builder().add(nq(x, age, u)).add(nq(x, age, v)).build(),
+                            sum),
+                       EmptyRefSet.emptySet(),
+                       pipe(UnionOp.builder()
+                                       .add(pipe(nq(x, age, u), sum, sumProjection))
+                                       .add(pipe(nq(x, age, v), sum, sumProjection))
+                                       .add(sumProjection).build(),
+                            sum.toCombining())),
+                // distinct aggregates cannot be decomposed
+                asList(pipe(UnionOp.builder().add(q(x, knows, y)).add(q(x, knows, z)).build(),
+                            distinctCount),
+                       EmptyRefSet.emptySet(), null)
+        ).map(List::toArray).toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "testData")
+    public void test(@Nonnull Op in, @Nonnull RefSet<Op> shared, @Nullable Op expected) {
+        if (expected == null)
+            expected = in;
+        boolean expectSame = expected == in;
+        expected = TreeUtils.deepCopy(expected);
+        Op actual = new PushAggregationStep().plan(in, shared);
+        assertEquals(actual, expected);
+        if (expectSame)
+            assertSame(actual, in);
+    }
+}
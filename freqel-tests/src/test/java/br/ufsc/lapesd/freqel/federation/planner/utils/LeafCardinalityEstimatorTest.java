@@ -0,0 +1,126 @@
+package br.ufsc.lapesd.freqel.federation.planner.utils;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.algebra.Cardinality;
+import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.inner.UnionOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.EndpointQueryOp;
+import br.ufsc.lapesd.freqel.algebra.util.RelativeCardinalityAdder;
+import br.ufsc.lapesd.freqel.cardinality.CardinalityEnsemble;
+import br.ufsc.lapesd.freqel.federation.concurrent.PoolPlanningExecutorService;
+import br.ufsc.lapesd.freqel.query.CQuery;
+import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+import br.ufsc.lapesd.freqel.query.endpoint.impl.EmptyEndpoint;
+import br.ufsc.lapesd.freqel.query.endpoint.impl.SPARQLClient;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static java.util.Arrays.asList;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class LeafCardinalityEstimatorTest implements TestContext {
+    private static final SPARQLClient remote1 = new SPARQLClient("http://example.org/1/sparql");
+    private static final SPARQLClient remote2 = new SPARQLClient("http://example.org/2/sparql");
+
+    /**
+     * Estimates a query as 10 times its number of triples and records the estimating thread.
+     */
+    private static class RecordingEnsemble implements CardinalityEnsemble {
+        final @Nonnull Map<CQuery, Thread> threads = new ConcurrentHashMap<>();
+
+        @Override
+        public @Nonnull Cardinality estimate(@Nonnull CQuery query, @Nullable TPEndpoint ep) {
+            threads.put(query, Thread.currentThread());
+            return Cardinality.exact(10 * query.size());
+        }
+    }
+
+    @Test
+    public void testSequential() {
+        RecordingEnsemble ensemble = new RecordingEnsemble();
+        LeafCardinalityEstimator estimator =
+                new LeafCardinalityEstimator(ensemble, RelativeCardinalityAdder.DEFAULT);
+        EndpointQueryOp n1 = new EndpointQueryOp(remote1, createQuery(x, knows, y));
+        EndpointQueryOp n2 = new EndpointQueryOp(remote2, createQuery(y, knows, z, z, age, w));
+        estimator.estimate(asList(n1, n2));
+
+        assertEquals(n1.getCardinality(), Cardinality.exact(10));
+        assertEquals(n2.getCardinality(), Cardinality.exact(20));
+        assertEquals(ensemble.threads.get(n1.getQuery()), Thread.currentThread());
+        assertEquals(ensemble.threads.get(n2.getQuery()), Thread.currentThread());
+    }
+
+    @Test
+    public void testLocalNodesOnCallerThread() {
+        RecordingEnsemble ensemble = new RecordingEnsemble();
+        PoolPlanningExecutorService executor = new PoolPlanningExecutorService(2);
+        LeafCardinalityEstimator estimator = new LeafCardinalityEstimator(
+                ensemble, RelativeCardinalityAdder.DEFAULT, executor);
+        EmptyEndpoint local = new EmptyEndpoint();
+        EndpointQueryOp n1 = new EndpointQueryOp(local, createQuery(x, knows, y));
+        EndpointQueryOp n2 = new EndpointQueryOp(remote1, createQuery(y, knows, z, z, age, w));
+        estimator.estimate(asList(n1, n2));
+
+        assertEquals(n1.getCardinality(), Cardinality.exact(10));
+        assertEquals(n2.getCardinality(), Cardinality.exact(20));
+        assertEquals(ensemble.threads.get(n1.getQuery()), Thread.currentThread());
+        assertEquals(ensemble.threads.get(n2.getQuery()), Thread.currentThread());
+    }
+
+    @Test(timeOut = 10000)
+    public void testRemoteNodesInParallel() {
+        CountDownLatch latch = new CountDownLatch(2);
+        RecordingEnsemble ensemble = new RecordingEnsemble() {
+            @Override
+            public @Nonnull Cardinality estimate(@Nonnull CQuery query, @Nullable TPEndpoint ep) {
+                latch.countDown();
+                try { // only completes if both estimates are running at the same time
+                    assertTrue(latch.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return super.estimate(query, ep);
+            }
+        };
+        PoolPlanningExecutorService executor = new PoolPlanningExecutorService(2);
+        LeafCardinalityEstimator estimator = new LeafCardinalityEstimator(
+                ensemble, RelativeCardinalityAdder.DEFAULT, executor);
+        EndpointQueryOp n1 = new EndpointQueryOp(remote1, createQuery(x, knows, y));
+        EndpointQueryOp n2 = new EndpointQueryOp(remote2, createQuery(y, knows, z, z, age, w));
+        estimator.estimate(asList(n1, n2));
+
+        assertEquals(n1.getCardinality(), Cardinality.exact(10));
+        assertEquals(n2.getCardinality(), Cardinality.exact(20));
+        assertNotEquals(ensemble.threads.get(n1.getQuery()),
+                        ensemble.threads.get(n2.getQuery()));
+    }
+
+    @Test
+    public void testEstimatesInnerNodes() {
+        RecordingEnsemble ensemble = new RecordingEnsemble();
+        PoolPlanningExecutorService executor = new PoolPlanningExecutorService(2);
+        LeafCardinalityEstimator estimator = new LeafCardinalityEstimator(
+                ensemble, RelativeCardinalityAdder.DEFAULT, executor);
+        CQuery query = createQuery(x, knows, y);
+        EndpointQueryOp n1 = new EndpointQueryOp(remote1, query);
+        EndpointQueryOp n2 = new EndpointQueryOp(remote2, query);
+        Op union = UnionOp.builder().add(n1).add(n2).build();
+        EndpointQueryOp n3 = new EndpointQueryOp(remote1, createQuery(y, age, z));
+        List<Op> nodes = asList(union, n3);
+        estimator.estimate(nodes);
+
+        assertEquals(n3.getCardinality(), Cardinality.exact(10));
+        assertEquals(ensemble.threads.size(), 2);
+        assertNotEquals(union.getCardinality(), Cardinality.UNSUPPORTED);
+        assertTrue(union.getCardinality().getValue(-1) >= 10, union.getCardinality().toString());
+    }
+}
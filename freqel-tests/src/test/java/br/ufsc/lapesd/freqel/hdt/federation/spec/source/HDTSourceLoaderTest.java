@@ -0,0 +1,212 @@
+package br.ufsc.lapesd.freqel.hdt.federation.spec.source;
+
+import br.ufsc.lapesd.freqel.TestContext;
+import br.ufsc.lapesd.freqel.federation.spec.source.RDFFileSourceLoader;
+import br.ufsc.lapesd.freqel.federation.spec.source.SourceCache;
+import br.ufsc.lapesd.freqel.federation.spec.source.SourceLoadException;
+import br.ufsc.lapesd.freqel.hdt.query.HDTEndpoint;
+import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.util.DictTree;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+import static br.ufsc.lapesd.freqel.query.parse.CQueryContext.createQuery;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.*;
+
+@Test(groups = {"fast"})
+public class HDTSourceLoaderTest implements TestContext {
+    private static final String TTL = "@prefix foaf: <http://xmlns.com/foaf/0.1/> .\n" +
+            "@prefix ex: <http://example.org/> .\n" +
+            "ex:Alice foaf:knows ex:Bob, ex:Charlie .\n";
+    private File dir, cacheDir;
+    private final List<TPEndpoint> endpoints = new ArrayList<>();
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("freqel").toFile();
+        cacheDir = new File(dir, "cache");
+        assertTrue(cacheDir.mkdirs());
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        for (TPEndpoint ep : endpoints)
+            ep.close();
+        endpoints.clear();
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private @Nonnull File writeTTL(@Nonnull String name, @Nonnull String content)
+            throws IOException {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), content.getBytes(UTF_8));
+        return file;
+    }
+
+    private @Nonnull DictTree spec(@Nonnull String loader, @Nonnull Object... keyValues)
+            throws IOException {
+        Map<String, Object> map = new HashMap<>();
+        map.put("loader", loader);
+        for (int i = 0; i < keyValues.length; i += 2)
+            map.put(keyValues[i].toString(), keyValues[i+1]);
+        return DictTree.load().fromMap(map);
+    }
+
+    private @Nonnull HDTEndpoint load(@Nonnull DictTree spec,
+                                      boolean withCache) throws SourceLoadException {
+        HDTSourceLoader loader = new HDTSourceLoader();
+        loader.setTempDir(new File(dir, "tmp"));
+        if (withCache)
+            loader.setSourceCache(new SourceCache(cacheDir));
+        return single(loader.load(spec, dir));
+    }
+
+    private @Nonnull HDTEndpoint single(@Nonnull Set<TPEndpoint> set) {
+        assertEquals(set.size(), 1);
+        TPEndpoint ep = set.iterator().next();
+        endpoints.add(ep);
+        assertTrue(ep instanceof HDTEndpoint);
+        return (HDTEndpoint) ep;
+    }
+
+    private @Nonnull List<File> cachedHDTFiles() {
+        File[] files = cacheDir.listFiles((d, name) -> name.endsWith(".hdt"));
+        assertNotNull(files);
+        return Arrays.asList(files);
+    }
+
+    private static int count(@Nonnull TPEndpoint ep) {
+        int count = 0;
+        try (Results results = ep.query(createQuery(Alice, knows, x))) {
+            for (; results.hasNext(); results.next())
+                ++count;
+        }
+        return count;
+    }
+
+    @Test
+    public void testConvertWithoutCache() throws Exception {
+        writeTTL("data.ttl", TTL);
+        HDTEndpoint ep = load(spec("hdt", "file", "data.ttl"), false);
+        assertEquals(count(ep), 2);
+        assertEquals(cachedHDTFiles().size(), 0);
+    }
+
+    @Test
+    public void testConvertAndReuse() throws Exception {
+        writeTTL("data.ttl", TTL);
+        HDTEndpoint ep = load(spec("hdt", "file", "data.ttl"), true);
+        assertEquals(count(ep), 2);
+        List<File> files = cachedHDTFiles();
+        assertEquals(files.size(), 1);
+        File hdt = files.get(0);
+        assertTrue(ep.toString().contains(hdt.getName()));
+        assertEquals(Objects.requireNonNull(cacheDir.listFiles((d, n) -> n.endsWith(".tmp")))
+                            .length, 0);
+
+        // make any rewrite of the HDT file observable
+        long mtime = hdt.lastModified() - 60000;
+        assertTrue(hdt.setLastModified(mtime));
+
+        HDTEndpoint ep2 = load(spec("hdt", "file", "data.ttl"), true);
+        assertEquals(count(ep2), 2);
+        assertEquals(cachedHDTFiles(), files);
+        assertEquals(hdt.lastModified(), mtime);
+        assertTrue(ep2.toString().contains(hdt.getName()));
+    }
+
+    @Test
+    public void testConvertAgainIfModified() throws Exception {
+        File ttl = writeTTL("data.ttl", TTL);
+        HDTEndpoint ep = load(spec("hdt", "file", "data.ttl"), true);
+        assertEquals(count(ep), 2);
+        List<File> files = cachedHDTFiles();
+        assertEquals(files.size(), 1);
+
+        // same size, only the modification time differs
+        assertTrue(ttl.setLastModified(ttl.lastModified() + 60000));
+        HDTEndpoint ep2 = load(spec("hdt", "file", "data.ttl"), true);
+        assertEquals(count(ep2), 2);
+        assertEquals(cachedHDTFiles().size(), 2);
+        assertFalse(ep2.toString().contains(files.get(0).getName()));
+
+        // changed contents
+        writeTTL("data.ttl", TTL + "<http://example.org/Alice> " +
+                             "<http://xmlns.com/foaf/0.1/knows> <http://example.org/Dave> .\n");
+        HDTEndpoint ep3 = load(spec("hdt", "file", "data.ttl"), true);
+        assertEquals(count(ep3), 3);
+        assertEquals(cachedHDTFiles().size(), 3);
+    }
+
+    @Test
+    public void testMultipleFiles() throws Exception {
+        writeTTL("a.ttl", TTL);
+        writeTTL("b.ttl", "@prefix foaf: <http://xmlns.com/foaf/0.1/> .\n" +
+                          "<http://example.org/Alice> foaf:knows <http://example.org/Dave> .\n");
+        HDTEndpoint ep = load(spec("hdt", "files", Arrays.asList("a.ttl", "b.ttl")), true);
+        assertEquals(count(ep), 3);
+        assertEquals(cachedHDTFiles().size(), 1);
+    }
+
+    @Test
+    public void testLoadHDTFileDirectly() throws Exception {
+        writeTTL("data.ttl", TTL);
+        HDTEndpoint converted = load(spec("hdt", "file", "data.ttl"), true);
+        File hdt = cachedHDTFiles().get(0);
+        converted.close();
+        endpoints.remove(converted);
+
+        File copy = new File(dir, "copy.hdt");
+        Files.copy(hdt.toPath(), copy.toPath());
+        HDTEndpoint ep = load(spec("hdt", "file", "copy.hdt"), true);
+        assertEquals(count(ep), 2);
+        assertTrue(ep.toString().contains("copy.hdt"));
+        assertEquals(cachedHDTFiles().size(), 1);
+    }
+
+    @Test(expectedExceptions = SourceLoadException.class)
+    public void testNoSources() throws Exception {
+        load(spec("hdt", "location", new File(dir, "missing.bin").getAbsolutePath()), true);
+    }
+
+    @Test
+    public void testRDFFileDelegates() throws Exception {
+        writeTTL("data.ttl", TTL);
+        RDFFileSourceLoader loader = new RDFFileSourceLoader();
+        loader.setTempDir(new File(dir, "tmp"));
+        loader.setSourceCache(new SourceCache(cacheDir));
+        HDTEndpoint ep = single(loader.load(spec("rdf-file", "file", "data.ttl", "hdt", true),
+                                            dir));
+        assertEquals(count(ep), 2);
+        assertEquals(cachedHDTFiles().size(), 1);
+
+        // a second load reuses the conversion done through the rdf-file loader
+        HDTEndpoint ep2 = load(spec("hdt", "file", "data.ttl"), true);
+        assertEquals(count(ep2), 2);
+        assertEquals(cachedHDTFiles().size(), 1);
+    }
+
+    @Test
+    public void testRDFFileWithoutHDT() throws Exception {
+        writeTTL("data.ttl", TTL);
+        RDFFileSourceLoader loader = new RDFFileSourceLoader();
+        loader.setSourceCache(new SourceCache(cacheDir));
+        Set<TPEndpoint> set = loader.load(spec("rdf-file", "file", "data.ttl"), dir);
+        assertEquals(set.size(), 1);
+        TPEndpoint ep = set.iterator().next();
+        endpoints.add(ep);
+        assertFalse(ep instanceof HDTEndpoint);
+        assertEquals(count(ep), 2);
+        assertEquals(cachedHDTFiles().size(), 0);
+    }
+}
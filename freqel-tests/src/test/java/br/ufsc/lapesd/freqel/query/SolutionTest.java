@@ -295,4 +295,35 @@ public class SolutionTest implements TestContext {
         MapSolution a = MapSolution.builder().put("x", TestContext.Alice).put("y", TestContext.Bob).build();
         assertNotEquals(supplier.get(), a);
     }
-}
\ No newline at end of file
+
+    private static void assertValues(@Nonnull Solution s, Term x, Term y, Term z) {
+        assertEquals(s.get("x"), x);
+        assertEquals(s.get("y"), y);
+        assertEquals(s.get("z"), z);
+    }
+
+    @Test
+    public void testFactoryCopiesSlots() {
+        ArraySolution.ValueFactory xy = ArraySolution.forVars(Arrays.asList("x", "y"));
+        ArraySolution.ValueFactory zy = ArraySolution.forVars(Arrays.asList("z", "y"));
+        ArraySolution.ValueFactory yxz = ArraySolution.forVars(Arrays.asList("y", "x", "z"));
+
+        for (int i = 0; i < 3; i++) { // later rounds use cached slots
+            ArraySolution l = xy.fromValues(TestContext.Alice, lit(i));
+            ArraySolution r = zy.fromValues(TestContext.Bob, null);
+            assertValues(yxz.fromSolution(l), TestContext.Alice, lit(i), null);
+            assertValues(yxz.fromSolutions(l, r), TestContext.Alice, lit(i), TestContext.Bob);
+            assertValues(yxz.fromSolutions(r, l), TestContext.Alice, lit(i), TestContext.Bob);
+            // changing the layout of an argument must not reuse stale slots
+            MapSolution charlie = MapSolution.build("x", TestContext.Charlie);
+            assertValues(yxz.fromSolutions(r, charlie), TestContext.Charlie, null, TestContext.Bob);
+            assertValues(yxz.fromSolutions(l, r), TestContext.Alice, lit(i), TestContext.Bob);
+            assertEquals(xy.fromSolution(yxz.fromSolutions(l, r)), l);
+            // the first solution binding a variable wins
+            ArraySolution zy2 = zy.fromValues(TestContext.Charlie, lit(i+10));
+            assertValues(yxz.fromSolutions(l, zy2), TestContext.Alice, lit(i), TestContext.Charlie);
+            assertValues(yxz.fromSolutions(zy2, l), TestContext.Alice, lit(i+10),
+                         TestContext.Charlie);
+        }
+    }
+}
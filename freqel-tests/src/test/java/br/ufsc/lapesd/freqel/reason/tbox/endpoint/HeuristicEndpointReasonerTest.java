@@ -4,7 +4,10 @@ import br.ufsc.lapesd.freqel.PlanAssert;
 import br.ufsc.lapesd.freqel.ResultsAssert;
 import br.ufsc.lapesd.freqel.TestContext;
 import br.ufsc.lapesd.freqel.algebra.Op;
+import br.ufsc.lapesd.freqel.algebra.leaf.EndpointOp;
+import br.ufsc.lapesd.freqel.algebra.leaf.EndpointQueryOp;
 import br.ufsc.lapesd.freqel.algebra.leaf.QueryOp;
+import br.ufsc.lapesd.freqel.cardinality.impl.QuickSelectivityHeuristic;
 import br.ufsc.lapesd.freqel.description.Description;
 import br.ufsc.lapesd.freqel.description.semantic.SemanticAskDescription;
 import br.ufsc.lapesd.freqel.description.semantic.SemanticSelectDescription;
@@ -18,6 +21,8 @@ import br.ufsc.lapesd.freqel.query.CQuery;
 import br.ufsc.lapesd.freqel.query.MutableCQuery;
 import br.ufsc.lapesd.freqel.query.endpoint.CQEndpoint;
 import br.ufsc.lapesd.freqel.query.endpoint.TPEndpoint;
+import br.ufsc.lapesd.freqel.query.modifiers.Distinct;
+import br.ufsc.lapesd.freqel.query.modifiers.Limit;
 import br.ufsc.lapesd.freqel.query.modifiers.Reasoning;
 import br.ufsc.lapesd.freqel.query.parse.SPARQLParseException;
 import br.ufsc.lapesd.freqel.query.parse.SPARQLParser;
@@ -29,17 +34,18 @@ import br.ufsc.lapesd.freqel.reason.tbox.NoEndpointReasoner;
 import br.ufsc.lapesd.freqel.reason.tbox.TBox;
 import br.ufsc.lapesd.freqel.reason.tbox.TBoxSpec;
 import br.ufsc.lapesd.freqel.reason.tbox.TransitiveClosureTBoxMaterializer;
+import br.ufsc.lapesd.freqel.reason.tbox.replacements.generators.SubTermReplacementGenerator;
+import br.ufsc.lapesd.freqel.reason.tbox.replacements.pruners.NoReplacementPruner;
 import com.google.common.collect.Lists;
 import org.apache.jena.rdf.model.Model;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import javax.annotation.Nonnull;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static br.ufsc.lapesd.freqel.federation.FreqelConfig.Key.ENDPOINT_REASONER;
@@ -51,6 +57,7 @@ import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
 public class HeuristicEndpointReasonerTest implements TestContext {
@@ -187,4 +194,61 @@ public class HeuristicEndpointReasonerTest implements TestContext {
         }
     }
 
-}
\ No newline at end of file
+
+    private @Nonnull HeuristicEndpointReasoner createReasoner(@Nonnull TBox tBox) {
+        HeuristicEndpointReasoner reasoner = new HeuristicEndpointReasoner(
+                new SubTermReplacementGenerator(NoReplacementPruner.INSTANCE),
+                new QuickSelectivityHeuristic());
+        reasoner.setTBox(tBox);
+        reasoner.setEstimationThreshold(Integer.MAX_VALUE); // never use VarReplacements
+        return reasoner;
+    }
+
+    @DataProvider public @Nonnull Object[][] batchData() {
+        return new Object[][] {
+                new Object[] {HeuristicEndpointReasoner.DEF_VALUES_ROWS},
+                new Object[] {2},
+                new Object[] {1},
+        };
+    }
+
+    @Test(dataProvider = "batchData")
+    public void testBatchedRewriting(int valuesRows) {
+        String prefix = "../replacements/generators/subterm-";
+        TBox tBox = loadTBox(prefix + "onto.ttl");
+        ARQEndpoint ep = createEndpoint(prefix + "1.ttl", tBox, SemanticAskDescription::new);
+        HeuristicEndpointReasoner reasoner = createReasoner(tBox);
+        reasoner.setValuesRows(valuesRows);
+
+        AtomicInteger calls = new AtomicInteger();
+        Function<EndpointOp, Results> executor = op -> {
+            calls.incrementAndGet();
+            return ep.query(((EndpointQueryOp) op).getQuery());
+        };
+        EndpointQueryOp op = new EndpointQueryOp(ep, createQuery(x, type, D, Distinct.INSTANCE));
+        CollectionResults actual = greedy(reasoner.apply(op, executor));
+        ResultsAssert.assertExpectedResults(actual, newHashSet(MapSolution.build(x, Dave),
+                                                               MapSolution.build(x, Charlie),
+                                                               MapSolution.build(x, Bob)));
+        int alternatives = (int)tBox.withSubClasses(D).count();
+        assertEquals(calls.get(), (alternatives + valuesRows - 1) / valuesRows);
+    }
+
+    @Test
+    public void testLimitStopsEarly() {
+        String prefix = "../replacements/generators/subterm-";
+        TBox tBox = loadTBox(prefix + "onto.ttl");
+        ARQEndpoint ep = createEndpoint(prefix + "1.ttl", tBox, SemanticAskDescription::new);
+        HeuristicEndpointReasoner reasoner = createReasoner(tBox);
+        reasoner.setValuesRows(1);
+
+        AtomicInteger calls = new AtomicInteger();
+        Function<EndpointOp, Results> executor = op -> {
+            calls.incrementAndGet();
+            return ep.query(((EndpointQueryOp) op).getQuery());
+        };
+        EndpointQueryOp op = new EndpointQueryOp(ep, createQuery(x, type, D, Limit.of(1)));
+        assertEquals(greedy(reasoner.apply(op, executor)).getCollection().size(), 1);
+        assertTrue(calls.get() < tBox.withSubClasses(D).count());
+    }
+}
@@ -0,0 +1,94 @@
+package br.ufsc.lapesd.freqel;
+
+import br.ufsc.lapesd.freqel.jena.query.JenaBindingSolution;
+import br.ufsc.lapesd.freqel.model.Triple;
+import br.ufsc.lapesd.freqel.model.term.std.StdURI;
+import br.ufsc.lapesd.freqel.model.term.std.StdVar;
+import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilterFactory;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.rel.common.CompiledStar;
+import br.ufsc.lapesd.freqel.rel.mappings.Column;
+import br.ufsc.lapesd.freqel.rel.mappings.context.ContextMapping;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryExecution;
+import org.apache.jena.query.QueryExecutionFactory;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.query.ResultSet;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Compares the conversion of relational records into solutions of a star:
+ * writing each record into a Jena Model and running ARQ (the former RelationalResults
+ * approach) against a {@link CompiledStar}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Thread)
+public class RelationalConversionBenchmark {
+    private static final String EX = "http://example.org/ns#";
+    private static final int ROWS = 1024;
+
+    private ContextMapping mapping;
+    private List<Column> columns;
+    private List<List<Object>> rows;
+    private Query query;
+    private JenaBindingSolution.Factory jenaFactory;
+    private List<Triple> patterns;
+    private List<String> vars;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapping = ContextMapping.builder()
+                .beginTable("T")
+                    .instancePrefix(EX+"inst/").addIdColumn("id")
+                    .column2uri("name", new StdURI(EX+"name"))
+                    .column2uri("age", new StdURI(EX+"age"))
+                .endTable().build();
+        columns = asList(new Column("T", "id"), new Column("T", "name"),
+                         new Column("T", "age"));
+        rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++)
+            rows.add(asList(i, "name-"+i, 20 + i % 60));
+        query = QueryFactory.create("PREFIX ex: <"+EX+">\n" +
+                "SELECT * WHERE { ?s ex:name ?name ; ex:age ?age . }");
+        vars = asList("s", "name", "age");
+        jenaFactory = JenaBindingSolution.forVars(vars);
+        StdVar s = new StdVar("s");
+        patterns = asList(new Triple(s, new StdURI(EX+"name"), new StdVar("name")),
+                          new Triple(s, new StdURI(EX+"age"), new StdVar("age")));
+    }
+
+    @Benchmark
+    public List<Solution> modelAndARQ() {
+        List<Solution> solutions = new ArrayList<>(ROWS);
+        Model model = ModelFactory.createDefaultModel();
+        for (List<Object> row : rows) {
+            model.removeAll();
+            mapping.toRDF(model, columns, row);
+            try (QueryExecution exec = QueryExecutionFactory.create(query, model)) {
+                ResultSet rs = exec.execSelect();
+                while (rs.hasNext())
+                    solutions.add(jenaFactory.transform(rs.nextBinding()));
+            }
+        }
+        return solutions;
+    }
+
+    @Benchmark
+    public List<Solution> compiled() {
+        List<Solution> solutions = new ArrayList<>(ROWS);
+        CompiledStar star = new CompiledStar(mapping.compile(columns), patterns,
+                                             Collections.emptyList(),
+                                             SPARQLFilterFactory.createExecutor(), vars, false);
+        for (List<Object> row : rows)
+            star.evaluate(row, solutions);
+        return solutions;
+    }
+}
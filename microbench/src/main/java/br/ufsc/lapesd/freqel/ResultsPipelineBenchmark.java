@@ -0,0 +1,84 @@
+package br.ufsc.lapesd.freqel;
+
+import br.ufsc.lapesd.freqel.model.term.URI;
+import br.ufsc.lapesd.freqel.model.term.std.StdLit;
+import br.ufsc.lapesd.freqel.model.term.std.StdURI;
+import br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilter;
+import br.ufsc.lapesd.freqel.query.results.Results;
+import br.ufsc.lapesd.freqel.query.results.Solution;
+import br.ufsc.lapesd.freqel.query.results.impl.*;
+import com.google.common.collect.ImmutableSet;
+import org.apache.jena.vocabulary.XSD;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static br.ufsc.lapesd.freqel.query.modifiers.filter.SPARQLFilterFactory.parseFilter;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+
+/**
+ * Compares row-at-a-time consumption of a long chain of {@link Results} decorators
+ * (filter, projection, distinct, limit) against {@link Results#nextBatch(Solution[], int)}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@State(Scope.Thread)
+public class ResultsPipelineBenchmark {
+    private static final String EX = "http://example.org/ns#";
+    private static final URI xsdInt = new StdURI(XSD.xint.getURI());
+    private static final Set<String> XYZ = ImmutableSet.of("x", "y", "z");
+
+    @Param({"1024", "65536"})
+    private int rows;
+
+    @Param({"256"})
+    private int batchSize;
+
+    private List<Solution> input;
+    private Solution[] buffer;
+    private final List<SPARQLFilter> filters = singletonList(parseFilter("?z >= 0"));
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ArraySolution.ValueFactory factory = ArraySolution.forVars(asList("x", "y", "z"));
+        input = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            input.add(factory.fromValues(new StdURI(EX + i), new StdURI(EX + (i % 64)),
+                                         StdLit.fromUnescaped(String.valueOf(i), xsdInt)));
+        }
+        buffer = new Solution[batchSize];
+    }
+
+    private Results createPipeline() {
+        Results r = new CollectionResults(input, XYZ);
+        r = new PredicateFilterResults(r, s -> s.get("x") != null);
+        r = new SPARQLFilterResults(r, filters);
+        r = new ProjectingResults(r, ImmutableSet.of("x", "y"));
+        r = new PredicateFilterResults(r, s -> s.get("y") != null);
+        r = new ProjectingResults(r, singleton("y"));
+        r = new HashDistinctResults(r);
+        return new LimitResults(r, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public void rowAtATime(Blackhole bh) {
+        Results results = createPipeline();
+        while (results.hasNext())
+            bh.consume(results.next());
+        results.close();
+    }
+
+    @Benchmark
+    public void batched(Blackhole bh) {
+        Results results = createPipeline();
+        for (int n; (n = results.nextBatch(buffer, batchSize)) > 0; ) {
+            for (int i = 0; i < n; i++)
+                bh.consume(buffer[i]);
+        }
+        results.close();
+    }
+}